@@ -28,6 +28,9 @@ import com.gsma.rcs.provider.CursorUtil;
 import com.gsma.rcs.provider.contact.ContactManager;
 import com.gsma.rcs.provider.contact.ContactManagerException;
 import com.gsma.rcs.utils.logger.Logger;
+import com.gsma.rcs.utils.scheduler.SerialExecutor;
+import com.gsma.rcs.utils.scheduler.TaskScheduler;
+import com.gsma.rcs.utils.scheduler.TaskScheduler.Pool;
 
 import android.content.ContentResolver;
 import android.database.ContentObserver;
@@ -38,8 +41,6 @@ import android.provider.ContactsContract.CommonDataKinds.Phone;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 /**
  * Address book manager:<br>
@@ -86,7 +87,7 @@ public class AddressBookManager {
     /**
      * Background service executor
      */
-    private ExecutorService mCleanupExecutor;
+    private SerialExecutor mCleanupExecutor;
 
     private static final Logger sLogger = Logger.getLogger(AddressBookManager.class.getName());
 
@@ -114,7 +115,7 @@ public class AddressBookManager {
             sLogger.info("Start address book monitoring");
         }
         /* Instantiate background executor */
-        mCleanupExecutor = Executors.newSingleThreadExecutor();
+        mCleanupExecutor = TaskScheduler.getInstance().createSerialExecutor(Pool.IO);
 
         if (!mObserverIsRegistered) {
             /* Instantiate content observer */
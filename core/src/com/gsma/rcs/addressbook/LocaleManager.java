@@ -24,6 +24,9 @@ import com.gsma.rcs.provider.contact.ContactManager;
 import com.gsma.rcs.provider.contact.ContactManagerException;
 import com.gsma.rcs.provider.settings.RcsSettings;
 import com.gsma.rcs.utils.logger.Logger;
+import com.gsma.rcs.utils.scheduler.SerialExecutor;
+import com.gsma.rcs.utils.scheduler.TaskScheduler;
+import com.gsma.rcs.utils.scheduler.TaskScheduler.Pool;
 
 import android.content.BroadcastReceiver;
 import android.content.Context;
@@ -31,8 +34,6 @@ import android.content.Intent;
 import android.content.IntentFilter;
 
 import java.util.Locale;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 /**
  * A class to update the displayed strings of the RCS contact address book when the Locale changes
@@ -43,7 +44,7 @@ public class LocaleManager {
 
     private final static Logger sLogger = Logger.getLogger(LocaleManager.class.getSimpleName());
 
-    private ExecutorService mUpdateExecutor;
+    private SerialExecutor mUpdateExecutor;
     private final Context mCtx;
     private final RcsSettings mRcsSettings;
     private final ContactManager mContactManager;
@@ -72,7 +73,7 @@ public class LocaleManager {
      * Starts Locale manager
      */
     public void start() {
-        mUpdateExecutor = Executors.newSingleThreadExecutor();
+        mUpdateExecutor = TaskScheduler.getInstance().createSerialExecutor(Pool.IO);
         IntentFilter filter = new IntentFilter(Intent.ACTION_LOCALE_CHANGED);
         mLocaleChangedReceiver = new LocaleChangedReceiver();
         mCtx.registerReceiver(mLocaleChangedReceiver, filter);
@@ -38,6 +38,7 @@ import com.gsma.rcs.core.ims.service.ImsService;
 import com.gsma.rcs.core.ims.service.ImsService.ImsServiceType;
 import com.gsma.rcs.core.ims.service.ImsServiceDispatcher;
 import com.gsma.rcs.core.ims.service.ImsServiceSession.TerminationReason;
+import com.gsma.rcs.core.ims.service.ImsServiceSessionIndex;
 import com.gsma.rcs.core.ims.service.capability.CapabilityService;
 import com.gsma.rcs.core.ims.service.extension.ServiceExtensionManager;
 import com.gsma.rcs.core.ims.service.im.InstantMessagingService;
@@ -79,6 +80,11 @@ public class ImsModule implements SipEventListener {
 
     private ImsServiceDispatcher mServiceDispatcher;
 
+    /**
+     * Call-ID to session index of all the IMS services
+     */
+    private final ImsServiceSessionIndex mSessionIndex = new ImsServiceSessionIndex();
+
     private final CallManager mCallManager;
 
     private final ServiceExtensionManager mExtensionManager;
@@ -315,6 +321,15 @@ public class ImsModule implements SipEventListener {
         return mCallManager;
     }
 
+    /**
+     * Returns the Call-ID to session index of all the IMS services
+     * 
+     * @return Session index
+     */
+    public ImsServiceSessionIndex getImsServiceSessionIndex() {
+        return mSessionIndex;
+    }
+
     /**
      * Returns the IMS services
      * 
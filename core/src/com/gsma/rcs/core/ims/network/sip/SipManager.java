@@ -32,6 +32,7 @@ import com.gsma.rcs.core.ims.protocol.sip.SipMessage;
 import com.gsma.rcs.core.ims.protocol.sip.SipRequest;
 import com.gsma.rcs.core.ims.protocol.sip.SipResponse;
 import com.gsma.rcs.core.ims.protocol.sip.SipTransactionContext;
+import com.gsma.rcs.core.ims.protocol.sip.SipTransactionContext.INotifySipTransactionCompletion;
 import com.gsma.rcs.provider.settings.RcsSettings;
 import com.gsma.rcs.utils.logger.Logger;
 
@@ -200,14 +201,67 @@ public class SipManager {
             PayloadException {
         SipTransactionContext ctx = mSipInterface.sendSipMessageAndWait(message, callback);
         ctx.waitResponse(timeout);
+        if (message instanceof SipRequest) {
+            analyzeResponse((SipRequest) message, ctx);
+        }
+        return ctx;
+    }
 
-        if (!(message instanceof SipRequest) || !ctx.isSipResponse()) {
-            return ctx;
+    /**
+     * Send a SIP request without blocking the calling thread
+     * 
+     * @param request SIP request
+     * @param callback Callback invoked once the final response is received or the transaction
+     *            has timed out
+     * @return SIP transaction context
+     * @throws PayloadException
+     * @throws NetworkException
+     */
+    public SipTransactionContext sendSipMessageAsync(SipRequest request,
+            INotifySipTransactionCompletion callback) throws NetworkException, PayloadException {
+        return sendSipMessageAsync(request, SipManager.sTimeout, null, callback);
+    }
+
+    /**
+     * Send a SIP request without blocking the calling thread
+     * 
+     * @param request SIP request
+     * @param timeout SIP timeout in milliseconds
+     * @param provisionalCallback callback to handle provisional response or null
+     * @param callback Callback invoked once the final response is received or the transaction
+     *            has timed out
+     * @return SIP transaction context
+     * @throws PayloadException
+     * @throws NetworkException
+     */
+    public SipTransactionContext sendSipMessageAsync(final SipRequest request, long timeout,
+            SipTransactionContext.INotifySipProvisionalResponse provisionalCallback,
+            final INotifySipTransactionCompletion callback) throws NetworkException,
+            PayloadException {
+        return mSipInterface.sendSipMessageAsync(request, timeout, provisionalCallback,
+                new INotifySipTransactionCompletion() {
+                    @Override
+                    public void handleTransactionCompleted(SipTransactionContext ctx) {
+                        analyzeResponse(request, ctx);
+                        callback.handleTransactionCompleted(ctx);
+                    }
+                });
+    }
+
+    /**
+     * Analyze the final response received for a request
+     * 
+     * @param request SIP request
+     * @param ctx SIP transaction context
+     */
+    private void analyzeResponse(SipRequest request, SipTransactionContext ctx) {
+        if (!ctx.isSipResponse()) {
+            return;
         }
-        String method = ((SipRequest) message).getMethod();
+        String method = request.getMethod();
         SipResponse response = ctx.getSipResponse();
         if (response == null) {
-            return ctx;
+            return;
         }
         /* Analyze the received response */
         if (!Request.REGISTER.equals(method)) {
@@ -219,24 +273,24 @@ public class SipManager {
             }
         }
         if (!Request.INVITE.equals(method) && !Request.REGISTER.equals(method)) {
-            return ctx;
+            return;
         }
         KeepAliveManager keepAliveManager = mNetworkInterface.getSipManager().getSipStack()
                 .getKeepAliveManager();
         if (keepAliveManager == null) {
-            return ctx;
+            return;
         }
         /* Message is a response to INVITE or REGISTER: analyze "keep" flag of "Via" header */
         ListIterator<ViaHeader> iterator = response.getViaHeaders();
         if (!iterator.hasNext()) {
             keepAliveManager.setPeriod(mRcsSettings.getSipKeepAlivePeriod());
-            return ctx;
+            return;
         }
         ViaHeader respViaHeader = iterator.next();
         String keepStr = respViaHeader.getParameter("keep");
         if (keepStr == null) {
             keepAliveManager.setPeriod(mRcsSettings.getSipKeepAlivePeriod());
-            return ctx;
+            return;
         }
         try {
             long viaKeep = Integer.parseInt(keepStr) * SECONDS_TO_MILLISECONDS_CONVERSION_RATE;
@@ -253,7 +307,6 @@ public class SipManager {
              */
             keepAliveManager.setPeriod(mRcsSettings.getSipKeepAlivePeriod());
         }
-        return ctx;
     }
 
     /**
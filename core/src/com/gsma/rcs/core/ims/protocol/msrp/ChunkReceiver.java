@@ -30,26 +30,28 @@ import com.gsma.rcs.core.ims.protocol.PayloadException;
 import com.gsma.rcs.core.ims.protocol.msrp.MsrpSession.TypeMsrpChunk;
 import com.gsma.rcs.provider.contact.ContactManagerException;
 import com.gsma.rcs.utils.logger.Logger;
+import com.gsma.rcs.utils.scheduler.PooledTask;
+import com.gsma.rcs.utils.scheduler.TaskScheduler.Pool;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Hashtable;
 
 /**
- * Chunks receiver
+ * Chunks receiver, reading the connection from a thread of the IO pool
  * 
  * @author jexa7410
  */
-public class ChunkReceiver extends Thread {
+public class ChunkReceiver extends PooledTask {
     /**
      * MSRP connection
      */
     private MsrpConnection mConnection;
 
     /**
-     * MSRP input stream
+     * MSRP frame decoder
      */
-    private InputStream mStream;
+    private final MsrpFrameDecoder mDecoder;
 
     /**
      * Termination flag
@@ -59,7 +61,12 @@ public class ChunkReceiver extends Thread {
     /**
      * Maximum length of MSRP chunk buffer
      */
-    private int mBufferLength = MsrpConstants.CHUNK_MAX_SIZE;
+    private int mBufferLength;
+
+    /**
+     * Maximum size of a chunk received without Byte-Range
+     */
+    private final int mMaxChunkSize;
 
     /**
      * The logger
@@ -73,8 +80,11 @@ public class ChunkReceiver extends Thread {
      * @param stream TCP input stream
      */
     public ChunkReceiver(MsrpConnection connection, InputStream stream) {
+        super(Pool.LONG_RUNNING, "MsrpChunkReceiver");
         mConnection = connection;
-        mStream = stream;
+        mDecoder = new MsrpFrameDecoder(stream);
+        mMaxChunkSize = connection.getSession().getMaxChunkSize();
+        mBufferLength = mMaxChunkSize;
     }
 
     /**
@@ -97,7 +107,8 @@ public class ChunkReceiver extends Thread {
     /**
      * Background processing
      */
-    public void run() {
+    @Override
+    protected void runTask() {
         try {
             boolean msrpTraceEnabled = MsrpConnection.isMsrpTraceEnabled();
             // Background processing
@@ -105,9 +116,9 @@ public class ChunkReceiver extends Thread {
                 StringBuilder trace = new StringBuilder();
 
                 // Read first line of a new data chunk
-                StringBuilder line = readLine();
+                String line = readLine();
 
-                if (line.length() == 0) {
+                if (line == null || line.length() == 0) {
                     if (msrpTraceEnabled) {
                         System.out.println("<<< End of stream");
                     }
@@ -119,7 +130,7 @@ public class ChunkReceiver extends Thread {
                     trace.append(MsrpConstants.NEW_LINE);
                 }
                 // Check the MSRP tag
-                String[] firstLineTags = line.toString().split(" ");
+                String[] firstLineTags = line.split(" ");
                 if ((firstLineTags.length < 3)
                         || !firstLineTags[0].equals(MsrpConstants.MSRP_HEADER)) {
                     if (msrpTraceEnabled) {
@@ -150,6 +161,9 @@ public class ChunkReceiver extends Thread {
                 int totalSize = 0;
                 while (continuationFlag == '\0' && !mTerminated) {
                     line = readLine();
+                    if (line == null) {
+                        throw new NetworkException("End of stream reached inside MSRP message!");
+                    }
                     if (msrpTraceEnabled) {
                         trace.append(line);
                         trace.append(MsrpConstants.NEW_LINE);
@@ -165,25 +179,16 @@ public class ChunkReceiver extends Thread {
                             totalSize = MsrpUtils.getTotalSize(byteRange);
 
                             // Changed by Deutsche Telekom
-                            if (chunkSize == 0) {
+                            if (chunkSize == 0 && totalSize > 0) {
                                 mBufferLength = totalSize;
                             }
                         }
 
-                        if (chunkSize >= 0) {
+                        if (chunkSize > 0) {
                             // Use Byte-Range value to read directly the block of data
-                            byte[] buffer = readChunkedData(chunkSize, end);
-
-                            if (chunkSize > 0) {
-                                data = buffer;
-                                // TODO: we could harden the code by checking whether the chunk was
-                                // shorter than expected
-                            } else {
-                                // Cut off continuation flag
-                                data = new byte[buffer.length - 1];
-                                System.arraycopy(buffer, 0, data, 0, buffer.length - 1);
-                                continuationFlag = (char) buffer[buffer.length - 1];
-                            }
+                            data = readChunkedData(chunkSize);
+                            // TODO: we could harden the code by checking whether the chunk was
+                            // shorter than expected
 
                             if (msrpTraceEnabled) {
                                 trace.append(new String(data, UTF8));
@@ -191,24 +196,18 @@ public class ChunkReceiver extends Thread {
                             }
                         } else {
                             // Read until terminating header is found
-                            StringBuilder buffer = new StringBuilder();
-                            StringBuilder dataline;
-                            boolean endchunk = false;
-                            while ((!endchunk) && (buffer.length() < MsrpConstants.CHUNK_MAX_SIZE)) {
-                                dataline = readLine();
-                                if ((dataline.length() - 1 == end.length())
-                                        && (dataline.toString().startsWith(end))) {
-                                    continuationFlag = dataline.charAt(dataline.length() - 1);
-                                    endchunk = true;
-                                } else {
-                                    if (buffer.length() > 0) {
-                                        buffer.append(MsrpConstants.NEW_LINE);
-                                    }
-                                    buffer.append(dataline);
-                                }
+                            int maxSize = (chunkSize == 0) ? mBufferLength
+                                    : mMaxChunkSize;
+                            data = readChunkedData(end, maxSize);
+                            String endLine = readLine();
+                            if (endLine == null || endLine.length() == 0) {
+                                throw new NetworkException(
+                                        "End of stream reached inside MSRP message!");
+                            }
+                            continuationFlag = endLine.charAt(0);
+                            if (chunkSize < 0) {
+                                totalSize = data.length;
                             }
-                            data = buffer.toString().getBytes(UTF8);
-                            totalSize = data.length;
 
                             if (msrpTraceEnabled) {
                                 trace.append(new String(data, UTF8));
@@ -217,11 +216,11 @@ public class ChunkReceiver extends Thread {
                                 trace.append(continuationFlag);
                             }
                         }
-                    } else if (line.toString().startsWith(end)) {
+                    } else if (line.startsWith(end)) {
                         continuationFlag = line.charAt(line.length() - 1);
                     } else {
                         // It's an header
-                        int index = line.indexOf(":");
+                        int index = line.indexOf(':');
                         String headerName = line.substring(0, index).trim();
                         String headerValue = line.substring(index + 1).trim();
 
@@ -304,7 +303,7 @@ public class ChunkReceiver extends Thread {
                 mTerminated = true;
             }
         } catch (NetworkException e) {
-            if (sLogger.isActivated()) {
+            if (sLogger.isDebugEnabled()) {
                 sLogger.debug(e.getMessage());
             }
             if (!mTerminated) {
@@ -341,96 +340,44 @@ public class ChunkReceiver extends Thread {
     /**
      * Read line
      * 
-     * @return String
+     * @return Line or null if end of stream is reached
      * @throws NetworkException
      */
-    private StringBuilder readLine() throws NetworkException {
+    private String readLine() throws NetworkException {
         try {
-            StringBuilder line = new StringBuilder();
-            int previous = -1;
-            int current = -1;
-            while ((current = mStream.read()) != -1) {
-                line.append((char) current);
-                if ((previous == MsrpConstants.CHAR_LF) && (current == MsrpConstants.CHAR_CR)) {
-                    return line.delete(line.length() - 2, line.length());
-                }
-                previous = current;
-            }
-            return line;
+            return mDecoder.readLine();
         } catch (IOException e) {
             throw new NetworkException("Failed to read line!", e);
         }
     }
 
     /**
-     * Read chunked data
+     * Read chunked data whose size is given by the Byte-Range header
      * 
      * @param chunkSize Chunk size
      * @return Data
      * @throws NetworkException
      */
-    private byte[] readChunkedData(int chunkSize, String endTag) throws NetworkException {
+    private byte[] readChunkedData(int chunkSize) throws NetworkException {
         try {
-            // Read data until chunk size is reached
-            byte[] result = null;
-            if (chunkSize != 0) {
-                result = new byte[chunkSize];
-                int nbRead = 0;
-                int nbData = -1;
-                while ((nbRead < chunkSize)
-                        && ((nbData = mStream.read(result, nbRead, chunkSize - nbRead)) != -1)) {
-                    nbRead += nbData;
-                }
-            } else {
-                int b;
-                int tagLength = endTag.length();
-                int[] tail = new int[tagLength];
-                byte[] buffer = new byte[mBufferLength + tagLength + 2];
-
-                // MSRP end tag in reverse order
-                int[] match = new int[tagLength];
-                for (int i = 0; i < tagLength; i++) {
-                    match[i] = endTag.charAt(tagLength - i - 1);
-                }
-
-                // Read stream byte by byte
-                for (int j = 0; (b = mStream.read()) != -1; j++) {
-                    // Sliding window over last received bytes
-                    System.arraycopy(tail, 0, tail, 1, tagLength - 1);
-                    tail[0] = b;
+            return mDecoder.readData(chunkSize);
+        } catch (IOException e) {
+            throw new NetworkException("Failed to read chunk data!", e);
+        }
+    }
 
-                    if (b != match[0]) {
-                        buffer[j] = (byte) b;
-                    } else {
-                        // First char matches; let's check for the others
-                        boolean tagFound = true;
-                        for (int k = 1; k < tagLength - 1; k++) {
-                            if (tail[k] != match[k]) {
-                                buffer[j] = (byte) b;
-                                tagFound = false;
-                                break;
-                            }
-                        }
-                        if (tagFound) {
-                            // Strip off MSRP end tag
-                            // j+1 characters read; remove tagLength characters and CR/LF plus one
-                            // extra
-                            // character for continuation flag
-                            result = new byte[j - tagLength];
-                            System.arraycopy(buffer, 0, result, 0, j - tagLength - 1); // remove tag
-                                                                                       // and
-                                                                                       // CR/LF
-
-                            // read continuation flag
-                            result[j - tagLength - 1] = (byte) mStream.read();
-                            break;
-                        }
-                    }
-                }
-            }
-            mStream.read(); // Read LF
-            mStream.read(); // Read CR
-            return result;
+    /**
+     * Read chunked data until the MSRP end line is found
+     * 
+     * @param endTag MSRP end tag
+     * @param maxSize Maximum size of the data
+     * @return Data
+     * @throws NetworkException
+     */
+    private byte[] readChunkedData(String endTag, int maxSize) throws NetworkException {
+        try {
+            return mDecoder.readDataUntil((MsrpConstants.NEW_LINE + endTag).getBytes(UTF8),
+                    maxSize);
         } catch (IOException e) {
             throw new NetworkException("Failed to read chunk data!", e);
         }
@@ -27,16 +27,22 @@ import static com.gsma.rcs.utils.StringUtils.UTF8;
 import com.gsma.rcs.core.ims.network.NetworkException;
 import com.gsma.rcs.core.ims.protocol.msrp.MsrpSession.TypeMsrpChunk;
 import com.gsma.rcs.utils.logger.Logger;
+import com.gsma.rcs.utils.queue.MpmcRingBufferQueue;
+import com.gsma.rcs.utils.queue.OverflowPolicy;
+import com.gsma.rcs.utils.scheduler.QueueConsumer;
+import com.gsma.rcs.utils.scheduler.TaskScheduler;
+import com.gsma.rcs.utils.scheduler.TaskScheduler.Pool;
 
 import java.io.IOException;
 import java.io.OutputStream;
 
 /**
- * Chunks sender
+ * Chunks sender. Queued chunks are written by a task of the IO pool, the sender does not own a
+ * thread.
  * 
  * @author jexa7410
  */
-public class ChunkSender extends Thread {
+public class ChunkSender extends QueueConsumer<Object> {
     /**
      * MSRP connection
      */
@@ -48,14 +54,26 @@ public class ChunkSender extends Thread {
     private OutputStream mStream;
 
     /**
-     * Buffer of chunks
+     * Buffer in which a pooled chunk is assembled before being written, grown to the largest
+     * chunk sent
      */
-    private FifoBuffer mBuffer = new FifoBuffer();
+    private byte[] mWriteBuffer = new byte[0];
+
+    /**
+     * Maximum number of data chunks waiting to be written, the session is blocked beyond.
+     * Responses and reports are not bounded.
+     */
+    private static final int MAX_PENDING_CHUNKS = 2 * MsrpConstants.MAX_CHUNKS_IN_FLIGHT;
 
     /**
      * Termination flag
      */
-    private boolean mTerminated;
+    private volatile boolean mTerminated;
+
+    /**
+     * Set when a queued chunk could not be written: the next ones are dropped
+     */
+    private boolean mFailed;
 
     /**
      * The logger
@@ -69,6 +87,12 @@ public class ChunkSender extends Thread {
      * @param stream TCP output stream
      */
     public ChunkSender(MsrpConnection connection, OutputStream stream) {
+        /*
+         * Buffer of the pooled chunks of the sending session, responses and reports sent by the
+         * receiver are queued as urgent elements
+         */
+        super(new MpmcRingBufferQueue<>(MAX_PENDING_CHUNKS, OverflowPolicy.BLOCK), TaskScheduler
+                .getInstance().getExecutor(Pool.IO));
         mConnection = connection;
         mStream = stream;
     }
@@ -87,27 +111,34 @@ public class ChunkSender extends Thread {
      */
     public void terminate() {
         mTerminated = true;
-        mBuffer.unblockRead();
-        interrupt();
+        close();
     }
 
     /**
-     * Background processing
+     * Write a queued chunk to the output stream
+     * 
+     * @param chunk Chunk
      */
-    public void run() {
+    @Override
+    protected void consume(Object chunk) {
+        if (mFailed) {
+            if (chunk instanceof MsrpChunk) {
+                ((MsrpChunk) chunk).recycle();
+            }
+            return;
+        }
         try {
-            // Read chunk to be sent
-            byte chunk[] = null;
-            while ((chunk = (byte[]) mBuffer.getMessage()) != null) {
-                // Write chunk to the output stream
-                if (MsrpConnection.isMsrpTraceEnabled()) {
-                    System.out.println(">>> Send MSRP message:\n" + new String(chunk, UTF8));
-                }
-                writeData(chunk);
+            if (chunk instanceof MsrpChunk) {
+                sendChunkImmediately((MsrpChunk) chunk);
+            } else {
+                sendChunkImmediately((byte[]) chunk);
             }
         } catch (NetworkException e) {
+            /* No more chunk is written and the producers are unblocked */
+            mFailed = true;
+            close();
             if (!mTerminated) {
-                if (sLogger.isActivated()) {
+                if (sLogger.isDebugEnabled()) {
                     sLogger.debug(e.getMessage());
                 }
                 /* Notify the msrp session listener that an error has occured */
@@ -117,10 +148,12 @@ public class ChunkSender extends Thread {
             }
         } catch (RuntimeException e) {
             /*
-             * Intentionally catch runtime exceptions as else it will abruptly end the thread and
+             * Intentionally catch runtime exceptions as else it will abruptly end the sender and
              * eventually bring the whole system down, which is not intended.
              */
             sLogger.error("Unable to send chunks!", e);
+            mFailed = true;
+            close();
             if (!mTerminated) {
                 /* Notify the msrp session listener that an error has occured */
                 /* Changed by Deutsche Telekom */
@@ -131,14 +164,16 @@ public class ChunkSender extends Thread {
     }
 
     /**
-     * Send a chunk
+     * Send a response or report chunk. It is never blocked behind the pending data chunks, so the
+     * receiver answering the peer cannot be stalled by a full queue of the sending session.
      * 
      * @param chunk New chunk
      * @throws NetworkException
      */
     public void sendChunk(byte chunk[]) throws NetworkException {
         if (mConnection.getSession().isFailureReportRequested()) {
-            mBuffer.putMessage(chunk);
+            /* Dropped if the sender has been terminated meanwhile */
+            offerUrgent(chunk);
         } else {
             sendChunkImmediately(chunk);
         }
@@ -157,6 +192,40 @@ public class ChunkSender extends Thread {
         writeData(chunk);
     }
 
+    /**
+     * Send a pooled chunk
+     * 
+     * @param chunk New chunk
+     * @throws NetworkException
+     */
+    public void sendChunk(MsrpChunk chunk) throws NetworkException {
+        if (mConnection.getSession().isFailureReportRequested()) {
+            if (!offer(chunk)) {
+                /* Sender has been terminated */
+                chunk.recycle();
+            }
+        } else {
+            sendChunkImmediately(chunk);
+        }
+    }
+
+    /**
+     * Send a pooled chunk immediately, the chunk is recycled once written
+     * 
+     * @param chunk New chunk
+     * @throws NetworkException
+     */
+    public void sendChunkImmediately(MsrpChunk chunk) throws NetworkException {
+        try {
+            if (MsrpConnection.isMsrpTraceEnabled()) {
+                System.out.println(">>> Send MSRP message:\n" + chunk);
+            }
+            writeData(chunk);
+        } finally {
+            chunk.recycle();
+        }
+    }
+
     /**
      * Write data to the stream
      * 
@@ -171,4 +240,33 @@ public class ChunkSender extends Thread {
             throw new NetworkException("Failed to write data!", e);
         }
     }
+
+    /**
+     * Write a pooled chunk to the stream. The header, payload and end line are assembled in the
+     * write buffer so that the frame goes out in a single write on the unbuffered socket stream
+     * instead of three small TCP segments.
+     * 
+     * @param chunk Data chunk
+     * @throws NetworkException
+     */
+    private synchronized void writeData(MsrpChunk chunk) throws NetworkException {
+        byte[] frame = chunk.getFrame();
+        int headerLength = chunk.getHeaderLength();
+        int dataLength = chunk.getDataLength();
+        int trailerLength = chunk.getTrailerLength();
+        int length = headerLength + dataLength + trailerLength;
+        if (mWriteBuffer.length < length) {
+            mWriteBuffer = new byte[length];
+        }
+        System.arraycopy(frame, 0, mWriteBuffer, 0, headerLength);
+        System.arraycopy(chunk.getData(), 0, mWriteBuffer, headerLength, dataLength);
+        System.arraycopy(frame, headerLength, mWriteBuffer, headerLength + dataLength,
+                trailerLength);
+        try {
+            mStream.write(mWriteBuffer, 0, length);
+            mStream.flush();
+        } catch (IOException e) {
+            throw new NetworkException("Failed to write data!", e);
+        }
+    }
 }
@@ -0,0 +1,166 @@
+/*******************************************************************************
+ * Software Name : RCS IMS Stack
+ *
+ * Copyright (C) 2010-2016 Orange.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.gsma.rcs.core.ims.protocol.msrp;
+
+import static com.gsma.rcs.utils.StringUtils.UTF8;
+
+/**
+ * MSRP chunk ready to be written on the wire.<br>
+ * The chunk is kept as three segments (encoded header, payload and encoded end line) which are
+ * written one after the other, so the payload is never copied into an intermediate buffer. Chunks
+ * are recycled through their {@link MsrpChunkPool} once written.
+ *
+ * @author jexa7410
+ */
+public class MsrpChunk {
+    /**
+     * Encoded header followed by the encoded end line
+     */
+    private byte[] mFrame;
+
+    private int mHeaderLength;
+
+    private int mTrailerLength;
+
+    private final byte[] mData;
+
+    private int mDataLength;
+
+    private final MsrpChunkPool mPool;
+
+    /**
+     * Constructor
+     *
+     * @param pool Pool owning the chunk
+     * @param dataCapacity Capacity of the payload buffer
+     * @param frameCapacity Initial capacity of the header and end line buffer
+     */
+    /* package private */MsrpChunk(MsrpChunkPool pool, int dataCapacity, int frameCapacity) {
+        mPool = pool;
+        mData = new byte[dataCapacity];
+        mFrame = new byte[frameCapacity];
+    }
+
+    /**
+     * Returns the payload buffer to be filled by the caller
+     *
+     * @return Payload buffer
+     */
+    public byte[] getData() {
+        return mData;
+    }
+
+    /**
+     * Returns the payload length
+     *
+     * @return Length in bytes
+     */
+    public int getDataLength() {
+        return mDataLength;
+    }
+
+    /**
+     * Set the payload length
+     *
+     * @param length Length in bytes
+     */
+    public void setDataLength(int length) {
+        mDataLength = length;
+    }
+
+    /**
+     * Returns the buffer holding the encoded header and end line
+     *
+     * @return Frame buffer
+     */
+    /* package private */byte[] getFrame() {
+        return mFrame;
+    }
+
+    /**
+     * Make sure the frame buffer can hold the given number of bytes
+     *
+     * @param capacity Expected capacity
+     * @return Frame buffer
+     */
+    /* package private */byte[] ensureFrameCapacity(int capacity) {
+        if (mFrame.length < capacity) {
+            mFrame = new byte[capacity];
+        }
+        return mFrame;
+    }
+
+    /**
+     * Set the lengths of the encoded segments
+     *
+     * @param headerLength Length of the encoded header
+     * @param trailerLength Length of the encoded end line
+     */
+    /* package private */void setFrameLengths(int headerLength, int trailerLength) {
+        mHeaderLength = headerLength;
+        mTrailerLength = trailerLength;
+    }
+
+    /**
+     * Returns the length of the encoded header
+     *
+     * @return Length in bytes
+     */
+    public int getHeaderLength() {
+        return mHeaderLength;
+    }
+
+    /**
+     * Returns the length of the encoded end line
+     *
+     * @return Length in bytes
+     */
+    public int getTrailerLength() {
+        return mTrailerLength;
+    }
+
+    /**
+     * Returns the total number of bytes sent on the wire for this chunk
+     *
+     * @return Length in bytes
+     */
+    public int getLength() {
+        return mHeaderLength + mDataLength + mTrailerLength;
+    }
+
+    /**
+     * Give the chunk back to its pool
+     */
+    public void recycle() {
+        mDataLength = 0;
+        mHeaderLength = 0;
+        mTrailerLength = 0;
+        if (mPool != null) {
+            mPool.release(this);
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder trace = new StringBuilder(new String(mFrame, 0, mHeaderLength, UTF8));
+        trace.append(new String(mData, 0, mDataLength, UTF8));
+        trace.append(new String(mFrame, mHeaderLength, mTrailerLength, UTF8));
+        return trace.toString();
+    }
+}
@@ -0,0 +1,103 @@
+/*******************************************************************************
+ * Software Name : RCS IMS Stack
+ *
+ * Copyright (C) 2010-2016 Orange.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.gsma.rcs.core.ims.protocol.msrp;
+
+import java.util.ArrayDeque;
+
+/**
+ * Pool of reusable MSRP chunks.<br>
+ * A new chunk is allocated only when the pool is empty, so once the sender keeps up with the
+ * reader a transfer runs without allocating payload or header buffers.
+ *
+ * @author jexa7410
+ */
+public class MsrpChunkPool {
+    /**
+     * Default number of idle chunks kept in the pool
+     */
+    private static final int DEFAULT_MAX_IDLE_CHUNKS = 8;
+
+    /**
+     * Default initial capacity of the header and end line buffer
+     */
+    private static final int DEFAULT_FRAME_CAPACITY = 512;
+
+    private final ArrayDeque<MsrpChunk> mIdleChunks = new ArrayDeque<>();
+
+    private final int mDataCapacity;
+
+    private final int mMaxIdleChunks;
+
+    /**
+     * Constructor
+     *
+     * @param dataCapacity Payload capacity of each chunk
+     */
+    public MsrpChunkPool(int dataCapacity) {
+        this(dataCapacity, DEFAULT_MAX_IDLE_CHUNKS);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param dataCapacity Payload capacity of each chunk
+     * @param maxIdleChunks Maximum number of idle chunks kept in the pool
+     */
+    public MsrpChunkPool(int dataCapacity, int maxIdleChunks) {
+        mDataCapacity = dataCapacity;
+        mMaxIdleChunks = maxIdleChunks;
+    }
+
+    /**
+     * Returns the payload capacity of the chunks
+     *
+     * @return Capacity in bytes
+     */
+    public int getDataCapacity() {
+        return mDataCapacity;
+    }
+
+    /**
+     * Get a chunk from the pool, a new one is created if the pool is empty
+     *
+     * @return Chunk
+     */
+    public MsrpChunk acquire() {
+        synchronized (mIdleChunks) {
+            MsrpChunk chunk = mIdleChunks.pollFirst();
+            if (chunk != null) {
+                return chunk;
+            }
+        }
+        return new MsrpChunk(this, mDataCapacity, DEFAULT_FRAME_CAPACITY);
+    }
+
+    /**
+     * Give a chunk back to the pool
+     *
+     * @param chunk Chunk
+     */
+    /* package private */void release(MsrpChunk chunk) {
+        synchronized (mIdleChunks) {
+            if (mIdleChunks.size() < mMaxIdleChunks) {
+                mIdleChunks.addFirst(chunk);
+            }
+        }
+    }
+}
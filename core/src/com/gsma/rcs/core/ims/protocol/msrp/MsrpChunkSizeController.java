@@ -0,0 +1,216 @@
+/*******************************************************************************
+ * Software Name : RCS IMS Stack
+ *
+ * Copyright (C) 2010-2016 Orange.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.gsma.rcs.core.ims.protocol.msrp;
+
+import com.gsma.rcs.utils.logger.Logger;
+
+/**
+ * Controller of the size of the MSRP chunks sent for a content.<br>
+ * The chunk size is fixed unless the adaptive mode is enabled. In that case the measured response
+ * latency and throughput are evaluated each time a full window of chunks has been acknowledged:
+ * the chunk size is halved when the latency exceeds the target or when the throughput has dropped
+ * since the last change, otherwise it is doubled, always between
+ * {@link MsrpConstants#CHUNK_MIN_SIZE} and the maximum chunk size. The maximum chunk size is a
+ * hard limit: it wins over the minimum size when it is configured below it.
+ *
+ * @author jexa7410
+ */
+public class MsrpChunkSizeController {
+    /**
+     * Number of acknowledged chunks between two evaluations of the chunk size
+     */
+    private static final int RESPONSES_PER_ROUND = MsrpConstants.MAX_CHUNKS_IN_FLIGHT;
+
+    /**
+     * Throughput drop, in percent, above which a larger chunk size is considered as counter
+     * productive
+     */
+    private static final int THROUGHPUT_DROP_PERCENT = 10;
+
+    private static final Logger sLogger = Logger.getLogger(MsrpChunkSizeController.class
+            .getSimpleName());
+
+    private static volatile MsrpChunkSizeListener sListener;
+
+    private final int mMaxChunkSize;
+
+    private final boolean mAdaptive;
+
+    private final long mTargetLatency;
+
+    private int mChunkSize;
+
+    /**
+     * Chunk size above which the throughput has been seen dropping
+     */
+    private int mCeiling;
+
+    private long mTotalSize;
+
+    private long mLastThroughput = -1;
+
+    private long mRoundStart;
+
+    private long mRoundBytes;
+
+    private long mRoundLatency;
+
+    private int mRoundResponses;
+
+    /**
+     * Constructor
+     *
+     * @param chunkSize Chunk size, initial size in adaptive mode
+     * @param maxChunkSize Maximum chunk size
+     * @param adaptive True to adapt the chunk size to the measured latency and throughput
+     * @param targetLatency Response latency in milliseconds above which the chunk size is reduced
+     */
+    public MsrpChunkSizeController(int chunkSize, int maxChunkSize, boolean adaptive,
+            long targetLatency) {
+        mMaxChunkSize = Math.max(1, maxChunkSize);
+        mChunkSize = clamp(chunkSize);
+        mCeiling = mMaxChunkSize;
+        mAdaptive = adaptive;
+        mTargetLatency = targetLatency;
+    }
+
+    /**
+     * Set the instrumentation listener notified of the selected chunk sizes
+     *
+     * @param listener Listener or null
+     */
+    public static void setListener(MsrpChunkSizeListener listener) {
+        sListener = listener;
+    }
+
+    /**
+     * Is adaptive
+     *
+     * @return True if the chunk size is adapted during the transfer
+     */
+    public boolean isAdaptive() {
+        return mAdaptive;
+    }
+
+    /**
+     * Returns the size of the next chunk to be sent
+     *
+     * @return Size in bytes
+     */
+    public synchronized int getChunkSize() {
+        return mChunkSize;
+    }
+
+    /**
+     * Returns the maximum chunk size
+     *
+     * @return Size in bytes
+     */
+    public int getMaxChunkSize() {
+        return mMaxChunkSize;
+    }
+
+    /**
+     * Start the transfer of a content
+     *
+     * @param totalSize Total size of the content
+     */
+    public void start(long totalSize) {
+        int chunkSize;
+        synchronized (this) {
+            mTotalSize = totalSize;
+            mRoundStart = System.currentTimeMillis();
+            chunkSize = mChunkSize;
+        }
+        if (sLogger.isDebugEnabled()) {
+            sLogger.debug("Chunk size " + chunkSize + " for content of " + totalSize + " bytes");
+        }
+        notifyListener(totalSize, chunkSize, -1, -1);
+    }
+
+    /**
+     * A chunk has been acknowledged by a 200 OK response
+     *
+     * @param chunkSize Size of the acknowledged chunk
+     * @param latency Time elapsed between the sending of the chunk and its response in
+     *            milliseconds
+     */
+    public void onChunkAcknowledged(int chunkSize, long latency) {
+        if (!mAdaptive) {
+            return;
+        }
+        long totalSize;
+        int newChunkSize;
+        long throughput;
+        long averageLatency;
+        synchronized (this) {
+            mRoundBytes += chunkSize;
+            mRoundLatency += latency;
+            if (++mRoundResponses < RESPONSES_PER_ROUND) {
+                return;
+            }
+            long now = System.currentTimeMillis();
+            throughput = mRoundBytes * 1000 / Math.max(1, now - mRoundStart);
+            averageLatency = mRoundLatency / mRoundResponses;
+            if (averageLatency > mTargetLatency) {
+                newChunkSize = clamp(mChunkSize / 2);
+
+            } else if (mLastThroughput > 0
+                    && throughput * 100 < mLastThroughput * (100 - THROUGHPUT_DROP_PERCENT)) {
+                newChunkSize = clamp(mChunkSize / 2);
+                mCeiling = newChunkSize;
+
+            } else {
+                newChunkSize = Math.min(clamp(mChunkSize * 2), mCeiling);
+            }
+            mLastThroughput = throughput;
+            mRoundStart = now;
+            mRoundBytes = 0;
+            mRoundLatency = 0;
+            mRoundResponses = 0;
+            if (newChunkSize == mChunkSize) {
+                return;
+            }
+            mChunkSize = newChunkSize;
+            totalSize = mTotalSize;
+        }
+        if (sLogger.isDebugEnabled()) {
+            sLogger.debug("Chunk size " + newChunkSize + " for content of " + totalSize
+                    + " bytes (throughput=" + throughput + " B/s, latency=" + averageLatency
+                    + " ms)");
+        }
+        notifyListener(totalSize, newChunkSize, throughput, averageLatency);
+    }
+
+    /**
+     * Bound a chunk size: the maximum chunk size is applied last so that it is never exceeded,
+     * even when it is below {@link MsrpConstants#CHUNK_MIN_SIZE}
+     */
+    private int clamp(int chunkSize) {
+        return Math.min(Math.max(MsrpConstants.CHUNK_MIN_SIZE, chunkSize), mMaxChunkSize);
+    }
+
+    private static void notifyListener(long totalSize, int chunkSize, long throughput,
+            long latency) {
+        MsrpChunkSizeListener listener = sListener;
+        if (listener != null) {
+            listener.onChunkSizeSelected(totalSize, chunkSize, throughput, latency);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+/*******************************************************************************
+ * Software Name : RCS IMS Stack
+ *
+ * Copyright (C) 2010-2016 Orange.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.gsma.rcs.core.ims.protocol.msrp;
+
+/**
+ * Instrumentation hook notified of the MSRP chunk sizes chosen for the sent contents, so that the
+ * chunk size settings can be tuned per network type
+ *
+ * @author jexa7410
+ */
+public interface MsrpChunkSizeListener {
+    /**
+     * A chunk size has been selected for a content, when the transfer starts and each time the
+     * adaptive mode changes it
+     *
+     * @param contentSize Total size of the content
+     * @param chunkSize Selected chunk size in bytes
+     * @param throughput Measured throughput in bytes per second, or -1 when the transfer starts
+     * @param latency Average response latency in milliseconds, or -1 when the transfer starts
+     */
+    void onChunkSizeSelected(long contentSize, int chunkSize, long throughput, long latency);
+}
@@ -30,6 +30,7 @@ import com.gsma.rcs.utils.logger.Logger;
 
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * Abstract MSRP connection between two end points
@@ -92,11 +93,15 @@ public abstract class MsrpConnection {
         mOutputStream = mSocket.getOutputStream();
         // Create the chunk receiver
         mReceiver = new ChunkReceiver(this, mInputStream);
-        mReceiver.start();
+        try {
+            mReceiver.start();
+        } catch (RejectedExecutionException e) {
+            throw new NetworkException("No thread available to read the connection!", e);
+        }
         // Create the chunk sender
         mSender = new ChunkSender(this, mOutputStream);
         mSender.start();
-        if (sLogger.isActivated()) {
+        if (sLogger.isDebugEnabled()) {
             sLogger.debug("Connection has been opened");
         }
     }
@@ -118,11 +123,15 @@ public abstract class MsrpConnection {
         mOutputStream = mSocket.getOutputStream();
         // Create the chunk receiver
         mReceiver = new ChunkReceiver(this, mInputStream);
-        mReceiver.start();
+        try {
+            mReceiver.start();
+        } catch (RejectedExecutionException e) {
+            throw new NetworkException("No thread available to read the connection!", e);
+        }
         // Create the chunk sender
         mSender = new ChunkSender(this, mOutputStream);
         mSender.start();
-        if (sLogger.isActivated()) {
+        if (sLogger.isDebugEnabled()) {
             sLogger.debug("Connection has been opened");
         }
     }
@@ -137,19 +146,19 @@ public abstract class MsrpConnection {
         if (mReceiver != null) {
             mReceiver.terminate();
         }
-        if (sLogger.isActivated()) {
+        if (sLogger.isDebugEnabled()) {
             sLogger.debug("Close the socket connection");
         }
         CloseableUtils.tryToClose(mInputStream);
         CloseableUtils.tryToClose(mOutputStream);
         CloseableUtils.tryToClose(mSocket);
-        if (sLogger.isActivated()) {
+        if (sLogger.isDebugEnabled()) {
             sLogger.debug("Connection has been closed");
         }
     }
 
     /**
-     * Send a new data chunk
+     * Send a new response or report chunk, it does not wait for the pending data chunks
      * 
      * @param chunk Data chunk
      * @throws NetworkException
@@ -161,6 +170,20 @@ public abstract class MsrpConnection {
         mSender.sendChunk(chunk);
     }
 
+    /**
+     * Send a new pooled data chunk
+     * 
+     * @param chunk Data chunk
+     * @throws NetworkException
+     */
+    public void sendChunk(MsrpChunk chunk) throws NetworkException {
+        if (mSender == null) {
+            chunk.recycle();
+            throw new NetworkException("ChunkSender is already closed!");
+        }
+        mSender.sendChunk(chunk);
+    }
+
     /**
      * Send a new data chunk immediately
      * 
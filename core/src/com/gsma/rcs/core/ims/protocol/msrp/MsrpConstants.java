@@ -57,4 +57,8 @@ public interface MsrpConstants {
     public static final String STATUS_200_OK = "200 OK";
 
     public static final int CHUNK_MAX_SIZE = 10 * 1024;
+
+    public static final int CHUNK_MIN_SIZE = 1024;
+
+    public static final int MAX_CHUNKS_IN_FLIGHT = 8;
 }
@@ -22,6 +22,7 @@
 
 package com.gsma.rcs.core.ims.protocol.msrp;
 
+import com.gsma.rcs.core.FileAccessException;
 import com.gsma.rcs.core.ims.network.NetworkException;
 import com.gsma.rcs.core.ims.protocol.PayloadException;
 import com.gsma.rcs.core.ims.protocol.msrp.MsrpSession.TypeMsrpChunk;
@@ -78,6 +79,13 @@ public interface MsrpEventListener {
      */
     void msrpTransferAborted();
 
+    /**
+     * Received data could not be saved to the file sink of the session
+     * 
+     * @param e File access exception
+     */
+    void msrpFileSavingFailed(FileAccessException e);
+
     /**
      * Data transfer error
      * 
@@ -0,0 +1,162 @@
+/*******************************************************************************
+ * Software Name : RCS IMS Stack
+ *
+ * Copyright (C) 2010-2016 Orange.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.gsma.rcs.core.ims.protocol.msrp;
+
+import com.gsma.rcs.core.FileAccessException;
+import com.gsma.rcs.utils.CloseableUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * MSRP file sink.<br>
+ * Used by file transfer sessions to write each received chunk at the offset given by its
+ * Byte-Range header, straight to the target file, instead of accumulating the content in memory.
+ * An existing file is truncated when the first chunk is written, and no chunk can be written once
+ * the sink has been closed.
+ *
+ * @author jexa7410
+ */
+public class MsrpFileSink {
+
+    private final File mFile;
+
+    private RandomAccessFile mRandomAccessFile;
+
+    private FileChannel mChannel;
+
+    private boolean mClosed = false;
+
+    /**
+     * Number of distinct bytes written to the file
+     */
+    private long mReceivedSize;
+
+    /**
+     * Byte ranges already written to the file: start offset mapped to end offset (exclusive).
+     * Ranges are disjoint and never adjacent.
+     */
+    private final TreeMap<Long, Long> mReceivedRanges = new TreeMap<>();
+
+    /**
+     * Constructor
+     *
+     * @param file Target file
+     */
+    public MsrpFileSink(File file) {
+        mFile = file;
+    }
+
+    /**
+     * Write a chunk to the file. Bytes of a chunk that were already received (retransmitted or
+     * overlapping chunk) are written again but not counted twice in the received size.
+     *
+     * @param offset Offset of the chunk in the file (Byte-Range first byte minus one)
+     * @param data Chunk data
+     * @throws FileAccessException
+     */
+    public synchronized void write(long offset, byte[] data) throws FileAccessException {
+        if (mClosed) {
+            throw new FileAccessException("File sink " + mFile.getAbsolutePath()
+                    + " is already closed!");
+        }
+        try {
+            if (mChannel == null) {
+                mRandomAccessFile = new RandomAccessFile(mFile, "rw");
+                mChannel = mRandomAccessFile.getChannel();
+                /* Discard the bytes of a previous transfer to the same file */
+                mRandomAccessFile.setLength(0);
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(data);
+            long position = offset;
+            while (buffer.hasRemaining()) {
+                position += mChannel.write(buffer, position);
+            }
+            mReceivedSize += addReceivedRange(offset, offset + data.length);
+        } catch (IOException e) {
+            throw new FileAccessException("Failed to write data chunk to file "
+                    + mFile.getAbsolutePath() + "!", e);
+        }
+    }
+
+    /**
+     * Add a byte range to the received ranges, merging it with the ranges it overlaps or touches
+     *
+     * @param start Start offset
+     * @param end End offset (exclusive)
+     * @return Number of bytes of the range that were not received yet
+     */
+    private long addReceivedRange(long start, long end) {
+        if (start >= end) {
+            return 0;
+        }
+        long mergedStart = start;
+        long mergedEnd = end;
+        long alreadyReceived = 0;
+        Map.Entry<Long, Long> range = mReceivedRanges.floorEntry(start);
+        if (range == null || range.getValue() < start) {
+            range = mReceivedRanges.ceilingEntry(start);
+        }
+        while (range != null && range.getKey() <= end) {
+            long rangeStart = range.getKey();
+            long rangeEnd = range.getValue();
+            alreadyReceived += Math.max(0, Math.min(rangeEnd, end) - Math.max(rangeStart, start));
+            mergedStart = Math.min(mergedStart, rangeStart);
+            mergedEnd = Math.max(mergedEnd, rangeEnd);
+            mReceivedRanges.remove(rangeStart);
+            range = mReceivedRanges.ceilingEntry(rangeStart);
+        }
+        mReceivedRanges.put(mergedStart, mergedEnd);
+        return (end - start) - alreadyReceived;
+    }
+
+    /**
+     * Returns the number of distinct bytes written to the file
+     *
+     * @return Size in bytes
+     */
+    public synchronized long getReceivedSize() {
+        return mReceivedSize;
+    }
+
+    /**
+     * Is closed
+     *
+     * @return True if the sink has been closed
+     */
+    public synchronized boolean isClosed() {
+        return mClosed;
+    }
+
+    /**
+     * Close the file, no chunk can be written afterward
+     */
+    public synchronized void close() {
+        mClosed = true;
+        CloseableUtils.tryToClose(mChannel);
+        CloseableUtils.tryToClose(mRandomAccessFile);
+        mChannel = null;
+        mRandomAccessFile = null;
+    }
+}
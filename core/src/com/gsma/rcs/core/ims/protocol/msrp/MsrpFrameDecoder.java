@@ -0,0 +1,283 @@
+/*******************************************************************************
+ * Software Name : RCS IMS Stack
+ *
+ * Copyright (C) 2010-2016 Orange.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.gsma.rcs.core.ims.protocol.msrp;
+
+import static com.gsma.rcs.utils.StringUtils.UTF8;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * MSRP frame decoder.<br>
+ * Reads the MSRP stream through a reusable block buffer instead of one byte at a time. Lines are
+ * delimited by scanning the buffer for CRLF and bodies of unknown length are delimited by a single
+ * pass KMP matcher on the "CRLF-------txId" end line, so each received byte is inspected once.
+ *
+ * @author jexa7410
+ */
+public class MsrpFrameDecoder {
+    /**
+     * Default size of the read buffer
+     */
+    private static final int DEFAULT_BUFFER_SIZE = 8 * 1024;
+
+    /**
+     * Initial size of the scratch buffer
+     */
+    private static final int DEFAULT_SCRATCH_SIZE = 1024;
+
+    private final InputStream mStream;
+
+    /**
+     * Read buffer, valid bytes are in [mPosition, mLimit)
+     */
+    private final byte[] mBuffer;
+
+    private int mPosition;
+
+    private int mLimit;
+
+    /**
+     * Scratch buffer reused to accumulate lines and bodies of unknown length
+     */
+    private byte[] mScratch = new byte[DEFAULT_SCRATCH_SIZE];
+
+    /**
+     * Constructor
+     *
+     * @param stream MSRP input stream
+     */
+    public MsrpFrameDecoder(InputStream stream) {
+        this(stream, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param stream MSRP input stream
+     * @param bufferSize Size of the read buffer
+     */
+    public MsrpFrameDecoder(InputStream stream, int bufferSize) {
+        mStream = stream;
+        mBuffer = new byte[bufferSize];
+    }
+
+    /**
+     * Fill the read buffer if it has been fully consumed
+     *
+     * @return False if the end of stream has been reached
+     * @throws IOException
+     */
+    private boolean fill() throws IOException {
+        if (mPosition < mLimit) {
+            return true;
+        }
+        int nbRead;
+        do {
+            nbRead = mStream.read(mBuffer, 0, mBuffer.length);
+        } while (nbRead == 0);
+        if (nbRead < 0) {
+            mPosition = 0;
+            mLimit = 0;
+            return false;
+        }
+        mPosition = 0;
+        mLimit = nbRead;
+        return true;
+    }
+
+    /**
+     * Make sure the scratch buffer can hold the requested number of bytes
+     *
+     * @param length Expected length
+     */
+    private void ensureScratchCapacity(int length) {
+        if (length > mScratch.length) {
+            int newLength = Math.max(length, mScratch.length * 2);
+            byte[] scratch = new byte[newLength];
+            System.arraycopy(mScratch, 0, scratch, 0, mScratch.length);
+            mScratch = scratch;
+        }
+    }
+
+    /**
+     * Read a line terminated by CRLF
+     *
+     * @return Line without its terminating CRLF or null if the end of stream has been reached
+     *         before any byte of the line
+     * @throws IOException
+     */
+    public String readLine() throws IOException {
+        int length = 0;
+        boolean pendingCr = false;
+        while (fill()) {
+            int start = mPosition;
+            int end = mLimit;
+            int i = start;
+            if (pendingCr) {
+                if (mBuffer[i] == MsrpConstants.CHAR_CR) {
+                    mPosition = i + 1;
+                    return new String(mScratch, 0, length - 1, UTF8);
+                }
+                pendingCr = false;
+            }
+            while (i < end) {
+                if (mBuffer[i] == MsrpConstants.CHAR_LF) {
+                    if (i + 1 < end) {
+                        if (mBuffer[i + 1] == MsrpConstants.CHAR_CR) {
+                            break;
+                        }
+                    } else {
+                        pendingCr = true;
+                    }
+                }
+                i++;
+            }
+            if (i < end) {
+                /* CRLF found inside the buffer */
+                if (length == 0) {
+                    mPosition = i + 2;
+                    return new String(mBuffer, start, i - start, UTF8);
+                }
+                ensureScratchCapacity(length + i - start);
+                System.arraycopy(mBuffer, start, mScratch, length, i - start);
+                length += i - start;
+                mPosition = i + 2;
+                return new String(mScratch, 0, length, UTF8);
+            }
+            /* Line continues in the next block */
+            ensureScratchCapacity(length + end - start);
+            System.arraycopy(mBuffer, start, mScratch, length, end - start);
+            length += end - start;
+            mPosition = end;
+        }
+        if (length == 0) {
+            return null;
+        }
+        return new String(mScratch, 0, length, UTF8);
+    }
+
+    /**
+     * Read a block of data whose size is known from the Byte-Range header, then skip the CRLF
+     * which precedes the end line
+     *
+     * @param size Number of bytes to read
+     * @return Data
+     * @throws IOException
+     */
+    public byte[] readData(int size) throws IOException {
+        byte[] result = new byte[size];
+        int nbRead = Math.min(mLimit - mPosition, size);
+        System.arraycopy(mBuffer, mPosition, result, 0, nbRead);
+        mPosition += nbRead;
+        /* Read the remaining part directly into the result without going through the buffer */
+        while (nbRead < size) {
+            int nbData = mStream.read(result, nbRead, size - nbRead);
+            if (nbData < 0) {
+                throw new EOFException("End of stream reached while reading chunk data!");
+            }
+            nbRead += nbData;
+        }
+        skip(2);
+        return result;
+    }
+
+    /**
+     * Read data until the given end line is found. The end line itself is consumed, so the next
+     * call to {@link #readLine()} returns the continuation flag.
+     *
+     * @param endLine End line including its leading CRLF
+     * @param maxSize Maximum size of the data
+     * @return Data preceding the end line
+     * @throws IOException
+     */
+    public byte[] readDataUntil(byte[] endLine, int maxSize) throws IOException {
+        int[] failure = computeFailureTable(endLine);
+        int patternLength = endLine.length;
+        int matched = 0;
+        int length = 0;
+        while (fill()) {
+            int start = mPosition;
+            int end = mLimit;
+            int i = start;
+            while (i < end && matched < patternLength) {
+                byte b = mBuffer[i++];
+                while (matched > 0 && endLine[matched] != b) {
+                    matched = failure[matched - 1];
+                }
+                if (endLine[matched] == b) {
+                    matched++;
+                }
+            }
+            ensureScratchCapacity(length + i - start);
+            System.arraycopy(mBuffer, start, mScratch, length, i - start);
+            length += i - start;
+            mPosition = i;
+            if (length - matched > maxSize) {
+                throw new IOException("MSRP chunk exceeds the maximum size of " + maxSize
+                        + " bytes!");
+            }
+            if (matched == patternLength) {
+                byte[] result = new byte[length - patternLength];
+                System.arraycopy(mScratch, 0, result, 0, result.length);
+                return result;
+            }
+        }
+        throw new EOFException("End of stream reached before end of chunk!");
+    }
+
+    /**
+     * Skip bytes
+     *
+     * @param count Number of bytes to skip
+     * @throws IOException
+     */
+    private void skip(int count) throws IOException {
+        while (count > 0) {
+            if (!fill()) {
+                throw new EOFException("End of stream reached!");
+            }
+            int nbSkipped = Math.min(mLimit - mPosition, count);
+            mPosition += nbSkipped;
+            count -= nbSkipped;
+        }
+    }
+
+    /**
+     * Compute the KMP failure table of a pattern
+     *
+     * @param pattern Pattern
+     * @return Table giving, for each prefix length, the length of its longest proper border
+     */
+    private static int[] computeFailureTable(byte[] pattern) {
+        int[] failure = new int[pattern.length];
+        int k = 0;
+        for (int i = 1; i < pattern.length; i++) {
+            while (k > 0 && pattern[k] != pattern[i]) {
+                k = failure[k - 1];
+            }
+            if (pattern[k] == pattern[i]) {
+                k++;
+            }
+            failure[i] = k;
+        }
+        return failure;
+    }
+}
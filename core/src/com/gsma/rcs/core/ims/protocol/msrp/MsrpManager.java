@@ -231,6 +231,16 @@ public class MsrpManager {
                     fingerprint);
         }
 
+        /* The contents sent to the peer shall not exceed the message size it accepts */
+        MediaAttribute maxSizeAttribute = mediaDesc.getMediaAttribute("max-size");
+        if (maxSizeAttribute != null) {
+            try {
+                session.setPeerMaxMessageSize(Long.parseLong(maxSizeAttribute.getValue().trim()));
+            } catch (NumberFormatException e) {
+                logger.warn("Invalid media attribute max-size: " + maxSizeAttribute.getValue());
+            }
+        }
+
         return session;
     }
 
@@ -0,0 +1,174 @@
+/*******************************************************************************
+ * Software Name : RCS IMS Stack
+ *
+ * Copyright (C) 2010-2016 Orange.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.gsma.rcs.core.ims.protocol.msrp;
+
+import static com.gsma.rcs.utils.StringUtils.UTF8;
+
+/**
+ * Encoder of the MSRP SEND requests of a content transfer.<br>
+ * All the headers which do not change from one chunk to another (To-Path, From-Path, Message-ID,
+ * report headers and Content-Type) are encoded once when the transfer starts. Only the transaction
+ * ID and the Byte-Range values are written for each chunk, straight into the pooled frame buffer
+ * of the chunk.
+ *
+ * @author jexa7410
+ */
+public class MsrpRequestEncoder {
+    /**
+     * Maximum number of digits of a byte position
+     */
+    private static final int MAX_LONG_DIGITS = 20;
+
+    private static final byte[] MSRP_HEADER = (MsrpConstants.MSRP_HEADER + " ").getBytes(UTF8);
+
+    private static final byte[] END_MSRP_MSG = (MsrpConstants.NEW_LINE + MsrpConstants.END_MSRP_MSG)
+            .getBytes(UTF8);
+
+    /**
+     * Encoded " SEND" request line end and constant headers up to the Byte-Range value
+     */
+    private final byte[] mPrefix;
+
+    /**
+     * Encoded end of the Byte-Range header, optional headers and blank line
+     */
+    private final byte[] mSuffix;
+
+    private final long mTotalSize;
+
+    /**
+     * Constructor
+     *
+     * @param to To path
+     * @param from From path
+     * @param msrpMsgId MSRP message ID
+     * @param contentType Content type or null
+     * @param totalSize Total size of the content
+     * @param failureReport True if a failure report is requested
+     * @param successReport True if a success report is requested
+     */
+    public MsrpRequestEncoder(String to, String from, String msrpMsgId, String contentType,
+            long totalSize, boolean failureReport, boolean successReport) {
+        mTotalSize = totalSize;
+        StringBuilder prefix = new StringBuilder(" ").append(MsrpConstants.METHOD_SEND)
+                .append(MsrpConstants.NEW_LINE);
+        prefix.append(MsrpConstants.HEADER_TO_PATH).append(": ").append(to)
+                .append(MsrpConstants.NEW_LINE);
+        prefix.append(MsrpConstants.HEADER_FROM_PATH).append(": ").append(from)
+                .append(MsrpConstants.NEW_LINE);
+        prefix.append(MsrpConstants.HEADER_MESSAGE_ID).append(": ").append(msrpMsgId)
+                .append(MsrpConstants.NEW_LINE);
+        prefix.append(MsrpConstants.HEADER_BYTE_RANGE).append(": ");
+        mPrefix = prefix.toString().getBytes(UTF8);
+
+        StringBuilder suffix = new StringBuilder("/").append(totalSize).append(
+                MsrpConstants.NEW_LINE);
+        /* Write optional headers according with GSMA guidelines */
+        if (failureReport) {
+            suffix.append(MsrpConstants.HEADER_FAILURE_REPORT).append(": yes")
+                    .append(MsrpConstants.NEW_LINE);
+        }
+        if (successReport) {
+            suffix.append(MsrpConstants.HEADER_SUCCESS_REPORT).append(": yes")
+                    .append(MsrpConstants.NEW_LINE);
+        }
+        if (contentType != null) {
+            suffix.append(MsrpConstants.HEADER_CONTENT_TYPE).append(": ").append(contentType)
+                    .append(MsrpConstants.NEW_LINE);
+        }
+        suffix.append(MsrpConstants.NEW_LINE);
+        mSuffix = suffix.toString().getBytes(UTF8);
+    }
+
+    /**
+     * Encode the header and end line of a SEND request around the payload already held by the
+     * chunk
+     *
+     * @param chunk Chunk holding the payload
+     * @param txId Transaction ID
+     * @param firstByte First byte range
+     * @param lastByte Last byte range
+     */
+    public void encode(MsrpChunk chunk, String txId, long firstByte, long lastByte) {
+        int txIdLength = txId.length();
+        int capacity = MSRP_HEADER.length + txIdLength + mPrefix.length + 2 * MAX_LONG_DIGITS + 1
+                + mSuffix.length + END_MSRP_MSG.length + txIdLength + 3;
+        byte[] frame = chunk.ensureFrameCapacity(capacity);
+
+        /* Request line and headers */
+        int pos = append(frame, 0, MSRP_HEADER);
+        pos = appendAscii(frame, pos, txId);
+        pos = append(frame, pos, mPrefix);
+        pos = appendLong(frame, pos, firstByte);
+        frame[pos++] = MsrpConstants.CHAR_MIN;
+        pos = appendLong(frame, pos, lastByte);
+        pos = append(frame, pos, mSuffix);
+        int headerLength = pos;
+
+        /* End line */
+        pos = append(frame, pos, END_MSRP_MSG);
+        pos = appendAscii(frame, pos, txId);
+        if (lastByte == mTotalSize) {
+            /* '$' -> last chunk */
+            frame[pos++] = MsrpConstants.FLAG_LAST_CHUNK;
+        } else {
+            /* '+' -> more chunk */
+            frame[pos++] = MsrpConstants.FLAG_MORE_CHUNK;
+        }
+        frame[pos++] = MsrpConstants.CHAR_LF;
+        frame[pos++] = MsrpConstants.CHAR_CR;
+        chunk.setFrameLengths(headerLength, pos - headerLength);
+    }
+
+    private static int append(byte[] dst, int pos, byte[] src) {
+        System.arraycopy(src, 0, dst, pos, src.length);
+        return pos + src.length;
+    }
+
+    /**
+     * Append a string made of ASCII characters only, such as a transaction ID
+     */
+    private static int appendAscii(byte[] dst, int pos, String value) {
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            dst[pos++] = (byte) value.charAt(i);
+        }
+        return pos;
+    }
+
+    /**
+     * Append the decimal representation of a positive value
+     */
+    private static int appendLong(byte[] dst, int pos, long value) {
+        if (value == 0) {
+            dst[pos] = '0';
+            return pos + 1;
+        }
+        int digits = 0;
+        for (long v = value; v > 0; v /= 10) {
+            digits++;
+        }
+        int end = pos + digits;
+        for (int i = end - 1; i >= pos; i--) {
+            dst[i] = (byte) ('0' + (value % 10));
+            value /= 10;
+        }
+        return end;
+    }
+}
@@ -0,0 +1,245 @@
+/*******************************************************************************
+ * Software Name : RCS IMS Stack
+ *
+ * Copyright (C) 2010-2016 Orange.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.gsma.rcs.core.ims.protocol.msrp;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Window of MSRP SEND transactions in flight for a content transfer.<br>
+ * As allowed by RFC 4975, up to a given number of SEND requests are sent without waiting for their
+ * responses. Responses are matched by transaction ID, the sender is blocked while the window is
+ * full and the transfer fails as soon as one transaction gets an error response or times out.
+ *
+ * @author jexa7410
+ */
+public class MsrpSendWindow {
+    /**
+     * Status code used when a transaction times out locally
+     */
+    public static final int STATUS_REQUEST_TIMEOUT = 408;
+
+    /**
+     * In flight transactions: transaction ID to chunk size, in sending order
+     */
+    private final Map<String, Integer> mInFlight = new LinkedHashMap<>();
+
+    /**
+     * Sending time of the in flight transactions
+     */
+    private final Map<String, Long> mSendingTimes = new LinkedHashMap<>();
+
+    private final int mMaxInFlight;
+
+    private final long mTimeout;
+
+    private final long mTotalSize;
+
+    /**
+     * Number of bytes acknowledged by a 200 OK response
+     */
+    private long mAcknowledgedSize;
+
+    /**
+     * Status code of the first failed transaction, or -1
+     */
+    private int mErrorCode = -1;
+
+    /**
+     * True if a transaction has timed out locally
+     */
+    private boolean mTimedOut = false;
+
+    private boolean mTerminated = false;
+
+    private MsrpChunkSizeController mChunkSizeController;
+
+    /**
+     * Constructor
+     *
+     * @param maxInFlight Maximum number of transactions in flight
+     * @param timeout Transaction timeout in milliseconds
+     * @param totalSize Total size of the content
+     */
+    public MsrpSendWindow(int maxInFlight, long timeout, long totalSize) {
+        mMaxInFlight = Math.max(1, maxInFlight);
+        mTimeout = timeout;
+        mTotalSize = totalSize;
+    }
+
+    /**
+     * Returns the total size of the content
+     *
+     * @return Size in bytes
+     */
+    public long getTotalSize() {
+        return mTotalSize;
+    }
+
+    /**
+     * Set the controller informed of the acknowledged chunks and of their response latency
+     *
+     * @param controller Chunk size controller
+     */
+    public synchronized void setChunkSizeController(MsrpChunkSizeController controller) {
+        mChunkSizeController = controller;
+    }
+
+    /**
+     * Reserve a place in the window for a new transaction, blocking while the window is full
+     *
+     * @param txId Transaction ID
+     * @param chunkSize Size of the chunk sent by the transaction
+     * @return False if the transfer has failed or has been terminated meanwhile
+     */
+    public synchronized boolean acquire(String txId, int chunkSize) {
+        while (!mTerminated && mErrorCode == -1 && mInFlight.size() >= mMaxInFlight) {
+            waitResponse();
+        }
+        if (mTerminated || mErrorCode != -1) {
+            return false;
+        }
+        mInFlight.put(txId, chunkSize);
+        mSendingTimes.put(txId, System.currentTimeMillis());
+        return true;
+    }
+
+    /**
+     * Cancel a transaction which could not be sent
+     *
+     * @param txId Transaction ID
+     */
+    public synchronized void cancel(String txId) {
+        mInFlight.remove(txId);
+        mSendingTimes.remove(txId);
+        notifyAll();
+    }
+
+    /**
+     * Handle the response of a transaction
+     *
+     * @param txId Transaction ID
+     * @param code Response code
+     * @return True if the transaction belongs to the window
+     */
+    public synchronized boolean handleResponse(String txId, int code) {
+        Integer chunkSize = mInFlight.remove(txId);
+        if (chunkSize == null) {
+            return false;
+        }
+        Long sendingTime = mSendingTimes.remove(txId);
+        if (code == 200) {
+            mAcknowledgedSize += chunkSize;
+            if (mChunkSizeController != null) {
+                mChunkSizeController.onChunkAcknowledged(chunkSize, System.currentTimeMillis()
+                        - sendingTime);
+            }
+        } else if (mErrorCode == -1) {
+            /* 408, 413 or any other error: no more chunk is sent for this content */
+            mErrorCode = code;
+        }
+        notifyAll();
+        return true;
+    }
+
+    /**
+     * Returns the number of bytes acknowledged so far
+     *
+     * @return Size in bytes
+     */
+    public synchronized long getAcknowledgedSize() {
+        return mAcknowledgedSize;
+    }
+
+    /**
+     * Returns the number of transactions in flight
+     *
+     * @return Number of transactions
+     */
+    public synchronized int getInFlightCount() {
+        return mInFlight.size();
+    }
+
+    /**
+     * Wait until all the transactions in flight have been answered
+     *
+     * @return True if all the transactions have been answered with a 200 OK
+     */
+    public synchronized boolean waitAllResponses() {
+        while (!mTerminated && mErrorCode == -1 && !mInFlight.isEmpty()) {
+            waitResponse();
+        }
+        return !mTerminated && mErrorCode == -1 && mInFlight.isEmpty();
+    }
+
+    /**
+     * Returns the status code of the first failed transaction
+     *
+     * @return Status code or -1 if no transaction has failed
+     */
+    public synchronized int getErrorCode() {
+        return mErrorCode;
+    }
+
+    /**
+     * Is timed out
+     *
+     * @return True if a transaction has not been answered before the timeout
+     */
+    public synchronized boolean isTimedOut() {
+        return mTimedOut;
+    }
+
+    /**
+     * Is terminated
+     *
+     * @return True if the window has been terminated
+     */
+    public synchronized boolean isTerminated() {
+        return mTerminated;
+    }
+
+    /**
+     * Terminate the window and unblock the sender
+     */
+    public synchronized void terminate() {
+        mTerminated = true;
+        notifyAll();
+    }
+
+    /**
+     * Wait for a response until the oldest transaction in flight expires. Must be called with the
+     * lock held.
+     */
+    private void waitResponse() {
+        long oldest = mSendingTimes.isEmpty() ? System.currentTimeMillis() : mSendingTimes
+                .values().iterator().next();
+        long remaining = oldest + mTimeout - System.currentTimeMillis();
+        if (remaining <= 0) {
+            mErrorCode = STATUS_REQUEST_TIMEOUT;
+            mTimedOut = true;
+            return;
+        }
+        try {
+            wait(remaining);
+        } catch (InterruptedException e) {
+            /* Nothing to do */
+        }
+    }
+}
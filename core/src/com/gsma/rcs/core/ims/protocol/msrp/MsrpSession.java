@@ -41,6 +41,7 @@ import java.util.Hashtable;
 import java.util.List;
 import java.util.Random;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * MSRP session
@@ -122,6 +123,26 @@ public class MsrpSession {
 
     private DataChunks mReceivedChunks = new DataChunks();
 
+    /**
+     * File sink used instead of the received chunks cache for file transfers
+     */
+    private MsrpFileSink mFileSink;
+
+    /**
+     * True when a received chunk could not be written to the file sink
+     */
+    private boolean mFileSavingFailed = false;
+
+    /**
+     * Pool of chunks used to send content
+     */
+    private final MsrpChunkPool mChunkPool;
+
+    /**
+     * Maximum message size accepted by the peer (SDP max-size attribute) or -1 if unknown
+     */
+    private long mPeerMaxMessageSize = -1;
+
     private MsrpEventListener mMsrpEventListener;
 
     /**
@@ -131,14 +152,10 @@ public class MsrpSession {
 
     private ReportTransaction mReportTransaction;
 
-    private MsrpTransaction mMsrpTransaction;
-
     /**
-     * File transfer progress
+     * Windows of SEND transactions in flight
      */
-    private List<Long> mProgress = new ArrayList<>();
-
-    private long mTotalSize;
+    private final List<MsrpSendWindow> mSendWindows = new CopyOnWriteArrayList<>();
 
     private static final Logger sLogger = Logger.getLogger(MsrpSession.class.getSimpleName());
 
@@ -178,6 +195,32 @@ public class MsrpSession {
         mTransactionMsgIdMapLock = new Object();
         setMapMsgIdFromTransationId(true);
         mRcsSettings = rcsSettings;
+        int poolCapacity = rcsSettings.getMsrpChunkSize();
+        if (rcsSettings.isMsrpChunkSizeAdaptive()) {
+            poolCapacity = Math.max(poolCapacity, rcsSettings.getMsrpMaxChunkSize());
+        }
+        mChunkPool = new MsrpChunkPool(Math.max(MsrpConstants.CHUNK_MIN_SIZE, poolCapacity));
+    }
+
+    /**
+     * Set the maximum message size accepted by the peer. It bounds the whole content sent in a
+     * message, not the size of its chunks.
+     *
+     * @param maxSize Size in bytes
+     */
+    public void setPeerMaxMessageSize(long maxSize) {
+        mPeerMaxMessageSize = maxSize;
+    }
+
+    /**
+     * Returns the maximum size of the chunks exchanged in this session
+     *
+     * @return Size in bytes
+     */
+    public int getMaxChunkSize() {
+        int maxChunkSize = Math.max(mRcsSettings.getMsrpChunkSize(),
+                mRcsSettings.getMsrpMaxChunkSize());
+        return Math.max(MsrpConstants.CHUNK_MAX_SIZE, maxChunkSize);
     }
 
     /**
@@ -306,11 +349,22 @@ public class MsrpSession {
         mTo = to;
     }
 
+    /**
+     * Set the file sink. When set, received chunks are written to the file at their Byte-Range
+     * offset instead of being cached in memory, and progress is notified from the written size
+     * only.
+     * 
+     * @param fileSink File sink
+     */
+    public void setFileSink(MsrpFileSink fileSink) {
+        mFileSink = fileSink;
+    }
+
     /**
      * Close the session
      */
     public void close() {
-        if (sLogger.isActivated()) {
+        if (sLogger.isDebugEnabled()) {
             sLogger.debug("Close session");
         }
 
@@ -332,9 +386,13 @@ public class MsrpSession {
             mReportTransaction.terminate();
         }
 
-        // Unblock MSRP transaction
-        if (mMsrpTransaction != null) {
-            mMsrpTransaction.terminate();
+        // Unblock MSRP SEND transactions
+        for (MsrpSendWindow sendWindow : mSendWindows) {
+            sendWindow.terminate();
+        }
+
+        if (mFileSink != null) {
+            mFileSink.close();
         }
     }
 
@@ -350,13 +408,22 @@ public class MsrpSession {
      */
     public void sendChunks(InputStream inputStream, String msgId, String contentType,
             final long totalSize, TypeMsrpChunk typeMsrpChunk) throws NetworkException {
-        if (sLogger.isActivated()) {
-            sLogger.info("Send content (" + contentType + " - MSRP chunk type: " + typeMsrpChunk
-                    + ")");
+        sLogger.info("Send content ({} - MSRP chunk type: {})", contentType, typeMsrpChunk);
+        if (mPeerMaxMessageSize > 0 && totalSize > mPeerMaxMessageSize) {
+            /*
+             * RFC4975, section 8.6: a message larger than the max-size of the peer should not be
+             * sent, it would be rejected with a 413 response
+             */
+            sLogger.warn("Content of " + totalSize + " bytes exceeds max-size "
+                    + mPeerMaxMessageSize + " of the peer");
+            CloseableUtils.tryToClose(inputStream);
+            mMsrpEventListener.msrpTransferError(msgId, "message too large 413", typeMsrpChunk);
+            return;
         }
-        mTotalSize = totalSize;
+        MsrpSendWindow sendWindow = null;
+        int maxChunkSize = Math.min(mChunkPool.getDataCapacity(),
+                mRcsSettings.getMsrpMaxChunkSize());
         try {
-            byte data[] = new byte[MsrpConstants.CHUNK_MAX_SIZE];
             long firstByte = 1;
             long lastByte = 0;
             mCancelTransfer = false;
@@ -366,36 +433,23 @@ public class MsrpSession {
                 mReportTransaction = null;
             }
             if (mFailureReportOption) {
-                mMsrpTransaction = new MsrpTransaction();
-            } else {
-                mMsrpTransaction = null;
+                /* Keep several SEND transactions in flight, progress is notified on responses */
+                sendWindow = new MsrpSendWindow(MsrpConstants.MAX_CHUNKS_IN_FLIGHT,
+                        mRcsSettings.getMsrpTransactionTimeout(), totalSize);
+                mSendWindows.add(sendWindow);
             }
-
-            // Calculate number of needed chunks
-            final int totalChunks = (int) Math.ceil(totalSize
-                    / (double) MsrpConstants.CHUNK_MAX_SIZE);
-
-            new Thread(new Runnable() {
-
-                @Override
-                public void run() {
-                    if (mMsrpTransaction != null) {
-                        while ((totalChunks - mMsrpTransaction.getNumberReceivedOk()) > 0
-                                && !mCancelTransfer) {
-                            mMsrpEventListener.msrpTransferProgress(
-                                    mMsrpTransaction.getNumberReceivedOk()
-                                            * MsrpConstants.CHUNK_MAX_SIZE, totalSize);
-                            try {
-                                Thread.sleep(500);
-                            } catch (InterruptedException e) {
-                                /* Nothing to be done here */
-                            }
-                        }
-                    }
-
-                }
-
-            }).start();
+            /*
+             * Chunk size can only be adapted when responses are received, the latency target is a
+             * fraction of the transaction timeout
+             */
+            MsrpChunkSizeController chunkSizeController = new MsrpChunkSizeController(
+                    mRcsSettings.getMsrpChunkSize(), maxChunkSize,
+                    sendWindow != null && mRcsSettings.isMsrpChunkSizeAdaptive(),
+                    mRcsSettings.getMsrpTransactionTimeout() / 4);
+            if (sendWindow != null) {
+                sendWindow.setChunkSizeController(chunkSizeController);
+            }
+            chunkSizeController.start(totalSize);
 
             String newTransactionId;
 
@@ -405,53 +459,57 @@ public class MsrpSession {
             // another endpoint instance, or by the same instance in the future.
             // Message-ID value follows the definition in RFC4975, section 9
             String msrpMsgId = IdGenerator.generateMessageID();
+            MsrpRequestEncoder encoder = new MsrpRequestEncoder(mTo, mFrom, msrpMsgId,
+                    contentType, totalSize, mFailureReportOption, mSuccessReportOption);
 
             // Send data chunk by chunk
-            for (int i = inputStream.read(data); (!mCancelTransfer) & (i > -1); i = inputStream
-                    .read(data)) {
+            MsrpChunk chunk = mChunkPool.acquire();
+            int i;
+            while (!mCancelTransfer
+                    && (i = inputStream.read(chunk.getData(), 0,
+                            chunkSizeController.getChunkSize())) > -1) {
                 // Update upper byte range
                 lastByte += i;
+                chunk.setDataLength(i);
 
                 newTransactionId = generateTransactionId();
                 addMsrpTransactionInfo(newTransactionId, msrpMsgId, msgId, typeMsrpChunk);
 
                 // Send a chunk
-                sendMsrpSendRequest(newTransactionId, mTo, mFrom, msrpMsgId, contentType, i, data,
-                        firstByte, lastByte, totalSize);
+                encoder.encode(chunk, newTransactionId, firstByte, lastByte);
+                if (!sendMsrpSendRequest(newTransactionId, chunk, sendWindow)) {
+                    /* A previous transaction has failed or the session has been closed */
+                    break;
+                }
+                chunk = mChunkPool.acquire();
 
                 // Update lower byte range
                 firstByte += i;
 
-                // Progress management
-                if (mFailureReportOption) {
-                    // Add value in progress vector
-                    mProgress.add(lastByte);
-                } else {
-                    // Direct notification
-                    if (!mCancelTransfer) {
-                        mMsrpEventListener.msrpTransferProgress(lastByte, totalSize);
-                    }
+                // Direct progress notification when no response is expected
+                if (sendWindow == null && !mCancelTransfer) {
+                    mMsrpEventListener.msrpTransferProgress(lastByte, totalSize);
                 }
             }
+            chunk.recycle();
 
             if (mCancelTransfer) {
                 // Transfer has been aborted
                 return;
             }
 
-            // Waiting msrpTransaction
-            if (mMsrpTransaction != null) {
-                // Wait until all data have been reported
-                mMsrpTransaction.waitAllResponses();
-
-                // Notify event listener
-                if (mMsrpTransaction.isAllResponsesReceived()) {
+            // Waiting in flight transactions
+            if (sendWindow != null) {
+                // Wait until all data have been acknowledged
+                if (sendWindow.waitAllResponses()) {
                     mMsrpEventListener.msrpDataTransferred(msgId);
-                } else {
-                    if (!mMsrpTransaction.isTerminated()) {
+                } else if (!sendWindow.isTerminated()) {
+                    /* Error responses have already been notified on reception */
+                    if (sendWindow.isTimedOut()) {
                         mMsrpEventListener.msrpTransferError(msgId, "response timeout 408",
                                 typeMsrpChunk);
                     }
+                    return;
                 }
             }
 
@@ -476,7 +534,7 @@ public class MsrpSession {
             }
 
             // No transaction
-            if (mMsrpTransaction == null && mReportTransaction == null) {
+            if (sendWindow == null && mReportTransaction == null) {
                 // Notify event listener
                 mMsrpEventListener.msrpDataTransferred(msgId);
             }
@@ -484,6 +542,9 @@ public class MsrpSession {
             throw new NetworkException("Send chunk failed for msgId : " + msgId, e);
 
         } finally {
+            if (sendWindow != null) {
+                mSendWindows.remove(sendWindow);
+            }
             CloseableUtils.tryToClose(inputStream);
         }
     }
@@ -494,7 +555,7 @@ public class MsrpSession {
      * @throws NetworkException
      */
     public void sendEmptyChunk() throws NetworkException {
-        if (sLogger.isActivated()) {
+        if (sLogger.isInfoEnabled()) {
             sLogger.info("Send an empty chunk");
         }
         String newTransactionId = generateTransactionId();
@@ -507,114 +568,30 @@ public class MsrpSession {
      * Send MSRP SEND request
      * 
      * @param txId Transaction ID
-     * @param to To header
-     * @param from From header
-     * @param msrpMsgId MSRP message ID
-     * @param contentType Content type
-     * @param dataSize Data chunk size
-     * @param data Data chunk
-     * @param firstByte First byte range
-     * @param lastByte Last byte range
-     * @param totalSize Total size
+     * @param chunk Chunk already encoded by the {@link MsrpRequestEncoder} of the transfer
+     * @param sendWindow Window of transactions in flight or null if no response is expected
+     * @return False if the chunk has not been sent because the transfer has failed or has been
+     *         terminated, the chunk is then left to the caller
      * @throws NetworkException
      */
-    private void sendMsrpSendRequest(String txId, String to, String from, String msrpMsgId,
-            String contentType, int dataSize, byte data[], long firstByte, long lastByte,
-            long totalSize) throws NetworkException {
-        ByteArrayOutputStream buffer = null;
+    private boolean sendMsrpSendRequest(String txId, MsrpChunk chunk, MsrpSendWindow sendWindow)
+            throws NetworkException {
+        if (sendWindow == null) {
+            mConnection.sendChunk(chunk);
+            return true;
+        }
+        /* Block while the window is full */
+        if (!sendWindow.acquire(txId, chunk.getDataLength())) {
+            /* The chunk is still owned by the caller which recycles it */
+            return false;
+        }
         try {
-            boolean isLastChunk = (lastByte == totalSize);
-            // Create request
-            buffer = new ByteArrayOutputStream(4000);
-            buffer.reset();
-            buffer.write(MsrpConstants.MSRP_HEADER.getBytes(UTF8));
-            buffer.write(MsrpConstants.CHAR_SP);
-            buffer.write(txId.getBytes(UTF8));
-            buffer.write((" " + MsrpConstants.METHOD_SEND).getBytes(UTF8));
-            buffer.write(NEW_LINE);
-
-            String toHeader = MsrpConstants.HEADER_TO_PATH + ": " + to + MsrpConstants.NEW_LINE;
-            buffer.write(toHeader.getBytes(UTF8));
-            String fromHeader = MsrpConstants.HEADER_FROM_PATH + ": " + from
-                    + MsrpConstants.NEW_LINE;
-            buffer.write(fromHeader.getBytes(UTF8));
-            String msgIdHeader = MsrpConstants.HEADER_MESSAGE_ID + ": " + msrpMsgId
-                    + MsrpConstants.NEW_LINE;
-            buffer.write(msgIdHeader.getBytes(UTF8));
-
-            // Write byte range
-            String byteRange = MsrpConstants.HEADER_BYTE_RANGE + ": " + firstByte + "-" + lastByte
-                    + "/" + totalSize + MsrpConstants.NEW_LINE;
-            buffer.write(byteRange.getBytes(UTF8));
-
-            // Write optional headers
-            // According with GSMA guidelines
-            if (mFailureReportOption) {
-                String header = MsrpConstants.HEADER_FAILURE_REPORT + ": yes"
-                        + MsrpConstants.NEW_LINE;
-                buffer.write(header.getBytes(UTF8));
-            }
-            if (mSuccessReportOption) {
-                String header = MsrpConstants.HEADER_SUCCESS_REPORT + ": yes"
-                        + MsrpConstants.NEW_LINE;
-                buffer.write(header.getBytes(UTF8));
-            }
-
-            // Write content type
-            if (contentType != null) {
-                String content = MsrpConstants.HEADER_CONTENT_TYPE + ": " + contentType
-                        + MsrpConstants.NEW_LINE;
-                buffer.write(content.getBytes(UTF8));
-            }
-
-            // Write data
-            if (data != null) {
-                buffer.write(NEW_LINE);
-                buffer.write(data, 0, dataSize);
-                buffer.write(NEW_LINE);
-            }
-
-            // Write end of request
-            buffer.write(MsrpConstants.END_MSRP_MSG.getBytes(UTF8));
-            buffer.write(txId.getBytes(UTF8));
-            if (isLastChunk) {
-                // '$' -> last chunk
-                buffer.write(MsrpConstants.FLAG_LAST_CHUNK);
-            } else {
-                // '+' -> more chunk
-                buffer.write(MsrpConstants.FLAG_MORE_CHUNK);
-            }
-            buffer.write(NEW_LINE);
-
-            // Send chunk
-            if (mFailureReportOption) {
-                if (mMsrpTransaction != null) {
-                    mMsrpTransaction.handleRequest();
-                    mRequestTransaction = null;
-                } else {
-                    mRequestTransaction = new RequestTransaction(mRcsSettings);
-                }
-                mConnection.sendChunk(buffer.toByteArray());
-                buffer.close();
-                if (mRequestTransaction != null) {
-                    mRequestTransaction.waitResponse();
-                    if (!mRequestTransaction.isResponseReceived()) {
-                        throw new NetworkException("Failed to receive transaction response!");
-                    }
-                }
-            } else {
-                mConnection.sendChunk(buffer.toByteArray());
-                buffer.close();
-                if (mMsrpTransaction != null) {
-                    mMsrpTransaction.handleRequest();
-                }
-            }
-        } catch (IOException e) {
-            throw new NetworkException("Failed to read chunk data!", e);
-
-        } finally {
-            CloseableUtils.tryToClose(buffer);
+            mConnection.sendChunk(chunk);
+        } catch (NetworkException e) {
+            sendWindow.cancel(txId);
+            throw e;
         }
+        return true;
     }
 
     /**
@@ -799,7 +776,7 @@ public class MsrpSession {
             byte[] data, long totalSize) throws PayloadException, NetworkException,
             ContactManagerException {
         mIsEstablished = true;
-        if (sLogger.isActivated()) {
+        if (sLogger.isDebugEnabled()) {
             sLogger.debug("SEND request received (flag=" + flag + ", transaction=" + txId
                     + ", totalSize=" + totalSize + ")");
         }
@@ -814,15 +791,19 @@ public class MsrpSession {
             sendMsrpResponse(MsrpConstants.STATUS_200_OK, txId, headers);
         }
         if (data == null) {
-            if (sLogger.isActivated()) {
+            if (sLogger.isDebugEnabled()) {
                 sLogger.debug("Empty chunk");
             }
             return;
         }
+        if (mFileSink != null) {
+            receiveFileChunk(txId, headers, flag, data, totalSize);
+            return;
+        }
         mReceivedChunks.addChunk(data);
 
         if (flag == MsrpConstants.FLAG_LAST_CHUNK) {
-            if (sLogger.isActivated()) {
+            if (sLogger.isInfoEnabled()) {
                 sLogger.info("Transfer terminated");
             }
             byte[] dataContent = mReceivedChunks.getReceivedData();
@@ -840,12 +821,12 @@ public class MsrpSession {
                 sendMsrpReportRequest(txId, headers, dataContent.length, totalSize);
             }
         } else if (flag == MsrpConstants.FLAG_ABORT_CHUNK) {
-            if (sLogger.isActivated()) {
+            if (sLogger.isInfoEnabled()) {
                 sLogger.info("Transfer aborted");
             }
             mMsrpEventListener.msrpTransferAborted();
         } else if (flag == MsrpConstants.FLAG_MORE_CHUNK) {
-            if (sLogger.isActivated()) {
+            if (sLogger.isDebugEnabled()) {
                 sLogger.debug("Transfer in progress...");
             }
             byte[] dataContent = mReceivedChunks.getReceivedData();
@@ -862,6 +843,74 @@ public class MsrpSession {
         }
     }
 
+    /**
+     * Receive a chunk of a file transfer and write it to the file sink
+     * 
+     * @param txId Transaction ID
+     * @param headers Request headers
+     * @param flag Continuation flag
+     * @param data Received data
+     * @param totalSize Total size of the content
+     * @throws NetworkException
+     * @throws PayloadException
+     * @throws ContactManagerException
+     */
+    private void receiveFileChunk(String txId, Hashtable<String, String> headers, int flag,
+            byte[] data, long totalSize) throws PayloadException, NetworkException,
+            ContactManagerException {
+        if (mFileSavingFailed) {
+            /* The partial file has been discarded: drop the remaining chunks */
+            return;
+        }
+        if (mFileSink.isClosed()) {
+            /* Late chunk of a terminated or aborted transfer */
+            if (sLogger.isDebugEnabled()) {
+                sLogger.debug("File sink is closed, drop chunk of transaction " + txId);
+            }
+            return;
+        }
+        long firstByte = MsrpUtils.getFirstByte(headers.get(MsrpConstants.HEADER_BYTE_RANGE));
+        if (firstByte < 1) {
+            /* No usable Byte-Range: chunks are appended in order of arrival */
+            firstByte = mFileSink.getReceivedSize() + 1;
+        }
+        try {
+            mFileSink.write(firstByte - 1, data);
+        } catch (FileAccessException e) {
+            sLogger.error("Failed to save received chunk!", e);
+            mFileSavingFailed = true;
+            mFileSink.close();
+            mMsrpEventListener.msrpFileSavingFailed(e);
+            return;
+        }
+        long receivedSize = mFileSink.getReceivedSize();
+
+        if (flag == MsrpConstants.FLAG_LAST_CHUNK) {
+            if (sLogger.isInfoEnabled()) {
+                sLogger.info("Transfer terminated");
+            }
+            mFileSink.close();
+
+            String contentTypeHeader = headers.get(MsrpConstants.HEADER_CONTENT_TYPE);
+            /* Data have already been written to the file */
+            mMsrpEventListener.receiveMsrpData(headers.get(MsrpConstants.HEADER_MESSAGE_ID),
+                    null, contentTypeHeader);
+
+            String reportHeader = headers.get(MsrpConstants.HEADER_SUCCESS_REPORT);
+            if ((reportHeader != null) && reportHeader.equalsIgnoreCase("yes")) {
+                sendMsrpReportRequest(txId, headers, receivedSize, totalSize);
+            }
+        } else if (flag == MsrpConstants.FLAG_ABORT_CHUNK) {
+            if (sLogger.isInfoEnabled()) {
+                sLogger.info("Transfer aborted");
+            }
+            mFileSink.close();
+            mMsrpEventListener.msrpTransferAborted();
+        } else if (flag == MsrpConstants.FLAG_MORE_CHUNK) {
+            mMsrpEventListener.msrpTransferProgress(receivedSize, totalSize);
+        }
+    }
+
     /**
      * Receive MSRP response
      * 
@@ -873,15 +922,18 @@ public class MsrpSession {
         // Consider media is established when we received something
         mIsEstablished = true;
 
-        if (sLogger.isActivated()) {
+        if (sLogger.isInfoEnabled()) {
             sLogger.info("Response received (code=" + code + ", transaction=" + txId + ")");
         }
 
-        if (mFailureReportOption) {
-            // Notify progress
-            if (!mCancelTransfer && mProgress.size() > 0) {
-                mMsrpEventListener.msrpTransferProgress(mProgress.get(0), mTotalSize);
-                mProgress.remove(0);
+        // Notify the window of SEND transactions in flight and the progress
+        for (MsrpSendWindow sendWindow : mSendWindows) {
+            if (sendWindow.handleResponse(txId, code)) {
+                if (code == 200 && !mCancelTransfer) {
+                    mMsrpEventListener.msrpTransferProgress(sendWindow.getAcknowledgedSize(),
+                            sendWindow.getTotalSize());
+                }
+                break;
             }
         }
 
@@ -890,11 +942,6 @@ public class MsrpSession {
             mRequestTransaction.notifyResponse(code, headers);
         }
 
-        // Notify MSRP transaction
-        if (mMsrpTransaction != null) {
-            mMsrpTransaction.handleResponse();
-        }
-
         // Notify event listener
         if (code != 200) {
             String cpimMsgId = null;
@@ -959,9 +1006,7 @@ public class MsrpSession {
         // Byte-Range: 1-305/305
         // -------n02s00i2t0+1937$
 
-        if (sLogger.isActivated()) {
-            sLogger.info("REPORT request received (transaction=" + txId + ")");
-        }
+        sLogger.info("REPORT request received (transaction={})", txId);
 
         String msrpMsgId = headers.get(MsrpConstants.HEADER_MESSAGE_ID);
         String cpimMsgId = null;
@@ -973,7 +1018,7 @@ public class MsrpSession {
             typeMsrpChunk = msrpTransactionInfo.mTypeMsrpChunk;
             originalTransactionId = msrpTransactionInfo.mTransactionId;
             cpimMsgId = msrpTransactionInfo.mCpimMsgId;
-            if (sLogger.isActivated()) {
+            if (sLogger.isDebugEnabled()) {
                 sLogger.debug("REPORT request details; originalTransactionId="
                         + originalTransactionId + "; cpimMsgId=" + cpimMsgId + "; typeMsrpChunk="
                         + typeMsrpChunk);
@@ -1120,7 +1165,7 @@ public class MsrpSession {
             for (MsrpTransactionInfo msrpTransactionInfo : msrpTransactionInfos) {
                 long delta = System.currentTimeMillis() - msrpTransactionInfo.mTimestamp;
                 if ((delta >= TRANSACTION_INFO_EXPIRY_PERIOD) || (delta < 0)) {
-                    if (sLogger.isActivated()) {
+                    if (sLogger.isDebugEnabled()) {
                         sLogger.debug("Transaction info have expired (transactionId: "
                                 + msrpTransactionInfo.mTransactionId + ", msgId: "
                                 + msrpTransactionInfo.mMsrpMsgId + ")");
@@ -52,6 +52,27 @@ public class MsrpUtils {
         return -1;
     }
 
+    /**
+     * Get the first byte of the range
+     * 
+     * @param header MSRP header
+     * @return Position of the first byte (starting at 1) or -1 if not found
+     */
+    public static long getFirstByte(String header) {
+        if (header == null) {
+            return -1;
+        }
+        int index = header.indexOf("-");
+        if (index != -1) {
+            try {
+                return Long.parseLong(header.substring(0, index));
+            } catch (NumberFormatException e) {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
     /**
      * Get the total size
      * 
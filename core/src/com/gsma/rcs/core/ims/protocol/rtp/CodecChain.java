@@ -24,6 +24,8 @@ import com.gsma.rcs.core.ims.protocol.rtp.stream.ProcessorOutputStream;
 import com.gsma.rcs.core.ims.protocol.rtp.util.Buffer;
 import com.gsma.rcs.utils.logger.Logger;
 
+import java.util.Arrays;
+
 /**
  * Codec chain
  * 
@@ -45,6 +47,11 @@ public class CodecChain {
      */
     private ProcessorOutputStream renderer;
 
+    /**
+     * Buffer handing a copy of the input data to the renderer when there is no codec
+     */
+    private final Buffer mCopyBuffer = new Buffer();
+
     /**
      * The logger
      */
@@ -106,6 +113,23 @@ public class CodecChain {
                         fragment.setData(null);
                     }
                     input.setFragments(null);
+                } else if (codecNo == 0) {
+                    /*
+                     * Without any codec the renderer gets the input buffer of the chain, whose data
+                     * is a pooled array reused once processed: give the renderer its own copy.
+                     */
+                    Buffer copy = mCopyBuffer;
+                    byte[] data = (byte[]) input.getData();
+                    int offset = input.getOffset();
+                    copy.setData(Arrays.copyOfRange(data, offset, offset + input.getLength()));
+                    copy.setLength(input.getLength());
+                    copy.setOffset(0);
+                    copy.setTimestamp(input.getTimestamp());
+                    copy.setSequenceNumber(input.getSequenceNumber());
+                    copy.setFormat(input.getFormat());
+                    copy.setFlags(input.getFlags());
+                    copy.setVideoOrientation(input.getVideoOrientation());
+                    renderer.write(copy);
                 } else {
                     renderer.write(input);
                 }
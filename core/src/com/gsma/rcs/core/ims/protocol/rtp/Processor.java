@@ -24,6 +24,8 @@ import com.gsma.rcs.core.ims.protocol.rtp.stream.ProcessorInputStream;
 import com.gsma.rcs.core.ims.protocol.rtp.stream.ProcessorOutputStream;
 import com.gsma.rcs.core.ims.protocol.rtp.util.Buffer;
 import com.gsma.rcs.utils.logger.Logger;
+import com.gsma.rcs.utils.scheduler.PooledTask;
+import com.gsma.rcs.utils.scheduler.TaskScheduler.Pool;
 
 /**
  * Media processor. A processor receives an input stream, use a codec chain to filter the data
@@ -31,7 +33,7 @@ import com.gsma.rcs.utils.logger.Logger;
  * 
  * @author jexa7410
  */
-public class Processor extends Thread {
+public class Processor extends PooledTask {
     /**
      * Processor input stream
      */
@@ -66,7 +68,7 @@ public class Processor extends Thread {
      */
     public Processor(ProcessorInputStream inputStream, ProcessorOutputStream outputStream,
             Codec[] codecs) {
-        super();
+        super(Pool.LONG_RUNNING, "MediaProcessor");
 
         this.inputStream = inputStream;
         this.outputStream = outputStream;
@@ -107,7 +109,8 @@ public class Processor extends Thread {
     /**
      * Background processing
      */
-    public void run() {
+    @Override
+    protected void runTask() {
         try {
             if (sLogger.isActivated()) {
                 sLogger.debug("Processor processing is started");
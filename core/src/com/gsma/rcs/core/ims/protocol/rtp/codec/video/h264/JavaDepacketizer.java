@@ -128,7 +128,8 @@ public class JavaDepacketizer extends VideoCodec {
     private int handleSingleNalUnitPacket(Buffer input, Buffer output) {
         // Create output buffer
         byte[] bufferData = (byte[]) input.getData();
-        int bufferDataLength = bufferData.length;
+        /* The input array may be a pooled array larger than the packet */
+        int bufferDataLength = input.getLength();
         byte[] data = new byte[bufferDataLength];
         System.arraycopy(bufferData, 0, data, 0, bufferDataLength);
 
@@ -153,7 +154,8 @@ public class JavaDepacketizer extends VideoCodec {
     private int handleAggregationPacket(Buffer input, Buffer output) {
         // Get data
         byte[] bufferData = (byte[]) input.getData();
-        if (aggregationPositon + 1 >= bufferData.length) {
+        int bufferDataLength = input.getLength();
+        if (aggregationPositon + 1 >= bufferDataLength) {
             // No more data in aggregation packet
             aggregationPositon = 1;
             output.setDiscard(true);
@@ -163,7 +165,7 @@ public class JavaDepacketizer extends VideoCodec {
         // Get NALU size
         int nalu_size = (((bufferData[aggregationPositon] & 0xff) << 8) | (bufferData[aggregationPositon + 1] & 0xff));
         aggregationPositon += 2;
-        if (aggregationPositon + nalu_size > bufferData.length) {
+        if (aggregationPositon + nalu_size > bufferDataLength) {
             // Not a correct packet
             aggregationPositon = 1;
             return BUFFER_PROCESSED_FAILED;
@@ -34,6 +34,8 @@ import com.gsma.rcs.core.ims.protocol.rtp.util.Packet;
 import com.gsma.rcs.platform.network.DatagramConnection;
 import com.gsma.rcs.platform.network.NetworkFactory;
 import com.gsma.rcs.utils.logger.Logger;
+import com.gsma.rcs.utils.scheduler.PooledTask;
+import com.gsma.rcs.utils.scheduler.TaskScheduler.Pool;
 
 import java.io.ByteArrayInputStream;
 import java.io.Closeable;
@@ -47,7 +49,7 @@ import java.util.Vector;
  * 
  * @author jexa7410
  */
-public class RtcpPacketReceiver extends Thread implements Closeable {
+public class RtcpPacketReceiver extends PooledTask implements Closeable {
 
     private DatagramConnection mDatagramConnection;
 
@@ -80,7 +82,7 @@ public class RtcpPacketReceiver extends Thread implements Closeable {
      */
     public RtcpPacketReceiver(int port, RtcpSession rtcpSession, int socketTimeout)
             throws IOException {
-        super();
+        super(Pool.LONG_RUNNING, "RtcpPacketReceiver");
 
         mRtcpSession = rtcpSession;
 
@@ -122,7 +124,8 @@ public class RtcpPacketReceiver extends Thread implements Closeable {
     /**
      * Background processing
      */
-    public void run() {
+    @Override
+    protected void runTask() {
         try {
             while (mDatagramConnection != null) {
                 // Wait a packet
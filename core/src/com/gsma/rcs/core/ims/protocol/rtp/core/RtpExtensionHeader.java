@@ -75,6 +75,10 @@ public class RtpExtensionHeader implements Iterable<RtpExtensionHeader.Extension
      * 
      * @return Number of elements
      */
+    public void clear() {
+        elements.clear();
+    }
+
     public int elementsCount() {
         return elements.size();
     }
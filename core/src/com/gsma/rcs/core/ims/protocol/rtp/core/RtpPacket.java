@@ -24,6 +24,7 @@ import com.gsma.rcs.core.ims.protocol.rtp.util.Packet;
 import java.io.ByteArrayOutputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 
 /**
  * Abstract RTP packet
@@ -43,10 +44,51 @@ public class RtpPacket extends Packet {
     public boolean extension;
     public RtpExtensionHeader extensionHeader;
 
+    /**
+     * Direct buffer receiving the datagram of a pooled packet
+     */
+    private ByteBuffer mBuffer;
+
+    /**
+     * Pool of the packet, null if the packet is not pooled
+     */
+    private RtpPacketPool mPool;
+
     public RtpPacket() {
         super();
     }
 
+    /**
+     * Constructor of a pooled packet
+     * 
+     * @param pool Pool of the packet
+     * @param capacity Maximum size of a datagram
+     */
+    /* package private */RtpPacket(RtpPacketPool pool, int capacity) {
+        super();
+        mPool = pool;
+        mBuffer = ByteBuffer.allocateDirect(capacity);
+        mData = new byte[capacity];
+    }
+
+    /**
+     * Returns the direct buffer receiving the datagram of a pooled packet
+     * 
+     * @return Buffer or null if the packet is not pooled
+     */
+    public ByteBuffer getBuffer() {
+        return mBuffer;
+    }
+
+    /**
+     * Give a pooled packet back to its pool once its payload has been processed
+     */
+    public void recycle() {
+        if (mPool != null) {
+            mPool.release(this);
+        }
+    }
+
     public RtpPacket(Packet packet) {
         super(packet);
 
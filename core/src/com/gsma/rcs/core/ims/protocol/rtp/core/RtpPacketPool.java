@@ -0,0 +1,92 @@
+/*******************************************************************************
+ * Software Name : RCS IMS Stack
+ *
+ * Copyright (C) 2010-2016 Orange.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+
+package com.gsma.rcs.core.ims.protocol.rtp.core;
+
+import com.gsma.rcs.utils.queue.BoundedQueue;
+import com.gsma.rcs.utils.queue.MpmcRingBufferQueue;
+import com.gsma.rcs.utils.queue.OverflowPolicy;
+
+/**
+ * Pool of RTP packets with their direct receive buffer and payload array.<br>
+ * Packets are acquired by the RTP receiver thread and released by the media processor thread once
+ * depacketized, so that no memory is allocated per packet in steady state.
+ *
+ * @author jexa7410
+ */
+public class RtpPacketPool {
+    /**
+     * Maximum size of a RTP datagram, larger than the path MTU
+     */
+    public static final int MAX_PACKET_SIZE = 2048;
+
+    private final BoundedQueue<RtpPacket> mFreePackets;
+
+    private final int mPacketSize;
+
+    /**
+     * Number of packets allocated by the pool
+     */
+    private volatile int mAllocatedCount;
+
+    /**
+     * Constructor
+     *
+     * @param capacity Maximum number of free packets kept by the pool
+     * @param packetSize Maximum size of a datagram
+     */
+    public RtpPacketPool(int capacity, int packetSize) {
+        mFreePackets = new MpmcRingBufferQueue<>(capacity, OverflowPolicy.DROP_NEWEST);
+        mPacketSize = packetSize;
+    }
+
+    /**
+     * Acquire a free packet, a new one is allocated if there is none
+     *
+     * @return RTP packet
+     */
+    public RtpPacket acquire() {
+        RtpPacket packet = mFreePackets.poll();
+        if (packet == null) {
+            mAllocatedCount++;
+            packet = new RtpPacket(this, mPacketSize);
+        }
+        packet.getBuffer().clear();
+        return packet;
+    }
+
+    /**
+     * Release a packet. Called through {@link RtpPacket#recycle()}.
+     *
+     * @param packet RTP packet
+     */
+    /* package private */void release(RtpPacket packet) {
+        /* The packet is left to the garbage collector if the pool is full */
+        mFreePackets.offer(packet);
+    }
+
+    /**
+     * Returns the number of packets allocated by the pool since its creation
+     *
+     * @return Number of packets
+     */
+    public int getAllocatedCount() {
+        return mAllocatedCount;
+    }
+}
@@ -26,11 +26,16 @@ import com.gsma.rcs.core.ims.network.NetworkException;
 import com.gsma.rcs.platform.network.DatagramConnection;
 import com.gsma.rcs.platform.network.NetworkFactory;
 import com.gsma.rcs.utils.CloseableUtils;
-import com.gsma.rcs.utils.FifoBuffer;
 import com.gsma.rcs.utils.logger.Logger;
+import com.gsma.rcs.utils.scheduler.PooledTask;
+import com.gsma.rcs.utils.scheduler.TaskScheduler.Pool;
+import com.gsma.rcs.utils.queue.BoundedQueue;
+import com.gsma.rcs.utils.queue.MpmcRingBufferQueue;
+import com.gsma.rcs.utils.queue.OverflowPolicy;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.concurrent.TimeoutException;
 
 /**
@@ -38,7 +43,7 @@ import java.util.concurrent.TimeoutException;
  * 
  * @author jexa7410
  */
-public class RtpPacketReceiver extends Thread implements Closeable {
+public class RtpPacketReceiver extends PooledTask implements Closeable {
     /**
      * Statistics
      */
@@ -55,19 +60,23 @@ public class RtpPacketReceiver extends Thread implements Closeable {
     private RtcpSession mRtcpSession;
 
     /**
-     * Fifo buffer for received packet
+     * Max size for the fifo
      */
-    private FifoBuffer mBuffer = new FifoBuffer();
+    private static final int FIFO_MAX_NUMBER = 100;
 
     /**
-     * Max size for the fifo
+     * Fifo buffer for received packet, the oldest packets are dropped and recycled when the reader
+     * lags
      */
-    private static final int FIFO_MAX_NUMBER = 100;
+    private final BoundedQueue<RtpPacket> mBuffer = new MpmcRingBufferQueue<>(FIFO_MAX_NUMBER,
+            OverflowPolicy.DROP_NEWEST);
 
     /**
-     * Number of element to clean in the fifo
+     * Pool of packets: the fifo, the reordering buffer of the reader and the packets being
+     * received or depacketized
      */
-    private static final int FIFO_CLEAN_NUMBER = 20;
+    private final RtpPacketPool mPacketPool = new RtpPacketPool(2 * FIFO_MAX_NUMBER,
+            RtpPacketPool.MAX_PACKET_SIZE);
 
     /**
      * Signals that thread is interrupted
@@ -99,18 +108,30 @@ public class RtpPacketReceiver extends Thread implements Closeable {
      */
     public RtpPacketReceiver(int port, RtcpSession rtcpSession, int socketTimeout)
             throws IOException {
-        super();
-
-        mRtcpSession = rtcpSession;
-        mTimeout = socketTimeout;
+        this(NetworkFactory.getFactory().createDatagramChannelConnection(socketTimeout),
+                rtcpSession, socketTimeout);
         // Create the UDP server
-        mDatagramConnection = NetworkFactory.getFactory().createDatagramConnection(socketTimeout);
         mDatagramConnection.open(port);
         if (sLogger.isActivated()) {
             sLogger.debug("RTP receiver created on port " + port);
         }
     }
 
+    /**
+     * Constructor
+     * 
+     * @param connection Datagram connection, opened by the caller
+     * @param rtcpSession RTCP session
+     * @param timeout Read timeout in milliseconds, 0 for no timeout
+     */
+    public RtpPacketReceiver(DatagramConnection connection, RtcpSession rtcpSession, int timeout) {
+        super(Pool.LONG_RUNNING, "RtpPacketReceiver");
+
+        mRtcpSession = rtcpSession;
+        mTimeout = timeout;
+        mDatagramConnection = connection;
+    }
+
     /**
      * Constructor
      * 
@@ -128,39 +149,55 @@ public class RtpPacketReceiver extends Thread implements Closeable {
     public void close() {
         mInterrupted = true;
         interrupt();
+        mBuffer.close();
         CloseableUtils.tryToClose(mDatagramConnection);
+        RtpPacket packet;
+        while ((packet = mBuffer.poll()) != null) {
+            packet.recycle();
+        }
+    }
+
+    /**
+     * Returns the pool of the received packets
+     * 
+     * @return Packet pool
+     */
+    public RtpPacketPool getPacketPool() {
+        return mPacketPool;
     }
 
     /**
      * Background processing
      */
-    public void run() {
+    @Override
+    protected void runTask() {
         if (sLogger.isActivated()) {
             sLogger.debug("RTP Receiver processing is started");
         }
         try {
             while (mDatagramConnection != null) {
                 // Wait a new packet
-                byte[] data = mDatagramConnection.receive();
+                RtpPacket packet = mPacketPool.acquire();
+                ByteBuffer data = packet.getBuffer();
+                int length = mDatagramConnection.receive(data);
 
-                if (data.length >= 12) {
+                /* A datagram filling the whole buffer may have been truncated */
+                if (length >= 12 && length < data.capacity()) {
                     // Drop empty packet (payload 20)
-                    int payloadType = (byte) ((data[1] & 0xff) & 0x7f);
+                    int payloadType = data.get(1) & 0x7f;
                     if (payloadType != 20) {
                         // Drop too old packet
-                        int seqnum = (char) ((data[2] << 8) | (data[3] & 0xff));
+                        int seqnum = data.getChar(2);
                         if (seqnum > mLastSeqnum - 10) {
-                            // Clean the FIFO if full
-                            if (mBuffer.size() >= FIFO_MAX_NUMBER) {
-                                mBuffer.clean(FIFO_CLEAN_NUMBER);
-                            }
-                            mBuffer.addObject(data);
+                            data.flip();
+                            post(packet);
                             mLastSeqnum = seqnum;
-                        } else {
-                            mStats.numBadRtpPkts++;
+                            continue;
                         }
+                        mStats.numBadRtpPkts++;
                     }
                 }
+                packet.recycle();
             }
         } catch (NetworkException e) {
             if (!mInterrupted) {
@@ -178,25 +215,42 @@ public class RtpPacketReceiver extends Thread implements Closeable {
     }
 
     /**
-     * Read a RTP packet (blocking method)
+     * Post a received packet in the fifo, dropping the oldest packet if the fifo is full
+     * 
+     * @param packet RTP packet
+     */
+    private void post(RtpPacket packet) {
+        if (mBuffer.offer(packet)) {
+            return;
+        }
+        RtpPacket oldest = mBuffer.poll();
+        if (oldest != null) {
+            oldest.recycle();
+        }
+        if (!mBuffer.offer(packet)) {
+            packet.recycle();
+        }
+    }
+
+    /**
+     * Read a RTP packet (blocking method). The packet shall be recycled once its payload has been
+     * processed.
      * 
      * @return RTP packet
      * @throws TimeoutException
      */
     public RtpPacket readRtpPacket() throws TimeoutException {
         // Get a new packet in FIFO
-        byte[] data = (byte[]) mBuffer.getObject(mTimeout);
-        if (data == null) {
+        RtpPacket pkt = (mTimeout > 0) ? mBuffer.poll(mTimeout) : mBuffer.take();
+        if (pkt == null) {
             throw new TimeoutException("Unable to fetch packet from FIFO queue!");
         }
 
         // Parse the RTP packet
-        RtpPacket pkt = parseRtpPacket(data);
-
-        if (pkt != null) {
+        if (parseRtpPacket(pkt)) {
             // Update statistics
             mStats.numPackets++;
-            mStats.numBytes += data.length;
+            mStats.numBytes += pkt.mLength;
 
             RtpSource s = mRtcpSession.getMySource();
             s.setSsrc(pkt.ssrc);
@@ -206,70 +260,69 @@ public class RtpPacketReceiver extends Thread implements Closeable {
 
             return pkt;
         }
+        pkt.recycle();
         return readRtpPacket();
     }
 
     /**
-     * Parse the RTP packet
+     * Parse in place the header of a received RTP packet and copy its payload into the reusable
+     * payload array of the packet
      * 
-     * @param data RTP packet not yet parsed
-     * @return RTP packet
+     * @param packet RTP packet holding the received datagram
+     * @return False if the packet is malformed
      */
-    private RtpPacket parseRtpPacket(byte[] data) {
-        RtpPacket packet = new RtpPacket();
+    private boolean parseRtpPacket(RtpPacket packet) {
+        ByteBuffer data = packet.getBuffer();
         // Read RTP packet length
-        packet.mLength = data.length;
+        packet.mLength = data.limit();
 
         // Set received timestamp
         packet.mReceivedAt = System.currentTimeMillis();
 
         // Read extension bit
-        packet.extension = (data[0] & 0x10) > 0;
+        packet.extension = (data.get(0) & 0x10) > 0;
 
         // Read marker
-        if ((byte) ((data[1] & 0xff) & 0x80) == (byte) 0x80) {
-            packet.marker = 1;
-        } else {
-            packet.marker = 0;
-        }
+        packet.marker = (data.get(1) & 0x80) == 0x80 ? 1 : 0;
 
         // Read payload type
-        packet.payloadType = (byte) ((data[1] & 0xff) & 0x7f);
+        packet.payloadType = data.get(1) & 0x7f;
 
-        // Read sequence number (it's a unsigned 16 bit value. Because Java only supports
-        // signed values for int and short we use char to do the correct conversion.)
-        packet.seqnum = (char) ((data[2] << 8) | (data[3] & 0xff));
+        // Read sequence number (it's a unsigned 16 bit value)
+        packet.seqnum = data.getChar(2);
 
         // Read timestamp
-        packet.timestamp = (((data[4] & 0xff) << 24) | ((data[5] & 0xff) << 16)
-                | ((data[6] & 0xff) << 8) | (data[7] & 0xff));
+        packet.timestamp = data.getInt(4);
 
         // Read SSRC
-        packet.ssrc = (((data[8] & 0xff) << 24) | ((data[9] & 0xff) << 16)
-                | ((data[10] & 0xff) << 8) | (data[11] & 0xff));
+        packet.ssrc = data.getInt(8);
 
         // Extract the extension header
+        if (packet.extensionHeader != null) {
+            packet.extensionHeader.clear();
+        }
         if (packet.extension) {
-            int dataId = 11;
-            int extensionHeaderId = ((data[++dataId] & 0xff) << 8) | (data[++dataId] & 0xff);
-            int length = ((data[++dataId] & 0xff) << 8) | (data[++dataId] & 0xff);
-
-            if (extensionHeaderId == RtpExtensionHeader.RTP_EXTENSION_HEADER_ID) {
-                extractExtensionHeader(data, length, dataId, packet);
+            if (packet.mLength < 16) {
+                return false;
             }
-
-            // increment payload offset = RtpHeader size (12) + Extension Header ID (2) + Header
-            // Length (2) +
-            // elements * 4 (32 bits each) + 1 (to set at correct index)
+            int extensionHeaderId = data.getChar(12);
+            int length = data.getChar(14);
+            // payload offset = RtpHeader size (12) + Extension Header ID (2) + Header Length (2) +
+            // elements * 4 (32 bits each)
             packet.payloadoffset = 16 + length * 4;
+            if (packet.payloadoffset > packet.mLength) {
+                return false;
+            }
+            if (extensionHeaderId == RtpExtensionHeader.RTP_EXTENSION_HEADER_ID) {
+                extractExtensionHeader(data, length, packet);
+            }
         } else {
             packet.payloadoffset = 12;
         }
         packet.payloadlength = packet.mLength - packet.payloadoffset;
-        packet.mData = new byte[packet.payloadlength];
-        System.arraycopy(data, packet.payloadoffset, packet.mData, 0, packet.payloadlength);
-
-        return packet;
+        data.position(packet.payloadoffset);
+        data.get(packet.mData, 0, packet.payloadlength);
+        return true;
     }
 
     /**
@@ -293,19 +346,18 @@ public class RtpPacketReceiver extends Thread implements Closeable {
     /**
      * Extract Extension Header
      * 
-     * @param data
-     * @param length
-     * @param dataId
-     * @param packet
+     * @param data Received datagram
+     * @param length Length of the extension in 32 bits words
+     * @param packet RTP packet
      */
-    private void extractExtensionHeader(byte[] data, int length, int dataId, RtpPacket packet) {
-        byte[] extensionHeaderData = new byte[length * 4];
-        System.arraycopy(data, ++dataId, extensionHeaderData, 0, extensionHeaderData.length);
-        packet.extensionHeader = new RtpExtensionHeader();
-
-        int i = 0;
-        while (packet.extensionHeader.elementsCount() < length) {
-            byte idAndLength = extensionHeaderData[i];
+    private void extractExtensionHeader(ByteBuffer data, int length, RtpPacket packet) {
+        if (packet.extensionHeader == null) {
+            packet.extensionHeader = new RtpExtensionHeader();
+        }
+        int i = 16;
+        int end = 16 + length * 4;
+        while (packet.extensionHeader.elementsCount() < length && i < end) {
+            byte idAndLength = data.get(i);
             if (idAndLength == 0x00) {
                 // its a padding byte, skip it
                 i = i + 1;
@@ -317,8 +369,12 @@ public class RtpPacketReceiver extends Thread implements Closeable {
             // Each extension element id must have a value between 1 and 14 inclusive
             if (elementId > 0 && elementId < 15) {
                 int elementLength = (idAndLength & 0x0f);
+                if (i + 2 + elementLength > end) {
+                    break;
+                }
                 byte[] elementData = new byte[elementLength + 1];
-                System.arraycopy(extensionHeaderData, i + 1, elementData, 0, elementData.length);
+                data.position(i + 1);
+                data.get(elementData);
                 packet.extensionHeader.addElement(elementId, elementData);
                 i = i + elementData.length + 1;
             } else {
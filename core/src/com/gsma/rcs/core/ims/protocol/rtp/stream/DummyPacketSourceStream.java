@@ -22,8 +22,10 @@ import com.gsma.rcs.core.ims.protocol.rtp.format.DummyFormat;
 import com.gsma.rcs.core.ims.protocol.rtp.format.Format;
 import com.gsma.rcs.core.ims.protocol.rtp.util.Buffer;
 import com.gsma.rcs.core.ims.protocol.rtp.util.SystemTimeBase;
-import com.gsma.rcs.utils.FifoBuffer;
 import com.gsma.rcs.utils.logger.Logger;
+import com.gsma.rcs.utils.queue.BoundedQueue;
+import com.gsma.rcs.utils.queue.OverflowPolicy;
+import com.gsma.rcs.utils.queue.SpscRingBufferQueue;
 
 /**
  * Dummy packet source stream (used to pass NAT)
@@ -57,10 +59,16 @@ public class DummyPacketSourceStream extends Thread implements ProcessorInputStr
      */
     private long mSeqNo;
 
+    /**
+     * Maximum number of dummy packets waiting to be read
+     */
+    private static final int MAX_PENDING_PACKETS = 16;
+
     /**
      * Message buffer
      */
-    private FifoBuffer mBuffer = new FifoBuffer();
+    private final BoundedQueue<Buffer> mBuffer = new SpscRingBufferQueue<>(MAX_PENDING_PACKETS,
+            OverflowPolicy.DROP_NEWEST);
 
     /**
      * The logger
@@ -129,7 +137,7 @@ public class DummyPacketSourceStream extends Thread implements ProcessorInputStr
                     packet.setTimestamp(mSystemTimeBase.getTimestamp());
 
                     // Post the packet in the FIFO
-                    mBuffer.addObject(packet);
+                    mBuffer.offer(packet);
 
                     // Make a pause
                     if (!mIncomingStarted) {
@@ -159,8 +167,7 @@ public class DummyPacketSourceStream extends Thread implements ProcessorInputStr
      */
     public Buffer read() {
         // Read the FIFO the buffer
-        Buffer buffer = (Buffer) mBuffer.getObject();
-        return buffer;
+        return mBuffer.take();
     }
 
     /**
@@ -118,6 +118,12 @@ public class RtpInputStream implements ProcessorInputStream {
      */
     private PriorityQueue<RtpPacket> mRtpPacketsBuffer;
 
+    /**
+     * Packet returned by the last read, recycled by the next read once its payload has been
+     * processed by the codec chain
+     */
+    private RtpPacket mCurrentPacket;
+
     /**
      * Constructor
      * 
@@ -176,6 +182,16 @@ public class RtpInputStream implements ProcessorInputStream {
         mRtpStreamListener = null;
     }
 
+    /**
+     * Recycle the packet returned by the last read
+     */
+    private void recycleCurrentPacket() {
+        if (mCurrentPacket != null) {
+            mCurrentPacket.recycle();
+            mCurrentPacket = null;
+        }
+    }
+
     /**
      * Returns the RTP receiver
      * 
@@ -201,6 +217,8 @@ public class RtpInputStream implements ProcessorInputStream {
      * @throws NetworkException
      */
     public Buffer read() throws NetworkException {
+        /* The payload of the previous packet has been processed by the codec chain */
+        recycleCurrentPacket();
         do {
             try {
                 /* Wait and read a RTP packet */
@@ -221,6 +239,7 @@ public class RtpInputStream implements ProcessorInputStream {
         } while (mRtpPacketsBuffer.size() <= MAX_RTP_PACKETS);
 
         RtpPacket packet = mRtpPacketsBuffer.poll();
+        mCurrentPacket = packet;
 
         mBuffer.setData(packet.mData);
         mBuffer.setLength(packet.payloadlength);
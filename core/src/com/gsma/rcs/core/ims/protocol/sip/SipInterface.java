@@ -27,6 +27,7 @@ import com.gsma.rcs.core.ims.network.sip.SipMessageFactory;
 import com.gsma.rcs.core.ims.network.sip.SipUtils;
 import com.gsma.rcs.core.ims.protocol.PayloadException;
 import com.gsma.rcs.core.ims.protocol.sip.SipTransactionContext.INotifySipProvisionalResponse;
+import com.gsma.rcs.core.ims.protocol.sip.SipTransactionContext.INotifySipTransactionCompletion;
 import com.gsma.rcs.core.ims.security.cert.KeyStoreManager;
 import com.gsma.rcs.core.ims.service.SessionAuthenticationAgent;
 import com.gsma.rcs.provider.settings.RcsSettings;
@@ -34,6 +35,8 @@ import com.gsma.rcs.utils.IdGenerator;
 import com.gsma.rcs.utils.InetAddressUtils;
 import com.gsma.rcs.utils.NetworkRessourceManager;
 import com.gsma.rcs.utils.logger.Logger;
+import com.gsma.rcs.utils.scheduler.TaskScheduler;
+import com.gsma.rcs.utils.scheduler.TaskScheduler.Pool;
 
 import gov2.nist.javax2.sip.address.AddressImpl;
 import gov2.nist.javax2.sip.message.SIPMessage;
@@ -187,7 +190,8 @@ public class SipInterface implements SipListener {
         mRcsSettings = rcsSettings;
         mSipProviders = new ArrayList<>();
         mListeners = new ArrayList<>();
-        mTransactions = new SipTransactionList();
+        mTransactions = new SipTransactionList(TaskScheduler.getInstance().getExecutor(Pool.IO),
+                TaskScheduler.getInstance().getTimer());
     }
 
     /**
@@ -206,6 +210,9 @@ public class SipInterface implements SipListener {
             Properties properties = new Properties();
             properties.setProperty("javax2.sip.STACK_NAME", mLocalIpAddress);
             properties.setProperty("gov2.nist.javax2.sip.THREAD_POOL_SIZE", "1");
+            properties.setProperty("gov2.nist.javax2.sip.TIMER_CLASS_NAME",
+                    "gov2.nist.javax2.sip.stack.HashedWheelSipTimer");
+            properties.setProperty("gov2.nist.javax2.sip.LAZY_HEADER_PARSING", "true");
             properties.setProperty("javax2.sip.OUTBOUND_PROXY", getOutboundProxy());
             if (mSipTraceEnabled) {
                 /* Activate SIP stack traces */
@@ -281,7 +288,7 @@ public class SipInterface implements SipListener {
                     break;
                 }
             }
-            if (sLogger.isActivated()) {
+            if (sLogger.isDebugEnabled()) {
                 if (mDefaultProtocol.equals(ListeningPoint.UDP))
                     sLogger.debug("Default SIP provider is UDP (TCP fallback=" + mTcpFallback + ")");
                 else
@@ -293,7 +300,7 @@ public class SipInterface implements SipListener {
             throw new PayloadException("Unable to instantiate SIP stack for localIpAddress : "
                     + mLocalIpAddress + " with defaultProtocol : " + mDefaultProtocol, e);
         }
-        if (sLogger.isActivated()) {
+        if (sLogger.isDebugEnabled()) {
             sLogger.debug("SIP stack initialized at " + mLocalIpAddress + ":" + mListeningPort);
         }
     }
@@ -328,11 +335,13 @@ public class SipInterface implements SipListener {
             if (mSipStack != null) {
                 mSipStack.stop();
             } else {
-                if (sLogger.isActivated()) {
+                if (sLogger.isDebugEnabled()) {
                     sLogger.debug("SIP stack is null");
                 }
             }
             SipFactory.getInstance().resetFactory();
+            /* Complete the pending asynchronous transactions as timed out */
+            mTransactions.completeAll();
         }
     }
 
@@ -365,7 +374,7 @@ public class SipInterface implements SipListener {
         // changed.
         if (ListeningPoint.UDP.equals(mDefaultProtocol) && mTcpFallback
                 && (request.getStackMessage().toString().length() > (mSipStack.getMtuSize() - 200))) {
-            if (sLogger.isActivated()) {
+            if (sLogger.isDebugEnabled()) {
                 sLogger.debug("Transaction falls back to TCP as request size is "
                         + request.getStackMessage().toString().length() + " and MTU size is "
                         + mSipStack.getMtuSize());
@@ -652,7 +661,7 @@ public class SipInterface implements SipListener {
      *
      * @param id Transaction ID
      */
-    public synchronized void removeTransactionContext(String id) {
+    public void removeTransactionContext(String id) {
         mTransactions.remove(id);
     }
 
@@ -660,14 +669,59 @@ public class SipInterface implements SipListener {
      * Notify the transaction context that a message has been received (response or ACK)
      *
      * @param transactionId Transaction ID
-     * @param msg SIP message
+     * @param msg SIP message or null on timeout
      */
     private void notifyTransactionContext(String transactionId, SipMessage msg) {
-        SipTransactionContext ctx = mTransactions.get(transactionId);
-        if (ctx != null) {
-            removeTransactionContext(transactionId);
-            ctx.responseReceived(msg);
+        mTransactions.complete(transactionId, msg);
+    }
+
+    /**
+     * Send a SIP request without blocking the calling thread. The callback is invoked once, from
+     * the completion executor, when the final response is received or when the transaction times
+     * out.
+     *
+     * @param request SIP request
+     * @param timeout Timeout in milliseconds after which the transaction is completed without
+     *            response if the SIP stack has not reported it before
+     * @param callbackSipProvisionalResponse a callback to handle SIP provisional response or null
+     * @param callback Callback to handle the completion of the transaction
+     * @return Transaction context
+     * @throws PayloadException
+     * @throws NetworkException
+     */
+    public SipTransactionContext sendSipMessageAsync(SipRequest request, long timeout,
+            INotifySipProvisionalResponse callbackSipProvisionalResponse,
+            INotifySipTransactionCompletion callback) throws PayloadException, NetworkException {
+        String id = SipTransactionContext.getTransactionContextId(request);
+        SipTransactionContext ctx;
+        try {
+            ClientTransaction transaction = (ClientTransaction) request.getStackTransaction();
+            if (transaction == null) {
+                transaction = createNewTransaction(request);
+                request.setStackTransaction(transaction);
+            }
+            ctx = new SipTransactionContext(transaction, callbackSipProvisionalResponse, callback);
+            mTransactions.put(id, ctx);
+            if (sLogger.isDebugEnabled()) {
+                sLogger.debug("Create an asynchronous transaction context {}", id);
+                sLogger.debug(">>> Send SIP {}", request.getMethod());
+            }
+            if (mSipTraceEnabled) {
+                System.out.println(">>> " + request.getStackMessage().toString());
+                System.out.println(TRACE_SEPARATOR);
+            }
+            transaction.sendRequest();
+
+        } catch (ParseException e) {
+            mTransactions.remove(id);
+            throw new PayloadException("Unable to instantiate SIP transaction!", e);
+
+        } catch (SipException e) {
+            mTransactions.remove(id);
+            throw new NetworkException("Can't send SIP message!", e);
         }
+        mTransactions.scheduleExpiry(id, ctx, timeout);
+        return ctx;
     }
 
     /**
@@ -694,10 +748,10 @@ public class SipInterface implements SipListener {
                         callbackSipProvisionalResponse);
                 String id = SipTransactionContext.getTransactionContextId(req);
                 mTransactions.put(id, ctx);
-                if (sLogger.isActivated()) {
+                if (sLogger.isDebugEnabled()) {
                     sLogger.debug("Create a transaction context ".concat(id));
                 }
-                if (sLogger.isActivated()) {
+                if (sLogger.isDebugEnabled()) {
                     sLogger.debug(">>> Send SIP ".concat(req.getMethod()));
                 }
                 if (mSipTraceEnabled) {
@@ -716,10 +770,10 @@ public class SipInterface implements SipListener {
             SipTransactionContext ctx = new SipTransactionContext(transaction);
             String id = SipTransactionContext.getTransactionContextId(resp);
             mTransactions.put(id, ctx);
-            if (sLogger.isActivated()) {
+            if (sLogger.isDebugEnabled()) {
                 sLogger.debug("Create a transaction context ".concat(id));
             }
-            if (sLogger.isActivated()) {
+            if (sLogger.isDebugEnabled()) {
                 sLogger.debug(">>> Send SIP " + resp.getStatusCode() + " response");
             }
             if (mSipTraceEnabled) {
@@ -762,7 +816,7 @@ public class SipInterface implements SipListener {
             if (transaction == null) {
                 throw new NetworkException("No transaction available for sending response!");
             }
-            if (sLogger.isActivated()) {
+            if (sLogger.isDebugEnabled()) {
                 sLogger.debug(">>> Send SIP " + response.getStatusCode() + " response");
             }
             if (mSipTraceEnabled) {
@@ -786,7 +840,7 @@ public class SipInterface implements SipListener {
     public void sendSipAck(SipDialogPath dialog) throws PayloadException, NetworkException {
         try {
             SipRequest ack = SipMessageFactory.createAck(dialog);
-            if (sLogger.isActivated()) {
+            if (sLogger.isDebugEnabled()) {
                 sLogger.debug(">>> Send SIP ACK");
             }
             if (mSipTraceEnabled) {
@@ -820,7 +874,7 @@ public class SipInterface implements SipListener {
                 agent.setProxyAuthorizationHeader(cancel);
             }
             ClientTransaction transaction = createNewTransaction(cancel);
-            if (sLogger.isActivated()) {
+            if (sLogger.isDebugEnabled()) {
                 sLogger.debug(">>> Send SIP CANCEL");
             }
             if (mSipTraceEnabled) {
@@ -845,7 +899,7 @@ public class SipInterface implements SipListener {
      * @throws NetworkException
      */
     public void sendSipBye(SipDialogPath dialog) throws PayloadException, NetworkException {
-        boolean loggerActivated = sLogger.isActivated();
+        boolean debugEnabled = sLogger.isDebugEnabled();
         try {
             SipRequest bye = SipMessageFactory.createBye(dialog);
             SessionAuthenticationAgent agent = dialog.getAuthenticationAgent();
@@ -853,7 +907,7 @@ public class SipInterface implements SipListener {
                 agent.setProxyAuthorizationHeader(bye);
             }
             ClientTransaction transaction = createNewTransaction(bye);
-            if (loggerActivated) {
+            if (debugEnabled) {
                 sLogger.debug(">>> Send SIP BYE");
             }
             if (mSipTraceEnabled) {
@@ -881,14 +935,14 @@ public class SipInterface implements SipListener {
      */
     public SipTransactionContext sendSubsequentRequest(SipDialogPath dialog, SipRequest request)
             throws PayloadException, NetworkException {
-        boolean loggerActivated = sLogger.isActivated();
+        boolean debugEnabled = sLogger.isDebugEnabled();
         try {
             SessionAuthenticationAgent agent = dialog.getAuthenticationAgent();
             if (agent != null) {
                 agent.setProxyAuthorizationHeader(request);
             }
             ClientTransaction transaction = createNewTransaction(request);
-            if (loggerActivated) {
+            if (debugEnabled) {
                 sLogger.debug(">>> Send SIP ".concat(request.getMethod().toUpperCase()));
             }
             if (mSipTraceEnabled) {
@@ -915,7 +969,7 @@ public class SipInterface implements SipListener {
      * @param dialogTerminatedEvent Event
      */
     public void processDialogTerminated(DialogTerminatedEvent dialogTerminatedEvent) {
-        if (sLogger.isActivated()) {
+        if (sLogger.isDebugEnabled()) {
             sLogger.debug("Dialog terminated");
         }
     }
@@ -926,7 +980,7 @@ public class SipInterface implements SipListener {
      * @param exceptionEvent Event
      */
     public void processIOException(IOExceptionEvent exceptionEvent) {
-        if (sLogger.isActivated()) {
+        if (sLogger.isDebugEnabled()) {
             sLogger.debug("IO Exception on " + exceptionEvent.getTransport() + " transport");
         }
     }
@@ -938,10 +992,7 @@ public class SipInterface implements SipListener {
      */
     public void processRequest(RequestEvent requestEvent) {
         Request request = requestEvent.getRequest();
-        boolean loggerActivated = sLogger.isActivated();
-        if (loggerActivated) {
-            sLogger.debug("<<< Receive SIP " + request.getMethod());
-        }
+        sLogger.debug("<<< Receive SIP {}", request.getMethod());
         if (mSipTraceEnabled) {
             System.out.println("<<< " + request.toString());
             System.out.println(TRACE_SEPARATOR);
@@ -972,7 +1023,7 @@ public class SipInterface implements SipListener {
              * Intentionally consuming this exception as no need to create a new transaction in case
              * it already exists.
              */
-            if (sLogger.isActivated()) {
+            if (sLogger.isDebugEnabled()) {
                 sLogger.debug(e.getMessage());
             }
         }
@@ -986,8 +1037,8 @@ public class SipInterface implements SipListener {
     public void processResponse(ResponseEvent responseEvent) {
         Response response = responseEvent.getResponse();
         int responseStatusCode = response.getStatusCode();
-        boolean loggerActivated = sLogger.isActivated();
-        if (loggerActivated) {
+        boolean debugEnabled = sLogger.isDebugEnabled();
+        if (debugEnabled) {
             sLogger.debug("<<< Receive SIP " + responseStatusCode + " response");
         }
         if (mSipTraceEnabled) {
@@ -997,7 +1048,7 @@ public class SipInterface implements SipListener {
         // Search transaction
         ClientTransaction transaction = responseEvent.getClientTransaction();
         if (transaction == null) {
-            if (loggerActivated) {
+            if (debugEnabled) {
                 sLogger.debug("No transaction exist for this response: by-pass it");
             }
             return;
@@ -1024,19 +1075,19 @@ public class SipInterface implements SipListener {
      * @param timeoutEvent Event
      */
     public void processTimeout(TimeoutEvent timeoutEvent) {
-        boolean loggerActivated = sLogger.isActivated();
-        if (loggerActivated) {
+        boolean debugEnabled = sLogger.isDebugEnabled();
+        if (debugEnabled) {
             sLogger.debug("Transaction timeout " + timeoutEvent.getTimeout().toString());
         }
         if (timeoutEvent.isServerTransaction()) {
-            if (loggerActivated) {
+            if (sLogger.isWarnEnabled()) {
                 sLogger.warn("Unexpected timeout for a server transaction: should never arrives");
             }
             return;
         }
         ClientTransaction transaction = timeoutEvent.getClientTransaction();
         if (transaction == null) {
-            if (loggerActivated) {
+            if (debugEnabled) {
                 sLogger.debug("No transaction exist for this transaction: by-pass it");
             }
             return;
@@ -1069,8 +1120,8 @@ public class SipInterface implements SipListener {
         if (ctx == null) {
             return;
         }
-        boolean loggerActivated = sLogger.isActivated();
-        if (loggerActivated) {
+        boolean debugEnabled = sLogger.isDebugEnabled();
+        if (debugEnabled) {
             sLogger.debug("Callback object found for transaction " + transactionId);
         }
         INotifySipProvisionalResponse callback = ctx.getCallbackSipProvisionalResponse();
@@ -1078,7 +1129,7 @@ public class SipInterface implements SipListener {
         if (callback != null && Response.RINGING == response.getStatusCode()) {
             callback.handle180Ringing(response);
         } else {
-            if (loggerActivated) {
+            if (debugEnabled) {
                 sLogger.debug("By pass provisional response");
             }
         }
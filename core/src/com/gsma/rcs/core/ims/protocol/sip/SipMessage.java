@@ -388,7 +388,21 @@ public abstract class SipMessage {
         return parameter;
     }
 
-    private void addContactFeatureTags(Set<String> tags, ContactHeader contactHeader) {
+    /**
+     * Handler of the feature tags read from the Contact and Accept-Contact headers
+     */
+    public interface IFeatureTagHandler {
+        /**
+         * Handle a feature tag
+         * 
+         * @param name Feature tag name
+         * @param value One of the values of the feature tag without quotes, or null for a single
+         *            parameter
+         */
+        void handleFeatureTag(String name, String value);
+    }
+
+    private void readContactFeatureTags(IFeatureTagHandler handler, ContactHeader contactHeader) {
         for (Iterator<?> i = contactHeader.getParameterNames(); i.hasNext();) {
             /* Extract parameter name & value */
             String pname = (String) i.next();
@@ -402,21 +416,23 @@ public abstract class SipMessage {
                  */
                 continue;
             }
+            if (pname.startsWith(SipUtils.SIP_INSTANCE_PARAM)) {
+                /* Reject sip.instance parameter */
+                continue;
+            }
             String pvalue = contactHeader.getParameter(pname);
             if (StringUtils.isEmpty(pvalue)) {
-                /* Add single parameter */
-                tags.add(pname);
+                /* Single parameter */
+                handler.handleFeatureTag(pname, null);
             } else {
-                /* Add pair parameters */
-                String[] values = pvalue.split(FTAG_VALUE_LIST_COMA);
-                for (String tag : values) {
-                    tags.add(formatFeatureTag(pname, tag.trim()).toString());
-                }
+                /* Pair parameters */
+                readFeatureTagValues(handler, pname, pvalue);
             }
         }
     }
 
-    private void addAcceptContactFeatureTags(Set<String> tags, ListIterator<Header> acceptHeaders) {
+    private void readAcceptContactFeatureTags(IFeatureTagHandler handler,
+            ListIterator<Header> acceptHeaders) {
         /* Extract header parameters */
         while (acceptHeaders.hasNext()) {
             ExtensionHeader acceptHeader = (ExtensionHeader) acceptHeaders.next();
@@ -424,42 +440,58 @@ public abstract class SipMessage {
             String[] parameters = acceptHeaderValue.split(ACCEPT_CONTACT_PARAMS_SEMI);
             for (String parameter : parameters) {
                 /* Extract parameter name & value */
-                String[] param = parameter.split(FTAG_VALUE_LIST_EQUAL);
-                String pname = param[0];
-                if (!pname.startsWith(HEADER_OF_NON_BASED_FTAG)) {
+                int separator = parameter.indexOf(FTAG_VALUE_LIST_EQUAL);
+                String pname = separator == -1 ? parameter : parameter.substring(0, separator);
+                if (!pname.startsWith(HEADER_OF_NON_BASED_FTAG)
+                        || pname.startsWith(SipUtils.SIP_INSTANCE_PARAM)) {
                     /* only keep non based feature tags */
                     continue;
                 }
                 String pvalue = null;
-                if (param.length == 2) {
-                    pvalue = param[1];
+                if (separator != -1
+                        && parameter.indexOf(FTAG_VALUE_LIST_EQUAL, separator + 1) == -1) {
+                    pvalue = parameter.substring(separator + 1);
                 }
                 if (TextUtils.isEmpty(pvalue)) {
-                    /* Add single parameter */
-                    tags.add(pname);
+                    /* Single parameter */
+                    handler.handleFeatureTag(pname, null);
                 } else {
-                    /* Add pair parameter */
-                    pvalue = pvalue.replace(FTAG_VALUE_LIST_QUOT, "");
-                    String[] values = pvalue.split(FTAG_VALUE_LIST_COMA);
-                    for (String tag : values) {
-                        tags.add(formatFeatureTag(pname, tag.trim()).toString());
-                    }
+                    /* Pair parameter */
+                    readFeatureTagValues(handler, pname, pvalue.replace(FTAG_VALUE_LIST_QUOT, ""));
                 }
             }
         }
     }
 
     /**
-     * Get the features tags from Contact header and Accept-Contact header
+     * Read the comma separated values of a feature tag
+     */
+    private void readFeatureTagValues(IFeatureTagHandler handler, String name, String values) {
+        int start = 0;
+        int length = values.length();
+        while (start <= length) {
+            int end = values.indexOf(',', start);
+            if (end == -1) {
+                end = length;
+            }
+            String value = values.substring(start, end).trim();
+            if (!value.isEmpty()) {
+                handler.handleFeatureTag(name, value);
+            }
+            start = end + 1;
+        }
+    }
+
+    /**
+     * Read the features tags from Contact header and Accept-Contact header without building them
      * 
-     * @return Set of feature tags
+     * @param handler Handler called for each feature tag value
      */
-    public Set<String> getFeatureTags() {
-        Set<String> tags = new HashSet<>();
+    public void readFeatureTags(IFeatureTagHandler handler) {
         /* Read Contact header */
         ContactHeader contactHeader = (ContactHeader) mStackMessage.getHeader(ContactHeader.NAME);
         if (contactHeader != null) {
-            addContactFeatureTags(tags, contactHeader);
+            readContactFeatureTags(handler, contactHeader);
         }
         /* Read Accept-Contact header */
         ListIterator<Header> acceptHeaders = getHeaders(SipUtils.HEADER_ACCEPT_CONTACT);
@@ -468,18 +500,28 @@ public abstract class SipMessage {
             acceptHeaders = getHeaders(SipUtils.HEADER_ACCEPT_CONTACT_C);
         }
         if (acceptHeaders != null) {
-            addAcceptContactFeatureTags(tags, acceptHeaders);
+            readAcceptContactFeatureTags(handler, acceptHeaders);
         }
-        Set<String> result = new HashSet<>();
-        /* Filter irrelevant feature tags */
-        for (String tag : tags) {
-            /* Reject sip.instance parameter */
-            if (tag.startsWith(SipUtils.SIP_INSTANCE_PARAM)) {
-                continue;
+    }
+
+    /**
+     * Get the features tags from Contact header and Accept-Contact header
+     * 
+     * @return Set of feature tags
+     */
+    public Set<String> getFeatureTags() {
+        final Set<String> tags = new HashSet<>();
+        readFeatureTags(new IFeatureTagHandler() {
+            @Override
+            public void handleFeatureTag(String name, String value) {
+                if (value == null) {
+                    tags.add(name);
+                } else {
+                    tags.add(formatFeatureTag(name, value).toString());
+                }
             }
-            result.add(tag);
-        }
-        return result;
+        });
+        return tags;
     }
 
     /**
@@ -40,6 +40,19 @@ public class SipTransactionContext {
         public void handle180Ringing(SipResponse response);
     }
 
+    /**
+     * An interface to handle the completion of a transaction sent asynchronously
+     */
+    public interface INotifySipTransactionCompletion {
+        /**
+         * Called once when the final response, the ACK or a timeout is received. Use
+         * {@link SipTransactionContext#isTimeout()} to check if a message has been received.
+         *
+         * @param ctx Transaction context
+         */
+        public void handleTransactionCompleted(SipTransactionContext ctx);
+    }
+
     /**
      * Transaction
      */
@@ -55,6 +68,16 @@ public class SipTransactionContext {
      */
     private INotifySipProvisionalResponse mCallbackSipProvisionalResponse;
 
+    /**
+     * Callback to handle the completion of the transaction, null if the transaction is synchronous
+     */
+    private INotifySipTransactionCompletion mCallbackSipTransactionCompletion;
+
+    /**
+     * Completion flag
+     */
+    private boolean mCompleted = false;
+
     /**
      * Constructor
      * 
@@ -71,8 +94,21 @@ public class SipTransactionContext {
      * @param callback Callback to handle SIP provisional response
      */
     public SipTransactionContext(Transaction transaction, INotifySipProvisionalResponse callback) {
+        this(transaction, callback, null);
+    }
+
+    /**
+     * Constructor
+     * 
+     * @param transaction SIP transaction
+     * @param callback Callback to handle SIP provisional response
+     * @param completionCallback Callback to handle the completion of the transaction
+     */
+    public SipTransactionContext(Transaction transaction, INotifySipProvisionalResponse callback,
+            INotifySipTransactionCompletion completionCallback) {
         mTransaction = transaction;
         mCallbackSipProvisionalResponse = callback;
+        mCallbackSipTransactionCompletion = completionCallback;
     }
 
     /**
@@ -218,10 +254,20 @@ public class SipTransactionContext {
     public void responseReceived(SipMessage msg) {
         synchronized (this) {
             recvMsg = msg;
+            mCompleted = true;
             super.notify();
         }
     }
 
+    /**
+     * Is completed
+     * 
+     * @return True if a response, an ACK or a timeout has been received
+     */
+    public synchronized boolean isCompleted() {
+        return mCompleted;
+    }
+
     /**
      * Reset transaction context
      */
@@ -262,4 +308,13 @@ public class SipTransactionContext {
         return mCallbackSipProvisionalResponse;
     }
 
+    /**
+     * Get the callback to handle the completion of the transaction
+     * 
+     * @return the callback or null if the transaction is synchronous
+     */
+    public INotifySipTransactionCompletion getCallbackSipTransactionCompletion() {
+        return mCallbackSipTransactionCompletion;
+    }
+
 }
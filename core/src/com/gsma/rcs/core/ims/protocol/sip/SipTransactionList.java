@@ -18,13 +18,144 @@
 
 package com.gsma.rcs.core.ims.protocol.sip;
 
-import java.util.Hashtable;
+import com.gsma.rcs.core.ims.protocol.sip.SipTransactionContext.INotifySipTransactionCompletion;
+import com.gsma.rcs.utils.logger.Logger;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 /**
- * List of SIP transactions
+ * List of SIP transactions.<br>
+ * Contexts are added by the sending threads and removed by the SIP stack threads when a response,
+ * an ACK or a timeout is received, without any global lock. A context is completed by the thread
+ * which removes it, so a response, a timeout and the closing of the stack can race safely: the
+ * completion callback of an asynchronous transaction is invoked exactly once.
  * 
  * @author JM. Auffret
  */
-public class SipTransactionList extends Hashtable<String, SipTransactionContext> {
+public class SipTransactionList extends ConcurrentHashMap<String, SipTransactionContext> {
     static final long serialVersionUID = 1L;
+
+    /**
+     * Executor running the completion callbacks of asynchronous transactions, so that the SIP
+     * stack threads never run service code
+     */
+    private final transient Executor mCompletionExecutor;
+
+    /**
+     * Timer expiring the asynchronous transactions which are not answered in time
+     */
+    private final transient ScheduledExecutorService mTimer;
+
+    private static final Logger sLogger = Logger.getLogger(SipTransactionList.class
+            .getSimpleName());
+
+    /**
+     * Constructor
+     * 
+     * @param completionExecutor Executor of the completion callbacks
+     * @param timer Timer of the asynchronous transactions
+     */
+    public SipTransactionList(Executor completionExecutor, ScheduledExecutorService timer) {
+        mCompletionExecutor = completionExecutor;
+        mTimer = timer;
+    }
+
+    /**
+     * Complete the transaction context of an ID if it is still current
+     * 
+     * @param id Transaction ID
+     * @param msg SIP message or null on timeout
+     * @return False if there was no current transaction context for this ID
+     */
+    public boolean complete(String id, SipMessage msg) {
+        SipTransactionContext ctx = remove(id);
+        if (ctx == null) {
+            return false;
+        }
+        complete(ctx, msg);
+        return true;
+    }
+
+    /**
+     * Expire an asynchronous transaction context after a timeout, unless it has been completed
+     * before
+     * 
+     * @param id Transaction ID
+     * @param ctx Transaction context
+     * @param timeout Timeout in milliseconds
+     */
+    public void scheduleExpiry(final String id, final SipTransactionContext ctx, long timeout) {
+        try {
+            mTimer.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    if (remove(id, ctx)) {
+                        if (sLogger.isDebugEnabled()) {
+                            sLogger.debug("Asynchronous transaction " + id + " has expired");
+                        }
+                        complete(ctx, null);
+                    }
+                }
+            }, timeout, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            /* Timer is shut down: the transaction is completed by its response or by close */
+        }
+    }
+
+    /**
+     * Complete the pending asynchronous transaction contexts as timed out, when the stack is
+     * closed
+     */
+    public void completeAll() {
+        for (String id : keySet()) {
+            SipTransactionContext ctx = get(id);
+            if (ctx != null && ctx.getCallbackSipTransactionCompletion() != null
+                    && remove(id, ctx)) {
+                complete(ctx, null);
+            }
+        }
+    }
+
+    /**
+     * Complete a transaction context which has been removed from the list and run its completion
+     * callback, if any, on the completion executor
+     * 
+     * @param ctx Transaction context
+     * @param msg SIP message or null on timeout
+     */
+    private void complete(final SipTransactionContext ctx, SipMessage msg) {
+        ctx.responseReceived(msg);
+        final INotifySipTransactionCompletion callback = ctx
+                .getCallbackSipTransactionCompletion();
+        if (callback == null) {
+            return;
+        }
+        Runnable completion = new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    callback.handleTransactionCompleted(ctx);
+                } catch (RuntimeException e) {
+                    /*
+                     * Normally we are not allowed to catch runtime exceptions as these are genuine
+                     * bugs which should be handled/fixed within the code. However the cases when
+                     * we are executing operations on a thread unhandling such exceptions will
+                     * eventually lead to exit the system and thus can bring the whole system down,
+                     * which is not intended.
+                     */
+                    sLogger.error("Failed to handle SIP transaction completion!", e);
+                }
+            }
+        };
+        try {
+            mCompletionExecutor.execute(completion);
+        } catch (RejectedExecutionException e) {
+            /* Completion executor is full: complete on the calling thread */
+            completion.run();
+        }
+    }
 }
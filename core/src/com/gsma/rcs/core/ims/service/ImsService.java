@@ -145,7 +145,9 @@ public abstract class ImsService {
      * would like to avoid double locks.
      */
     protected void addImsServiceSession(ImsServiceSession session) {
-        mImsServiceSessionCache.put(session.getDialogPath().getCallId(), session);
+        String callId = session.getDialogPath().getCallId();
+        mImsServiceSessionCache.put(callId, session);
+        mImsModule.getImsServiceSessionIndex().put(callId, session);
     }
 
     /*
@@ -154,7 +156,9 @@ public abstract class ImsService {
      * would like to avoid double locks.
      */
     protected void removeImsServiceSession(ImsServiceSession session) {
-        mImsServiceSessionCache.remove(session.getDialogPath().getCallId());
+        String callId = session.getDialogPath().getCallId();
+        mImsServiceSessionCache.remove(callId);
+        mImsModule.getImsServiceSessionIndex().remove(callId, session);
     }
 
     /**
@@ -37,13 +37,19 @@ import com.gsma.rcs.core.ims.service.im.filetransfer.http.FileTransferHttpInfoDo
 import com.gsma.rcs.core.ims.service.presence.PresenceService;
 import com.gsma.rcs.core.ims.service.terms.TermsConditionsService;
 import com.gsma.rcs.provider.settings.RcsSettings;
-import com.gsma.rcs.utils.FifoBuffer;
 import com.gsma.rcs.utils.IdGenerator;
 import com.gsma.rcs.utils.logger.Logger;
+import com.gsma.rcs.utils.queue.BoundedQueue;
+import com.gsma.rcs.utils.queue.MpmcRingBufferQueue;
+import com.gsma.rcs.utils.queue.OverflowPolicy;
+import com.gsma.rcs.utils.scheduler.QueueConsumer;
+import com.gsma.rcs.utils.scheduler.TaskScheduler;
+import com.gsma.rcs.utils.scheduler.TaskScheduler.Pool;
 
 import android.content.Intent;
 
 import java.text.ParseException;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax2.sip.address.SipURI;
 import javax2.sip.header.ContactHeader;
@@ -53,18 +59,37 @@ import javax2.sip.message.Request;
 import javax2.sip.message.Response;
 
 /**
- * IMS service dispatcher
+ * IMS service dispatcher.<br>
+ * Received SIP requests are partitioned by Call-ID across a pool of workers: the requests of a
+ * dialog are dispatched in order by the same worker while the requests of unrelated dialogs are
+ * dispatched in parallel, so that a slow handler only delays its own dialog.<br>
+ * The requests outside of an established IMS session, such as an INVITE creating a new session,
+ * a MESSAGE or a SUBSCRIBE, are handled by services sharing state which is not thread safe: they
+ * are dispatched one at a time, as by a single dispatching thread. Only OPTIONS, whose handler is
+ * thread safe, and the requests of an established session do not wait for them.
  * 
  * @author jexa7410
  */
-public class ImsServiceDispatcher extends Thread {
+public class ImsServiceDispatcher {
 
     private ImsModule mImsModule;
 
     /**
-     * Buffer of messages
+     * Number of dispatching workers
      */
-    private FifoBuffer mBuffer = new FifoBuffer();
+    private static final int NB_WORKERS = 4;
+
+    /**
+     * Maximum number of SIP requests waiting to be dispatched by a worker
+     */
+    private static final int MAX_PENDING_REQUESTS = 256;
+
+    private final Worker[] mWorkers;
+
+    /**
+     * Lock serializing the dispatching of the requests outside of an IMS session
+     */
+    private final Object mSerialDispatchLock = new Object();
 
     private SipIntentManager mIntentMgr = new SipIntentManager();
 
@@ -79,9 +104,24 @@ public class ImsServiceDispatcher extends Thread {
      * @param rcsSettings the RCS settings
      */
     public ImsServiceDispatcher(ImsModule imsModule, RcsSettings rcsSettings) {
-        super("SipDispatcher");
         mImsModule = imsModule;
         mRcsSettings = rcsSettings;
+        mWorkers = new Worker[NB_WORKERS];
+        for (int i = 0; i < NB_WORKERS; i++) {
+            mWorkers[i] = new Worker(i);
+        }
+    }
+
+    /**
+     * Start the SIP dispatcher
+     */
+    public void start() {
+        if (sLogger.isActivated()) {
+            sLogger.info("Start background processing with " + NB_WORKERS + " workers");
+        }
+        for (Worker worker : mWorkers) {
+            worker.start();
+        }
     }
 
     /**
@@ -91,47 +131,276 @@ public class ImsServiceDispatcher extends Thread {
         if (sLogger.isActivated()) {
             sLogger.info("Terminate the multi-session manager");
         }
-        mBuffer.close();
+        for (Worker worker : mWorkers) {
+            worker.terminate();
+        }
         if (sLogger.isActivated()) {
+            for (WorkerMetrics metrics : getWorkerMetrics()) {
+                sLogger.info(metrics.toString());
+            }
+            TaskScheduler.getInstance().logMetrics();
             sLogger.info("Multi-session manager has been terminated");
         }
     }
 
+    /**
+     * Returns a snapshot of the metrics of each worker
+     * 
+     * @return Array of worker metrics
+     */
+    public WorkerMetrics[] getWorkerMetrics() {
+        WorkerMetrics[] metrics = new WorkerMetrics[mWorkers.length];
+        for (int i = 0; i < mWorkers.length; i++) {
+            metrics[i] = mWorkers[i].getMetrics();
+        }
+        return metrics;
+    }
+
+    /**
+     * Returns the worker in charge of a Call-ID
+     * 
+     * @param callId Call-ID
+     * @return Worker
+     */
+    private Worker getWorker(String callId) {
+        if (callId == null) {
+            return mWorkers[0];
+        }
+        return mWorkers[(callId.hashCode() & Integer.MAX_VALUE) % mWorkers.length];
+    }
+
     /**
      * Post a SIP request in the buffer
      * 
      * @param request SIP request
      */
     public void postSipRequest(SipRequest request) {
-        mBuffer.addObject(request);
+        if (getWorker(request.getCallId()).post(request)) {
+            return;
+        }
+        sLogger.warn("Dispatcher overloaded, drop " + request.getMethod() + " request! CallId="
+                + request.getCallId());
+        if (Request.ACK.equals(request.getMethod())) {
+            return;
+        }
+        try {
+            sendFinalResponse(request, Response.SERVICE_UNAVAILABLE);
+
+        } catch (NetworkException | PayloadException e) {
+            if (sLogger.isActivated()) {
+                sLogger.debug(e.getMessage());
+            }
+        }
     }
 
     /**
-     * Background processing
+     * Dispatch a request from a worker, serialized with the other requests outside of an IMS
+     * session except OPTIONS
+     * 
+     * @param request SIP request
      */
-    public void run() {
-        if (sLogger.isActivated()) {
-            sLogger.info("Start background processing");
+    private void processRequest(SipRequest request) {
+        if (Request.OPTIONS.equals(request.getMethod())
+                || hasImsServiceSession(request.getCallId())) {
+            process(request);
+            return;
+        }
+        synchronized (mSerialDispatchLock) {
+            process(request);
         }
-        SipRequest request;
-        while ((request = (SipRequest) mBuffer.getObject()) != null) {
-            try {
-                dispatch(request, System.currentTimeMillis());
+    }
+
+    /**
+     * Dispatch a request
+     * 
+     * @param request SIP request
+     */
+    protected void process(SipRequest request) {
+        try {
+            dispatch(request, System.currentTimeMillis());
 
-            } catch (PayloadException | RuntimeException e) {
-                sLogger.error(
-                        "Failed to dispatch received SIP request! CallId=" + request.getCallId(), e);
-                handleImsDispatchError(request);
+        } catch (PayloadException | RuntimeException e) {
+            sLogger.error("Failed to dispatch received SIP request! CallId=" + request.getCallId(),
+                    e);
+            handleImsDispatchError(request);
 
-            } catch (NetworkException e) {
-                if (sLogger.isActivated()) {
-                    sLogger.debug(e.getMessage());
-                }
-                handleImsDispatchError(request);
+        } catch (NetworkException e) {
+            if (sLogger.isActivated()) {
+                sLogger.debug(e.getMessage());
             }
+            handleImsDispatchError(request);
         }
-        if (sLogger.isActivated()) {
-            sLogger.info("End of background processing");
+    }
+
+    /**
+     * Metrics of a dispatching worker
+     */
+    public static final class WorkerMetrics {
+        private final int mIndex;
+
+        private final int mQueueDepth;
+
+        private final long mDispatchedCount;
+
+        private final long mDroppedCount;
+
+        private final long mTotalQueueLatency;
+
+        private final long mTotalDispatchLatency;
+
+        private final long mMaxDispatchLatency;
+
+        private WorkerMetrics(int index, int queueDepth, long dispatchedCount, long droppedCount,
+                long totalQueueLatency, long totalDispatchLatency, long maxDispatchLatency) {
+            mIndex = index;
+            mQueueDepth = queueDepth;
+            mDispatchedCount = dispatchedCount;
+            mDroppedCount = droppedCount;
+            mTotalQueueLatency = totalQueueLatency;
+            mTotalDispatchLatency = totalDispatchLatency;
+            mMaxDispatchLatency = maxDispatchLatency;
+        }
+
+        /**
+         * Returns the index of the worker
+         * 
+         * @return Index
+         */
+        public int getIndex() {
+            return mIndex;
+        }
+
+        /**
+         * Returns the number of requests waiting to be dispatched
+         * 
+         * @return Queue depth
+         */
+        public int getQueueDepth() {
+            return mQueueDepth;
+        }
+
+        /**
+         * Returns the number of dispatched requests
+         * 
+         * @return Number of requests
+         */
+        public long getDispatchedCount() {
+            return mDispatchedCount;
+        }
+
+        /**
+         * Returns the number of requests dropped because the worker queue was full
+         * 
+         * @return Number of requests
+         */
+        public long getDroppedCount() {
+            return mDroppedCount;
+        }
+
+        /**
+         * Returns the average time spent by a request in the queue
+         * 
+         * @return Latency in microseconds
+         */
+        public long getAverageQueueLatency() {
+            return mDispatchedCount == 0 ? 0 : mTotalQueueLatency / mDispatchedCount / 1000;
+        }
+
+        /**
+         * Returns the average time spent to dispatch a request
+         * 
+         * @return Latency in microseconds
+         */
+        public long getAverageDispatchLatency() {
+            return mDispatchedCount == 0 ? 0 : mTotalDispatchLatency / mDispatchedCount / 1000;
+        }
+
+        /**
+         * Returns the longest time spent to dispatch a request
+         * 
+         * @return Latency in microseconds
+         */
+        public long getMaxDispatchLatency() {
+            return mMaxDispatchLatency / 1000;
+        }
+
+        @Override
+        public String toString() {
+            return "SipDispatcher-" + mIndex + ": depth=" + mQueueDepth + ", dispatched="
+                    + mDispatchedCount + ", dropped=" + mDroppedCount + ", queue latency="
+                    + getAverageQueueLatency() + " us, dispatch latency="
+                    + getAverageDispatchLatency() + " us (max " + getMaxDispatchLatency() + " us)";
+        }
+    }
+
+    /**
+     * Request waiting in a worker queue
+     */
+    private static final class PendingRequest {
+        private final SipRequest mRequest;
+
+        private final long mPostTime;
+
+        private PendingRequest(SipRequest request) {
+            mRequest = request;
+            mPostTime = System.nanoTime();
+        }
+    }
+
+    /**
+     * Dispatching worker: dispatches in order the requests of its Call-ID partition from a task of
+     * the IO pool
+     */
+    private final class Worker extends QueueConsumer<PendingRequest> {
+        private final int mIndex;
+
+        private final AtomicLong mDispatchedCount = new AtomicLong();
+
+        private final AtomicLong mTotalQueueLatency = new AtomicLong();
+
+        private final AtomicLong mTotalDispatchLatency = new AtomicLong();
+
+        private volatile long mMaxDispatchLatency;
+
+        private Worker(int index) {
+            /*
+             * Buffer of messages, fed by the SIP stack threads which shall never be blocked
+             */
+            super(new MpmcRingBufferQueue<PendingRequest>(MAX_PENDING_REQUESTS,
+                    OverflowPolicy.DROP_NEWEST), TaskScheduler.getInstance().getExecutor(Pool.IO));
+            mIndex = index;
+        }
+
+        private boolean post(SipRequest request) {
+            return offer(new PendingRequest(request)) || isClosed();
+        }
+
+        private void terminate() {
+            close();
+            if (sLogger.isActivated()) {
+                sLogger.info("End of background processing of SipDispatcher-" + mIndex);
+            }
+        }
+
+        private WorkerMetrics getMetrics() {
+            BoundedQueue<PendingRequest> buffer = getQueue();
+            return new WorkerMetrics(mIndex, buffer.size(), mDispatchedCount.get(),
+                    buffer.getDroppedCount(), mTotalQueueLatency.get(),
+                    mTotalDispatchLatency.get(), mMaxDispatchLatency);
+        }
+
+        @Override
+        protected void consume(PendingRequest pending) {
+            long start = System.nanoTime();
+            processRequest(pending.mRequest);
+            long dispatchLatency = System.nanoTime() - start;
+            mTotalQueueLatency.addAndGet(start - pending.mPostTime);
+            mTotalDispatchLatency.addAndGet(dispatchLatency);
+            mDispatchedCount.incrementAndGet();
+            if (dispatchLatency > mMaxDispatchLatency) {
+                /* Only written by the single active drain task */
+                mMaxDispatchLatency = dispatchLatency;
+            }
         }
     }
 
@@ -525,12 +794,12 @@ public class ImsServiceDispatcher extends Thread {
     /**
      * Test a tag is present or not in SIP message
      * 
-     * @param message Message or message part
-     * @param tag Tag to be searched
+     * @param message Message or message part, already converted to lower case
+     * @param tag Tag to be searched, in lower case
      * @return Boolean
      */
     private boolean isTagPresent(String message, String tag) {
-        return (message != null) && (tag != null) && (message.toLowerCase().contains(tag));
+        return (message != null) && (tag != null) && (message.contains(tag));
     }
 
     /**
@@ -540,13 +809,17 @@ public class ImsServiceDispatcher extends Thread {
      * @return IMS session
      */
     private ImsServiceSession getImsServiceSession(String callId) {
-        for (ImsService service : mImsModule.getImsServices()) {
-            ImsServiceSession session = service.getImsServiceSession(callId);
-            if (session != null) {
-                return session;
-            }
-        }
-        return null;
+        return mImsModule.getImsServiceSessionIndex().get(callId);
+    }
+
+    /**
+     * Is there an established IMS session for a given call-ID
+     * 
+     * @param callId Call-ID
+     * @return True if the requests of this call-ID are handled by an IMS session
+     */
+    protected boolean hasImsServiceSession(String callId) {
+        return callId != null && getImsServiceSession(callId) != null;
     }
 
     /**
@@ -0,0 +1,75 @@
+/*******************************************************************************
+ * Software Name : RCS IMS Stack
+ *
+ * Copyright (C) 2010-2016 Orange.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+
+package com.gsma.rcs.core.ims.service;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Global index of the IMS service sessions of all the IMS services, with the Call-ID of the session
+ * dialog path as key.<br>
+ * It is updated by the IMS services when a session is added or removed and lets the SIP dispatcher
+ * find the session of a received request without scanning every service nor taking their session
+ * locks.
+ *
+ * @author jexa7410
+ */
+public class ImsServiceSessionIndex {
+
+    private final ConcurrentHashMap<String, ImsServiceSession> mSessions = new ConcurrentHashMap<>();
+
+    /**
+     * Add a session
+     *
+     * @param callId Call-ID of the session dialog path
+     * @param session IMS service session
+     */
+    public void put(String callId, ImsServiceSession session) {
+        mSessions.put(callId, session);
+    }
+
+    /**
+     * Remove a session, if still indexed by the given Call-ID
+     *
+     * @param callId Call-ID of the session dialog path
+     * @param session IMS service session
+     */
+    public void remove(String callId, ImsServiceSession session) {
+        mSessions.remove(callId, session);
+    }
+
+    /**
+     * Get the session of a Call-ID
+     *
+     * @param callId Call-ID
+     * @return IMS service session or null
+     */
+    public ImsServiceSession get(String callId) {
+        return mSessions.get(callId);
+    }
+
+    /**
+     * Returns the number of indexed sessions
+     *
+     * @return Number of sessions
+     */
+    public int size() {
+        return mSessions.size();
+    }
+}
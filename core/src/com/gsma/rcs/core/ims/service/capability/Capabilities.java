@@ -18,6 +18,7 @@
 
 package com.gsma.rcs.core.ims.service.capability;
 
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -34,24 +35,30 @@ public class Capabilities {
      */
     public static final long INVALID_TIMESTAMP = -1;
 
-    private final boolean mImageSharing;
-    private final boolean mVideoSharing;
-    private final boolean mIpVoiceCall;
-    private final boolean mIpVideoCall;
-    private final boolean mImSession;
-    private final boolean mFileTransferMsrp;
-    private final boolean mCsVideo;
-    private final boolean mPresenceDiscovery;
-    private final boolean mSocialPresence;
-    private final boolean mFileTransferHttp;
-    private final boolean mGeolocationPush;
-    private final boolean mFileTransferThumbnail;
-    private final boolean mFileTransferStoreForward;
-    private final boolean mGroupChatStoreForward;
+    /* Bits of the supported services */
+    public static final int SERVICE_IMAGE_SHARING = 1;
+    public static final int SERVICE_VIDEO_SHARING = 1 << 1;
+    public static final int SERVICE_IP_VOICE_CALL = 1 << 2;
+    public static final int SERVICE_IP_VIDEO_CALL = 1 << 3;
+    public static final int SERVICE_IM_SESSION = 1 << 4;
+    public static final int SERVICE_FILE_TRANSFER_MSRP = 1 << 5;
+    public static final int SERVICE_CS_VIDEO = 1 << 6;
+    public static final int SERVICE_PRESENCE_DISCOVERY = 1 << 7;
+    public static final int SERVICE_SOCIAL_PRESENCE = 1 << 8;
+    public static final int SERVICE_FILE_TRANSFER_HTTP = 1 << 9;
+    public static final int SERVICE_GEOLOCATION_PUSH = 1 << 10;
+    public static final int SERVICE_FILE_TRANSFER_THUMBNAIL = 1 << 11;
+    public static final int SERVICE_FILE_TRANSFER_STORE_FORWARD = 1 << 12;
+    public static final int SERVICE_GROUP_CHAT_STORE_FORWARD = 1 << 13;
     /**
      * SIP automata (@see RFC 3840)
      */
-    private final boolean mSipAutomata;
+    public static final int SERVICE_SIP_AUTOMATA = 1 << 14;
+
+    /**
+     * Bit mask of the supported services, see the SERVICE_ constants
+     */
+    private final int mServices;
 
     /**
      * Set of supported extensions
@@ -75,24 +82,11 @@ public class Capabilities {
             .build();
 
     private Capabilities(CapabilitiesBuilder builder) {
-        mImageSharing = builder.mImageSharing;
-        mVideoSharing = builder.mVideoSharing;
-        mIpVoiceCall = builder.mIpVoiceCall;
-        mIpVideoCall = builder.mIpVideoCall;
-        mImSession = builder.mImSession;
-        mFileTransferMsrp = builder.mFileTransferMsrp;
-        mCsVideo = builder.mCsVideo;
-        mPresenceDiscovery = builder.mPresenceDiscovery;
-        mSocialPresence = builder.mSocialPresence;
-        mFileTransferHttp = builder.mFileTransferHttp;
-        mGeolocationPush = builder.mGeolocationPush;
-        mFileTransferThumbnail = builder.mFileTransferThumbnail;
-        mFileTransferStoreForward = builder.mFileTransferStoreForward;
-        mGroupChatStoreForward = builder.mGroupChatStoreForward;
-        mSipAutomata = builder.mSipAutomata;
+        mServices = builder.mServices;
         mTimestampOfLastRequest = builder.mTimestampOfLastRequest;
         mTimestampOfLastResponse = builder.mTimestampOfLastResponse;
-        mExtensions = new HashSet<>(builder.mExtensions);
+        mExtensions = builder.mExtensions.isEmpty() ? Collections.<String> emptySet()
+                : new HashSet<>(builder.mExtensions);
     }
 
     /**
@@ -101,7 +95,7 @@ public class Capabilities {
      * @return Boolean
      */
     public boolean isImageSharingSupported() {
-        return mImageSharing;
+        return (mServices & SERVICE_IMAGE_SHARING) != 0;
     }
 
     /**
@@ -110,7 +104,7 @@ public class Capabilities {
      * @return Boolean
      */
     public boolean isVideoSharingSupported() {
-        return mVideoSharing;
+        return (mServices & SERVICE_VIDEO_SHARING) != 0;
     }
 
     /**
@@ -119,7 +113,7 @@ public class Capabilities {
      * @return Boolean
      */
     public boolean isIPVoiceCallSupported() {
-        return mIpVoiceCall;
+        return (mServices & SERVICE_IP_VOICE_CALL) != 0;
     }
 
     /**
@@ -128,7 +122,7 @@ public class Capabilities {
      * @return Boolean
      */
     public boolean isIPVideoCallSupported() {
-        return mIpVideoCall;
+        return (mServices & SERVICE_IP_VIDEO_CALL) != 0;
     }
 
     /**
@@ -137,7 +131,7 @@ public class Capabilities {
      * @return Boolean
      */
     public boolean isImSessionSupported() {
-        return mImSession;
+        return (mServices & SERVICE_IM_SESSION) != 0;
     }
 
     /**
@@ -146,7 +140,7 @@ public class Capabilities {
      * @return Boolean
      */
     public boolean isFileTransferMsrpSupported() {
-        return mFileTransferMsrp;
+        return (mServices & SERVICE_FILE_TRANSFER_MSRP) != 0;
     }
 
     /**
@@ -155,7 +149,7 @@ public class Capabilities {
      * @return Boolean
      */
     public boolean isCsVideoSupported() {
-        return mCsVideo;
+        return (mServices & SERVICE_CS_VIDEO) != 0;
     }
 
     /**
@@ -164,7 +158,7 @@ public class Capabilities {
      * @return Boolean
      */
     public boolean isPresenceDiscoverySupported() {
-        return mPresenceDiscovery;
+        return (mServices & SERVICE_PRESENCE_DISCOVERY) != 0;
     }
 
     /**
@@ -173,7 +167,7 @@ public class Capabilities {
      * @return Boolean
      */
     public boolean isSocialPresenceSupported() {
-        return mSocialPresence;
+        return (mServices & SERVICE_SOCIAL_PRESENCE) != 0;
     }
 
     /**
@@ -182,7 +176,7 @@ public class Capabilities {
      * @return Boolean
      */
     public boolean isFileTransferHttpSupported() {
-        return mFileTransferHttp;
+        return (mServices & SERVICE_FILE_TRANSFER_HTTP) != 0;
     }
 
     /**
@@ -191,7 +185,7 @@ public class Capabilities {
      * @return Boolean
      */
     public boolean isGeolocationPushSupported() {
-        return mGeolocationPush;
+        return (mServices & SERVICE_GEOLOCATION_PUSH) != 0;
     }
 
     /**
@@ -200,7 +194,7 @@ public class Capabilities {
      * @return Boolean
      */
     public boolean isFileTransferThumbnailSupported() {
-        return mFileTransferThumbnail;
+        return (mServices & SERVICE_FILE_TRANSFER_THUMBNAIL) != 0;
     }
 
     /**
@@ -209,7 +203,7 @@ public class Capabilities {
      * @return Boolean
      */
     public boolean isFileTransferStoreForwardSupported() {
-        return mFileTransferStoreForward;
+        return (mServices & SERVICE_FILE_TRANSFER_STORE_FORWARD) != 0;
     }
 
     /**
@@ -218,7 +212,7 @@ public class Capabilities {
      * @return Boolean
      */
     public boolean isGroupChatStoreForwardSupported() {
-        return mGroupChatStoreForward;
+        return (mServices & SERVICE_GROUP_CHAT_STORE_FORWARD) != 0;
     }
 
     /**
@@ -227,7 +221,7 @@ public class Capabilities {
      * @return True if automata
      */
     public boolean isSipAutomata() {
-        return mSipAutomata;
+        return (mServices & SERVICE_SIP_AUTOMATA) != 0;
     }
 
     /**
@@ -252,16 +246,16 @@ public class Capabilities {
     @Override
     public String toString() {
         return "Caps{" +
-                "ImageShare=" + mImageSharing +
-                ", VideoSharing=" + mVideoSharing +
-                ", IM=" + mImSession +
-                ", FtMsrp=" + mFileTransferMsrp +
-                ", FtHttp=" + mFileTransferHttp +
-                ", GeoPush=" + mGeolocationPush +
-                ", FtThumbnail=" + mFileTransferThumbnail +
-                ", FtSF=" + mFileTransferStoreForward +
-                ", GcSF=" + mGroupChatStoreForward +
-                ", SipAutomata=" + mSipAutomata +
+                "ImageShare=" + ((mServices & SERVICE_IMAGE_SHARING) != 0) +
+                ", VideoSharing=" + ((mServices & SERVICE_VIDEO_SHARING) != 0) +
+                ", IM=" + ((mServices & SERVICE_IM_SESSION) != 0) +
+                ", FtMsrp=" + ((mServices & SERVICE_FILE_TRANSFER_MSRP) != 0) +
+                ", FtHttp=" + ((mServices & SERVICE_FILE_TRANSFER_HTTP) != 0) +
+                ", GeoPush=" + ((mServices & SERVICE_GEOLOCATION_PUSH) != 0) +
+                ", FtThumbnail=" + ((mServices & SERVICE_FILE_TRANSFER_THUMBNAIL) != 0) +
+                ", FtSF=" + ((mServices & SERVICE_FILE_TRANSFER_STORE_FORWARD) != 0) +
+                ", GcSF=" + ((mServices & SERVICE_GROUP_CHAT_STORE_FORWARD) != 0) +
+                ", SipAutomata=" + ((mServices & SERVICE_SIP_AUTOMATA) != 0) +
                 ", Exts=" + mExtensions +
                 ", TimeOfLastRequest=" + mTimestampOfLastRequest +
                 ", TimeOfLastResponse=" + mTimestampOfLastResponse +
@@ -281,60 +275,42 @@ public class Capabilities {
         if (getClass() != obj.getClass())
             return false;
         Capabilities other = (Capabilities) obj;
-        if (mCsVideo != other.mCsVideo)
-            return false;
-        if (!mExtensions.equals(other.mExtensions))
-            return false;
-        if (mFileTransferMsrp != other.mFileTransferMsrp)
-            return false;
-        if (mFileTransferHttp != other.mFileTransferHttp)
-            return false;
-        if (mFileTransferStoreForward != other.mFileTransferStoreForward)
-            return false;
-        if (mFileTransferThumbnail != other.mFileTransferThumbnail)
-            return false;
-        if (mGeolocationPush != other.mGeolocationPush)
-            return false;
-        if (mGroupChatStoreForward != other.mGroupChatStoreForward)
-            return false;
-        if (mImSession != other.mImSession)
-            return false;
-        if (mImageSharing != other.mImageSharing)
-            return false;
-        if (mIpVideoCall != other.mIpVideoCall)
-            return false;
-        if (mIpVoiceCall != other.mIpVoiceCall)
-            return false;
-        if (mPresenceDiscovery != other.mPresenceDiscovery)
-            return false;
-        if (mSipAutomata != other.mSipAutomata)
-            return false;
-        if (mSocialPresence != other.mSocialPresence)
-            return false;
-        return mVideoSharing == other.mVideoSharing;
+        return mServices == other.mServices && mExtensions.equals(other.mExtensions);
     }
 
     @Override
     public int hashCode() {
-        final int prime = 31;
-        int result = 1;
-        result = prime * result + (mCsVideo ? 1231 : 1237);
-        result = prime * result + (mExtensions.hashCode());
-        result = prime * result + (mFileTransferHttp ? 1231 : 1237);
-        result = prime * result + (mFileTransferMsrp ? 1231 : 1237);
-        result = prime * result + (mFileTransferStoreForward ? 1231 : 1237);
-        result = prime * result + (mFileTransferThumbnail ? 1231 : 1237);
-        result = prime * result + (mGeolocationPush ? 1231 : 1237);
-        result = prime * result + (mGroupChatStoreForward ? 1231 : 1237);
-        result = prime * result + (mImSession ? 1231 : 1237);
-        result = prime * result + (mImageSharing ? 1231 : 1237);
-        result = prime * result + (mIpVideoCall ? 1231 : 1237);
-        result = prime * result + (mIpVoiceCall ? 1231 : 1237);
-        result = prime * result + (mPresenceDiscovery ? 1231 : 1237);
-        result = prime * result + (mSipAutomata ? 1231 : 1237);
-        result = prime * result + (mSocialPresence ? 1231 : 1237);
-        result = prime * result + (mVideoSharing ? 1231 : 1237);
-        return result;
+        return 31 * mServices + mExtensions.hashCode();
+    }
+
+    /**
+     * Get the supported services
+     * 
+     * @return Bit mask of the SERVICE_ constants
+     */
+    public int getServices() {
+        return mServices;
+    }
+
+    /**
+     * Get the services whose support differs from other capabilities
+     * 
+     * @param other the capabilities to compare with
+     * @return Bit mask of the SERVICE_ constants which changed, 0 if the same services are
+     *         supported
+     */
+    public int getChangedServices(Capabilities other) {
+        return mServices ^ other.mServices;
+    }
+
+    /**
+     * Checks if the supported extensions differ from other capabilities
+     * 
+     * @param other the capabilities to compare with
+     * @return True if the supported extensions changed
+     */
+    public boolean isExtensionsChanged(Capabilities other) {
+        return !mExtensions.equals(other.mExtensions);
     }
 
     /**
@@ -350,21 +326,7 @@ public class Capabilities {
      * Capabilities builder class
      */
     public static class CapabilitiesBuilder {
-        private boolean mImageSharing = false;
-        private boolean mVideoSharing = false;
-        private boolean mIpVoiceCall = false;
-        private boolean mIpVideoCall = false;
-        private boolean mImSession = false;
-        private boolean mFileTransferMsrp = false;
-        private boolean mCsVideo = false;
-        private boolean mPresenceDiscovery = false;
-        private boolean mSocialPresence = false;
-        private boolean mFileTransferHttp = false;
-        private boolean mGeolocationPush = false;
-        private boolean mFileTransferThumbnail = false;
-        private boolean mFileTransferStoreForward = false;
-        private boolean mGroupChatStoreForward = false;
-        private boolean mSipAutomata = false;
+        private int mServices = 0;
         private Set<String> mExtensions = new HashSet<>();
         private long mTimestampOfLastRequest = INVALID_TIMESTAMP;
         private long mTimestampOfLastResponse = INVALID_TIMESTAMP;
@@ -381,21 +343,7 @@ public class Capabilities {
          * @param capabilities to copy or null if construct with default values
          */
         public CapabilitiesBuilder(Capabilities capabilities) {
-            mImageSharing = capabilities.isImageSharingSupported();
-            mVideoSharing = capabilities.isVideoSharingSupported();
-            mIpVoiceCall = capabilities.isIPVoiceCallSupported();
-            mIpVideoCall = capabilities.isIPVideoCallSupported();
-            mImSession = capabilities.isImSessionSupported();
-            mFileTransferMsrp = capabilities.isFileTransferMsrpSupported();
-            mCsVideo = capabilities.isCsVideoSupported();
-            mPresenceDiscovery = capabilities.isPresenceDiscoverySupported();
-            mSocialPresence = capabilities.isSocialPresenceSupported();
-            mFileTransferHttp = capabilities.isFileTransferHttpSupported();
-            mGeolocationPush = capabilities.isGeolocationPushSupported();
-            mFileTransferThumbnail = capabilities.isFileTransferThumbnailSupported();
-            mFileTransferStoreForward = capabilities.isFileTransferStoreForwardSupported();
-            mGroupChatStoreForward = capabilities.isGroupChatStoreForwardSupported();
-            mSipAutomata = capabilities.isSipAutomata();
+            mServices = capabilities.mServices;
             mTimestampOfLastRequest = capabilities.getTimestampOfLastRequest();
             mTimestampOfLastResponse = capabilities.getTimestampOfLastResponse();
             mExtensions = new HashSet<>(capabilities.getSupportedExtensions());
@@ -408,7 +356,7 @@ public class Capabilities {
          * @return the current instance
          */
         public CapabilitiesBuilder setImageSharing(boolean support) {
-            mImageSharing = support;
+            setService(SERVICE_IMAGE_SHARING, support);
             return this;
         }
 
@@ -418,7 +366,7 @@ public class Capabilities {
          * @return Boolean
          */
         public boolean isImageSharingSupported() {
-            return mImageSharing;
+            return (mServices & SERVICE_IMAGE_SHARING) != 0;
         }
 
         /**
@@ -428,7 +376,7 @@ public class Capabilities {
          * @return the current instance
          */
         public CapabilitiesBuilder setVideoSharing(boolean support) {
-            mVideoSharing = support;
+            setService(SERVICE_VIDEO_SHARING, support);
             return this;
         }
 
@@ -438,7 +386,7 @@ public class Capabilities {
          * @return Boolean
          */
         public boolean isVideoSharingSupported() {
-            return mVideoSharing;
+            return (mServices & SERVICE_VIDEO_SHARING) != 0;
         }
 
         /**
@@ -448,7 +396,7 @@ public class Capabilities {
          * @return the current instance
          */
         public CapabilitiesBuilder setIpVoiceCall(boolean support) {
-            mIpVoiceCall = support;
+            setService(SERVICE_IP_VOICE_CALL, support);
             return this;
         }
 
@@ -458,7 +406,7 @@ public class Capabilities {
          * @return Boolean
          */
         public boolean isIPVoiceCallSupported() {
-            return mIpVoiceCall;
+            return (mServices & SERVICE_IP_VOICE_CALL) != 0;
         }
 
         /**
@@ -468,7 +416,7 @@ public class Capabilities {
          * @return the current instance
          */
         public CapabilitiesBuilder setIpVideoCall(boolean support) {
-            mIpVideoCall = support;
+            setService(SERVICE_IP_VIDEO_CALL, support);
             return this;
         }
 
@@ -478,7 +426,7 @@ public class Capabilities {
          * @return Boolean
          */
         public boolean isIPVideoCallSupported() {
-            return mIpVideoCall;
+            return (mServices & SERVICE_IP_VIDEO_CALL) != 0;
         }
 
         /**
@@ -488,7 +436,7 @@ public class Capabilities {
          * @return the current instance
          */
         public CapabilitiesBuilder setImSession(boolean support) {
-            mImSession = support;
+            setService(SERVICE_IM_SESSION, support);
             return this;
         }
 
@@ -498,7 +446,7 @@ public class Capabilities {
          * @return Boolean
          */
         public boolean isImSessionSupported() {
-            return mImSession;
+            return (mServices & SERVICE_IM_SESSION) != 0;
         }
 
         /**
@@ -508,7 +456,7 @@ public class Capabilities {
          * @return the current instance
          */
         public CapabilitiesBuilder setFileTransferMsrp(boolean support) {
-            mFileTransferMsrp = support;
+            setService(SERVICE_FILE_TRANSFER_MSRP, support);
             return this;
         }
 
@@ -518,7 +466,7 @@ public class Capabilities {
          * @return Boolean
          */
         public boolean isFileTransferMsrpSupported() {
-            return mFileTransferMsrp;
+            return (mServices & SERVICE_FILE_TRANSFER_MSRP) != 0;
         }
 
         /**
@@ -528,7 +476,7 @@ public class Capabilities {
          * @return the current instance
          */
         public CapabilitiesBuilder setCsVideo(boolean support) {
-            mCsVideo = support;
+            setService(SERVICE_CS_VIDEO, support);
             return this;
         }
 
@@ -538,7 +486,7 @@ public class Capabilities {
          * @return Boolean
          */
         public boolean isCsVideoSupported() {
-            return mCsVideo;
+            return (mServices & SERVICE_CS_VIDEO) != 0;
         }
 
         /**
@@ -548,7 +496,7 @@ public class Capabilities {
          * @return the current instance
          */
         public CapabilitiesBuilder setPresenceDiscovery(boolean support) {
-            mPresenceDiscovery = support;
+            setService(SERVICE_PRESENCE_DISCOVERY, support);
             return this;
         }
 
@@ -558,7 +506,7 @@ public class Capabilities {
          * @return Boolean
          */
         public boolean isPresenceDiscovery() {
-            return mPresenceDiscovery;
+            return (mServices & SERVICE_PRESENCE_DISCOVERY) != 0;
         }
 
         /**
@@ -568,7 +516,7 @@ public class Capabilities {
          * @return the current instance
          */
         public CapabilitiesBuilder setSocialPresence(boolean support) {
-            mSocialPresence = support;
+            setService(SERVICE_SOCIAL_PRESENCE, support);
             return this;
         }
 
@@ -578,7 +526,7 @@ public class Capabilities {
          * @return Boolean
          */
         public boolean isSocialPresence() {
-            return mSocialPresence;
+            return (mServices & SERVICE_SOCIAL_PRESENCE) != 0;
         }
 
         /**
@@ -588,7 +536,7 @@ public class Capabilities {
          * @return the current instance
          */
         public CapabilitiesBuilder setFileTransferHttp(boolean support) {
-            mFileTransferHttp = support;
+            setService(SERVICE_FILE_TRANSFER_HTTP, support);
             return this;
         }
 
@@ -598,7 +546,7 @@ public class Capabilities {
          * @return Boolean
          */
         public boolean isFileTransferHttpSupported() {
-            return mFileTransferHttp;
+            return (mServices & SERVICE_FILE_TRANSFER_HTTP) != 0;
         }
 
         /**
@@ -608,7 +556,7 @@ public class Capabilities {
          * @return the current instance
          */
         public CapabilitiesBuilder setGeolocationPush(boolean support) {
-            mGeolocationPush = support;
+            setService(SERVICE_GEOLOCATION_PUSH, support);
             return this;
         }
 
@@ -618,7 +566,7 @@ public class Capabilities {
          * @return Boolean
          */
         public boolean isGeolocationPushSupported() {
-            return mGeolocationPush;
+            return (mServices & SERVICE_GEOLOCATION_PUSH) != 0;
         }
 
         /**
@@ -628,7 +576,7 @@ public class Capabilities {
          * @return the current instance
          */
         public CapabilitiesBuilder setFileTransferThumbnail(boolean support) {
-            mFileTransferThumbnail = support;
+            setService(SERVICE_FILE_TRANSFER_THUMBNAIL, support);
             return this;
         }
 
@@ -638,7 +586,7 @@ public class Capabilities {
          * @return Boolean
          */
         public boolean isFileTransferThumbnailSupported() {
-            return mFileTransferThumbnail;
+            return (mServices & SERVICE_FILE_TRANSFER_THUMBNAIL) != 0;
         }
 
         /**
@@ -648,7 +596,7 @@ public class Capabilities {
          * @return the current instance
          */
         public CapabilitiesBuilder setFileTransferStoreForward(boolean support) {
-            mFileTransferStoreForward = support;
+            setService(SERVICE_FILE_TRANSFER_STORE_FORWARD, support);
             return this;
         }
 
@@ -658,7 +606,7 @@ public class Capabilities {
          * @return Boolean
          */
         public boolean isFileTransferStoreForwardSupported() {
-            return mFileTransferStoreForward;
+            return (mServices & SERVICE_FILE_TRANSFER_STORE_FORWARD) != 0;
         }
 
         /**
@@ -668,7 +616,7 @@ public class Capabilities {
          * @return the current instance
          */
         public CapabilitiesBuilder setGroupChatStoreForward(boolean support) {
-            mGroupChatStoreForward = support;
+            setService(SERVICE_GROUP_CHAT_STORE_FORWARD, support);
             return this;
         }
 
@@ -678,7 +626,7 @@ public class Capabilities {
          * @return Boolean
          */
         public boolean isGroupChatStoreForwardSupported() {
-            return mGroupChatStoreForward;
+            return (mServices & SERVICE_GROUP_CHAT_STORE_FORWARD) != 0;
         }
 
         /**
@@ -688,7 +636,7 @@ public class Capabilities {
          * @return the current instance
          */
         public CapabilitiesBuilder setSipAutomata(boolean support) {
-            mSipAutomata = support;
+            setService(SERVICE_SIP_AUTOMATA, support);
             return this;
         }
 
@@ -698,7 +646,7 @@ public class Capabilities {
          * @return Boolean
          */
         public boolean isSipAutomata() {
-            return mSipAutomata;
+            return (mServices & SERVICE_SIP_AUTOMATA) != 0;
         }
 
         /**
@@ -763,6 +711,34 @@ public class Capabilities {
             return mTimestampOfLastResponse;
         }
 
+        /**
+         * Sets the supported services
+         * 
+         * @param services Bit mask of the SERVICE_ constants
+         * @return the current instance
+         */
+        public CapabilitiesBuilder setServices(int services) {
+            mServices = services;
+            return this;
+        }
+
+        /**
+         * Get the supported services
+         * 
+         * @return Bit mask of the SERVICE_ constants
+         */
+        public int getServices() {
+            return mServices;
+        }
+
+        private void setService(int service, boolean support) {
+            if (support) {
+                mServices |= service;
+            } else {
+                mServices &= ~service;
+            }
+        }
+
         /**
          * Build the capabilities
          * 
@@ -0,0 +1,518 @@
+/*******************************************************************************
+ * Software Name : RCS IMS Stack
+ *
+ * Copyright (C) 2010-2016 Orange.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.gsma.rcs.core.ims.service.capability;
+
+import com.gsma.rcs.core.ims.service.capability.OptionsRequestTask.IOptionsRequestTaskListener;
+import com.gsma.rcs.utils.TokenBucket;
+import com.gsma.rcs.utils.logger.Logger;
+import com.gsma.rcs.utils.scheduler.TaskScheduler;
+import com.gsma.rcs.utils.scheduler.TaskScheduler.Pool;
+import com.gsma.services.rcs.contact.ContactId;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+
+import javax2.sip.message.Response;
+
+/**
+ * Scheduler of the capability discovery requests.<br>
+ * Requests are queued by priority (user action first, then stale contacts, then background
+ * refresh) and sent at a rate limited by a token bucket, with a maximum number of requests in
+ * flight. A contact is queried only once at a time: a request for a contact already queued or in
+ * flight is merged with the existing one. When the network answers with a 503 or a Retry-After
+ * header, the scheduler stops sending for the given duration or for an exponential back-off
+ * delay.<br>
+ * No thread ever waits for a response: dispatch tasks executed by the IO pool of the task
+ * scheduler hand the requests over to the sender which must report the end of each request
+ * asynchronously.
+ *
+ * @author jexa7410
+ */
+public class CapabilityDiscoveryScheduler {
+    /**
+     * Priority of a capability request
+     */
+    public enum Priority {
+        /**
+         * Contact the user is viewing or communicating with
+         */
+        USER_ACTION,
+
+        /**
+         * Contact with unknown or expired capabilities
+         */
+        STALE,
+
+        /**
+         * Periodic refresh
+         */
+        BACKGROUND
+    }
+
+    /**
+     * Sender of the capability requests
+     */
+    public interface IRequestSender {
+        /**
+         * Send a capability request without waiting for the response
+         *
+         * @param contact Contact identifier
+         * @param listener Listener to notify at the end of the request
+         */
+        void sendRequest(ContactId contact, IOptionsRequestTaskListener listener);
+    }
+
+    /**
+     * Status code reported when a request ends without response
+     */
+    public static final int NO_RESPONSE = -1;
+
+    /**
+     * Minimum back-off delay in milliseconds
+     */
+    private static final long MIN_BACK_OFF_DELAY = 1000;
+
+    /**
+     * Maximum back-off delay in milliseconds
+     */
+    private static final long MAX_BACK_OFF_DELAY = 64000;
+
+    /**
+     * Maximum number of attempts for a request rejected with a 503
+     */
+    private static final int MAX_ATTEMPTS = 3;
+
+    /**
+     * Duration in seconds of the window used to compute the request rate
+     */
+    private static final int RATE_WINDOW_SECONDS = 10;
+
+    private final static Logger sLogger = Logger.getLogger(CapabilityDiscoveryScheduler.class
+            .getSimpleName());
+
+    private final IRequestSender mSender;
+
+    private final TokenBucket mTokenBucket;
+
+    private final int mMaxInFlight;
+
+    private final PriorityQueue<Request> mQueue = new PriorityQueue<>();
+
+    private final Map<ContactId, Request> mQueuedRequests = new HashMap<>();
+
+    private final Map<ContactId, Request> mInFlightRequests = new HashMap<>();
+
+    private final IOptionsRequestTaskListener mCompletionListener = new IOptionsRequestTaskListener() {
+
+        @Override
+        public void endOfOptionsRequestTask(ContactId contact, int statusCode, long retryAfter) {
+            onRequestCompleted(contact, statusCode, retryAfter);
+        }
+    };
+
+    private final Runnable mDispatcher = new Runnable() {
+
+        @Override
+        public void run() {
+            dispatch();
+        }
+    };
+
+    private boolean mStarted = false;
+
+    /**
+     * Pending dispatch or null
+     */
+    private ScheduledFuture<?> mScheduledDispatch;
+
+    /**
+     * Time of the pending dispatch
+     */
+    private long mScheduledDispatchTime;
+
+    private long mSequence;
+
+    private long mBackOffUntil;
+
+    private long mBackOffDelay;
+
+    /**
+     * Number of requests sent during each second of the rate window
+     */
+    private final int[] mSentPerSecond = new int[RATE_WINDOW_SECONDS];
+
+    /**
+     * Second of each slot of the rate window
+     */
+    private final long[] mSlotSecond = new long[RATE_WINDOW_SECONDS];
+
+    private long mSentCount;
+
+    private long mMergedCount;
+
+    private long mBackOffCount;
+
+    /**
+     * Constructor
+     *
+     * @param sender Sender of the requests
+     * @param ratePerSecond Maximum average number of requests sent per second
+     * @param burst Maximum number of requests sent in a burst
+     * @param maxInFlight Maximum number of requests waiting for a response
+     */
+    public CapabilityDiscoveryScheduler(IRequestSender sender, double ratePerSecond, int burst,
+            int maxInFlight) {
+        mSender = sender;
+        mTokenBucket = new TokenBucket(ratePerSecond, burst, now());
+        mMaxInFlight = Math.max(1, maxInFlight);
+    }
+
+    /**
+     * Returns the current time of the monotonic clock in milliseconds
+     */
+    private static long now() {
+        return System.nanoTime() / 1000000;
+    }
+
+    /**
+     * Start the scheduler
+     */
+    public synchronized void start() {
+        if (mStarted) {
+            return;
+        }
+        mStarted = true;
+        mBackOffUntil = 0;
+        mBackOffDelay = 0;
+        scheduleDispatch(0);
+    }
+
+    /**
+     * Stop the scheduler and drop the queued requests
+     */
+    public synchronized void stop() {
+        if (!mStarted) {
+            return;
+        }
+        mStarted = false;
+        if (mScheduledDispatch != null) {
+            mScheduledDispatch.cancel(false);
+            mScheduledDispatch = null;
+        }
+        mQueue.clear();
+        mQueuedRequests.clear();
+        mInFlightRequests.clear();
+    }
+
+    /**
+     * Queue a capability request
+     *
+     * @param contact Contact identifier
+     * @param priority Priority of the request
+     * @param listener Listener to notify at the end of the request or null
+     * @return False if the request has been merged with a request already queued or in flight
+     */
+    public synchronized boolean schedule(ContactId contact, Priority priority,
+            IOptionsRequestTaskListener listener) {
+        Request request = mInFlightRequests.get(contact);
+        if (request == null) {
+            request = mQueuedRequests.get(contact);
+            if (request != null && priority.compareTo(request.mPriority) < 0) {
+                /* Move the queued request up to the new priority */
+                mQueue.remove(request);
+                request.mPriority = priority;
+                mQueue.add(request);
+            }
+        }
+        if (request != null) {
+            mMergedCount++;
+            request.addListener(listener);
+            return false;
+        }
+        request = new Request(contact, priority, mSequence++);
+        request.addListener(listener);
+        mQueue.add(request);
+        mQueuedRequests.put(contact, request);
+        scheduleDispatch(0);
+        return true;
+    }
+
+    /**
+     * Schedule a dispatch, unless a dispatch is already scheduled earlier. Must be called with the
+     * lock held.
+     *
+     * @param delay Delay in milliseconds
+     */
+    private void scheduleDispatch(long delay) {
+        if (!mStarted) {
+            return;
+        }
+        long time = now() + delay;
+        if (mScheduledDispatch != null) {
+            if (mScheduledDispatchTime <= time) {
+                return;
+            }
+            mScheduledDispatch.cancel(false);
+        }
+        try {
+            mScheduledDispatch = TaskScheduler.getInstance().schedule(Pool.IO, mDispatcher, delay);
+            mScheduledDispatchTime = time;
+        } catch (RejectedExecutionException e) {
+            mScheduledDispatch = null;
+        }
+    }
+
+    /**
+     * Send the queued requests while the rate limit, the back-off and the in flight limit allow
+     * it
+     */
+    private void dispatch() {
+        while (true) {
+            Request request;
+            synchronized (this) {
+                mScheduledDispatch = null;
+                if (!mStarted || mQueue.isEmpty()
+                        || mInFlightRequests.size() >= mMaxInFlight) {
+                    /* Next dispatch is triggered by a new request or a response */
+                    return;
+                }
+                long now = now();
+                if (now < mBackOffUntil) {
+                    scheduleDispatch(mBackOffUntil - now);
+                    return;
+                }
+                long delay = mTokenBucket.tryAcquire(now);
+                if (delay > 0) {
+                    scheduleDispatch(delay);
+                    return;
+                }
+                request = mQueue.poll();
+                mQueuedRequests.remove(request.mContact);
+                mInFlightRequests.put(request.mContact, request);
+                request.mAttempts++;
+                countSentRequest(now);
+            }
+            try {
+                mSender.sendRequest(request.mContact, mCompletionListener);
+            } catch (RuntimeException e) {
+                /*
+                 * Normally we are not allowed to catch runtime exceptions as these are genuine bugs
+                 * which should be handled/fixed within the code. However the cases when we are
+                 * executing operations on a thread unhandling such exceptions will eventually lead
+                 * to exit the system and thus can bring the whole system down, which is not
+                 * intended.
+                 */
+                sLogger.error("Failed to send capability request for " + request.mContact, e);
+                onRequestCompleted(request.mContact, NO_RESPONSE, 0);
+            }
+        }
+    }
+
+    /**
+     * Handle the end of a request
+     *
+     * @param contact Contact identifier
+     * @param statusCode Status code of the response or NO_RESPONSE
+     * @param retryAfter Retry-After duration in milliseconds or 0
+     */
+    private void onRequestCompleted(ContactId contact, int statusCode, long retryAfter) {
+        List<IOptionsRequestTaskListener> listeners = null;
+        synchronized (this) {
+            Request request = mInFlightRequests.remove(contact);
+            if (request == null) {
+                /* The scheduler has been stopped meanwhile */
+                return;
+            }
+            boolean overloaded = Response.SERVICE_UNAVAILABLE == statusCode;
+            if (overloaded || retryAfter > 0) {
+                backOff(retryAfter);
+            } else if (statusCode != NO_RESPONSE) {
+                mBackOffDelay = 0;
+            }
+            if (overloaded && request.mAttempts < MAX_ATTEMPTS
+                    && !mQueuedRequests.containsKey(contact)) {
+                /* The request has not been processed: queue it again with its listeners */
+                mQueue.add(request);
+                mQueuedRequests.put(contact, request);
+            } else {
+                listeners = request.mListeners;
+            }
+            scheduleDispatch(0);
+        }
+        if (listeners == null) {
+            return;
+        }
+        for (IOptionsRequestTaskListener listener : listeners) {
+            listener.endOfOptionsRequestTask(contact, statusCode, retryAfter);
+        }
+    }
+
+    /**
+     * Stop sending requests for the Retry-After duration or for the next back-off delay. Must be
+     * called with the lock held.
+     *
+     * @param retryAfter Retry-After duration in milliseconds or 0
+     */
+    private void backOff(long retryAfter) {
+        long delay;
+        if (retryAfter > 0) {
+            delay = retryAfter;
+        } else {
+            mBackOffDelay = Math.min(MAX_BACK_OFF_DELAY,
+                    Math.max(MIN_BACK_OFF_DELAY, mBackOffDelay * 2));
+            delay = mBackOffDelay;
+        }
+        long until = now() + delay;
+        if (until > mBackOffUntil) {
+            mBackOffUntil = until;
+            mBackOffCount++;
+            if (sLogger.isActivated()) {
+                sLogger.warn("Capability requests suspended for " + delay + " ms");
+            }
+        }
+    }
+
+    /**
+     * Count a sent request in the rate window. Must be called with the lock held.
+     */
+    private void countSentRequest(long now) {
+        mSentCount++;
+        long second = now / 1000;
+        int slot = (int) (second % RATE_WINDOW_SECONDS);
+        if (mSlotSecond[slot] != second) {
+            mSlotSecond[slot] = second;
+            mSentPerSecond[slot] = 0;
+        }
+        mSentPerSecond[slot]++;
+    }
+
+    /**
+     * Returns the number of queued requests
+     *
+     * @return Number of requests
+     */
+    public synchronized int getQueueDepth() {
+        return mQueue.size();
+    }
+
+    /**
+     * Returns the number of requests waiting for a response
+     *
+     * @return Number of requests
+     */
+    public synchronized int getInFlightCount() {
+        return mInFlightRequests.size();
+    }
+
+    /**
+     * Returns the average number of requests sent per second over the last seconds
+     *
+     * @return Number of requests per second
+     */
+    public synchronized double getRequestsPerSecond() {
+        long second = now() / 1000;
+        int sent = 0;
+        for (int slot = 0; slot < RATE_WINDOW_SECONDS; slot++) {
+            if (second - mSlotSecond[slot] < RATE_WINDOW_SECONDS) {
+                sent += mSentPerSecond[slot];
+            }
+        }
+        return (double) sent / RATE_WINDOW_SECONDS;
+    }
+
+    /**
+     * Returns the number of requests sent since the creation of the scheduler
+     *
+     * @return Number of requests
+     */
+    public synchronized long getSentCount() {
+        return mSentCount;
+    }
+
+    /**
+     * Returns the number of requests merged with a request already queued or in flight
+     *
+     * @return Number of requests
+     */
+    public synchronized long getMergedCount() {
+        return mMergedCount;
+    }
+
+    /**
+     * Returns the number of times the scheduler has backed off
+     *
+     * @return Number of back-offs
+     */
+    public synchronized long getBackOffCount() {
+        return mBackOffCount;
+    }
+
+    /**
+     * Is backing off
+     *
+     * @return True if the sending of requests is suspended
+     */
+    public synchronized boolean isBackingOff() {
+        return now() < mBackOffUntil;
+    }
+
+    /**
+     * Capability request of a contact
+     */
+    private static class Request implements Comparable<Request> {
+        private final ContactId mContact;
+
+        /**
+         * Queuing order of the request within its priority
+         */
+        private final long mSequence;
+
+        private final List<IOptionsRequestTaskListener> mListeners = new ArrayList<>(1);
+
+        private Priority mPriority;
+
+        private int mAttempts;
+
+        private Request(ContactId contact, Priority priority, long sequence) {
+            mContact = contact;
+            mPriority = priority;
+            mSequence = sequence;
+        }
+
+        private void addListener(IOptionsRequestTaskListener listener) {
+            if (listener != null) {
+                mListeners.add(listener);
+            }
+        }
+
+        @Override
+        public int compareTo(Request another) {
+            int result = mPriority.compareTo(another.mPriority);
+            if (result != 0) {
+                return result;
+            }
+            return mSequence < another.mSequence ? -1 : (mSequence == another.mSequence ? 0 : 1);
+        }
+    }
+}
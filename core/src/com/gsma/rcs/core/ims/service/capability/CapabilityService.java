@@ -38,6 +38,9 @@ import com.gsma.rcs.provider.contact.ContactManagerException;
 import com.gsma.rcs.provider.settings.RcsSettings;
 import com.gsma.rcs.service.api.CapabilityServiceImpl;
 import com.gsma.rcs.utils.logger.Logger;
+import com.gsma.rcs.utils.scheduler.SerialExecutor;
+import com.gsma.rcs.utils.scheduler.TaskScheduler;
+import com.gsma.rcs.utils.scheduler.TaskScheduler.Pool;
 import com.gsma.services.rcs.contact.ContactId;
 
 import android.os.Handler;
@@ -45,8 +48,6 @@ import android.os.HandlerThread;
 
 import java.util.Arrays;
 import java.util.Set;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 /**
  * Capability discovery service
@@ -67,7 +68,7 @@ public class CapabilityService extends ImsService implements AddressBookEventLis
 
     private PollingManager mPollingManager;
 
-    private ExecutorService mSyncExecutor;
+    private SerialExecutor mSyncExecutor;
 
     private final AddressBookManager mAddressBookManager;
 
@@ -148,7 +149,7 @@ public class CapabilityService extends ImsService implements AddressBookEventLis
         mOptionsManager.start();
 
         /* Force a first capability check */
-        mSyncExecutor = Executors.newSingleThreadExecutor();
+        mSyncExecutor = TaskScheduler.getInstance().createSerialExecutor(Pool.IO);
         synchronizeContacts();
 
         if (sLogger.isActivated()) {
@@ -298,7 +299,7 @@ public class CapabilityService extends ImsService implements AddressBookEventLis
 
     private void synchronizeContacts() {
         mSyncExecutor.execute(new SyncContactTask(mISyncContactTaskListener, this, mContactManager,
-                mAddressBookManager, mPollingManager, mOptionsManager));
+                mAddressBookManager, mPollingManager, mOptionsManager, mSyncExecutor));
     }
 
     /**
@@ -339,8 +340,10 @@ public class CapabilityService extends ImsService implements AddressBookEventLis
             capaBuilder.setImageSharing(false);
             capaBuilder.setVideoSharing(false);
             capabilities = capaBuilder.build();
-            mContactManager.setContactCapabilities(contact, capabilities);
-
+            if (!mContactManager.setContactCapabilities(contact, capabilities)) {
+                /* Nothing to broadcast if the capabilities are unchanged */
+                return;
+            }
             onReceivedCapabilities(contact, capabilities);
 
         } catch (FileAccessException e) {
@@ -153,74 +153,7 @@ public class CapabilityUtils {
     public static Capabilities extractCapabilities(SipMessage msg) {
         /* Analyze feature tags */
         Capabilities.CapabilitiesBuilder capaBuilder = new Capabilities.CapabilitiesBuilder();
-        Set<String> tags = msg.getFeatureTags();
-        boolean ipCall_RCSE = false;
-        boolean ipCall_3GPP = false;
-        for (String tag : tags) {
-            if (tag.contains(FeatureTags.FEATURE_3GPP_VIDEO_SHARE)) {
-                capaBuilder.setVideoSharing(true);
-
-            } else if (tag.contains(FeatureTags.FEATURE_RCSE_IMAGE_SHARE)) {
-                capaBuilder.setImageSharing(true);
-
-            } else if (tag.contains(FeatureTags.FEATURE_RCSE_CHAT)) {
-                capaBuilder.setImSession(true);
-
-            } else if (tag.contains(FeatureTags.FEATURE_RCSE_FT)) {
-                capaBuilder.setFileTransferMsrp(true);
-
-            } else if (tag.contains(FeatureTags.FEATURE_RCSE_FT_HTTP)) {
-                capaBuilder.setFileTransferHttp(true);
-
-            } else if (tag.contains(FeatureTags.FEATURE_OMA_IM)) {
-                /* Support both IM & FT services */
-                capaBuilder.setImSession(true).setFileTransferMsrp(true);
-
-            } else if (tag.contains(FeatureTags.FEATURE_RCSE_PRESENCE_DISCOVERY)) {
-                capaBuilder.setPresenceDiscovery(true);
-
-            } else if (tag.contains(FeatureTags.FEATURE_RCSE_SOCIAL_PRESENCE)) {
-                capaBuilder.setSocialPresence(true);
-
-            } else if (tag.contains(FeatureTags.FEATURE_RCSE_GEOLOCATION_PUSH)) {
-                capaBuilder.setGeolocationPush(true);
-
-            } else if (tag.contains(FeatureTags.FEATURE_RCSE_FT_THUMBNAIL)) {
-                capaBuilder.setFileTransferThumbnail(true);
-
-            } else if (tag.contains(FeatureTags.FEATURE_RCSE_IP_VOICE_CALL)) {
-                if (ipCall_3GPP) {
-                    capaBuilder.setIpVoiceCall(true);
-                } else {
-                    ipCall_RCSE = true;
-                }
-            } else if (tag.contains(FeatureTags.FEATURE_3GPP_IP_VOICE_CALL)) {
-                if (ipCall_RCSE) {
-                    capaBuilder.setIpVoiceCall(true);
-                } else {
-                    ipCall_3GPP = true;
-                }
-            } else if (tag.contains(FeatureTags.FEATURE_RCSE_IP_VIDEO_CALL)) {
-                capaBuilder.setIpVideoCall(true);
-
-            } else if (tag.contains(FeatureTags.FEATURE_RCSE_FT_SF)) {
-                capaBuilder.setFileTransferStoreForward(true);
-
-            } else if (tag.contains(FeatureTags.FEATURE_RCSE_GC_SF)) {
-                capaBuilder.setGroupChatStoreForward(true);
-
-            } else if (tag.contains(FeatureTags.FEATURE_RCSE_IARI_EXTENSION + ".ext")
-                    || tag.contains(FeatureTags.FEATURE_RCSE_IARI_EXTENSION + ".mnc")
-                    || tag.contains(FeatureTags.FEATURE_RCSE_ICSI_EXTENSION + ".gsma")) {
-                // Support an RCS extension
-                String serviceId = extractServiceId(tag);
-                if (!"gsma.rcs.extension".equals(serviceId)) {
-                    capaBuilder.addExtension(serviceId);
-                }
-            } else if (tag.contains(FeatureTags.FEATURE_SIP_AUTOMATA)) {
-                capaBuilder.setSipAutomata(true);
-            }
-        }
+        FeatureTagRegistry.parseFeatureTags(msg, capaBuilder);
         /* Analyze SDP part */
         byte[] content = msg.getContentBytes();
         if (content != null) {
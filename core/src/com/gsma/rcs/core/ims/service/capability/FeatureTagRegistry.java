@@ -0,0 +1,175 @@
+/*******************************************************************************
+ * Software Name : RCS IMS Stack
+ *
+ * Copyright (C) 2010-2016 Orange.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+
+package com.gsma.rcs.core.ims.service.capability;
+
+import com.gsma.rcs.core.ims.network.sip.FeatureTags;
+import com.gsma.rcs.core.ims.protocol.sip.SipMessage;
+import com.gsma.rcs.core.ims.protocol.sip.SipMessage.IFeatureTagHandler;
+import com.gsma.rcs.core.ims.service.capability.Capabilities.CapabilitiesBuilder;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Registry of the feature tags of the RCS services.<br>
+ * Each known feature tag is mapped once to the bits of the corresponding services in
+ * {@link Capabilities}, so that the Contact and Accept-Contact headers are parsed straight into a
+ * bit mask. Service IDs of the extensions are interned so that the extension sets of all the
+ * contacts share the same strings. The extensions come from remote feature tags, so at most
+ * {@link #MAX_INTERNED_EXTENSIONS} are interned and the next ones are returned as is.
+ *
+ * @author jexa7410
+ */
+public class FeatureTagRegistry {
+    /**
+     * The IP voice call service requires both the RCS IP call tag and the 3GPP MMTEL tag: these
+     * bits are not part of the Capabilities services.
+     */
+    private static final int RCSE_IP_VOICE_CALL = 1 << 30;
+
+    private static final int MMTEL_IP_VOICE_CALL = 1 << 29;
+
+    private static final String GSMA_RCS_EXTENSION = "gsma.rcs.extension";
+
+    private static final String IARI_EXTENSION_EXT = FeatureTags.FEATURE_RCSE_IARI_EXTENSION
+            + ".ext";
+
+    private static final String IARI_EXTENSION_MNC = FeatureTags.FEATURE_RCSE_IARI_EXTENSION
+            + ".mnc";
+
+    private static final String ICSI_EXTENSION_GSMA = FeatureTags.FEATURE_RCSE_ICSI_EXTENSION
+            + ".gsma";
+
+    /**
+     * Services of the feature tags identified by their name
+     */
+    private static final Map<String, Integer> sTagNames = new HashMap<>();
+
+    /**
+     * Services of the feature tags identified by their value
+     */
+    private static final Map<String, Integer> sTagValues = new HashMap<>();
+
+    /**
+     * Maximum number of interned extension service IDs
+     */
+    private static final int MAX_INTERNED_EXTENSIONS = 256;
+
+    /**
+     * Interned extension service IDs
+     */
+    private static final ConcurrentMap<String, String> sExtensions = new ConcurrentHashMap<>();
+
+    static {
+        sTagNames.put(FeatureTags.FEATURE_3GPP_VIDEO_SHARE, Capabilities.SERVICE_VIDEO_SHARING);
+        sTagNames.put(FeatureTags.FEATURE_OMA_IM, Capabilities.SERVICE_IM_SESSION
+                | Capabilities.SERVICE_FILE_TRANSFER_MSRP);
+        sTagNames.put(FeatureTags.FEATURE_RCSE_IP_VOICE_CALL, RCSE_IP_VOICE_CALL);
+        sTagNames.put(FeatureTags.FEATURE_RCSE_IP_VIDEO_CALL, Capabilities.SERVICE_IP_VIDEO_CALL);
+        sTagNames.put(FeatureTags.FEATURE_SIP_AUTOMATA, Capabilities.SERVICE_SIP_AUTOMATA);
+
+        sTagValues.put(FeatureTags.FEATURE_RCSE_IMAGE_SHARE, Capabilities.SERVICE_IMAGE_SHARING);
+        sTagValues.put(FeatureTags.FEATURE_RCSE_CHAT, Capabilities.SERVICE_IM_SESSION);
+        sTagValues.put(FeatureTags.FEATURE_RCSE_FT, Capabilities.SERVICE_FILE_TRANSFER_MSRP);
+        sTagValues.put(FeatureTags.FEATURE_RCSE_FT_HTTP, Capabilities.SERVICE_FILE_TRANSFER_HTTP);
+        sTagValues.put(FeatureTags.FEATURE_RCSE_PRESENCE_DISCOVERY,
+                Capabilities.SERVICE_PRESENCE_DISCOVERY);
+        sTagValues.put(FeatureTags.FEATURE_RCSE_SOCIAL_PRESENCE,
+                Capabilities.SERVICE_SOCIAL_PRESENCE);
+        sTagValues.put(FeatureTags.FEATURE_RCSE_GEOLOCATION_PUSH,
+                Capabilities.SERVICE_GEOLOCATION_PUSH);
+        sTagValues.put(FeatureTags.FEATURE_RCSE_FT_THUMBNAIL,
+                Capabilities.SERVICE_FILE_TRANSFER_THUMBNAIL);
+        sTagValues.put(FeatureTags.FEATURE_RCSE_FT_SF,
+                Capabilities.SERVICE_FILE_TRANSFER_STORE_FORWARD);
+        sTagValues.put(FeatureTags.FEATURE_RCSE_GC_SF,
+                Capabilities.SERVICE_GROUP_CHAT_STORE_FORWARD);
+        sTagValues.put(FeatureTags.FEATURE_3GPP_IP_VOICE_CALL, MMTEL_IP_VOICE_CALL);
+    }
+
+    /**
+     * Get the interned service ID of an extension feature tag value
+     * 
+     * @param value Feature tag value
+     * @return Service ID or null if the value is not an extension
+     */
+    public static String getExtension(String value) {
+        String prefix;
+        if (value.startsWith(IARI_EXTENSION_EXT) || value.startsWith(IARI_EXTENSION_MNC)) {
+            prefix = FeatureTags.FEATURE_RCSE_IARI_EXTENSION;
+        } else if (value.startsWith(ICSI_EXTENSION_GSMA)) {
+            prefix = FeatureTags.FEATURE_RCSE_ICSI_EXTENSION;
+        } else {
+            return null;
+        }
+        String serviceId = value.substring(prefix.length() + 1);
+        if (GSMA_RCS_EXTENSION.equals(serviceId)) {
+            return null;
+        }
+        String interned = sExtensions.get(serviceId);
+        if (interned != null) {
+            return interned;
+        }
+        if (sExtensions.size() >= MAX_INTERNED_EXTENSIONS) {
+            return serviceId;
+        }
+        interned = sExtensions.putIfAbsent(serviceId, serviceId);
+        return interned != null ? interned : serviceId;
+    }
+
+    /**
+     * Parse the feature tags of the Contact and Accept-Contact headers of a SIP message
+     * 
+     * @param msg SIP message
+     * @param capaBuilder Builder receiving the supported services and extensions
+     */
+    public static void parseFeatureTags(SipMessage msg, final CapabilitiesBuilder capaBuilder) {
+        final int[] services = new int[1];
+        msg.readFeatureTags(new IFeatureTagHandler() {
+            @Override
+            public void handleFeatureTag(String name, String value) {
+                Integer nameServices = sTagNames.get(name);
+                if (nameServices != null) {
+                    services[0] |= nameServices;
+                }
+                if (value == null) {
+                    return;
+                }
+                Integer valueServices = sTagValues.get(value);
+                if (valueServices != null) {
+                    services[0] |= valueServices;
+                    return;
+                }
+                String extension = getExtension(value);
+                if (extension != null) {
+                    capaBuilder.addExtension(extension);
+                }
+            }
+        });
+        int mask = services[0];
+        if ((mask & RCSE_IP_VOICE_CALL) != 0 && (mask & MMTEL_IP_VOICE_CALL) != 0) {
+            mask |= Capabilities.SERVICE_IP_VOICE_CALL;
+        }
+        mask &= ~(RCSE_IP_VOICE_CALL | MMTEL_IP_VOICE_CALL);
+        capaBuilder.setServices(capaBuilder.getServices() | mask);
+    }
+}
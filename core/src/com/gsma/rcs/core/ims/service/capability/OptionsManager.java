@@ -32,6 +32,8 @@ import com.gsma.rcs.core.ims.protocol.sip.SipRequest;
 import com.gsma.rcs.core.ims.protocol.sip.SipResponse;
 import com.gsma.rcs.core.ims.service.ContactInfo.RcsStatus;
 import com.gsma.rcs.core.ims.service.ContactInfo.RegistrationState;
+import com.gsma.rcs.core.ims.service.capability.CapabilityDiscoveryScheduler.IRequestSender;
+import com.gsma.rcs.core.ims.service.capability.CapabilityDiscoveryScheduler.Priority;
 import com.gsma.rcs.core.ims.service.capability.OptionsRequestTask.IOptionsRequestTaskListener;
 import com.gsma.rcs.provider.contact.ContactManager;
 import com.gsma.rcs.provider.contact.ContactManagerException;
@@ -43,8 +45,6 @@ import com.gsma.services.rcs.contact.ContactId;
 
 import java.util.HashSet;
 import java.util.Set;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 /**
  * Capability discovery manager using options procedure
@@ -53,16 +53,26 @@ import java.util.concurrent.Executors;
  */
 public class OptionsManager implements DiscoveryManager {
     /**
-     * Max number of threads for background processing
+     * Maximum average number of OPTIONS sent per second
      */
-    private final static int MAX_PROCESSING_THREADS = 15;
+    private final static double MAX_OPTIONS_PER_SECOND = 10;
+
+    /**
+     * Maximum number of OPTIONS sent in a burst
+     */
+    private final static int MAX_OPTIONS_BURST = 20;
+
+    /**
+     * Maximum number of OPTIONS transactions in progress
+     */
+    private final static int MAX_OPTIONS_IN_FLIGHT = 20;
 
     private ImsModule mImsModule;
 
     /**
-     * Thread pool to request capabilities in background
+     * Scheduler of the OPTIONS requests
      */
-    private ExecutorService mThreadPool;
+    private final CapabilityDiscoveryScheduler mScheduler;
 
     private final RcsSettings mRcsSettings;
 
@@ -81,45 +91,57 @@ public class OptionsManager implements DiscoveryManager {
         mImsModule = parent;
         mRcsSettings = rcsSettings;
         mContactManager = contactManager;
+        mScheduler = new CapabilityDiscoveryScheduler(new IRequestSender() {
+
+            @Override
+            public void sendRequest(ContactId contact, IOptionsRequestTaskListener listener) {
+                boolean richcall = mImsModule.getRichcallService().isCallConnectedWith(contact);
+                /* The task only sends the OPTIONS, the response is handled asynchronously */
+                new OptionsRequestTask(mImsModule, contact, CapabilityUtils
+                        .getSupportedFeatureTags(richcall, mRcsSettings), mRcsSettings,
+                        mContactManager, listener).run();
+            }
+        }, MAX_OPTIONS_PER_SECOND, MAX_OPTIONS_BURST, MAX_OPTIONS_IN_FLIGHT);
     }
 
     /**
      * Start the manager
      */
     public void start() {
-        mThreadPool = Executors.newFixedThreadPool(MAX_PROCESSING_THREADS);
+        mScheduler.start();
     }
 
     /**
      * Stop the manager
      */
     public void stop() {
-        mThreadPool.shutdownNow();
+        mScheduler.stop();
+    }
+
+    /**
+     * Returns the scheduler of the OPTIONS requests, giving access to its metrics
+     * 
+     * @return Scheduler
+     */
+    public CapabilityDiscoveryScheduler getScheduler() {
+        return mScheduler;
     }
 
     /**
      * Request capabilities in background
      * 
      * @param contact Contact ID
+     * @param priority Priority of the request
      * @param listener callback to execute when response is received
      */
-    private void requestCapabilitiesInBackground(ContactId contact,
+    private void requestCapabilitiesInBackground(ContactId contact, Priority priority,
             IOptionsRequestTaskListener listener) {
         if (sLogger.isActivated()) {
             sLogger.debug("Request capabilities in background for ".concat(contact.toString()));
         }
-        boolean richcall = mImsModule.getRichcallService().isCallConnectedWith(contact);
-        OptionsRequestTask task = new OptionsRequestTask(mImsModule, contact,
-                CapabilityUtils.getSupportedFeatureTags(richcall, mRcsSettings), mRcsSettings,
-                mContactManager, listener);
-        if (mThreadPool.isShutdown()) {
-            if (sLogger.isActivated()) {
-                sLogger.warn("Request capabilities in background for " + contact
-                        + " rejected: manager is stopped!");
-            }
-            return;
+        if (!mScheduler.schedule(contact, priority, listener) && sLogger.isActivated()) {
+            sLogger.debug("Capability request already pending for ".concat(contact.toString()));
         }
-        mThreadPool.submit(task);
     }
 
     /**
@@ -141,11 +163,21 @@ public class OptionsManager implements DiscoveryManager {
     }
 
     /**
-     * Request contact capabilities
+     * Request contact capabilities on behalf of the user
      * 
      * @param contact Remote contact identifier
      */
     public void requestCapabilities(ContactId contact) {
+        requestCapabilities(contact, Priority.USER_ACTION);
+    }
+
+    /**
+     * Request contact capabilities
+     * 
+     * @param contact Remote contact identifier
+     * @param priority Priority of the request
+     */
+    public void requestCapabilities(ContactId contact, Priority priority) {
         boolean logActivated = sLogger.isActivated();
         if (contact == null || contact.equals(ImsModule.getImsUserProfile().getUsername())) {
             return;
@@ -155,7 +187,7 @@ public class OptionsManager implements DiscoveryManager {
             if (logActivated) {
                 sLogger.debug("No capability exist for ".concat(contact.toString()));
             }
-            requestCapabilitiesInBackground(contact, null);
+            requestCapabilitiesInBackground(contact, priority, null);
             mContactManager.updateCapabilitiesTimeLastRequest(contact);
         } else {
             if (logActivated) {
@@ -165,7 +197,7 @@ public class OptionsManager implements DiscoveryManager {
                 if (logActivated) {
                     sLogger.debug("Request capabilities for ".concat(contact.toString()));
                 }
-                requestCapabilitiesInBackground(contact, null);
+                requestCapabilitiesInBackground(contact, priority, null);
                 mContactManager.updateCapabilitiesTimeLastRequest(contact);
             }
         }
@@ -178,7 +210,7 @@ public class OptionsManager implements DiscoveryManager {
      */
     public void requestCapabilities(Set<ContactId> contacts) {
         for (ContactId contact : contacts) {
-            requestCapabilities(contact);
+            requestCapabilities(contact, Priority.STALE);
         }
     }
 
@@ -222,18 +254,21 @@ public class OptionsManager implements DiscoveryManager {
             Capabilities capabilities = CapabilityUtils.extractCapabilities(options);
 
             // Update capabilities in database
+            boolean changed;
             if (capabilities.isImSessionSupported()) {
                 // RCS-e contact
-                mContactManager.setContactCapabilities(contact, capabilities,
+                changed = mContactManager.setContactCapabilities(contact, capabilities,
                         RcsStatus.RCS_CAPABLE, RegistrationState.ONLINE);
             } else {
                 // Not a RCS-e contact
-                mContactManager.setContactCapabilities(contact, capabilities, RcsStatus.NOT_RCS,
-                        RegistrationState.UNKNOWN);
+                changed = mContactManager.setContactCapabilities(contact, capabilities,
+                        RcsStatus.NOT_RCS, RegistrationState.UNKNOWN);
             }
 
-            // Notify listener
-            mImsModule.getCapabilityService().onReceivedCapabilities(contact, capabilities);
+            // Notify listener if capabilities changed, the request was not solicited
+            if (changed) {
+                mImsModule.getCapabilityService().onReceivedCapabilities(contact, capabilities);
+            }
 
         } catch (FileAccessException e) {
             throw new PayloadException(new StringBuilder("Failed to receive capability request '")
@@ -245,17 +280,20 @@ public class OptionsManager implements DiscoveryManager {
      * Requests capabilities for a set of contacts
      * 
      * @param contacts Set of contacts to query.
+     * @param priority Priority of the requests
      * @param callback Callback to execute once all contacts have been queried or null if caller
      *            does need to be notified
      */
-    public void requestCapabilities(Set<ContactId> contacts, final IOptionsManagerListener callback) {
+    public void requestCapabilities(Set<ContactId> contacts, Priority priority,
+            final IOptionsManagerListener callback) {
         IOptionsRequestTaskListener listener = null;
         final Set<ContactId> contactsToQuery = new HashSet<ContactId>(contacts);
         if (callback != null) {
             listener = new IOptionsRequestTaskListener() {
 
                 @Override
-                public void endOfOptionsRequestTask(ContactId contact) {
+                public void endOfOptionsRequestTask(ContactId contact, int statusCode,
+                        long retryAfter) {
                     synchronized (contactsToQuery) {
                         contactsToQuery.remove(contact);
                         if (contactsToQuery.isEmpty()) {
@@ -266,7 +304,7 @@ public class OptionsManager implements DiscoveryManager {
             };
         }
         for (ContactId contact : contacts) {
-            requestCapabilitiesInBackground(contact, listener);
+            requestCapabilitiesInBackground(contact, priority, listener);
         }
     }
 
@@ -31,6 +31,7 @@ import com.gsma.rcs.core.ims.protocol.sip.SipDialogPath;
 import com.gsma.rcs.core.ims.protocol.sip.SipRequest;
 import com.gsma.rcs.core.ims.protocol.sip.SipResponse;
 import com.gsma.rcs.core.ims.protocol.sip.SipTransactionContext;
+import com.gsma.rcs.core.ims.protocol.sip.SipTransactionContext.INotifySipTransactionCompletion;
 import com.gsma.rcs.core.ims.service.ContactInfo;
 import com.gsma.rcs.core.ims.service.ContactInfo.RcsStatus;
 import com.gsma.rcs.core.ims.service.ContactInfo.RegistrationState;
@@ -45,14 +46,17 @@ import com.gsma.services.rcs.contact.ContactId;
 import java.text.ParseException;
 
 import javax2.sip.InvalidArgumentException;
+import javax2.sip.header.RetryAfterHeader;
 import javax2.sip.message.Response;
 
 /**
- * Options request task
+ * Options request task.<br>
+ * The task only sends the OPTIONS request: the response is handled when the SIP transaction
+ * completes, so that no thread is blocked during the network round trip.
  * 
  * @author Jean-Marc AUFFRET
  */
-public class OptionsRequestTask implements Runnable {
+public class OptionsRequestTask implements Runnable, INotifySipTransactionCompletion {
     private final ImsModule mImsModule;
 
     private final ContactId mContact;
@@ -63,6 +67,8 @@ public class OptionsRequestTask implements Runnable {
 
     private final SessionAuthenticationAgent mAuthenticationAgent;
 
+    private static final long SECONDS_TO_MILLISECONDS_CONVERSION_RATE = 1000;
+
     private final static Logger sLogger = Logger.getLogger(OptionsRequestTask.class.getName());
 
     private final RcsSettings mRcsSettings;
@@ -71,6 +77,16 @@ public class OptionsRequestTask implements Runnable {
 
     private final IOptionsRequestTaskListener mCallback;
 
+    /**
+     * Status code of the last response or NO_RESPONSE
+     */
+    private int mStatusCode = CapabilityDiscoveryScheduler.NO_RESPONSE;
+
+    /**
+     * Retry-After duration of the last response in milliseconds
+     */
+    private long mRetryAfter;
+
     /**
      * Constructor
      * 
@@ -96,8 +112,11 @@ public class OptionsRequestTask implements Runnable {
     @Override
     public void run() {
         try {
-            sendOptions();
-        } catch (ContactManagerException | PayloadException e) {
+            if (sendOptions()) {
+                /* The task ends when the OPTIONS transaction completes */
+                return;
+            }
+        } catch (PayloadException e) {
             sLogger.error("Options request failed for contact : " + mContact, e);
             handleError(new CapabilityError(CapabilityError.OPTIONS_FAILED, e));
 
@@ -112,33 +131,64 @@ public class OptionsRequestTask implements Runnable {
              * exit the system and thus can bring the whole system down, which is not intended.
              */
             sLogger.error("Options request failed for contact : " + mContact, e);
-        } finally {
-            if (mCallback != null) {
-                try {
-                    mCallback.endOfOptionsRequestTask(mContact);
-                } catch (RuntimeException e) {
-                    /*
-                     * Normally we are not allowed to catch runtime exceptions as these are genuine
-                     * bugs which should be handled/fixed within the code. However the cases when we
-                     * are executing operations on a thread unhandling such exceptions will
-                     * eventually lead to exit the system and thus can bring the whole system down,
-                     * which is not intended.
-                     */
-                    sLogger.error("Failed to notify end of options request for contact : "
-                            + mContact, e);
-                }
+        }
+        notifyEndOfTask();
+    }
+
+    @Override
+    public void handleTransactionCompleted(SipTransactionContext ctx) {
+        try {
+            if (handleOptionsResponse(ctx)) {
+                /* A new OPTIONS has been sent */
+                return;
             }
+        } catch (ContactManagerException | PayloadException e) {
+            sLogger.error("Options request failed for contact : " + mContact, e);
+            handleError(new CapabilityError(CapabilityError.OPTIONS_FAILED, e));
+
+        } catch (NetworkException e) {
+            handleError(new CapabilityError(CapabilityError.OPTIONS_FAILED, e));
+
+        } catch (RuntimeException e) {
+            /*
+             * Normally we are not allowed to catch runtime exceptions as these are genuine bugs
+             * which should be handled/fixed within the code. However the cases when we are
+             * executing operations on a thread unhandling such exceptions will eventually lead to
+             * exit the system and thus can bring the whole system down, which is not intended.
+             */
+            sLogger.error("Options request failed for contact : " + mContact, e);
+        }
+        notifyEndOfTask();
+    }
+
+    /**
+     * Notify the listener of the end of the task
+     */
+    private void notifyEndOfTask() {
+        if (mCallback == null) {
+            return;
+        }
+        try {
+            mCallback.endOfOptionsRequestTask(mContact, mStatusCode, mRetryAfter);
+        } catch (RuntimeException e) {
+            /*
+             * Normally we are not allowed to catch runtime exceptions as these are genuine bugs
+             * which should be handled/fixed within the code. However the cases when we are
+             * executing operations on a thread unhandling such exceptions will eventually lead to
+             * exit the system and thus can bring the whole system down, which is not intended.
+             */
+            sLogger.error("Failed to notify end of options request for contact : " + mContact, e);
         }
     }
 
     /**
      * Send an OPTIONS request
      * 
+     * @return True if the OPTIONS has been sent
      * @throws PayloadException
-     * @throws ContactManagerException
      * @throws NetworkException
      */
-    private void sendOptions() throws PayloadException, NetworkException, ContactManagerException {
+    private boolean sendOptions() throws PayloadException, NetworkException {
         if (sLogger.isActivated()) {
             sLogger.info("Send an options request to ".concat(mContact.toString()));
         }
@@ -146,7 +196,7 @@ public class OptionsRequestTask implements Runnable {
             if (sLogger.isActivated()) {
                 sLogger.debug("IMS not registered, do nothing");
             }
-            return;
+            return false;
         }
         // @FIXME: This should be an URI instead of String
         String contactUri = PhoneUtils.formatContactIdToUri(mContact).toString();
@@ -160,33 +210,48 @@ public class OptionsRequestTask implements Runnable {
         }
         SipRequest options = SipMessageFactory.createOptions(mDialogPath, mFeatureTags);
 
-        sendAndWaitOptions(options);
+        sendOptions(options);
+        return true;
     }
 
     /**
-     * Sends OPTIONS message and waits for response
+     * Sends OPTIONS message without waiting for the response: the response is handled by
+     * {@link #handleTransactionCompleted(SipTransactionContext)}
      * 
      * @param options SIP OPTIONS
      * @throws PayloadException
      * @throws NetworkException
+     */
+    private void sendOptions(SipRequest options) throws PayloadException, NetworkException {
+        if (sLogger.isActivated()) {
+            sLogger.info("Send OPTIONS");
+        }
+        mImsModule.getSipManager().sendSipMessageAsync(options, this);
+    }
+
+    /**
+     * Handle the response of an OPTIONS
+     * 
+     * @param ctx SIP transaction context
+     * @return True if a new OPTIONS has been sent
+     * @throws PayloadException
+     * @throws NetworkException
      * @throws ContactManagerException
      */
-    private void sendAndWaitOptions(SipRequest options) throws PayloadException, NetworkException,
-            ContactManagerException {
+    private boolean handleOptionsResponse(SipTransactionContext ctx) throws PayloadException,
+            NetworkException, ContactManagerException {
         try {
-            if (sLogger.isActivated()) {
-                sLogger.info("Send OPTIONS");
-            }
-            SipTransactionContext ctx = mImsModule.getSipManager().sendSipMessageAndWait(options);
             final int statusCode = ctx.getStatusCode();
             if (ctx.isSipResponse()) {
+                mStatusCode = statusCode;
+                mRetryAfter = getRetryAfter(ctx.getSipResponse());
                 switch (statusCode) {
                     case Response.OK:
                         handle200OK(ctx);
                         break;
                     case Response.PROXY_AUTHENTICATION_REQUIRED:
                         handle407Authentication(ctx);
-                        break;
+                        return true;
                     case Response.REQUEST_TIMEOUT:
                         /* Intentional fall through */
                     case Response.TEMPORARILY_UNAVAILABLE:
@@ -208,11 +273,28 @@ public class OptionsRequestTask implements Runnable {
                 handleError(new CapabilityError(CapabilityError.OPTIONS_FAILED,
                         String.valueOf(statusCode) + ' ' + ctx.getReasonPhrase()));
             }
+            return false;
+
         } catch (FileAccessException e) {
             throw new PayloadException("Failed to send OPTIONS!", e);
         }
     }
 
+    /**
+     * Returns the Retry-After duration of a response
+     *
+     * @param resp SIP response
+     * @return Duration in milliseconds or 0 if the response has no Retry-After header
+     */
+    private static long getRetryAfter(SipResponse resp) {
+        RetryAfterHeader retryHeader = (RetryAfterHeader) resp.getStackMessage().getHeader(
+                RetryAfterHeader.NAME);
+        if (retryHeader == null) {
+            return 0;
+        }
+        return Math.max(0, retryHeader.getRetryAfter()) * SECONDS_TO_MILLISECONDS_CONVERSION_RATE;
+    }
+
     /**
      * Handle user not registered
      * 
@@ -308,10 +390,9 @@ public class OptionsRequestTask implements Runnable {
      * @param ctx SIP transaction context
      * @throws PayloadException
      * @throws NetworkException
-     * @throws ContactManagerException
      */
     private void handle407Authentication(SipTransactionContext ctx) throws PayloadException,
-            NetworkException, ContactManagerException {
+            NetworkException {
         try {
             if (sLogger.isActivated()) {
                 sLogger.info("407 response received");
@@ -331,7 +412,7 @@ public class OptionsRequestTask implements Runnable {
 
             mAuthenticationAgent.setProxyAuthorizationHeader(options);
 
-            sendAndWaitOptions(options);
+            sendOptions(options);
         } catch (InvalidArgumentException | ParseException e) {
             throw new PayloadException("Failed to handle 407 authentication response!", e);
 
@@ -379,7 +460,10 @@ public class OptionsRequestTask implements Runnable {
          * Callback to notify end of options request task
          * 
          * @param contact ID
+         * @param statusCode Status code of the response or
+         *            {@link CapabilityDiscoveryScheduler#NO_RESPONSE}
+         * @param retryAfter Retry-After duration of the response in milliseconds or 0
          */
-        void endOfOptionsRequestTask(ContactId contact);
+        void endOfOptionsRequestTask(ContactId contact, int statusCode, long retryAfter);
     }
 }
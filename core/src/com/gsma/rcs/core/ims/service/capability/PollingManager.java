@@ -24,6 +24,7 @@ package com.gsma.rcs.core.ims.service.capability;
 
 import com.gsma.rcs.core.ims.network.NetworkException;
 import com.gsma.rcs.core.ims.protocol.PayloadException;
+import com.gsma.rcs.core.ims.service.capability.CapabilityDiscoveryScheduler.Priority;
 import com.gsma.rcs.provider.contact.ContactManager;
 import com.gsma.rcs.provider.contact.ContactManagerException;
 import com.gsma.rcs.provider.settings.RcsSettings;
@@ -129,7 +130,7 @@ public class PollingManager extends PeriodicRefresher {
             }
 
             // New contact: request capabilities from the network
-            mImsService.getOptionsManager().requestCapabilities(contact);
+            mImsService.getOptionsManager().requestCapabilities(contact, Priority.BACKGROUND);
             return;
 
         }
@@ -145,7 +146,7 @@ public class PollingManager extends PeriodicRefresher {
                 mImsService.getAnonymousFetchManager().requestCapabilities(contact);
             } else {
                 // The contact only supports OPTIONS requests
-                mImsService.getOptionsManager().requestCapabilities(contact);
+                mImsService.getOptionsManager().requestCapabilities(contact, Priority.BACKGROUND);
             }
         } else {
             if (locActivated) {
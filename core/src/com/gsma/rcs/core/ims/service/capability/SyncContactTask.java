@@ -26,6 +26,7 @@ import com.gsma.rcs.addressbook.AddressBookManager;
 import com.gsma.rcs.core.FileAccessException;
 import com.gsma.rcs.core.ims.ImsModule;
 import com.gsma.rcs.core.ims.service.ContactInfo;
+import com.gsma.rcs.core.ims.service.capability.CapabilityDiscoveryScheduler.Priority;
 import com.gsma.rcs.core.ims.service.capability.OptionsManager.IOptionsManagerListener;
 import com.gsma.rcs.provider.contact.ContactManager;
 import com.gsma.rcs.provider.contact.ContactManagerException;
@@ -37,9 +38,13 @@ import java.util.HashSet;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
- * A task to request options to new contacts.
+ * A task to request options to new contacts.<br>
+ * The task does not wait for the responses: once all the contacts of a pass have been queried, it
+ * is executed again by its executor to query the contacts added meanwhile.
  */
 public class SyncContactTask implements Runnable {
 
@@ -55,6 +60,13 @@ public class SyncContactTask implements Runnable {
 
     private final ISyncContactTaskListener mSyncContactTaskListener;
 
+    private final Executor mExecutor;
+
+    /**
+     * Contacts already queried by the previous passes
+     */
+    private final Set<ContactId> mTreatedContacts = new HashSet<ContactId>();
+
     private static final int MAX_CONTACTS_TO_DISPLAY = 10;
 
     private final static Logger sLogger = Logger.getLogger(SyncContactTask.class.getSimpleName());
@@ -68,11 +80,12 @@ public class SyncContactTask implements Runnable {
      * @param addressBookManager Address book manager instance
      * @param pollingManager Polling manager instance
      * @param optionsManager Options manager instance
+     * @param executor Executor of the task
      */
     public SyncContactTask(ISyncContactTaskListener syncContactTaskListener,
             AddressBookEventListener addressBookEventListener, ContactManager contactManager,
             AddressBookManager addressBookManager, PollingManager pollingManager,
-            OptionsManager optionsManager) {
+            OptionsManager optionsManager, Executor executor) {
         super();
         mSyncContactTaskListener = syncContactTaskListener;
         mAddressBookEventListener = addressBookEventListener;
@@ -80,6 +93,7 @@ public class SyncContactTask implements Runnable {
         mAddressBookManager = addressBookManager;
         mPollingManager = pollingManager;
         mOptionsManager = optionsManager;
+        mExecutor = executor;
     }
 
     @Override
@@ -90,47 +104,42 @@ public class SyncContactTask implements Runnable {
 
             mPollingManager.stop();
 
-            final Set<ContactId> treatedContacts = new HashSet<ContactId>();
-            do {
-                final Set<ContactId> unqueriedContacts = aggregateNewContactsAndGetUnqueriedOnes();
-                unqueriedContacts.removeAll(treatedContacts);
-                if (unqueriedContacts.isEmpty()) {
-                    /*
-                     * All contacts are synchronized.
-                     */
-                    mSyncContactTaskListener.endOfSyncContactTask();
-                    return;
-                }
+            final Set<ContactId> unqueriedContacts = aggregateNewContactsAndGetUnqueriedOnes();
+            unqueriedContacts.removeAll(mTreatedContacts);
+            if (unqueriedContacts.isEmpty()) {
+                /*
+                 * All contacts are synchronized.
+                 */
+                mSyncContactTaskListener.endOfSyncContactTask();
+                return;
+            }
 
-                if (sLogger.isActivated()) {
-                    int nbOfContactsToQuery = unqueriedContacts.size();
-                    if (nbOfContactsToQuery > MAX_CONTACTS_TO_DISPLAY) {
-                        sLogger.debug("Synchronize capabilities for " + nbOfContactsToQuery
-                                + " contacts");
-                    } else {
-                        sLogger.debug("Synchronize capabilities for contacts ".concat(Arrays
-                                .toString(unqueriedContacts.toArray())));
-                    }
+            if (sLogger.isActivated()) {
+                int nbOfContactsToQuery = unqueriedContacts.size();
+                if (nbOfContactsToQuery > MAX_CONTACTS_TO_DISPLAY) {
+                    sLogger.debug("Synchronize capabilities for " + nbOfContactsToQuery
+                            + " contacts");
+                } else {
+                    sLogger.debug("Synchronize capabilities for contacts ".concat(Arrays
+                            .toString(unqueriedContacts.toArray())));
                 }
-                mOptionsManager.requestCapabilities(unqueriedContacts,
-                        new IOptionsManagerListener() {
-
-                            @Override
-                            public void endOfCapabilitiesRequest() {
-                                synchronized (unqueriedContacts) {
-                                    unqueriedContacts.notify();
+            }
+            mTreatedContacts.addAll(unqueriedContacts);
+            mOptionsManager.requestCapabilities(unqueriedContacts, Priority.STALE,
+                    new IOptionsManagerListener() {
+
+                        @Override
+                        public void endOfCapabilitiesRequest() {
+                            /* Next pass */
+                            try {
+                                mExecutor.execute(SyncContactTask.this);
+                            } catch (RejectedExecutionException e) {
+                                if (sLogger.isActivated()) {
+                                    sLogger.debug("Contact synchronization is stopped");
                                 }
                             }
-                        });
-                synchronized (unqueriedContacts) {
-                    try {
-                        unqueriedContacts.wait();
-                        treatedContacts.addAll(unqueriedContacts);
-                    } catch (InterruptedException e) {
-                        return;
-                    }
-                }
-            } while (true);
+                        }
+                    });
         } catch (ContactManagerException e) {
             sLogger.error("Failed to synchronize contacts!", e);
         } catch (FileAccessException e) {
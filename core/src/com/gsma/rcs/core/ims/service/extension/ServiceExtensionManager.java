@@ -23,6 +23,9 @@ import com.gsma.rcs.core.ims.ImsModule;
 import com.gsma.rcs.core.ims.service.capability.ExternalCapabilityMonitoring;
 import com.gsma.rcs.provider.settings.RcsSettings;
 import com.gsma.rcs.utils.logger.Logger;
+import com.gsma.rcs.utils.scheduler.SerialExecutor;
+import com.gsma.rcs.utils.scheduler.TaskScheduler;
+import com.gsma.rcs.utils.scheduler.TaskScheduler.Pool;
 
 import android.content.Context;
 import android.content.Intent;
@@ -31,8 +34,6 @@ import android.text.TextUtils;
 
 import java.util.HashSet;
 import java.util.Set;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 /**
  * Service extension manager which adds supported extension after having verified some authorization
@@ -56,7 +57,7 @@ public class ServiceExtensionManager {
 
     private ExternalCapabilityMonitoring mExternalCapabilityMonitoring;
 
-    private ExecutorService mUpdateExecutor;
+    private SerialExecutor mUpdateExecutor;
 
     private final SupportedExtensionUpdater mSupportedExtensionUpdater;
 
@@ -81,7 +82,7 @@ public class ServiceExtensionManager {
      * Starts extension manager
      */
     public void start() {
-        mUpdateExecutor = Executors.newSingleThreadExecutor();
+        mUpdateExecutor = TaskScheduler.getInstance().createSerialExecutor(Pool.IO);
         updateSupportedExtensions();
         if (mExternalCapabilityMonitoring == null) {
             IntentFilter filter = new IntentFilter(Intent.ACTION_PACKAGE_ADDED);
@@ -343,7 +343,6 @@ public class InstantMessagingService extends ImsService {
         setServiceStarted(false);
 
         mImdnManager.terminate();
-        mImdnManager.interrupt();
 
         if (ImsServiceSession.TerminationReason.TERMINATION_BY_SYSTEM == reasonCode) {
             mImOperationHandler.getLooper().quit();
@@ -41,6 +41,8 @@ import com.gsma.rcs.core.ims.service.ImsSessionListener;
 import com.gsma.rcs.core.ims.service.SessionActivityManager;
 import com.gsma.rcs.core.ims.service.capability.Capabilities.CapabilitiesBuilder;
 import com.gsma.rcs.core.ims.service.im.InstantMessagingService;
+import com.gsma.rcs.core.ims.service.im.chat.cpim.CpimEncoder;
+import com.gsma.rcs.core.ims.service.im.chat.cpim.CpimMessage;
 import com.gsma.rcs.core.ims.service.im.chat.imdn.ImdnDocument;
 import com.gsma.rcs.core.ims.service.im.chat.imdn.ImdnManager;
 import com.gsma.rcs.core.ims.service.im.chat.iscomposing.IsComposingManager;
@@ -419,6 +421,11 @@ public abstract class ChatSession extends ImsServiceSession implements MsrpEvent
         // Not used by chat
     }
 
+    @Override
+    public void msrpFileSavingFailed(FileAccessException e) {
+        // Not used by chat
+    }
+
     /**
      * Receive is composing event
      *
@@ -622,6 +629,20 @@ public abstract class ChatSession extends ImsServiceSession implements MsrpEvent
         mMsrpMgr.sendChunks(stream, msgId, mime, bytes.length, typeMsrpChunk);
     }
 
+    /**
+     * Send a CPIM message, the encoded content being read straight into the MSRP chunks
+     *
+     * @param msgId Message ID
+     * @param cpim CPIM encoder
+     * @param typeMsrpChunk Type of MSRP chunk
+     * @throws NetworkException
+     */
+    public void sendCpimChunks(String msgId, CpimEncoder cpim, TypeMsrpChunk typeMsrpChunk)
+            throws NetworkException {
+        mMsrpMgr.sendChunks(cpim.getInputStream(), msgId, CpimMessage.MIME_TYPE,
+                cpim.getLength(), typeMsrpChunk);
+    }
+
     /**
      * Is group chat
      *
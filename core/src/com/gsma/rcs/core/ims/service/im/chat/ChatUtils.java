@@ -32,6 +32,7 @@ import com.gsma.rcs.core.ims.network.sip.Multipart;
 import com.gsma.rcs.core.ims.network.sip.SipUtils;
 import com.gsma.rcs.core.ims.protocol.PayloadException;
 import com.gsma.rcs.core.ims.protocol.sip.SipRequest;
+import com.gsma.rcs.core.ims.service.im.chat.cpim.CpimEncoder;
 import com.gsma.rcs.core.ims.service.im.chat.cpim.CpimMessage;
 import com.gsma.rcs.core.ims.service.im.chat.cpim.CpimParser;
 import com.gsma.rcs.core.ims.service.im.chat.geoloc.GeolocInfoDocument;
@@ -402,6 +403,25 @@ public class ChatUtils {
         return addUriDelimiters(PhoneUtils.formatContactIdToUri(contact).toString());
     }
 
+    /**
+     * Create a CPIM message encoder
+     * 
+     * @param from From
+     * @param to To
+     * @param content Content
+     * @param contentType Content type
+     * @param timestampSent Timestamp sent in payload for CPIM DateTimes
+     * @return CPIM encoder
+     */
+    public static CpimEncoder createCpimMessage(String from, String to, String content,
+            String contentType, long timestampSent) {
+        return new CpimEncoder().addHeader(CpimMessage.HEADER_FROM, formatCpimSipUri(from))
+                .addHeader(CpimMessage.HEADER_TO, formatCpimSipUri(to))
+                .addHeader(CpimMessage.HEADER_DATETIME, DateUtils.encodeDate(timestampSent))
+                .addContentHeader(CpimMessage.HEADER_CONTENT_TYPE,
+                        contentType + ";charset=" + UTF8_STR).setContent(content.getBytes(UTF8));
+    }
+
     /**
      * Build a CPIM message
      * 
@@ -414,11 +434,40 @@ public class ChatUtils {
      */
     public static String buildCpimMessage(String from, String to, String content,
             String contentType, long timestampSent) {
-        return CpimMessage.HEADER_FROM + ": " + formatCpimSipUri(from) + CRLF
-                + CpimMessage.HEADER_TO + ": " + formatCpimSipUri(to) + CRLF
-                + CpimMessage.HEADER_DATETIME + ": " + DateUtils.encodeDate(timestampSent) + CRLF
-                + CRLF + CpimMessage.HEADER_CONTENT_TYPE + ": " + contentType + ";charset="
-                + UTF8_STR + CRLF + CRLF + content;
+        return createCpimMessage(from, to, content, contentType, timestampSent).toString();
+    }
+
+    private static CpimEncoder createCpimMessageWithImdn(String from, String to,
+            String messageId, String content, String contentType, long timestampSent,
+            String dispositionNotification) {
+        byte[] data = content.getBytes(UTF8);
+        return new CpimEncoder().addHeader(CpimMessage.HEADER_FROM, formatCpimSipUri(from))
+                .addHeader(CpimMessage.HEADER_TO, formatCpimSipUri(to))
+                .addHeader(CpimMessage.HEADER_NS, ImdnDocument.IMDN_NAMESPACE)
+                .addHeader(ImdnUtils.HEADER_IMDN_MSG_ID, messageId)
+                .addHeader(CpimMessage.HEADER_DATETIME, DateUtils.encodeDate(timestampSent))
+                .addHeader(ImdnUtils.HEADER_IMDN_DISPO_NOTIF, dispositionNotification)
+                .addContentHeader(CpimMessage.HEADER_CONTENT_TYPE,
+                        contentType + ";charset=" + UTF8_STR)
+                .addContentHeader(CpimMessage.HEADER_CONTENT_LENGTH, data.length)
+                .setContent(data);
+    }
+
+    /**
+     * Create a CPIM message encoder with full IMDN headers
+     * 
+     * @param from From URI
+     * @param to To URI
+     * @param messageId Message ID
+     * @param content Content
+     * @param contentType Content type
+     * @param timestampSent Timestamp sent in payload for CPIM DateTime
+     * @return CPIM encoder
+     */
+    public static CpimEncoder createCpimMessageWithImdn(String from, String to, String messageId,
+            String content, String contentType, long timestampSent) {
+        return createCpimMessageWithImdn(from, to, messageId, content, contentType,
+                timestampSent, ImdnDocument.POSITIVE_DELIVERY + ", " + ImdnDocument.DISPLAY);
     }
 
     /**
@@ -434,15 +483,25 @@ public class ChatUtils {
      */
     public static String buildCpimMessageWithImdn(String from, String to, String messageId,
             String content, String contentType, long timestampSent) {
-        return CpimMessage.HEADER_FROM + ": " + formatCpimSipUri(from) + CRLF
-                + CpimMessage.HEADER_TO + ": " + formatCpimSipUri(to) + CRLF
-                + CpimMessage.HEADER_NS + ": " + ImdnDocument.IMDN_NAMESPACE + CRLF
-                + ImdnUtils.HEADER_IMDN_MSG_ID + ": " + messageId + CRLF
-                + CpimMessage.HEADER_DATETIME + ": " + DateUtils.encodeDate(timestampSent) + CRLF
-                + ImdnUtils.HEADER_IMDN_DISPO_NOTIF + ": " + ImdnDocument.POSITIVE_DELIVERY + ", "
-                + ImdnDocument.DISPLAY + CRLF + CRLF + CpimMessage.HEADER_CONTENT_TYPE + ": "
-                + contentType + ";charset=" + UTF8_STR + CRLF + CpimMessage.HEADER_CONTENT_LENGTH
-                + ": " + content.getBytes(UTF8).length + CRLF + CRLF + content;
+        return createCpimMessageWithImdn(from, to, messageId, content, contentType,
+                timestampSent).toString();
+    }
+
+    /**
+     * Create a CPIM message encoder with IMDN delivered header
+     * 
+     * @param from From URI
+     * @param to To URI
+     * @param messageId Message ID
+     * @param content Content
+     * @param contentType Content type
+     * @param timestampSent Timestamp sent in payload for CPIM DateTime
+     * @return CPIM encoder
+     */
+    public static CpimEncoder createCpimMessageWithoutDisplayedImdn(String from, String to,
+            String messageId, String content, String contentType, long timestampSent) {
+        return createCpimMessageWithImdn(from, to, messageId, content, contentType,
+                timestampSent, ImdnDocument.POSITIVE_DELIVERY);
     }
 
     /**
@@ -458,15 +517,32 @@ public class ChatUtils {
      */
     public static String buildCpimMessageWithoutDisplayedImdn(String from, String to,
             String messageId, String content, String contentType, long timestampSent) {
-        return CpimMessage.HEADER_FROM + ": " + formatCpimSipUri(from) + CRLF
-                + CpimMessage.HEADER_TO + ": " + formatCpimSipUri(to) + CRLF
-                + CpimMessage.HEADER_NS + ": " + ImdnDocument.IMDN_NAMESPACE + CRLF
-                + ImdnUtils.HEADER_IMDN_MSG_ID + ": " + messageId + CRLF
-                + CpimMessage.HEADER_DATETIME + ": " + DateUtils.encodeDate(timestampSent) + CRLF
-                + ImdnUtils.HEADER_IMDN_DISPO_NOTIF + ": " + ImdnDocument.POSITIVE_DELIVERY + CRLF
-                + CRLF + CpimMessage.HEADER_CONTENT_TYPE + ": " + contentType + ";charset="
-                + UTF8_STR + CRLF + CpimMessage.HEADER_CONTENT_LENGTH + ": "
-                + content.getBytes(UTF8).length + CRLF + CRLF + content;
+        return createCpimMessageWithoutDisplayedImdn(from, to, messageId, content, contentType,
+                timestampSent).toString();
+    }
+
+    /**
+     * Create a CPIM delivery report encoder
+     * 
+     * @param from From
+     * @param to To
+     * @param imdn IMDN report
+     * @param timestampSent Timestamp sent in payload for CPIM DateTime
+     * @return CPIM encoder
+     */
+    public static CpimEncoder createCpimDeliveryReport(String from, String to, String imdn,
+            long timestampSent) {
+        byte[] data = imdn.getBytes(UTF8);
+        return new CpimEncoder().addHeader(CpimMessage.HEADER_FROM, formatCpimSipUri(from))
+                .addHeader(CpimMessage.HEADER_TO, formatCpimSipUri(to))
+                .addHeader(CpimMessage.HEADER_NS, ImdnDocument.IMDN_NAMESPACE)
+                .addHeader(ImdnUtils.HEADER_IMDN_MSG_ID, IdGenerator.generateMessageID())
+                .addHeader(CpimMessage.HEADER_DATETIME, DateUtils.encodeDate(timestampSent))
+                .addContentHeader(CpimMessage.HEADER_CONTENT_TYPE, ImdnDocument.MIME_TYPE)
+                .addContentHeader(CpimMessage.HEADER_CONTENT_DISPOSITION,
+                        ImdnDocument.NOTIFICATION)
+                .addContentHeader(CpimMessage.HEADER_CONTENT_LENGTH, data.length)
+                .setContent(data);
     }
 
     /**
@@ -480,15 +556,7 @@ public class ChatUtils {
      */
     public static String buildCpimDeliveryReport(String from, String to, String imdn,
             long timestampSent) {
-        return CpimMessage.HEADER_FROM + ": " + formatCpimSipUri(from) + CRLF
-                + CpimMessage.HEADER_TO + ": " + formatCpimSipUri(to) + CRLF
-                + CpimMessage.HEADER_NS + ": " + ImdnDocument.IMDN_NAMESPACE + CRLF
-                + ImdnUtils.HEADER_IMDN_MSG_ID + ": " + IdGenerator.generateMessageID() + CRLF
-                + CpimMessage.HEADER_DATETIME + ": " + DateUtils.encodeDate(timestampSent) + CRLF
-                + CRLF + CpimMessage.HEADER_CONTENT_TYPE + ": " + ImdnDocument.MIME_TYPE + CRLF
-                + CpimMessage.HEADER_CONTENT_DISPOSITION + ": " + ImdnDocument.NOTIFICATION + CRLF
-                + CpimMessage.HEADER_CONTENT_LENGTH + ": " + imdn.getBytes(UTF8).length + CRLF
-                + CRLF + imdn;
+        return createCpimDeliveryReport(from, to, imdn, timestampSent).toString();
     }
 
     /**
@@ -37,6 +37,7 @@ import com.gsma.rcs.core.ims.service.ImsServiceError;
 import com.gsma.rcs.core.ims.service.ImsSessionListener;
 import com.gsma.rcs.core.ims.service.SessionAuthenticationAgent;
 import com.gsma.rcs.core.ims.service.im.InstantMessagingService;
+import com.gsma.rcs.core.ims.service.im.chat.cpim.CpimEncoder;
 import com.gsma.rcs.core.ims.service.im.chat.cpim.CpimIdentity;
 import com.gsma.rcs.core.ims.service.im.chat.cpim.CpimMessage;
 import com.gsma.rcs.core.ims.service.im.chat.cpim.CpimParser;
@@ -333,29 +334,27 @@ public abstract class GroupChatSession extends ChatSession {
         String networkMimeType = ChatUtils.apiMimeTypeToNetworkMimeType(mimeType);
         long timestampSent = msg.getTimestampSent();
         String networkContent = msg.getContent();
-        String data;
+        CpimEncoder data;
         if (MimeType.GEOLOC_MESSAGE.equals(mimeType)) {
             networkContent = ChatUtils.persistedGeolocContentToNetworkGeolocContent(networkContent,
                     msgId, timestampSent);
         }
         if (mImdnManager.isRequestGroupDeliveryDisplayedReportsEnabled()) {
-            data = ChatUtils.buildCpimMessageWithImdn(from, to, msgId, networkContent,
+            data = ChatUtils.createCpimMessageWithImdn(from, to, msgId, networkContent,
                     networkMimeType, timestampSent);
 
         } else if (mImdnManager.isDeliveryDeliveredReportsEnabled()) {
-            data = ChatUtils.buildCpimMessageWithoutDisplayedImdn(from, to, msgId, networkContent,
-                    networkMimeType, timestampSent);
+            data = ChatUtils.createCpimMessageWithoutDisplayedImdn(from, to, msgId,
+                    networkContent, networkMimeType, timestampSent);
 
         } else {
-            data = ChatUtils.buildCpimMessage(from, to, networkContent, networkMimeType,
+            data = ChatUtils.createCpimMessage(from, to, networkContent, networkMimeType,
                     timestampSent);
         }
         if (ChatUtils.isGeolocType(networkMimeType)) {
-            sendDataChunks(IdGenerator.generateMessageID(), data, CpimMessage.MIME_TYPE,
-                    TypeMsrpChunk.GeoLocation);
+            sendCpimChunks(IdGenerator.generateMessageID(), data, TypeMsrpChunk.GeoLocation);
         } else {
-            sendDataChunks(IdGenerator.generateMessageID(), data, CpimMessage.MIME_TYPE,
-                    TypeMsrpChunk.TextMessage);
+            sendCpimChunks(IdGenerator.generateMessageID(), data, TypeMsrpChunk.TextMessage);
         }
         for (ImsSessionListener listener : getListeners()) {
             ((ChatSessionListener) listener).onMessageSent(msgId, mimeType);
@@ -367,10 +366,10 @@ public abstract class GroupChatSession extends ChatSession {
         String from = ImsModule.getImsUserProfile().getPublicUri();
         String to = ChatUtils.ANONYMOUS_URI;
         String msgId = IdGenerator.generateMessageID();
-        String content = ChatUtils.buildCpimMessage(from, to,
+        CpimEncoder content = ChatUtils.createCpimMessage(from, to,
                 IsComposingInfo.buildIsComposingInfo(status), IsComposingInfo.MIME_TYPE,
                 System.currentTimeMillis());
-        sendDataChunks(msgId, content, CpimMessage.MIME_TYPE, TypeMsrpChunk.IsComposing);
+        sendCpimChunks(msgId, content, TypeMsrpChunk.IsComposing);
     }
 
     @Override
@@ -384,8 +383,8 @@ public abstract class GroupChatSession extends ChatSession {
         /* Timestamp for IMDN datetime */
         String imdn = ChatUtils.buildImdnDeliveryReport(msgId, status, timestamp);
         /* Timestamp for CPIM DateTime */
-        String content = ChatUtils.buildCpimDeliveryReport(fromUri, remote.toString(), imdn,
-                System.currentTimeMillis());
+        CpimEncoder content = ChatUtils.createCpimDeliveryReport(fromUri, remote.toString(),
+                imdn, System.currentTimeMillis());
 
         TypeMsrpChunk typeMsrpChunk = TypeMsrpChunk.OtherMessageDeliveredReportStatus;
         if (ImdnDocument.DeliveryStatus.DISPLAYED == status) {
@@ -393,8 +392,7 @@ public abstract class GroupChatSession extends ChatSession {
         } else if (ImdnDocument.DeliveryStatus.DELIVERED == status) {
             typeMsrpChunk = TypeMsrpChunk.MessageDeliveredReport;
         }
-        sendDataChunks(IdGenerator.generateMessageID(), content, CpimMessage.MIME_TYPE,
-                typeMsrpChunk);
+        sendCpimChunks(IdGenerator.generateMessageID(), content, typeMsrpChunk);
         if (ImdnDocument.DeliveryStatus.DISPLAYED == status) {
             if (mMessagingLog.getMessageChatId(msgId) != null) {
                 for (ImsSessionListener listener : getListeners()) {
@@ -418,26 +416,26 @@ public abstract class GroupChatSession extends ChatSession {
             String fileInfo, boolean displayedReportEnabled, boolean deliveredReportEnabled)
             throws NetworkException {
         String from = ImsModule.getImsUserProfile().getPublicAddress();
-        String networkContent;
+        CpimEncoder networkContent;
         long timestamp = System.currentTimeMillis();
         /* For outgoing file transfer, timestampSent = timestamp */
         long timestampSent = timestamp;
         mMessagingLog.setFileTransferTimestamps(fileTransferId, timestamp, timestampSent);
         if (displayedReportEnabled) {
             networkContent = ChatUtils
-                    .buildCpimMessageWithImdn(from, ChatUtils.ANONYMOUS_URI, fileTransferId,
+                    .createCpimMessageWithImdn(from, ChatUtils.ANONYMOUS_URI, fileTransferId,
                             fileInfo, FileTransferHttpInfoDocument.MIME_TYPE, timestampSent);
 
         } else if (deliveredReportEnabled) {
-            networkContent = ChatUtils.buildCpimMessageWithoutDisplayedImdn(from,
+            networkContent = ChatUtils.createCpimMessageWithoutDisplayedImdn(from,
                     ChatUtils.ANONYMOUS_URI, fileTransferId, fileInfo,
                     FileTransferHttpInfoDocument.MIME_TYPE, timestampSent);
 
         } else {
-            networkContent = ChatUtils.buildCpimMessage(from, ChatUtils.ANONYMOUS_URI, fileInfo,
-                    FileTransferHttpInfoDocument.MIME_TYPE, timestampSent);
+            networkContent = ChatUtils.createCpimMessage(from, ChatUtils.ANONYMOUS_URI,
+                    fileInfo, FileTransferHttpInfoDocument.MIME_TYPE, timestampSent);
         }
-        sendDataChunks(IdGenerator.generateMessageID(), networkContent, CpimMessage.MIME_TYPE,
+        sendCpimChunks(IdGenerator.generateMessageID(), networkContent,
                 TypeMsrpChunk.HttpFileSharing);
         fileTransfer.onFileInfoDequeued();
     }
@@ -664,7 +662,7 @@ public abstract class GroupChatSession extends ChatSession {
             // File transfer over HTTP message
             // Parse HTTP document
             FileTransferHttpInfoDocument fileInfo = FileTransferUtils
-                    .parseFileTransferHttpDocument(cpimMsg.getMessageContent().getBytes(UTF8),
+                    .parseFileTransferHttpDocument(cpimMsg.getMessageContentBytes(),
                             mRcsSettings);
             if (fileInfo != null) {
                 receiveHttpFileTransfer(remoteId, pseudo, fileInfo, cpimMsgId, timestamp,
@@ -681,7 +679,7 @@ public abstract class GroupChatSession extends ChatSession {
             } else {
                 if (ChatUtils.isApplicationIsComposingType(contentType)) {
                     // Is composing event
-                    receiveIsComposing(remoteId, cpimMsg.getMessageContent().getBytes(UTF8));
+                    receiveIsComposing(remoteId, cpimMsg.getMessageContentBytes());
 
                 } else {
                     if (ChatUtils.isMessageImdnType(contentType)) {
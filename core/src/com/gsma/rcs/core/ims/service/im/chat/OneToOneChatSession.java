@@ -35,6 +35,7 @@ import com.gsma.rcs.core.ims.protocol.sip.SipResponse;
 import com.gsma.rcs.core.ims.service.ImsServiceError;
 import com.gsma.rcs.core.ims.service.ImsSessionListener;
 import com.gsma.rcs.core.ims.service.im.InstantMessagingService;
+import com.gsma.rcs.core.ims.service.im.chat.cpim.CpimEncoder;
 import com.gsma.rcs.core.ims.service.im.chat.cpim.CpimMessage;
 import com.gsma.rcs.core.ims.service.im.chat.cpim.CpimParser;
 import com.gsma.rcs.core.ims.service.im.chat.geoloc.GeolocInfoDocument;
@@ -138,27 +139,25 @@ public abstract class OneToOneChatSession extends ChatSession {
         String networkMimeType = ChatUtils.apiMimeTypeToNetworkMimeType(mimeType);
         long timestampSent = msg.getTimestampSent();
         String networkContent = msg.getContent();
-        String data;
+        CpimEncoder data;
         if (MimeType.GEOLOC_MESSAGE.equals(mimeType)) {
             networkContent = ChatUtils.persistedGeolocContentToNetworkGeolocContent(networkContent,
                     msgId, timestampSent);
         }
         if (mImdnManager.isRequestOneToOneDeliveryDisplayedReportsEnabled()) {
-            data = ChatUtils.buildCpimMessageWithImdn(from, to, msgId, networkContent,
+            data = ChatUtils.createCpimMessageWithImdn(from, to, msgId, networkContent,
                     networkMimeType, timestampSent);
         } else if (mImdnManager.isDeliveryDeliveredReportsEnabled()) {
-            data = ChatUtils.buildCpimMessageWithoutDisplayedImdn(from, to, msgId, networkContent,
-                    networkMimeType, timestampSent);
+            data = ChatUtils.createCpimMessageWithoutDisplayedImdn(from, to, msgId,
+                    networkContent, networkMimeType, timestampSent);
         } else {
-            data = ChatUtils.buildCpimMessage(from, to, networkContent, networkMimeType,
+            data = ChatUtils.createCpimMessage(from, to, networkContent, networkMimeType,
                     timestampSent);
         }
         if (ChatUtils.isGeolocType(networkMimeType)) {
-            sendDataChunks(IdGenerator.generateMessageID(), data, CpimMessage.MIME_TYPE,
-                    TypeMsrpChunk.GeoLocation);
+            sendCpimChunks(IdGenerator.generateMessageID(), data, TypeMsrpChunk.GeoLocation);
         } else {
-            sendDataChunks(IdGenerator.generateMessageID(), data, CpimMessage.MIME_TYPE,
-                    TypeMsrpChunk.TextMessage);
+            sendCpimChunks(IdGenerator.generateMessageID(), data, TypeMsrpChunk.TextMessage);
         }
         for (ImsSessionListener listener : getListeners()) {
             ((ChatSessionListener) listener).onMessageSent(msgId, mimeType);
@@ -178,25 +177,25 @@ public abstract class OneToOneChatSession extends ChatSession {
     public void sendFileInfo(OneToOneFileTransferImpl fileTransfer, String fileTransferId,
             String fileInfo, boolean displayedReportEnabled, boolean deliveredReportEnabled)
             throws NetworkException {
-        String networkContent;
+        CpimEncoder networkContent;
         long timestamp = System.currentTimeMillis();
         /* For outgoing file transfer, timestampSent = timestamp */
         long timestampSent = timestamp;
         mMessagingLog.setFileTransferTimestamps(fileTransferId, timestamp, timestampSent);
         if (displayedReportEnabled) {
-            networkContent = ChatUtils.buildCpimMessageWithImdn(ChatUtils.ANONYMOUS_URI,
+            networkContent = ChatUtils.createCpimMessageWithImdn(ChatUtils.ANONYMOUS_URI,
                     ChatUtils.ANONYMOUS_URI, fileTransferId, fileInfo,
                     FileTransferHttpInfoDocument.MIME_TYPE, timestampSent);
         } else if (deliveredReportEnabled) {
-            networkContent = ChatUtils.buildCpimMessageWithoutDisplayedImdn(
+            networkContent = ChatUtils.createCpimMessageWithoutDisplayedImdn(
                     ChatUtils.ANONYMOUS_URI, ChatUtils.ANONYMOUS_URI, fileTransferId, fileInfo,
                     FileTransferHttpInfoDocument.MIME_TYPE, timestampSent);
         } else {
-            networkContent = ChatUtils.buildCpimMessage(ChatUtils.ANONYMOUS_URI,
+            networkContent = ChatUtils.createCpimMessage(ChatUtils.ANONYMOUS_URI,
                     ChatUtils.ANONYMOUS_URI, fileInfo, FileTransferHttpInfoDocument.MIME_TYPE,
                     timestampSent);
         }
-        sendDataChunks(IdGenerator.generateMessageID(), networkContent, CpimMessage.MIME_TYPE,
+        sendCpimChunks(IdGenerator.generateMessageID(), networkContent,
                 MsrpSession.TypeMsrpChunk.HttpFileSharing);
         fileTransfer.onFileInfoDequeued(getRemoteContact());
     }
@@ -226,7 +225,7 @@ public abstract class OneToOneChatSession extends ChatSession {
         /* Timestamp fo IMDN datetime */
         String imdn = ChatUtils.buildImdnDeliveryReport(msgId, status, timestamp);
         /* Timestamp for CPIM DateTime */
-        String content = ChatUtils.buildCpimDeliveryReport(fromUri, toUri, imdn,
+        CpimEncoder content = ChatUtils.createCpimDeliveryReport(fromUri, toUri, imdn,
                 System.currentTimeMillis());
 
         TypeMsrpChunk typeMsrpChunk = TypeMsrpChunk.OtherMessageDeliveredReportStatus;
@@ -237,8 +236,7 @@ public abstract class OneToOneChatSession extends ChatSession {
                 typeMsrpChunk = TypeMsrpChunk.MessageDeliveredReport;
             }
         }
-        sendDataChunks(IdGenerator.generateMessageID(), content, CpimMessage.MIME_TYPE,
-                typeMsrpChunk);
+        sendCpimChunks(IdGenerator.generateMessageID(), content, typeMsrpChunk);
         if (ImdnDocument.DeliveryStatus.DISPLAYED == status) {
             if (mMessagingLog.isMessagePersisted(msgId)) {
                 for (ImsSessionListener listener : getListeners()) {
@@ -463,7 +461,7 @@ public abstract class OneToOneChatSession extends ChatSession {
                 if (isFToHTTP) {
                     FileTransferHttpInfoDocument fileInfo = FileTransferUtils
                             .parseFileTransferHttpDocument(
-                                    cpimMsg.getMessageContent().getBytes(UTF8), mRcsSettings);
+                                    cpimMsg.getMessageContentBytes(), mRcsSettings);
                     if (fileInfo != null) {
                         receiveHttpFileTransfer(contact, getRemoteDisplayName(), fileInfo,
                                 cpimMsgId, timestamp, timestampSent);
@@ -482,7 +480,7 @@ public abstract class OneToOneChatSession extends ChatSession {
                                 cpimMsgId, timestamp);
 
                     } else if (ChatUtils.isApplicationIsComposingType(contentType)) {
-                        receiveIsComposing(contact, cpimMsg.getMessageContent().getBytes(UTF8));
+                        receiveIsComposing(contact, cpimMsg.getMessageContentBytes());
 
                     } else if (ChatUtils.isMessageImdnType(contentType)) {
                         onDeliveryStatusReceived(contact, cpimMsg.getMessageContent());
@@ -0,0 +1,197 @@
+/*******************************************************************************
+ * Software Name : RCS IMS Stack
+ *
+ * Copyright (C) 2010-2016 Orange.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+
+package com.gsma.rcs.core.ims.service.im.chat.cpim;
+
+import static com.gsma.rcs.utils.StringUtils.UTF8;
+
+import java.io.InputStream;
+
+/**
+ * CPIM message encoder.<br>
+ * Headers are encoded once into a small buffer while the content is kept as given, so that the
+ * MSRP session reads it straight into its chunk buffers without building an intermediate copy of
+ * the whole message.
+ * 
+ * @author jexa7410
+ */
+public class CpimEncoder {
+    private static final String CRLF = "\r\n";
+
+    private static final byte[] NO_CONTENT = new byte[0];
+
+    private final StringBuilder mHeaders = new StringBuilder();
+
+    private final StringBuilder mContentHeaders = new StringBuilder();
+
+    private byte[] mContent = NO_CONTENT;
+
+    /**
+     * Encoded headers, content headers and blank lines
+     */
+    private byte[] mEncodedHeaders;
+
+    /**
+     * Add a message header
+     * 
+     * @param name Header name
+     * @param value Header value
+     * @return This encoder
+     */
+    public CpimEncoder addHeader(String name, Object value) {
+        mHeaders.append(name).append(": ").append(value).append(CRLF);
+        mEncodedHeaders = null;
+        return this;
+    }
+
+    /**
+     * Add a content header
+     * 
+     * @param name Header name
+     * @param value Header value
+     * @return This encoder
+     */
+    public CpimEncoder addContentHeader(String name, Object value) {
+        mContentHeaders.append(name).append(": ").append(value).append(CRLF);
+        mEncodedHeaders = null;
+        return this;
+    }
+
+    /**
+     * Set the encoded content, which is not copied
+     * 
+     * @param content Content
+     * @return This encoder
+     */
+    public CpimEncoder setContent(byte[] content) {
+        mContent = content;
+        return this;
+    }
+
+    /**
+     * Returns the encoded content
+     * 
+     * @return Content
+     */
+    public byte[] getContent() {
+        return mContent;
+    }
+
+    private byte[] getEncodedHeaders() {
+        if (mEncodedHeaders == null) {
+            mEncodedHeaders = new StringBuilder(mHeaders.length() + mContentHeaders.length() + 4)
+                    .append(mHeaders).append(CRLF).append(mContentHeaders).append(CRLF)
+                    .toString().getBytes(UTF8);
+        }
+        return mEncodedHeaders;
+    }
+
+    /**
+     * Returns the length of the encoded message
+     * 
+     * @return Length in bytes
+     */
+    public int getLength() {
+        return getEncodedHeaders().length + mContent.length;
+    }
+
+    /**
+     * Returns a stream reading the encoded message. Each read fills the given buffer across the
+     * headers and the content, so that a short message still fits in a single MSRP chunk.
+     * 
+     * @return Input stream
+     */
+    public InputStream getInputStream() {
+        return new CpimInputStream(getEncodedHeaders(), mContent);
+    }
+
+    /**
+     * Returns the encoded message
+     * 
+     * @return Encoded message
+     */
+    public byte[] toByteArray() {
+        byte[] headers = getEncodedHeaders();
+        byte[] message = new byte[headers.length + mContent.length];
+        System.arraycopy(headers, 0, message, 0, headers.length);
+        System.arraycopy(mContent, 0, message, headers.length, mContent.length);
+        return message;
+    }
+
+    @Override
+    public String toString() {
+        return new String(toByteArray(), UTF8);
+    }
+
+    /**
+     * Stream reading the encoded headers then the content
+     */
+    private static class CpimInputStream extends InputStream {
+        private final byte[] mHead;
+
+        private final byte[] mTail;
+
+        private int mPosition = 0;
+
+        public CpimInputStream(byte[] head, byte[] tail) {
+            mHead = head;
+            mTail = tail;
+        }
+
+        @Override
+        public int read() {
+            int position = mPosition;
+            if (position < mHead.length) {
+                mPosition++;
+                return mHead[position] & 0xff;
+            }
+            position -= mHead.length;
+            if (position < mTail.length) {
+                mPosition++;
+                return mTail[position] & 0xff;
+            }
+            return -1;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) {
+            int remaining = mHead.length + mTail.length - mPosition;
+            if (remaining <= 0) {
+                return -1;
+            }
+            int count = Math.min(length, remaining);
+            int copied = 0;
+            if (mPosition < mHead.length) {
+                copied = Math.min(count, mHead.length - mPosition);
+                System.arraycopy(mHead, mPosition, buffer, offset, copied);
+            }
+            if (copied < count) {
+                System.arraycopy(mTail, mPosition + copied - mHead.length, buffer, offset + copied,
+                        count - copied);
+            }
+            mPosition += count;
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return mHead.length + mTail.length - mPosition;
+        }
+    }
+}
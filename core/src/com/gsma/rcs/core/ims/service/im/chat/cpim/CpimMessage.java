@@ -18,9 +18,12 @@
 
 package com.gsma.rcs.core.ims.service.im.chat.cpim;
 
+import static com.gsma.rcs.utils.StringUtils.UTF8;
+
 import com.gsma.rcs.utils.DateUtils;
 
-import java.util.Hashtable;
+import java.util.Arrays;
+import java.util.Map;
 
 /**
  * CPIM message
@@ -70,19 +73,28 @@ public class CpimMessage {
     public static final String HEADER_CONTENT_DISPOSITION = "Content-Disposition";
 
     /**
-     * Message content
+     * Message content, decoded on first access
      */
-    private final String mMsgContent;
+    private String mMsgContent;
+
+    /**
+     * Data holding the encoded message content
+     */
+    private final byte[] mData;
+
+    private final int mContentOffset;
+
+    private final int mContentLength;
 
     /**
      * MIME headers
      */
-    private final Hashtable<String, String> mHeaders;
+    private final Map<String, String> mHeaders;
 
     /**
      * MIME content headers
      */
-    private final Hashtable<String, String> mContentHeaders;
+    private final Map<String, String> mContentHeaders;
 
     /**
      * Constructor
@@ -91,11 +103,33 @@ public class CpimMessage {
      * @param contentHeaders MIME content headers
      * @param msgContent Content
      */
-    public CpimMessage(Hashtable<String, String> headers, Hashtable<String, String> contentHeaders,
+    public CpimMessage(Map<String, String> headers, Map<String, String> contentHeaders,
             String msgContent) {
+        this(headers, contentHeaders, msgContent.getBytes(UTF8));
+        mMsgContent = msgContent;
+    }
+
+    private CpimMessage(Map<String, String> headers, Map<String, String> contentHeaders,
+            byte[] content) {
+        this(headers, contentHeaders, content, 0, content.length);
+    }
+
+    /**
+     * Constructor
+     * 
+     * @param headers MIME headers
+     * @param contentHeaders MIME content headers
+     * @param data Data holding the encoded content, not copied
+     * @param contentOffset Offset of the content in the data
+     * @param contentLength Length of the content
+     */
+    public CpimMessage(Map<String, String> headers, Map<String, String> contentHeaders,
+            byte[] data, int contentOffset, int contentLength) {
         mHeaders = headers;
         mContentHeaders = contentHeaders;
-        mMsgContent = msgContent;
+        mData = data;
+        mContentOffset = contentOffset;
+        mContentLength = contentLength;
     }
 
     /**
@@ -132,14 +166,53 @@ public class CpimMessage {
     }
 
     /**
-     * Returns message content
+     * Returns message content decoded as UTF-8 text
      * 
      * @return Content
      */
     public String getMessageContent() {
+        if (mMsgContent == null) {
+            mMsgContent = new String(mData, mContentOffset, mContentLength, UTF8);
+        }
         return mMsgContent;
     }
 
+    /**
+     * Returns a copy of the encoded message content
+     * 
+     * @return Content
+     */
+    public byte[] getMessageContentBytes() {
+        return Arrays.copyOfRange(mData, mContentOffset, mContentOffset + mContentLength);
+    }
+
+    /**
+     * Returns the data holding the encoded message content, which must not be modified
+     * 
+     * @return Data
+     */
+    public byte[] getData() {
+        return mData;
+    }
+
+    /**
+     * Returns the offset of the encoded message content in the data
+     * 
+     * @return Offset
+     */
+    public int getContentOffset() {
+        return mContentOffset;
+    }
+
+    /**
+     * Returns the length of the encoded message content
+     * 
+     * @return Length in bytes
+     */
+    public int getContentLength() {
+        return mContentLength;
+    }
+
     /**
      * Returns message timestamp sent
      * 
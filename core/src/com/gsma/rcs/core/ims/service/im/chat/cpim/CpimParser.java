@@ -24,24 +24,23 @@ package com.gsma.rcs.core.ims.service.im.chat.cpim;
 
 import static com.gsma.rcs.utils.StringUtils.UTF8;
 
-import java.util.Hashtable;
-import java.util.StringTokenizer;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
- * CPIM parser (see RFC3862)
+ * CPIM parser (see RFC3862).<br>
+ * Headers are parsed by scanning the bytes of the payload for line and block boundaries, and only
+ * the header names and values are decoded. The content is not copied: the message gives a view on
+ * it and decodes it to a string only when asked.
  * 
  * @author jexa7410
  */
 public class CpimParser {
-    /**
-     * CRLF constant
-     */
-    private static final String CRLF = "\r\n";
+    private static final byte CR = '\r';
 
-    /**
-     * Double CRLF constant
-     */
-    private static final String DOUBLE_CRLF = CRLF + CRLF;
+    private static final byte LF = '\n';
+
+    private static final byte COLON = ':';
 
     private CpimMessage mMessage;
 
@@ -51,7 +50,18 @@ public class CpimParser {
      * @param data Input data
      */
     public CpimParser(byte data[]) {
-        parse(new String(data, UTF8));
+        this(data, 0, data.length);
+    }
+
+    /**
+     * Constructor
+     * 
+     * @param data Input data
+     * @param offset Offset of the CPIM document in the data
+     * @param length Length of the CPIM document
+     */
+    public CpimParser(byte data[], int offset, int length) {
+        parse(data, offset, offset + length);
     }
 
     /**
@@ -60,7 +70,7 @@ public class CpimParser {
      * @param data Input data
      */
     public CpimParser(String data) {
-        parse(data);
+        this(data.getBytes(UTF8));
     }
 
     /***
@@ -76,8 +86,10 @@ public class CpimParser {
      * Parse message/CPIM document
      * 
      * @param data Input data
+     * @param begin Index of the first byte of the document
+     * @param end Index following the last byte of the document
      */
-    private void parse(String data) {
+    private void parse(byte[] data, int begin, int end) {
         /*
          * CPIM sample: From: MR SANDERS <im:piglet@100akerwood.com> To: Depressed Donkey
          * <im:eeyore@100akerwood.com> DateTime: 2000-12-13T13:40:00-08:00 Subject: the weather will
@@ -85,30 +97,64 @@ public class CpimParser {
          * of my message.
          */
         /* Read message headers */
-        int begin = 0;
-        int end = data.indexOf(DOUBLE_CRLF, begin);
-        String block2 = data.substring(begin, end);
-        StringTokenizer lines = new StringTokenizer(block2, CRLF);
-        Hashtable<String, String> headers = new Hashtable<>();
-        while (lines.hasMoreTokens()) {
-            String token = lines.nextToken();
-            CpimHeader hd = CpimHeader.parseHeader(token);
-            headers.put(hd.getName(), hd.getValue());
-        }
+        int headersEnd = indexOfDoubleCrlf(data, begin, end);
+        Map<String, String> headers = parseHeaders(data, begin, headersEnd);
         /* Read the MIME-encapsulated content header */
-        begin = end + 4;
-        end = data.indexOf(DOUBLE_CRLF, begin);
-        String block3 = data.substring(begin, end);
-        lines = new StringTokenizer(block3, CRLF);
-        Hashtable<String, String> contentHeaders = new Hashtable<>();
-        while (lines.hasMoreTokens()) {
-            String token = lines.nextToken();
-            CpimHeader hd = CpimHeader.parseHeader(token);
-            contentHeaders.put(hd.getName(), hd.getValue());
+        begin = headersEnd + 4;
+        int contentHeadersEnd = indexOfDoubleCrlf(data, begin, end);
+        Map<String, String> contentHeaders = parseHeaders(data, begin, contentHeadersEnd);
+        /* Message content is a view on the input data */
+        begin = contentHeadersEnd + 4;
+        mMessage = new CpimMessage(headers, contentHeaders, data, begin, end - begin);
+    }
+
+    /**
+     * Returns the index of the next CRLFCRLF sequence
+     */
+    private static int indexOfDoubleCrlf(byte[] data, int begin, int end) {
+        for (int i = begin; i + 3 < end; i++) {
+            if (data[i] == CR && data[i + 1] == LF && data[i + 2] == CR && data[i + 3] == LF) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Invalid CPIM document: missing header block end!");
+    }
+
+    /**
+     * Parse a block of header lines. Lines are delimited by any CR or LF character, empty lines
+     * and lines without a colon are ignored.
+     */
+    private static Map<String, String> parseHeaders(byte[] data, int begin, int end) {
+        Map<String, String> headers = new HashMap<>();
+        int lineBegin = begin;
+        while (lineBegin < end) {
+            int lineEnd = lineBegin;
+            int colon = -1;
+            while (lineEnd < end && data[lineEnd] != CR && data[lineEnd] != LF) {
+                if (colon == -1 && data[lineEnd] == COLON) {
+                    colon = lineEnd;
+                }
+                lineEnd++;
+            }
+            if (colon != -1) {
+                headers.put(decodeTrimmed(data, lineBegin, colon),
+                        decodeTrimmed(data, colon + 1, lineEnd));
+            }
+            lineBegin = lineEnd + 1;
+        }
+        return headers;
+    }
+
+    /**
+     * Decode a range of bytes without its leading and trailing white spaces
+     */
+    private static String decodeTrimmed(byte[] data, int begin, int end) {
+        while (begin < end && (data[begin] & 0xff) <= ' ') {
+            begin++;
+        }
+        while (end > begin && (data[end - 1] & 0xff) <= ' ') {
+            end--;
         }
-        /* Read the message content */
-        begin = end + 4;
-        String content = data.substring(begin);
-        mMessage = new CpimMessage(headers, contentHeaders, content);
+        return new String(data, begin, end - begin, UTF8);
     }
 }
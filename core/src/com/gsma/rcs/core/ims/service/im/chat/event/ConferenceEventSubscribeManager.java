@@ -51,9 +51,6 @@ import com.gsma.services.rcs.chat.ChatLog.Message.GroupChatEvent.Status;
 import com.gsma.services.rcs.chat.GroupChat.ParticipantStatus;
 import com.gsma.services.rcs.contact.ContactId;
 
-import org.xml.sax.InputSource;
-import org.xml.sax.SAXException;
-
 import java.io.ByteArrayInputStream;
 import java.text.ParseException;
 import java.util.Arrays;
@@ -61,8 +58,6 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.Vector;
 
-import javax.xml.parsers.ParserConfigurationException;
-
 import javax2.sip.InvalidArgumentException;
 import javax2.sip.header.ExpiresHeader;
 import javax2.sip.header.SubscriptionStateHeader;
@@ -188,68 +183,64 @@ public class ConferenceEventSubscribeManager extends PeriodicRefresher {
         // Parse XML part
         byte[] content = notify.getContentBytes();
         if (content != null) {
+            ConferenceInfoPullParser confParser = null;
             try {
-                InputSource pidfInput = new InputSource(new ByteArrayInputStream(content));
-                ConferenceInfoParser confParser = new ConferenceInfoParser(pidfInput).parse();
-                ConferenceInfoDocument conference = confParser.getConferenceInfo();
-                if (conference != null) {
-                    int maxParticipants = conference.getMaxUserCount();
-                    if (maxParticipants > 0) {
-                        if (logActivated) {
-                            sLogger.debug("Set max number of participants to " + maxParticipants);
-                        }
-                        mSession.setMaxParticipants(maxParticipants);
+                /* Users are streamed from the document, no intermediate list is built */
+                confParser = new ConferenceInfoPullParser(new ByteArrayInputStream(content));
+                Map<ContactId, ParticipantStatus> participants = new HashMap<>();
+                User user;
+                while ((user = confParser.nextUser()) != null) {
+                    String phonenumber = user.getEntity();
+                    ContactId contact;
+                    PhoneNumber validPhoneNumber = ContactUtil
+                            .getValidPhoneNumberFromUri(phonenumber);
+                    if (validPhoneNumber != null) {
+                        contact = ContactUtil.createContactIdFromValidatedData(validPhoneNumber);
+                    } else {
+                        // Invalid entity
+                        continue;
                     }
 
-                    Map<ContactId, ParticipantStatus> participants = new HashMap<ContactId, ParticipantStatus>();
-                    Vector<User> users = conference.getUsers();
-                    for (User user : users) {
-                        String phonenumber = user.getEntity();
-                        ContactId contact;
-                        PhoneNumber validPhoneNumber = ContactUtil
-                                .getValidPhoneNumberFromUri(phonenumber);
-                        if (validPhoneNumber != null) {
-                            contact = ContactUtil
-                                    .createContactIdFromValidatedData(validPhoneNumber);
-                        } else {
-                            // Invalid entity
-                            continue;
-                        }
-
-                        if (logActivated) {
-                            sLogger.debug("Conference info notification for " + contact);
-                        }
+                    if (logActivated) {
+                        sLogger.debug("Conference info notification for " + contact);
+                    }
 
-                        if (user.isMe()
-                                || contact.equals(ImsModule.getImsUserProfile().getUsername())) {
-                            // By-pass me
-                            continue;
-                        }
+                    if (user.isMe()
+                            || contact.equals(ImsModule.getImsUserProfile().getUsername())) {
+                        // By-pass me
+                        continue;
+                    }
 
-                        if (logActivated) {
-                            sLogger.debug("User conference info: " + user);
-                        }
+                    if (logActivated) {
+                        sLogger.debug("User conference info: " + user);
+                    }
 
-                        /*
-                         * Collect contact updates to be able to apply them in a one-shot operation
-                         * outside the loop.
-                         */
-                        participants.put(contact, getStatus(user));
+                    /*
+                     * Collect contact updates to be able to apply them in a one-shot operation
+                     * outside the loop.
+                     */
+                    participants.put(contact, getStatus(user));
 
-                    }
+                }
 
-                    if (!participants.isEmpty()) {
-                        updateParticipantStatus(participants, timestamp);
+                int maxParticipants = confParser.getMaxUserCount();
+                if (maxParticipants > 0) {
+                    if (logActivated) {
+                        sLogger.debug("Set max number of participants to " + maxParticipants);
                     }
+                    mSession.setMaxParticipants(maxParticipants);
                 }
-            } catch (ParserConfigurationException e) {
-                throw new PayloadException("Can't parse XML notification", e);
-
-            } catch (SAXException e) {
-                throw new PayloadException("Can't parse XML notification", e);
 
+                if (!participants.isEmpty()) {
+                    updateParticipantStatus(participants, timestamp);
+                }
             } catch (ParseFailureException e) {
                 throw new PayloadException("Can't parse XML notification", e);
+
+            } finally {
+                if (confParser != null) {
+                    confParser.close();
+                }
             }
         }
 
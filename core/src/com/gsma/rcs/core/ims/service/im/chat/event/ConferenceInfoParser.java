@@ -23,6 +23,7 @@
 package com.gsma.rcs.core.ims.service.im.chat.event;
 
 import com.gsma.rcs.core.ParseFailureException;
+import com.gsma.rcs.utils.XmlParserPool;
 import com.gsma.rcs.utils.logger.Logger;
 
 import org.xml.sax.Attributes;
@@ -33,8 +34,6 @@ import org.xml.sax.helpers.DefaultHandler;
 import java.io.IOException;
 
 import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.parsers.SAXParser;
-import javax.xml.parsers.SAXParserFactory;
 
 /**
  * Conference-Info parser
@@ -68,7 +67,7 @@ public class ConferenceInfoParser extends DefaultHandler {
      * </user> </users> </conference-info>
      */
 
-    private StringBuffer mAccumulator;
+    private final StringBuilder mAccumulator = new StringBuilder();
 
     private ConferenceInfoDocument mConference;
 
@@ -108,9 +107,7 @@ public class ConferenceInfoParser extends DefaultHandler {
     public ConferenceInfoParser parse() throws ParserConfigurationException, SAXException,
             ParseFailureException {
         try {
-            SAXParserFactory factory = SAXParserFactory.newInstance();
-            SAXParser parser = factory.newSAXParser();
-            parser.parse(mInputSource, this);
+            XmlParserPool.parse(mInputSource, this);
             return this;
 
         } catch (IOException e) {
@@ -124,7 +121,8 @@ public class ConferenceInfoParser extends DefaultHandler {
 
     @Override
     public void startDocument() {
-        mAccumulator = new StringBuffer();
+        mAccumulator.setLength(0);
+        mConference = null;
     }
 
     @Override
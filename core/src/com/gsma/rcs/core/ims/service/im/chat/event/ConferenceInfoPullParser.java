@@ -0,0 +1,182 @@
+/*******************************************************************************
+ * Software Name : RCS IMS Stack
+ *
+ * Copyright (C) 2010-2016 Orange.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+
+package com.gsma.rcs.core.ims.service.im.chat.event;
+
+import com.gsma.rcs.core.ParseFailureException;
+import com.gsma.rcs.utils.XmlParserPool;
+
+import org.xmlpull.v1.XmlPullParser;
+import org.xmlpull.v1.XmlPullParserException;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Streaming Conference-Info parser.<br>
+ * The document is read with a pull parser and users are returned one by one as soon as their
+ * element ends, so that the notification of a large group is processed without building a
+ * document holding all the participants. Users are decoded as by ConferenceInfoParser.
+ *
+ * @author jexa7410
+ */
+public class ConferenceInfoPullParser {
+
+    private XmlPullParser mParser;
+
+    private final StringBuilder mAccumulator = new StringBuilder();
+
+    private boolean mConferenceInfo = false;
+
+    private int mMaxUserCount;
+
+    private String mEntity;
+
+    private boolean mMe;
+
+    private String mStatus;
+
+    private String mDisplayName;
+
+    private String mDisconnectionMethod;
+
+    private String mFailureReason;
+
+    /**
+     * Constructor
+     *
+     * @param input Input stream of the document
+     * @throws ParseFailureException
+     */
+    public ConferenceInfoPullParser(InputStream input) throws ParseFailureException {
+        try {
+            mParser = XmlParserPool.obtainPullParser(true);
+            mParser.setInput(input, null);
+
+        } catch (XmlPullParserException e) {
+            close();
+            throw new ParseFailureException("Failed to parse conference info!", e);
+        }
+    }
+
+    /**
+     * Parse the document up to the end of the next user
+     *
+     * @return User or null if the end of the document has been reached
+     * @throws ParseFailureException
+     */
+    public User nextUser() throws ParseFailureException {
+        if (mParser == null) {
+            return null;
+        }
+        try {
+            while (true) {
+                switch (mParser.next()) {
+                    case XmlPullParser.START_TAG:
+                        startElement(mParser.getName());
+                        break;
+
+                    case XmlPullParser.TEXT:
+                        mAccumulator.append(mParser.getText());
+                        break;
+
+                    case XmlPullParser.END_TAG:
+                        if (mConferenceInfo && "user".equals(mParser.getName())) {
+                            return new User(mEntity, mMe, mStatus, mDisplayName,
+                                    mDisconnectionMethod, mFailureReason);
+                        }
+                        endElement(mParser.getName());
+                        break;
+
+                    case XmlPullParser.END_DOCUMENT:
+                        close();
+                        return null;
+
+                    default:
+                        break;
+                }
+            }
+        } catch (XmlPullParserException | IOException | NumberFormatException e) {
+            close();
+            throw new ParseFailureException("Failed to parse conference info!", e);
+        }
+    }
+
+    /**
+     * Returns the maximum number of users of the conference
+     *
+     * @return Maximum number of users, or 0 if not yet parsed
+     */
+    public int getMaxUserCount() {
+        return mMaxUserCount;
+    }
+
+    /**
+     * Release the parser, must be called if the document is not parsed up to its end
+     */
+    public void close() {
+        if (mParser != null) {
+            XmlParserPool.recyclePullParser(mParser);
+            mParser = null;
+        }
+    }
+
+    private void startElement(String name) throws XmlPullParserException {
+        mAccumulator.setLength(0);
+        if ("conference-info".equals(name)) {
+            mConferenceInfo = true;
+
+        } else if ("user".equals(name)) {
+            String entity = mParser.getAttributeValue(null, "entity");
+            if (entity == null) {
+                throw new XmlPullParserException("User without entity!", mParser, null);
+            }
+            mEntity = entity.trim();
+            mMe = Boolean.parseBoolean(mParser.getAttributeValue(null, "yourown"));
+            mStatus = null;
+            mDisplayName = null;
+            mDisconnectionMethod = null;
+            mFailureReason = null;
+        }
+    }
+
+    private void endElement(String name) {
+        switch (name) {
+            case "display-text":
+                mDisplayName = mAccumulator.toString().trim();
+                break;
+            case "status":
+                mStatus = mAccumulator.toString().trim();
+                break;
+            case "maximum-user-count":
+                if (mConferenceInfo) {
+                    mMaxUserCount = Integer.parseInt(mAccumulator.toString().trim());
+                }
+                break;
+            case "disconnection-method":
+                mDisconnectionMethod = mAccumulator.toString().trim();
+                break;
+            case "reason":
+                mFailureReason = mAccumulator.toString().trim();
+                break;
+            default:
+                break;
+        }
+    }
+}
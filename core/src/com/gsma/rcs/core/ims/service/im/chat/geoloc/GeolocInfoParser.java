@@ -24,6 +24,7 @@ package com.gsma.rcs.core.ims.service.im.chat.geoloc;
 
 import com.gsma.rcs.core.ParseFailureException;
 import com.gsma.rcs.utils.DateUtils;
+import com.gsma.rcs.utils.XmlParserPool;
 import com.gsma.rcs.utils.logger.Logger;
 
 import org.xml.sax.Attributes;
@@ -35,8 +36,6 @@ import java.io.IOException;
 import java.util.StringTokenizer;
 
 import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.parsers.SAXParser;
-import javax.xml.parsers.SAXParserFactory;
 
 /**
  * Geolocation info parser
@@ -86,9 +85,7 @@ public class GeolocInfoParser extends DefaultHandler {
     public GeolocInfoParser parse() throws ParserConfigurationException, SAXException,
             ParseFailureException {
         try {
-            SAXParserFactory factory = SAXParserFactory.newInstance();
-            SAXParser parser = factory.newSAXParser();
-            parser.parse(mInputSource, this);
+            XmlParserPool.parse(mInputSource, this);
             return this;
 
         } catch (IOException e) {
@@ -32,34 +32,51 @@ import com.gsma.rcs.core.ims.protocol.PayloadException;
 import com.gsma.rcs.core.ims.protocol.sip.SipDialogPath;
 import com.gsma.rcs.core.ims.protocol.sip.SipRequest;
 import com.gsma.rcs.core.ims.protocol.sip.SipTransactionContext;
+import com.gsma.rcs.core.ims.protocol.sip.SipTransactionContext.INotifySipTransactionCompletion;
 import com.gsma.rcs.core.ims.service.SessionAuthenticationAgent;
 import com.gsma.rcs.core.ims.service.im.InstantMessagingService;
 import com.gsma.rcs.core.ims.service.im.chat.ChatUtils;
 import com.gsma.rcs.core.ims.service.im.chat.cpim.CpimMessage;
 import com.gsma.rcs.provider.messaging.MessagingLog;
 import com.gsma.rcs.provider.settings.RcsSettings;
-import com.gsma.rcs.utils.FifoBuffer;
 import com.gsma.rcs.utils.PhoneUtils;
 import com.gsma.rcs.utils.logger.Logger;
+import com.gsma.rcs.utils.queue.MpmcRingBufferQueue;
+import com.gsma.rcs.utils.queue.OverflowPolicy;
+import com.gsma.rcs.utils.scheduler.QueueConsumer;
+import com.gsma.rcs.utils.scheduler.TaskScheduler;
+import com.gsma.rcs.utils.scheduler.TaskScheduler.Pool;
 import com.gsma.services.rcs.chat.ChatLog;
 import com.gsma.services.rcs.contact.ContactId;
 
 import java.text.ParseException;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax2.sip.InvalidArgumentException;
 import javax2.sip.message.Response;
 
 /**
- * IMDN manager (see RFC5438)
+ * IMDN manager (see RFC5438). Queued delivery reports are sent by a task of the IO pool. A report
+ * is never dropped: the caller waits while too many reports are pending.
  * 
  * @author jexa7410
  */
-public class ImdnManager extends Thread {
+public class ImdnManager extends QueueConsumer<ImdnManager.DeliveryStatus> {
 
     private final InstantMessagingService mImService;
     private final MessagingLog mMessagingLog;
-    private FifoBuffer mBuffer = new FifoBuffer();
+    private static final int MAX_PENDING_DELIVERY_STATUS = 1024;
     private final RcsSettings mRcsSettings;
+
+    /**
+     * IDs of the messages whose DISPLAYED report is being sent: a report for the same message
+     * queued again before the first one is acknowledged is not sent twice
+     */
+    private final Set<String> mDisplayReportsInFlight = Collections
+            .newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
     private final static Logger sLogger = Logger.getLogger(ImdnManager.class.getSimpleName());
 
     /**
@@ -71,6 +88,8 @@ public class ImdnManager extends Thread {
      */
     public ImdnManager(InstantMessagingService imService, RcsSettings rcsSettings,
             MessagingLog messagingLog) {
+        super(new MpmcRingBufferQueue<DeliveryStatus>(MAX_PENDING_DELIVERY_STATUS,
+                OverflowPolicy.BLOCK), TaskScheduler.getInstance().getExecutor(Pool.IO));
         mImService = imService;
         mRcsSettings = rcsSettings;
         mMessagingLog = messagingLog;
@@ -83,7 +102,7 @@ public class ImdnManager extends Thread {
         if (sLogger.isActivated()) {
             sLogger.info("Terminate the IMDN manager");
         }
-        mBuffer.close();
+        close();
     }
 
     /**
@@ -126,49 +145,56 @@ public class ImdnManager extends Thread {
     }
 
     @Override
-    public void run() {
-        DeliveryStatus delivery;
-        while ((delivery = (DeliveryStatus) mBuffer.getObject()) != null) {
-            try {
-                boolean imdnDisplay = ImdnDocument.DeliveryStatus.DISPLAYED == delivery.getStatus();
-                String msgId = delivery.getMsgId();
-                if (imdnDisplay) {
-                    /*
-                     * Display notification are processed asynchronously from the server API.
-                     * Therefore the IMDN message may have already been processed. Here we need to
-                     * check if the Display Report is still requested.
-                     */
-                    ChatLog.Message.Content.Status status = mMessagingLog.getMessageStatus(msgId);
-                    if (ChatLog.Message.Content.Status.DISPLAY_REPORT_REQUESTED != status) {
-                        if (sLogger.isActivated()) {
-                            sLogger.debug("Display report for ID: " + msgId + " already processed!");
-                        }
-                        continue;
-                    }
-                }
-                sendSipMessageDeliveryStatus(delivery, null); // TODO: add sip.instance
+    protected void consume(DeliveryStatus delivery) {
+        try {
+            boolean imdnDisplay = ImdnDocument.DeliveryStatus.DISPLAYED == delivery.getStatus();
+            String msgId = delivery.getMsgId();
+            if (imdnDisplay) {
                 /*
-                 * Update rich messaging history when sending DISPLAYED report Since the requested
-                 * display report was now successfully send we mark this message as fully received
+                 * Display notification are processed asynchronously from the server API. Therefore
+                 * the IMDN message may have already been processed. Here we need to check if the
+                 * Display Report is still requested.
                  */
+                ChatLog.Message.Content.Status status = mMessagingLog.getMessageStatus(msgId);
+                if (ChatLog.Message.Content.Status.DISPLAY_REPORT_REQUESTED != status) {
+                    if (sLogger.isActivated()) {
+                        sLogger.debug("Display report for ID: " + msgId + " already processed!");
+                    }
+                    return;
+                }
+                if (!mDisplayReportsInFlight.add(msgId)) {
+                    if (sLogger.isActivated()) {
+                        sLogger.debug("Display report for ID: " + msgId + " already being sent!");
+                    }
+                    return;
+                }
+            }
+            /*
+             * Send the report without waiting for the response. As with the former blocking
+             * send, the rich messaging history is only updated once the report is acknowledged
+             * by a 200 OK or a 202 Accepted: on failure or timeout the message stays in
+             * DISPLAY_REPORT_REQUESTED state.
+             */
+            try {
+                sendSipMessageDeliveryStatusAsync(delivery, null); // TODO: add sip.instance
+            } catch (PayloadException | NetworkException | RuntimeException e) {
                 if (imdnDisplay) {
-                    mImService.onChatMessageDisplayReportSent(delivery.getChatId(),
-                            delivery.getRemote(), msgId);
+                    mDisplayReportsInFlight.remove(msgId);
                 }
-            } catch (PayloadException | RuntimeException e) {
-                sLogger.error("Failed to send delivery status for chatId: " + delivery.getChatId(),
-                        e);
+                throw e;
+            }
+        } catch (PayloadException | RuntimeException e) {
+            sLogger.error("Failed to send delivery status for chatId: " + delivery.getChatId(), e);
 
-            } catch (NetworkException e) {
-                if (sLogger.isActivated()) {
-                    sLogger.debug(e.getMessage());
-                }
+        } catch (NetworkException e) {
+            if (sLogger.isActivated()) {
+                sLogger.debug(e.getMessage());
             }
         }
     }
 
     /**
-     * Send a message delivery status
+     * Send a message delivery status, waiting while too many reports are pending
      * 
      * @param chatId ChatId
      * @param remote the remote contact
@@ -180,7 +206,10 @@ public class ImdnManager extends Thread {
             ImdnDocument.DeliveryStatus status, long timestamp) {
         // Add request in the buffer for background processing
         DeliveryStatus delivery = new DeliveryStatus(chatId, remote, msgId, status, timestamp);
-        mBuffer.addObject(delivery);
+        if (!offer(delivery)) {
+            sLogger.warn("IMDN manager is terminated, drop report " + status + " for msgId "
+                    + msgId);
+        }
     }
 
     /**
@@ -204,28 +233,14 @@ public class ImdnManager extends Thread {
     }
 
     private void analyzeSipResponse(SipTransactionContext ctx,
-            SessionAuthenticationAgent authenticationAgent, SipDialogPath dialogPath, String cpim)
-            throws NetworkException, PayloadException, InvalidArgumentException, ParseException {
+            DeliveryStatusTransaction transaction) throws NetworkException, PayloadException,
+            InvalidArgumentException, ParseException {
         int statusCode = ctx.getStatusCode();
         switch (statusCode) {
             case Response.PROXY_AUTHENTICATION_REQUIRED:
-                if (sLogger.isActivated()) {
-                    sLogger.info("407 response received");
-                }
-                /* Set the Proxy-Authorization header */
-                authenticationAgent.readProxyAuthenticateHeader(ctx.getSipResponse());
-                /* Increment the Cseq number of the dialog path */
-                dialogPath.incrementCseq();
-                /* Create a second MESSAGE request with the right token */
-                if (sLogger.isActivated()) {
-                    sLogger.info("Send second MESSAGE");
-                }
-                SipRequest msg = SipMessageFactory.createMessage(dialogPath,
-                        FeatureTags.FEATURE_OMA_IM, CpimMessage.MIME_TYPE, cpim.getBytes(UTF8));
-                /* Set the Authorization header */
-                authenticationAgent.setProxyAuthorizationHeader(msg);
-                ctx = mImService.getImsModule().getSipManager().sendSipMessageAndWait(msg);
-                analyzeSipResponse(ctx, authenticationAgent, dialogPath, cpim);
+                ctx = mImService.getImsModule().getSipManager()
+                        .sendSipMessageAndWait(transaction.createAuthenticatedMessage(ctx));
+                analyzeSipResponse(ctx, transaction);
                 break;
 
             case Response.OK:
@@ -252,6 +267,53 @@ public class ImdnManager extends Thread {
     private void sendSipMessageDeliveryStatus(DeliveryStatus deliveryStatus, String remoteInstanceId)
             throws PayloadException, NetworkException {
         try {
+            DeliveryStatusTransaction transaction = new DeliveryStatusTransaction(deliveryStatus,
+                    remoteInstanceId);
+            // Send MESSAGE request
+            SipTransactionContext ctx = mImService.getImsModule().getSipManager()
+                    .sendSipMessageAndWait(transaction.createMessage());
+            // Analyze received message
+            analyzeSipResponse(ctx, transaction);
+
+        } catch (InvalidArgumentException | ParseException e) {
+            throw new PayloadException("Unable to set authorization header for remoteInstanceId: "
+                    + remoteInstanceId, e);
+        }
+    }
+
+    /**
+     * Send message delivery status via SIP MESSAGE without waiting for the response
+     * 
+     * @param deliveryStatus Delivery status
+     * @param remoteInstanceId Remote SIP instance
+     * @throws PayloadException
+     * @throws NetworkException
+     */
+    private void sendSipMessageDeliveryStatusAsync(DeliveryStatus deliveryStatus,
+            String remoteInstanceId) throws PayloadException, NetworkException {
+        DeliveryStatusTransaction transaction = new DeliveryStatusTransaction(deliveryStatus,
+                remoteInstanceId);
+        mImService.getImsModule().getSipManager()
+                .sendSipMessageAsync(transaction.createMessage(), transaction);
+    }
+
+    /**
+     * SIP MESSAGE transaction of a delivery status
+     */
+    private class DeliveryStatusTransaction implements INotifySipTransactionCompletion {
+        private final DeliveryStatus mDeliveryStatus;
+        private final SessionAuthenticationAgent mAuthenticationAgent;
+        private final SipDialogPath mDialogPath;
+        private final String mCpim;
+
+        /**
+         * Constructor
+         * 
+         * @param deliveryStatus Delivery status
+         * @param remoteInstanceId Remote SIP instance
+         */
+        public DeliveryStatusTransaction(DeliveryStatus deliveryStatus, String remoteInstanceId) {
+            mDeliveryStatus = deliveryStatus;
             if (sLogger.isActivated()) {
                 sLogger.debug("Send delivery status " + deliveryStatus.getStatus()
                         + " for message " + deliveryStatus.getMsgId());
@@ -263,42 +325,124 @@ public class ImdnManager extends Thread {
             String imdn = ChatUtils.buildImdnDeliveryReport(deliveryStatus.getMsgId(),
                     deliveryStatus.getStatus(), deliveryStatus.getTimestamp());
             /* Timestamp for CPIM DateTime */
-            String cpim = ChatUtils.buildCpimDeliveryReport(from, to, imdn,
-                    System.currentTimeMillis());
+            mCpim = ChatUtils.buildCpimDeliveryReport(from, to, imdn, System.currentTimeMillis());
             // Create authentication agent
-            SessionAuthenticationAgent authenticationAgent = new SessionAuthenticationAgent(
-                    mImService.getImsModule());
+            mAuthenticationAgent = new SessionAuthenticationAgent(mImService.getImsModule());
             // @FIXME: This should be an URI instead of String
             String toUri = PhoneUtils.formatContactIdToUri(deliveryStatus.getRemote()).toString();
             // Create a dialog path
-            SipDialogPath dialogPath = new SipDialogPath(mImService.getImsModule().getSipManager()
+            mDialogPath = new SipDialogPath(mImService.getImsModule().getSipManager()
                     .getSipStack(), mImService.getImsModule().getSipManager().getSipStack()
                     .generateCallId(), 1, toUri, ImsModule.getImsUserProfile().getPublicUri(),
                     toUri, mImService.getImsModule().getSipManager().getSipStack()
                             .getServiceRoutePath(), mRcsSettings);
-            dialogPath.setRemoteSipInstance(remoteInstanceId);
-            // Create MESSAGE request
+            mDialogPath.setRemoteSipInstance(remoteInstanceId);
+        }
+
+        /**
+         * Create the first MESSAGE request
+         * 
+         * @return SIP request
+         * @throws PayloadException
+         */
+        public SipRequest createMessage() throws PayloadException {
             if (sLogger.isActivated()) {
                 sLogger.info("Send first MESSAGE");
             }
-            SipRequest msg = SipMessageFactory.createMessage(dialogPath,
-                    FeatureTags.FEATURE_OMA_IM, CpimMessage.MIME_TYPE, cpim.getBytes(UTF8));
-            // Send MESSAGE request
-            SipTransactionContext ctx = mImService.getImsModule().getSipManager()
-                    .sendSipMessageAndWait(msg);
-            // Analyze received message
-            analyzeSipResponse(ctx, authenticationAgent, dialogPath, cpim);
+            return SipMessageFactory.createMessage(mDialogPath, FeatureTags.FEATURE_OMA_IM,
+                    CpimMessage.MIME_TYPE, mCpim.getBytes(UTF8));
+        }
 
-        } catch (InvalidArgumentException | ParseException e) {
-            throw new PayloadException("Unable to set authorization header for remoteInstanceId: "
-                    + remoteInstanceId, e);
+        /**
+         * Create the MESSAGE request sent again with the right token after a 407 response
+         * 
+         * @param ctx Context of the transaction which received the 407 response
+         * @return SIP request
+         * @throws PayloadException
+         * @throws InvalidArgumentException
+         * @throws ParseException
+         */
+        public SipRequest createAuthenticatedMessage(SipTransactionContext ctx)
+                throws PayloadException, InvalidArgumentException, ParseException {
+            if (sLogger.isActivated()) {
+                sLogger.info("407 response received");
+            }
+            /* Set the Proxy-Authorization header */
+            mAuthenticationAgent.readProxyAuthenticateHeader(ctx.getSipResponse());
+            /* Increment the Cseq number of the dialog path */
+            mDialogPath.incrementCseq();
+            /* Create a second MESSAGE request with the right token */
+            if (sLogger.isActivated()) {
+                sLogger.info("Send second MESSAGE");
+            }
+            SipRequest msg = SipMessageFactory.createMessage(mDialogPath,
+                    FeatureTags.FEATURE_OMA_IM, CpimMessage.MIME_TYPE, mCpim.getBytes(UTF8));
+            /* Set the Authorization header */
+            mAuthenticationAgent.setProxyAuthorizationHeader(msg);
+            return msg;
+        }
+
+        @Override
+        public void handleTransactionCompleted(SipTransactionContext ctx) {
+            String msgId = mDeliveryStatus.getMsgId();
+            boolean retried = false;
+            try {
+                int statusCode = ctx.getStatusCode();
+                switch (statusCode) {
+                    case Response.PROXY_AUTHENTICATION_REQUIRED:
+                        mImService.getImsModule().getSipManager()
+                                .sendSipMessageAsync(createAuthenticatedMessage(ctx), this);
+                        retried = true;
+                        break;
+
+                    case Response.OK:
+                    case Response.ACCEPTED:
+                        if (sLogger.isActivated()) {
+                            sLogger.info("20x OK response received");
+                        }
+                        /*
+                         * Update rich messaging history when sending DISPLAYED report Since the
+                         * requested display report was now successfully send we mark this message
+                         * as fully received
+                         */
+                        if (ImdnDocument.DeliveryStatus.DISPLAYED == mDeliveryStatus.getStatus()) {
+                            mImService.onChatMessageDisplayReportSent(mDeliveryStatus.getChatId(),
+                                    mDeliveryStatus.getRemote(), msgId);
+                        }
+                        break;
+
+                    default:
+                        if (sLogger.isActivated()) {
+                            sLogger.debug("Delivery report has failed: " + statusCode
+                                    + " response received");
+                        }
+                        break;
+                }
+            } catch (InvalidArgumentException | ParseException e) {
+                sLogger.error("Unable to set authorization header for delivery status of msgId "
+                        + msgId, e);
+
+            } catch (PayloadException | RuntimeException e) {
+                sLogger.error("Failed to send delivery status for chatId: "
+                        + mDeliveryStatus.getChatId(), e);
+
+            } catch (NetworkException e) {
+                if (sLogger.isActivated()) {
+                    sLogger.debug(e.getMessage());
+                }
+            } finally {
+                if (!retried
+                        && ImdnDocument.DeliveryStatus.DISPLAYED == mDeliveryStatus.getStatus()) {
+                    mDisplayReportsInFlight.remove(msgId);
+                }
+            }
         }
     }
 
     /**
      * Delivery status
      */
-    private static class DeliveryStatus {
+    /* package private */static class DeliveryStatus {
         private final String mChatId;
         private final ContactId mRemote;
         private final String mMsgId;
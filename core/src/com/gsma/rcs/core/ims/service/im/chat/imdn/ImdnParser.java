@@ -24,6 +24,7 @@ package com.gsma.rcs.core.ims.service.im.chat.imdn;
 
 import com.gsma.rcs.core.ParseFailureException;
 import com.gsma.rcs.utils.DateUtils;
+import com.gsma.rcs.utils.XmlParserPool;
 import com.gsma.rcs.utils.logger.Logger;
 
 import org.xml.sax.Attributes;
@@ -35,8 +36,6 @@ import org.xml.sax.helpers.DefaultHandler;
 import java.io.IOException;
 
 import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.parsers.SAXParser;
-import javax.xml.parsers.SAXParserFactory;
 
 /**
  * IMDN parser (RFC5438)
@@ -48,7 +47,7 @@ public class ImdnParser extends DefaultHandler {
      * <datetime>2008-04-04T12:16:49-05:00</datetime> <display-notification> <status> <displayed/>
      * </status> </display-notification> </imdn>
      */
-    private StringBuffer accumulator;
+    private final StringBuilder accumulator = new StringBuilder();
     private String mNotificationType;
     private ImdnDocument.DeliveryStatus mStatus;
     private String mMsgId;
@@ -77,9 +76,7 @@ public class ImdnParser extends DefaultHandler {
     public ImdnParser parse() throws ParserConfigurationException, SAXException,
             ParseFailureException {
         try {
-            SAXParserFactory factory = SAXParserFactory.newInstance();
-            SAXParser parser = factory.newSAXParser();
-            parser.parse(mInputSource, this);
+            XmlParserPool.parse(mInputSource, this);
             return this;
 
         } catch (IOException e) {
@@ -88,7 +85,11 @@ public class ImdnParser extends DefaultHandler {
     }
 
     public void startDocument() {
-        accumulator = new StringBuffer();
+        accumulator.setLength(0);
+        mNotificationType = null;
+        mStatus = null;
+        mMsgId = null;
+        mDateTime = 0;
     }
 
     public void characters(char buffer[], int start, int length) {
@@ -23,6 +23,7 @@
 package com.gsma.rcs.core.ims.service.im.chat.iscomposing;
 
 import com.gsma.rcs.core.ParseFailureException;
+import com.gsma.rcs.utils.XmlParserPool;
 import com.gsma.rcs.utils.logger.Logger;
 
 import org.xml.sax.Attributes;
@@ -34,8 +35,6 @@ import org.xml.sax.helpers.DefaultHandler;
 import java.io.IOException;
 
 import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.parsers.SAXParser;
-import javax.xml.parsers.SAXParserFactory;
 
 /**
  * Is composing event parser (RFC3994)
@@ -59,7 +58,7 @@ public class IsComposingParser extends DefaultHandler {
      */
     private static final long SECONDS_TO_MILLISECONDS_CONVERSION_RATE = 1000;
 
-    private StringBuilder mAccumulator;
+    private final StringBuilder mAccumulator = new StringBuilder();
 
     private IsComposingInfo mComposingInfo;
 
@@ -86,9 +85,7 @@ public class IsComposingParser extends DefaultHandler {
     public IsComposingParser parse() throws ParserConfigurationException, SAXException,
             ParseFailureException {
         try {
-            SAXParserFactory factory = SAXParserFactory.newInstance();
-            SAXParser parser = factory.newSAXParser();
-            parser.parse(mInputSource, this);
+            XmlParserPool.parse(mInputSource, this);
             return this;
 
         } catch (IOException e) {
@@ -97,7 +94,8 @@ public class IsComposingParser extends DefaultHandler {
     }
 
     public void startDocument() {
-        mAccumulator = new StringBuilder();
+        mAccumulator.setLength(0);
+        mComposingInfo = null;
     }
 
     public void characters(char buffer[], int start, int length) {
@@ -23,6 +23,7 @@
 package com.gsma.rcs.core.ims.service.im.chat.resourcelist;
 
 import com.gsma.rcs.core.ParseFailureException;
+import com.gsma.rcs.utils.XmlParserPool;
 import com.gsma.rcs.utils.logger.Logger;
 
 import org.xml.sax.Attributes;
@@ -33,8 +34,6 @@ import org.xml.sax.helpers.DefaultHandler;
 import java.io.IOException;
 
 import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.parsers.SAXParser;
-import javax.xml.parsers.SAXParserFactory;
 
 /**
  * Resource list parser
@@ -51,7 +50,7 @@ public class ResourceListParser extends DefaultHandler {
      * cp:copyControl="bcc" /> </list> </resource-lists>
      */
 
-    private StringBuffer mAccumulator;
+    private final StringBuilder mAccumulator = new StringBuilder();
     private ResourceListDocument mList;
 
     private final InputSource mInputSource;
@@ -81,9 +80,7 @@ public class ResourceListParser extends DefaultHandler {
     public ResourceListParser parse() throws ParserConfigurationException, SAXException,
             ParseFailureException {
         try {
-            SAXParserFactory factory = SAXParserFactory.newInstance();
-            SAXParser parser = factory.newSAXParser();
-            parser.parse(mInputSource, this);
+            XmlParserPool.parse(mInputSource, this);
             return this;
 
         } catch (IOException e) {
@@ -97,7 +94,7 @@ public class ResourceListParser extends DefaultHandler {
 
     @Override
     public void startDocument() {
-        mAccumulator = new StringBuffer();
+        mAccumulator.setLength(0);
     }
 
     @Override
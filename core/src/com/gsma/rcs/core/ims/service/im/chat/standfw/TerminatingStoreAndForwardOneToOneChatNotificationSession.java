@@ -24,6 +24,7 @@ package com.gsma.rcs.core.ims.service.im.chat.standfw;
 
 import static com.gsma.rcs.utils.StringUtils.UTF8;
 
+import com.gsma.rcs.core.FileAccessException;
 import com.gsma.rcs.core.ims.network.NetworkException;
 import com.gsma.rcs.core.ims.network.sip.SipMessageFactory;
 import com.gsma.rcs.core.ims.protocol.PayloadException;
@@ -298,6 +299,11 @@ public class TerminatingStoreAndForwardOneToOneChatNotificationSession extends O
         // Not used by S&F
     }
 
+    @Override
+    public void msrpFileSavingFailed(FileAccessException e) {
+        // Not used by S&F
+    }
+
     /**
      * Data transfer error
      * 
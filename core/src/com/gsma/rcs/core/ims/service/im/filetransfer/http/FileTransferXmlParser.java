@@ -26,6 +26,7 @@ import com.gsma.rcs.core.ParseFailureException;
 import com.gsma.rcs.core.ims.service.im.filetransfer.FileSharingSession;
 import com.gsma.rcs.provider.settings.RcsSettings;
 import com.gsma.rcs.utils.DateUtils;
+import com.gsma.rcs.utils.XmlParserPool;
 import com.gsma.services.rcs.filetransfer.FileTransfer;
 
 import android.net.Uri;
@@ -33,7 +34,6 @@ import android.net.Uri;
 import org.xml.sax.SAXException;
 import org.xmlpull.v1.XmlPullParser;
 import org.xmlpull.v1.XmlPullParserException;
-import org.xmlpull.v1.XmlPullParserFactory;
 
 import java.io.IOException;
 import java.io.StringReader;
@@ -101,10 +101,9 @@ public class FileTransferXmlParser {
 
     public FileTransferXmlParser parse() throws ParserConfigurationException, SAXException,
             ParseFailureException {
+        XmlPullParser xpp = null;
         try {
-            XmlPullParserFactory factory = XmlPullParserFactory.newInstance();
-            factory.setNamespaceAware(false);
-            XmlPullParser xpp = factory.newPullParser();
+            xpp = XmlParserPool.obtainPullParser(false);
             xpp.setInput(new StringReader(mXmlSource));
             int eventType = xpp.getEventType();
             String text = null;
@@ -199,6 +198,11 @@ public class FileTransferXmlParser {
 
         } catch (XmlPullParserException | IOException e) {
             throw new ParseFailureException("Failed to parse input source!", e);
+
+        } finally {
+            if (xpp != null) {
+                XmlParserPool.recyclePullParser(xpp);
+            }
         }
     }
 
@@ -353,6 +353,11 @@ public class OriginatingMsrpFileSharingSession extends ImsFileSharingSession imp
         }
     }
 
+    @Override
+    public void msrpFileSavingFailed(FileAccessException e) {
+        // Not used in originating side
+    }
+
     @Override
     public void closeMediaSession() {
         // Close MSRP session
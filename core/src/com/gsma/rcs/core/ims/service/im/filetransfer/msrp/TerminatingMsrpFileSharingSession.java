@@ -33,6 +33,7 @@ import com.gsma.rcs.core.ims.network.sip.SipUtils;
 import com.gsma.rcs.core.ims.protocol.PayloadException;
 import com.gsma.rcs.core.ims.protocol.msrp.MsrpConstants;
 import com.gsma.rcs.core.ims.protocol.msrp.MsrpEventListener;
+import com.gsma.rcs.core.ims.protocol.msrp.MsrpFileSink;
 import com.gsma.rcs.core.ims.protocol.msrp.MsrpManager;
 import com.gsma.rcs.core.ims.protocol.msrp.MsrpSession;
 import com.gsma.rcs.core.ims.protocol.sdp.MediaAttribute;
@@ -60,6 +61,7 @@ import com.gsma.rcs.utils.NetworkRessourceManager;
 import com.gsma.rcs.utils.logger.Logger;
 import com.gsma.services.rcs.contact.ContactId;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.Collection;
 import java.util.Vector;
@@ -313,6 +315,7 @@ public class TerminatingMsrpFileSharingSession extends ImsFileSharingSession imp
                 MsrpSession session = mMsrpMgr.createMsrpServerSession(remotePath, this);
                 /* Do not use right now the mapping to do not increase memory and cpu consumption */
                 session.setMapMsgIdFromTransationId(false);
+                session.setFileSink(new MsrpFileSink(new File(getContent().getUri().getPath())));
                 mMsrpMgr.openMsrpSession(ImsFileSharingSession.DEFAULT_SO_TIMEOUT);
                 mMsrpMgr.sendEmptyChunk();
             }
@@ -336,6 +339,8 @@ public class TerminatingMsrpFileSharingSession extends ImsFileSharingSession imp
                     MsrpSession session = mMsrpMgr.createMsrpClientSession(remoteHost, remotePort,
                             remotePath, this, fingerprint);
                     session.setMapMsgIdFromTransationId(false);
+                    session.setFileSink(new MsrpFileSink(new File(getContent().getUri()
+                            .getPath())));
                     mMsrpMgr.openMsrpSession(ImsFileSharingSession.DEFAULT_SO_TIMEOUT);
                     mMsrpMgr.sendEmptyChunk();
                 }
@@ -389,7 +394,10 @@ public class TerminatingMsrpFileSharingSession extends ImsFileSharingSession imp
         MmContent file = getContent();
         Collection<ImsSessionListener> listeners = getListeners();
         try {
-            file.writeData2File(data);
+            /* Data are null when chunks have been streamed to the file by the MSRP session */
+            if (data != null) {
+                file.writeData2File(data);
+            }
             file.closeFile();
             for (ImsSessionListener listener : listeners) {
                 ((FileSharingSessionListener) listener).onFileTransferred(file, contact,
@@ -407,7 +415,14 @@ public class TerminatingMsrpFileSharingSession extends ImsFileSharingSession imp
 
     @Override
     public void msrpTransferProgress(long currentSize, long totalSize) {
-        // Not used
+        if (isSessionInterrupted() || isInterrupted()) {
+            return;
+        }
+        ContactId contact = getRemoteContact();
+        for (ImsSessionListener listener : getListeners()) {
+            ((FileSharingSessionListener) listener).onTransferProgress(contact, currentSize,
+                    totalSize);
+        }
     }
 
     @Override
@@ -443,6 +458,19 @@ public class TerminatingMsrpFileSharingSession extends ImsFileSharingSession imp
         }
     }
 
+    @Override
+    public void msrpFileSavingFailed(FileAccessException e) {
+        if (isSessionInterrupted() || isInterrupted()) {
+            return;
+        }
+        deleteFile();
+        ContactId contact = getRemoteContact();
+        for (ImsSessionListener listener : getListeners()) {
+            ((FileSharingSessionListener) listener).onTransferError(new FileSharingError(
+                    FileSharingError.MEDIA_SAVING_FAILED, e.getMessage()), contact);
+        }
+    }
+
     @Override
     public void prepareMediaSession() {
         /* Nothing to do in terminating side */
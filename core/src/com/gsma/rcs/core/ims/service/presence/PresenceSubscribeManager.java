@@ -35,8 +35,7 @@ import com.gsma.rcs.core.ims.protocol.sip.SipRequest;
 import com.gsma.rcs.core.ims.service.presence.pidf.PidfDocument;
 import com.gsma.rcs.core.ims.service.presence.pidf.PidfParser;
 import com.gsma.rcs.core.ims.service.presence.rlmi.ResourceInstance;
-import com.gsma.rcs.core.ims.service.presence.rlmi.RlmiDocument;
-import com.gsma.rcs.core.ims.service.presence.rlmi.RlmiParser;
+import com.gsma.rcs.core.ims.service.presence.rlmi.RlmiPullParser;
 import com.gsma.rcs.provider.settings.RcsSettings;
 import com.gsma.rcs.utils.ContactUtil;
 import com.gsma.rcs.utils.ContactUtil.PhoneNumber;
@@ -50,7 +49,6 @@ import org.xml.sax.SAXException;
 
 import java.io.ByteArrayInputStream;
 import java.text.ParseException;
-import java.util.Vector;
 
 import javax.xml.parsers.ParserConfigurationException;
 
@@ -140,37 +138,40 @@ public class PresenceSubscribeManager extends SubscribeManager {
             }
             String rlmiPart = multi.getPart("application/rlmi+xml");
             if (rlmiPart != null) {
-                InputSource rlmiInput = new InputSource(new ByteArrayInputStream(
+                /* Resources are streamed from the document, no intermediate list is built */
+                RlmiPullParser rlmiParser = new RlmiPullParser(new ByteArrayInputStream(
                         rlmiPart.getBytes(UTF8)));
-                RlmiParser rlmiParser = new RlmiParser(rlmiInput).parse();
-                RlmiDocument rlmiInfo = rlmiParser.getResourceInfo();
-                Vector<ResourceInstance> list = rlmiInfo.getResourceList();
-                for (ResourceInstance res : list) {
-                    String uri = res.getUri();
-                    PhoneNumber number = ContactUtil.getValidPhoneNumberFromUri(uri);
-                    if (number == null) {
-                        if (sLogger.isActivated()) {
-                            sLogger.debug("Invalid uri '" + uri + "'");
+                try {
+                    ResourceInstance res;
+                    while ((res = rlmiParser.nextResource()) != null) {
+                        String uri = res.getUri();
+                        PhoneNumber number = ContactUtil.getValidPhoneNumberFromUri(uri);
+                        if (number == null) {
+                            if (sLogger.isActivated()) {
+                                sLogger.debug("Invalid uri '" + uri + "'");
+                            }
+                            continue;
                         }
-                        continue;
-                    }
-                    ContactId contact = ContactUtil.createContactIdFromValidatedData(number);
-                    String state = res.getState();
-                    String reason = res.getReason();
-
-                    if ((state != null) && (reason != null)) {
-                        if (state.equalsIgnoreCase("terminated")
-                                && reason.equalsIgnoreCase("rejected")) {
-                            /*
-                             * It's a "terminated" event with status "rejected" the contact should
-                             * be removed from the "rcs" list
-                             */
-                            getImsModule().getPresenceService().getXdmManager()
-                                    .removeContactFromGrantedList(contact);
+                        ContactId contact = ContactUtil.createContactIdFromValidatedData(number);
+                        String state = res.getState();
+                        String reason = res.getReason();
+
+                        if ((state != null) && (reason != null)) {
+                            if (state.equalsIgnoreCase("terminated")
+                                    && reason.equalsIgnoreCase("rejected")) {
+                                /*
+                                 * It's a "terminated" event with status "rejected" the contact
+                                 * should be removed from the "rcs" list
+                                 */
+                                getImsModule().getPresenceService().getXdmManager()
+                                        .removeContactFromGrantedList(contact);
+                            }
+                            getImsModule().getPresenceService().handlePresenceSharingNotification(
+                                    contact, state, reason);
                         }
-                        getImsModule().getPresenceService().handlePresenceSharingNotification(
-                                contact, state, reason);
                     }
+                } finally {
+                    rlmiParser.close();
                 }
             }
             String pidfPart = multi.getPart("application/pidf+xml");
@@ -23,6 +23,7 @@
 package com.gsma.rcs.core.ims.service.presence.directory;
 
 import com.gsma.rcs.utils.DateUtils;
+import com.gsma.rcs.utils.XmlParserPool;
 import com.gsma.rcs.utils.logger.Logger;
 
 import org.xml.sax.Attributes;
@@ -34,8 +35,6 @@ import java.io.IOException;
 import java.util.Hashtable;
 
 import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.parsers.SAXParser;
-import javax.xml.parsers.SAXParserFactory;
 
 /**
  * XCAP directory parser
@@ -44,7 +43,7 @@ import javax.xml.parsers.SAXParserFactory;
  */
 public class XcapDirectoryParser extends DefaultHandler {
 
-    private StringBuffer accumulator;
+    private final StringBuilder accumulator = new StringBuilder();
     private Folder folder = null;
     private Entry entry = null;
 
@@ -65,16 +64,14 @@ public class XcapDirectoryParser extends DefaultHandler {
      */
     public XcapDirectoryParser(InputSource inputSource) throws ParserConfigurationException,
             SAXException, IOException {
-        SAXParserFactory factory = SAXParserFactory.newInstance();
-        SAXParser parser = factory.newSAXParser();
-        parser.parse(inputSource, this);
+        XmlParserPool.parse(inputSource, this);
     }
 
     public void startDocument() {
         if (logger.isActivated()) {
             logger.debug("Start document");
         }
-        accumulator = new StringBuffer();
+        accumulator.setLength(0);
     }
 
     public void characters(char buffer[], int start, int length) {
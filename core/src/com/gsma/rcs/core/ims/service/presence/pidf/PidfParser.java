@@ -26,6 +26,7 @@ import com.gsma.rcs.core.ParseFailureException;
 import com.gsma.rcs.core.ims.service.presence.pidf.geoloc.Geopriv;
 import com.gsma.rcs.utils.DateUtils;
 import com.gsma.rcs.utils.StringUtils;
+import com.gsma.rcs.utils.XmlParserPool;
 import com.gsma.rcs.utils.logger.Logger;
 
 import org.xml.sax.Attributes;
@@ -37,8 +38,6 @@ import java.io.IOException;
 import java.util.StringTokenizer;
 
 import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.parsers.SAXParser;
-import javax.xml.parsers.SAXParserFactory;
 
 /**
  * PDIF parser
@@ -73,7 +72,7 @@ public class PidfParser extends DefaultHandler {
      * opd:etag="26362">http://..../rcs_status_icon</rpid:status-icon> </pdm:person> </presence>
      */
 
-    private StringBuffer mAccumulator;
+    private final StringBuilder mAccumulator = new StringBuilder();
     private PidfDocument mPresence;
     private Tuple mTuple;
     private Note mNote;
@@ -113,9 +112,7 @@ public class PidfParser extends DefaultHandler {
     public PidfParser parse() throws ParserConfigurationException, SAXException,
             ParseFailureException {
         try {
-            SAXParserFactory factory = SAXParserFactory.newInstance();
-            SAXParser parser = factory.newSAXParser();
-            parser.parse(mInputSource, this);
+            XmlParserPool.parse(mInputSource, this);
             return this;
 
         } catch (IOException e) {
@@ -131,7 +128,7 @@ public class PidfParser extends DefaultHandler {
         if (logger.isActivated()) {
             logger.debug("Start document");
         }
-        mAccumulator = new StringBuffer();
+        mAccumulator.setLength(0);
     }
 
     public void characters(char buffer[], int start, int length) {
@@ -23,6 +23,7 @@
 package com.gsma.rcs.core.ims.service.presence.rlmi;
 
 import com.gsma.rcs.core.ParseFailureException;
+import com.gsma.rcs.utils.XmlParserPool;
 import com.gsma.rcs.utils.logger.Logger;
 
 import org.xml.sax.Attributes;
@@ -33,8 +34,6 @@ import org.xml.sax.helpers.DefaultHandler;
 import java.io.IOException;
 
 import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.parsers.SAXParser;
-import javax.xml.parsers.SAXParserFactory;
 
 /**
  * PDIF parser
@@ -49,7 +48,7 @@ public class RlmiParser extends DefaultHandler {
      * reason="subscribe"/> </resource> </list>
      */
 
-    private StringBuffer accumulator;
+    private final StringBuilder accumulator = new StringBuilder();
     private ResourceInstance resourceInstance = null;
     private RlmiDocument resourceInfo = null;
 
@@ -80,9 +79,7 @@ public class RlmiParser extends DefaultHandler {
     public RlmiParser parse() throws ParserConfigurationException, SAXException,
             ParseFailureException {
         try {
-            SAXParserFactory factory = SAXParserFactory.newInstance();
-            SAXParser parser = factory.newSAXParser();
-            parser.parse(mInputSource, this);
+            XmlParserPool.parse(mInputSource, this);
             return this;
 
         } catch (IOException e) {
@@ -98,7 +95,7 @@ public class RlmiParser extends DefaultHandler {
         if (logger.isActivated()) {
             logger.debug("Start document");
         }
-        accumulator = new StringBuffer();
+        accumulator.setLength(0);
     }
 
     public void characters(char buffer[], int start, int length) {
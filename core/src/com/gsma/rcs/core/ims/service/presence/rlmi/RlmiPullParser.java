@@ -0,0 +1,140 @@
+/*******************************************************************************
+ * Software Name : RCS IMS Stack
+ *
+ * Copyright (C) 2010-2016 Orange.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+
+package com.gsma.rcs.core.ims.service.presence.rlmi;
+
+import com.gsma.rcs.core.ParseFailureException;
+import com.gsma.rcs.utils.XmlParserPool;
+
+import org.xmlpull.v1.XmlPullParser;
+import org.xmlpull.v1.XmlPullParserException;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Streaming RLMI parser.<br>
+ * The document is read with a pull parser and resources are returned one by one as soon as their
+ * element ends, so that the notification of a large list is processed without building a document
+ * holding all the resources. Resources are decoded as by RlmiParser.
+ *
+ * @author jexa7410
+ */
+public class RlmiPullParser {
+
+    private XmlPullParser mParser;
+
+    private boolean mList = false;
+
+    private ResourceInstance mResource;
+
+    /**
+     * Constructor
+     *
+     * @param input Input stream of the document
+     * @throws ParseFailureException
+     */
+    public RlmiPullParser(InputStream input) throws ParseFailureException {
+        try {
+            mParser = XmlParserPool.obtainPullParser(true);
+            mParser.setInput(input, null);
+
+        } catch (XmlPullParserException e) {
+            close();
+            throw new ParseFailureException("Failed to parse RLMI document!", e);
+        }
+    }
+
+    /**
+     * Parse the document up to the end of the next resource
+     *
+     * @return Resource or null if the end of the document has been reached
+     * @throws ParseFailureException
+     */
+    public ResourceInstance nextResource() throws ParseFailureException {
+        if (mParser == null) {
+            return null;
+        }
+        try {
+            while (true) {
+                switch (mParser.next()) {
+                    case XmlPullParser.START_TAG:
+                        startElement(mParser.getName());
+                        break;
+
+                    case XmlPullParser.END_TAG:
+                        if ("resource".equals(mParser.getName()) && mResource != null) {
+                            ResourceInstance resource = mResource;
+                            mResource = null;
+                            if (mList) {
+                                return resource;
+                            }
+                        }
+                        break;
+
+                    case XmlPullParser.END_DOCUMENT:
+                        close();
+                        return null;
+
+                    default:
+                        break;
+                }
+            }
+        } catch (XmlPullParserException | IOException e) {
+            close();
+            throw new ParseFailureException("Failed to parse RLMI document!", e);
+        }
+    }
+
+    /**
+     * Release the parser, must be called if the document is not parsed up to its end
+     */
+    public void close() {
+        if (mParser != null) {
+            XmlParserPool.recyclePullParser(mParser);
+            mParser = null;
+        }
+    }
+
+    private void startElement(String name) throws XmlPullParserException {
+        if ("list".equals(name)) {
+            if (mParser.getAttributeValue(null, "uri") == null) {
+                throw new XmlPullParserException("List without URI!", mParser, null);
+            }
+            mList = true;
+
+        } else if ("resource".equals(name)) {
+            String uri = mParser.getAttributeValue(null, "uri");
+            if (uri == null) {
+                throw new XmlPullParserException("Resource without URI!", mParser, null);
+            }
+            mResource = new ResourceInstance(uri.trim());
+
+        } else if ("instance".equals(name) && mResource != null) {
+            String state = mParser.getAttributeValue(null, "state");
+            if (state != null) {
+                mResource.setState(state.trim());
+            }
+            String reason = mParser.getAttributeValue(null, "reason");
+            if (reason != null) {
+                mResource.setReason(reason.trim());
+            }
+        }
+    }
+}
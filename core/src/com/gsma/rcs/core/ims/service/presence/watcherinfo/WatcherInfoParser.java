@@ -22,6 +22,7 @@
 
 package com.gsma.rcs.core.ims.service.presence.watcherinfo;
 
+import com.gsma.rcs.utils.XmlParserPool;
 import com.gsma.rcs.utils.logger.Logger;
 
 import org.xml.sax.Attributes;
@@ -33,8 +34,6 @@ import org.xml.sax.helpers.DefaultHandler;
 import java.io.IOException;
 
 import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.parsers.SAXParser;
-import javax.xml.parsers.SAXParserFactory;
 
 /**
  * Watcher-info parser
@@ -49,7 +48,7 @@ public class WatcherInfoParser extends DefaultHandler {
      * id="-838173480" duration-subscribed="3" event="subscribe">tel:+33960810100</watcher>
      * </watcher-list> </watcherinfo>
      */
-    private StringBuffer accumulator;
+    private final StringBuilder accumulator = new StringBuilder();
     private WatcherInfoDocument watcherInfo = null;
     private Watcher watcher = null;
 
@@ -68,16 +67,14 @@ public class WatcherInfoParser extends DefaultHandler {
      */
     public WatcherInfoParser(InputSource inputSource) throws ParserConfigurationException,
             SAXException, IOException {
-        SAXParserFactory factory = SAXParserFactory.newInstance();
-        SAXParser parser = factory.newSAXParser();
-        parser.parse(inputSource, this);
+        XmlParserPool.parse(inputSource, this);
     }
 
     public void startDocument() {
         if (logger.isActivated()) {
             logger.debug("Start document");
         }
-        accumulator = new StringBuffer();
+        accumulator.setLength(0);
     }
 
     public void characters(char buffer[], int start, int length) {
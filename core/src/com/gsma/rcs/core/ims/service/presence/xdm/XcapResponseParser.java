@@ -22,6 +22,7 @@
 
 package com.gsma.rcs.core.ims.service.presence.xdm;
 
+import com.gsma.rcs.utils.XmlParserPool;
 import com.gsma.rcs.utils.logger.Logger;
 
 import org.xml.sax.Attributes;
@@ -35,8 +36,6 @@ import java.util.ArrayList;
 import java.util.List;
 
 import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.parsers.SAXParser;
-import javax.xml.parsers.SAXParserFactory;
 
 /**
  * XCAP response parser
@@ -45,7 +44,7 @@ import javax.xml.parsers.SAXParserFactory;
  */
 public class XcapResponseParser extends DefaultHandler {
 
-    private StringBuffer accumulator;
+    private final StringBuilder accumulator = new StringBuilder();
 
     private List<String> uriList = new ArrayList<String>();
 
@@ -64,16 +63,14 @@ public class XcapResponseParser extends DefaultHandler {
      */
     public XcapResponseParser(InputSource inputSource) throws ParserConfigurationException,
             SAXException, IOException {
-        SAXParserFactory factory = SAXParserFactory.newInstance();
-        SAXParser parser = factory.newSAXParser();
-        parser.parse(inputSource, this);
+        XmlParserPool.parse(inputSource, this);
     }
 
     public void startDocument() {
         if (logger.isActivated()) {
             logger.debug("Start document");
         }
-        accumulator = new StringBuffer();
+        accumulator.setLength(0);
     }
 
     public void characters(char buffer[], int start, int length) {
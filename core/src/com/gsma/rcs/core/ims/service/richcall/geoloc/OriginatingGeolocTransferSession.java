@@ -270,6 +270,11 @@ public class OriginatingGeolocTransferSession extends GeolocTransferSession impl
         }
     }
 
+    @Override
+    public void msrpFileSavingFailed(FileAccessException e) {
+        // Not used in originating side
+    }
+
     @Override
     public void msrpTransferError(String msgId, String error, TypeMsrpChunk typeMsrpChunk) {
         try {
@@ -24,6 +24,7 @@ package com.gsma.rcs.core.ims.service.richcall.geoloc;
 
 import static com.gsma.rcs.utils.StringUtils.UTF8;
 
+import com.gsma.rcs.core.FileAccessException;
 import com.gsma.rcs.core.content.ContentManager;
 import com.gsma.rcs.core.ims.network.NetworkException;
 import com.gsma.rcs.core.ims.network.sip.SipMessageFactory;
@@ -353,6 +354,11 @@ public class TerminatingGeolocTransferSession extends GeolocTransferSession impl
         }
     }
 
+    @Override
+    public void msrpFileSavingFailed(FileAccessException e) {
+        // Not used for geolocation sharing
+    }
+
     @Override
     public void msrpTransferError(String msgId, String error, TypeMsrpChunk typeMsrpChunk) {
         try {
@@ -313,6 +313,11 @@ public class OriginatingImageTransferSession extends ImageTransferSession implem
         }
     }
 
+    @Override
+    public void msrpFileSavingFailed(FileAccessException e) {
+        // Not used in originating side
+    }
+
     @Override
     public void msrpTransferError(String msgId, String error, TypeMsrpChunk typeMsrpChunk) {
         try {
@@ -33,6 +33,7 @@ import com.gsma.rcs.core.ims.network.sip.SipUtils;
 import com.gsma.rcs.core.ims.protocol.PayloadException;
 import com.gsma.rcs.core.ims.protocol.msrp.MsrpConstants;
 import com.gsma.rcs.core.ims.protocol.msrp.MsrpEventListener;
+import com.gsma.rcs.core.ims.protocol.msrp.MsrpFileSink;
 import com.gsma.rcs.core.ims.protocol.msrp.MsrpManager;
 import com.gsma.rcs.core.ims.protocol.msrp.MsrpSession;
 import com.gsma.rcs.core.ims.protocol.msrp.MsrpSession.TypeMsrpChunk;
@@ -58,6 +59,7 @@ import com.gsma.services.rcs.contact.ContactId;
 
 import android.net.Uri;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.Collection;
 import java.util.Vector;
@@ -267,6 +269,7 @@ public class TerminatingImageTransferSession extends ImageTransferSession implem
                 MsrpSession session = msrpMgr.createMsrpServerSession(remotePath, this);
                 // Do not use right now the mapping to do not increase memory and cpu consumption
                 session.setMapMsgIdFromTransationId(false);
+                session.setFileSink(new MsrpFileSink(new File(getContent().getUri().getPath())));
 
                 msrpMgr.openMsrpSession(ImageTransferSession.DEFAULT_SO_TIMEOUT);
                 sendEmptyDataChunk();
@@ -288,6 +291,8 @@ public class TerminatingImageTransferSession extends ImageTransferSession implem
                     MsrpSession session = msrpMgr.createMsrpClientSession(remoteHost, remotePort,
                             remotePath, this, fingerprint);
                     session.setMapMsgIdFromTransationId(false);
+                    session.setFileSink(new MsrpFileSink(new File(getContent().getUri()
+                            .getPath())));
                     msrpMgr.openMsrpSession(ImageTransferSession.DEFAULT_SO_TIMEOUT);
                     sendEmptyDataChunk();
                 }
@@ -351,7 +356,10 @@ public class TerminatingImageTransferSession extends ImageTransferSession implem
         ContactId contact = getRemoteContact();
         MmContent content = getContent();
         try {
-            content.writeData2File(data);
+            /* Data are null when chunks have been streamed to the file by the MSRP session */
+            if (data != null) {
+                content.writeData2File(data);
+            }
             content.closeFile();
 
             Uri image = getContent().getUri();
@@ -370,7 +378,11 @@ public class TerminatingImageTransferSession extends ImageTransferSession implem
 
     @Override
     public void msrpTransferProgress(long currentSize, long totalSize) {
-        // Not used
+        ContactId contact = getRemoteContact();
+        for (ImsSessionListener listener : getListeners()) {
+            ((ImageTransferSessionListener) listener).onSharingProgress(contact, currentSize,
+                    totalSize);
+        }
     }
 
     @Override
@@ -403,6 +415,16 @@ public class TerminatingImageTransferSession extends ImageTransferSession implem
         }
     }
 
+    @Override
+    public void msrpFileSavingFailed(FileAccessException e) {
+        deleteFile();
+        ContactId contact = getRemoteContact();
+        for (ImsSessionListener listener : getListeners()) {
+            ((ImageTransferSessionListener) listener).onSharingError(contact,
+                    new ContentSharingError(ContentSharingError.MEDIA_SAVING_FAILED));
+        }
+    }
+
     @Override
     public void msrpTransferError(String msgId, String error, TypeMsrpChunk typeMsrpChunk) {
         try {
@@ -31,11 +31,14 @@ import com.gsma.rcs.core.ims.protocol.sip.SipDialogPath;
 import com.gsma.rcs.core.ims.protocol.sip.SipInterface;
 import com.gsma.rcs.core.ims.protocol.sip.SipRequest;
 import com.gsma.rcs.core.ims.protocol.sip.SipTransactionContext;
+import com.gsma.rcs.core.ims.protocol.sip.SipTransactionContext.INotifySipTransactionCompletion;
 import com.gsma.rcs.core.ims.service.SessionAuthenticationAgent;
 import com.gsma.rcs.provider.settings.RcsSettings;
-import com.gsma.rcs.utils.FifoBuffer;
 import com.gsma.rcs.utils.PhoneUtils;
 import com.gsma.rcs.utils.logger.Logger;
+import com.gsma.rcs.utils.queue.BoundedQueue;
+import com.gsma.rcs.utils.queue.MpmcRingBufferQueue;
+import com.gsma.rcs.utils.queue.OverflowPolicy;
 import com.gsma.services.rcs.contact.ContactId;
 
 import java.text.ParseException;
@@ -52,7 +55,10 @@ public class ImmManager extends Thread {
 
     private final SipService mSipService;
 
-    private FifoBuffer mBuffer = new FifoBuffer();
+    private static final int MAX_PENDING_MESSAGES = 256;
+
+    private final BoundedQueue<InstantMultimediaMessage> mBuffer = new MpmcRingBufferQueue<>(
+            MAX_PENDING_MESSAGES, OverflowPolicy.BLOCK);
 
     private final RcsSettings mRcsSettings;
 
@@ -84,8 +90,9 @@ public class ImmManager extends Thread {
      */
     public void run() {
         InstantMultimediaMessage msg;
-        while ((msg = (InstantMultimediaMessage) mBuffer.getObject()) != null) {
+        while ((msg = mBuffer.take()) != null) {
             try {
+                /* Send the message without waiting for the response */
                 sendSipMessage(msg, null);// TODO: add sip.instance
 
             } catch (PayloadException | RuntimeException e) {
@@ -100,97 +107,127 @@ public class ImmManager extends Thread {
     }
 
     /**
-     * Send a multimedia message
+     * Send a multimedia message, waiting while too many messages are pending
      *
      * @param remote Remote contact
      * @param featureTag Feature tag
      * @param content Message content
      * @param contentType Message content type
+     * @throws NetworkException
      */
-    public void sendMessage(ContactId remote, String featureTag, byte[] content, String contentType) {
+    public void sendMessage(ContactId remote, String featureTag, byte[] content, String contentType)
+            throws NetworkException {
         // Add request in the buffer for background processing
         InstantMultimediaMessage msg = new InstantMultimediaMessage(remote, featureTag, content,
                 contentType);
-        mBuffer.addObject(msg);
+        if (!mBuffer.offer(msg)) {
+            throw new NetworkException("Cannot send multimedia message to " + remote
+                    + ": IMM manager is terminated!");
+        }
     }
 
-    private void analyzeSipResponse(SipTransactionContext ctx,
-            SessionAuthenticationAgent authenticationAgent, SipDialogPath dialogPath,
-            InstantMultimediaMessage imm) throws NetworkException, PayloadException,
-            InvalidArgumentException, ParseException {
-        int statusCode = ctx.getStatusCode();
-        switch (statusCode) {
-            case Response.PROXY_AUTHENTICATION_REQUIRED:
-                if (sLogger.isActivated()) {
-                    sLogger.info("407 response received");
-                }
-
-                /* Set the Proxy-Authorization header */
-                authenticationAgent.readProxyAuthenticateHeader(ctx.getSipResponse());
+    private void sendSipMessage(InstantMultimediaMessage imm, String remoteInstanceId)
+            throws PayloadException, NetworkException {
+        if (sLogger.isActivated()) {
+            sLogger.debug("Send instant multimedia message");
+        }
+        ImsModule imsModule = mSipService.getImsModule();
+        // @FIXME: This should be an URI instead of String
+        String toUri = PhoneUtils.formatContactIdToUri(imm.getRemote()).toString();
+        SipManager sipManager = imsModule.getSipManager();
+        SipInterface sipInterface = sipManager.getSipStack();
+        // Create a dialog path
+        SipDialogPath dialogPath = new SipDialogPath(sipInterface, sipInterface.generateCallId(),
+                1, toUri, ImsModule.getImsUserProfile().getPublicUri(), toUri,
+                sipInterface.getServiceRoutePath(), mRcsSettings);
+        dialogPath.setRemoteSipInstance(remoteInstanceId);
+
+        // Create MESSAGE request
+        if (sLogger.isActivated()) {
+            sLogger.info("Send first MESSAGE");
+        }
+        SipRequest msg = SipMessageFactory.createMessage(dialogPath, imm.getFeatureTag(),
+                imm.getContentType(), imm.getContent());
+        sipManager.sendSipMessageAsync(msg, new ImmTransaction(imm, dialogPath,
+                new SessionAuthenticationAgent(imsModule)));
+    }
 
-                /* Increment the Cseq number of the dialog path */
-                dialogPath.incrementCseq();
+    /**
+     * SIP MESSAGE transaction of an instant multimedia message
+     */
+    private class ImmTransaction implements INotifySipTransactionCompletion {
+        private final InstantMultimediaMessage mImm;
+        private final SipDialogPath mDialogPath;
+        private final SessionAuthenticationAgent mAuthenticationAgent;
+
+        /**
+         * Constructor
+         *
+         * @param imm Instant multimedia message
+         * @param dialogPath Dialog path
+         * @param authenticationAgent Authentication agent
+         */
+        public ImmTransaction(InstantMultimediaMessage imm, SipDialogPath dialogPath,
+                SessionAuthenticationAgent authenticationAgent) {
+            mImm = imm;
+            mDialogPath = dialogPath;
+            mAuthenticationAgent = authenticationAgent;
+        }
 
-                /* Create a second MESSAGE request with the right token */
-                if (sLogger.isActivated()) {
-                    sLogger.info("Send second MESSAGE");
+        @Override
+        public void handleTransactionCompleted(SipTransactionContext ctx) {
+            try {
+                int statusCode = ctx.getStatusCode();
+                switch (statusCode) {
+                    case Response.PROXY_AUTHENTICATION_REQUIRED:
+                        if (sLogger.isActivated()) {
+                            sLogger.info("407 response received");
+                        }
+
+                        /* Set the Proxy-Authorization header */
+                        mAuthenticationAgent.readProxyAuthenticateHeader(ctx.getSipResponse());
+
+                        /* Increment the Cseq number of the dialog path */
+                        mDialogPath.incrementCseq();
+
+                        /* Create a second MESSAGE request with the right token */
+                        if (sLogger.isActivated()) {
+                            sLogger.info("Send second MESSAGE");
+                        }
+                        SipRequest msg = SipMessageFactory.createMessage(mDialogPath,
+                                mImm.getFeatureTag(), mImm.getContentType(), mImm.getContent());
+
+                        /* Set the Authorization header */
+                        mAuthenticationAgent.setProxyAuthorizationHeader(msg);
+
+                        mSipService.getImsModule().getSipManager().sendSipMessageAsync(msg, this);
+                        break;
+
+                    case Response.OK:
+                    case Response.ACCEPTED:
+                        if (sLogger.isActivated()) {
+                            sLogger.info("20x OK response received");
+                        }
+                        break;
+                    default:
+                        if (sLogger.isActivated()) {
+                            sLogger.debug("Instant multimedia message has failed: " + statusCode
+                                    + " response received");
+                        }
+                        break;
                 }
-                SipRequest msg = SipMessageFactory.createMessage(dialogPath, imm.getFeatureTag(),
-                        imm.getContentType(), imm.getContent());
-
-                /* Set the Authorization header */
-                authenticationAgent.setProxyAuthorizationHeader(msg);
-
-                ctx = mSipService.getImsModule().getSipManager().sendSipMessageAndWait(msg);
+            } catch (InvalidArgumentException | ParseException e) {
+                sLogger.error("Unable to set authorization header for instant multimedia message",
+                        e);
 
-                analyzeSipResponse(ctx, authenticationAgent, dialogPath, imm);
-                break;
+            } catch (PayloadException | RuntimeException e) {
+                sLogger.error("Failed to send instant multimedia message", e);
 
-            case Response.OK:
-            case Response.ACCEPTED:
+            } catch (NetworkException e) {
                 if (sLogger.isActivated()) {
-                    sLogger.info("20x OK response received");
+                    sLogger.debug(e.getMessage());
                 }
-                break;
-            default:
-                throw new NetworkException("Instant multimedia message has failed: " + statusCode
-                        + " response received");
-        }
-    }
-
-    private void sendSipMessage(InstantMultimediaMessage imm, String remoteInstanceId)
-            throws PayloadException, NetworkException {
-        try {
-            if (sLogger.isActivated()) {
-                sLogger.debug("Send instant multimedia message");
-            }
-            ImsModule imsModule = mSipService.getImsModule();
-            // Create authentication agent
-            SessionAuthenticationAgent authenticationAgent = new SessionAuthenticationAgent(
-                    imsModule);
-            // @FIXME: This should be an URI instead of String
-            String toUri = PhoneUtils.formatContactIdToUri(imm.getRemote()).toString();
-            SipManager sipManager = imsModule.getSipManager();
-            SipInterface sipInterface = sipManager.getSipStack();
-            // Create a dialog path
-            SipDialogPath dialogPath = new SipDialogPath(sipInterface,
-                    sipInterface.generateCallId(), 1, toUri, ImsModule.getImsUserProfile()
-                            .getPublicUri(), toUri, sipInterface.getServiceRoutePath(),
-                    mRcsSettings);
-            dialogPath.setRemoteSipInstance(remoteInstanceId);
-
-            // Create MESSAGE request
-            if (sLogger.isActivated()) {
-                sLogger.info("Send first MESSAGE");
             }
-            SipRequest msg = SipMessageFactory.createMessage(dialogPath, imm.getFeatureTag(),
-                    imm.getContentType(), imm.getContent());
-            SipTransactionContext ctx = sipManager.sendSipMessageAndWait(msg);
-            analyzeSipResponse(ctx, authenticationAgent, dialogPath, imm);
-
-        } catch (InvalidArgumentException | ParseException e) {
-            throw new PayloadException("Unable to set authorization header for remoteInstanceId: "
-                    + remoteInstanceId, e);
         }
     }
 
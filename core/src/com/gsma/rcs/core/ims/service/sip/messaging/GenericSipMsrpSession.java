@@ -330,6 +330,11 @@ public abstract class GenericSipMsrpSession extends GenericSipSession implements
         // Not used here
     }
 
+    @Override
+    public void msrpFileSavingFailed(FileAccessException e) {
+        // Not used here
+    }
+
     @Override
     public void msrpTransferError(String msgId, String error, TypeMsrpChunk typeMsrpChunk) {
         if (isSessionInterrupted()) {
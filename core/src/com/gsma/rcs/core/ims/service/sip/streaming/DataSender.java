@@ -24,7 +24,9 @@ package com.gsma.rcs.core.ims.service.sip.streaming;
 
 import com.gsma.rcs.core.ims.protocol.rtp.media.MediaInput;
 import com.gsma.rcs.core.ims.protocol.rtp.media.MediaSample;
-import com.gsma.rcs.utils.FifoBuffer;
+import com.gsma.rcs.utils.queue.BoundedQueue;
+import com.gsma.rcs.utils.queue.MpmcRingBufferQueue;
+import com.gsma.rcs.utils.queue.OverflowPolicy;
 
 /**
  * Data player in charge of sending data payload to the network via the RTP protocol
@@ -32,10 +34,15 @@ import com.gsma.rcs.utils.FifoBuffer;
  * @author Jean-Marc AUFFRET
  */
 public class DataSender implements MediaInput {
+    /**
+     * Maximum number of frames waiting to be sent, the oldest ones are dropped beyond
+     */
+    private static final int MAX_PENDING_FRAMES = 100;
+
     /**
      * Received frames
      */
-    private FifoBuffer mFifo;
+    private BoundedQueue<MediaSample> mFifo;
 
     /**
      * Constructor
@@ -50,9 +57,10 @@ public class DataSender implements MediaInput {
      * @param timestamp Timestamp
      */
     public void addFrame(byte[] data, long timestamp) {
-        if (mFifo != null) {
+        BoundedQueue<MediaSample> fifo = mFifo;
+        if (fifo != null) {
             MediaSample sample = new MediaSample(data, timestamp);
-            mFifo.addObject(sample);
+            fifo.offer(sample);
         }
     }
 
@@ -60,7 +68,7 @@ public class DataSender implements MediaInput {
      * Open the player
      */
     public void open() {
-        mFifo = new FifoBuffer();
+        mFifo = new MpmcRingBufferQueue<>(MAX_PENDING_FRAMES, OverflowPolicy.DROP_OLDEST);
     }
 
     /**
@@ -79,6 +87,6 @@ public class DataSender implements MediaInput {
      * @return Media sample
      */
     public MediaSample readSample() {
-        return (MediaSample) mFifo.getObject();
+        return mFifo.take();
     }
 }
@@ -23,6 +23,7 @@
 package com.gsma.rcs.core.ims.service.terms;
 
 import com.gsma.rcs.core.ParseFailureException;
+import com.gsma.rcs.utils.XmlParserPool;
 import com.gsma.rcs.utils.logger.Logger;
 
 import org.xml.sax.Attributes;
@@ -33,8 +34,6 @@ import org.xml.sax.helpers.DefaultHandler;
 import java.io.IOException;
 
 import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.parsers.SAXParser;
-import javax.xml.parsers.SAXParserFactory;
 
 /**
  * Terms & condition request parser
@@ -48,7 +47,7 @@ public class TermsAckParser extends DefaultHandler {
      * </EndUserConfirmationAck>
      */
 
-    private StringBuffer mAccumulator;
+    private final StringBuilder mAccumulator = new StringBuilder();
 
     private String mId;
 
@@ -87,9 +86,7 @@ public class TermsAckParser extends DefaultHandler {
     public TermsAckParser parse() throws ParserConfigurationException, SAXException,
             ParseFailureException {
         try {
-            SAXParserFactory factory = SAXParserFactory.newInstance();
-            SAXParser parser = factory.newSAXParser();
-            parser.parse(mInputSource, this);
+            XmlParserPool.parse(mInputSource, this);
             return this;
 
         } catch (IOException e) {
@@ -117,7 +114,7 @@ public class TermsAckParser extends DefaultHandler {
         if (sLogger.isActivated()) {
             sLogger.debug("Start document");
         }
-        mAccumulator = new StringBuffer();
+        mAccumulator.setLength(0);
     }
 
     public void characters(char buffer[], int start, int length) {
@@ -0,0 +1,208 @@
+/*******************************************************************************
+ * Software Name : RCS IMS Stack
+ *
+ * Copyright (C) 2010-2016 Orange.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+
+package com.gsma.rcs.platform.network;
+
+import com.gsma.rcs.core.ims.network.NetworkException;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+
+/**
+ * Android datagram connection based on a datagram channel.<br>
+ * Datagrams are received straight into the buffers given by the caller, typically pooled direct
+ * buffers, instead of being copied into a new array for each datagram.
+ * 
+ * @author jexa7410
+ */
+public class AndroidDatagramChannelConnection implements DatagramConnection {
+
+    private DatagramChannel mChannel;
+
+    /**
+     * Selector used to wait for a datagram with a timeout, null if there is no timeout
+     */
+    private Selector mSelector;
+
+    /**
+     * Receive timeout in milliseconds, 0 for no timeout
+     */
+    private final int mTimeout;
+
+    /**
+     * Buffer used by the array based receive method
+     */
+    private ByteBuffer mReceiveBuffer;
+
+    /**
+     * Constructor
+     */
+    public AndroidDatagramChannelConnection() {
+        this(0);
+    }
+
+    /**
+     * Constructor
+     * 
+     * @param timeout Receive timeout in milliseconds, 0 for no timeout
+     */
+    public AndroidDatagramChannelConnection(int timeout) {
+        mTimeout = timeout;
+    }
+
+    /**
+     * Open the datagram connection
+     * 
+     * @throws IOException
+     */
+    public void open() throws IOException {
+        open(0);
+    }
+
+    /**
+     * Open the datagram connection
+     * 
+     * @param port Local port
+     * @throws IOException
+     */
+    public void open(int port) throws IOException {
+        mChannel = DatagramChannel.open();
+        mChannel.socket().bind(new InetSocketAddress(port));
+        if (mTimeout > 0) {
+            mChannel.configureBlocking(false);
+            mSelector = Selector.open();
+            mChannel.register(mSelector, SelectionKey.OP_READ);
+        }
+    }
+
+    /**
+     * Close the datagram connection
+     * 
+     * @throws IOException
+     */
+    public void close() throws IOException {
+        try {
+            if (mSelector != null) {
+                mSelector.close();
+                mSelector = null;
+            }
+        } finally {
+            if (mChannel != null) {
+                mChannel.close();
+                mChannel = null;
+            }
+        }
+    }
+
+    /**
+     * Receive data
+     * 
+     * @return Byte array
+     * @throws NetworkException
+     */
+    public byte[] receive() throws NetworkException {
+        if (mReceiveBuffer == null) {
+            mReceiveBuffer = ByteBuffer.allocateDirect(DatagramConnection.DEFAULT_DATAGRAM_SIZE);
+        }
+        mReceiveBuffer.clear();
+        int length = receive(mReceiveBuffer);
+        byte[] data = new byte[length];
+        mReceiveBuffer.flip();
+        mReceiveBuffer.get(data);
+        return data;
+    }
+
+    /**
+     * Receive data into a buffer
+     * 
+     * @param buffer Buffer receiving the datagram
+     * @return Length of the received datagram
+     * @throws NetworkException
+     */
+    public int receive(ByteBuffer buffer) throws NetworkException {
+        try {
+            int position = buffer.position();
+            if (mSelector == null) {
+                mChannel.receive(buffer);
+                return buffer.position() - position;
+            }
+            while (true) {
+                if (mSelector.select(mTimeout) == 0) {
+                    throw new SocketTimeoutException("No datagram received within " + mTimeout
+                            + " ms");
+                }
+                mSelector.selectedKeys().clear();
+                if (mChannel.receive(buffer) != null) {
+                    return buffer.position() - position;
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            /* A closed selector or channel raises a runtime exception */
+            throw new NetworkException("Failed to receive datagram packet!", e);
+        }
+    }
+
+    /**
+     * Send data
+     * 
+     * @param remoteAddr Remote address
+     * @param remotePort Remote port
+     * @param data Data as byte array
+     * @throws NetworkException
+     */
+    public void send(String remoteAddr, int remotePort, byte[] data) throws NetworkException {
+        try {
+            mChannel.send(ByteBuffer.wrap(data), new InetSocketAddress(remoteAddr, remotePort));
+        } catch (IOException e) {
+            throw new NetworkException(new StringBuilder("Failed to send data to remoteAddr : ")
+                    .append(remoteAddr).toString(), e);
+        }
+    }
+
+    /**
+     * Returns the local address
+     * 
+     * @return Address
+     * @throws IOException
+     */
+    public String getLocalAddress() throws IOException {
+        if ((mChannel != null) && (mChannel.socket().getLocalAddress() != null)) {
+            return mChannel.socket().getLocalAddress().getHostAddress();
+        }
+        throw new IOException("Connection not opened");
+    }
+
+    /**
+     * Returns the local port
+     * 
+     * @return Port
+     * @throws IOException
+     */
+    public int getLocalPort() throws IOException {
+        if (mChannel != null) {
+            return mChannel.socket().getLocalPort();
+        }
+        throw new IOException("Connection not opened");
+    }
+}
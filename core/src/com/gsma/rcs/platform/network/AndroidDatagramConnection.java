@@ -28,6 +28,7 @@ import java.io.IOException;
 import java.net.DatagramPacket;
 import java.net.DatagramSocket;
 import java.net.InetAddress;
+import java.nio.ByteBuffer;
 
 /**
  * Android datagram server connection
@@ -120,6 +121,25 @@ public class AndroidDatagramConnection implements DatagramConnection {
         }
     }
 
+    /**
+     * Receive data into a buffer
+     * 
+     * @param buffer Buffer receiving the datagram
+     * @return Length of the received datagram
+     * @throws NetworkException
+     */
+    public int receive(ByteBuffer buffer) throws NetworkException {
+        try {
+            packet.setLength(DatagramConnection.DEFAULT_DATAGRAM_SIZE);
+            connection.receive(packet);
+            int packetLength = Math.min(packet.getLength(), buffer.remaining());
+            buffer.put(packet.getData(), 0, packetLength);
+            return packetLength;
+        } catch (IOException e) {
+            throw new NetworkException("Failed to receive datagram packet!", e);
+        }
+    }
+
     /**
      * Send data
      * 
@@ -108,6 +108,16 @@ public class AndroidNetworkFactory extends NetworkFactory {
         return new AndroidDatagramConnection(timeout);
     }
 
+    /**
+     * Create a datagram connection receiving straight into caller provided buffers
+     * 
+     * @param timeout Receive timeout in milliseconds, 0 for no timeout
+     * @return Datagram connection
+     */
+    public DatagramConnection createDatagramChannelConnection(int timeout) {
+        return new AndroidDatagramChannelConnection(timeout);
+    }
+
     /**
      * Create a socket client connection
      * 
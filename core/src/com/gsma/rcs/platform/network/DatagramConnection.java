@@ -22,6 +22,7 @@ import com.gsma.rcs.core.ims.network.NetworkException;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 
 /**
  * Datagram connection
@@ -74,6 +75,17 @@ public interface DatagramConnection extends Closeable {
      */
     public byte[] receive() throws NetworkException;
 
+    /**
+     * Receive data into a buffer without allocating any intermediate array. The datagram is
+     * written between the position and the limit of the buffer, a datagram larger than the
+     * remaining space is truncated.
+     * 
+     * @param buffer Buffer receiving the datagram
+     * @return Length of the received datagram
+     * @throws NetworkException
+     */
+    public int receive(ByteBuffer buffer) throws NetworkException;
+
     /**
      * Returns the local address
      * 
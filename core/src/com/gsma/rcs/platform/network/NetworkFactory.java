@@ -121,6 +121,14 @@ public abstract class NetworkFactory {
      */
     public abstract DatagramConnection createDatagramConnection(int timeout);
 
+    /**
+     * Create a datagram connection receiving straight into caller provided buffers
+     * 
+     * @param timeout Receive timeout in milliseconds, 0 for no timeout
+     * @return Datagram connection
+     */
+    public abstract DatagramConnection createDatagramChannelConnection(int timeout);
+
     /**
      * Create a socket client connection
      * 
@@ -0,0 +1,358 @@
+/*******************************************************************************
+ * Software Name : RCS IMS Stack
+ *
+ * Copyright (C) 2010-2016 Orange.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+
+package com.gsma.rcs.provider.contact;
+
+import com.gsma.rcs.provider.CursorUtil;
+import com.gsma.rcs.utils.ContactUtil;
+import com.gsma.rcs.utils.ContactUtil.PhoneNumber;
+import com.gsma.rcs.utils.logger.Logger;
+import com.gsma.services.rcs.contact.ContactId;
+
+import android.content.ContentResolver;
+import android.database.Cursor;
+import android.net.Uri;
+import android.os.Build;
+import android.provider.ContactsContract.CommonDataKinds.Phone;
+import android.provider.ContactsContract.Contacts;
+import android.provider.ContactsContract.DeletedContacts;
+import android.provider.ContactsContract.RawContacts;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * In memory index of the normalized phone numbers of the native address book.<br>
+ * The index is loaded once with a single query, then kept up to date incrementally: the
+ * CONTACT_LAST_UPDATED_TIMESTAMP and CONTACT_DELETED_TIMESTAMP columns are used as a change cursor
+ * so that each synchronization only reads the contacts modified or deleted since the previous one.
+ * Phone numbers of SIM accounts are not indexed since they cannot be aggregated to a RCS raw
+ * contact.<br>
+ * This class is not thread safe.
+ *
+ * @author jexa7410
+ */
+/* package private */class AddressBookNumberIndex {
+
+    private static final String SIM_ACCOUNT_TYPE_SUFFIX = ".sim";
+
+    /**
+     * The change cursor columns are only available from Android 4.3
+     */
+    private static final boolean CHANGE_CURSOR_SUPPORTED =
+            Build.VERSION.SDK_INT >=
+            Build.VERSION_CODES.JELLY_BEAN_MR2;
+
+    private static final String[] PROJ_PHONE_NUMBER = {
+            Phone.NUMBER, Phone.CONTACT_ID, RawContacts.ACCOUNT_TYPE
+    };
+
+    private static final String[] PROJ_PHONE_NUMBER_WITH_TIMESTAMP = {
+            Phone.NUMBER, Phone.CONTACT_ID, RawContacts.ACCOUNT_TYPE,
+            Phone.CONTACT_LAST_UPDATED_TIMESTAMP
+    };
+
+    private static final String SEL_PHONE_UPDATED_SINCE = Phone.CONTACT_LAST_UPDATED_TIMESTAMP
+            + ">=?";
+
+    private static final String[] PROJ_CONTACT_UPDATED = {
+            Contacts._ID, Contacts.CONTACT_LAST_UPDATED_TIMESTAMP
+    };
+
+    private static final String SEL_CONTACT_UPDATED_SINCE = Contacts.CONTACT_LAST_UPDATED_TIMESTAMP
+            + ">=?";
+
+    private static final String[] PROJ_CONTACT_DELETED = {
+            DeletedContacts.CONTACT_ID, DeletedContacts.CONTACT_DELETED_TIMESTAMP
+    };
+
+    private static final String SEL_CONTACT_DELETED_SINCE = DeletedContacts.CONTACT_DELETED_TIMESTAMP
+            + ">=?";
+
+    /**
+     * Value of the change cursor when the index has not been loaded
+     */
+    private static final long NOT_LOADED = -1;
+
+    private static final Logger sLogger = Logger.getLogger(AddressBookNumberIndex.class
+            .getSimpleName());
+
+    private final ContentResolver mContentResolver;
+
+    /**
+     * Normalized phone numbers of each native contact
+     */
+    private final Map<Long, Set<ContactId>> mNumbersByContactId = new HashMap<>();
+
+    /**
+     * Number of native contacts holding each normalized phone number
+     */
+    private final Map<ContactId, Integer> mReferenceCounts = new HashMap<>();
+
+    /**
+     * Change cursor: most recent update or deletion timestamp seen in the address book
+     */
+    private long mLastChangeTimestamp = NOT_LOADED;
+
+    /**
+     * Time of the previous synchronization, used to detect that the deleted contacts log may have
+     * been purged in between
+     */
+    private long mLastSyncTimestamp = NOT_LOADED;
+
+    /**
+     * Constructor
+     *
+     * @param contentResolver Content resolver
+     */
+    public AddressBookNumberIndex(ContentResolver contentResolver) {
+        mContentResolver = contentResolver;
+    }
+
+    /**
+     * Checks if a phone number is present in the native address book
+     *
+     * @param contact Contact ID
+     * @return True if at least one native contact holds this number
+     */
+    public boolean contains(ContactId contact) {
+        return mReferenceCounts.containsKey(contact);
+    }
+
+    /**
+     * Returns the number of distinct phone numbers of the native address book
+     *
+     * @return Number of phone numbers
+     */
+    public int size() {
+        return mReferenceCounts.size();
+    }
+
+    /**
+     * Forces a full reload of the index at the next synchronization
+     */
+    public void invalidate() {
+        mLastChangeTimestamp = NOT_LOADED;
+        mLastSyncTimestamp = NOT_LOADED;
+    }
+
+    /**
+     * Synchronizes the index with the native address book
+     *
+     * @return the set of phone numbers which are no longer present in the address book since the
+     *         previous synchronization, or null if the index has been fully reloaded, in which
+     *         case all phone numbers must be checked against the index
+     */
+    public Set<ContactId> synchronize() {
+        long now = System.currentTimeMillis();
+        long elapsed = now - mLastSyncTimestamp;
+        if (!CHANGE_CURSOR_SUPPORTED || mLastSyncTimestamp == NOT_LOADED
+                || elapsed > DeletedContacts.DAYS_KEPT_MILLISECONDS) {
+            /*
+             * No change cursor, or the deleted contacts may have been purged from the log since the
+             * previous synchronization.
+             */
+            reload();
+            mLastSyncTimestamp = now;
+            return null;
+        }
+        Set<ContactId> removedNumbers = update();
+        mLastSyncTimestamp = now;
+        return removedNumbers;
+    }
+
+    /**
+     * Loads all the phone numbers of the native address book
+     */
+    private void reload() {
+        long start = System.currentTimeMillis();
+        mNumbersByContactId.clear();
+        mReferenceCounts.clear();
+        Map<Long, Set<ContactId>> numbers = new HashMap<>();
+        long lastChangeTimestamp = queryPhoneNumbers(null, null, numbers);
+        for (Map.Entry<Long, Set<ContactId>> entry : numbers.entrySet()) {
+            addContact(entry.getKey(), entry.getValue());
+        }
+        mLastChangeTimestamp = lastChangeTimestamp;
+        if (sLogger.isActivated()) {
+            sLogger.debug("Address book index loaded: " + mReferenceCounts.size() + " numbers in "
+                    + (System.currentTimeMillis() - start) + " ms");
+        }
+    }
+
+    /**
+     * Applies the changes of the native address book since the change cursor
+     *
+     * @return the set of phone numbers which are no longer present in the address book
+     */
+    private Set<ContactId> update() {
+        long start = System.currentTimeMillis();
+        String[] selectionArgs = new String[] {
+            Long.toString(mLastChangeTimestamp)
+        };
+        Set<Long> changedContactIds = new HashSet<>();
+        long lastChangeTimestamp = queryContactIds(Contacts.CONTENT_URI, PROJ_CONTACT_UPDATED,
+                SEL_CONTACT_UPDATED_SINCE, selectionArgs, changedContactIds);
+        lastChangeTimestamp = Math.max(lastChangeTimestamp, queryContactIds(
+                DeletedContacts.CONTENT_URI, PROJ_CONTACT_DELETED, SEL_CONTACT_DELETED_SINCE,
+                selectionArgs, changedContactIds));
+        Map<Long, Set<ContactId>> numbers = new HashMap<>();
+        if (!changedContactIds.isEmpty()) {
+            lastChangeTimestamp = Math.max(lastChangeTimestamp, queryPhoneNumbers(
+                    SEL_PHONE_UPDATED_SINCE, selectionArgs, numbers));
+        }
+        /* A contact may have been updated between the queries */
+        changedContactIds.addAll(numbers.keySet());
+
+        Set<ContactId> removedNumbers = new HashSet<>();
+        for (Long contactId : changedContactIds) {
+            Set<ContactId> oldNumbers = mNumbersByContactId.remove(contactId);
+            if (oldNumbers != null) {
+                for (ContactId number : oldNumbers) {
+                    if (releaseNumber(number)) {
+                        removedNumbers.add(number);
+                    }
+                }
+            }
+        }
+        for (Map.Entry<Long, Set<ContactId>> entry : numbers.entrySet()) {
+            addContact(entry.getKey(), entry.getValue());
+        }
+        /* Numbers moved from a contact to another are still present */
+        removedNumbers.removeAll(mReferenceCounts.keySet());
+        mLastChangeTimestamp = Math.max(mLastChangeTimestamp, lastChangeTimestamp);
+        if (sLogger.isActivated()) {
+            sLogger.debug("Address book index updated: " + changedContactIds.size()
+                    + " changed contacts, " + removedNumbers.size() + " removed numbers in "
+                    + (System.currentTimeMillis() - start) + " ms");
+        }
+        return removedNumbers;
+    }
+
+    private void addContact(Long contactId, Set<ContactId> numbers) {
+        mNumbersByContactId.put(contactId, numbers);
+        for (ContactId number : numbers) {
+            Integer count = mReferenceCounts.get(number);
+            mReferenceCounts.put(number, count == null ? 1 : count + 1);
+        }
+    }
+
+    /**
+     * Releases a reference to a phone number
+     *
+     * @return True if the phone number is not referenced anymore
+     */
+    private boolean releaseNumber(ContactId number) {
+        Integer count = mReferenceCounts.get(number);
+        if (count == null || count <= 1) {
+            mReferenceCounts.remove(number);
+            return true;
+        }
+        mReferenceCounts.put(number, count - 1);
+        return false;
+    }
+
+    /**
+     * Queries the phone numbers of the native address book
+     *
+     * @param selection Selection or null for all phone numbers
+     * @param selectionArgs Selection arguments
+     * @param numbers Map filled with the normalized phone numbers of each contact
+     * @return the most recent update timestamp of the contacts read
+     */
+    private long queryPhoneNumbers(String selection, String[] selectionArgs,
+            Map<Long, Set<ContactId>> numbers) {
+        long lastChangeTimestamp = 0;
+        Cursor cursor = null;
+        try {
+            cursor = mContentResolver.query(Phone.CONTENT_URI,
+                    CHANGE_CURSOR_SUPPORTED ? PROJ_PHONE_NUMBER_WITH_TIMESTAMP : PROJ_PHONE_NUMBER,
+                    selection, selectionArgs, null);
+            CursorUtil.assertCursorIsNotNull(cursor, Phone.CONTENT_URI);
+            if (!cursor.moveToFirst()) {
+                return lastChangeTimestamp;
+            }
+            int numberColumnIdx = cursor.getColumnIndexOrThrow(Phone.NUMBER);
+            int contactIdColumnIdx = cursor.getColumnIndexOrThrow(Phone.CONTACT_ID);
+            int accountTypeColumnIdx = cursor.getColumnIndexOrThrow(RawContacts.ACCOUNT_TYPE);
+            int timestampColumnIdx = CHANGE_CURSOR_SUPPORTED ? cursor
+                    .getColumnIndexOrThrow(Phone.CONTACT_LAST_UPDATED_TIMESTAMP) : -1;
+            do {
+                if (timestampColumnIdx != -1) {
+                    lastChangeTimestamp = Math.max(lastChangeTimestamp,
+                            cursor.getLong(timestampColumnIdx));
+                }
+                String accountType = cursor.getString(accountTypeColumnIdx);
+                if (accountType != null && accountType.endsWith(SIM_ACCOUNT_TYPE_SUFFIX)) {
+                    continue;
+                }
+                Long contactId = cursor.getLong(contactIdColumnIdx);
+                Set<ContactId> contactNumbers = numbers.get(contactId);
+                if (contactNumbers == null) {
+                    contactNumbers = new HashSet<>();
+                    numbers.put(contactId, contactNumbers);
+                }
+                String phoneNumber = cursor.getString(numberColumnIdx);
+                PhoneNumber validatedNumber = ContactUtil
+                        .getValidPhoneNumberFromAndroid(phoneNumber);
+                if (validatedNumber == null) {
+                    if (sLogger.isActivated()) {
+                        sLogger.warn("Cannot parse phone number '" + phoneNumber + "'");
+                    }
+                    continue;
+                }
+                contactNumbers.add(ContactUtil.createContactIdFromValidatedData(validatedNumber));
+            } while (cursor.moveToNext());
+            return lastChangeTimestamp;
+
+        } finally {
+            CursorUtil.close(cursor);
+        }
+    }
+
+    /**
+     * Queries the IDs of the contacts changed since the change cursor
+     *
+     * @param uri Contacts or deleted contacts URI
+     * @param projection Projection of the contact ID and of the change timestamp
+     * @param selection Selection
+     * @param selectionArgs Selection arguments
+     * @param contactIds Set filled with the contact IDs
+     * @return the most recent change timestamp read
+     */
+    private long queryContactIds(Uri uri, String[] projection, String selection,
+            String[] selectionArgs, Set<Long> contactIds) {
+        long lastChangeTimestamp = 0;
+        Cursor cursor = null;
+        try {
+            cursor = mContentResolver.query(uri, projection, selection, selectionArgs, null);
+            CursorUtil.assertCursorIsNotNull(cursor, uri);
+            while (cursor.moveToNext()) {
+                contactIds.add(cursor.getLong(0));
+                lastChangeTimestamp = Math.max(lastChangeTimestamp, cursor.getLong(1));
+            }
+            return lastChangeTimestamp;
+
+        } finally {
+            CursorUtil.close(cursor);
+        }
+    }
+}
@@ -0,0 +1,463 @@
+/*******************************************************************************
+ * Software Name : RCS IMS Stack
+ *
+ * Copyright (C) 2010-2016 Orange.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+
+package com.gsma.rcs.provider.contact;
+
+import com.gsma.rcs.core.ims.service.ContactInfo;
+import com.gsma.rcs.provider.LocalContentResolver;
+import com.gsma.rcs.utils.logger.Logger;
+import com.gsma.rcs.utils.scheduler.TaskScheduler;
+import com.gsma.rcs.utils.scheduler.TaskScheduler.Pool;
+import com.gsma.services.rcs.contact.ContactId;
+
+import android.content.ContentProviderOperation;
+import android.content.ContentValues;
+import android.content.OperationApplicationException;
+import android.net.Uri;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache of the contact info.<br>
+ * The cache is bounded: entries are split into segments, each one evicting its least recently used
+ * entry when full. Updates of a contact are serialized by a lock taken from a fixed set of locks,
+ * selected by the contact hash, so that updates of different contacts run in parallel.<br>
+ * Frequent writes of the capability refresh timestamps are written behind: they are merged per
+ * contact and flushed to the RCS contact provider by a background thread after a short delay, or
+ * as soon as enough contacts are pending, in a single transaction. Changes of the contact
+ * information, such as the capabilities or the registration state, are flushed by the caller
+ * before returning, so a crash only loses timestamp refreshes and never leaves a batch partially
+ * applied. Pending writes of a contact must be flushed before writing it synchronously, see
+ * {@link #flush(ContactId)}.
+ *
+ * @author jexa7410
+ */
+public class ContactInfoCache {
+    /**
+     * Number of segments and of contact locks
+     */
+    private static final int NB_STRIPES = 16;
+
+    /**
+     * Delay before flushing the pending updates in milliseconds
+     */
+    private static final long WRITE_BEHIND_DELAY = 1000;
+
+    /**
+     * Number of pending contacts triggering an immediate flush
+     */
+    private static final int MAX_PENDING_WRITES = 200;
+
+    private static final Logger sLogger = Logger.getLogger(ContactInfoCache.class.getSimpleName());
+
+    private final Segment[] mSegments;
+
+    private final Object[] mLocks;
+
+    private final LocalContentResolver mLocalContentResolver;
+
+    private final Uri mContentUri;
+
+    /**
+     * Pending writes of the RCS contact provider
+     */
+    private final Map<ContactId, PendingWrite> mPendingUpdates = new HashMap<>();
+
+    /**
+     * Lock held while pending writes are applied, so that a contact flushed by a thread is never
+     * written afterward by a batch flushed concurrently, and that a contact is not seen as missing
+     * from the provider while its insert is being committed
+     */
+    private final Object mFlushLock = new Object();
+
+    private boolean mFlushScheduled = false;
+
+    private final AtomicLong mHitCount = new AtomicLong();
+
+    private final AtomicLong mMissCount = new AtomicLong();
+
+    private final AtomicLong mEvictionCount = new AtomicLong();
+
+    private final AtomicLong mWriteBehindCount = new AtomicLong();
+
+    private final AtomicLong mBatchCount = new AtomicLong();
+
+    private final Runnable mFlushTask = new Runnable() {
+        @Override
+        public void run() {
+            flush();
+        }
+    };
+
+    /**
+     * Constructor
+     *
+     * @param maxSize Maximum number of cached contacts
+     * @param localContentResolver Local content resolver used to flush the pending updates
+     * @param contentUri Content URI of the RCS contact provider
+     */
+    public ContactInfoCache(int maxSize, LocalContentResolver localContentResolver, Uri contentUri) {
+        mLocalContentResolver = localContentResolver;
+        mContentUri = contentUri;
+        int segmentSize = Math.max(1, (maxSize + NB_STRIPES - 1) / NB_STRIPES);
+        mSegments = new Segment[NB_STRIPES];
+        mLocks = new Object[NB_STRIPES];
+        for (int i = 0; i < NB_STRIPES; i++) {
+            mSegments[i] = new Segment(segmentSize);
+            mLocks[i] = new Object();
+        }
+    }
+
+    private static int getStripe(ContactId contact) {
+        int hash = contact.hashCode();
+        /* Spread the hash bits as the contact hash codes are those of phone numbers */
+        hash ^= (hash >>> 16);
+        return (hash & Integer.MAX_VALUE) % NB_STRIPES;
+    }
+
+    /**
+     * Returns the lock which must be held while reading then updating a contact
+     *
+     * @param contact Contact ID
+     * @return Lock
+     */
+    public Object getLock(ContactId contact) {
+        return mLocks[getStripe(contact)];
+    }
+
+    /**
+     * Get the contact info and update the hit and miss counters
+     *
+     * @param contact Contact ID
+     * @return Contact info or null if not cached
+     */
+    public ContactInfo get(ContactId contact) {
+        ContactInfo info = peek(contact);
+        if (info == null) {
+            mMissCount.incrementAndGet();
+        } else {
+            mHitCount.incrementAndGet();
+        }
+        return info;
+    }
+
+    /**
+     * Get the contact info without updating the counters
+     *
+     * @param contact Contact ID
+     * @return Contact info or null if not cached
+     */
+    public ContactInfo peek(ContactId contact) {
+        Segment segment = mSegments[getStripe(contact)];
+        synchronized (segment) {
+            return segment.get(contact);
+        }
+    }
+
+    /**
+     * Put the contact info
+     *
+     * @param contact Contact ID
+     * @param info Contact info
+     */
+    public void put(ContactId contact, ContactInfo info) {
+        Segment segment = mSegments[getStripe(contact)];
+        synchronized (segment) {
+            segment.put(contact, info);
+        }
+    }
+
+    /**
+     * Remove the contact info
+     *
+     * @param contact Contact ID
+     */
+    public void remove(ContactId contact) {
+        Segment segment = mSegments[getStripe(contact)];
+        synchronized (segment) {
+            segment.remove(contact);
+        }
+    }
+
+    /**
+     * Remove all the contact info and discard the pending updates
+     */
+    public void clear() {
+        for (Segment segment : mSegments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+        synchronized (mPendingUpdates) {
+            mPendingUpdates.clear();
+        }
+    }
+
+    /**
+     * Returns the number of cached contacts
+     *
+     * @return Number of contacts
+     */
+    public int size() {
+        int size = 0;
+        for (Segment segment : mSegments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Returns the number of lookups which found the contact in cache
+     *
+     * @return Number of hits
+     */
+    public long getHitCount() {
+        return mHitCount.get();
+    }
+
+    /**
+     * Returns the number of lookups which did not find the contact in cache
+     *
+     * @return Number of misses
+     */
+    public long getMissCount() {
+        return mMissCount.get();
+    }
+
+    /**
+     * Returns the number of contacts evicted to keep the cache bounded
+     *
+     * @return Number of evictions
+     */
+    public long getEvictionCount() {
+        return mEvictionCount.get();
+    }
+
+    /**
+     * Returns the number of updates written behind
+     *
+     * @return Number of updates
+     */
+    public long getWriteBehindCount() {
+        return mWriteBehindCount.get();
+    }
+
+    /**
+     * Returns the number of transactions used to flush the pending writes
+     *
+     * @return Number of transactions
+     */
+    public long getBatchCount() {
+        return mBatchCount.get();
+    }
+
+    /**
+     * Queue an update of the RCS contact provider. Updates of the same contact are merged and
+     * flushed after a short delay.
+     *
+     * @param contact Contact ID
+     * @param values Values to update
+     */
+    public void writeBehind(ContactId contact, ContentValues values) {
+        writeBehind(contact, values, false);
+    }
+
+    /**
+     * Queue a write of the RCS contact provider. Writes of the same contact are merged and flushed
+     * after a short delay.
+     *
+     * @param contact Contact ID
+     * @param values Values to write
+     * @param insert True if the contact row does not exist yet and must be inserted
+     */
+    public void writeBehind(ContactId contact, ContentValues values, boolean insert) {
+        mWriteBehindCount.incrementAndGet();
+        synchronized (mPendingUpdates) {
+            PendingWrite pendingWrite = mPendingUpdates.get(contact);
+            if (pendingWrite == null) {
+                mPendingUpdates.put(contact, new PendingWrite(values, insert));
+            } else {
+                pendingWrite.mValues.putAll(values);
+            }
+            TaskScheduler scheduler = TaskScheduler.getInstance();
+            if (mPendingUpdates.size() == MAX_PENDING_WRITES) {
+                try {
+                    scheduler.execute(Pool.IO, mFlushTask);
+                    return;
+                } catch (RejectedExecutionException e) {
+                    /* IO pool is full: flush after the usual delay */
+                }
+            }
+            if (!mFlushScheduled) {
+                mFlushScheduled = true;
+                scheduler.schedule(Pool.IO, mFlushTask, WRITE_BEHIND_DELAY);
+            }
+        }
+    }
+
+    /**
+     * Has pending insert. Waits for a flush in progress: its writes are no longer pending but may
+     * not be committed to the provider yet.
+     *
+     * @param contact Contact ID
+     * @return True if the contact row is to be inserted by a pending write
+     */
+    public boolean hasPendingInsert(ContactId contact) {
+        synchronized (mFlushLock) {
+            synchronized (mPendingUpdates) {
+                PendingWrite pendingWrite = mPendingUpdates.get(contact);
+                return pendingWrite != null && pendingWrite.mInsert;
+            }
+        }
+    }
+
+    /**
+     * Checks if a write of the contact is pending
+     *
+     * @param contact Contact ID
+     * @return True if the contact row has not been written yet to the provider
+     */
+    public boolean hasPendingWrite(ContactId contact) {
+        synchronized (mPendingUpdates) {
+            return mPendingUpdates.containsKey(contact);
+        }
+    }
+
+    /**
+     * Flush the pending write of a contact. Must be called with the contact lock held.
+     *
+     * @param contact Contact ID
+     */
+    public void flush(ContactId contact) {
+        synchronized (mFlushLock) {
+            PendingWrite pendingWrite;
+            synchronized (mPendingUpdates) {
+                pendingWrite = mPendingUpdates.remove(contact);
+            }
+            if (pendingWrite != null) {
+                apply(contact, pendingWrite);
+            }
+        }
+    }
+
+    /**
+     * Flush all the pending writes in a single transaction
+     */
+    public void flush() {
+        synchronized (mFlushLock) {
+            Map<ContactId, PendingWrite> pendingWrites;
+            synchronized (mPendingUpdates) {
+                mFlushScheduled = false;
+                if (mPendingUpdates.isEmpty()) {
+                    return;
+                }
+                pendingWrites = new HashMap<>(mPendingUpdates);
+                mPendingUpdates.clear();
+            }
+            ArrayList<ContentProviderOperation> ops = new ArrayList<>(pendingWrites.size());
+            for (Map.Entry<ContactId, PendingWrite> entry : pendingWrites.entrySet()) {
+                PendingWrite pendingWrite = entry.getValue();
+                if (pendingWrite.mInsert) {
+                    ops.add(ContentProviderOperation.newInsert(mContentUri)
+                            .withValues(pendingWrite.mValues).build());
+                } else {
+                    ops.add(ContentProviderOperation
+                            .newUpdate(Uri.withAppendedPath(mContentUri, entry.getKey().toString()))
+                            .withValues(pendingWrite.mValues).build());
+                }
+            }
+            try {
+                mLocalContentResolver.applyBatch(mContentUri, ops);
+                mBatchCount.incrementAndGet();
+
+            } catch (OperationApplicationException | RuntimeException e) {
+                /*
+                 * The transaction has been rolled back: apply the writes one by one so that a
+                 * single faulty write does not discard the others.
+                 */
+                sLogger.error("Failed to flush " + ops.size() + " contacts in a batch!", e);
+                for (Map.Entry<ContactId, PendingWrite> entry : pendingWrites.entrySet()) {
+                    try {
+                        apply(entry.getKey(), entry.getValue());
+                    } catch (RuntimeException exception) {
+                        sLogger.error("Failed to flush contact " + entry.getKey(), exception);
+                    }
+                }
+            }
+            if (sLogger.isActivated()) {
+                sLogger.debug("Flushed " + pendingWrites.size() + " contacts, cache hits="
+                        + mHitCount + " misses=" + mMissCount + " evictions=" + mEvictionCount);
+            }
+        }
+    }
+
+    private void apply(ContactId contact, PendingWrite pendingWrite) {
+        if (pendingWrite.mInsert) {
+            mLocalContentResolver.insert(mContentUri, pendingWrite.mValues);
+        } else {
+            mLocalContentResolver.update(Uri.withAppendedPath(mContentUri, contact.toString()),
+                    pendingWrite.mValues, null, null);
+        }
+        mBatchCount.incrementAndGet();
+    }
+
+    /**
+     * Pending write of a contact
+     */
+    private static class PendingWrite {
+        private final ContentValues mValues;
+
+        private final boolean mInsert;
+
+        private PendingWrite(ContentValues values, boolean insert) {
+            mValues = new ContentValues(values);
+            mInsert = insert;
+        }
+    }
+
+    /**
+     * Segment of the cache: a LRU map
+     */
+    private class Segment extends LinkedHashMap<ContactId, ContactInfo> {
+        private static final long serialVersionUID = 1L;
+
+        private final int mMaxSize;
+
+        public Segment(int maxSize) {
+            super(16, 0.75f, true);
+            mMaxSize = maxSize;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<ContactId, ContactInfo> eldest) {
+            if (size() > mMaxSize) {
+                mEvictionCount.incrementAndGet();
+                return true;
+            }
+            return false;
+        }
+    }
+}
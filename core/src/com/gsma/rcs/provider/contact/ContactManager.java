@@ -413,6 +413,11 @@ public final class ContactManager {
     private static final String SEL_RCS_CONTACT_GROUP_ACCOUNT_TYPE = Groups.ACCOUNT_TYPE + "='"
             + RCS_CONTACT_GROUP_NAME + "'";
 
+    /**
+     * Maximum number of contact info kept in cache
+     */
+    private static final int CONTACT_INFO_CACHE_MAX_SIZE = 1024;
+
     /**
      * Current instance
      */
@@ -426,7 +431,9 @@ public final class ContactManager {
 
     private final RcsSettings mRcsSettings;
 
-    private final Map<ContactId, ContactInfo> mContactInfoCache;
+    private final ContactInfoCache mContactInfoCache;
+
+    private final AddressBookNumberIndex mAddressBookIndex;
 
     private static final Logger sLogger = Logger.getLogger(ContactManager.class.getSimpleName());
 
@@ -466,7 +473,9 @@ public final class ContactManager {
         mContext = context;
         mContentResolver = contentResolver;
         mLocalContentResolver = localContentResolver;
-        mContactInfoCache = new HashMap<>();
+        mContactInfoCache = new ContactInfoCache(CONTACT_INFO_CACHE_MAX_SIZE, localContentResolver,
+                CONTENT_URI);
+        mAddressBookIndex = new AddressBookNumberIndex(contentResolver);
         mRcsSettings = rcsSettings;
     }
 
@@ -597,23 +606,29 @@ public final class ContactManager {
         /* Save the registration state */
         values.put(KEY_REGISTRATION_STATE, newInfo.getRegistrationState().toInt());
 
+        /*
+         * A change of the contact information, such as the capabilities or the registration
+         * state, is written through before returning so that it survives a crash. The pending
+         * timestamp refreshes of the contact, if any, are merged into the same write.
+         */
         if (hasEntryInRcsContactAddressBook) {
             if (logActivated) {
                 sLogger.info("Update RCS contact ".concat(contactNumber));
             }
             /* RCS contact already exists in provider: update RABP entry */
-            Uri uri = Uri.withAppendedPath(CONTENT_URI, contactNumber);
-            mLocalContentResolver.update(uri, values, null, null);
+            mContactInfoCache.writeBehind(contact, values, false);
         } else {
             if (logActivated) {
                 sLogger.info("Insert new contact ".concat(contactNumber));
             }
             /* RCS contact does not exists in provider: insert entry in RABP */
-            mLocalContentResolver.insert(CONTENT_URI, values);
+            mContactInfoCache.writeBehind(contact, values, true);
         }
+        mContactInfoCache.flush(contact);
 
         /* Save presence photo content */
-        if (photoIcon != null) {
+        if (photoIcon != null && photoIcon.getContent() != null) {
+            /* The photo is stored in a file referenced by the provider entry */
             savePhotoIcon(photoIcon, contact);
         }
 
@@ -920,12 +935,26 @@ public final class ContactManager {
     private ContactInfo getContactInfoInternal(ContactId contact) {
         ContactInfo contactInfo = mContactInfoCache.get(contact);
         if (contactInfo == null) {
-            contactInfo = getContactInfoFromProvider(contact);
-            mContactInfoCache.put(contact, contactInfo);
+            contactInfo = loadContactInfo(contact);
         }
         return contactInfo;
     }
 
+    /**
+     * Load contact info from the RCS contact provider into the cache. Must be called with the
+     * contact lock held.
+     * 
+     * @param contact the contact ID
+     * @return ContactInfo
+     */
+    private ContactInfo loadContactInfo(ContactId contact) {
+        /* The contact may have been evicted while it had pending updates */
+        mContactInfoCache.flush(contact);
+        ContactInfo contactInfo = getContactInfoFromProvider(contact);
+        mContactInfoCache.put(contact, contactInfo);
+        return contactInfo;
+    }
+
     /**
      * Save photo icon
      * 
@@ -995,7 +1024,7 @@ public final class ContactManager {
         if (sLogger.isActivated()) {
             sLogger.info("Block contact ".concat(contact.toString()));
         }
-        synchronized (mContactInfoCache) {
+        synchronized (mContactInfoCache.getLock(contact)) {
             ContactInfo oldInfo = getContactInfoInternal(contact);
             ContactInfo newInfo = new ContactInfo(oldInfo);
             newInfo.setRcsStatus(RcsStatus.BLOCKED);
@@ -1010,10 +1039,8 @@ public final class ContactManager {
         if (sLogger.isActivated()) {
             sLogger.debug("clear ContactInfo cache");
         }
-        synchronized (mContactInfoCache) {
-            mContactInfoCache.clear();
-            mLocalContentResolver.delete(CONTENT_URI, null, null);
-        }
+        mContactInfoCache.clear();
+        mLocalContentResolver.delete(CONTENT_URI, null, null);
     }
 
     /**
@@ -1024,7 +1051,8 @@ public final class ContactManager {
      * @param rcsStatus RCS status
      */
     public void updateRcsStatusOrCreateNewContact(ContactId contact, RcsStatus rcsStatus) {
-        synchronized (mContactInfoCache) {
+        synchronized (mContactInfoCache.getLock(contact)) {
+            mContactInfoCache.flush(contact);
             long currentTime = System.currentTimeMillis();
             ContentValues values = new ContentValues();
             values.put(KEY_PRESENCE_SHARING_STATUS, rcsStatus.toInt());
@@ -1072,6 +1100,8 @@ public final class ContactManager {
      * @return set containing all RCS contacts, "Me" item excluded
      */
     public Set<ContactId> getRcsContactsWithSocialPresence() {
+        /* Pending inserts and updates must be visible to the query */
+        mContactInfoCache.flush();
         Set<ContactId> rcsNumbers = new HashSet<>();
         Cursor cursor = null;
         try {
@@ -1100,6 +1130,8 @@ public final class ContactManager {
      * @return set containing all RCS contacts
      */
     public Set<ContactId> getRcsContactsFromRcsContactProvider() {
+        /* Pending inserts and updates must be visible to the query */
+        mContactInfoCache.flush();
         Set<ContactId> rcsNumbers = new HashSet<>();
         Cursor cursor = null;
         try {
@@ -1128,6 +1160,8 @@ public final class ContactManager {
      * @return set containing all contacts that have been at least queried once for capabilities
      */
     public Set<ContactId> getAllContactsFromRcsContactProvider() {
+        /* Pending inserts and updates must be visible to the query */
+        mContactInfoCache.flush();
         Set<ContactId> numbers = new HashSet<>();
         Cursor cursor = null;
         try {
@@ -1695,22 +1729,42 @@ public final class ContactManager {
      * @return Contact info
      */
     public ContactInfo getContactInfo(ContactId contact) {
-        synchronized (mContactInfoCache) {
-            return getContactInfoInternal(contact);
+        ContactInfo contactInfo = mContactInfoCache.get(contact);
+        if (contactInfo != null) {
+            return contactInfo;
+        }
+        synchronized (mContactInfoCache.getLock(contact)) {
+            /* Another thread may have loaded the contact meanwhile */
+            contactInfo = mContactInfoCache.peek(contact);
+            if (contactInfo == null) {
+                contactInfo = loadContactInfo(contact);
+            }
+            return contactInfo;
         }
     }
 
+    /**
+     * Returns the contact info cache, giving access to its hit, miss and eviction counters
+     * 
+     * @return Contact info cache
+     */
+    public ContactInfoCache getContactInfoCache() {
+        return mContactInfoCache;
+    }
+
     /**
      * Sets capabilities for contact
      * 
      * @param contact Contact Id
      * @param capabilities Capabilities to set
+     * @return True if the contact information changed, false if only the time of last response
+     *         was updated
      * @throws FileAccessException
      * @throws ContactManagerException
      */
-    public void setContactCapabilities(ContactId contact, Capabilities capabilities)
+    public boolean setContactCapabilities(ContactId contact, Capabilities capabilities)
             throws ContactManagerException, FileAccessException {
-        setContactCapabilities(contact, capabilities, getContactStatus(contact),
+        return setContactCapabilities(contact, capabilities, getContactStatus(contact),
                 getRegistrationState(contact));
     }
 
@@ -1721,13 +1775,15 @@ public final class ContactManager {
      * @param capabilities Capabilities
      * @param contactType Contact type
      * @param registrationState Three possible values : online/offline/unknown
+     * @return True if the contact information changed, false if only the time of last response
+     *         was updated
      * @throws ContactManagerException
      * @throws FileAccessException
      */
-    public void setContactCapabilities(ContactId contact, Capabilities capabilities,
+    public boolean setContactCapabilities(ContactId contact, Capabilities capabilities,
             RcsStatus contactType, RegistrationState registrationState)
             throws ContactManagerException, FileAccessException {
-        synchronized (mContactInfoCache) {
+        synchronized (mContactInfoCache.getLock(contact)) {
             /* Get the current information on this contact */
             ContactInfo oldInfo = getContactInfoInternal(contact);
             ContactInfo newInfo = new ContactInfo(oldInfo);
@@ -1778,19 +1834,32 @@ public final class ContactManager {
             /* Add the capabilities */
             newInfo.setCapabilities(capaBuilder.build());
             /* Do not set contact info if they are unchanged */
-            if (newInfo.getCapabilities().equals(oldInfo.getCapabilities())
+            if (!isCapabilitiesChanged(newInfo.getCapabilities(), oldInfo.getCapabilities())
                     && newInfo.getRcsStatus() == oldInfo.getRcsStatus()
                     && newInfo.getRegistrationState() == oldInfo.getRegistrationState()) {
                 /* Only update time of last response if capabilities are unchanged */
                 updateCapabilitiesTimeLastResponse(contact,
                         capabilities.getTimestampOfLastResponse());
-                return;
+                return false;
             }
             /* Save the modifications */
             setContactInfoInternal(newInfo, oldInfo);
+            return true;
         }
     }
 
+    /**
+     * Checks if the supported services or extensions differ, the timestamps are ignored
+     * 
+     * @param newCapa New capabilities
+     * @param oldCapa Old capabilities, may be null
+     * @return True if the capabilities changed
+     */
+    private static boolean isCapabilitiesChanged(Capabilities newCapa, Capabilities oldCapa) {
+        return oldCapa == null || newCapa.getChangedServices(oldCapa) != 0
+                || newCapa.isExtensionsChanged(oldCapa);
+    }
+
     /**
      * Merge capabilities with existing capabilities in the cache
      * 
@@ -1805,7 +1874,7 @@ public final class ContactManager {
     public void mergeContactCapabilities(ContactId contact, Capabilities capabilities,
             RcsStatus contactType, RegistrationState registrationState, String displayName)
             throws ContactManagerException, FileAccessException {
-        synchronized (mContactInfoCache) {
+        synchronized (mContactInfoCache.getLock(contact)) {
             /* Get the current information on this contact */
             ContactInfo oldInfo = getContactInfoInternal(contact);
             /* Merge the capabilities */
@@ -1880,7 +1949,7 @@ public final class ContactManager {
             newInfo.setCapabilities(capBuilder.build());
             newInfo.setDisplayName(displayName);
             /* Do not set contact info if they are unchanged */
-            if (newInfo.getCapabilities().equals(oldInfo.getCapabilities())
+            if (!isCapabilitiesChanged(newInfo.getCapabilities(), oldInfo.getCapabilities())
                     && newInfo.getRcsStatus() == oldInfo.getRcsStatus()
                     && newInfo.getRegistrationState() == oldInfo.getRegistrationState()
                     && (displayName == null ? oldInfo.getDisplayName() == null : displayName
@@ -1924,7 +1993,7 @@ public final class ContactManager {
         if (sLogger.isActivated()) {
             sLogger.debug("Update time of last capabilities request for ".concat(contactNumber));
         }
-        synchronized (mContactInfoCache) {
+        synchronized (mContactInfoCache.getLock(contact)) {
             ContactInfo contactInfo = getContactInfoInternal(contact);
             Capabilities capabilities = contactInfo.getCapabilities();
             long now = System.currentTimeMillis();
@@ -1934,8 +2003,7 @@ public final class ContactManager {
             contactInfo.setCapabilities(capaBuilder.build());
             ContentValues values = new ContentValues();
             values.put(KEY_CAPABILITY_TIMESTAMP_LAST_REQUEST, now);
-            Uri uri = Uri.withAppendedPath(CONTENT_URI, contactNumber);
-            mLocalContentResolver.update(uri, values, null, null);
+            mContactInfoCache.writeBehind(contact, values);
         }
     }
 
@@ -2265,6 +2333,9 @@ public final class ContactManager {
      * @return true if contact has an entry in the RCS contact provider, else false
      */
     public boolean isContactIdAssociatedWithRcsContactProvider(final ContactId contact) {
+        if (mContactInfoCache.hasPendingInsert(contact)) {
+            return true;
+        }
         Cursor cursor = null;
         Uri uri = Uri.withAppendedPath(CONTENT_URI, contact.toString());
         try {
@@ -2651,39 +2722,59 @@ public final class ContactManager {
      * Clean the RCS entries <br>
      * This removes the RCS entries that are associated to numbers not present in the address book
      * anymore <br>
-     * This also creates a RCS raw contact for numbers that are present, have RCS raw contact but
-     * not on all raw contacts (typical example: a RCS number is present in the address book and
-     * another contact is created using the same number)
+     * The numbers of the address book are read into an in memory index which is then updated
+     * incrementally, so that only the contacts changed since the previous call are read. The RCS
+     * entries to remove are computed in memory and deleted in batch.
      * 
      * @throws ContactManagerException
      */
     public void cleanRCSEntries() throws ContactManagerException {
-        synchronized (mContactInfoCache) {
-            cleanRCSRawContactsInAB();
-            cleanEntriesInRcsContactProvider();
+        synchronized (mAddressBookIndex) {
+            /* Read the address book without locking the contact info cache */
+            Set<ContactId> removedNumbers = mAddressBookIndex.synchronize();
+            if (removedNumbers != null && removedNumbers.isEmpty()) {
+                return;
+            }
+            Set<Long> rcsRawContactIds = cleanRCSRawContactsInAB(removedNumbers);
+            cleanEntriesInRcsContactProvider(removedNumbers, rcsRawContactIds);
+        }
+    }
+
+    /**
+     * Checks if a RCS entry must be removed because its number is not in the address book anymore
+     * 
+     * @param contact Contact ID of the RCS entry
+     * @param removedNumbers Numbers removed from the address book or null to check all entries
+     * @return True if the RCS entry must be removed
+     */
+    private boolean isRemovedFromAddressBook(ContactId contact, Set<ContactId> removedNumbers) {
+        if (removedNumbers != null && !removedNumbers.contains(contact)) {
+            return false;
         }
+        return !mAddressBookIndex.contains(contact);
     }
 
     /**
      * Clean Address Book
      * 
+     * @param removedNumbers Numbers removed from the address book or null to check all entries
+     * @return the IDs of the deleted RCS raw contacts
      * @throws ContactManagerException
      */
-    private void cleanRCSRawContactsInAB() throws ContactManagerException {
+    private Set<Long> cleanRCSRawContactsInAB(Set<ContactId> removedNumbers)
+            throws ContactManagerException {
+        Set<Long> rcsRawContactIds = new HashSet<>();
         Cursor cursor = null;
         try {
             cursor = mContentResolver.query(Data.CONTENT_URI, PROJ_RAW_CONTACT_DATA1,
                     SEL_DATA_MIMETYPE_NUMBER, null, null);
             CursorUtil.assertCursorIsNotNull(cursor, Data.CONTENT_URI);
             if (!cursor.moveToFirst()) {
-                return;
+                return rcsRawContactIds;
             }
             int contactColumnIdx = cursor.getColumnIndexOrThrow(Data.RAW_CONTACT_ID);
             int data1ColumnIdx = cursor.getColumnIndexOrThrow(Data.DATA1);
-            /*
-             * Get all RCS raw contacts id Delete RCS Entry where number is not in the address book
-             * anymore.
-             */
+            /* Delete RCS raw contacts where number is not in the address book anymore */
             ArrayList<ContentProviderOperation> ops = new ArrayList<>();
             do {
                 String phoneNumber = cursor.getString(data1ColumnIdx);
@@ -2695,23 +2786,21 @@ public final class ContactManager {
                     continue;
                 }
                 ContactId contact = ContactUtil.createContactIdFromValidatedData(number);
-                long rawContactId = cursor.getLong(contactColumnIdx);
-                if (getRawContactIdsFromPhoneNumber(contact).isEmpty()) {
+                if (isRemovedFromAddressBook(contact, removedNumbers)) {
+                    long rawContactId = cursor.getLong(contactColumnIdx);
                     ops.add(ContentProviderOperation.newDelete(RawContacts.CONTENT_URI)
                             .withSelection(SEL_RAW_CONTACT, new String[] {
                                 Long.toString(rawContactId)
                             }).build());
-                    /* Also delete the corresponding entries in the aggregation provider */
-                    mLocalContentResolver.delete(AggregationData.CONTENT_URI,
-                            WHERE_RCS_RAW_CONTACT_ID, new String[] {
-                                Long.toString(rawContactId)
-                            });
+                    rcsRawContactIds.add(rawContactId);
                 }
             } while (cursor.moveToNext());
             if (!ops.isEmpty()) {
                 /* Do the actual database modifications */
                 mContentResolver.applyBatch(ContactsContract.AUTHORITY, ops);
             }
+            return rcsRawContactIds;
+
         } catch (RemoteException | OperationApplicationException e) {
             throw new ContactManagerException("Unable to apply batch updates !", e);
 
@@ -2722,37 +2811,61 @@ public final class ContactManager {
 
     /**
      * Clean all in RCS contact provider
+     * 
+     * @param removedNumbers Numbers removed from the address book or null to check all entries
+     * @param rcsRawContactIds IDs of the deleted RCS raw contacts
+     * @throws ContactManagerException
      */
-    private void cleanEntriesInRcsContactProvider() {
-        /* Get All contacts in RCS contact provider */
+    private void cleanEntriesInRcsContactProvider(Set<ContactId> removedNumbers,
+            Set<Long> rcsRawContactIds) throws ContactManagerException {
+        ArrayList<ContentProviderOperation> ops = new ArrayList<>();
+        /* Also delete the corresponding entries in the aggregation provider */
+        for (Long rcsRawContactId : rcsRawContactIds) {
+            ops.add(ContentProviderOperation.newDelete(AggregationData.CONTENT_URI)
+                    .withSelection(WHERE_RCS_RAW_CONTACT_ID, new String[] {
+                        Long.toString(rcsRawContactId)
+                    }).build());
+        }
+        /* Get All contacts in RCS contact provider, including the pending inserts */
+        mContactInfoCache.flush();
+        Set<ContactId> removedContacts = new HashSet<>();
         Cursor cursor = null;
         try {
             cursor = mLocalContentResolver.query(CONTENT_URI, PROJ_RCSCONTACT_CONTACT, null, null,
                     null);
             CursorUtil.assertCursorIsNotNull(cursor, CONTENT_URI);
-            if (!cursor.moveToFirst()) {
-                return;
-            }
             int contactColumnIdx = cursor.getColumnIndexOrThrow(KEY_CONTACT);
             /* Delete RCS contact Entry where number is not in the address book anymore */
-            do {
+            while (cursor.moveToNext()) {
                 String phoneNumber = cursor.getString(contactColumnIdx);
                 /* Do not check validity for trusted data */
                 PhoneNumber number = ContactUtil.getValidPhoneNumberFromAndroid(phoneNumber);
                 ContactId contact = ContactUtil.createContactIdFromValidatedData(number);
-                if (getRawContactIdsFromPhoneNumber(contact).isEmpty()) {
-                    Uri uri = Uri.withAppendedPath(ContactData.CONTENT_URI, phoneNumber);
-                    mLocalContentResolver.delete(uri, null, null);
-                    if (sLogger.isActivated()) {
-                        sLogger.debug("cleanEntriesInRcsContactProvider clear for contact="
-                                .concat(phoneNumber));
-                    }
-                    mContactInfoCache.remove(contact);
+                if (isRemovedFromAddressBook(contact, removedNumbers)) {
+                    ops.add(ContentProviderOperation.newDelete(
+                            Uri.withAppendedPath(ContactData.CONTENT_URI, phoneNumber)).build());
+                    removedContacts.add(contact);
                 }
-            } while (cursor.moveToNext());
+            }
         } finally {
             CursorUtil.close(cursor);
         }
+        if (ops.isEmpty()) {
+            return;
+        }
+        try {
+            /* Apply all the deletions in a single transaction */
+            mLocalContentResolver.applyBatch(CONTENT_URI, ops);
+        } catch (OperationApplicationException e) {
+            throw new ContactManagerException("Unable to apply batch updates !", e);
+        }
+        for (ContactId contact : removedContacts) {
+            mContactInfoCache.remove(contact);
+        }
+        if (sLogger.isActivated()) {
+            sLogger.debug("cleanEntriesInRcsContactProvider cleared " + removedContacts.size()
+                    + " contacts and " + rcsRawContactIds.size() + " RCS raw contacts");
+        }
     }
 
     /**
@@ -2761,15 +2874,13 @@ public final class ContactManager {
     public void deleteRCSEntries() {
         /* Delete Aggregation data */
         mLocalContentResolver.delete(AggregationData.CONTENT_URI, null, null);
-        synchronized (mContactInfoCache) {
-            /* Empty the cache */
-            if (sLogger.isActivated()) {
-                sLogger.debug("deleteRCSEntries");
-            }
-            mContactInfoCache.clear();
-            /* Delete presence data */
-            mLocalContentResolver.delete(CONTENT_URI, null, null);
+        /* Empty the cache */
+        if (sLogger.isActivated()) {
+            sLogger.debug("deleteRCSEntries");
         }
+        mContactInfoCache.clear();
+        /* Delete presence data */
+        mLocalContentResolver.delete(CONTENT_URI, null, null);
     }
 
     /**
@@ -2790,7 +2901,7 @@ public final class ContactManager {
      * @param displayName the display name
      */
     public void setContactDisplayName(ContactId contact, String displayName) {
-        synchronized (mContactInfoCache) {
+        synchronized (mContactInfoCache.getLock(contact)) {
             ContentValues values = new ContentValues();
             values.put(KEY_DISPLAY_NAME, displayName);
             /* Check if record exists and if so then update is required */
@@ -2802,6 +2913,8 @@ public final class ContactManager {
                             + contact);
                 }
                 Uri uri = Uri.withAppendedPath(ContactData.CONTENT_URI, contact.toString());
+                /* Older pending writes must not overwrite the display name */
+                mContactInfoCache.flush(contact);
                 /* Contact already present and display name is new, update */
                 mLocalContentResolver.update(uri, values, null, null);
 
@@ -2832,7 +2945,7 @@ public final class ContactManager {
             sLogger.debug("Update the time of last capabilities response for "
                     .concat(contactNumber));
         }
-        synchronized (mContactInfoCache) {
+        synchronized (mContactInfoCache.getLock(contact)) {
             ContactInfo contactInfo = getContactInfoInternal(contact);
             Capabilities capabilities = contactInfo.getCapabilities();
             /* Update the cache */
@@ -2841,8 +2954,7 @@ public final class ContactManager {
             contactInfo.setCapabilities(capaBuilder.build());
             ContentValues values = new ContentValues();
             values.put(KEY_CAPABILITY_TIMESTAMP_LAST_RESPONSE, timestampOfLastResponse);
-            Uri uri = Uri.withAppendedPath(CONTENT_URI, contactNumber);
-            mLocalContentResolver.update(uri, values, null, null);
+            mContactInfoCache.writeBehind(contact, values);
         }
     }
 
@@ -2856,7 +2968,7 @@ public final class ContactManager {
      */
     public void setBlockingState(ContactId contact, BlockingState state)
             throws ContactManagerException, FileAccessException {
-        synchronized (mContactInfoCache) {
+        synchronized (mContactInfoCache.getLock(contact)) {
             /* Get the current information on this contact */
             ContactInfo oldInfo = getContactInfoInternal(contact);
             ContactInfo newInfo = new ContactInfo(oldInfo);
@@ -2942,7 +3054,7 @@ public final class ContactManager {
      */
     public void aggregateContactWithRcsRawContact(ContactInfo contactInfo)
             throws ContactManagerException, FileAccessException {
-        synchronized (mContactInfoCache) {
+        synchronized (mContactInfoCache.getLock(contactInfo.getContact())) {
             /*
              * if RCS contact does not exist, it will be created and RCS raw contact also. if RCS
              * contact already exists, it will enforce creation and association of RCS raw contact.
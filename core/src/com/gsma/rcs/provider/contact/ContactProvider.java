@@ -31,9 +31,12 @@ import com.gsma.rcs.utils.logger.Logger;
 import com.gsma.services.rcs.capability.CapabilitiesLog;
 
 import android.content.ContentProvider;
+import android.content.ContentProviderOperation;
+import android.content.ContentProviderResult;
 import android.content.ContentUris;
 import android.content.ContentValues;
 import android.content.Context;
+import android.content.OperationApplicationException;
 import android.content.UriMatcher;
 import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
@@ -46,8 +49,12 @@ import android.text.TextUtils;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -234,6 +241,11 @@ public class ContactProvider extends ContentProvider {
 
     private DatabaseHelper mOpenHelper;
 
+    /**
+     * URIs changed by the batch being applied by the current thread, if any
+     */
+    private final ThreadLocal<Set<Uri>> mBatchChanges = new ThreadLocal<>();
+
     private String getSelectionWithContact(String selection) {
         if (TextUtils.isEmpty(selection)) {
             return RCS_CONTACT_SELECTION_WITH_CONTACT_ONLY;
@@ -362,7 +374,7 @@ public class ContactProvider extends ContentProvider {
                 db.update(CAPABILITY_TABLE, initialValues, RCS_CONTACT_SELECTION_WITH_CONTACT_ONLY,
                         getSelectionArgsWithContact(null, contact));
                 Uri notificationUri = Uri.withAppendedPath(CapabilitiesLog.CONTENT_URI, contact);
-                context.getContentResolver().notifyChange(notificationUri, null);
+                notifyChange(notificationUri);
                 return notificationUri;
 
             case UriType.Contacts.CONTACTS_WITH_ID:
@@ -377,7 +389,7 @@ public class ContactProvider extends ContentProvider {
                 db = mOpenHelper.getWritableDatabase();
                 long rowID = db.insert(AGGREGATION_TABLE, null, initialValues);
                 notificationUri = ContentUris.withAppendedId(AggregationData.CONTENT_URI, rowID);
-                getContext().getContentResolver().notifyChange(notificationUri, null);
+                notifyChange(notificationUri);
                 return notificationUri;
 
             default:
@@ -468,8 +480,7 @@ public class ContactProvider extends ContentProvider {
                 SQLiteDatabase db = mOpenHelper.getWritableDatabase();
                 int count = db.update(CAPABILITY_TABLE, values, selection, selectionArgs);
                 if (count > 0) {
-                    getContext().getContentResolver().notifyChange(
-                            Uri.withAppendedPath(CapabilitiesLog.CONTENT_URI, contact), null);
+                    notifyChange(Uri.withAppendedPath(CapabilitiesLog.CONTENT_URI, contact));
                 }
                 return count;
 
@@ -477,8 +488,7 @@ public class ContactProvider extends ContentProvider {
                 db = mOpenHelper.getWritableDatabase();
                 count = db.update(CAPABILITY_TABLE, values, selection, selectionArgs);
                 if (count > 0) {
-                    getContext().getContentResolver().notifyChange(CapabilitiesLog.CONTENT_URI,
-                            null);
+                    notifyChange(CapabilitiesLog.CONTENT_URI);
                 }
                 return count;
 
@@ -498,7 +508,7 @@ public class ContactProvider extends ContentProvider {
                 db = mOpenHelper.getWritableDatabase();
                 count = db.update(AGGREGATION_TABLE, values, selection, selectionArgs);
                 if (count > 0) {
-                    getContext().getContentResolver().notifyChange(uri, null);
+                    notifyChange(uri);
                 }
                 return count;
 
@@ -517,8 +527,7 @@ public class ContactProvider extends ContentProvider {
                 SQLiteDatabase db = mOpenHelper.getWritableDatabase();
                 int count = db.delete(CAPABILITY_TABLE, selection, selectionArgs);
                 if (count > 0) {
-                    getContext().getContentResolver().notifyChange(
-                            Uri.withAppendedPath(CapabilitiesLog.CONTENT_URI, contact), null);
+                    notifyChange(Uri.withAppendedPath(CapabilitiesLog.CONTENT_URI, contact));
                 }
                 return count;
 
@@ -526,8 +535,7 @@ public class ContactProvider extends ContentProvider {
                 db = mOpenHelper.getWritableDatabase();
                 count = db.delete(CAPABILITY_TABLE, selection, selectionArgs);
                 if (count > 0) {
-                    getContext().getContentResolver().notifyChange(CapabilitiesLog.CONTENT_URI,
-                            null);
+                    notifyChange(CapabilitiesLog.CONTENT_URI);
                 }
                 return count;
 
@@ -547,7 +555,7 @@ public class ContactProvider extends ContentProvider {
                 db = mOpenHelper.getWritableDatabase();
                 count = db.delete(AGGREGATION_TABLE, selection, selectionArgs);
                 if (count > 0) {
-                    getContext().getContentResolver().notifyChange(uri, null);
+                    notifyChange(uri);
                 }
                 return count;
 
@@ -578,4 +586,73 @@ public class ContactProvider extends ContentProvider {
                 throw new IllegalArgumentException("Unsupported URI " + uri + "!");
         }
     }
+
+    @Override
+    public ContentProviderResult[] applyBatch(
+            @NonNull ArrayList<ContentProviderOperation> operations)
+            throws OperationApplicationException {
+        SQLiteDatabase database = mOpenHelper.getWritableDatabase();
+        Set<Uri> changes = new LinkedHashSet<>();
+        ContentProviderResult[] results = new ContentProviderResult[operations.size()];
+        mBatchChanges.set(changes);
+        database.beginTransaction();
+        try {
+            int index = 0;
+            for (ContentProviderOperation operation : operations) {
+                results[index] = operation.apply(this, results, index);
+                index++;
+            }
+            database.setTransactionSuccessful();
+        } finally {
+            database.endTransaction();
+            mBatchChanges.remove();
+        }
+        /* Notify the changes once the transaction is committed, once per table if possible */
+        Map<Uri, Uri> notifications = new LinkedHashMap<>();
+        for (Uri uri : changes) {
+            Uri tableUri = getTableUri(uri);
+            notifications.put(tableUri, notifications.containsKey(tableUri) ? tableUri : uri);
+        }
+        for (Uri uri : notifications.values()) {
+            notifyChange(uri);
+        }
+        return results;
+    }
+
+    /**
+     * Notify a change, or record it if it is done by a batch
+     *
+     * @param uri Changed URI
+     */
+    private void notifyChange(Uri uri) {
+        Set<Uri> changes = mBatchChanges.get();
+        if (changes != null) {
+            changes.add(uri);
+            return;
+        }
+        getContext().getContentResolver().notifyChange(uri, null);
+    }
+
+    /**
+     * Returns the URI of the table of a row. Observers of the rows are notified of a change of
+     * the table URI.
+     *
+     * @param uri URI
+     * @return Table URI
+     */
+    private static Uri getTableUri(Uri uri) {
+        switch (sUriMatcher.match(uri)) {
+            case UriType.InternalContacts.INTERNAL_CONTACTS_WITH_ID:
+                return ContactData.CONTENT_URI;
+
+            case UriType.Contacts.CONTACTS_WITH_ID:
+                return CapabilitiesLog.CONTENT_URI;
+
+            case UriType.Aggregation.AGGREGATION_WITH_ID:
+                return AggregationData.CONTENT_URI;
+
+            default:
+                return uri;
+        }
+    }
 }
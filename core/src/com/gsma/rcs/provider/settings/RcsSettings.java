@@ -1116,6 +1116,35 @@ public class RcsSettings {
         return readLong(RcsSettingsData.MSRP_TRANSACTION_TIMEOUT);
     }
 
+    /**
+     * Get size of the MSRP chunks sent for a content. A size below 1024 bytes is raised to 1024
+     * bytes, unless the maximum chunk size is lower.
+     *
+     * @return Size in bytes, initial size if the chunk size is adaptive
+     */
+    public int getMsrpChunkSize() {
+        return readInteger(RcsSettingsData.MSRP_CHUNK_SIZE);
+    }
+
+    /**
+     * Get maximum size of the MSRP chunks exchanged with the network. It is a hard limit which
+     * wins over the 1024 bytes floor of the chunk size.
+     *
+     * @return Size in bytes
+     */
+    public int getMsrpMaxChunkSize() {
+        return readInteger(RcsSettingsData.MSRP_MAX_CHUNK_SIZE);
+    }
+
+    /**
+     * Is MSRP chunk size adapted to the measured response latency and throughput
+     *
+     * @return Boolean
+     */
+    public boolean isMsrpChunkSizeAdaptive() {
+        return readBoolean(RcsSettingsData.MSRP_ADAPTIVE_CHUNK_SIZE);
+    }
+
     /**
      * Get default expire period for REGISTER
      *
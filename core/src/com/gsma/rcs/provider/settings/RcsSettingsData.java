@@ -878,6 +878,25 @@ public class RcsSettingsData {
     public static final String MSRP_TRANSACTION_TIMEOUT = "MsrpTransactionTimeout";
     /* package private */static final Long DEFAULT_MSRP_TRANSACTION_TIMEOUT = 5000L;
 
+    /**
+     * Size of the MSRP chunks sent for a content, or initial size if the chunk size is adaptive.
+     * Values below 1024 bytes are raised to 1024 bytes.
+     */
+    public static final String MSRP_CHUNK_SIZE = "MsrpChunkSize";
+    /* package private */static final Integer DEFAULT_MSRP_CHUNK_SIZE = 10 * 1024;
+
+    /**
+     * Maximum size of the MSRP chunks exchanged with the network
+     */
+    public static final String MSRP_MAX_CHUNK_SIZE = "MsrpMaxChunkSize";
+    /* package private */static final Integer DEFAULT_MSRP_MAX_CHUNK_SIZE = 64 * 1024;
+
+    /**
+     * Adapt the size of the MSRP chunks sent to the measured response latency and throughput
+     */
+    public static final String MSRP_ADAPTIVE_CHUNK_SIZE = "MsrpAdaptiveChunkSize";
+    /* package private */static final Boolean DEFAULT_MSRP_ADAPTIVE_CHUNK_SIZE = false;
+
     /**
      * Registration expire period
      */
@@ -1648,6 +1667,12 @@ public class RcsSettingsData {
                 RcsSettingsData.DEFAULT_RTP_DEFAULT_PORT);
         sSettingsKeyDefaultValue.put(RcsSettingsData.MSRP_TRANSACTION_TIMEOUT,
                 RcsSettingsData.DEFAULT_MSRP_TRANSACTION_TIMEOUT);
+        sSettingsKeyDefaultValue.put(RcsSettingsData.MSRP_CHUNK_SIZE,
+                RcsSettingsData.DEFAULT_MSRP_CHUNK_SIZE);
+        sSettingsKeyDefaultValue.put(RcsSettingsData.MSRP_MAX_CHUNK_SIZE,
+                RcsSettingsData.DEFAULT_MSRP_MAX_CHUNK_SIZE);
+        sSettingsKeyDefaultValue.put(RcsSettingsData.MSRP_ADAPTIVE_CHUNK_SIZE,
+                RcsSettingsData.DEFAULT_MSRP_ADAPTIVE_CHUNK_SIZE);
         sSettingsKeyDefaultValue.put(RcsSettingsData.REGISTER_EXPIRE_PERIOD,
                 RcsSettingsData.DEFAULT_REGISTER_EXPIRE_PERIOD);
         sSettingsKeyDefaultValue.put(RcsSettingsData.REGISTER_RETRY_BASE_TIME,
@@ -250,6 +250,10 @@ public class StackProvisioning extends Fragment implements IProvisioningFragment
         mHelper.setIntEditText(R.id.DefaultRtpPort, RcsSettingsData.RTP_DEFAULT_PORT);
         mHelper.setLongEditText(R.id.MsrpTransactionTimeout,
                 RcsSettingsData.MSRP_TRANSACTION_TIMEOUT);
+        mHelper.setIntEditText(R.id.MsrpChunkSize, RcsSettingsData.MSRP_CHUNK_SIZE);
+        mHelper.setIntEditText(R.id.MsrpMaxChunkSize, RcsSettingsData.MSRP_MAX_CHUNK_SIZE);
+        mHelper.setBoolCheckBox(R.id.MsrpAdaptiveChunkSize,
+                RcsSettingsData.MSRP_ADAPTIVE_CHUNK_SIZE);
         mHelper.setLongEditText(R.id.RegisterExpirePeriod, RcsSettingsData.REGISTER_EXPIRE_PERIOD);
         mHelper.setLongEditText(R.id.RegisterRetryBaseTime,
                 RcsSettingsData.REGISTER_RETRY_BASE_TIME);
@@ -410,6 +414,10 @@ public class StackProvisioning extends Fragment implements IProvisioningFragment
         mHelper.saveIntEditText(R.id.DefaultRtpPort, RcsSettingsData.RTP_DEFAULT_PORT);
         mHelper.saveLongEditText(R.id.MsrpTransactionTimeout,
                 RcsSettingsData.MSRP_TRANSACTION_TIMEOUT);
+        mHelper.saveIntEditText(R.id.MsrpChunkSize, RcsSettingsData.MSRP_CHUNK_SIZE);
+        mHelper.saveIntEditText(R.id.MsrpMaxChunkSize, RcsSettingsData.MSRP_MAX_CHUNK_SIZE);
+        mHelper.saveBoolCheckBox(R.id.MsrpAdaptiveChunkSize,
+                RcsSettingsData.MSRP_ADAPTIVE_CHUNK_SIZE);
         mHelper.saveLongEditText(R.id.RegisterExpirePeriod, RcsSettingsData.REGISTER_EXPIRE_PERIOD);
         mHelper.saveLongEditText(R.id.RegisterRetryBaseTime,
                 RcsSettingsData.REGISTER_RETRY_BASE_TIME);
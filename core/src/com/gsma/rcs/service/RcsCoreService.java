@@ -301,6 +301,8 @@ public class RcsCoreService extends Service implements CoreListener {
 
             Logger.sActivationFlag = mRcsSettings.isTraceActivated();
             Logger.traceLevel = mRcsSettings.getTraceLevel();
+            /* Traces shall never stall the SIP and MSRP threads */
+            Logger.setAsynchronous(true);
 
             if (logActivated) {
                 sLogger.info("RCS stack release is ".concat(TerminalInfo.getProductVersion(mCtx)));
@@ -0,0 +1,104 @@
+/*******************************************************************************
+ * Software Name : RCS IMS Stack
+ *
+ * Copyright (C) 2010-2016 Orange.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.gsma.rcs.utils;
+
+/**
+ * Token bucket rate limiter.<br>
+ * Tokens are added at a fixed rate up to the capacity of the bucket and each operation consumes
+ * one token, so that bursts up to the capacity are allowed while the average rate never exceeds
+ * the refill rate. The bucket never blocks: the caller is told how long to wait instead.<br>
+ * This class is not thread safe.
+ *
+ * @author jexa7410
+ */
+public class TokenBucket {
+
+    private final int mCapacity;
+
+    /**
+     * Number of tokens added per millisecond
+     */
+    private final double mRefillRate;
+
+    private double mTokens;
+
+    private long mLastRefill;
+
+    /**
+     * Constructor
+     *
+     * @param ratePerSecond Number of tokens added per second
+     * @param capacity Maximum number of tokens, i.e. size of the largest burst
+     * @param now Current time in milliseconds
+     */
+    public TokenBucket(double ratePerSecond, int capacity, long now) {
+        if (ratePerSecond <= 0 || capacity < 1) {
+            throw new IllegalArgumentException("Invalid token bucket rate " + ratePerSecond
+                    + " or capacity " + capacity + "!");
+        }
+        mRefillRate = ratePerSecond / 1000;
+        mCapacity = capacity;
+        mTokens = capacity;
+        mLastRefill = now;
+    }
+
+    private void refill(long now) {
+        if (now > mLastRefill) {
+            mTokens = Math.min(mCapacity, mTokens + (now - mLastRefill) * mRefillRate);
+        }
+        /* A clock going backward does not add tokens */
+        mLastRefill = now;
+    }
+
+    /**
+     * Try to consume a token
+     *
+     * @param now Current time in milliseconds
+     * @return 0 if a token has been consumed, else the delay in milliseconds before a token is
+     *         available
+     */
+    public long tryAcquire(long now) {
+        refill(now);
+        if (mTokens >= 1) {
+            mTokens--;
+            return 0;
+        }
+        return Math.max(1, (long) Math.ceil((1 - mTokens) / mRefillRate));
+    }
+
+    /**
+     * Returns the number of tokens currently available
+     *
+     * @param now Current time in milliseconds
+     * @return Number of whole tokens
+     */
+    public int getAvailableTokens(long now) {
+        refill(now);
+        return (int) mTokens;
+    }
+
+    /**
+     * Returns the capacity of the bucket
+     *
+     * @return Maximum number of tokens
+     */
+    public int getCapacity() {
+        return mCapacity;
+    }
+}
@@ -0,0 +1,138 @@
+/*******************************************************************************
+ * Software Name : RCS IMS Stack
+ *
+ * Copyright (C) 2010-2016 Orange.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+
+package com.gsma.rcs.utils;
+
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+import org.xmlpull.v1.XmlPullParser;
+import org.xmlpull.v1.XmlPullParserException;
+import org.xmlpull.v1.XmlPullParserFactory;
+
+import java.io.IOException;
+
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParser;
+import javax.xml.parsers.SAXParserFactory;
+
+/**
+ * Per-thread cache of XML parsers.<br>
+ * Looking up the parser factories and building a new parser cost more than parsing a small
+ * document such as an IMDN or an is-composing notification. Each thread keeps one SAX parser and
+ * one pull parser of each kind, which are reset after each use. A parser is removed from the cache
+ * while in use so that a document parsed from a handler of another one gets its own parser.
+ *
+ * @author jexa7410
+ */
+public final class XmlParserPool {
+
+    private static final SAXParserFactory sSaxParserFactory = SAXParserFactory.newInstance();
+
+    private static final ThreadLocal<SAXParser> sSaxParsers = new ThreadLocal<>();
+
+    private static final ThreadLocal<XmlPullParser> sPullParsers = new ThreadLocal<>();
+
+    private static final ThreadLocal<XmlPullParser> sNamespaceAwarePullParsers =
+            new ThreadLocal<>();
+
+    private static XmlPullParserFactory sPullParserFactory;
+
+    private XmlParserPool() {
+    }
+
+    /**
+     * Parse a document with the SAX parser of the calling thread
+     *
+     * @param inputSource Input source
+     * @param handler Handler of the document
+     * @throws ParserConfigurationException
+     * @throws SAXException
+     * @throws IOException
+     */
+    public static void parse(InputSource inputSource, DefaultHandler handler)
+            throws ParserConfigurationException, SAXException, IOException {
+        SAXParser parser = sSaxParsers.get();
+        if (parser == null) {
+            synchronized (sSaxParserFactory) {
+                parser = sSaxParserFactory.newSAXParser();
+            }
+        } else {
+            sSaxParsers.remove();
+        }
+        try {
+            parser.parse(inputSource, handler);
+        } finally {
+            try {
+                parser.reset();
+                sSaxParsers.set(parser);
+
+            } catch (UnsupportedOperationException e) {
+                /* Parser can't be reused */
+            }
+        }
+    }
+
+    /**
+     * Obtain a pull parser of the calling thread. The parser must be given back with
+     * recyclePullParser once the document has been parsed.
+     *
+     * @param namespaceAware True if the parser must process namespaces, tag names are then local
+     *            names
+     * @return Pull parser
+     * @throws XmlPullParserException
+     */
+    public static XmlPullParser obtainPullParser(boolean namespaceAware)
+            throws XmlPullParserException {
+        ThreadLocal<XmlPullParser> cache = namespaceAware ? sNamespaceAwarePullParsers
+                : sPullParsers;
+        XmlPullParser parser = cache.get();
+        if (parser != null) {
+            cache.remove();
+            return parser;
+        }
+        synchronized (XmlParserPool.class) {
+            if (sPullParserFactory == null) {
+                sPullParserFactory = XmlPullParserFactory.newInstance();
+            }
+            parser = sPullParserFactory.newPullParser();
+        }
+        parser.setFeature(XmlPullParser.FEATURE_PROCESS_NAMESPACES, namespaceAware);
+        return parser;
+    }
+
+    /**
+     * Give back a pull parser obtained from obtainPullParser
+     *
+     * @param parser Pull parser
+     */
+    public static void recyclePullParser(XmlPullParser parser) {
+        try {
+            /* Release the input and reset the parser state */
+            parser.setInput(null);
+            if (parser.getFeature(XmlPullParser.FEATURE_PROCESS_NAMESPACES)) {
+                sNamespaceAwarePullParsers.set(parser);
+            } else {
+                sPullParsers.set(parser);
+            }
+        } catch (XmlPullParserException e) {
+            /* Parser can't be reused */
+        }
+    }
+}
@@ -38,4 +38,54 @@ public abstract class Appender {
      * @param trace Trace
      */
     public abstract void printTrace(String classname, int level, String trace);
+
+    /**
+     * Print a trace which has not been formatted yet
+     * 
+     * @param classname Classname
+     * @param level Trace level
+     * @param format Trace format or trace if there is no argument
+     * @param args Arguments or null
+     */
+    public void printTrace(String classname, int level, String format, Object[] args) {
+        printTrace(classname, level, format(format, args));
+    }
+
+    /**
+     * Format a trace: each {} of the format is replaced by the next argument and the '\r'
+     * characters are removed as such traces are not printed out in logcat console
+     * 
+     * @param format Trace format
+     * @param args Arguments or null
+     * @return Trace
+     */
+    public static String format(String format, Object[] args) {
+        if (args == null || args.length == 0) {
+            return format.indexOf('\r') == -1 ? format : format.replace("\r", "");
+        }
+        int length = format.length();
+        StringBuilder trace = new StringBuilder(length + 16 * args.length);
+        int start = 0;
+        for (Object arg : args) {
+            int index = format.indexOf("{}", start);
+            if (index == -1) {
+                break;
+            }
+            appendWithoutCr(trace, format, start, index);
+            String value = String.valueOf(arg);
+            appendWithoutCr(trace, value, 0, value.length());
+            start = index + 2;
+        }
+        appendWithoutCr(trace, format, start, length);
+        return trace.toString();
+    }
+
+    private static void appendWithoutCr(StringBuilder trace, String value, int start, int end) {
+        int index;
+        while (start < end && (index = value.indexOf('\r', start)) != -1 && index < end) {
+            trace.append(value, start, index);
+            start = index + 1;
+        }
+        trace.append(value, start, end);
+    }
 }
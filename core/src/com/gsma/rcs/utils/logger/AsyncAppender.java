@@ -0,0 +1,158 @@
+/*******************************************************************************
+ * Software Name : RCS IMS Stack
+ *
+ * Copyright (C) 2010-2016 Orange.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.gsma.rcs.utils.logger;
+
+import com.gsma.rcs.utils.queue.BoundedQueue;
+import com.gsma.rcs.utils.queue.MpmcRingBufferQueue;
+import com.gsma.rcs.utils.queue.OverflowPolicy;
+
+/**
+ * Asynchronous appender.<br>
+ * Traces are queued in a bounded ring buffer and formatted then printed by the wrapped appenders
+ * on a background thread, so that a slow appender never stalls the SIP or MSRP threads. Traces
+ * are dropped, and counted, when the buffer is full. As formatting is deferred, the arguments of
+ * the parameterized traces shall not be modified once logged.
+ * 
+ * @author jexa7410
+ */
+public class AsyncAppender extends Appender implements Runnable {
+    /**
+     * Default maximum number of traces waiting to be printed
+     */
+    private static final int DEFAULT_CAPACITY = 1024;
+
+    private final Appender[] mAppenders;
+
+    private final BoundedQueue<Trace> mTraces;
+
+    /**
+     * Number of dropped traces already reported
+     */
+    private long mReportedDroppedCount;
+
+    /**
+     * Trace waiting to be printed
+     */
+    private static class Trace {
+        private final String mClassname;
+
+        private final int mLevel;
+
+        private final String mFormat;
+
+        private final Object[] mArgs;
+
+        private Trace(String classname, int level, String format, Object[] args) {
+            mClassname = classname;
+            mLevel = level;
+            mFormat = format;
+            mArgs = args;
+        }
+    }
+
+    /**
+     * Constructor
+     * 
+     * @param appenders Wrapped appenders or null to print no trace
+     */
+    public AsyncAppender(Appender[] appenders) {
+        this(appenders, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructor
+     * 
+     * @param appenders Wrapped appenders or null to print no trace
+     * @param capacity Maximum number of traces waiting to be printed
+     */
+    public AsyncAppender(Appender[] appenders, int capacity) {
+        super();
+        mAppenders = appenders != null ? appenders : new Appender[0];
+        mTraces = new MpmcRingBufferQueue<>(capacity, OverflowPolicy.DROP_NEWEST);
+        Thread thread = new Thread(this, "AsyncAppender");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        thread.start();
+    }
+
+    /**
+     * Returns the wrapped appenders
+     * 
+     * @return Appenders
+     */
+    public Appender[] getAppenders() {
+        return mAppenders;
+    }
+
+    /**
+     * Returns the number of traces dropped because the buffer was full
+     * 
+     * @return Number of traces
+     */
+    public long getDroppedCount() {
+        return mTraces.getDroppedCount();
+    }
+
+    /**
+     * Stop the background thread once the queued traces have been printed
+     */
+    public void close() {
+        mTraces.close();
+    }
+
+    @Override
+    public void printTrace(String classname, int level, String trace) {
+        mTraces.offer(new Trace(classname, level, trace, null));
+    }
+
+    @Override
+    public void printTrace(String classname, int level, String format, Object[] args) {
+        mTraces.offer(new Trace(classname, level, format, args));
+    }
+
+    /**
+     * Background processing
+     */
+    @Override
+    public void run() {
+        Trace trace;
+        while ((trace = mTraces.take()) != null) {
+            long droppedCount = mTraces.getDroppedCount();
+            if (droppedCount != mReportedDroppedCount) {
+                print("AsyncAppender", Logger.WARN_LEVEL, (droppedCount - mReportedDroppedCount)
+                        + " traces dropped", null);
+                mReportedDroppedCount = droppedCount;
+            }
+            print(trace.mClassname, trace.mLevel, trace.mFormat, trace.mArgs);
+        }
+    }
+
+    private void print(String classname, int level, String format, Object[] args) {
+        for (Appender appender : mAppenders) {
+            try {
+                appender.printTrace(classname, level, format, args);
+            } catch (RuntimeException e) {
+                /*
+                 * Intentionally catch runtime exceptions (e.g. from the toString of an argument) as
+                 * else it will abruptly end the background thread.
+                 */
+            }
+        }
+    }
+}
@@ -65,17 +65,17 @@ public class Logger {
     /**
      * Trace flag
      */
-    public static boolean sActivationFlag = TRACE_ON;
+    public static volatile boolean sActivationFlag = TRACE_ON;
 
     /**
      * Trace level
      */
-    public static int traceLevel = DEBUG_LEVEL;
+    public static volatile int traceLevel = DEBUG_LEVEL;
 
     /**
      * List of appenders
      */
-    private static Appender[] sAppenders = new Appender[] {
+    private static volatile Appender[] sAppenders = new Appender[] {
         new AndroidAppender()
     };
 
@@ -107,6 +107,43 @@ public class Logger {
         return (sActivationFlag == TRACE_ON);
     }
 
+    /**
+     * Is a trace level enabled
+     * 
+     * @param level Trace level
+     * @return True if the logger is activated and the level is not below the trace level
+     */
+    public boolean isLevelEnabled(int level) {
+        return sActivationFlag == TRACE_ON && level >= traceLevel;
+    }
+
+    /**
+     * Is debug level enabled
+     * 
+     * @return boolean
+     */
+    public boolean isDebugEnabled() {
+        return isLevelEnabled(DEBUG_LEVEL);
+    }
+
+    /**
+     * Is info level enabled
+     * 
+     * @return boolean
+     */
+    public boolean isInfoEnabled() {
+        return isLevelEnabled(INFO_LEVEL);
+    }
+
+    /**
+     * Is warning level enabled
+     * 
+     * @return boolean
+     */
+    public boolean isWarnEnabled() {
+        return isLevelEnabled(WARN_LEVEL);
+    }
+
     /**
      * Debug trace
      * 
@@ -116,6 +153,47 @@ public class Logger {
         printTrace(trace, DEBUG_LEVEL);
     }
 
+    /**
+     * Debug trace, formatted only if the debug level is enabled
+     * 
+     * @param format Trace format where each {} is replaced by an argument
+     * @param arg Argument
+     */
+    public void debug(String format, Object arg) {
+        if (isLevelEnabled(DEBUG_LEVEL)) {
+            printTrace(format, new Object[] {
+                arg
+            }, DEBUG_LEVEL);
+        }
+    }
+
+    /**
+     * Debug trace, formatted only if the debug level is enabled
+     * 
+     * @param format Trace format where each {} is replaced by an argument
+     * @param arg1 First argument
+     * @param arg2 Second argument
+     */
+    public void debug(String format, Object arg1, Object arg2) {
+        if (isLevelEnabled(DEBUG_LEVEL)) {
+            printTrace(format, new Object[] {
+                    arg1, arg2
+            }, DEBUG_LEVEL);
+        }
+    }
+
+    /**
+     * Debug trace, formatted only if the debug level is enabled
+     * 
+     * @param format Trace format where each {} is replaced by an argument
+     * @param args Arguments
+     */
+    public void debug(String format, Object... args) {
+        if (isLevelEnabled(DEBUG_LEVEL)) {
+            printTrace(format, args, DEBUG_LEVEL);
+        }
+    }
+
     /**
      * Info trace
      * 
@@ -125,6 +203,47 @@ public class Logger {
         printTrace(trace, INFO_LEVEL);
     }
 
+    /**
+     * Info trace, formatted only if the info level is enabled
+     * 
+     * @param format Trace format where each {} is replaced by an argument
+     * @param arg Argument
+     */
+    public void info(String format, Object arg) {
+        if (isLevelEnabled(INFO_LEVEL)) {
+            printTrace(format, new Object[] {
+                arg
+            }, INFO_LEVEL);
+        }
+    }
+
+    /**
+     * Info trace, formatted only if the info level is enabled
+     * 
+     * @param format Trace format where each {} is replaced by an argument
+     * @param arg1 First argument
+     * @param arg2 Second argument
+     */
+    public void info(String format, Object arg1, Object arg2) {
+        if (isLevelEnabled(INFO_LEVEL)) {
+            printTrace(format, new Object[] {
+                    arg1, arg2
+            }, INFO_LEVEL);
+        }
+    }
+
+    /**
+     * Info trace, formatted only if the info level is enabled
+     * 
+     * @param format Trace format where each {} is replaced by an argument
+     * @param args Arguments
+     */
+    public void info(String format, Object... args) {
+        if (isLevelEnabled(INFO_LEVEL)) {
+            printTrace(format, args, INFO_LEVEL);
+        }
+    }
+
     /**
      * Warning trace
      * 
@@ -134,6 +253,18 @@ public class Logger {
         printTrace(trace, WARN_LEVEL);
     }
 
+    /**
+     * Warning trace, formatted only if the warning level is enabled
+     * 
+     * @param format Trace format where each {} is replaced by an argument
+     * @param args Arguments
+     */
+    public void warn(String format, Object... args) {
+        if (isLevelEnabled(WARN_LEVEL)) {
+            printTrace(format, args, WARN_LEVEL);
+        }
+    }
+
     /**
      * Warning trace
      * 
@@ -193,17 +324,69 @@ public class Logger {
      * @param level Trace level
      */
     private void printTrace(String trace, int level) {
-        if (sAppenders != null && level >= traceLevel) {
-            /*
-             * String having '\' characters are not printed out in locat console !
-             */
-            trace = trace.replace("\r", "");
-            for (Appender appender : sAppenders) {
-                appender.printTrace(mClassname, level, trace);
+        printTrace(trace, null, level);
+    }
+
+    /**
+     * Print a trace, formatting is left to the appenders
+     * 
+     * @param format Trace format or trace if there is no argument
+     * @param args Arguments or null
+     * @param level Trace level
+     */
+    private void printTrace(String format, Object[] args, int level) {
+        Appender[] appenders = sAppenders;
+        if (appenders != null && level >= traceLevel) {
+            for (Appender appender : appenders) {
+                appender.printTrace(mClassname, level, format, args);
             }
         }
     }
 
+    /**
+     * Set the appenders
+     * 
+     * @param appenders Appenders or null to print no trace
+     */
+    public static synchronized void setAppenders(Appender[] appenders) {
+        sAppenders = appenders;
+    }
+
+    /**
+     * Returns the appenders
+     * 
+     * @return Appenders or null
+     */
+    public static Appender[] getAppenders() {
+        return sAppenders;
+    }
+
+    /**
+     * Print the traces asynchronously so that the calling threads are never blocked by the
+     * appenders. Without appender no trace is printed and the traces stay synchronous.
+     * 
+     * @param asynchronous True to format and print the traces on a background thread
+     */
+    public static synchronized void setAsynchronous(boolean asynchronous) {
+        Appender[] appenders = sAppenders;
+        if (appenders == null) {
+            return;
+        }
+        boolean isAsynchronous = appenders.length == 1 && appenders[0] instanceof AsyncAppender;
+        if (asynchronous == isAsynchronous) {
+            return;
+        }
+        if (asynchronous) {
+            sAppenders = new Appender[] {
+                new AsyncAppender(appenders)
+            };
+        } else {
+            AsyncAppender asyncAppender = (AsyncAppender) appenders[0];
+            sAppenders = asyncAppender.getAppenders();
+            asyncAppender.close();
+        }
+    }
+
     /**
      * Create a static instance
      * 
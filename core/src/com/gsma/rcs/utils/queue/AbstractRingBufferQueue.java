@@ -0,0 +1,263 @@
+/*******************************************************************************
+ * Software Name : RCS IMS Stack
+ *
+ * Copyright (C) 2010-2016 Orange.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.gsma.rcs.utils.queue;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Base class of the ring buffer queues.<br>
+ * Elements are exchanged through the lock-free {@link #tryOffer(Object)} and {@link #tryPoll()}
+ * of the subclasses. The lock is only taken by threads which have to wait for an element or for
+ * some room in the queue and by the threads waking them up, which they do only when a waiter has
+ * been registered.
+ *
+ * @param <E> Type of the queued elements
+ * @author jexa7410
+ */
+public abstract class AbstractRingBufferQueue<E> implements BoundedQueue<E> {
+
+    protected final int mCapacity;
+
+    private final OverflowPolicy mPolicy;
+
+    private final AtomicLong mDroppedCount = new AtomicLong();
+
+    private final ReentrantLock mLock = new ReentrantLock();
+
+    private final Condition mNotEmpty = mLock.newCondition();
+
+    private final Condition mNotFull = mLock.newCondition();
+
+    private final AtomicInteger mWaitingConsumers = new AtomicInteger();
+
+    private final AtomicInteger mWaitingProducers = new AtomicInteger();
+
+    private volatile boolean mClosed = false;
+
+    /**
+     * Constructor
+     *
+     * @param capacity Maximum number of elements
+     * @param policy Overflow policy
+     */
+    protected AbstractRingBufferQueue(int capacity, OverflowPolicy policy) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Invalid queue capacity " + capacity);
+        }
+        if (policy == null) {
+            throw new IllegalArgumentException("Overflow policy is missing");
+        }
+        mCapacity = capacity;
+        mPolicy = policy;
+    }
+
+    /**
+     * Add an element if the queue is not full, without blocking
+     *
+     * @param element Element
+     * @return False if the queue is full
+     */
+    protected abstract boolean tryOffer(E element);
+
+    /**
+     * Remove the element at the head of the queue, without blocking
+     *
+     * @return Element or null if the queue is empty
+     */
+    protected abstract E tryPoll();
+
+    @Override
+    public boolean offer(E element) {
+        if (element == null) {
+            throw new NullPointerException("Null element");
+        }
+        if (mClosed) {
+            return false;
+        }
+        switch (mPolicy) {
+            case DROP_NEWEST:
+                if (!tryOffer(element)) {
+                    mDroppedCount.incrementAndGet();
+                    return false;
+                }
+                break;
+
+            case DROP_OLDEST:
+                while (!tryOffer(element)) {
+                    if (tryPoll() != null) {
+                        mDroppedCount.incrementAndGet();
+                    }
+                }
+                break;
+
+            default:
+                while (!tryOffer(element)) {
+                    if (!awaitNotFull()) {
+                        return false;
+                    }
+                }
+                break;
+        }
+        signal(mWaitingConsumers, mNotEmpty);
+        return true;
+    }
+
+    @Override
+    public E poll() {
+        E element = tryPoll();
+        if (element != null) {
+            signal(mWaitingProducers, mNotFull);
+        }
+        return element;
+    }
+
+    @Override
+    public E poll(long timeout) {
+        E element = tryPoll();
+        if (element == null) {
+            element = awaitElement(TimeUnit.MILLISECONDS.toNanos(timeout));
+        }
+        if (element != null) {
+            signal(mWaitingProducers, mNotFull);
+        }
+        return element;
+    }
+
+    @Override
+    public E take() {
+        E element = tryPoll();
+        if (element == null) {
+            element = awaitElement(-1);
+        }
+        if (element != null) {
+            signal(mWaitingProducers, mNotFull);
+        }
+        return element;
+    }
+
+    @Override
+    public int getCapacity() {
+        return mCapacity;
+    }
+
+    @Override
+    public OverflowPolicy getOverflowPolicy() {
+        return mPolicy;
+    }
+
+    @Override
+    public long getDroppedCount() {
+        return mDroppedCount.get();
+    }
+
+    @Override
+    public void clear() {
+        while (tryPoll() != null) {
+            /* Nothing to do */
+        }
+        signal(mWaitingProducers, mNotFull);
+    }
+
+    @Override
+    public void close() {
+        mClosed = true;
+        mLock.lock();
+        try {
+            mNotEmpty.signalAll();
+            mNotFull.signalAll();
+        } finally {
+            mLock.unlock();
+        }
+    }
+
+    @Override
+    public boolean isClosed() {
+        return mClosed;
+    }
+
+    /**
+     * Wait for an element
+     *
+     * @param timeout Timeout in nanoseconds or -1 to wait until an element is available
+     * @return Element or null
+     */
+    private E awaitElement(long timeout) {
+        E element = null;
+        mWaitingConsumers.incrementAndGet();
+        mLock.lock();
+        try {
+            long remaining = timeout;
+            while ((element = tryPoll()) == null && !mClosed) {
+                if (timeout < 0) {
+                    mNotEmpty.await();
+                } else if (remaining > 0) {
+                    remaining = mNotEmpty.awaitNanos(remaining);
+                } else {
+                    break;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            mLock.unlock();
+            mWaitingConsumers.decrementAndGet();
+        }
+        return element;
+    }
+
+    /**
+     * Wait for some room in the queue
+     *
+     * @return False if the queue has been closed or the thread interrupted meanwhile
+     */
+    private boolean awaitNotFull() {
+        mWaitingProducers.incrementAndGet();
+        mLock.lock();
+        try {
+            while (!mClosed && size() >= mCapacity) {
+                mNotFull.await();
+            }
+            return !mClosed;
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+
+        } finally {
+            mLock.unlock();
+            mWaitingProducers.decrementAndGet();
+        }
+    }
+
+    private void signal(AtomicInteger waiters, Condition condition) {
+        if (waiters.get() == 0) {
+            return;
+        }
+        mLock.lock();
+        try {
+            condition.signalAll();
+        } finally {
+            mLock.unlock();
+        }
+    }
+}
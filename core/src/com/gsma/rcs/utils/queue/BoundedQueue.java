@@ -0,0 +1,107 @@
+/*******************************************************************************
+ * Software Name : RCS IMS Stack
+ *
+ * Copyright (C) 2010-2016 Orange.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.gsma.rcs.utils.queue;
+
+/**
+ * FIFO queue with a fixed capacity and an explicit overflow policy, used to hand over objects
+ * from producer threads to a consumer thread.<br>
+ * Once closed, a queue rejects new elements and its consumers get the remaining elements and then
+ * null instead of being blocked.
+ *
+ * @param <E> Type of the queued elements
+ * @author jexa7410
+ */
+public interface BoundedQueue<E> {
+    /**
+     * Add an element at the tail of the queue, applying the overflow policy if the queue is full
+     *
+     * @param element Element, not null
+     * @return False if the element has been dropped or if the queue is closed
+     */
+    boolean offer(E element);
+
+    /**
+     * Remove the element at the head of the queue without blocking
+     *
+     * @return Element or null if the queue is empty
+     */
+    E poll();
+
+    /**
+     * Remove the element at the head of the queue, blocking until an element is available, the
+     * timeout expires or the queue is closed
+     *
+     * @param timeout Timeout in milliseconds
+     * @return Element or null if no element is available
+     */
+    E poll(long timeout);
+
+    /**
+     * Remove the element at the head of the queue, blocking until an element is available or the
+     * queue is closed
+     *
+     * @return Element or null if the queue is empty and closed or if the thread is interrupted
+     */
+    E take();
+
+    /**
+     * Returns the number of elements in the queue
+     *
+     * @return Number of elements
+     */
+    int size();
+
+    /**
+     * Returns the capacity of the queue
+     *
+     * @return Maximum number of elements
+     */
+    int getCapacity();
+
+    /**
+     * Returns the overflow policy of the queue
+     *
+     * @return Overflow policy
+     */
+    OverflowPolicy getOverflowPolicy();
+
+    /**
+     * Returns the number of elements dropped by the overflow policy
+     *
+     * @return Number of elements
+     */
+    long getDroppedCount();
+
+    /**
+     * Remove all the elements of the queue. Must be called by a consumer.
+     */
+    void clear();
+
+    /**
+     * Close the queue and unblock its producers and consumers
+     */
+    void close();
+
+    /**
+     * Is closed
+     *
+     * @return True if the queue is closed
+     */
+    boolean isClosed();
+}
@@ -0,0 +1,124 @@
+/*******************************************************************************
+ * Software Name : RCS IMS Stack
+ *
+ * Copyright (C) 2010-2016 Orange.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.gsma.rcs.utils.queue;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Lock-free array ring buffer for any number of producer and consumer threads.<br>
+ * Each slot holds a sequence number telling whether it is ready to be written or read for a given
+ * position, so producers and consumers only compete with a compare-and-set on the tail or head
+ * position (bounded queue of D. Vyukov).
+ *
+ * @param <E> Type of the queued elements
+ * @author jexa7410
+ */
+public class MpmcRingBufferQueue<E> extends AbstractRingBufferQueue<E> {
+
+    private final AtomicReferenceArray<E> mBuffer;
+
+    private final AtomicLongArray mSequences;
+
+    /**
+     * Number of slots: sequence numbers cannot tell a free slot from a full one with a single slot
+     */
+    private final int mSlots;
+
+    private final AtomicLong mHead = new AtomicLong();
+
+    private final AtomicLong mTail = new AtomicLong();
+
+    /**
+     * Constructor
+     *
+     * @param capacity Maximum number of elements
+     * @param policy Overflow policy
+     */
+    public MpmcRingBufferQueue(int capacity, OverflowPolicy policy) {
+        super(capacity, policy);
+        mSlots = Math.max(2, capacity);
+        mBuffer = new AtomicReferenceArray<>(mSlots);
+        mSequences = new AtomicLongArray(mSlots);
+        for (int i = 0; i < mSlots; i++) {
+            mSequences.set(i, i);
+        }
+    }
+
+    @Override
+    protected boolean tryOffer(E element) {
+        long tail = mTail.get();
+        while (true) {
+            if (tail - mHead.get() >= mCapacity) {
+                return false;
+            }
+            int index = (int) (tail % mSlots);
+            long diff = mSequences.get(index) - tail;
+            if (diff == 0) {
+                if (mTail.compareAndSet(tail, tail + 1)) {
+                    mBuffer.lazySet(index, element);
+                    /* Publish the element to the consumers */
+                    mSequences.set(index, tail + 1);
+                    return true;
+                }
+                tail = mTail.get();
+
+            } else if (diff < 0) {
+                /* Slot not yet read since the previous round: queue is full */
+                return false;
+
+            } else {
+                tail = mTail.get();
+            }
+        }
+    }
+
+    @Override
+    protected E tryPoll() {
+        long head = mHead.get();
+        while (true) {
+            int index = (int) (head % mSlots);
+            long diff = mSequences.get(index) - (head + 1);
+            if (diff == 0) {
+                if (mHead.compareAndSet(head, head + 1)) {
+                    E element = mBuffer.get(index);
+                    mBuffer.lazySet(index, null);
+                    /* Give the slot back to the producers for the next round */
+                    mSequences.set(index, head + mSlots);
+                    return element;
+                }
+                head = mHead.get();
+
+            } else if (diff < 0) {
+                /* Slot not yet written: queue is empty */
+                return null;
+
+            } else {
+                head = mHead.get();
+            }
+        }
+    }
+
+    @Override
+    public int size() {
+        long head = mHead.get();
+        return (int) Math.max(0, Math.min(mTail.get() - head, mCapacity));
+    }
+}
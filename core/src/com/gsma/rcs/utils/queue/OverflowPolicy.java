@@ -0,0 +1,41 @@
+/*******************************************************************************
+ * Software Name : RCS IMS Stack
+ *
+ * Copyright (C) 2010-2016 Orange.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.gsma.rcs.utils.queue;
+
+/**
+ * Policy applied when an element is offered to a full {@link BoundedQueue}
+ *
+ * @author jexa7410
+ */
+public enum OverflowPolicy {
+    /**
+     * The producer is blocked until there is room in the queue or until the queue is closed
+     */
+    BLOCK,
+
+    /**
+     * The oldest element of the queue is dropped to make room for the new one
+     */
+    DROP_OLDEST,
+
+    /**
+     * The new element is dropped
+     */
+    DROP_NEWEST
+}
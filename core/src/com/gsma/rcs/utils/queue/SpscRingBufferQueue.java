@@ -0,0 +1,104 @@
+/*******************************************************************************
+ * Software Name : RCS IMS Stack
+ *
+ * Copyright (C) 2010-2016 Orange.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.gsma.rcs.utils.queue;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free array ring buffer for a single producer thread and a single consumer thread.<br>
+ * The producer only writes the tail index and the consumer only writes the head index, so an
+ * element is exchanged without compare-and-set. The indexes are published with volatile writes:
+ * each side reads the waiter count of the other side right after, and a lazy write could be
+ * reordered after that read and miss the wakeup of a thread about to wait. Dropping the oldest
+ * element would make the producer a second consumer, hence the {@link OverflowPolicy#DROP_OLDEST}
+ * policy is not supported: use a {@link MpmcRingBufferQueue} instead.
+ *
+ * @param <E> Type of the queued elements
+ * @author jexa7410
+ */
+public class SpscRingBufferQueue<E> extends AbstractRingBufferQueue<E> {
+
+    private final E[] mBuffer;
+
+    private final int mMask;
+
+    /**
+     * Index of the next element to be read, written by the consumer only
+     */
+    private final AtomicLong mHead = new AtomicLong();
+
+    /**
+     * Index of the next element to be written, written by the producer only
+     */
+    private final AtomicLong mTail = new AtomicLong();
+
+    /**
+     * Constructor
+     *
+     * @param capacity Maximum number of elements
+     * @param policy Overflow policy, {@link OverflowPolicy#BLOCK} or
+     *            {@link OverflowPolicy#DROP_NEWEST}
+     */
+    @SuppressWarnings("unchecked")
+    public SpscRingBufferQueue(int capacity, OverflowPolicy policy) {
+        super(capacity, policy);
+        if (policy == OverflowPolicy.DROP_OLDEST) {
+            throw new IllegalArgumentException("Policy " + policy
+                    + " is not supported by a single consumer queue");
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        mBuffer = (E[]) new Object[size];
+        mMask = size - 1;
+    }
+
+    @Override
+    protected boolean tryOffer(E element) {
+        long tail = mTail.get();
+        if (tail - mHead.get() >= mCapacity) {
+            return false;
+        }
+        mBuffer[(int) tail & mMask] = element;
+        /* Publish the element to the consumer before looking for a waiting consumer */
+        mTail.set(tail + 1);
+        return true;
+    }
+
+    @Override
+    protected E tryPoll() {
+        long head = mHead.get();
+        if (head >= mTail.get()) {
+            return null;
+        }
+        int index = (int) head & mMask;
+        E element = mBuffer[index];
+        mBuffer[index] = null;
+        /* Give the slot back to the producer before looking for a waiting producer */
+        mHead.set(head + 1);
+        return element;
+    }
+
+    @Override
+    public int size() {
+        long head = mHead.get();
+        return (int) Math.max(0, Math.min(mTail.get() - head, mCapacity));
+    }
+}
@@ -0,0 +1,212 @@
+/*******************************************************************************
+ * Software Name : RCS IMS Stack
+ *
+ * Copyright (C) 2010-2016 Orange.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+
+package com.gsma.rcs.utils.scheduler;
+
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Metrics of a pool of the task scheduler: number of threads, queue depth, time spent by the tasks
+ * in the queue and time spent to execute them.
+ *
+ * @author jexa7410
+ */
+public class PoolMetrics {
+    private static final long NANOS_PER_MILLI = 1000000L;
+
+    private final String mName;
+
+    private final ThreadPoolExecutor mExecutor;
+
+    private final AtomicLong mStartedCount = new AtomicLong();
+
+    private final AtomicLong mCompletedCount = new AtomicLong();
+
+    private final AtomicLong mRejectedCount = new AtomicLong();
+
+    private final AtomicLong mTotalQueueLatency = new AtomicLong();
+
+    private final AtomicLong mMaxQueueLatency = new AtomicLong();
+
+    private final AtomicLong mTotalExecutionTime = new AtomicLong();
+
+    private final AtomicLong mMaxExecutionTime = new AtomicLong();
+
+    /**
+     * Constructor
+     *
+     * @param name Name of the pool
+     * @param executor Executor of the pool
+     */
+    /* package private */PoolMetrics(String name, ThreadPoolExecutor executor) {
+        mName = name;
+        mExecutor = executor;
+    }
+
+    /**
+     * Record the start of a task
+     *
+     * @param queueLatency Time spent by the task in the queue in nanoseconds
+     */
+    /* package private */void onTaskStarted(long queueLatency) {
+        mStartedCount.incrementAndGet();
+        mTotalQueueLatency.addAndGet(queueLatency);
+        updateMax(mMaxQueueLatency, queueLatency);
+    }
+
+    /**
+     * Record the end of a task
+     *
+     * @param executionTime Execution time of the task in nanoseconds
+     */
+    /* package private */void onTaskCompleted(long executionTime) {
+        mCompletedCount.incrementAndGet();
+        mTotalExecutionTime.addAndGet(executionTime);
+        updateMax(mMaxExecutionTime, executionTime);
+    }
+
+    /**
+     * Record a task rejected by the pool
+     */
+    /* package private */void onTaskRejected() {
+        mRejectedCount.incrementAndGet();
+    }
+
+    private static void updateMax(AtomicLong max, long value) {
+        long current;
+        while (value > (current = max.get())) {
+            if (max.compareAndSet(current, value)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Returns the name of the pool
+     *
+     * @return Name
+     */
+    public String getName() {
+        return mName;
+    }
+
+    /**
+     * Returns the number of threads of the pool
+     *
+     * @return Number of threads
+     */
+    public int getThreadCount() {
+        return mExecutor.getPoolSize();
+    }
+
+    /**
+     * Returns the maximum number of threads of the pool
+     *
+     * @return Number of threads
+     */
+    public int getMaxThreadCount() {
+        return mExecutor.getMaximumPoolSize();
+    }
+
+    /**
+     * Returns the number of threads executing a task
+     *
+     * @return Number of threads
+     */
+    public int getActiveThreadCount() {
+        return mExecutor.getActiveCount();
+    }
+
+    /**
+     * Returns the number of tasks waiting in the queue of the pool
+     *
+     * @return Number of tasks
+     */
+    public int getQueueDepth() {
+        return mExecutor.getQueue().size();
+    }
+
+    /**
+     * Returns the number of tasks executed by the pool
+     *
+     * @return Number of tasks
+     */
+    public long getCompletedTaskCount() {
+        return mCompletedCount.get();
+    }
+
+    /**
+     * Returns the number of tasks rejected because the queue of the pool was full
+     *
+     * @return Number of tasks
+     */
+    public long getRejectedTaskCount() {
+        return mRejectedCount.get();
+    }
+
+    /**
+     * Returns the average time spent by a task in the queue, for a scheduled task the time spent
+     * after its scheduled time
+     *
+     * @return Latency in milliseconds
+     */
+    public long getAverageQueueLatency() {
+        long count = mStartedCount.get();
+        return count == 0 ? 0 : mTotalQueueLatency.get() / count / NANOS_PER_MILLI;
+    }
+
+    /**
+     * Returns the maximum time spent by a task in the queue
+     *
+     * @return Latency in milliseconds
+     */
+    public long getMaxQueueLatency() {
+        return mMaxQueueLatency.get() / NANOS_PER_MILLI;
+    }
+
+    /**
+     * Returns the average execution time of a task
+     *
+     * @return Time in milliseconds
+     */
+    public long getAverageExecutionTime() {
+        long count = mCompletedCount.get();
+        return count == 0 ? 0 : mTotalExecutionTime.get() / count / NANOS_PER_MILLI;
+    }
+
+    /**
+     * Returns the maximum execution time of a task
+     *
+     * @return Time in milliseconds
+     */
+    public long getMaxExecutionTime() {
+        return mMaxExecutionTime.get() / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public String toString() {
+        return mName + ": threads=" + getThreadCount() + "/" + getMaxThreadCount() + ", active="
+                + getActiveThreadCount() + ", queued=" + getQueueDepth() + ", completed="
+                + getCompletedTaskCount() + ", rejected=" + getRejectedTaskCount()
+                + ", queue latency avg=" + getAverageQueueLatency() + "ms max="
+                + getMaxQueueLatency() + "ms, execution avg=" + getAverageExecutionTime()
+                + "ms max=" + getMaxExecutionTime() + "ms";
+    }
+}
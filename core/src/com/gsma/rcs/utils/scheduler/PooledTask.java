@@ -0,0 +1,103 @@
+/*******************************************************************************
+ * Software Name : RCS IMS Stack
+ *
+ * Copyright (C) 2010-2016 Orange.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+
+package com.gsma.rcs.utils.scheduler;
+
+import com.gsma.rcs.utils.scheduler.TaskScheduler.Pool;
+
+/**
+ * Long running task, such as a socket reader, executed by a thread of a pool of the task scheduler
+ * instead of its own thread. Tasks holding their thread as long as a connection is open are
+ * executed by the {@link Pool#LONG_RUNNING} pool, so that they never exhaust the IO pool.<br>
+ * The task can be interrupted as a thread would be: the pool thread is interrupted only while it
+ * runs this task, and an interruption requested before the task is started is delivered when it
+ * starts.
+ *
+ * @author jexa7410
+ */
+public abstract class PooledTask implements Runnable {
+    private final Pool mPool;
+
+    private final String mName;
+
+    /**
+     * Thread running the task or null
+     */
+    private Thread mThread;
+
+    private boolean mInterrupted = false;
+
+    /**
+     * Constructor
+     *
+     * @param pool Pool executing the task
+     * @param name Name given to the pool thread while it runs the task
+     */
+    public PooledTask(Pool pool, String name) {
+        mPool = pool;
+        mName = name;
+    }
+
+    /**
+     * Submit the task to its pool
+     *
+     * @throws java.util.concurrent.RejectedExecutionException if the pool is full
+     */
+    public void start() {
+        TaskScheduler.getInstance().execute(mPool, this);
+    }
+
+    /**
+     * Interrupt the thread running the task
+     */
+    public synchronized void interrupt() {
+        mInterrupted = true;
+        if (mThread != null) {
+            mThread.interrupt();
+        }
+    }
+
+    @Override
+    public final void run() {
+        Thread thread = Thread.currentThread();
+        String poolName = thread.getName();
+        synchronized (this) {
+            mThread = thread;
+            if (mInterrupted) {
+                thread.interrupt();
+            }
+        }
+        thread.setName(mName);
+        try {
+            runTask();
+        } finally {
+            synchronized (this) {
+                mThread = null;
+            }
+            /* The pool thread is given back without the interrupted status of the task */
+            Thread.interrupted();
+            thread.setName(poolName);
+        }
+    }
+
+    /**
+     * Background processing
+     */
+    protected abstract void runTask();
+}
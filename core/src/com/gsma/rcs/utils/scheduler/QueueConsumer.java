@@ -0,0 +1,218 @@
+/*******************************************************************************
+ * Software Name : RCS IMS Stack
+ *
+ * Copyright (C) 2010-2016 Orange.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+
+package com.gsma.rcs.utils.scheduler;
+
+import com.gsma.rcs.utils.logger.Logger;
+import com.gsma.rcs.utils.queue.BoundedQueue;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Consumer of a bounded queue which does not own a thread.<br>
+ * When elements are queued, a drain task is submitted to a pool of the task scheduler. Only one
+ * drain task is active at a time, so the elements are consumed one after the other in queuing
+ * order. A drain task gives its thread back to the pool after a batch of elements and the next
+ * batch is submitted again, so that a busy consumer does not starve the other tasks of the pool.
+ * <br>
+ * Urgent elements may be queued with {@link #offerUrgent(Object)}: they are kept in a separate
+ * unbounded queue, never blocked by the overflow policy of the bounded queue, and consumed before
+ * the elements of the bounded queue.
+ *
+ * @param <E> Type of the queued elements
+ * @author jexa7410
+ */
+public abstract class QueueConsumer<E> {
+    /**
+     * Maximum number of elements consumed by a drain task
+     */
+    private static final int MAX_BATCH_SIZE = 64;
+
+    /**
+     * Delay before submitting again a rejected drain task in milliseconds
+     */
+    private static final long DRAIN_RETRY_DELAY = 100;
+
+    private final BoundedQueue<E> mQueue;
+
+    private final Queue<E> mUrgentQueue = new ConcurrentLinkedQueue<>();
+
+    private final Executor mExecutor;
+
+    /**
+     * True while a drain task is submitted or running
+     */
+    private final AtomicBoolean mDraining = new AtomicBoolean(false);
+
+    private volatile boolean mStarted = false;
+
+    private final Runnable mDrainTask = new Runnable() {
+        @Override
+        public void run() {
+            drain();
+        }
+    };
+
+    private final Runnable mRetryTask = new Runnable() {
+        @Override
+        public void run() {
+            scheduleDrain();
+        }
+    };
+
+    private static final Logger sLogger = Logger.getLogger(QueueConsumer.class.getSimpleName());
+
+    /**
+     * Constructor
+     *
+     * @param queue Queue of the elements
+     * @param executor Executor of the drain tasks
+     */
+    public QueueConsumer(BoundedQueue<E> queue, Executor executor) {
+        mQueue = queue;
+        mExecutor = executor;
+    }
+
+    /**
+     * Start consuming the elements queued so far and the next ones
+     */
+    public void start() {
+        mStarted = true;
+        scheduleDrain();
+    }
+
+    /**
+     * Queue an element, applying the overflow policy of the queue if it is full
+     *
+     * @param element Element
+     * @return False if the element has been dropped or if the queue is closed
+     */
+    public boolean offer(E element) {
+        if (!mQueue.offer(element)) {
+            return false;
+        }
+        scheduleDrain();
+        return true;
+    }
+
+    /**
+     * Queue an urgent element. The overflow policy of the bounded queue is not applied: the caller
+     * is never blocked and the element is consumed before those of the bounded queue.
+     *
+     * @param element Element
+     * @return False if the queue is closed
+     */
+    public boolean offerUrgent(E element) {
+        if (mQueue.isClosed()) {
+            return false;
+        }
+        mUrgentQueue.offer(element);
+        scheduleDrain();
+        return true;
+    }
+
+    /**
+     * Close the queue: no more element is accepted, the elements already queued are still
+     * consumed
+     */
+    public void close() {
+        mQueue.close();
+    }
+
+    /**
+     * Is closed
+     *
+     * @return True if the queue is closed
+     */
+    public boolean isClosed() {
+        return mQueue.isClosed();
+    }
+
+    /**
+     * Returns the queue of the elements
+     *
+     * @return Queue
+     */
+    public BoundedQueue<E> getQueue() {
+        return mQueue;
+    }
+
+    /**
+     * Consume an element
+     *
+     * @param element Element
+     */
+    protected abstract void consume(E element);
+
+    private void scheduleDrain() {
+        if (!mStarted || (mQueue.size() == 0 && mUrgentQueue.isEmpty())
+                || !mDraining.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            mExecutor.execute(mDrainTask);
+        } catch (RejectedExecutionException e) {
+            /* The elements stay queued: the drain is retried even if nothing else is offered */
+            mDraining.set(false);
+            sLogger.error("Drain task rejected, " + (mQueue.size() + mUrgentQueue.size())
+                    + " elements pending!", e);
+            try {
+                TaskScheduler.getInstance().getTimer()
+                        .schedule(mRetryTask, DRAIN_RETRY_DELAY, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException ex) {
+                sLogger.error("Drain retry rejected!", ex);
+            }
+        }
+    }
+
+    private E poll() {
+        E element = mUrgentQueue.poll();
+        if (element != null) {
+            return element;
+        }
+        return mQueue.poll();
+    }
+
+    private void drain() {
+        try {
+            E element;
+            int count = 0;
+            while (count++ < MAX_BATCH_SIZE && (element = poll()) != null) {
+                try {
+                    consume(element);
+                } catch (RuntimeException e) {
+                    /*
+                     * Intentionally catch runtime exceptions as else it will abruptly end the
+                     * consumer, which is not intended.
+                     */
+                    sLogger.error("Failed to consume element!", e);
+                }
+            }
+        } finally {
+            mDraining.set(false);
+        }
+        /* An element may have been queued after the last poll */
+        scheduleDrain();
+    }
+}
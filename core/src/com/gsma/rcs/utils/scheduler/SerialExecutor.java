@@ -0,0 +1,83 @@
+/*******************************************************************************
+ * Software Name : RCS IMS Stack
+ *
+ * Copyright (C) 2010-2016 Orange.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+
+package com.gsma.rcs.utils.scheduler;
+
+import com.gsma.rcs.utils.queue.MpmcRingBufferQueue;
+import com.gsma.rcs.utils.queue.OverflowPolicy;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Executor running its tasks one after the other, in submission order, on the threads of a pool
+ * of the task scheduler. It replaces the single thread executors of the components and of the
+ * sessions.
+ *
+ * @author jexa7410
+ */
+public class SerialExecutor extends QueueConsumer<Runnable> implements Executor {
+
+    /**
+     * Constructor
+     *
+     * @param executor Executor of the pool
+     * @param capacity Maximum number of tasks waiting to be executed
+     */
+    public SerialExecutor(Executor executor, int capacity) {
+        super(new MpmcRingBufferQueue<Runnable>(capacity, OverflowPolicy.DROP_NEWEST), executor);
+        start();
+    }
+
+    /**
+     * Execute a task after the tasks already submitted
+     *
+     * @param task Task
+     * @throws RejectedExecutionException if the executor is full or shut down
+     */
+    @Override
+    public void execute(Runnable task) {
+        if (!offer(task)) {
+            throw new RejectedExecutionException(isClosed() ? "Executor is shut down!"
+                    : "Too many pending tasks!");
+        }
+    }
+
+    /**
+     * Shut down the executor: the tasks already submitted are executed, new ones are rejected
+     */
+    public void shutdown() {
+        close();
+    }
+
+    /**
+     * Shut down the executor and drop the tasks which are not started yet
+     */
+    public void shutdownNow() {
+        close();
+        while (getQueue().poll() != null) {
+            /* Drop the pending task */
+        }
+    }
+
+    @Override
+    protected void consume(Runnable task) {
+        task.run();
+    }
+}
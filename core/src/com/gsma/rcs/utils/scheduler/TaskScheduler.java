@@ -0,0 +1,361 @@
+/*******************************************************************************
+ * Software Name : RCS IMS Stack
+ *
+ * Copyright (C) 2010-2016 Orange.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+
+package com.gsma.rcs.utils.scheduler;
+
+import com.gsma.rcs.utils.logger.Logger;
+
+import java.util.concurrent.Delayed;
+import java.util.concurrent.Executor;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Task scheduler shared by the components of the stack.<br>
+ * Components submit their background work to a small set of named and bounded pools instead of
+ * creating their own threads:
+ * <ul>
+ * <li>IO: blocking work such as socket writes, database and file accesses,</li>
+ * <li>LONG_RUNNING: tasks holding their thread as long as their connection is open, such as
+ * socket readers (see {@link PooledTask}),</li>
+ * <li>CPU: short computations which never block,</li>
+ * <li>TIMER: delayed and periodic tasks, which must not block and hand over any long work to
+ * another pool.</li>
+ * </ul>
+ * Work which must be executed in order (a MSRP connection, a dispatcher, a manager) is submitted
+ * through a {@link SerialExecutor} or a {@link QueueConsumer} backed by a pool. Each pool publishes
+ * its metrics (see {@link PoolMetrics}).
+ *
+ * @author jexa7410
+ */
+public class TaskScheduler {
+    /**
+     * Pool of the task scheduler
+     */
+    public enum Pool {
+        /**
+         * Blocking input/output
+         */
+        IO,
+        /**
+         * Long running tasks, such as socket readers
+         */
+        LONG_RUNNING,
+        /**
+         * Computation
+         */
+        CPU,
+        /**
+         * Delayed and periodic tasks
+         */
+        TIMER
+    }
+
+    /**
+     * Maximum number of IO threads
+     */
+    private static final int MAX_IO_THREADS = 64;
+
+    private static final int MAX_TIMER_THREADS = 2;
+
+    /**
+     * Maximum number of tasks waiting for a thread in a pool
+     */
+    private static final int MAX_QUEUED_TASKS = 1024;
+
+    /**
+     * Default maximum number of tasks waiting in a serial executor
+     */
+    private static final int DEFAULT_SERIAL_CAPACITY = 64;
+
+    /**
+     * Idle time after which a thread of the pool is released in seconds
+     */
+    private static final long KEEP_ALIVE_TIME = 30;
+
+    private static volatile TaskScheduler sInstance;
+
+    private final MeteredThreadPoolExecutor mIoPool;
+
+    private final MeteredThreadPoolExecutor mLongRunningPool;
+
+    private final MeteredThreadPoolExecutor mCpuPool;
+
+    private final MeteredScheduledExecutor mTimerPool;
+
+    private static final Logger sLogger = Logger.getLogger(TaskScheduler.class.getSimpleName());
+
+    /**
+     * Returns the task scheduler
+     *
+     * @return Task scheduler
+     */
+    public static TaskScheduler getInstance() {
+        if (sInstance == null) {
+            synchronized (TaskScheduler.class) {
+                if (sInstance == null) {
+                    sInstance = new TaskScheduler();
+                }
+            }
+        }
+        return sInstance;
+    }
+
+    /**
+     * Constructor
+     */
+    private TaskScheduler() {
+        mIoPool = new MeteredThreadPoolExecutor(Pool.IO.name(), MAX_IO_THREADS);
+        /*
+         * Long running tasks are never queued behind each other: a thread is created for each one
+         * unless an idle thread is available.
+         */
+        mLongRunningPool = new MeteredThreadPoolExecutor(Pool.LONG_RUNNING.name(), 0,
+                Integer.MAX_VALUE, new SynchronousQueue<Runnable>());
+        mCpuPool = new MeteredThreadPoolExecutor(Pool.CPU.name(), Math.max(2, Runtime
+                .getRuntime().availableProcessors()));
+        mTimerPool = new MeteredScheduledExecutor(Pool.TIMER.name(), MAX_TIMER_THREADS);
+    }
+
+    /**
+     * Returns the executor of a pool
+     *
+     * @param pool Pool
+     * @return Executor
+     */
+    public Executor getExecutor(Pool pool) {
+        switch (pool) {
+            case IO:
+                return mIoPool;
+            case LONG_RUNNING:
+                return mLongRunningPool;
+            case CPU:
+                return mCpuPool;
+            default:
+                return mTimerPool;
+        }
+    }
+
+    /**
+     * Returns the executor of the delayed and periodic tasks
+     *
+     * @return Scheduled executor
+     */
+    public ScheduledExecutorService getTimer() {
+        return mTimerPool;
+    }
+
+    /**
+     * Execute a task in a pool
+     *
+     * @param pool Pool
+     * @param task Task
+     * @throws RejectedExecutionException if the queue of the pool is full
+     */
+    public void execute(Pool pool, Runnable task) {
+        getExecutor(pool).execute(task);
+    }
+
+    /**
+     * Execute a task in a pool after a delay. The timer only hands the task over to the pool, so
+     * that blocking tasks do not hold the timer threads.
+     *
+     * @param pool Pool
+     * @param task Task
+     * @param delay Delay in milliseconds
+     * @return Future which cancels the task as long as it has not been handed over to the pool
+     */
+    public ScheduledFuture<?> schedule(Pool pool, final Runnable task, long delay) {
+        if (Pool.TIMER == pool) {
+            return mTimerPool.schedule(task, delay, TimeUnit.MILLISECONDS);
+        }
+        final Executor executor = getExecutor(pool);
+        return mTimerPool.schedule(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    executor.execute(task);
+                } catch (RejectedExecutionException e) {
+                    sLogger.error("Delayed task rejected!", e);
+                }
+            }
+        }, delay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Create an executor running its tasks one after the other, in submission order, in a pool
+     *
+     * @param pool Pool
+     * @return Serial executor
+     */
+    public SerialExecutor createSerialExecutor(Pool pool) {
+        return createSerialExecutor(pool, DEFAULT_SERIAL_CAPACITY);
+    }
+
+    /**
+     * Create an executor running its tasks one after the other, in submission order, in a pool
+     *
+     * @param pool Pool
+     * @param capacity Maximum number of tasks waiting to be executed
+     * @return Serial executor
+     */
+    public SerialExecutor createSerialExecutor(Pool pool, int capacity) {
+        return new SerialExecutor(getExecutor(pool), capacity);
+    }
+
+    /**
+     * Returns the metrics of a pool
+     *
+     * @param pool Pool
+     * @return Metrics
+     */
+    public PoolMetrics getMetrics(Pool pool) {
+        switch (pool) {
+            case IO:
+                return mIoPool.mMetrics;
+            case LONG_RUNNING:
+                return mLongRunningPool.mMetrics;
+            case CPU:
+                return mCpuPool.mMetrics;
+            default:
+                return mTimerPool.mMetrics;
+        }
+    }
+
+    /**
+     * Log the metrics of all the pools
+     */
+    public void logMetrics() {
+        if (sLogger.isActivated()) {
+            for (Pool pool : Pool.values()) {
+                sLogger.info(getMetrics(pool).toString());
+            }
+        }
+    }
+
+    /**
+     * Count the rejected tasks before throwing the usual exception
+     */
+    private static class MeteredRejectionHandler implements RejectedExecutionHandler {
+        private PoolMetrics mMetrics;
+
+        @Override
+        public void rejectedExecution(Runnable task, ThreadPoolExecutor executor) {
+            mMetrics.onTaskRejected();
+            throw new RejectedExecutionException("Pool " + mMetrics.getName() + " is full!");
+        }
+    }
+
+    /**
+     * Task remembering when it has been queued
+     */
+    private static class MeteredTask implements Runnable {
+        private final Runnable mTask;
+
+        private final long mQueuedAt = System.nanoTime();
+
+        public MeteredTask(Runnable task) {
+            mTask = task;
+        }
+
+        @Override
+        public void run() {
+            mTask.run();
+        }
+    }
+
+    /**
+     * Pool of threads recording the queue latency and the execution time of its tasks
+     */
+    private static class MeteredThreadPoolExecutor extends ThreadPoolExecutor {
+        private final PoolMetrics mMetrics;
+
+        private final ThreadLocal<Long> mStartTime = new ThreadLocal<>();
+
+        public MeteredThreadPoolExecutor(String name, int maxThreads) {
+            this(name, maxThreads, maxThreads, new LinkedBlockingQueue<Runnable>(MAX_QUEUED_TASKS));
+            allowCoreThreadTimeOut(true);
+        }
+
+        public MeteredThreadPoolExecutor(String name, int coreThreads, int maxThreads,
+                BlockingQueue<Runnable> queue) {
+            super(coreThreads, maxThreads, KEEP_ALIVE_TIME, TimeUnit.SECONDS, queue,
+                    new NamedThreadFactory(name), new MeteredRejectionHandler());
+            mMetrics = new PoolMetrics(name, this);
+            ((MeteredRejectionHandler) getRejectedExecutionHandler()).mMetrics = mMetrics;
+        }
+
+        @Override
+        public void execute(Runnable task) {
+            super.execute(new MeteredTask(task));
+        }
+
+        @Override
+        protected void beforeExecute(Thread thread, Runnable task) {
+            long now = System.nanoTime();
+            mMetrics.onTaskStarted(now - ((MeteredTask) task).mQueuedAt);
+            mStartTime.set(now);
+        }
+
+        @Override
+        protected void afterExecute(Runnable task, Throwable error) {
+            mMetrics.onTaskCompleted(System.nanoTime() - mStartTime.get());
+            if (error != null) {
+                sLogger.error("Uncaught exception in pool " + mMetrics.getName(), error);
+            }
+        }
+    }
+
+    /**
+     * Pool of timer threads recording how late its tasks are executed and their execution time
+     */
+    private static class MeteredScheduledExecutor extends ScheduledThreadPoolExecutor {
+        private final PoolMetrics mMetrics;
+
+        private final ThreadLocal<Long> mStartTime = new ThreadLocal<>();
+
+        public MeteredScheduledExecutor(String name, int threads) {
+            super(threads, new NamedThreadFactory(name), new MeteredRejectionHandler());
+            mMetrics = new PoolMetrics(name, this);
+            ((MeteredRejectionHandler) getRejectedExecutionHandler()).mMetrics = mMetrics;
+        }
+
+        @Override
+        protected void beforeExecute(Thread thread, Runnable task) {
+            /* The delay of a task which is due is negative: it is the lateness of the timer */
+            long lateness = task instanceof Delayed ? -((Delayed) task)
+                    .getDelay(TimeUnit.NANOSECONDS) : 0;
+            mMetrics.onTaskStarted(Math.max(0, lateness));
+            mStartTime.set(System.nanoTime());
+        }
+
+        @Override
+        protected void afterExecute(Runnable task, Throwable error) {
+            mMetrics.onTaskCompleted(System.nanoTime() - mStartTime.get());
+        }
+    }
+}
@@ -0,0 +1,70 @@
+/*******************************************************************************
+ * Software Name : RCS IMS Stack
+ *
+ * Copyright (C) 2010-2016 Orange.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+
+package com.gsma.rcs.benchmark;
+
+import java.util.Arrays;
+
+/**
+ * Recorder of latency samples, computing percentiles at the end of a benchmark run
+ *
+ * @author jexa7410
+ */
+public class LatencyRecorder {
+    private long[] mSamples = new long[1024];
+
+    private int mCount = 0;
+
+    /**
+     * Record a sample
+     *
+     * @param latency Latency in nanoseconds
+     */
+    public synchronized void record(long latency) {
+        if (mCount == mSamples.length) {
+            mSamples = Arrays.copyOf(mSamples, mCount * 2);
+        }
+        mSamples[mCount++] = latency;
+    }
+
+    /**
+     * Returns the number of samples
+     *
+     * @return Number of samples
+     */
+    public synchronized int getCount() {
+        return mCount;
+    }
+
+    /**
+     * Returns a percentile of the samples
+     *
+     * @param percentile Percentile between 0 and 100
+     * @return Latency in milliseconds or 0 if there is no sample
+     */
+    public synchronized double getPercentile(double percentile) {
+        if (mCount == 0) {
+            return 0;
+        }
+        long[] sorted = Arrays.copyOf(mSamples, mCount);
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(percentile / 100 * mCount) - 1;
+        return sorted[Math.max(0, Math.min(mCount - 1, index))] / 1000000d;
+    }
+}
@@ -0,0 +1,808 @@
+/*******************************************************************************
+ * Software Name : RCS IMS Stack
+ *
+ * Copyright (C) 2010-2016 Orange.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+
+package com.gsma.rcs.benchmark;
+
+import static com.gsma.rcs.utils.StringUtils.UTF8;
+
+import com.gsma.rcs.core.FileAccessException;
+import com.gsma.rcs.core.ims.network.NetworkException;
+import com.gsma.rcs.core.ims.network.sip.SipUtils;
+import com.gsma.rcs.core.ims.protocol.PayloadException;
+import com.gsma.rcs.core.ims.protocol.msrp.MsrpEventListener;
+import com.gsma.rcs.core.ims.protocol.msrp.MsrpFileSink;
+import com.gsma.rcs.core.ims.protocol.msrp.MsrpManager;
+import com.gsma.rcs.core.ims.protocol.msrp.MsrpSession;
+import com.gsma.rcs.core.ims.protocol.msrp.MsrpSession.TypeMsrpChunk;
+import com.gsma.rcs.core.ims.protocol.sip.SipInterface;
+import com.gsma.rcs.core.ims.protocol.sip.SipRequest;
+import com.gsma.rcs.core.ims.protocol.sip.SipTransactionContext;
+import com.gsma.rcs.core.ims.protocol.sip.SipTransactionContext.INotifySipTransactionCompletion;
+import com.gsma.rcs.provider.settings.RcsSettings;
+import com.gsma.rcs.utils.CloseableUtils;
+import com.gsma.rcs.utils.IdGenerator;
+import com.gsma.rcs.utils.NetworkRessourceManager;
+import com.gsma.rcs.utils.logger.Logger;
+import com.gsma.rcs.utils.scheduler.PoolMetrics;
+import com.gsma.rcs.utils.scheduler.SerialExecutor;
+import com.gsma.rcs.utils.scheduler.TaskScheduler;
+import com.gsma.rcs.utils.scheduler.TaskScheduler.Pool;
+
+import android.os.Build;
+import android.os.Debug;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax2.sip.message.Request;
+
+/**
+ * Load benchmark of the hot paths of the stack.<br>
+ * Concurrent one-to-one chats, group chats and file transfers are run through real MSRP sessions
+ * (MsrpSession, ChunkSender and ChunkReceiver) connected over the loopback interface, and SIP
+ * MESSAGE transactions are run through a real SipInterface against a local stand-in proxy. Each
+ * scenario reports its throughput, the p50/p99 send latency, the live thread count and the heap
+ * allocation rate. The report is a JSON document so that results can be compared from one build
+ * to another.
+ *
+ * @author jexa7410
+ */
+public class LoadBenchmark {
+    private static final String LOOPBACK = "127.0.0.1";
+
+    private static final int CHAT_MESSAGE_SIZE = 256;
+
+    private static final int FILE_SIZE = 512 * 1024;
+
+    private static final int FILES_PER_SESSION = 2;
+
+    /**
+     * Number of participants of a group chat, the sender included
+     */
+    private static final int GROUP_SIZE = 4;
+
+    private static final long SIP_TRANSACTION_TIMEOUT = 10000;
+
+    /**
+     * Maximum duration of a scenario in milliseconds
+     */
+    private static final long SCENARIO_TIMEOUT = 120000;
+
+    private static final long CONNECTION_TIMEOUT = 5000;
+
+    private static final long THREAD_SAMPLING_PERIOD = 20;
+
+    private final RcsSettings mRcsSettings;
+
+    private final File mWorkingDir;
+
+    private final int mSessions;
+
+    private final int mMessagesPerSession;
+
+    private final Random mRandom = new Random(0);
+
+    private static final Logger sLogger = Logger.getLogger(LoadBenchmark.class.getName());
+
+    /**
+     * Constructor
+     *
+     * @param rcsSettings RCS settings accessor
+     * @param workingDir Directory receiving the transferred files
+     * @param sessions Number of concurrent sessions of each scenario
+     * @param messagesPerSession Number of messages sent by each session
+     */
+    public LoadBenchmark(RcsSettings rcsSettings, File workingDir, int sessions,
+            int messagesPerSession) {
+        mRcsSettings = rcsSettings;
+        mWorkingDir = workingDir;
+        mSessions = sessions;
+        mMessagesPerSession = messagesPerSession;
+    }
+
+    /**
+     * Run all the scenarios
+     *
+     * @return Report
+     * @throws Exception
+     */
+    public JSONObject run() throws Exception {
+        JSONObject report = new JSONObject();
+        report.put("benchmark", "rcs-load");
+        report.put("timestamp", System.currentTimeMillis());
+        report.put("device", Build.MODEL);
+        report.put("sdk", Build.VERSION.SDK_INT);
+        report.put("sessions", mSessions);
+        report.put("messagesPerSession", mMessagesPerSession);
+        JSONArray scenarios = new JSONArray();
+        scenarios.put(measure(new OneToOneChatScenario()));
+        scenarios.put(measure(new GroupChatScenario()));
+        scenarios.put(measure(new FileTransferScenario()));
+        scenarios.put(measure(new SipMessageScenario()));
+        report.put("scenarios", scenarios);
+        JSONArray pools = new JSONArray();
+        for (Pool pool : Pool.values()) {
+            PoolMetrics metrics = TaskScheduler.getInstance().getMetrics(pool);
+            JSONObject json = new JSONObject();
+            json.put("name", metrics.getName());
+            json.put("threads", metrics.getThreadCount());
+            json.put("maxThreads", metrics.getMaxThreadCount());
+            json.put("completedTasks", metrics.getCompletedTaskCount());
+            json.put("rejectedTasks", metrics.getRejectedTaskCount());
+            json.put("maxQueueLatencyMs", metrics.getMaxQueueLatency());
+            pools.put(json);
+        }
+        report.put("pools", pools);
+        return report;
+    }
+
+    /**
+     * Scenario of the benchmark
+     */
+    private abstract class Scenario {
+        /**
+         * Messages received by the peers
+         */
+        protected final AtomicInteger mReceivedMessages = new AtomicInteger();
+
+        /**
+         * Bytes received by the peers
+         */
+        protected final AtomicLong mReceivedBytes = new AtomicLong();
+
+        /**
+         * Transfers reported as failed
+         */
+        protected final AtomicInteger mErrors = new AtomicInteger();
+
+        /**
+         * Returns the name of the scenario
+         *
+         * @return Name
+         */
+        abstract String getName();
+
+        /**
+         * Open the sessions and start the peers
+         *
+         * @throws Exception
+         */
+        abstract void setUp() throws Exception;
+
+        /**
+         * Send the messages of a session
+         *
+         * @param index Index of the session
+         * @param latencies Recorder of the send latencies
+         * @throws Exception
+         */
+        abstract void runSession(int index, LatencyRecorder latencies) throws Exception;
+
+        /**
+         * Wait until the peers have received the messages
+         *
+         * @param expected Number of messages the peers should receive
+         * @throws InterruptedException
+         */
+        void awaitReception(int expected) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + CONNECTION_TIMEOUT;
+            while (mReceivedMessages.get() < expected && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+        }
+
+        /**
+         * Returns the number of messages the peers should receive
+         *
+         * @return Number of messages
+         */
+        int getExpectedMessages() {
+            return mSessions * mMessagesPerSession;
+        }
+
+        /**
+         * Close the sessions and stop the peers
+         */
+        abstract void tearDown();
+    }
+
+    /**
+     * Run a scenario and measure it
+     *
+     * @param scenario Scenario
+     * @return Result
+     * @throws Exception
+     */
+    private JSONObject measure(final Scenario scenario) throws Exception {
+        int baseThreadCount = getLiveThreadCount();
+        scenario.setUp();
+        ThreadSampler sampler = new ThreadSampler();
+        /* One thread per simulated user */
+        ExecutorService users = Executors.newFixedThreadPool(mSessions);
+        try {
+            final LatencyRecorder latencies = new LatencyRecorder();
+            List<Future<Void>> sessions = new ArrayList<>();
+            sampler.start();
+            Debug.startAllocCounting();
+            Debug.resetGlobalAllocSize();
+            long start = System.nanoTime();
+            for (int i = 0; i < mSessions; i++) {
+                final int index = i;
+                sessions.add(users.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        scenario.runSession(index, latencies);
+                        return null;
+                    }
+                }));
+            }
+            for (Future<Void> session : sessions) {
+                session.get(SCENARIO_TIMEOUT, TimeUnit.MILLISECONDS);
+            }
+            scenario.awaitReception(scenario.getExpectedMessages());
+            long duration = System.nanoTime() - start;
+            long allocated = Debug.getGlobalAllocSize();
+            Debug.stopAllocCounting();
+            sampler.stop();
+
+            double seconds = duration / 1000000000d;
+            JSONObject result = new JSONObject();
+            result.put("name", scenario.getName());
+            result.put("sessions", mSessions);
+            result.put("messagesSent", latencies.getCount());
+            result.put("messagesReceived", scenario.mReceivedMessages.get());
+            result.put("errors", scenario.mErrors.get());
+            result.put("durationMs", duration / 1000000);
+            result.put("messagesPerSecond", scenario.mReceivedMessages.get() / seconds);
+            result.put("bytesPerSecond", scenario.mReceivedBytes.get() / seconds);
+            result.put("sendLatencyP50Ms", latencies.getPercentile(50));
+            result.put("sendLatencyP99Ms", latencies.getPercentile(99));
+            result.put("baseThreadCount", baseThreadCount);
+            result.put("peakThreadCount", sampler.getPeakThreadCount());
+            result.put("userThreadCount", mSessions);
+            result.put("allocatedBytes", allocated);
+            result.put("allocationBytesPerSecond", allocated / seconds);
+            if (sLogger.isActivated()) {
+                sLogger.info(result.toString());
+            }
+            return result;
+
+        } finally {
+            sampler.stop();
+            users.shutdownNow();
+            scenario.tearDown();
+        }
+    }
+
+    /**
+     * Returns the number of live threads of the process
+     *
+     * @return Number of threads
+     */
+    private static int getLiveThreadCount() {
+        ThreadGroup group = Thread.currentThread().getThreadGroup();
+        while (group.getParent() != null) {
+            group = group.getParent();
+        }
+        return group.activeCount();
+    }
+
+    /**
+     * Sampler of the live thread count
+     */
+    private static class ThreadSampler implements Runnable {
+        private final AtomicInteger mPeakThreadCount = new AtomicInteger();
+
+        private ScheduledFuture<?> mFuture;
+
+        public void start() {
+            mFuture = TaskScheduler.getInstance().getTimer()
+                    .scheduleAtFixedRate(this, 0, THREAD_SAMPLING_PERIOD, TimeUnit.MILLISECONDS);
+        }
+
+        public void stop() {
+            if (mFuture != null) {
+                mFuture.cancel(false);
+                run();
+            }
+        }
+
+        @Override
+        public void run() {
+            int count = getLiveThreadCount();
+            int peak;
+            while (count > (peak = mPeakThreadCount.get())) {
+                if (mPeakThreadCount.compareAndSet(peak, count)) {
+                    break;
+                }
+            }
+        }
+
+        public int getPeakThreadCount() {
+            return mPeakThreadCount.get();
+        }
+    }
+
+    /**
+     * Generate a random payload
+     */
+    private byte[] generatePayload(int size) {
+        byte[] payload = new byte[size];
+        synchronized (mRandom) {
+            for (int i = 0; i < size; i++) {
+                payload[i] = (byte) ('a' + mRandom.nextInt(26));
+            }
+        }
+        return payload;
+    }
+
+    /**
+     * End point of a MSRP connection
+     */
+    private static class MsrpEndPoint implements MsrpEventListener {
+        private final Scenario mScenario;
+
+        private MsrpManager mManager;
+
+        private MsrpSession mSession;
+
+        private MsrpFileSink mFileSink;
+
+        private File mFile;
+
+        /**
+         * End points to which the received messages are forwarded, as a conference focus does
+         */
+        private List<MsrpEndPoint> mForwardTo;
+
+        private SerialExecutor mForwarder;
+
+        public MsrpEndPoint(Scenario scenario) {
+            mScenario = scenario;
+        }
+
+        /**
+         * Receive the content of the next file transfers in a file
+         */
+        public void setFile(File file) {
+            mFile = file;
+            mFileSink = new MsrpFileSink(file);
+            mSession.setFileSink(mFileSink);
+        }
+
+        /**
+         * Forward the received messages to other end points
+         */
+        public void setForwardTo(List<MsrpEndPoint> endPoints) {
+            mForwardTo = endPoints;
+            mForwarder = TaskScheduler.getInstance().createSerialExecutor(Pool.IO);
+        }
+
+        public void send(byte[] content, String contentType, TypeMsrpChunk type)
+                throws NetworkException {
+            mSession.sendChunks(new ByteArrayInputStream(content),
+                    IdGenerator.generateMessageID(), contentType, content.length, type);
+        }
+
+        public void close() {
+            if (mForwarder != null) {
+                mForwarder.shutdownNow();
+            }
+            mManager.closeSession();
+        }
+
+        @Override
+        public void receiveMsrpData(String msgId, final byte[] data, final String mimeType) {
+            if (mForwardTo != null) {
+                mForwarder.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        for (MsrpEndPoint endPoint : mForwardTo) {
+                            try {
+                                endPoint.send(data, mimeType, TypeMsrpChunk.TextMessage);
+                            } catch (NetworkException e) {
+                                mScenario.mErrors.incrementAndGet();
+                            }
+                        }
+                    }
+                });
+                return;
+            }
+            if (data != null) {
+                mScenario.mReceivedBytes.addAndGet(data.length);
+            } else if (mFileSink != null) {
+                /* Content has been written to the file: the next one goes to a new sink */
+                mScenario.mReceivedBytes.addAndGet(mFileSink.getReceivedSize());
+                setFile(mFile);
+            }
+            mScenario.mReceivedMessages.incrementAndGet();
+        }
+
+        @Override
+        public void msrpDataTransferred(String msgId) {
+        }
+
+        @Override
+        public void msrpTransferProgress(long currentSize, long totalSize) {
+        }
+
+        @Override
+        public boolean msrpTransferProgress(long currentSize, long totalSize, byte[] data) {
+            return false;
+        }
+
+        @Override
+        public void msrpTransferAborted() {
+            mScenario.mErrors.incrementAndGet();
+        }
+
+        @Override
+        public void msrpFileSavingFailed(FileAccessException e) {
+            mScenario.mErrors.incrementAndGet();
+        }
+
+        @Override
+        public void msrpTransferError(String msgId, String error, TypeMsrpChunk typeMsrpChunk) {
+            mScenario.mErrors.incrementAndGet();
+        }
+    }
+
+    /**
+     * Open a MSRP connection over the loopback interface
+     *
+     * @param scenario Scenario
+     * @return Client and server end points
+     * @throws Exception
+     */
+    private MsrpEndPoint[] connect(Scenario scenario) throws Exception {
+        int serverPort = NetworkRessourceManager.generateLocalMsrpPort(mRcsSettings);
+        final MsrpEndPoint server = new MsrpEndPoint(scenario);
+        MsrpEndPoint client = new MsrpEndPoint(scenario);
+        server.mManager = new MsrpManager(LOOPBACK, serverPort, mRcsSettings);
+        client.mManager = new MsrpManager(LOOPBACK, serverPort + 1, mRcsSettings);
+        server.mSession = server.mManager.createMsrpServerSession(
+                client.mManager.getLocalMsrpPath(), server);
+        client.mSession = client.mManager.createMsrpClientSession(LOOPBACK, serverPort,
+                server.mManager.getLocalMsrpPath(), client, null);
+        for (MsrpEndPoint endPoint : new MsrpEndPoint[] {
+                server, client
+        }) {
+            endPoint.mSession.setFailureReportOption(true);
+        }
+        final CountDownLatch accepted = new CountDownLatch(1);
+        final NetworkException[] acceptError = new NetworkException[1];
+        TaskScheduler.getInstance().execute(Pool.IO, new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    server.mManager.openMsrpSession();
+                } catch (NetworkException | PayloadException e) {
+                    acceptError[0] = new NetworkException("Accept failed!", e);
+                }
+                accepted.countDown();
+            }
+        });
+        /* The server socket is opened asynchronously */
+        long deadline = System.currentTimeMillis() + CONNECTION_TIMEOUT;
+        while (true) {
+            try {
+                client.mManager.openMsrpSession();
+                break;
+            } catch (NetworkException e) {
+                if (System.currentTimeMillis() > deadline) {
+                    throw e;
+                }
+                Thread.sleep(10);
+            }
+        }
+        if (!accepted.await(CONNECTION_TIMEOUT, TimeUnit.MILLISECONDS)) {
+            throw new NetworkException("Connection not accepted!");
+        }
+        if (acceptError[0] != null) {
+            throw acceptError[0];
+        }
+        return new MsrpEndPoint[] {
+                client, server
+        };
+    }
+
+    /**
+     * One-to-one chats: each session sends text messages to its own peer
+     */
+    private class OneToOneChatScenario extends Scenario {
+        protected final List<MsrpEndPoint> mEndPoints = new ArrayList<>();
+
+        private MsrpEndPoint[] mSenders;
+
+        @Override
+        String getName() {
+            return "oneToOneChat";
+        }
+
+        @Override
+        void setUp() throws Exception {
+            mSenders = new MsrpEndPoint[mSessions];
+            for (int i = 0; i < mSessions; i++) {
+                MsrpEndPoint[] connection = connect(this);
+                mSenders[i] = connection[0];
+                mEndPoints.add(connection[0]);
+                mEndPoints.add(connection[1]);
+            }
+        }
+
+        @Override
+        void runSession(int index, LatencyRecorder latencies) throws Exception {
+            MsrpEndPoint sender = mSenders[index];
+            for (int i = 0; i < mMessagesPerSession; i++) {
+                byte[] message = generatePayload(CHAT_MESSAGE_SIZE);
+                long start = System.nanoTime();
+                sender.send(message, "text/plain", TypeMsrpChunk.TextMessage);
+                latencies.record(System.nanoTime() - start);
+            }
+        }
+
+        @Override
+        void tearDown() {
+            for (MsrpEndPoint endPoint : mEndPoints) {
+                endPoint.close();
+            }
+        }
+    }
+
+    /**
+     * Group chats: each session sends text messages to a local conference focus which forwards
+     * them to the other participants of the group
+     */
+    private class GroupChatScenario extends OneToOneChatScenario {
+
+        @Override
+        String getName() {
+            return "groupChat";
+        }
+
+        @Override
+        void setUp() throws Exception {
+            super.setUp();
+            /* Server side of each sender connection acts as the focus */
+            for (int i = 0; i < mSessions; i++) {
+                List<MsrpEndPoint> legs = new ArrayList<>();
+                for (int j = 1; j < GROUP_SIZE; j++) {
+                    MsrpEndPoint[] connection = connect(this);
+                    /* Focus sends from the server side of the leg */
+                    legs.add(connection[1]);
+                    mEndPoints.add(connection[0]);
+                    mEndPoints.add(connection[1]);
+                }
+                mEndPoints.get(2 * i + 1).setForwardTo(legs);
+            }
+        }
+
+        @Override
+        int getExpectedMessages() {
+            return super.getExpectedMessages() * (GROUP_SIZE - 1);
+        }
+    }
+
+    /**
+     * File transfers: each session sends files which its peer writes to the storage
+     */
+    private class FileTransferScenario extends OneToOneChatScenario {
+        @Override
+        String getName() {
+            return "fileTransfer";
+        }
+
+        @Override
+        void setUp() throws Exception {
+            super.setUp();
+            for (int i = 0; i < mSessions; i++) {
+                mEndPoints.get(2 * i + 1).setFile(new File(mWorkingDir, "benchmark" + i + ".bin"));
+            }
+        }
+
+        @Override
+        void runSession(int index, LatencyRecorder latencies) throws Exception {
+            MsrpEndPoint sender = mEndPoints.get(2 * index);
+            byte[] file = generatePayload(FILE_SIZE);
+            for (int i = 0; i < FILES_PER_SESSION; i++) {
+                long start = System.nanoTime();
+                sender.send(file, "application/octet-stream", TypeMsrpChunk.FileSharing);
+                latencies.record(System.nanoTime() - start);
+            }
+        }
+
+        @Override
+        int getExpectedMessages() {
+            return mSessions * FILES_PER_SESSION;
+        }
+
+        @Override
+        void tearDown() {
+            super.tearDown();
+            for (int i = 0; i < mSessions; i++) {
+                new File(mWorkingDir, "benchmark" + i + ".bin").delete();
+            }
+        }
+    }
+
+    /**
+     * SIP MESSAGE transactions sent through the SIP stack to a stand-in proxy answering 200 OK
+     */
+    private class SipMessageScenario extends Scenario implements Runnable {
+        private SipInterface mSipInterface;
+
+        private DatagramSocket mProxySocket;
+
+        private volatile boolean mProxyStopped = false;
+
+        @Override
+        String getName() {
+            return "sipMessage";
+        }
+
+        @Override
+        void setUp() throws Exception {
+            mProxySocket = new DatagramSocket(new InetSocketAddress(LOOPBACK, 0));
+            new Thread(this, "SipStandInProxy").start();
+            mSipInterface = new SipInterface(LOOPBACK, LOOPBACK, mProxySocket.getLocalPort(),
+                    "UDP", false, mRcsSettings);
+            mSipInterface.initialize();
+        }
+
+        @Override
+        void runSession(int index, LatencyRecorder latencies) throws Exception {
+            for (int i = 0; i < mMessagesPerSession; i++) {
+                final CountDownLatch completed = new CountDownLatch(1);
+                SipRequest message = createMessage(generatePayload(CHAT_MESSAGE_SIZE));
+                long start = System.nanoTime();
+                mSipInterface.sendSipMessageAsync(message, SIP_TRANSACTION_TIMEOUT, null,
+                        new INotifySipTransactionCompletion() {
+                            @Override
+                            public void handleTransactionCompleted(SipTransactionContext ctx) {
+                                if (!ctx.isSipSuccessfullResponse()) {
+                                    mErrors.incrementAndGet();
+                                }
+                                completed.countDown();
+                            }
+                        });
+                completed.await(SIP_TRANSACTION_TIMEOUT, TimeUnit.MILLISECONDS);
+                latencies.record(System.nanoTime() - start);
+            }
+        }
+
+        /**
+         * Create a standalone MESSAGE request
+         */
+        private SipRequest createMessage(byte[] content) throws Exception {
+            String target = "sip:peer@" + LOOPBACK;
+            Request message = SipUtils.MSG_FACTORY.createRequest(
+                    SipUtils.ADDR_FACTORY.createURI(target), Request.MESSAGE,
+                    SipUtils.HEADER_FACTORY.createCallIdHeader(mSipInterface.generateCallId()),
+                    SipUtils.HEADER_FACTORY.createCSeqHeader(1L, Request.MESSAGE),
+                    SipUtils.HEADER_FACTORY.createFromHeader(
+                            SipUtils.ADDR_FACTORY.createAddress("sip:benchmark@" + LOOPBACK),
+                            IdGenerator.getIdentifier()), SipUtils.HEADER_FACTORY
+                            .createToHeader(SipUtils.ADDR_FACTORY.createAddress(target), null),
+                    mSipInterface.getViaHeaders(), SipUtils.buildMaxForwardsHeader());
+            message.setContent(content,
+                    SipUtils.HEADER_FACTORY.createContentTypeHeader("text", "plain"));
+            return new SipRequest(message);
+        }
+
+        /**
+         * Stand-in proxy: answer each request with a 200 OK sent to the address of its top Via
+         */
+        @Override
+        public void run() {
+            byte[] buffer = new byte[65536];
+            while (!mProxyStopped) {
+                try {
+                    DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
+                    mProxySocket.receive(packet);
+                    String request = new String(buffer, 0, packet.getLength(), UTF8);
+                    if (request.startsWith("SIP/2.0")) {
+                        continue;
+                    }
+                    mReceivedMessages.incrementAndGet();
+                    mReceivedBytes.addAndGet(packet.getLength());
+                    StringBuilder response = new StringBuilder("SIP/2.0 200 OK\r\n");
+                    InetSocketAddress viaAddress = null;
+                    for (String line : request.split("\r\n")) {
+                        if (line.isEmpty()) {
+                            break;
+                        }
+                        String name = line.substring(0, Math.max(0, line.indexOf(':')))
+                                .trim().toLowerCase();
+                        if ("via".equals(name) || "v".equals(name)) {
+                            if (viaAddress == null) {
+                                viaAddress = parseViaAddress(line);
+                            }
+                            response.append(line).append("\r\n");
+                        } else if ("to".equals(name) || "t".equals(name)) {
+                            response.append(line);
+                            if (!line.contains(";tag=")) {
+                                response.append(";tag=proxy");
+                            }
+                            response.append("\r\n");
+                        } else if ("from".equals(name) || "f".equals(name)
+                                || "call-id".equals(name) || "i".equals(name)
+                                || "cseq".equals(name)) {
+                            response.append(line).append("\r\n");
+                        }
+                    }
+                    response.append("Content-Length: 0\r\n\r\n");
+                    byte[] data = response.toString().getBytes(UTF8);
+                    mProxySocket.send(new DatagramPacket(data, data.length,
+                            viaAddress != null ? viaAddress : packet.getSocketAddress()));
+                } catch (IOException e) {
+                    if (!mProxyStopped) {
+                        sLogger.error("Stand-in proxy failure!", e);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Returns the sent-by address of a Via header line
+         */
+        private InetSocketAddress parseViaAddress(String via) throws IOException {
+            String[] tokens = via.substring(via.indexOf(':') + 1).trim().split("\\s+|;");
+            if (tokens.length < 2) {
+                return null;
+            }
+            String sentBy = tokens[1];
+            int colon = sentBy.lastIndexOf(':');
+            if (colon < 0) {
+                return new InetSocketAddress(InetAddress.getByName(sentBy), 5060);
+            }
+            return new InetSocketAddress(InetAddress.getByName(sentBy.substring(0, colon)),
+                    Integer.parseInt(sentBy.substring(colon + 1)));
+        }
+
+        @Override
+        void tearDown() {
+            if (mSipInterface != null) {
+                mSipInterface.close();
+            }
+            mProxyStopped = true;
+            CloseableUtils.tryToClose(mProxySocket);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+/*******************************************************************************
+ * Software Name : RCS IMS Stack
+ *
+ * Copyright (C) 2010-2016 Orange.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+
+package com.gsma.rcs.benchmark;
+
+import static com.gsma.rcs.utils.StringUtils.UTF8;
+
+import com.gsma.rcs.RcsSettingsMock;
+import com.gsma.rcs.provider.settings.RcsSettings;
+import com.gsma.rcs.utils.CloseableUtils;
+import com.gsma.rcs.utils.logger.Logger;
+
+import android.test.AndroidTestCase;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+public class LoadBenchmarkTest extends AndroidTestCase {
+    private static final Logger sLogger = Logger.getLogger(LoadBenchmarkTest.class.getName());
+
+    private static final String REPORT_FILE = "rcs-load-benchmark.json";
+
+    private static final int SESSIONS = 4;
+
+    private static final int MESSAGES_PER_SESSION = 50;
+
+    private RcsSettings mRcsSettings;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        mRcsSettings = RcsSettingsMock.getMockSettings(getContext());
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        super.tearDown();
+        RcsSettingsMock.restoreSettings();
+    }
+
+    public void testLoad() throws Exception {
+        LoadBenchmark benchmark = new LoadBenchmark(mRcsSettings, getContext().getCacheDir(),
+                SESSIONS, MESSAGES_PER_SESSION);
+        JSONObject report = benchmark.run();
+        File file = new File(getContext().getFilesDir(), REPORT_FILE);
+        writeReport(file, report);
+        if (sLogger.isActivated()) {
+            sLogger.info("Load benchmark report written to " + file.getAbsolutePath() + ": "
+                    + report.toString(2));
+        }
+        JSONArray scenarios = report.getJSONArray("scenarios");
+        for (int i = 0; i < scenarios.length(); i++) {
+            JSONObject scenario = scenarios.getJSONObject(i);
+            String name = scenario.getString("name");
+            assertEquals(name, 0, scenario.getInt("errors"));
+            assertTrue(name, scenario.getInt("messagesReceived") > 0);
+            assertTrue(name, scenario.getDouble("sendLatencyP99Ms") >= scenario
+                    .getDouble("sendLatencyP50Ms"));
+        }
+    }
+
+    private static void writeReport(File file, JSONObject report) throws Exception {
+        FileOutputStream out = null;
+        try {
+            out = new FileOutputStream(file);
+            out.write(report.toString(2).getBytes(UTF8));
+        } catch (IOException e) {
+            throw new IOException("Failed to write report " + file.getAbsolutePath(), e);
+        } finally {
+            CloseableUtils.tryToClose(out);
+        }
+    }
+}
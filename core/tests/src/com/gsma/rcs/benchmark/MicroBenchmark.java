@@ -0,0 +1,154 @@
+/*******************************************************************************
+ * Software Name : RCS IMS Stack
+ *
+ * Copyright (C) 2010-2016 Orange.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+
+package com.gsma.rcs.benchmark;
+
+import android.os.Debug;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Micro benchmark of an operation.<br>
+ * The operation is first run for a warm up period, then as many times as possible during the
+ * measurement period to compute its throughput. Allocations are counted in a separate pass because
+ * allocation counting slows down the runtime. Results are JSON objects so that successive builds
+ * can be compared.
+ *
+ * @author jexa7410
+ */
+public class MicroBenchmark {
+    /**
+     * Operation under benchmark
+     */
+    public interface Operation {
+        /**
+         * Run the operation once
+         *
+         * @return Result of the operation, consumed so that the work is not optimized away
+         * @throws Exception
+         */
+        Object run() throws Exception;
+    }
+
+    private static final long DEFAULT_WARMUP_TIME = 500;
+
+    private static final long DEFAULT_MEASUREMENT_TIME = 1000;
+
+    /**
+     * Number of operations run between two clock readings
+     */
+    private static final int BATCH_SIZE = 16;
+
+    /**
+     * Number of operations run while the allocations are counted
+     */
+    private static final int ALLOCATION_OPERATIONS = 256;
+
+    private final long mWarmupTime;
+
+    private final long mMeasurementTime;
+
+    /**
+     * Accumulates the hash codes of the results
+     */
+    private int mSink;
+
+    /**
+     * Constructor
+     */
+    public MicroBenchmark() {
+        this(DEFAULT_WARMUP_TIME, DEFAULT_MEASUREMENT_TIME);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param warmupTime Warm up period in milliseconds
+     * @param measurementTime Measurement period in milliseconds
+     */
+    public MicroBenchmark(long warmupTime, long measurementTime) {
+        mWarmupTime = warmupTime;
+        mMeasurementTime = measurementTime;
+    }
+
+    /**
+     * Benchmark an operation
+     *
+     * @param name Name of the benchmark
+     * @param inputSize Size in bytes of the input of the operation
+     * @param operation Operation
+     * @return Result
+     * @throws Exception
+     */
+    public JSONObject measure(String name, int inputSize, Operation operation) throws Exception {
+        runFor(operation, mWarmupTime);
+
+        long start = System.nanoTime();
+        long operations = runFor(operation, mMeasurementTime);
+        long duration = System.nanoTime() - start;
+
+        Debug.startAllocCounting();
+        Debug.resetThreadAllocSize();
+        Debug.resetThreadAllocCount();
+        for (int i = 0; i < ALLOCATION_OPERATIONS; i++) {
+            consume(operation.run());
+        }
+        long allocatedBytes = Debug.getThreadAllocSize();
+        long allocatedObjects = Debug.getThreadAllocCount();
+        Debug.stopAllocCounting();
+
+        return toJson(name, inputSize, operations, duration, allocatedBytes, allocatedObjects);
+    }
+
+    private long runFor(Operation operation, long period) throws Exception {
+        long deadline = System.nanoTime() + period * 1000000L;
+        long operations = 0;
+        do {
+            for (int i = 0; i < BATCH_SIZE; i++) {
+                consume(operation.run());
+            }
+            operations += BATCH_SIZE;
+        } while (System.nanoTime() < deadline);
+        return operations;
+    }
+
+    private void consume(Object result) {
+        if (result != null) {
+            mSink += result.hashCode();
+        }
+    }
+
+    private JSONObject toJson(String name, int inputSize, long operations, long duration,
+            long allocatedBytes, long allocatedObjects) throws JSONException {
+        JSONObject result = new JSONObject();
+        result.put("name", name);
+        result.put("inputBytes", inputSize);
+        result.put("operations", operations);
+        result.put("opsPerSecond", operations * 1000000000d / duration);
+        result.put("nsPerOp", (double) duration / operations);
+        result.put("allocBytesPerOp", (double) allocatedBytes / ALLOCATION_OPERATIONS);
+        result.put("allocObjectsPerOp", (double) allocatedObjects / ALLOCATION_OPERATIONS);
+        /* Never true, but keeps the results alive */
+        if (mSink == Integer.MIN_VALUE) {
+            result.put("sink", mSink);
+        }
+        return result;
+    }
+}
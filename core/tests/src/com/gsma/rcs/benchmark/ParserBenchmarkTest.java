@@ -0,0 +1,423 @@
+/*******************************************************************************
+ * Software Name : RCS IMS Stack
+ *
+ * Copyright (C) 2010-2016 Orange.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+
+package com.gsma.rcs.benchmark;
+
+import static com.gsma.rcs.utils.StringUtils.UTF8;
+
+import com.gsma.rcs.benchmark.MicroBenchmark.Operation;
+import com.gsma.rcs.core.ims.network.sip.Multipart;
+import com.gsma.rcs.core.ims.network.sip.SipUtils;
+import com.gsma.rcs.core.ims.protocol.sdp.SdpParser;
+import com.gsma.rcs.core.ims.service.im.chat.cpim.CpimMessage;
+import com.gsma.rcs.core.ims.service.im.chat.cpim.CpimParser;
+import com.gsma.rcs.core.ims.service.im.chat.event.ConferenceInfoParser;
+import com.gsma.rcs.core.ims.service.im.chat.event.ConferenceInfoPullParser;
+import com.gsma.rcs.core.ims.service.im.chat.imdn.ImdnParser;
+import com.gsma.rcs.core.ims.service.im.chat.iscomposing.IsComposingParser;
+import com.gsma.rcs.core.ims.service.im.chat.resourcelist.ResourceListParser;
+import com.gsma.rcs.utils.CloseableUtils;
+import com.gsma.rcs.utils.logger.Logger;
+
+import android.test.AndroidTestCase;
+
+import gov2.nist.javax2.sip.header.SIPHeader;
+import gov2.nist.javax2.sip.message.SIPMessage;
+import gov2.nist.javax2.sip.parser.SIPStreamFramer;
+import gov2.nist.javax2.sip.parser.StringMsgParser;
+
+import javax2.sip.header.CSeqHeader;
+import javax2.sip.header.ContactHeader;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.xml.sax.InputSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.Iterator;
+
+/**
+ * Throughput and allocations of the protocol parsers on the hot paths. Results of all the tests
+ * are gathered in a JSON report written to the files directory of the test context.
+ */
+public class ParserBenchmarkTest extends AndroidTestCase {
+    private static final Logger sLogger = Logger.getLogger(ParserBenchmarkTest.class.getName());
+
+    private static final String REPORT_FILE = "rcs-parser-benchmark.json";
+
+    private static final String[] SIP_HEADERS = new String[] {
+            "Via: SIP/2.0/TCP 10.102.192.68:5060;branch=z9hG4bK9f3a1c2b7d;rport\r\n",
+            "From: <sip:+33612345678@rcs.example.com>;tag=a73kszlfl\r\n",
+            "To: \"Bob\" <sip:+33687654321@rcs.example.com>\r\n",
+            "Call-ID: f81d4fae-7dec-11d0-a765-00a0c91e6bf6@10.102.192.68\r\n",
+            "CSeq: 1 MESSAGE\r\n",
+            "Contact: <sip:+33612345678@10.102.192.68:5060;transport=tcp>;+g.oma.sip-im\r\n",
+            "Accept-Contact: *;+g.oma.sip-im\r\n", "Content-Type: message/cpim\r\n"
+    };
+
+    /**
+     * TCP segment size used to fragment the SIP stream
+     */
+    private static final int SEGMENT_SIZE = 1400;
+
+    private static final JSONArray sResults = new JSONArray();
+
+    private final MicroBenchmark mBenchmark = new MicroBenchmark();
+
+    private static InputSource toInputSource(byte[] data) {
+        return new InputSource(new ByteArrayInputStream(data));
+    }
+
+    private void report(JSONObject result) throws Exception {
+        if (sLogger.isActivated()) {
+            sLogger.info(result.toString());
+        }
+        JSONObject report = new JSONObject();
+        synchronized (sResults) {
+            sResults.put(result);
+            report.put("benchmark", "rcs-parsers");
+            report.put("results", sResults);
+        }
+        FileOutputStream out = null;
+        try {
+            out = new FileOutputStream(new File(getContext().getFilesDir(), REPORT_FILE));
+            out.write(report.toString(2).getBytes(UTF8));
+        } finally {
+            CloseableUtils.tryToClose(out);
+        }
+    }
+
+    public void testCpimChat() throws Exception {
+        CpimMessage message = new CpimParser(ParserCorpus.CPIM_CHAT).getCpimMessage();
+        assertEquals("See you at 8 tonight ?", message.getMessageContent());
+        report(mBenchmark.measure("cpim.chat", ParserCorpus.CPIM_CHAT.length, new Operation() {
+            @Override
+            public Object run() {
+                return new CpimParser(ParserCorpus.CPIM_CHAT).getCpimMessage();
+            }
+        }));
+    }
+
+    public void testCpimImdn() throws Exception {
+        report(mBenchmark.measure("cpim.imdn", ParserCorpus.CPIM_IMDN.length, new Operation() {
+            @Override
+            public Object run() throws Exception {
+                CpimMessage message = new CpimParser(ParserCorpus.CPIM_IMDN).getCpimMessage();
+                return new ImdnParser(toInputSource(message.getMessageContent().getBytes(UTF8)))
+                        .parse().getImdnDocument();
+            }
+        }));
+    }
+
+    public void testImdn() throws Exception {
+        assertEquals("delivered", new ImdnParser(toInputSource(ParserCorpus.IMDN_DELIVERED))
+                .parse().getImdnDocument().getStatus().toString());
+        report(mBenchmark.measure("imdn", ParserCorpus.IMDN_DELIVERED.length, new Operation() {
+            @Override
+            public Object run() throws Exception {
+                return new ImdnParser(toInputSource(ParserCorpus.IMDN_DELIVERED)).parse()
+                        .getImdnDocument();
+            }
+        }));
+    }
+
+    public void testIsComposing() throws Exception {
+        report(mBenchmark.measure("isComposing", ParserCorpus.IS_COMPOSING.length,
+                new Operation() {
+                    @Override
+                    public Object run() throws Exception {
+                        return new IsComposingParser(toInputSource(ParserCorpus.IS_COMPOSING))
+                                .parse().getIsComposingInfo();
+                    }
+                }));
+    }
+
+    public void testResourceList() throws Exception {
+        report(mBenchmark.measure("resourceList", ParserCorpus.RESOURCE_LIST.length,
+                new Operation() {
+                    @Override
+                    public Object run() throws Exception {
+                        return new ResourceListParser(toInputSource(ParserCorpus.RESOURCE_LIST))
+                                .parse().getResourceList();
+                    }
+                }));
+    }
+
+    public void testConferenceInfo() throws Exception {
+        assertEquals(ParserCorpus.CONFERENCE_PARTICIPANTS, new ConferenceInfoParser(
+                toInputSource(ParserCorpus.CONFERENCE_INFO)).parse().getConferenceInfo()
+                .getUsers().size());
+        report(mBenchmark.measure("conferenceInfo.100", ParserCorpus.CONFERENCE_INFO.length,
+                new Operation() {
+                    @Override
+                    public Object run() throws Exception {
+                        return new ConferenceInfoParser(
+                                toInputSource(ParserCorpus.CONFERENCE_INFO)).parse()
+                                .getConferenceInfo();
+                    }
+                }));
+    }
+
+    public void testConferenceInfoPull() throws Exception {
+        report(mBenchmark.measure("conferenceInfo.100.pull", ParserCorpus.CONFERENCE_INFO.length,
+                new Operation() {
+                    @Override
+                    public Object run() throws Exception {
+                        ConferenceInfoPullParser parser = new ConferenceInfoPullParser(
+                                new ByteArrayInputStream(ParserCorpus.CONFERENCE_INFO));
+                        int users = 0;
+                        while (parser.nextUser() != null) {
+                            users++;
+                        }
+                        return users;
+                    }
+                }));
+    }
+
+    public void testSdp() throws Exception {
+        final byte[] sdp = ParserCorpus.SDP_OFFER.getBytes(UTF8);
+        report(mBenchmark.measure("sdp", sdp.length, new Operation() {
+            @Override
+            public Object run() {
+                return new SdpParser(sdp).getMediaDescriptions();
+            }
+        }));
+    }
+
+    public void testMultipartSdp() throws Exception {
+        Multipart multipart = new Multipart(ParserCorpus.MULTIPART_INVITE,
+                ParserCorpus.MULTIPART_BOUNDARY);
+        assertEquals(ParserCorpus.SDP_OFFER, multipart.getPart("application/sdp"));
+        report(mBenchmark.measure("sdp.multipart", ParserCorpus.MULTIPART_INVITE.length(),
+                new Operation() {
+                    @Override
+                    public Object run() {
+                        Multipart multipart = new Multipart(ParserCorpus.MULTIPART_INVITE,
+                                ParserCorpus.MULTIPART_BOUNDARY);
+                        return new SdpParser(multipart.getPart("application/sdp").getBytes(UTF8))
+                                .getMediaDescriptions();
+                    }
+                }));
+    }
+
+    public void testSipMessage() throws Exception {
+        SIPMessage message = new StringMsgParser().parseSIPMessage(ParserCorpus.SIP_MESSAGE);
+        assertEquals(ParserCorpus.CPIM_CHAT.length, message.getContentLength().getContentLength());
+        report(mBenchmark.measure("sip.message", ParserCorpus.SIP_MESSAGE.length,
+                new Operation() {
+                    @Override
+                    public Object run() throws Exception {
+                        return new StringMsgParser().parseSIPMessage(ParserCorpus.SIP_MESSAGE);
+                    }
+                }));
+    }
+
+    public void testSipLazyParsing() throws Exception {
+        SIPMessage eager = new StringMsgParser().parseSIPMessage(ParserCorpus.SIP_INVITE);
+        SIPMessage lazy;
+        StringMsgParser.setLazyHeaderParsing(true);
+        try {
+            lazy = new StringMsgParser().parseSIPMessage(ParserCorpus.SIP_INVITE);
+        } finally {
+            StringMsgParser.setLazyHeaderParsing(false);
+        }
+        assertEquals(eager.getCallId().getCallId(), lazy.getCallId().getCallId());
+        assertEquals(eager.getHeader(ContactHeader.NAME).toString(),
+                lazy.getHeader(ContactHeader.NAME).toString());
+        assertEquals(eager.getContentTypeHeader().encode(), lazy.getContentTypeHeader().encode());
+        /* Headers which have not been read are encoded as received */
+        String encoded = lazy.encode();
+        assertTrue(encoded.contains("Conversation-ID: 9b8c7d6e5f4a3b2c\r\n"));
+        SIPMessage reparsed = new StringMsgParser().parseSIPMessage(encoded.getBytes(UTF8));
+        assertEquals(eager.getHeader("Subject").toString(), reparsed.getHeader("Subject")
+                .toString());
+        assertEquals(eager, reparsed);
+    }
+
+    public void testSipLazyParsingKeepsHeaderOrder() throws Exception {
+        SIPMessage lazy;
+        StringMsgParser.setLazyHeaderParsing(true);
+        try {
+            lazy = new StringMsgParser().parseSIPMessage(ParserCorpus.SIP_INVITE);
+        } finally {
+            StringMsgParser.setLazyHeaderParsing(false);
+        }
+        String received = new String(ParserCorpus.SIP_INVITE, UTF8);
+        assertEquals(getHeaderNames(received), getHeaderNames(lazy.encode()));
+        /* A header parsed on demand stays at its received position */
+        assertNotNull(lazy.getHeader("Subject"));
+        assertEquals(getHeaderNames(received), getHeaderNames(lazy.encode()));
+        Iterator<SIPHeader> headers = lazy.getHeaders();
+        assertTrue(headers.hasNext());
+        assertEquals(getHeaderNames(received), getHeaderNames(lazy.encode()));
+    }
+
+    /**
+     * Returns the lower case names of the headers of an encoded SIP message, in order
+     */
+    private static String getHeaderNames(String message) {
+        StringBuilder names = new StringBuilder();
+        String[] lines = message.substring(0, message.indexOf("\r\n\r\n")).split("\r\n");
+        for (int i = 1; i < lines.length; i++) {
+            names.append(lines[i].substring(0, lines[i].indexOf(':')).trim().toLowerCase())
+                    .append(' ');
+        }
+        return names.toString();
+    }
+
+    /**
+     * Parse a SIP message and read the headers used to dispatch it: Call-ID, CSeq, From and To
+     * tags, Via, Contact and Accept-Contact
+     */
+    private static Object parseAndDispatch(byte[] data) throws Exception {
+        SIPMessage message = new StringMsgParser().parseSIPMessage(data);
+        int hash = message.getCallId().getCallId().hashCode();
+        hash += (int) message.getCSeq().getSeqNumber();
+        hash += message.getFrom().getTag().hashCode();
+        String toTag = message.getTo().getTag();
+        if (toTag != null) {
+            hash += toTag.hashCode();
+        }
+        hash += message.getTopmostVia().getBranch().hashCode();
+        hash += message.getHeader(ContactHeader.NAME).hashCode();
+        Iterator<SIPHeader> acceptContacts = message.getHeaders(SipUtils.HEADER_ACCEPT_CONTACT);
+        while (acceptContacts.hasNext()) {
+            hash += acceptContacts.next().hashCode();
+        }
+        return hash;
+    }
+
+    /**
+     * Measure the dispatch of a SIP message with eager then lazy header parsing
+     */
+    private void measureSipDispatch(String name, final byte[] data) throws Exception {
+        Operation dispatch = new Operation() {
+            @Override
+            public Object run() throws Exception {
+                return parseAndDispatch(data);
+            }
+        };
+        report(mBenchmark.measure(name + ".eager", data.length, dispatch));
+        StringMsgParser.setLazyHeaderParsing(true);
+        try {
+            report(mBenchmark.measure(name + ".lazy", data.length, dispatch));
+        } finally {
+            StringMsgParser.setLazyHeaderParsing(false);
+        }
+    }
+
+    public void testSipInviteDispatch() throws Exception {
+        measureSipDispatch("sip.dispatch.invite", ParserCorpus.SIP_INVITE);
+    }
+
+    public void testSipMessageDispatch() throws Exception {
+        measureSipDispatch("sip.dispatch.message", ParserCorpus.SIP_MESSAGE);
+    }
+
+    public void testSipNotifyDispatch() throws Exception {
+        measureSipDispatch("sip.dispatch.notify", ParserCorpus.SIP_NOTIFY);
+    }
+
+    /**
+     * Measure the encoding of a SIP message sent for the first time, then of its retransmissions
+     * which reuse the bytes of the previous encoding
+     */
+    private void measureSipEncoding(String name, byte[] data) throws Exception {
+        final SIPMessage message = new StringMsgParser().parseSIPMessage(data);
+        byte[] encoded = message.encodeAsBytes("TCP");
+        assertEquals(new String(encoded, UTF8), message.encode());
+        assertSame(encoded, message.encodeAsBytes("TCP"));
+        /* A header modified in place is not sent with its previous value */
+        CSeqHeader cseq = message.getCSeq();
+        cseq.setSeqNumber(cseq.getSeqNumber() + 1);
+        byte[] modified = message.encodeAsBytes("TCP");
+        assertNotSame(encoded, modified);
+        assertEquals(new String(modified, UTF8), message.encode());
+        encoded = modified;
+        report(mBenchmark.measure(name + ".first", encoded.length, new Operation() {
+            @Override
+            public Object run() throws Exception {
+                message.invalidateEncoding();
+                return message.encodeAsBytes("TCP");
+            }
+        }));
+        report(mBenchmark.measure(name + ".retransmission", encoded.length, new Operation() {
+            @Override
+            public Object run() throws Exception {
+                return message.encodeAsBytes("TCP");
+            }
+        }));
+    }
+
+    public void testSipInviteEncoding() throws Exception {
+        measureSipEncoding("sip.encoding.invite", ParserCorpus.SIP_INVITE);
+    }
+
+    public void testSipMessageEncoding() throws Exception {
+        measureSipEncoding("sip.encoding.message", ParserCorpus.SIP_MESSAGE);
+    }
+
+    /**
+     * Measure the framing of a stream of SIP messages read in TCP segments
+     */
+    public void testSipStreamFraming() throws Exception {
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        stream.write(ParserCorpus.SIP_MESSAGE);
+        stream.write("\r\n\r\n".getBytes(UTF8));
+        stream.write(ParserCorpus.SIP_INVITE);
+        stream.write(ParserCorpus.SIP_NOTIFY);
+        final byte[] data = stream.toByteArray();
+        report(mBenchmark.measure("sip.framing", data.length, new Operation() {
+            @Override
+            public Object run() throws Exception {
+                SIPStreamFramer framer = new SIPStreamFramer(0);
+                int count = 0;
+                for (int offset = 0; offset < data.length; offset += SEGMENT_SIZE) {
+                    framer.append(data, offset, Math.min(SEGMENT_SIZE, data.length - offset));
+                    while (framer.next() != null) {
+                        count++;
+                    }
+                }
+                assertEquals(3, count);
+                return count;
+            }
+        }));
+    }
+
+    public void testSipHeaders() throws Exception {
+        int size = 0;
+        for (String header : SIP_HEADERS) {
+            size += header.length();
+        }
+        report(mBenchmark.measure("sip.headers", size, new Operation() {
+            @Override
+            public Object run() throws Exception {
+                StringMsgParser parser = new StringMsgParser();
+                int hash = 0;
+                for (String header : SIP_HEADERS) {
+                    hash += parser.parseSIPHeader(header).hashCode();
+                }
+                return hash;
+            }
+        }));
+    }
+}
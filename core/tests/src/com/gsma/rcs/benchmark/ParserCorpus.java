@@ -0,0 +1,244 @@
+/*******************************************************************************
+ * Software Name : RCS IMS Stack
+ *
+ * Copyright (C) 2010-2016 Orange.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+
+package com.gsma.rcs.benchmark;
+
+import static com.gsma.rcs.utils.StringUtils.UTF8;
+
+/**
+ * Realistic payloads of the protocol parsers used by the parser benchmarks
+ *
+ * @author jexa7410
+ */
+public final class ParserCorpus {
+    private static final String CRLF = "\r\n";
+
+    /**
+     * Number of participants of the large conference-info document
+     */
+    public static final int CONFERENCE_PARTICIPANTS = 100;
+
+    /**
+     * Boundary of the multipart INVITE body
+     */
+    public static final String MULTIPART_BOUNDARY = "boundary1";
+
+    /**
+     * Small CPIM chat message
+     */
+    public static final byte[] CPIM_CHAT = ("From: <sip:anonymous@anonymous.invalid>" + CRLF
+            + "To: <sip:anonymous@anonymous.invalid>" + CRLF + "NS: imdn <urn:ietf:params:imdn>"
+            + CRLF + "imdn.Message-ID: ae6926cfcffa40a89e44252ce9e970a2" + CRLF
+            + "DateTime: 2016-03-24T08:51:42+01:00" + CRLF
+            + "imdn.Disposition-Notification: positive-delivery, display" + CRLF + CRLF
+            + "Content-type: text/plain;charset=utf-8" + CRLF + "Content-length: 22" + CRLF
+            + CRLF + "See you at 8 tonight ?").getBytes(UTF8);
+
+    /**
+     * IMDN delivery notification
+     */
+    public static final byte[] IMDN_DELIVERED = ("<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+            + CRLF + "<imdn xmlns=\"urn:ietf:params:xml:ns:imdn\">" + CRLF
+            + "<message-id>ae6926cfcffa40a89e44252ce9e970a2</message-id>" + CRLF
+            + "<datetime>2016-03-24T08:51:43+01:00</datetime>" + CRLF
+            + "<delivery-notification><status><delivered/></status></delivery-notification>"
+            + CRLF + "</imdn>").getBytes(UTF8);
+
+    /**
+     * CPIM message wrapping an IMDN delivery notification
+     */
+    public static final byte[] CPIM_IMDN = concat(("From: <sip:+33612345678@rcs.example.com>"
+            + CRLF + "To: <sip:+33687654321@rcs.example.com>" + CRLF
+            + "NS: imdn <urn:ietf:params:imdn>" + CRLF
+            + "imdn.Message-ID: 5f7a1ac1b2cb4e00b09a2b3e1c1d1f9e" + CRLF
+            + "DateTime: 2016-03-24T08:51:43+01:00" + CRLF + CRLF
+            + "Content-type: message/imdn+xml" + CRLF + "Content-Disposition: notification"
+            + CRLF + "Content-length: " + IMDN_DELIVERED.length + CRLF + CRLF).getBytes(UTF8),
+            IMDN_DELIVERED);
+
+    /**
+     * Is-composing notification
+     */
+    public static final byte[] IS_COMPOSING = ("<?xml version=\"1.0\" encoding=\"utf-8\"?>" + CRLF
+            + "<isComposing xmlns=\"urn:ietf:params:xml:ns:im-iscomposing\">" + CRLF
+            + "<state>active</state>" + CRLF + "<contenttype>text/plain</contenttype>" + CRLF
+            + "<lastactive>2016-03-24T08:51:42.000Z</lastactive>" + CRLF
+            + "<refresh>60</refresh>" + CRLF + "</isComposing>").getBytes(UTF8);
+
+    /**
+     * Resource list of a group chat invitation
+     */
+    public static final byte[] RESOURCE_LIST = buildResourceList(10);
+
+    /**
+     * Conference-info NOTIFY body of a full group chat
+     */
+    public static final byte[] CONFERENCE_INFO = buildConferenceInfo(CONFERENCE_PARTICIPANTS);
+
+    /**
+     * SDP offer of a chat session
+     */
+    public static final String SDP_OFFER = "v=0" + CRLF + "o=- 3668428543 3668428543 IN IP4 "
+            + "10.102.192.68" + CRLF + "s=-" + CRLF + "c=IN IP4 10.102.192.68" + CRLF + "t=0 0"
+            + CRLF + "m=message 20000 TCP/MSRP *" + CRLF
+            + "a=accept-types:message/cpim application/im-iscomposing+xml" + CRLF
+            + "a=accept-wrapped-types:text/plain message/imdn+xml "
+            + "application/vnd.gsma.rcs-ft-http+xml application/vnd.gsma.rcspushlocation+xml"
+            + CRLF + "a=setup:actpass" + CRLF
+            + "a=path:msrp://10.102.192.68:20000/1375944013409;tcp" + CRLF + "a=sendrecv" + CRLF;
+
+    /**
+     * Multipart body of a group chat INVITE: SDP offer, first message and resource list
+     */
+    public static final String MULTIPART_INVITE = "--" + MULTIPART_BOUNDARY + CRLF
+            + "Content-Type: application/sdp" + CRLF + "Content-Length: " + SDP_OFFER.length()
+            + CRLF + CRLF + SDP_OFFER + CRLF + "--" + MULTIPART_BOUNDARY + CRLF
+            + "Content-Type: message/cpim" + CRLF + CRLF + new String(CPIM_CHAT, UTF8) + CRLF
+            + "--" + MULTIPART_BOUNDARY + CRLF + "Content-Type: application/resource-lists+xml"
+            + CRLF + "Content-Disposition: recipient-list" + CRLF + CRLF
+            + new String(RESOURCE_LIST, UTF8) + CRLF + "--" + MULTIPART_BOUNDARY + "--";
+
+    /**
+     * SIP MESSAGE request carrying a CPIM chat message
+     */
+    public static final byte[] SIP_MESSAGE = concat(("MESSAGE sip:+33687654321@rcs.example.com "
+            + "SIP/2.0" + CRLF
+            + "Via: SIP/2.0/TCP 10.102.192.68:5060;branch=z9hG4bK9f3a1c2b7d;rport" + CRLF
+            + "Max-Forwards: 70" + CRLF + "Route: <sip:pcscf.rcs.example.com:5060;lr>" + CRLF
+            + "From: <sip:+33612345678@rcs.example.com>;tag=a73kszlfl" + CRLF
+            + "To: <sip:+33687654321@rcs.example.com>" + CRLF
+            + "Call-ID: f81d4fae-7dec-11d0-a765-00a0c91e6bf6@10.102.192.68" + CRLF
+            + "CSeq: 1 MESSAGE" + CRLF
+            + "Contact: <sip:+33612345678@10.102.192.68:5060;transport=tcp>;"
+            + "+g.oma.sip-im;+sip.instance=\"<urn:gsma:imei:35397305-008963-0>\"" + CRLF
+            + "P-Preferred-Identity: <sip:+33612345678@rcs.example.com>" + CRLF
+            + "Accept-Contact: *;+g.oma.sip-im" + CRLF
+            + "User-Agent: IM-client/OMA1.0 Orange-RCS-client/1.6" + CRLF
+            + "Content-Type: message/cpim" + CRLF + "Content-Length: " + CPIM_CHAT.length + CRLF
+            + CRLF).getBytes(UTF8), CPIM_CHAT);
+
+    /**
+     * SIP INVITE request of a group chat session carrying a multipart body
+     */
+    public static final byte[] SIP_INVITE = ("INVITE sip:Conference-Factory@rcs.example.com "
+            + "SIP/2.0" + CRLF
+            + "Via: SIP/2.0/TCP 10.102.192.68:5060;branch=z9hG4bK5c1e7a4f20;rport" + CRLF
+            + "Max-Forwards: 70" + CRLF + "Route: <sip:pcscf.rcs.example.com:5060;lr>" + CRLF
+            + "From: <sip:+33612345678@rcs.example.com>;tag=b82ltamgm" + CRLF
+            + "To: <sip:Conference-Factory@rcs.example.com>" + CRLF
+            + "Call-ID: 0a3c9e2d-7dec-11d0-a765-00a0c91e6bf6@10.102.192.68" + CRLF
+            + "CSeq: 1 INVITE" + CRLF
+            + "Contact: <sip:+33612345678@10.102.192.68:5060;transport=tcp>;"
+            + "+g.oma.sip-im;+sip.instance=\"<urn:gsma:imei:35397305-008963-0>\";isfocus"
+            + CRLF + "P-Preferred-Identity: <sip:+33612345678@rcs.example.com>" + CRLF
+            + "Accept-Contact: *;+g.oma.sip-im" + CRLF
+            + "Subject: Team meeting" + CRLF
+            + "Contribution-ID: 2a4f1c8e7b3d4e5f" + CRLF
+            + "Conversation-ID: 9b8c7d6e5f4a3b2c" + CRLF
+            + "Allow: INVITE, ACK, CANCEL, BYE, OPTIONS, MESSAGE, NOTIFY, UPDATE" + CRLF
+            + "Supported: timer" + CRLF + "Session-Expires: 1800" + CRLF
+            + "Require: recipient-list-invite" + CRLF
+            + "User-Agent: IM-client/OMA1.0 Orange-RCS-client/1.6" + CRLF
+            + "Content-Type: multipart/mixed;boundary=" + MULTIPART_BOUNDARY + CRLF
+            + "Content-Length: " + MULTIPART_INVITE.getBytes(UTF8).length + CRLF + CRLF
+            + MULTIPART_INVITE).getBytes(UTF8);
+
+    /**
+     * SIP NOTIFY request of the conference event package carrying the large conference-info
+     * document
+     */
+    public static final byte[] SIP_NOTIFY = concat(("NOTIFY sip:+33612345678@10.102.192.68:5060;"
+            + "transport=tcp SIP/2.0" + CRLF
+            + "Via: SIP/2.0/TCP 10.108.25.89:5060;branch=z9hG4bK7e2d9b1a64" + CRLF
+            + "Max-Forwards: 69" + CRLF
+            + "From: <sip:conf-7f3a@rcs.example.com>;tag=c93mubnhn" + CRLF
+            + "To: <sip:+33612345678@rcs.example.com>;tag=d04nvcoio" + CRLF
+            + "Call-ID: 5e8f1b2c-7dec-11d0-a765-00a0c91e6bf6@10.102.192.68" + CRLF
+            + "CSeq: 2 NOTIFY" + CRLF
+            + "Contact: <sip:conf-7f3a@10.108.25.89:5060;transport=tcp>;isfocus" + CRLF
+            + "Event: conference" + CRLF + "Subscription-State: active;expires=3600" + CRLF
+            + "Allow-Events: conference" + CRLF
+            + "Content-Type: application/conference-info+xml" + CRLF
+            + "Content-Length: " + CONFERENCE_INFO.length + CRLF + CRLF).getBytes(UTF8),
+            CONFERENCE_INFO);
+
+    private ParserCorpus() {
+    }
+
+    private static byte[] concat(byte[] head, byte[] tail) {
+        byte[] result = new byte[head.length + tail.length];
+        System.arraycopy(head, 0, result, 0, head.length);
+        System.arraycopy(tail, 0, result, head.length, tail.length);
+        return result;
+    }
+
+    private static byte[] buildResourceList(int entries) {
+        StringBuilder xml = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\"?>")
+                .append(CRLF).append("<resource-lists xmlns=\"urn:ietf:params:xml:ns:")
+                .append("resource-lists\" xmlns:cp=\"urn:ietf:params:xml:ns:copycontrol\">")
+                .append(CRLF).append("<list>").append(CRLF);
+        for (int i = 0; i < entries; i++) {
+            xml.append("<entry cp:copyControl=\"to\" uri=\"sip:+336123456").append(10 + i)
+                    .append("@rcs.example.com\"/>").append(CRLF);
+        }
+        return xml.append("</list>").append(CRLF).append("</resource-lists>").toString()
+                .getBytes(UTF8);
+    }
+
+    private static byte[] buildConferenceInfo(int participants) {
+        StringBuilder xml = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\"?>")
+                .append(CRLF).append("<conference-info xmlns=\"urn:ietf:params:xml:ns:")
+                .append("conference-info\" entity=\"sip:conf233@rcs.example.com\" state=\"full\"")
+                .append(" version=\"1\">").append(CRLF).append("<conference-description>")
+                .append("<subject>Team chat</subject><maximum-user-count>100")
+                .append("</maximum-user-count></conference-description>").append(CRLF)
+                .append("<conference-state><user-count>").append(participants)
+                .append("</user-count></conference-state>").append(CRLF).append("<users>")
+                .append(CRLF);
+        for (int i = 0; i < participants; i++) {
+            String uri = "sip:+33612345" + (100 + i) + "@rcs.example.com";
+            boolean departed = i % 10 == 9;
+            xml.append("<user entity=\"").append(uri).append("\" state=\"full\"");
+            if (i == 0) {
+                xml.append(" yourown=\"true\"");
+            }
+            xml.append(">").append(CRLF).append("<display-text>Participant ").append(i)
+                    .append("</display-text>").append(CRLF).append("<endpoint entity=\"")
+                    .append(uri).append("\">").append(CRLF).append("<status>")
+                    .append(departed ? "disconnected" : "connected").append("</status>")
+                    .append(CRLF);
+            if (departed) {
+                xml.append("<disconnection-method>departed</disconnection-method>").append(CRLF)
+                        .append("<disconnection-info><when>2016-03-24T08:51:42Z</when>")
+                        .append("<reason>left the chat</reason></disconnection-info>")
+                        .append(CRLF);
+            } else {
+                xml.append("<joining-method>dialed-out</joining-method>").append(CRLF)
+                        .append("<joining-info><when>2016-03-24T08:50:00Z</when>")
+                        .append("<by>sip:conf233@rcs.example.com</by></joining-info>")
+                        .append(CRLF);
+            }
+            xml.append("<media id=\"1\"><type>message</type><status>sendrecv</status></media>")
+                    .append(CRLF).append("</endpoint>").append(CRLF).append("</user>")
+                    .append(CRLF);
+        }
+        return xml.append("</users>").append(CRLF).append("</conference-info>").toString()
+                .getBytes(UTF8);
+    }
+}
@@ -0,0 +1,183 @@
+/*******************************************************************************
+ * Software Name : RCS IMS Stack
+ *
+ * Copyright (C) 2010-2016 Orange.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+
+package com.gsma.rcs.benchmark;
+
+import com.gsma.rcs.utils.logger.Logger;
+
+import android.test.AndroidTestCase;
+
+import gov2.nist.javax2.sip.stack.DefaultSipTimer;
+import gov2.nist.javax2.sip.stack.HashedWheelSipTimer;
+import gov2.nist.javax2.sip.stack.SIPStackTimerTask;
+import gov2.nist.javax2.sip.stack.SIPTransactionStack;
+import gov2.nist.javax2.sip.stack.SipTimer;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Behaviour of the hashed wheel timer of the SIP stack and cost of scheduling then cancelling
+ * transaction timers, compared with the default java.util.Timer based service.
+ */
+public class SipTimerBenchmarkTest extends AndroidTestCase {
+    private static final Logger sLogger = Logger.getLogger(SipTimerBenchmarkTest.class.getName());
+
+    private static final int NB_TIMERS = 100000;
+
+    /**
+     * Timers B and F: 64 * T1
+     */
+    private static final long TRANSACTION_TIMEOUT = 64 * SIPTransactionStack.BASE_TIMER_INTERVAL;
+
+    private static final long TICK = 10;
+
+    private static class CountingTask extends SIPStackTimerTask {
+        private final AtomicInteger mCount = new AtomicInteger();
+
+        private final CountDownLatch mLatch;
+
+        public CountingTask(int expectedRuns) {
+            mLatch = new CountDownLatch(expectedRuns);
+        }
+
+        @Override
+        protected void runTask() {
+            mCount.incrementAndGet();
+            mLatch.countDown();
+        }
+
+        public boolean await(long timeout) throws InterruptedException {
+            return mLatch.await(timeout, TimeUnit.MILLISECONDS);
+        }
+
+        public int getCount() {
+            return mCount.get();
+        }
+    }
+
+    public void testTaskRunsAfterDelay() throws InterruptedException {
+        HashedWheelSipTimer timer = new HashedWheelSipTimer(TICK, 64, 2);
+        try {
+            CountingTask task = new CountingTask(1);
+            long start = System.nanoTime();
+            timer.schedule(task, 50);
+            assertTrue(task.await(1000));
+            assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50));
+            assertEquals(0, timer.getPendingTaskCount());
+        } finally {
+            timer.stop();
+        }
+    }
+
+    public void testDelayLongerThanWheel() throws InterruptedException {
+        HashedWheelSipTimer timer = new HashedWheelSipTimer(TICK, 4, 1);
+        try {
+            CountingTask task = new CountingTask(1);
+            long start = System.nanoTime();
+            timer.schedule(task, 10 * TICK);
+            assertTrue(task.await(1000));
+            assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(10 * TICK));
+        } finally {
+            timer.stop();
+        }
+    }
+
+    public void testCancelledTaskDoesNotRun() throws InterruptedException {
+        HashedWheelSipTimer timer = new HashedWheelSipTimer(TICK, 64, 2);
+        try {
+            CountingTask task = new CountingTask(1);
+            timer.schedule(task, 5 * TICK);
+            assertEquals(1, timer.getPendingTaskCount());
+            assertTrue(task.cancel());
+            assertEquals(0, timer.getPendingTaskCount());
+            assertFalse(task.await(20 * TICK));
+            assertEquals(0, task.getCount());
+            try {
+                timer.schedule(task, TICK);
+                fail("A cancelled task must not be rescheduled");
+            } catch (IllegalStateException e) {
+                /* Expected */
+            }
+        } finally {
+            timer.stop();
+        }
+    }
+
+    public void testPeriodicTask() throws InterruptedException {
+        HashedWheelSipTimer timer = new HashedWheelSipTimer(TICK, 64, 2);
+        try {
+            CountingTask task = new CountingTask(5);
+            timer.schedule(task, 0, TICK);
+            assertTrue(task.await(1000));
+            assertTrue(task.cancel());
+            int count = task.getCount();
+            Thread.sleep(10 * TICK);
+            /* At most the execution in progress when cancelling */
+            assertTrue(task.getCount() <= count + 1);
+            assertEquals(0, timer.getPendingTaskCount());
+        } finally {
+            timer.stop();
+        }
+    }
+
+    private long[] scheduleAndCancel(SipTimer timer) {
+        CountingTask[] tasks = new CountingTask[NB_TIMERS];
+        for (int i = 0; i < NB_TIMERS; i++) {
+            tasks[i] = new CountingTask(1);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < NB_TIMERS; i++) {
+            /* Spread the timeouts like in-flight transactions started at different times */
+            timer.schedule(tasks[i], TRANSACTION_TIMEOUT - (i % 1000));
+        }
+        long scheduled = System.nanoTime();
+        for (int i = 0; i < NB_TIMERS; i++) {
+            /* Most transactions complete before their timeout */
+            tasks[i].cancel();
+        }
+        long cancelled = System.nanoTime();
+        return new long[] {
+                (scheduled - start) / NB_TIMERS, (cancelled - scheduled) / NB_TIMERS
+        };
+    }
+
+    public void testBenchmarkScheduleAndCancel() {
+        DefaultSipTimer defaultTimer = new DefaultSipTimer();
+        HashedWheelSipTimer wheelTimer = new HashedWheelSipTimer();
+        try {
+            /* Warm up */
+            scheduleAndCancel(defaultTimer);
+            scheduleAndCancel(wheelTimer);
+
+            long[] heap = scheduleAndCancel(defaultTimer);
+            long[] wheel = scheduleAndCancel(wheelTimer);
+            assertEquals(0, wheelTimer.getPendingTaskCount());
+            if (sLogger.isActivated()) {
+                sLogger.info(NB_TIMERS + " transaction timers: java.util.Timer schedule "
+                        + heap[0] + " ns, cancel " + heap[1] + " ns; hashed wheel schedule "
+                        + wheel[0] + " ns, cancel " + wheel[1] + " ns");
+            }
+        } finally {
+            defaultTimer.stop();
+            wheelTimer.stop();
+        }
+    }
+}
@@ -0,0 +1,81 @@
+/*******************************************************************************
+ * Software Name : RCS IMS Stack
+ *
+ * Copyright (C) 2010-2016 Orange.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+
+package com.gsma.rcs.capability;
+
+import com.gsma.rcs.core.ims.network.sip.FeatureTags;
+import com.gsma.rcs.core.ims.service.capability.Capabilities;
+import com.gsma.rcs.core.ims.service.capability.Capabilities.CapabilitiesBuilder;
+import com.gsma.rcs.core.ims.service.capability.FeatureTagRegistry;
+
+import android.test.AndroidTestCase;
+
+public class CapabilitiesTest extends AndroidTestCase {
+
+    public void testBuilderSetsServiceBits() {
+        Capabilities capabilities = new CapabilitiesBuilder().setImSession(true)
+                .setFileTransferHttp(true).setSipAutomata(true).build();
+        assertTrue(capabilities.isImSessionSupported());
+        assertTrue(capabilities.isFileTransferHttpSupported());
+        assertTrue(capabilities.isSipAutomata());
+        assertFalse(capabilities.isFileTransferMsrpSupported());
+        assertEquals(Capabilities.SERVICE_IM_SESSION | Capabilities.SERVICE_FILE_TRANSFER_HTTP
+                | Capabilities.SERVICE_SIP_AUTOMATA, capabilities.getServices());
+        Capabilities copy = new CapabilitiesBuilder(capabilities).setImSession(false).build();
+        assertFalse(copy.isImSessionSupported());
+        assertTrue(copy.isFileTransferHttpSupported());
+    }
+
+    public void testEqualityIgnoresTimestamps() {
+        Capabilities first = new CapabilitiesBuilder().setImageSharing(true)
+                .addExtension("ext.test").setTimestampOfLastResponse(1).build();
+        Capabilities second = new CapabilitiesBuilder().setImageSharing(true)
+                .addExtension("ext.test").setTimestampOfLastResponse(2).build();
+        assertEquals(first, second);
+        assertEquals(first.hashCode(), second.hashCode());
+        assertFalse(first.equals(new CapabilitiesBuilder(first).setVideoSharing(true).build()));
+        assertFalse(first.equals(new CapabilitiesBuilder().setImageSharing(true).build()));
+    }
+
+    public void testChangedServices() {
+        Capabilities oldCapabilities = new CapabilitiesBuilder().setImSession(true)
+                .setVideoSharing(true).build();
+        Capabilities newCapabilities = new CapabilitiesBuilder().setImSession(true)
+                .setGeolocationPush(true).build();
+        assertEquals(Capabilities.SERVICE_VIDEO_SHARING | Capabilities.SERVICE_GEOLOCATION_PUSH,
+                newCapabilities.getChangedServices(oldCapabilities));
+        assertEquals(0, newCapabilities.getChangedServices(newCapabilities));
+        assertFalse(newCapabilities.isExtensionsChanged(oldCapabilities));
+        assertTrue(new CapabilitiesBuilder().addExtension("ext.test").build().isExtensionsChanged(
+                oldCapabilities));
+    }
+
+    public void testExtensionsAreInterned() {
+        String first = FeatureTagRegistry.getExtension(FeatureTags.FEATURE_RCSE_IARI_EXTENSION
+                + ".ext.game");
+        String second = FeatureTagRegistry.getExtension(new StringBuilder(
+                FeatureTags.FEATURE_RCSE_IARI_EXTENSION).append(".ext.game").toString());
+        assertEquals("ext.game", first);
+        assertSame(first, second);
+        assertEquals("gsma.test", FeatureTagRegistry
+                .getExtension(FeatureTags.FEATURE_RCSE_ICSI_EXTENSION + ".gsma.test"));
+        assertNull(FeatureTagRegistry.getExtension(FeatureTags.FEATURE_3GPP_EXTENSION));
+        assertNull(FeatureTagRegistry.getExtension(FeatureTags.FEATURE_RCSE_CHAT));
+    }
+}
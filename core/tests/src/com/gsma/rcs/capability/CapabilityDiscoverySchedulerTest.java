@@ -0,0 +1,177 @@
+/*******************************************************************************
+ * Software Name : RCS IMS Stack
+ *
+ * Copyright (C) 2010-2016 Orange.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.gsma.rcs.capability;
+
+import com.gsma.rcs.core.ims.service.capability.CapabilityDiscoveryScheduler;
+import com.gsma.rcs.core.ims.service.capability.CapabilityDiscoveryScheduler.IRequestSender;
+import com.gsma.rcs.core.ims.service.capability.CapabilityDiscoveryScheduler.Priority;
+import com.gsma.rcs.core.ims.service.capability.OptionsRequestTask.IOptionsRequestTaskListener;
+import com.gsma.rcs.utils.ContactUtil;
+import com.gsma.services.rcs.contact.ContactId;
+
+import android.test.AndroidTestCase;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax2.sip.message.Response;
+
+public class CapabilityDiscoverySchedulerTest extends AndroidTestCase {
+
+    private static final long TIMEOUT = 5000;
+
+    private static ContactId createContact(int index) {
+        return ContactUtil.createContactIdFromTrustedData("+336" + (10000000 + index));
+    }
+
+    /**
+     * Sender recording the requests and leaving their completion to the test
+     */
+    private static class PendingSender implements IRequestSender {
+        private final BlockingQueue<ContactId> mContacts = new LinkedBlockingQueue<>();
+
+        private final BlockingQueue<IOptionsRequestTaskListener> mListeners;
+
+        private PendingSender() {
+            mListeners = new LinkedBlockingQueue<>();
+        }
+
+        @Override
+        public void sendRequest(ContactId contact, IOptionsRequestTaskListener listener) {
+            mContacts.add(contact);
+            mListeners.add(listener);
+        }
+
+        private ContactId next() throws InterruptedException {
+            return mContacts.poll(TIMEOUT, TimeUnit.MILLISECONDS);
+        }
+
+        private void answer(ContactId contact, int statusCode, long retryAfter)
+                throws InterruptedException {
+            mListeners.poll(TIMEOUT, TimeUnit.MILLISECONDS).endOfOptionsRequestTask(contact,
+                    statusCode, retryAfter);
+        }
+    }
+
+    public void testPriorityOrderAndDeduplication() throws InterruptedException {
+        PendingSender sender = new PendingSender();
+        CapabilityDiscoveryScheduler scheduler = new CapabilityDiscoveryScheduler(sender, 100, 10,
+                1);
+        ContactId background = createContact(0);
+        ContactId stale = createContact(1);
+        ContactId user = createContact(2);
+        final AtomicInteger ends = new AtomicInteger();
+        IOptionsRequestTaskListener listener = new IOptionsRequestTaskListener() {
+
+            @Override
+            public void endOfOptionsRequestTask(ContactId contact, int statusCode,
+                    long retryAfter) {
+                ends.incrementAndGet();
+            }
+        };
+        assertTrue(scheduler.schedule(background, Priority.BACKGROUND, listener));
+        assertTrue(scheduler.schedule(stale, Priority.STALE, null));
+        assertTrue(scheduler.schedule(user, Priority.USER_ACTION, null));
+        assertFalse(scheduler.schedule(stale, Priority.USER_ACTION, listener));
+        assertEquals(3, scheduler.getQueueDepth());
+        scheduler.start();
+        try {
+            assertEquals(stale, sender.next());
+            assertFalse(scheduler.schedule(stale, Priority.BACKGROUND, null));
+            assertEquals(1, scheduler.getInFlightCount());
+            sender.answer(stale, Response.OK, 0);
+            assertEquals(user, sender.next());
+            sender.answer(user, Response.OK, 0);
+            assertEquals(background, sender.next());
+            sender.answer(background, Response.OK, 0);
+            assertEquals(2, ends.get());
+            assertEquals(3, scheduler.getSentCount());
+            assertEquals(2, scheduler.getMergedCount());
+            assertEquals(0, scheduler.getQueueDepth());
+        } finally {
+            scheduler.stop();
+        }
+    }
+
+    public void testRateLimit() throws InterruptedException {
+        final int nbRequests = 30;
+        final CountDownLatch done = new CountDownLatch(nbRequests);
+        CapabilityDiscoveryScheduler scheduler = new CapabilityDiscoveryScheduler(
+                new IRequestSender() {
+
+                    @Override
+                    public void sendRequest(ContactId contact,
+                            IOptionsRequestTaskListener listener) {
+                        listener.endOfOptionsRequestTask(contact, Response.OK, 0);
+                        done.countDown();
+                    }
+                }, 20, 5, 10);
+        scheduler.start();
+        try {
+            long start = System.nanoTime();
+            for (int i = 0; i < nbRequests; i++) {
+                scheduler.schedule(createContact(i), Priority.BACKGROUND, null);
+            }
+            assertTrue(done.await(TIMEOUT, TimeUnit.MILLISECONDS));
+            long duration = (System.nanoTime() - start) / 1000000;
+            /* The burst is sent at once, then 20 requests per second */
+            assertTrue(duration >= (nbRequests - 5) * 1000 / 20 - 100);
+            assertTrue(scheduler.getRequestsPerSecond() > 0);
+        } finally {
+            scheduler.stop();
+        }
+    }
+
+    public void testBackOffOnServiceUnavailable() throws InterruptedException {
+        PendingSender sender = new PendingSender();
+        CapabilityDiscoveryScheduler scheduler = new CapabilityDiscoveryScheduler(sender, 100, 10,
+                5);
+        ContactId contact = createContact(0);
+        final AtomicInteger lastStatusCode = new AtomicInteger();
+        scheduler.start();
+        try {
+            scheduler.schedule(contact, Priority.USER_ACTION, new IOptionsRequestTaskListener() {
+
+                @Override
+                public void endOfOptionsRequestTask(ContactId contact, int statusCode,
+                        long retryAfter) {
+                    lastStatusCode.set(statusCode);
+                }
+            });
+            assertEquals(contact, sender.next());
+            long start = System.nanoTime();
+            sender.answer(contact, Response.SERVICE_UNAVAILABLE, 300);
+            assertTrue(scheduler.isBackingOff());
+            assertEquals(1, scheduler.getQueueDepth());
+
+            /* The request is sent again once the Retry-After duration has elapsed */
+            assertEquals(contact, sender.next());
+            assertTrue((System.nanoTime() - start) / 1000000 >= 290);
+            assertEquals(0, lastStatusCode.get());
+            sender.answer(contact, Response.OK, 0);
+            assertEquals(Response.OK, lastStatusCode.get());
+            assertEquals(1, scheduler.getBackOffCount());
+        } finally {
+            scheduler.stop();
+        }
+    }
+}
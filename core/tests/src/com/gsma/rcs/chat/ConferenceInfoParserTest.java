@@ -21,6 +21,8 @@ package com.gsma.rcs.chat;
 import com.gsma.rcs.core.ParseFailureException;
 import com.gsma.rcs.core.ims.service.im.chat.event.ConferenceInfoDocument;
 import com.gsma.rcs.core.ims.service.im.chat.event.ConferenceInfoParser;
+import com.gsma.rcs.core.ims.service.im.chat.event.ConferenceInfoPullParser;
+import com.gsma.rcs.core.ims.service.im.chat.event.User;
 import com.gsma.rcs.utils.logger.Logger;
 
 import android.test.AndroidTestCase;
@@ -30,6 +32,7 @@ import org.xml.sax.SAXException;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.util.Vector;
 
 import javax.xml.parsers.ParserConfigurationException;
 
@@ -123,4 +126,24 @@ public class ConferenceInfoParserTest extends AndroidTestCase {
         assertEquals(confInfoDoc.getUserCount(), 33);
 
     }
+
+    public void testPullParserMatchesSaxParser() throws ParserConfigurationException,
+            SAXException, ParseFailureException {
+        Vector<User> expected = new ConferenceInfoParser(new InputSource(
+                new ByteArrayInputStream(sXmlContentToParse1.getBytes()))).parse()
+                .getConferenceInfo().getUsers();
+        ConferenceInfoPullParser parser = new ConferenceInfoPullParser(new ByteArrayInputStream(
+                sXmlContentToParse1.getBytes()));
+        for (User user : expected) {
+            User parsed = parser.nextUser();
+            assertEquals(user.getEntity(), parsed.getEntity());
+            assertEquals(user.isMe(), parsed.isMe());
+            assertEquals(user.getState(), parsed.getState());
+            assertEquals(user.getDisplayName(), parsed.getDisplayName());
+            assertEquals(user.getDisconnectionMethod(), parsed.getDisconnectionMethod());
+            assertEquals(user.getFailureReason(), parsed.getFailureReason());
+        }
+        assertNull(parser.nextUser());
+        assertEquals(50, parser.getMaxUserCount());
+    }
 }
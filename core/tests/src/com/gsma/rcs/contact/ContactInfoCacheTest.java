@@ -0,0 +1,130 @@
+/*******************************************************************************
+ * Software Name : RCS IMS Stack
+ *
+ * Copyright (C) 2010-2016 Orange.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+
+package com.gsma.rcs.contact;
+
+import com.gsma.rcs.core.ims.service.ContactInfo;
+import com.gsma.rcs.provider.contact.ContactInfoCache;
+import com.gsma.rcs.utils.ContactUtil;
+import com.gsma.rcs.utils.logger.Logger;
+import com.gsma.services.rcs.contact.ContactId;
+
+import android.test.AndroidTestCase;
+
+import java.util.concurrent.CountDownLatch;
+
+public class ContactInfoCacheTest extends AndroidTestCase {
+    private static final Logger sLogger = Logger.getLogger(ContactInfoCacheTest.class.getName());
+
+    private static final int NB_CONTACTS = 5000;
+
+    private static final int NB_THREADS = 8;
+
+    private static final int NB_LOOKUPS = 200000;
+
+    private static ContactId[] createContacts(int count) {
+        ContactId[] contacts = new ContactId[count];
+        for (int i = 0; i < count; i++) {
+            contacts[i] = ContactUtil.createContactIdFromTrustedData("+336" + (10000000 + i));
+        }
+        return contacts;
+    }
+
+    private static ContactInfo createContactInfo(ContactId contact) {
+        ContactInfo info = new ContactInfo();
+        info.setContact(contact);
+        return info;
+    }
+
+    public void testHitAndMissCounters() {
+        ContactInfoCache cache = new ContactInfoCache(16, null, null);
+        ContactId contact = createContacts(1)[0];
+        assertNull(cache.get(contact));
+        cache.put(contact, createContactInfo(contact));
+        assertNotNull(cache.get(contact));
+        assertNotNull(cache.peek(contact));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+        cache.remove(contact);
+        assertNull(cache.peek(contact));
+    }
+
+    public void testCacheIsBounded() {
+        ContactInfoCache cache = new ContactInfoCache(64, null, null);
+        ContactId[] contacts = createContacts(NB_CONTACTS);
+        for (ContactId contact : contacts) {
+            cache.put(contact, createContactInfo(contact));
+        }
+        /* Each segment is bounded: the total size may only be rounded up to the segment count */
+        assertTrue(cache.size() <= 64 + 16);
+        assertEquals(NB_CONTACTS - cache.size(), cache.getEvictionCount());
+        /* The most recent contact is still cached */
+        assertNotNull(cache.peek(contacts[NB_CONTACTS - 1]));
+        cache.clear();
+        assertEquals(0, cache.size());
+    }
+
+    public void testLeastRecentlyUsedIsEvicted() {
+        /* A single entry per segment */
+        ContactInfoCache cache = new ContactInfoCache(16, null, null);
+        ContactId[] contacts = createContacts(NB_CONTACTS);
+        ContactId first = contacts[0];
+        cache.put(first, createContactInfo(first));
+        for (int i = 1; i < NB_CONTACTS; i++) {
+            cache.put(contacts[i], createContactInfo(contacts[i]));
+        }
+        assertNull(cache.peek(first));
+    }
+
+    public void testConcurrentLookups() throws InterruptedException {
+        final ContactInfoCache cache = new ContactInfoCache(NB_CONTACTS, null, null);
+        final ContactId[] contacts = createContacts(NB_CONTACTS);
+        final CountDownLatch done = new CountDownLatch(NB_THREADS);
+        long start = System.nanoTime();
+        for (int t = 0; t < NB_THREADS; t++) {
+            final int offset = t;
+            new Thread() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < NB_LOOKUPS; i++) {
+                        ContactId contact = contacts[(i * 7 + offset) % NB_CONTACTS];
+                        if (cache.get(contact) == null) {
+                            synchronized (cache.getLock(contact)) {
+                                if (cache.peek(contact) == null) {
+                                    cache.put(contact, createContactInfo(contact));
+                                }
+                            }
+                        }
+                    }
+                    done.countDown();
+                }
+            }.start();
+        }
+        done.await();
+        long duration = System.nanoTime() - start;
+        if (sLogger.isActivated()) {
+            sLogger.info(NB_THREADS * NB_LOOKUPS + " lookups by " + NB_THREADS + " threads in "
+                    + duration / 1000000 + " ms, hits=" + cache.getHitCount() + " misses="
+                    + cache.getMissCount());
+        }
+        assertEquals((long) NB_THREADS * NB_LOOKUPS, cache.getHitCount() + cache.getMissCount());
+        assertEquals(NB_CONTACTS, cache.size());
+        assertEquals(0, cache.getEvictionCount());
+    }
+}
@@ -31,11 +31,13 @@ import com.gsma.rcs.core.ims.service.ContactInfo.RegistrationState;
 import com.gsma.rcs.core.ims.service.capability.Capabilities;
 import com.gsma.rcs.core.ims.service.capability.Capabilities.CapabilitiesBuilder;
 import com.gsma.rcs.provider.LocalContentResolver;
+import com.gsma.rcs.provider.contact.ContactInfoCache;
 import com.gsma.rcs.provider.contact.ContactManager;
 import com.gsma.rcs.provider.contact.ContactManagerException;
 import com.gsma.rcs.provider.settings.RcsSettings;
 import com.gsma.rcs.utils.ContactUtilMockContext;
 import com.gsma.rcs.utils.logger.Logger;
+import com.gsma.services.rcs.RcsPermissionDeniedException;
 import com.gsma.services.rcs.contact.ContactId;
 import com.gsma.services.rcs.contact.ContactUtil;
 
@@ -181,6 +183,46 @@ public class ContactManagerTest extends AndroidTestCase {
         assertTrue(mContactManager.isBlockedForContact(mContact));
     }
 
+    public void testBlockingStateIsWrittenThrough() throws ContactManagerException,
+            FileAccessException {
+        ContactInfoCache cache = mContactManager.getContactInfoCache();
+        createRcsContact();
+        /* The RCS status has changed: the new contact is written synchronously */
+        assertFalse(cache.hasPendingWrite(mContact));
+        mContactManager.updateCapabilitiesTimeLastRequest(mContact);
+        assertTrue(cache.hasPendingWrite(mContact));
+        mContactManager.setBlockingState(mContact, BlockingState.BLOCKED);
+        assertFalse(cache.hasPendingWrite(mContact));
+    }
+
+    public void testCapabilityRefreshIsWrittenBehind() throws ContactManagerException,
+            FileAccessException {
+        ContactInfoCache cache = mContactManager.getContactInfoCache();
+        CapabilitiesBuilder capaBuilder = createRcsContact();
+        capaBuilder.setTimestampOfLastResponse(System.currentTimeMillis());
+        /* Only the timestamp changed: no capability change to report */
+        assertFalse(mContactManager.setContactCapabilities(mContact, capaBuilder.build(),
+                RcsStatus.RCS_CAPABLE, RegistrationState.ONLINE));
+        assertTrue(cache.hasPendingWrite(mContact));
+        mContactManager.blockContact(mContact);
+        assertFalse(cache.hasPendingWrite(mContact));
+    }
+
+    public void testCapabilityChangeIsWrittenThrough() throws ContactManagerException,
+            FileAccessException {
+        ContactInfoCache cache = mContactManager.getContactInfoCache();
+        CapabilitiesBuilder capaBuilder = createRcsContact();
+        mContactManager.updateCapabilitiesTimeLastRequest(mContact);
+        assertTrue(cache.hasPendingWrite(mContact));
+        capaBuilder.setImageSharing(!capaBuilder.isImageSharingSupported());
+        assertTrue(mContactManager.setContactCapabilities(mContact, capaBuilder.build(),
+                RcsStatus.RCS_CAPABLE, RegistrationState.ONLINE));
+        assertFalse(cache.hasPendingWrite(mContact));
+        assertTrue(mContactManager.setContactCapabilities(mContact, capaBuilder.build(),
+                RcsStatus.RCS_CAPABLE, RegistrationState.OFFLINE));
+        assertFalse(cache.hasPendingWrite(mContact));
+    }
+
     public CapabilitiesBuilder createRcsContact() throws ContactManagerException,
             FileAccessException {
         long now = System.currentTimeMillis();
@@ -224,4 +266,41 @@ public class ContactManagerTest extends AndroidTestCase {
         assertTrue(mContactManager.getAllContactsFromRcsContactProvider().isEmpty());
     }
 
+    public void testBenchmarkBatchedCapabilityWrites() throws ContactManagerException,
+            FileAccessException, RcsPermissionDeniedException {
+        final int nbContacts = 1000;
+        ContactUtil contactUtils = ContactUtil.getInstance(new ContactUtilMockContext(getContext()));
+        Capabilities capabilities = new CapabilitiesBuilder().setImSession(true)
+                .setFileTransferHttp(true).setTimestampOfLastResponse(System.currentTimeMillis())
+                .build();
+        ContactInfoCache cache = mContactManager.getContactInfoCache();
+        ContactId[] contacts = new ContactId[nbContacts];
+        for (int i = 0; i < nbContacts; i++) {
+            contacts[i] = contactUtils.formatContact("+3367" + (1000000 + i));
+            /* A change of RCS status is written through */
+            mContactManager.setContactCapabilities(contacts[i], capabilities,
+                    RcsStatus.RCS_CAPABLE, RegistrationState.ONLINE);
+        }
+        capabilities = new CapabilitiesBuilder(capabilities).setTimestampOfLastResponse(
+                System.currentTimeMillis() + 1).build();
+        long batchCount = cache.getBatchCount();
+        long start = System.nanoTime();
+        for (ContactId contact : contacts) {
+            mContactManager.setContactCapabilities(contact, capabilities, RcsStatus.RCS_CAPABLE,
+                    RegistrationState.ONLINE);
+        }
+        /* Querying the provider flushes the pending writes */
+        Set<ContactId> rcsContacts = mContactManager.getAllContactsFromRcsContactProvider();
+        long duration = Math.max(1, (System.nanoTime() - start) / 1000000);
+        long commits = cache.getBatchCount() - batchCount;
+        if (sLogger.isActivated()) {
+            sLogger.info("Capabilities of " + nbContacts + " contacts written in " + duration
+                    + " ms with " + commits + " commits: " + (nbContacts * 1000 / duration)
+                    + " contacts/s, " + (commits * 1000 / duration) + " commits/s");
+        }
+        assertTrue(rcsContacts.size() >= nbContacts);
+        /* One transaction per batch instead of one per contact */
+        assertTrue(commits < nbContacts / 10);
+    }
+
 }
@@ -5,12 +5,18 @@ import static com.gsma.rcs.utils.StringUtils.UTF8;
 
 import com.gsma.rcs.core.ims.network.sip.Multipart;
 import com.gsma.rcs.core.ims.network.sip.SipUtils;
+import com.gsma.rcs.core.ims.service.im.chat.cpim.CpimEncoder;
 import com.gsma.rcs.core.ims.service.im.chat.cpim.CpimMessage;
 import com.gsma.rcs.core.ims.service.im.chat.cpim.CpimParser;
 import com.gsma.rcs.core.ims.service.im.chat.imdn.ImdnUtils;
 
 import android.test.AndroidTestCase;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
 /*******************************************************************************
  * Software Name : RCS IMS Stack Copyright (C) 2010-2016 Orange. Licensed under the Apache License,
  * Version 2.0 (the "License"); you may not use this file except in compliance with the License. You
@@ -125,4 +131,32 @@ public class CpimParserTest extends AndroidTestCase {
         assertEquals("3", cpim.getContentHeader("Content-length"));
         assertEquals("positive-delivery, display", cpim.getHeader("imdn.Disposition-Notification"));
     }
+
+    public final void testEncoderRoundTrip() throws IOException {
+        byte[] content = "Bonjour \u00e0 tous".getBytes(UTF8);
+        CpimEncoder encoder = new CpimEncoder()
+                .addHeader(CpimMessage.HEADER_FROM, "<sip:anonymous@anonymous.invalid>")
+                .addHeader(CpimMessage.HEADER_TO, "<sip:anonymous@anonymous.invalid>")
+                .addContentHeader(CpimMessage.HEADER_CONTENT_TYPE, "text/plain;charset=utf-8")
+                .addContentHeader(CpimMessage.HEADER_CONTENT_LENGTH, content.length)
+                .setContent(content);
+        /* Read the encoded message as the MSRP session does, with a buffer smaller than it */
+        InputStream stream = encoder.getInputStream();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[16];
+        int read;
+        while ((read = stream.read(buffer, 0, buffer.length)) > -1) {
+            out.write(buffer, 0, read);
+        }
+        byte[] encoded = out.toByteArray();
+        assertEquals(encoder.getLength(), encoded.length);
+        assertTrue(Arrays.equals(encoder.toByteArray(), encoded));
+
+        CpimMessage msg = new CpimParser(encoded).getCpimMessage();
+        assertEquals("<sip:anonymous@anonymous.invalid>", msg.getHeader(CpimMessage.HEADER_FROM));
+        assertEquals("text/plain;charset=utf-8", msg.getContentType());
+        assertEquals(content.length, msg.getContentLength());
+        assertTrue(Arrays.equals(content, msg.getMessageContentBytes()));
+        assertEquals("Bonjour \u00e0 tous", msg.getMessageContent());
+    }
 }
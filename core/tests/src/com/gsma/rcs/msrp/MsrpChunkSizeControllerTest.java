@@ -0,0 +1,106 @@
+/*******************************************************************************
+ * Software Name : RCS IMS Stack
+ *
+ * Copyright (C) 2010-2016 Orange.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.gsma.rcs.msrp;
+
+import com.gsma.rcs.core.ims.protocol.msrp.MsrpChunkSizeController;
+import com.gsma.rcs.core.ims.protocol.msrp.MsrpChunkSizeListener;
+import com.gsma.rcs.core.ims.protocol.msrp.MsrpConstants;
+
+import android.test.AndroidTestCase;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class MsrpChunkSizeControllerTest extends AndroidTestCase {
+    private static final int MAX_CHUNK_SIZE = 64 * 1024;
+
+    private static final long TARGET_LATENCY = 1000;
+
+    private static void acknowledgeRound(MsrpChunkSizeController controller, long latency) {
+        for (int i = 0; i < MsrpConstants.MAX_CHUNKS_IN_FLIGHT; i++) {
+            controller.onChunkAcknowledged(controller.getChunkSize(), latency);
+        }
+    }
+
+    public void testFixedChunkSize() {
+        MsrpChunkSizeController controller = new MsrpChunkSizeController(
+                MsrpConstants.CHUNK_MAX_SIZE, MAX_CHUNK_SIZE, false, TARGET_LATENCY);
+        controller.start(1000000);
+        acknowledgeRound(controller, 10);
+        assertEquals(MsrpConstants.CHUNK_MAX_SIZE, controller.getChunkSize());
+    }
+
+    public void testChunkSizeIsBounded() {
+        MsrpChunkSizeController controller = new MsrpChunkSizeController(1000000, MAX_CHUNK_SIZE,
+                false, TARGET_LATENCY);
+        assertEquals(MAX_CHUNK_SIZE, controller.getChunkSize());
+        controller = new MsrpChunkSizeController(10, MAX_CHUNK_SIZE, false, TARGET_LATENCY);
+        assertEquals(MsrpConstants.CHUNK_MIN_SIZE, controller.getChunkSize());
+    }
+
+    public void testMaxChunkSizeBelowMinimumIsNotExceeded() throws InterruptedException {
+        int maxChunkSize = MsrpConstants.CHUNK_MIN_SIZE / 2;
+        MsrpChunkSizeController controller = new MsrpChunkSizeController(
+                MsrpConstants.CHUNK_MAX_SIZE, maxChunkSize, true, TARGET_LATENCY);
+        assertEquals(maxChunkSize, controller.getChunkSize());
+        controller.start(10000000);
+        Thread.sleep(5);
+        acknowledgeRound(controller, 10);
+        assertEquals(maxChunkSize, controller.getChunkSize());
+        acknowledgeRound(controller, 2 * TARGET_LATENCY);
+        assertEquals(maxChunkSize, controller.getChunkSize());
+    }
+
+    public void testGrowsOnLowLatencyAndShrinksOnHighLatency() throws InterruptedException {
+        MsrpChunkSizeController controller = new MsrpChunkSizeController(
+                MsrpConstants.CHUNK_MAX_SIZE, MAX_CHUNK_SIZE, true, TARGET_LATENCY);
+        controller.start(10000000);
+        int size = controller.getChunkSize();
+        /* Let some time elapse so that throughput does not drop with larger rounds */
+        Thread.sleep(5);
+        acknowledgeRound(controller, 10);
+        assertEquals(2 * size, controller.getChunkSize());
+
+        acknowledgeRound(controller, 2 * TARGET_LATENCY);
+        assertEquals(size, controller.getChunkSize());
+    }
+
+    public void testListenerIsNotifiedOfSelectedChunkSizes() throws InterruptedException {
+        final List<Integer> chunkSizes = new ArrayList<>();
+        MsrpChunkSizeController.setListener(new MsrpChunkSizeListener() {
+            @Override
+            public void onChunkSizeSelected(long contentSize, int chunkSize, long throughput,
+                    long latency) {
+                chunkSizes.add(chunkSize);
+            }
+        });
+        try {
+            MsrpChunkSizeController controller = new MsrpChunkSizeController(
+                    MsrpConstants.CHUNK_MAX_SIZE, MAX_CHUNK_SIZE, true, TARGET_LATENCY);
+            controller.start(10000000);
+            Thread.sleep(5);
+            acknowledgeRound(controller, 10);
+            assertEquals(2, chunkSizes.size());
+            assertEquals(MsrpConstants.CHUNK_MAX_SIZE, chunkSizes.get(0).intValue());
+            assertEquals(2 * MsrpConstants.CHUNK_MAX_SIZE, chunkSizes.get(1).intValue());
+        } finally {
+            MsrpChunkSizeController.setListener(null);
+        }
+    }
+}
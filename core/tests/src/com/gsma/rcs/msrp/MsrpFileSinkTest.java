@@ -0,0 +1,141 @@
+/*******************************************************************************
+ * Software Name : RCS IMS Stack
+ *
+ * Copyright (C) 2010-2016 Orange.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.gsma.rcs.msrp;
+
+import com.gsma.rcs.core.FileAccessException;
+import com.gsma.rcs.core.ims.protocol.msrp.MsrpFileSink;
+
+import android.test.AndroidTestCase;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+
+public class MsrpFileSinkTest extends AndroidTestCase {
+
+    private static final int CHUNK_SIZE = 100;
+
+    private static final int NB_CHUNKS = 10;
+
+    private File mFile;
+
+    private byte[] mContent;
+
+    protected void setUp() throws Exception {
+        super.setUp();
+        mFile = File.createTempFile("msrp", ".tmp");
+        mContent = new byte[CHUNK_SIZE * NB_CHUNKS];
+        for (int i = 0; i < mContent.length; i++) {
+            mContent[i] = (byte) i;
+        }
+    }
+
+    protected void tearDown() throws Exception {
+        mFile.delete();
+        super.tearDown();
+    }
+
+    private void writeChunk(MsrpFileSink sink, int index) throws FileAccessException {
+        int offset = index * CHUNK_SIZE;
+        sink.write(offset, Arrays.copyOfRange(mContent, offset, offset + CHUNK_SIZE));
+    }
+
+    private byte[] readFile() throws IOException {
+        RandomAccessFile file = new RandomAccessFile(mFile, "r");
+        try {
+            byte[] data = new byte[(int) file.length()];
+            file.readFully(data);
+            return data;
+        } finally {
+            file.close();
+        }
+    }
+
+    public void testOutOfOrderChunks() throws FileAccessException, IOException {
+        MsrpFileSink sink = new MsrpFileSink(mFile);
+        for (int i = NB_CHUNKS - 1; i >= 0; i -= 2) {
+            writeChunk(sink, i);
+        }
+        assertEquals(mContent.length / 2, sink.getReceivedSize());
+        for (int i = 0; i < NB_CHUNKS; i += 2) {
+            writeChunk(sink, i);
+        }
+        sink.close();
+        assertEquals(mContent.length, sink.getReceivedSize());
+        assertTrue(Arrays.equals(mContent, readFile()));
+    }
+
+    public void testDuplicateChunks() throws FileAccessException, IOException {
+        MsrpFileSink sink = new MsrpFileSink(mFile);
+        writeChunk(sink, 0);
+        writeChunk(sink, 3);
+        writeChunk(sink, 0);
+        writeChunk(sink, 3);
+        assertEquals(2 * CHUNK_SIZE, sink.getReceivedSize());
+        for (int i = 0; i < NB_CHUNKS; i++) {
+            writeChunk(sink, i);
+        }
+        sink.close();
+        assertEquals(mContent.length, sink.getReceivedSize());
+        assertTrue(Arrays.equals(mContent, readFile()));
+    }
+
+    public void testOverlappingChunks() throws FileAccessException, IOException {
+        MsrpFileSink sink = new MsrpFileSink(mFile);
+        writeChunk(sink, 1);
+        writeChunk(sink, 3);
+        /* Retransmission re-chunked across the two received ranges and the gap between them */
+        int offset = CHUNK_SIZE + CHUNK_SIZE / 2;
+        sink.write(offset, Arrays.copyOfRange(mContent, offset, offset + 2 * CHUNK_SIZE));
+        assertEquals(3 * CHUNK_SIZE, sink.getReceivedSize());
+        sink.write(0, Arrays.copyOfRange(mContent, 0, mContent.length));
+        sink.close();
+        assertEquals(mContent.length, sink.getReceivedSize());
+        assertTrue(Arrays.equals(mContent, readFile()));
+    }
+
+    public void testWriteAfterCloseFails() throws FileAccessException, IOException {
+        MsrpFileSink sink = new MsrpFileSink(mFile);
+        writeChunk(sink, 0);
+        sink.close();
+        assertTrue(sink.isClosed());
+        try {
+            writeChunk(sink, 1);
+            fail("Write after close must fail");
+        } catch (FileAccessException e) {
+            /* Expected */
+        }
+        assertEquals(CHUNK_SIZE, sink.getReceivedSize());
+        assertEquals(CHUNK_SIZE, readFile().length);
+    }
+
+    public void testExistingFileIsTruncated() throws FileAccessException, IOException {
+        MsrpFileSink sink = new MsrpFileSink(mFile);
+        for (int i = 0; i < NB_CHUNKS; i++) {
+            writeChunk(sink, i);
+        }
+        sink.close();
+        /* Shorter retransfer to the same file */
+        sink = new MsrpFileSink(mFile);
+        writeChunk(sink, 0);
+        sink.close();
+        assertTrue(Arrays.equals(Arrays.copyOfRange(mContent, 0, CHUNK_SIZE), readFile()));
+    }
+}
@@ -0,0 +1,237 @@
+/*******************************************************************************
+ * Software Name : RCS IMS Stack
+ *
+ * Copyright (C) 2010-2016 Orange.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.gsma.rcs.msrp;
+
+import static com.gsma.rcs.utils.StringUtils.UTF8;
+
+import com.gsma.rcs.core.ims.protocol.msrp.MsrpConstants;
+import com.gsma.rcs.core.ims.protocol.msrp.MsrpFrameDecoder;
+import com.gsma.rcs.utils.logger.Logger;
+
+import android.test.AndroidTestCase;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Random;
+
+public class MsrpFrameDecoderTest extends AndroidTestCase {
+    private static final Logger sLogger = Logger.getLogger(MsrpFrameDecoderTest.class.getName());
+
+    private static final String TX_ID = "b276bb5b0adb22f6";
+
+    private static final String END_LINE = MsrpConstants.END_MSRP_MSG + TX_ID;
+
+    private static final int BENCHMARK_ITERATIONS = 20;
+
+    /**
+     * Input stream returning at most a few bytes per read to exercise partial reads
+     */
+    private static class FragmentedInputStream extends FilterInputStream {
+        private final int mMaxRead;
+
+        FragmentedInputStream(InputStream in, int maxRead) {
+            super(in);
+            mMaxRead = maxRead;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int count) throws IOException {
+            return super.read(buffer, offset, Math.min(count, mMaxRead));
+        }
+    }
+
+    private static byte[] createFrame(byte[] body, boolean withByteRange) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(("MSRP " + TX_ID + " SEND\r\n").getBytes(UTF8));
+        out.write("To-Path: msrp://10.108.25.89:19494/n02s00i2t0+519;tcp\r\n".getBytes(UTF8));
+        out.write("From-Path: msrp://10.102.192.68:20000/1375944013409;tcp\r\n".getBytes(UTF8));
+        out.write("Message-ID: MID-3BCqcBUXKA\r\n".getBytes(UTF8));
+        if (withByteRange) {
+            out.write(("Byte-Range: 1-" + body.length + "/" + body.length + "\r\n")
+                    .getBytes(UTF8));
+        } else {
+            out.write(("Byte-Range: 1-*/" + body.length + "\r\n").getBytes(UTF8));
+        }
+        out.write("Content-Type: application/octet-stream\r\n\r\n".getBytes(UTF8));
+        out.write(body);
+        out.write(("\r\n" + END_LINE + "$\r\n").getBytes(UTF8));
+        return out.toByteArray();
+    }
+
+    private static byte[] createBody(int size) {
+        byte[] body = new byte[size];
+        new Random(size).nextBytes(body);
+        /* Inject partial end tags in the body to exercise the matcher fall back */
+        byte[] partial = ("\r\n" + MsrpConstants.END_MSRP_MSG + TX_ID.substring(0, 8))
+                .getBytes(UTF8);
+        for (int i = 0; i + partial.length < size; i += 997) {
+            System.arraycopy(partial, 0, body, i, partial.length);
+        }
+        return body;
+    }
+
+    private static byte[] decode(MsrpFrameDecoder decoder, boolean withByteRange, int size)
+            throws IOException {
+        String line = decoder.readLine();
+        assertEquals("MSRP " + TX_ID + " SEND", line);
+        while ((line = decoder.readLine()).length() > 0) {
+            assertTrue(line.indexOf(':') > 0);
+        }
+        byte[] data;
+        if (withByteRange) {
+            data = decoder.readData(size);
+            assertEquals(END_LINE + "$", decoder.readLine());
+        } else {
+            data = decoder.readDataUntil(("\r\n" + END_LINE).getBytes(UTF8), size);
+            assertEquals("$", decoder.readLine());
+        }
+        return data;
+    }
+
+    /**
+     * Byte at a time reader mirroring the former ChunkReceiver implementation, used as the
+     * benchmark baseline
+     */
+    private static byte[] decodeLegacy(InputStream stream, int size) throws IOException {
+        StringBuilder line;
+        do {
+            line = readLegacyLine(stream);
+        } while (line.length() > 0);
+        int b;
+        int tagLength = END_LINE.length();
+        int[] tail = new int[tagLength];
+        byte[] buffer = new byte[size + tagLength + 2];
+        int[] match = new int[tagLength];
+        for (int i = 0; i < tagLength; i++) {
+            match[i] = END_LINE.charAt(tagLength - i - 1);
+        }
+        byte[] result = null;
+        for (int j = 0; (b = stream.read()) != -1; j++) {
+            System.arraycopy(tail, 0, tail, 1, tagLength - 1);
+            tail[0] = b;
+            if (b != match[0]) {
+                buffer[j] = (byte) b;
+            } else {
+                boolean tagFound = true;
+                for (int k = 1; k < tagLength - 1; k++) {
+                    if (tail[k] != match[k]) {
+                        buffer[j] = (byte) b;
+                        tagFound = false;
+                        break;
+                    }
+                }
+                if (tagFound) {
+                    result = new byte[j - tagLength];
+                    System.arraycopy(buffer, 0, result, 0, j - tagLength - 1);
+                    result[j - tagLength - 1] = (byte) stream.read();
+                    break;
+                }
+            }
+        }
+        stream.read();
+        stream.read();
+        return result;
+    }
+
+    private static StringBuilder readLegacyLine(InputStream stream) throws IOException {
+        StringBuilder line = new StringBuilder();
+        int previous = -1;
+        int current;
+        while ((current = stream.read()) != -1) {
+            line.append((char) current);
+            if ((previous == MsrpConstants.CHAR_LF) && (current == MsrpConstants.CHAR_CR)) {
+                return line.delete(line.length() - 2, line.length());
+            }
+            previous = current;
+        }
+        return line;
+    }
+
+    public void testReadDataWithByteRange() throws IOException {
+        byte[] body = createBody(25000);
+        MsrpFrameDecoder decoder = new MsrpFrameDecoder(new ByteArrayInputStream(createFrame(
+                body, true)));
+        assertTrue(Arrays.equals(body, decode(decoder, true, body.length)));
+        assertNull(decoder.readLine());
+    }
+
+    public void testReadDataUntilEndLine() throws IOException {
+        byte[] body = createBody(25000);
+        MsrpFrameDecoder decoder = new MsrpFrameDecoder(new ByteArrayInputStream(createFrame(
+                body, false)));
+        assertTrue(Arrays.equals(body, decode(decoder, false, body.length)));
+        assertNull(decoder.readLine());
+    }
+
+    public void testFragmentedStream() throws IOException {
+        byte[] body = createBody(4000);
+        for (int maxRead = 1; maxRead < 40; maxRead += 3) {
+            MsrpFrameDecoder decoder = new MsrpFrameDecoder(new FragmentedInputStream(
+                    new ByteArrayInputStream(createFrame(body, false)), maxRead), 16);
+            assertTrue(Arrays.equals(body, decode(decoder, false, body.length)));
+            decoder = new MsrpFrameDecoder(new FragmentedInputStream(new ByteArrayInputStream(
+                    createFrame(body, true)), maxRead), 16);
+            assertTrue(Arrays.equals(body, decode(decoder, true, body.length)));
+        }
+    }
+
+    public void testChunkTooLarge() throws IOException {
+        byte[] body = createBody(4000);
+        MsrpFrameDecoder decoder = new MsrpFrameDecoder(new ByteArrayInputStream(createFrame(
+                body, false)));
+        try {
+            decode(decoder, false, 1000);
+            fail("Chunk larger than the maximum size must be rejected");
+        } catch (IOException e) {
+            /* Expected */
+        }
+    }
+
+    public void testBenchmarkAgainstLegacyReader() throws IOException {
+        for (int size : new int[] {
+                10 * 1024, 100 * 1024, 1024 * 1024
+        }) {
+            byte[] frame = createFrame(createBody(size), false);
+            long legacyTime = 0;
+            long decoderTime = 0;
+            for (int i = 0; i < BENCHMARK_ITERATIONS; i++) {
+                long start = System.nanoTime();
+                byte[] legacy = decodeLegacy(new ByteArrayInputStream(frame), size);
+                legacyTime += System.nanoTime() - start;
+
+                start = System.nanoTime();
+                byte[] data = decode(new MsrpFrameDecoder(new ByteArrayInputStream(frame)),
+                        false, size);
+                decoderTime += System.nanoTime() - start;
+
+                /* The legacy reader returns the continuation flag as last byte */
+                assertEquals(legacy.length - 1, data.length);
+            }
+            if (sLogger.isActivated()) {
+                sLogger.info("Chunk of " + size + " bytes: legacy "
+                        + (legacyTime / BENCHMARK_ITERATIONS / 1000) + " us, decoder "
+                        + (decoderTime / BENCHMARK_ITERATIONS / 1000) + " us");
+            }
+        }
+    }
+}
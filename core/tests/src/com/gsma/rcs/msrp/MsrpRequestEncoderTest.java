@@ -0,0 +1,119 @@
+/*******************************************************************************
+ * Software Name : RCS IMS Stack
+ *
+ * Copyright (C) 2010-2016 Orange.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.gsma.rcs.msrp;
+
+import static com.gsma.rcs.utils.StringUtils.UTF8;
+
+import com.gsma.rcs.core.ims.protocol.msrp.MsrpChunk;
+import com.gsma.rcs.core.ims.protocol.msrp.MsrpChunkPool;
+import com.gsma.rcs.core.ims.protocol.msrp.MsrpConstants;
+import com.gsma.rcs.core.ims.protocol.msrp.MsrpRequestEncoder;
+import com.gsma.rcs.utils.logger.Logger;
+
+import android.os.Debug;
+import android.test.AndroidTestCase;
+
+import java.util.Arrays;
+
+public class MsrpRequestEncoderTest extends AndroidTestCase {
+    private static final Logger sLogger = Logger.getLogger(MsrpRequestEncoderTest.class.getName());
+
+    private static final String TO_PATH = "msrp://10.108.25.89:19494/n02s00i2t0+519;tcp";
+
+    private static final String FROM_PATH = "msrp://10.102.192.68:20000/1375944013409;tcp";
+
+    private static final String MSG_ID = "MID-3BCqcBUXKA";
+
+    private static final String TX_ID = "b276bb5b0adb22f6";
+
+    private static final int ONE_MB = 1024 * 1024;
+
+    private static byte[] toBytes(MsrpChunk chunk) {
+        return chunk.toString().getBytes(UTF8);
+    }
+
+    public void testEncodeMoreChunk() {
+        MsrpChunkPool pool = new MsrpChunkPool(MsrpConstants.CHUNK_MAX_SIZE);
+        MsrpRequestEncoder encoder = new MsrpRequestEncoder(TO_PATH, FROM_PATH, MSG_ID,
+                "message/cpim", 20, true, false);
+        MsrpChunk chunk = pool.acquire();
+        System.arraycopy("0123456789".getBytes(UTF8), 0, chunk.getData(), 0, 10);
+        chunk.setDataLength(10);
+        encoder.encode(chunk, TX_ID, 1, 10);
+        String expected = "MSRP " + TX_ID + " SEND\r\n" + "To-Path: " + TO_PATH + "\r\n"
+                + "From-Path: " + FROM_PATH + "\r\n" + "Message-ID: " + MSG_ID + "\r\n"
+                + "Byte-Range: 1-10/20\r\n" + "Failure-Report: yes\r\n"
+                + "Content-Type: message/cpim\r\n" + "\r\n" + "0123456789" + "\r\n-------"
+                + TX_ID + "+\r\n";
+        assertTrue(Arrays.equals(expected.getBytes(UTF8), toBytes(chunk)));
+        assertEquals(expected.length(), chunk.getLength());
+    }
+
+    public void testEncodeLastChunk() {
+        MsrpChunkPool pool = new MsrpChunkPool(MsrpConstants.CHUNK_MAX_SIZE);
+        MsrpRequestEncoder encoder = new MsrpRequestEncoder(TO_PATH, FROM_PATH, MSG_ID, null,
+                10240000000L, false, true);
+        MsrpChunk chunk = pool.acquire();
+        chunk.getData()[0] = 'A';
+        chunk.setDataLength(1);
+        encoder.encode(chunk, TX_ID, 10240000000L, 10240000000L);
+        String expected = "MSRP " + TX_ID + " SEND\r\n" + "To-Path: " + TO_PATH + "\r\n"
+                + "From-Path: " + FROM_PATH + "\r\n" + "Message-ID: " + MSG_ID + "\r\n"
+                + "Byte-Range: 10240000000-10240000000/10240000000\r\n"
+                + "Success-Report: yes\r\n" + "\r\n" + "A" + "\r\n-------" + TX_ID + "$\r\n";
+        assertEquals(expected, chunk.toString());
+    }
+
+    public void testPoolReusesChunks() {
+        MsrpChunkPool pool = new MsrpChunkPool(MsrpConstants.CHUNK_MAX_SIZE);
+        MsrpChunk chunk = pool.acquire();
+        chunk.recycle();
+        assertSame(chunk, pool.acquire());
+    }
+
+    public void testBenchmarkAllocatedBytesPerMegabyte() {
+        MsrpChunkPool pool = new MsrpChunkPool(MsrpConstants.CHUNK_MAX_SIZE);
+        MsrpRequestEncoder encoder = new MsrpRequestEncoder(TO_PATH, FROM_PATH, MSG_ID,
+                "application/octet-stream", ONE_MB, true, false);
+        /* Warm up the pool so that steady state allocations only are counted */
+        pool.acquire().recycle();
+
+        Debug.startAllocCounting();
+        Debug.resetThreadAllocSize();
+        long start = System.nanoTime();
+        long firstByte = 1;
+        while (firstByte <= ONE_MB) {
+            MsrpChunk chunk = pool.acquire();
+            int size = (int) Math.min(pool.getDataCapacity(), ONE_MB - firstByte + 1);
+            chunk.setDataLength(size);
+            long lastByte = firstByte + size - 1;
+            encoder.encode(chunk, TX_ID, firstByte, lastByte);
+            chunk.recycle();
+            firstByte = lastByte + 1;
+        }
+        long duration = System.nanoTime() - start;
+        int allocated = Debug.getThreadAllocSize();
+        Debug.stopAllocCounting();
+        if (sLogger.isActivated()) {
+            sLogger.info("Encoding 1 MB: " + allocated + " bytes allocated, " + (duration / 1000)
+                    + " us");
+        }
+        assertTrue(allocated < MsrpConstants.CHUNK_MAX_SIZE);
+    }
+}
@@ -0,0 +1,115 @@
+/*******************************************************************************
+ * Software Name : RCS IMS Stack
+ *
+ * Copyright (C) 2010-2016 Orange.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.gsma.rcs.msrp;
+
+import com.gsma.rcs.core.ims.protocol.msrp.MsrpConstants;
+import com.gsma.rcs.core.ims.protocol.msrp.MsrpSendWindow;
+import com.gsma.rcs.utils.logger.Logger;
+
+import android.test.AndroidTestCase;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+public class MsrpSendWindowTest extends AndroidTestCase {
+    private static final Logger sLogger = Logger.getLogger(MsrpSendWindowTest.class.getName());
+
+    private static final long TIMEOUT = 5000;
+
+    private static final int NB_CHUNKS = 40;
+
+    /**
+     * Send chunks through the window to a loopback peer answering each SEND after the given round
+     * trip time
+     *
+     * @return Throughput in bytes per second
+     */
+    private static long runLoopback(int windowSize, final long rtt) {
+        final int chunkSize = MsrpConstants.CHUNK_MAX_SIZE;
+        final MsrpSendWindow window = new MsrpSendWindow(windowSize, TIMEOUT, NB_CHUNKS
+                * chunkSize);
+        ScheduledExecutorService peer = Executors.newSingleThreadScheduledExecutor();
+        try {
+            long start = System.nanoTime();
+            for (int i = 0; i < NB_CHUNKS; i++) {
+                final String txId = Integer.toHexString(i);
+                assertTrue(window.acquire(txId, chunkSize));
+                peer.schedule(new Runnable() {
+                    @Override
+                    public void run() {
+                        window.handleResponse(txId, 200);
+                    }
+                }, rtt, TimeUnit.MILLISECONDS);
+            }
+            assertTrue(window.waitAllResponses());
+            long duration = System.nanoTime() - start;
+            assertEquals(NB_CHUNKS * chunkSize, window.getAcknowledgedSize());
+            return NB_CHUNKS * chunkSize * 1000000000L / duration;
+        } finally {
+            peer.shutdownNow();
+        }
+    }
+
+    public void testErrorResponseStopsTransfer() {
+        MsrpSendWindow window = new MsrpSendWindow(2, TIMEOUT, 3);
+        assertTrue(window.acquire("a", 1));
+        assertTrue(window.acquire("b", 1));
+        assertFalse(window.handleResponse("unknown", 200));
+        assertTrue(window.handleResponse("a", 413));
+        assertFalse(window.acquire("c", 1));
+        assertEquals(413, window.getErrorCode());
+        assertFalse(window.waitAllResponses());
+    }
+
+    public void testTimeout() {
+        MsrpSendWindow window = new MsrpSendWindow(1, 100, 2);
+        assertTrue(window.acquire("a", 1));
+        assertFalse(window.acquire("b", 1));
+        assertTrue(window.isTimedOut());
+    }
+
+    public void testTerminateUnblocksSender() throws InterruptedException {
+        final MsrpSendWindow window = new MsrpSendWindow(1, TIMEOUT, 2);
+        assertTrue(window.acquire("a", 1));
+        new Thread() {
+            @Override
+            public void run() {
+                window.terminate();
+            }
+        }.start();
+        assertFalse(window.acquire("b", 1));
+        assertTrue(window.isTerminated());
+    }
+
+    public void testThroughputAtSimulatedRtt() {
+        for (long rtt : new long[] {
+                10, 50
+        }) {
+            long stopAndWait = runLoopback(1, rtt);
+            long windowed = runLoopback(MsrpConstants.MAX_CHUNKS_IN_FLIGHT, rtt);
+            if (sLogger.isActivated()) {
+                sLogger.info("RTT " + rtt + " ms: stop-and-wait " + stopAndWait / 1024
+                        + " KB/s, window of " + MsrpConstants.MAX_CHUNKS_IN_FLIGHT + " "
+                        + windowed / 1024 + " KB/s");
+            }
+            assertTrue(windowed > stopAndWait);
+        }
+    }
+}
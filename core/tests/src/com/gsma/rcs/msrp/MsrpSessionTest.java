@@ -0,0 +1,146 @@
+/*******************************************************************************
+ * Software Name : RCS IMS Stack
+ *
+ * Copyright (C) 2010-2016 Orange.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.gsma.rcs.msrp;
+
+import com.gsma.rcs.RcsSettingsMock;
+import com.gsma.rcs.core.FileAccessException;
+import com.gsma.rcs.core.ims.network.NetworkException;
+import com.gsma.rcs.core.ims.protocol.msrp.MsrpChunk;
+import com.gsma.rcs.core.ims.protocol.msrp.MsrpConnection;
+import com.gsma.rcs.core.ims.protocol.msrp.MsrpEventListener;
+import com.gsma.rcs.core.ims.protocol.msrp.MsrpSession;
+import com.gsma.rcs.core.ims.protocol.msrp.MsrpSession.TypeMsrpChunk;
+import com.gsma.rcs.platform.network.SocketConnection;
+import com.gsma.rcs.provider.settings.RcsSettings;
+
+import android.test.AndroidTestCase;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+public class MsrpSessionTest extends AndroidTestCase {
+
+    private RcsSettings mRcsSettings;
+
+    /**
+     * Connection keeping the sent chunks as if they were still queued in the ChunkSender. The
+     * first SEND of a transfer can be answered by an error response.
+     */
+    private static class QueuingConnection extends MsrpConnection {
+        private final List<MsrpChunk> mQueuedChunks = new ArrayList<>();
+
+        private int mErrorCode = -1;
+
+        public QueuingConnection(MsrpSession session) {
+            super(session);
+        }
+
+        @Override
+        public void sendChunk(MsrpChunk chunk) throws NetworkException {
+            mQueuedChunks.add(chunk);
+            if (mErrorCode != -1) {
+                /* Encoded header starts with "MSRP <transaction ID> SEND" */
+                String txId = chunk.toString().split(" ")[1];
+                getSession().receiveMsrpResponse(mErrorCode, txId, null);
+                mErrorCode = -1;
+            }
+        }
+
+        @Override
+        public SocketConnection getSocketConnection() {
+            return null;
+        }
+    }
+
+    private static class NullEventListener implements MsrpEventListener {
+        @Override
+        public void msrpDataTransferred(String msgId) {
+        }
+
+        @Override
+        public void receiveMsrpData(String msgId, byte[] data, String mimeType) {
+        }
+
+        @Override
+        public void msrpTransferProgress(long currentSize, long totalSize) {
+        }
+
+        @Override
+        public boolean msrpTransferProgress(long currentSize, long totalSize, byte[] data) {
+            return false;
+        }
+
+        @Override
+        public void msrpTransferAborted() {
+        }
+
+        @Override
+        public void msrpFileSavingFailed(FileAccessException e) {
+        }
+
+        @Override
+        public void msrpTransferError(String msgId, String error, TypeMsrpChunk typeMsrpChunk) {
+        }
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        mRcsSettings = RcsSettingsMock.getMockSettings(getContext());
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        super.tearDown();
+        RcsSettingsMock.restoreSettings();
+    }
+
+    private static void sendContent(MsrpSession session, int size) throws NetworkException {
+        session.sendChunks(new ByteArrayInputStream(new byte[size]), "msgId", "text/plain", size,
+                TypeMsrpChunk.TextMessage);
+    }
+
+    public void testFailedTransactionDoesNotRecycleChunkTwice() throws NetworkException {
+        MsrpSession session = new MsrpSession(mRcsSettings);
+        session.setFrom("msrp://127.0.0.1:20000/from;tcp");
+        session.setTo("msrp://127.0.0.1:20001/to;tcp");
+        session.addMsrpEventListener(new NullEventListener());
+        QueuingConnection connection = new QueuingConnection(session);
+        session.setConnection(connection);
+        int chunkSize = mRcsSettings.getMsrpChunkSize();
+
+        /* The first SEND fails so the window refuses the second chunk of the transfer */
+        session.setFailureReportOption(true);
+        connection.mErrorCode = 413;
+        sendContent(session, 3 * chunkSize);
+        assertEquals(1, connection.mQueuedChunks.size());
+
+        /* Chunks of the next transfer are all queued, each one must be a distinct buffer */
+        session.setFailureReportOption(false);
+        sendContent(session, 4 * chunkSize);
+        List<MsrpChunk> queuedChunks = connection.mQueuedChunks;
+        assertEquals(5, queuedChunks.size());
+        for (int i = 0; i < queuedChunks.size(); i++) {
+            for (int j = i + 1; j < queuedChunks.size(); j++) {
+                assertNotSame(queuedChunks.get(i), queuedChunks.get(j));
+            }
+        }
+    }
+}
@@ -0,0 +1,228 @@
+/*******************************************************************************
+ * Software Name : RCS IMS Stack
+ *
+ * Copyright (C) 2010-2016 Orange.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+
+package com.gsma.rcs.provider.contact;
+
+import com.gsma.rcs.RcsSettingsMock;
+import com.gsma.rcs.utils.ContactUtil;
+import com.gsma.services.rcs.contact.ContactId;
+
+import android.database.Cursor;
+import android.database.MatrixCursor;
+import android.net.Uri;
+import android.os.Build;
+import android.provider.ContactsContract;
+import android.provider.ContactsContract.CommonDataKinds.Phone;
+import android.provider.ContactsContract.Contacts;
+import android.provider.ContactsContract.DeletedContacts;
+import android.provider.ContactsContract.RawContacts;
+import android.test.AndroidTestCase;
+import android.test.mock.MockContentProvider;
+import android.test.mock.MockContentResolver;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class AddressBookNumberIndexTest extends AndroidTestCase {
+
+    private static final String NUMBER_1 = "+33612345671";
+
+    private static final String NUMBER_2 = "+33612345672";
+
+    private static final String NUMBER_3 = "+33612345673";
+
+    private static final long ONE_DAY = 24 * 60 * 60 * 1000L;
+
+    private AddressBookProvider mProvider;
+
+    private AddressBookNumberIndex mIndex;
+
+    private ContactId mContact1;
+
+    private ContactId mContact2;
+
+    private ContactId mContact3;
+
+    protected void setUp() throws Exception {
+        super.setUp();
+        RcsSettingsMock.getMockSettings(getContext());
+        mContact1 = ContactUtil.createContactIdFromTrustedData(NUMBER_1);
+        mContact2 = ContactUtil.createContactIdFromTrustedData(NUMBER_2);
+        mContact3 = ContactUtil.createContactIdFromTrustedData(NUMBER_3);
+        mProvider = new AddressBookProvider();
+        MockContentResolver resolver = new MockContentResolver();
+        resolver.addProvider(ContactsContract.AUTHORITY, mProvider);
+        mIndex = new AddressBookNumberIndex(resolver);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        super.tearDown();
+        RcsSettingsMock.restoreSettings();
+    }
+
+    private static boolean isChangeCursorSupported() {
+        return Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2;
+    }
+
+    public void testFirstSynchronizationLoadsAllNumbers() {
+        long now = System.currentTimeMillis();
+        mProvider.putContact(1, now, NUMBER_1);
+        mProvider.putContact(2, now, NUMBER_2, NUMBER_3);
+        assertNull(mIndex.synchronize());
+        assertEquals(3, mIndex.size());
+        assertTrue(mIndex.contains(mContact1));
+        assertTrue(mIndex.contains(mContact2));
+        assertTrue(mIndex.contains(mContact3));
+    }
+
+    public void testIncrementalSynchronizationReturnsRemovedNumbers() {
+        if (!isChangeCursorSupported()) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        mProvider.putContact(1, now - ONE_DAY, NUMBER_1);
+        mProvider.putContact(2, now - ONE_DAY, NUMBER_2);
+        mProvider.putContact(3, now - ONE_DAY, NUMBER_3);
+        assertNull(mIndex.synchronize());
+
+        /* Contact 1 is deleted and contact 2 moves to the number of contact 3 */
+        mProvider.deleteContact(1, now);
+        mProvider.putContact(2, now, NUMBER_3);
+        Set<ContactId> removedNumbers = mIndex.synchronize();
+        assertNotNull(removedNumbers);
+        assertEquals(2, removedNumbers.size());
+        assertTrue(removedNumbers.contains(mContact1));
+        assertTrue(removedNumbers.contains(mContact2));
+        assertEquals(1, mIndex.size());
+        assertTrue(mIndex.contains(mContact3));
+
+        /* Contact 3 is deleted but its number is still held by contact 2 */
+        mProvider.deleteContact(3, now + 1);
+        removedNumbers = mIndex.synchronize();
+        assertNotNull(removedNumbers);
+        assertTrue(removedNumbers.isEmpty());
+        assertTrue(mIndex.contains(mContact3));
+    }
+
+    public void testUnchangedAddressBookIsSynchronizedIncrementally() {
+        if (!isChangeCursorSupported()) {
+            return;
+        }
+        /* The address book has not been modified for longer than the deleted contacts are kept */
+        long lastChange = System.currentTimeMillis() - DeletedContacts.DAYS_KEPT_MILLISECONDS
+                - ONE_DAY;
+        mProvider.putContact(1, lastChange, NUMBER_1);
+        assertNull(mIndex.synchronize());
+        Set<ContactId> removedNumbers = mIndex.synchronize();
+        assertNotNull(removedNumbers);
+        assertTrue(removedNumbers.isEmpty());
+        assertTrue(mIndex.contains(mContact1));
+    }
+
+    public void testInvalidateForcesReload() {
+        mProvider.putContact(1, System.currentTimeMillis(), NUMBER_1);
+        assertNull(mIndex.synchronize());
+        mIndex.invalidate();
+        assertNull(mIndex.synchronize());
+        assertTrue(mIndex.contains(mContact1));
+    }
+
+    /**
+     * Address book content provider serving the phone numbers, contacts and deleted contacts
+     * queries of the index from in memory rows
+     */
+    private static class AddressBookProvider extends MockContentProvider {
+
+        private final List<Map<String, Object>> mPhones = new ArrayList<>();
+
+        private final List<Map<String, Object>> mContacts = new ArrayList<>();
+
+        private final List<Map<String, Object>> mDeletedContacts = new ArrayList<>();
+
+        void putContact(long contactId, long timestamp, String... numbers) {
+            removeRows(mPhones, Phone.CONTACT_ID, contactId);
+            removeRows(mContacts, Contacts._ID, contactId);
+            for (String number : numbers) {
+                Map<String, Object> phone = new HashMap<>();
+                phone.put(Phone.NUMBER, number);
+                phone.put(Phone.CONTACT_ID, contactId);
+                phone.put(RawContacts.ACCOUNT_TYPE, "com.google");
+                phone.put(Phone.CONTACT_LAST_UPDATED_TIMESTAMP, timestamp);
+                mPhones.add(phone);
+            }
+            Map<String, Object> contact = new HashMap<>();
+            contact.put(Contacts._ID, contactId);
+            contact.put(Contacts.CONTACT_LAST_UPDATED_TIMESTAMP, timestamp);
+            mContacts.add(contact);
+        }
+
+        void deleteContact(long contactId, long timestamp) {
+            removeRows(mPhones, Phone.CONTACT_ID, contactId);
+            removeRows(mContacts, Contacts._ID, contactId);
+            Map<String, Object> deleted = new HashMap<>();
+            deleted.put(DeletedContacts.CONTACT_ID, contactId);
+            deleted.put(DeletedContacts.CONTACT_DELETED_TIMESTAMP, timestamp);
+            mDeletedContacts.add(deleted);
+        }
+
+        private static void removeRows(List<Map<String, Object>> rows, String column, long value) {
+            Iterator<Map<String, Object>> iter = rows.iterator();
+            while (iter.hasNext()) {
+                if (iter.next().get(column).equals(value)) {
+                    iter.remove();
+                }
+            }
+        }
+
+        @Override
+        public Cursor query(Uri uri, String[] projection, String selection,
+                String[] selectionArgs, String sortOrder) {
+            List<Map<String, Object>> rows;
+            if (Phone.CONTENT_URI.equals(uri)) {
+                rows = mPhones;
+            } else if (Contacts.CONTENT_URI.equals(uri)) {
+                rows = mContacts;
+            } else if (DeletedContacts.CONTENT_URI.equals(uri)) {
+                rows = mDeletedContacts;
+            } else {
+                throw new IllegalArgumentException("Unexpected URI " + uri);
+            }
+            /* The selections of the index only filter on the timestamp, last in the projection */
+            String timestampColumn = projection[projection.length - 1];
+            MatrixCursor cursor = new MatrixCursor(projection);
+            for (Map<String, Object> row : rows) {
+                if (selectionArgs != null
+                        && (Long) row.get(timestampColumn) < Long.parseLong(selectionArgs[0])) {
+                    continue;
+                }
+                Object[] values = new Object[projection.length];
+                for (int i = 0; i < projection.length; i++) {
+                    values[i] = row.get(projection[i]);
+                }
+                cursor.addRow(values);
+            }
+            return cursor;
+        }
+    }
+}
@@ -0,0 +1,191 @@
+/*******************************************************************************
+ * Software Name : RCS IMS Stack
+ *
+ * Copyright (C) 2010-2016 Orange.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+
+package com.gsma.rcs.richcall;
+
+import com.gsma.rcs.core.ims.protocol.rtp.core.RtcpSession;
+import com.gsma.rcs.core.ims.protocol.rtp.core.RtpExtensionHeader;
+import com.gsma.rcs.core.ims.protocol.rtp.core.RtpPacket;
+import com.gsma.rcs.core.ims.protocol.rtp.core.RtpPacketReceiver;
+import com.gsma.rcs.platform.network.AndroidDatagramChannelConnection;
+import com.gsma.rcs.utils.logger.Logger;
+
+import android.test.AndroidTestCase;
+
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeoutException;
+
+public class RtpPacketReceiverTest extends AndroidTestCase {
+    private static final Logger sLogger = Logger.getLogger(RtpPacketReceiverTest.class.getName());
+
+    private static final int TIMEOUT = 2000;
+
+    private static final int SSRC = 0x12345678;
+
+    /**
+     * Number of packets replayed: 20 seconds of a 30 fps video with 5 packets per frame
+     */
+    private static final int NB_FRAMES = 600;
+
+    private static final int PACKETS_PER_FRAME = 5;
+
+    /**
+     * Packets replayed before measuring the steady state
+     */
+    private static final int WARM_UP_PACKETS = 500;
+
+    /**
+     * Maximum number of packets sent before reading them back
+     */
+    private static final int BURST_SIZE = 20;
+
+    private AndroidDatagramChannelConnection mConnection;
+
+    private RtpPacketReceiver mReceiver;
+
+    private DatagramChannel mSender;
+
+    private InetSocketAddress mReceiverAddress;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        mConnection = new AndroidDatagramChannelConnection(TIMEOUT);
+        mConnection.open();
+        mReceiver = new RtpPacketReceiver(mConnection, new RtcpSession(false, 16000), TIMEOUT);
+        mReceiver.start();
+        mSender = DatagramChannel.open();
+        mReceiverAddress = new InetSocketAddress("127.0.0.1", mConnection.getLocalPort());
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        mReceiver.close();
+        mSender.close();
+        super.tearDown();
+    }
+
+    /**
+     * Build a RTP packet as captured on the wire
+     */
+    private static byte[] buildPacket(int seqnum, int timestamp, boolean marker,
+            byte orientation, byte[] payload) {
+        boolean extension = orientation != 0;
+        ByteBuffer packet = ByteBuffer.allocate(12 + (extension ? 8 : 0) + payload.length);
+        packet.put((byte) (extension ? 0x90 : 0x80));
+        packet.put((byte) ((marker ? 0x80 : 0) | 96));
+        packet.putShort((short) seqnum);
+        packet.putInt(timestamp);
+        packet.putInt(SSRC);
+        if (extension) {
+            packet.putShort((short) RtpExtensionHeader.RTP_EXTENSION_HEADER_ID);
+            packet.putShort((short) 1);
+            /* Element ID 1, one byte of data, padding */
+            packet.put((byte) 0x10).put(orientation).put((byte) 0).put((byte) 0);
+        }
+        packet.put(payload);
+        return packet.array();
+    }
+
+    /**
+     * Build a video like packet stream: a few fragments per frame, the last one carrying the
+     * marker and the orientation extension
+     */
+    private static List<byte[]> buildStream(Random random) {
+        List<byte[]> stream = new ArrayList<>();
+        int seqnum = 65000;
+        for (int frame = 0; frame < NB_FRAMES; frame++) {
+            int timestamp = frame * 3000;
+            for (int i = 0; i < PACKETS_PER_FRAME; i++) {
+                boolean last = i == PACKETS_PER_FRAME - 1;
+                byte[] payload = new byte[last ? 200 + random.nextInt(1000) : 1300];
+                random.nextBytes(payload);
+                stream.add(buildPacket(seqnum & 0xffff, timestamp, last, last ? (byte) 1 : 0,
+                        payload));
+                seqnum++;
+            }
+        }
+        return stream;
+    }
+
+    private void checkPacket(byte[] expected, RtpPacket packet) {
+        ByteBuffer wire = ByteBuffer.wrap(expected);
+        assertEquals(wire.getChar(2), packet.seqnum & 0xffff);
+        assertEquals(wire.getInt(4), (int) packet.timestamp);
+        assertEquals(SSRC, packet.ssrc);
+        assertEquals((wire.get(1) & 0x80) != 0, packet.marker == 1);
+        int headerLength = packet.extension ? 20 : 12;
+        assertEquals(expected.length - headerLength, packet.payloadlength);
+        for (int i = 0; i < packet.payloadlength; i++) {
+            assertEquals(expected[headerLength + i], packet.mData[i]);
+        }
+        if (packet.extension) {
+            assertEquals(1, packet.extensionHeader.getElementById(1).data[0]);
+        }
+    }
+
+    public void testReplayPacketStream() throws Exception {
+        List<byte[]> stream = buildStream(new Random(0));
+        int warmUpAllocations = 0;
+        long start = 0;
+        int index = 0;
+        while (index < stream.size()) {
+            if (index == WARM_UP_PACKETS) {
+                warmUpAllocations = mReceiver.getPacketPool().getAllocatedCount();
+                start = System.nanoTime();
+            }
+            int burst = Math.min(BURST_SIZE, stream.size() - index);
+            for (int i = 0; i < burst; i++) {
+                mSender.send(ByteBuffer.wrap(stream.get(index + i)), mReceiverAddress);
+            }
+            for (int i = 0; i < burst; i++) {
+                RtpPacket packet = mReceiver.readRtpPacket();
+                checkPacket(stream.get(index + i), packet);
+                /* Depacketized: give the packet back to the pool */
+                packet.recycle();
+            }
+            index += burst;
+        }
+        long duration = System.nanoTime() - start;
+        int steadyStateAllocations = mReceiver.getPacketPool().getAllocatedCount()
+                - warmUpAllocations;
+        if (sLogger.isActivated()) {
+            sLogger.info("Replayed " + (stream.size() - WARM_UP_PACKETS) + " RTP packets in "
+                    + duration / 1000000 + " ms, " + steadyStateAllocations
+                    + " packets allocated in steady state, " + warmUpAllocations
+                    + " during warm up");
+        }
+        assertEquals(0, steadyStateAllocations);
+        assertTrue(warmUpAllocations <= BURST_SIZE + 1);
+    }
+
+    public void testReadTimeout() {
+        try {
+            mReceiver.readRtpPacket();
+            fail("TimeoutException expected");
+        } catch (TimeoutException e) {
+            /* Expected */
+        }
+    }
+}
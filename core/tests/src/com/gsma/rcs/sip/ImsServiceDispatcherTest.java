@@ -0,0 +1,247 @@
+/*******************************************************************************
+ * Software Name : RCS IMS Stack
+ *
+ * Copyright (C) 2010-2016 Orange.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.gsma.rcs.sip;
+
+import com.gsma.rcs.core.ims.protocol.sip.SipRequest;
+import com.gsma.rcs.core.ims.service.ImsServiceDispatcher;
+
+import android.test.AndroidTestCase;
+
+import gov2.nist.javax2.sip.message.SIPRequest;
+
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax2.sip.message.Request;
+
+public class ImsServiceDispatcherTest extends AndroidTestCase {
+    private static final long TIMEOUT = 10000;
+
+    private static final int NB_CALL_IDS = 8;
+
+    private static final int NB_REQUESTS_PER_CALL_ID = 20;
+
+    /**
+     * Prefix of the call-IDs which have an established IMS session
+     */
+    private static final String SESSION_PREFIX = "session-";
+
+    private final Random mRandom = new Random();
+
+    private final Map<String, List<SipRequest>> mDispatched = new HashMap<>();
+
+    private final AtomicInteger mSerializedRequestsRunning = new AtomicInteger();
+
+    private volatile int mMaxSerializedRequestsRunning;
+
+    private CountDownLatch mDone;
+
+    /**
+     * Dispatcher recording the order in which the requests are dispatched instead of handling
+     * them
+     */
+    private class RecordingDispatcher extends ImsServiceDispatcher {
+        public RecordingDispatcher() {
+            super(null, null);
+        }
+
+        @Override
+        protected boolean hasImsServiceSession(String callId) {
+            return callId.startsWith(SESSION_PREFIX);
+        }
+
+        @Override
+        protected void process(SipRequest request) {
+            boolean serialized = !Request.OPTIONS.equals(request.getMethod())
+                    && !hasImsServiceSession(request.getCallId());
+            if (serialized) {
+                int running = mSerializedRequestsRunning.incrementAndGet();
+                mMaxSerializedRequestsRunning = Math.max(mMaxSerializedRequestsRunning, running);
+            }
+            try {
+                Thread.sleep(mRandom.nextInt(3));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            synchronized (mDispatched) {
+                mDispatched.get(request.getCallId()).add(request);
+            }
+            if (serialized) {
+                mSerializedRequestsRunning.decrementAndGet();
+            }
+            mDone.countDown();
+        }
+    }
+
+    private static SipRequest createRequest(String method, String callId) throws ParseException {
+        SIPRequest request = new SIPRequest();
+        request.setMethod(method);
+        request.setCallId(callId);
+        return new SipRequest(request);
+    }
+
+    public void testRequestsOfACallIdAreDispatchedInOrder() throws ParseException,
+            InterruptedException {
+        List<String> callIds = new ArrayList<>();
+        for (int i = 0; i < NB_CALL_IDS; i++) {
+            String callId = (i % 2 == 0 ? SESSION_PREFIX : "service-") + i;
+            callIds.add(callId);
+            mDispatched.put(callId, new ArrayList<SipRequest>());
+        }
+        Map<String, List<SipRequest>> posted = new HashMap<>();
+        mDone = new CountDownLatch(NB_CALL_IDS * NB_REQUESTS_PER_CALL_ID);
+        RecordingDispatcher dispatcher = new RecordingDispatcher();
+        dispatcher.start();
+        for (int i = 0; i < NB_REQUESTS_PER_CALL_ID; i++) {
+            for (String callId : callIds) {
+                String method;
+                if (i == 0) {
+                    method = Request.INVITE;
+                } else if (i % 3 == 0) {
+                    method = Request.OPTIONS;
+                } else {
+                    method = i % 3 == 1 ? Request.MESSAGE : Request.SUBSCRIBE;
+                }
+                SipRequest request = createRequest(method, callId);
+                List<SipRequest> requests = posted.get(callId);
+                if (requests == null) {
+                    requests = new ArrayList<>();
+                    posted.put(callId, requests);
+                }
+                requests.add(request);
+                dispatcher.postSipRequest(request);
+            }
+        }
+        assertTrue(mDone.await(TIMEOUT, TimeUnit.MILLISECONDS));
+        dispatcher.terminate();
+        for (String callId : callIds) {
+            List<SipRequest> dispatched = mDispatched.get(callId);
+            List<SipRequest> expected = posted.get(callId);
+            assertEquals(expected.size(), dispatched.size());
+            for (int i = 0; i < expected.size(); i++) {
+                assertSame(callId + " request " + i, expected.get(i), dispatched.get(i));
+            }
+        }
+        /* Requests outside of a session, except OPTIONS, are never dispatched concurrently */
+        assertEquals(1, mMaxSerializedRequestsRunning);
+    }
+
+    /**
+     * Returns a call-ID outside of an established session which is not dispatched by the same
+     * worker as the given call-ID
+     */
+    private static String getCallIdOfAnotherWorker(String callId) {
+        /* Same partitioning as the 4 workers of the dispatcher */
+        int worker = (callId.hashCode() & Integer.MAX_VALUE) % 4;
+        for (int i = 0;; i++) {
+            String otherCallId = "service-" + i;
+            if ((otherCallId.hashCode() & Integer.MAX_VALUE) % 4 != worker) {
+                return otherCallId;
+            }
+        }
+    }
+
+    public void testOptionsIsNotBlockedBehindStuckInvite() throws ParseException,
+            InterruptedException {
+        final CountDownLatch inviteStarted = new CountDownLatch(1);
+        final CountDownLatch releaseInvite = new CountDownLatch(1);
+        final CountDownLatch optionsDispatched = new CountDownLatch(1);
+        ImsServiceDispatcher dispatcher = new ImsServiceDispatcher(null, null) {
+            @Override
+            protected boolean hasImsServiceSession(String callId) {
+                return false;
+            }
+
+            @Override
+            protected void process(SipRequest request) {
+                if (Request.INVITE.equals(request.getMethod())) {
+                    inviteStarted.countDown();
+                    try {
+                        releaseInvite.await(TIMEOUT, TimeUnit.MILLISECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                } else {
+                    optionsDispatched.countDown();
+                }
+            }
+        };
+        dispatcher.start();
+        try {
+            String inviteCallId = "service-invite";
+            dispatcher.postSipRequest(createRequest(Request.INVITE, inviteCallId));
+            assertTrue(inviteStarted.await(TIMEOUT, TimeUnit.MILLISECONDS));
+            dispatcher.postSipRequest(createRequest(Request.OPTIONS,
+                    getCallIdOfAnotherWorker(inviteCallId)));
+            /* OPTIONS is dispatched while the INVITE handler is still stuck */
+            assertTrue(optionsDispatched.await(TIMEOUT / 2, TimeUnit.MILLISECONDS));
+        } finally {
+            releaseInvite.countDown();
+            dispatcher.terminate();
+        }
+    }
+
+    public void testMessageIsSerializedWithInvite() throws ParseException, InterruptedException {
+        final CountDownLatch inviteStarted = new CountDownLatch(1);
+        final CountDownLatch releaseInvite = new CountDownLatch(1);
+        final CountDownLatch messageDispatched = new CountDownLatch(1);
+        ImsServiceDispatcher dispatcher = new ImsServiceDispatcher(null, null) {
+            @Override
+            protected boolean hasImsServiceSession(String callId) {
+                return false;
+            }
+
+            @Override
+            protected void process(SipRequest request) {
+                if (Request.INVITE.equals(request.getMethod())) {
+                    inviteStarted.countDown();
+                    try {
+                        releaseInvite.await(TIMEOUT, TimeUnit.MILLISECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                } else {
+                    messageDispatched.countDown();
+                }
+            }
+        };
+        dispatcher.start();
+        try {
+            String inviteCallId = "service-invite";
+            dispatcher.postSipRequest(createRequest(Request.INVITE, inviteCallId));
+            assertTrue(inviteStarted.await(TIMEOUT, TimeUnit.MILLISECONDS));
+            dispatcher.postSipRequest(createRequest(Request.MESSAGE,
+                    getCallIdOfAnotherWorker(inviteCallId)));
+            /* MESSAGE waits for the INVITE handler although it is posted to another worker */
+            assertFalse(messageDispatched.await(200, TimeUnit.MILLISECONDS));
+            releaseInvite.countDown();
+            assertTrue(messageDispatched.await(TIMEOUT, TimeUnit.MILLISECONDS));
+        } finally {
+            releaseInvite.countDown();
+            dispatcher.terminate();
+        }
+    }
+}
@@ -0,0 +1,247 @@
+/*******************************************************************************
+ * Software Name : RCS IMS Stack
+ *
+ * Copyright (C) 2010-2016 Orange.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+
+package com.gsma.rcs.sip;
+
+import static com.gsma.rcs.utils.StringUtils.UTF8;
+
+import android.test.AndroidTestCase;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import javax2.sip.DialogTerminatedEvent;
+import javax2.sip.IOExceptionEvent;
+import javax2.sip.RequestEvent;
+import javax2.sip.ResponseEvent;
+import javax2.sip.SipFactory;
+import javax2.sip.SipListener;
+import javax2.sip.SipProvider;
+import javax2.sip.SipStack;
+import javax2.sip.TimeoutEvent;
+import javax2.sip.TransactionTerminatedEvent;
+import javax2.sip.address.AddressFactory;
+import javax2.sip.address.SipURI;
+import javax2.sip.header.HeaderFactory;
+import javax2.sip.header.ViaHeader;
+import javax2.sip.message.MessageFactory;
+import javax2.sip.message.Request;
+
+/**
+ * Loopback test of the TCP transport handled by the selector thread of the stack
+ */
+public class NioTcpTransportTest extends AndroidTestCase {
+
+    private static final String LOCALHOST = "127.0.0.1";
+
+    private static final int SERVER_PORT = 15070;
+
+    private static final int CLIENT_PORT = 16070;
+
+    /**
+     * Read timeout of the stacks, in milliseconds
+     */
+    private static final int READ_TIMEOUT = 500;
+
+    private static final int REQUESTS = 20;
+
+    private static final long RESPONSE_TIMEOUT = 20000;
+
+    /**
+     * Body larger than the read buffer of the selector, received over several reads
+     */
+    private static final String LARGE_BODY;
+
+    static {
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < 10000; i++) {
+            body.append("0123456789");
+        }
+        LARGE_BODY = body.toString();
+    }
+
+    private SipFactory mFactory;
+
+    private SipStack mServer;
+
+    private SipStack mClient;
+
+    private final BlockingQueue<Integer> mResponses = new LinkedBlockingQueue<>();
+
+    /**
+     * Listener doing nothing, overridden by the server and the client
+     */
+    private static class SipAdapter implements SipListener {
+        @Override
+        public void processRequest(RequestEvent event) {
+        }
+
+        @Override
+        public void processResponse(ResponseEvent event) {
+        }
+
+        @Override
+        public void processTimeout(TimeoutEvent event) {
+        }
+
+        @Override
+        public void processIOException(IOExceptionEvent event) {
+        }
+
+        @Override
+        public void processTransactionTerminated(TransactionTerminatedEvent event) {
+        }
+
+        @Override
+        public void processDialogTerminated(DialogTerminatedEvent event) {
+        }
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        mFactory = SipFactory.getInstance();
+        mServer = createStack("nio-server");
+        mClient = createStack("nio-client");
+        final MessageFactory messageFactory = mFactory.createMessageFactory();
+        mServer.createSipProvider(mServer.createListeningPoint(LOCALHOST, SERVER_PORT, "tcp"))
+                .addSipListener(new SipAdapter() {
+                    @Override
+                    public void processRequest(RequestEvent event) {
+                        try {
+                            ((SipProvider) event.getSource()).sendResponse(messageFactory
+                                    .createResponse(200, event.getRequest()));
+                        } catch (Exception e) {
+                            /* The client times out */
+                        }
+                    }
+                });
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        mClient.stop();
+        mServer.stop();
+        super.tearDown();
+    }
+
+    private SipStack createStack(String name) throws Exception {
+        Properties properties = new Properties();
+        properties.setProperty("javax2.sip.STACK_NAME", name);
+        properties.setProperty("gov2.nist.javax2.sip.NIO_TRANSPORT", "true");
+        properties.setProperty("gov2.nist.javax2.sip.THREAD_POOL_SIZE", "4");
+        properties.setProperty("gov2.nist.javax2.sip.READ_TIMEOUT", Integer.toString(READ_TIMEOUT));
+        return mFactory.createSipStack(properties);
+    }
+
+    private Request createMessage(SipProvider provider, String body, int sequence)
+            throws Exception {
+        MessageFactory messageFactory = mFactory.createMessageFactory();
+        HeaderFactory headerFactory = mFactory.createHeaderFactory();
+        AddressFactory addressFactory = mFactory.createAddressFactory();
+        SipURI to = addressFactory.createSipURI("bob", LOCALHOST + ":" + SERVER_PORT);
+        to.setTransportParam("tcp");
+        List<ViaHeader> vias = new ArrayList<>();
+        vias.add(headerFactory.createViaHeader(LOCALHOST, CLIENT_PORT, "tcp", null));
+        return messageFactory.createRequest(to, Request.MESSAGE, provider.getNewCallId(),
+                headerFactory.createCSeqHeader(1L, Request.MESSAGE), headerFactory
+                        .createFromHeader(addressFactory.createAddress("sip:alice@" + LOCALHOST),
+                                "tag" + sequence), headerFactory.createToHeader(
+                        addressFactory.createAddress(to), null), vias, headerFactory
+                        .createMaxForwardsHeader(70), headerFactory.createContentTypeHeader(
+                        "text", "plain"), body);
+    }
+
+    public void testRequestsAreAnswered() throws Exception {
+        SipProvider provider = mClient.createSipProvider(mClient.createListeningPoint(LOCALHOST,
+                CLIENT_PORT, "tcp"));
+        provider.addSipListener(new SipAdapter() {
+            @Override
+            public void processResponse(ResponseEvent event) {
+                mResponses.add(event.getResponse().getStatusCode());
+            }
+
+            @Override
+            public void processTimeout(TimeoutEvent event) {
+                mResponses.add(-1);
+            }
+        });
+        for (int i = 0; i < REQUESTS; i++) {
+            String body = i % 5 == 4 ? LARGE_BODY : "hello " + i;
+            provider.getNewClientTransaction(createMessage(provider, body, i)).sendRequest();
+        }
+        for (int i = 0; i < REQUESTS; i++) {
+            Integer status = mResponses.poll(RESPONSE_TIMEOUT, TimeUnit.MILLISECONDS);
+            assertNotNull(status);
+            assertEquals(200, status.intValue());
+        }
+    }
+
+    public void testPartialMessageIsClosedOnReadTimeout() throws IOException {
+        Socket socket = new Socket();
+        try {
+            socket.connect(new InetSocketAddress(LOCALHOST, SERVER_PORT));
+            socket.setSoTimeout(READ_TIMEOUT * 10);
+            OutputStream out = socket.getOutputStream();
+            out.write(("MESSAGE sip:bob@" + LOCALHOST + " SIP/2.0\r\n" + "Content-Length: 10\r\n")
+                    .getBytes(UTF8));
+            out.flush();
+            long start = System.currentTimeMillis();
+            InputStream in = socket.getInputStream();
+            /* Closed by the server instead of waiting forever for the rest of the message */
+            assertEquals(-1, in.read());
+            assertTrue(System.currentTimeMillis() - start >= READ_TIMEOUT);
+        } finally {
+            socket.close();
+        }
+    }
+
+    public void testIdleConnectionIsKept() throws Exception {
+        Socket socket = new Socket();
+        try {
+            socket.connect(new InetSocketAddress(LOCALHOST, SERVER_PORT));
+            OutputStream out = socket.getOutputStream();
+            /* Keep-alives only: no message is pending */
+            out.write("\r\n\r\n".getBytes(UTF8));
+            out.flush();
+            Thread.sleep(READ_TIMEOUT * 3);
+            out.write("\r\n\r\n".getBytes(UTF8));
+            out.flush();
+            socket.setSoTimeout(READ_TIMEOUT);
+            try {
+                socket.getInputStream().read();
+                fail("Connection closed by the server");
+            } catch (SocketTimeoutException e) {
+                /* Still open */
+            }
+        } finally {
+            socket.close();
+        }
+    }
+}
@@ -0,0 +1,340 @@
+/*******************************************************************************
+ * Software Name : RCS IMS Stack
+ *
+ * Copyright (C) 2010-2016 Orange.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.gsma.rcs.sip;
+
+import static com.gsma.rcs.utils.StringUtils.UTF8;
+
+import com.gsma.rcs.benchmark.ParserCorpus;
+import com.gsma.rcs.utils.logger.Logger;
+
+import android.test.AndroidTestCase;
+
+import gov2.nist.javax2.sip.message.SIPMessage;
+import gov2.nist.javax2.sip.parser.SIPStreamFramer;
+import gov2.nist.javax2.sip.parser.StringMsgParser;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+
+public class SipStreamFramerTest extends AndroidTestCase {
+    private static final Logger sLogger = Logger.getLogger(SipStreamFramerTest.class.getName());
+
+    /**
+     * Response without body, with lines ending with LF alone and the compact form of
+     * Content-Length
+     */
+    private static final byte[] SIP_RESPONSE_LF = ("SIP/2.0 200 OK\n"
+            + "Via: SIP/2.0/TCP 10.102.192.68:5060;branch=z9hG4bK9f3a1c2b7d;rport=5060\n"
+            + "From: <sip:+33612345678@rcs.example.com>;tag=a73kszlfl\n"
+            + "To: <sip:+33687654321@rcs.example.com>;tag=e15owdpjp\n"
+            + "Call-ID: f81d4fae-7dec-11d0-a765-00a0c91e6bf6@10.102.192.68\n"
+            + "CSeq: 1 MESSAGE\n" + "l : 0\n\n").getBytes(UTF8);
+
+    private static final byte[][] MESSAGES = new byte[][] {
+            ParserCorpus.SIP_MESSAGE, ParserCorpus.SIP_INVITE, ParserCorpus.SIP_NOTIFY,
+            SIP_RESPONSE_LF
+    };
+
+    private static final byte[][] KEEP_ALIVES = new byte[][] {
+            "\r\n".getBytes(UTF8), "\r\n\r\n".getBytes(UTF8), "\n".getBytes(UTF8)
+    };
+
+    private static final int FUZZ_ITERATIONS = 200;
+
+    private static final int BENCHMARK_ITERATIONS = 20;
+
+    /**
+     * TCP segment size used to fragment the benchmark stream
+     */
+    private static final int SEGMENT_SIZE = 1400;
+
+    /**
+     * Input stream returning at most a few bytes per read to exercise partial reads
+     */
+    private static class FragmentedInputStream extends FilterInputStream {
+        private final int mMaxRead;
+
+        FragmentedInputStream(InputStream in, int maxRead) {
+            super(in);
+            mMaxRead = maxRead;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int count) throws IOException {
+            return super.read(buffer, offset, Math.min(count, mMaxRead));
+        }
+    }
+
+    /**
+     * Byte at a time reader mirroring the former Pipeline and PipelinedMsgParser pair, used as
+     * the benchmark baseline: every byte goes through a synchronized read
+     */
+    private static class LegacyPipeline {
+        private final LinkedList<byte[]> mSegments = new LinkedList<>();
+
+        private byte[] mCurrent;
+
+        private int mPosition;
+
+        LegacyPipeline(List<byte[]> segments) {
+            mSegments.addAll(segments);
+        }
+
+        int read() {
+            synchronized (mSegments) {
+                if (mCurrent == null || mPosition == mCurrent.length) {
+                    if (mSegments.isEmpty()) {
+                        return -1;
+                    }
+                    mCurrent = mSegments.removeFirst();
+                    mPosition = 0;
+                }
+                return mCurrent[mPosition++] & 0xFF;
+            }
+        }
+
+        String readLine() {
+            StringBuffer line = new StringBuffer();
+            int b;
+            while ((b = read()) != -1) {
+                if (b != '\r') {
+                    line.append((char) b);
+                }
+                if (b == '\n') {
+                    break;
+                }
+            }
+            return line.toString();
+        }
+
+        int readMessages() {
+            int count = 0;
+            while (true) {
+                String line;
+                do {
+                    line = readLine();
+                    if (line.length() == 0) {
+                        return count;
+                    }
+                } while (line.equals("\n"));
+                StringBuffer headers = new StringBuffer(line);
+                int contentLength = 0;
+                while ((line = readLine()).trim().length() > 0) {
+                    headers.append(line);
+                    if (line.startsWith("Content-Length:")) {
+                        contentLength = Integer.parseInt(line.substring(15).trim());
+                    }
+                }
+                byte[] body = new byte[contentLength];
+                for (int i = 0; i < contentLength; i++) {
+                    body[i] = (byte) read();
+                }
+                count++;
+            }
+        }
+    }
+
+    /**
+     * Build a stream of messages picked at random, separated by keep-alives from time to time
+     */
+    private static byte[] buildStream(Random random, int count, List<byte[]> messages)
+            throws IOException {
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        for (int i = 0; i < count; i++) {
+            if (random.nextInt(4) == 0) {
+                stream.write(KEEP_ALIVES[random.nextInt(KEEP_ALIVES.length)]);
+            }
+            byte[] message = MESSAGES[random.nextInt(MESSAGES.length)];
+            stream.write(message);
+            messages.add(message);
+        }
+        return stream.toByteArray();
+    }
+
+    private static List<byte[]> split(byte[] stream, int segmentSize) {
+        List<byte[]> segments = new ArrayList<>();
+        for (int offset = 0; offset < stream.length; offset += segmentSize) {
+            segments.add(Arrays.copyOfRange(stream, offset,
+                    Math.min(stream.length, offset + segmentSize)));
+        }
+        return segments;
+    }
+
+    private static void assertMessages(List<byte[]> expected, List<byte[]> framed) {
+        assertEquals(expected.size(), framed.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertTrue("Message " + i, Arrays.equals(expected.get(i), framed.get(i)));
+        }
+    }
+
+    public void testMessagesAndKeepAlives() throws Exception {
+        SIPStreamFramer framer = new SIPStreamFramer(0);
+        List<byte[]> framed = new ArrayList<>();
+        for (byte[] message : MESSAGES) {
+            framer.append(KEEP_ALIVES[1], 0, KEEP_ALIVES[1].length);
+            framer.append(message, 0, message.length);
+            byte[] next = framer.next();
+            assertFalse(framer.isPartial());
+            framed.add(next);
+            SIPMessage sipMessage = new StringMsgParser().parseSIPMessage(next);
+            assertNotNull(sipMessage.getCallId());
+        }
+        assertMessages(Arrays.asList(MESSAGES), framed);
+        framer.append(KEEP_ALIVES[0], 0, KEEP_ALIVES[0].length);
+        assertNull(framer.next());
+        assertFalse(framer.isPartial());
+    }
+
+    public void testFragmentedInput() throws Exception {
+        Random random = new Random(0);
+        for (int i = 0; i < FUZZ_ITERATIONS; i++) {
+            List<byte[]> messages = new ArrayList<>();
+            byte[] stream = buildStream(random, 1 + random.nextInt(8), messages);
+            SIPStreamFramer framer = new SIPStreamFramer(0);
+            List<byte[]> framed = new ArrayList<>();
+            int offset = 0;
+            while (offset < stream.length) {
+                int length = Math.min(stream.length - offset, 1 + random.nextInt(
+                        random.nextBoolean() ? 8 : 2000));
+                framer.append(stream, offset, length);
+                offset += length;
+                byte[] message;
+                while ((message = framer.next()) != null) {
+                    framed.add(message);
+                }
+            }
+            assertFalse(framer.isPartial());
+            assertMessages(messages, framed);
+        }
+    }
+
+    public void testPartialReads() throws Exception {
+        List<byte[]> messages = new ArrayList<>();
+        byte[] stream = buildStream(new Random(1), 20, messages);
+        for (int maxRead = 1; maxRead < 40; maxRead += 3) {
+            InputStream in = new FragmentedInputStream(new ByteArrayInputStream(stream), maxRead);
+            SIPStreamFramer framer = new SIPStreamFramer(0);
+            List<byte[]> framed = new ArrayList<>();
+            while (framer.read(in) != -1) {
+                byte[] message;
+                while ((message = framer.next()) != null) {
+                    framed.add(message);
+                }
+            }
+            assertMessages(messages, framed);
+        }
+    }
+
+    public void testMessageTooLarge() throws Exception {
+        byte[] notify = ParserCorpus.SIP_NOTIFY;
+        SIPStreamFramer framer = new SIPStreamFramer(notify.length - 1);
+        framer.append(notify, 0, notify.length);
+        framer.append(SIP_RESPONSE_LF, 0, SIP_RESPONSE_LF.length);
+        /* The headers are delivered to answer the request, the body is dropped */
+        byte[] headers = framer.next();
+        assertTrue(framer.isTruncated());
+        assertEquals(notify.length - ParserCorpus.CONFERENCE_INFO.length, headers.length);
+        assertTrue(Arrays.equals(SIP_RESPONSE_LF, framer.next()));
+        assertFalse(framer.isTruncated());
+
+        framer = new SIPStreamFramer(100);
+        framer.append(notify, 0, notify.length);
+        try {
+            framer.next();
+            fail("Headers larger than the maximum size must be rejected");
+        } catch (IOException e) {
+            /* Expected */
+        }
+    }
+
+    public void testInvalidContentLength() throws Exception {
+        byte[] message = "MESSAGE sip:a@b SIP/2.0\r\nContent-Length: 12a\r\n\r\n".getBytes(UTF8);
+        SIPStreamFramer framer = new SIPStreamFramer(0);
+        framer.append(message, 0, message.length);
+        try {
+            framer.next();
+            fail("Invalid Content-Length must be rejected");
+        } catch (IOException e) {
+            /* Expected */
+        }
+    }
+
+    public void testContentLengthOverflow() throws Exception {
+        byte[] message = ("MESSAGE sip:a@b SIP/2.0\r\nContent-Length: " + Integer.MAX_VALUE
+                + "\r\n\r\n").getBytes(UTF8);
+        SIPStreamFramer framer = new SIPStreamFramer(0);
+        framer.append(message, 0, message.length);
+        try {
+            framer.next();
+            fail("Content-Length overflowing the message length must be rejected");
+        } catch (IOException e) {
+            /* Expected */
+        }
+    }
+
+    public void testDefaultMaxMessageSize() throws Exception {
+        byte[] message = ("MESSAGE sip:a@b SIP/2.0\r\nContent-Length: "
+                + SIPStreamFramer.DEFAULT_MAX_MESSAGE_SIZE + "\r\n\r\n").getBytes(UTF8);
+        SIPStreamFramer framer = new SIPStreamFramer(0);
+        framer.append(message, 0, message.length);
+        /* Without limit set, a body larger than the default maximum size is dropped too */
+        assertEquals(message.length, framer.next().length);
+        assertTrue(framer.isTruncated());
+        assertTrue(framer.isPartial());
+    }
+
+    public void testBenchmarkAgainstLegacyPipeline() throws Exception {
+        List<byte[]> messages = new ArrayList<>();
+        byte[] stream = buildStream(new Random(2), 100, messages);
+        List<byte[]> segments = split(stream, SEGMENT_SIZE);
+        long legacyTime = 0;
+        long framerTime = 0;
+        for (int i = 0; i < BENCHMARK_ITERATIONS; i++) {
+            long start = System.nanoTime();
+            int count = new LegacyPipeline(segments).readMessages();
+            legacyTime += System.nanoTime() - start;
+            assertEquals(messages.size(), count);
+
+            start = System.nanoTime();
+            SIPStreamFramer framer = new SIPStreamFramer(0);
+            count = 0;
+            for (byte[] segment : segments) {
+                framer.append(segment, 0, segment.length);
+                while (framer.next() != null) {
+                    count++;
+                }
+            }
+            framerTime += System.nanoTime() - start;
+            assertEquals(messages.size(), count);
+        }
+        if (sLogger.isActivated()) {
+            sLogger.info("Stream of " + stream.length + " bytes: legacy pipeline "
+                    + (legacyTime / BENCHMARK_ITERATIONS / 1000) + " us, framer "
+                    + (framerTime / BENCHMARK_ITERATIONS / 1000) + " us");
+        }
+    }
+}
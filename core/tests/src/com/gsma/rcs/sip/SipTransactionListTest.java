@@ -0,0 +1,152 @@
+/*******************************************************************************
+ * Software Name : RCS IMS Stack
+ *
+ * Copyright (C) 2010-2016 Orange.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.gsma.rcs.sip;
+
+import com.gsma.rcs.core.ims.protocol.sip.SipResponse;
+import com.gsma.rcs.core.ims.protocol.sip.SipTransactionContext;
+import com.gsma.rcs.core.ims.protocol.sip.SipTransactionContext.INotifySipTransactionCompletion;
+import com.gsma.rcs.core.ims.protocol.sip.SipTransactionList;
+
+import android.test.AndroidTestCase;
+
+import gov2.nist.javax2.sip.message.SIPResponse;
+
+import java.text.ParseException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class SipTransactionListTest extends AndroidTestCase {
+    private static final long TIMEOUT = 5000;
+
+    private static final long EXPIRY = 50;
+
+    private ExecutorService mCompletionExecutor;
+
+    private ScheduledExecutorService mTimer;
+
+    private SipTransactionList mTransactions;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        mCompletionExecutor = Executors.newSingleThreadExecutor();
+        mTimer = Executors.newSingleThreadScheduledExecutor();
+        mTransactions = new SipTransactionList(mCompletionExecutor, mTimer);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        mTimer.shutdownNow();
+        mCompletionExecutor.shutdownNow();
+        super.tearDown();
+    }
+
+    /**
+     * Completion callback counting its invocations and recording the outcome
+     */
+    private static class Completion implements INotifySipTransactionCompletion {
+        private final AtomicInteger mCount = new AtomicInteger();
+
+        private final CountDownLatch mCompleted = new CountDownLatch(1);
+
+        private volatile boolean mTimeout;
+
+        @Override
+        public void handleTransactionCompleted(SipTransactionContext ctx) {
+            mTimeout = ctx.isTimeout();
+            mCount.incrementAndGet();
+            mCompleted.countDown();
+        }
+
+        public boolean await() throws InterruptedException {
+            return mCompleted.await(TIMEOUT, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private SipTransactionContext addContext(String id, Completion completion) {
+        SipTransactionContext ctx = new SipTransactionContext(null, null, completion);
+        mTransactions.put(id, ctx);
+        return ctx;
+    }
+
+    private static SipResponse createResponse(int statusCode) throws ParseException {
+        SIPResponse response = new SIPResponse();
+        response.setStatusCode(statusCode);
+        return new SipResponse(response);
+    }
+
+    public void testCompletedOnResponse() throws ParseException, InterruptedException {
+        Completion completion = new Completion();
+        SipTransactionContext ctx = addContext("1", completion);
+        mTransactions.scheduleExpiry("1", ctx, EXPIRY);
+        assertTrue(mTransactions.complete("1", createResponse(200)));
+        assertTrue(completion.await());
+        assertFalse(completion.mTimeout);
+        assertEquals(200, ctx.getStatusCode());
+        /* Neither a retransmitted response nor the expiry complete it again */
+        assertFalse(mTransactions.complete("1", createResponse(200)));
+        Thread.sleep(2 * EXPIRY);
+        assertEquals(1, completion.mCount.get());
+        assertTrue(mTransactions.isEmpty());
+    }
+
+    public void testCompletedOnTimeout() throws ParseException, InterruptedException {
+        Completion completion = new Completion();
+        SipTransactionContext ctx = addContext("1", completion);
+        mTransactions.scheduleExpiry("1", ctx, EXPIRY);
+        assertTrue(completion.await());
+        assertTrue(completion.mTimeout);
+        assertTrue(ctx.isTimeout());
+        /* A response received after the expiry is ignored */
+        assertFalse(mTransactions.complete("1", createResponse(200)));
+        Thread.sleep(EXPIRY);
+        assertEquals(1, completion.mCount.get());
+    }
+
+    public void testCompletedOnClose() throws InterruptedException {
+        Completion first = new Completion();
+        Completion second = new Completion();
+        addContext("1", first);
+        addContext("2", second);
+        SipTransactionContext synchronous = new SipTransactionContext(null);
+        mTransactions.put("3", synchronous);
+        mTransactions.completeAll();
+        assertTrue(first.await());
+        assertTrue(second.await());
+        assertTrue(first.mTimeout);
+        assertTrue(second.mTimeout);
+        /* Synchronous transactions are left to their waiting thread */
+        assertEquals(1, mTransactions.size());
+        assertFalse(synchronous.isCompleted());
+    }
+
+    public void testCompletedOnCallingThreadWhenExecutorRejects() throws ParseException,
+            InterruptedException {
+        mCompletionExecutor.shutdown();
+        Completion completion = new Completion();
+        addContext("1", completion);
+        assertTrue(mTransactions.complete("1", createResponse(404)));
+        assertEquals(1, completion.mCount.get());
+        assertFalse(completion.mTimeout);
+    }
+}
@@ -0,0 +1,273 @@
+/*******************************************************************************
+ * Software Name : RCS IMS Stack
+ *
+ * Copyright (C) 2010-2016 Orange.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.gsma.rcs.utils;
+
+import com.gsma.rcs.utils.logger.Logger;
+import com.gsma.rcs.utils.queue.BoundedQueue;
+import com.gsma.rcs.utils.queue.MpmcRingBufferQueue;
+import com.gsma.rcs.utils.queue.OverflowPolicy;
+import com.gsma.rcs.utils.queue.SpscRingBufferQueue;
+
+import android.test.AndroidTestCase;
+
+import java.util.Vector;
+
+public class BoundedQueueTest extends AndroidTestCase {
+    private static final Logger sLogger = Logger.getLogger(BoundedQueueTest.class.getName());
+
+    private static final int NB_MESSAGES = 200000;
+
+    private static final int NB_PING_PONGS = 20000;
+
+    private static final long WAKEUP_TIMEOUT = 2000;
+
+    /**
+     * Copy of the Vector based FIFO buffer replaced by the bounded queues, kept as benchmark
+     * reference
+     */
+    private static class VectorFifoBuffer {
+        private int mNbObjects = 0;
+
+        private final Vector<Object> mFifo = new Vector<>();
+
+        public synchronized void addObject(Object obj) {
+            mFifo.addElement(obj);
+            mNbObjects++;
+            notifyAll();
+        }
+
+        public synchronized Object getObject() {
+            Object obj = null;
+            if (mNbObjects == 0) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    // Nothing to do
+                }
+            }
+            if (mNbObjects != 0) {
+                obj = mFifo.elementAt(0);
+                mFifo.removeElementAt(0);
+                mNbObjects--;
+                notifyAll();
+            }
+            return obj;
+        }
+    }
+
+    public void testFifoOrder() {
+        for (BoundedQueue<Integer> queue : createQueues(4, OverflowPolicy.DROP_NEWEST)) {
+            for (int i = 0; i < 10; i++) {
+                assertTrue(queue.offer(i));
+                assertEquals(Integer.valueOf(i), queue.poll());
+            }
+            assertNull(queue.poll());
+        }
+    }
+
+    public void testDropNewest() {
+        for (BoundedQueue<Integer> queue : createQueues(3, OverflowPolicy.DROP_NEWEST)) {
+            for (int i = 0; i < 5; i++) {
+                assertEquals(i < 3, queue.offer(i));
+            }
+            assertEquals(3, queue.size());
+            assertEquals(2, queue.getDroppedCount());
+            assertEquals(Integer.valueOf(0), queue.poll());
+        }
+    }
+
+    public void testDropOldest() {
+        BoundedQueue<Integer> queue = new MpmcRingBufferQueue<>(3, OverflowPolicy.DROP_OLDEST);
+        for (int i = 0; i < 5; i++) {
+            assertTrue(queue.offer(i));
+        }
+        assertEquals(2, queue.getDroppedCount());
+        assertEquals(Integer.valueOf(2), queue.poll());
+        assertEquals(Integer.valueOf(3), queue.poll());
+        assertEquals(Integer.valueOf(4), queue.poll());
+    }
+
+    public void testSpscRejectsDropOldest() {
+        try {
+            new SpscRingBufferQueue<Integer>(3, OverflowPolicy.DROP_OLDEST);
+            fail("IllegalArgumentException expected");
+        } catch (IllegalArgumentException e) {
+            /* Expected */
+        }
+    }
+
+    public void testTimedPoll() {
+        for (BoundedQueue<Integer> queue : createQueues(2, OverflowPolicy.BLOCK)) {
+            long start = System.currentTimeMillis();
+            assertNull(queue.poll(50));
+            assertTrue(System.currentTimeMillis() - start >= 40);
+        }
+    }
+
+    public void testBlockUntilConsumed() throws InterruptedException {
+        for (final BoundedQueue<Integer> queue : createQueues(1, OverflowPolicy.BLOCK)) {
+            assertTrue(queue.offer(1));
+            Thread consumer = new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        Thread.sleep(50);
+                    } catch (InterruptedException e) {
+                        /* Nothing to do */
+                    }
+                    queue.poll();
+                }
+            };
+            consumer.start();
+            assertTrue(queue.offer(2));
+            consumer.join();
+            assertEquals(Integer.valueOf(2), queue.poll());
+        }
+    }
+
+    public void testCloseUnblocksConsumer() {
+        for (final BoundedQueue<Integer> queue : createQueues(2, OverflowPolicy.BLOCK)) {
+            assertTrue(queue.offer(1));
+            new Thread() {
+                @Override
+                public void run() {
+                    queue.close();
+                }
+            }.start();
+            assertEquals(Integer.valueOf(1), queue.take());
+            assertNull(queue.take());
+            assertFalse(queue.offer(2));
+        }
+    }
+
+    /**
+     * Take an element, the consumer being woken up as soon as it is offered
+     */
+    private static Integer takeWithoutMissedWakeup(BoundedQueue<Integer> queue) {
+        long start = System.currentTimeMillis();
+        Integer element = queue.poll(WAKEUP_TIMEOUT);
+        assertNotNull(element);
+        /* A missed wakeup is only recovered by the timeout of the poll */
+        assertTrue(System.currentTimeMillis() - start < WAKEUP_TIMEOUT);
+        return element;
+    }
+
+    public void testSpscPingPongNeverMissesWakeup() throws InterruptedException {
+        final BoundedQueue<Integer> ping = new SpscRingBufferQueue<>(1, OverflowPolicy.BLOCK);
+        final BoundedQueue<Integer> pong = new SpscRingBufferQueue<>(1, OverflowPolicy.BLOCK);
+        final Throwable[] failure = new Throwable[1];
+        Thread responder = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    for (int i = 0; i < NB_PING_PONGS; i++) {
+                        pong.offer(takeWithoutMissedWakeup(ping));
+                    }
+                } catch (Throwable e) {
+                    failure[0] = e;
+                }
+            }
+        };
+        responder.start();
+        for (int i = 0; i < NB_PING_PONGS; i++) {
+            assertTrue(ping.offer(i));
+            assertEquals(Integer.valueOf(i), takeWithoutMissedWakeup(pong));
+        }
+        responder.join();
+        assertNull(failure[0]);
+    }
+
+    public void testMultipleProducers() throws InterruptedException {
+        final BoundedQueue<Integer> queue = new MpmcRingBufferQueue<>(64, OverflowPolicy.BLOCK);
+        final int nbProducers = 4;
+        final int nbMessages = 10000;
+        for (int p = 0; p < nbProducers; p++) {
+            new Thread() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < nbMessages; i++) {
+                        queue.offer(i);
+                    }
+                }
+            }.start();
+        }
+        long sum = 0;
+        for (int i = 0; i < nbProducers * nbMessages; i++) {
+            sum += queue.take();
+        }
+        assertEquals((long) nbProducers * nbMessages * (nbMessages - 1) / 2, sum);
+        assertEquals(0, queue.size());
+    }
+
+    public void testBenchmarkAgainstVectorFifo() throws InterruptedException {
+        final VectorFifoBuffer vector = new VectorFifoBuffer();
+        long start = System.nanoTime();
+        Thread producer = new Thread() {
+            @Override
+            public void run() {
+                for (int i = 0; i < NB_MESSAGES; i++) {
+                    vector.addObject(i);
+                }
+            }
+        };
+        producer.start();
+        for (int i = 0; i < NB_MESSAGES; i++) {
+            vector.getObject();
+        }
+        producer.join();
+        long vectorDuration = System.nanoTime() - start;
+
+        long spscDuration = runBenchmark(new SpscRingBufferQueue<Integer>(1024,
+                OverflowPolicy.BLOCK));
+        long mpmcDuration = runBenchmark(new MpmcRingBufferQueue<Integer>(1024,
+                OverflowPolicy.BLOCK));
+        if (sLogger.isActivated()) {
+            sLogger.info(NB_MESSAGES + " messages: Vector FIFO " + vectorDuration / 1000000
+                    + " ms, SPSC ring buffer " + spscDuration / 1000000
+                    + " ms, MPMC ring buffer " + mpmcDuration / 1000000 + " ms");
+        }
+    }
+
+    private static long runBenchmark(final BoundedQueue<Integer> queue)
+            throws InterruptedException {
+        long start = System.nanoTime();
+        Thread producer = new Thread() {
+            @Override
+            public void run() {
+                for (int i = 0; i < NB_MESSAGES; i++) {
+                    queue.offer(i);
+                }
+            }
+        };
+        producer.start();
+        for (int i = 0; i < NB_MESSAGES; i++) {
+            assertEquals(Integer.valueOf(i), queue.take());
+        }
+        producer.join();
+        return System.nanoTime() - start;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static BoundedQueue<Integer>[] createQueues(int capacity, OverflowPolicy policy) {
+        return new BoundedQueue[] {
+                new SpscRingBufferQueue<Integer>(capacity, policy),
+                new MpmcRingBufferQueue<Integer>(capacity, policy)
+        };
+    }
+}
@@ -0,0 +1,182 @@
+/*******************************************************************************
+ * Software Name : RCS IMS Stack
+ *
+ * Copyright (C) 2010-2016 Orange.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.gsma.rcs.utils;
+
+import com.gsma.rcs.utils.logger.Appender;
+import com.gsma.rcs.utils.logger.AsyncAppender;
+import com.gsma.rcs.utils.logger.Logger;
+
+import android.test.AndroidTestCase;
+
+public class LoggerTest extends AndroidTestCase {
+    private static final int NB_TRACES = 200000;
+
+    private static final String CALL_ID = "a84b4c76e66710@pc33.example.com";
+
+    private Appender[] mAppenders;
+
+    private boolean mActivationFlag;
+
+    private int mTraceLevel;
+
+    /**
+     * Appender counting the printed characters, stands for logcat
+     */
+    private static class CountingAppender extends Appender {
+        private long mLength;
+
+        private String mLastTrace;
+
+        @Override
+        public synchronized void printTrace(String classname, int level, String trace) {
+            mLength += trace.length();
+            mLastTrace = trace;
+        }
+
+        public synchronized String getLastTrace() {
+            return mLastTrace;
+        }
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        mAppenders = Logger.getAppenders();
+        mActivationFlag = Logger.sActivationFlag;
+        mTraceLevel = Logger.traceLevel;
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        Logger.setAppenders(mAppenders);
+        Logger.sActivationFlag = mActivationFlag;
+        Logger.traceLevel = mTraceLevel;
+        super.tearDown();
+    }
+
+    public void testFormat() {
+        assertEquals("Send SIP INVITE to bob", Appender.format("Send SIP {} to {}", new Object[] {
+                "INVITE", "bob"
+        }));
+        assertEquals("code=200, {}", Appender.format("code={}, {}", new Object[] {
+            200
+        }));
+        assertEquals("line1\nline2", Appender.format("line1\r\n{}", new Object[] {
+            "line2\r"
+        }));
+        assertEquals("no argument {}", Appender.format("no argument {}", null));
+    }
+
+    public void testLevelGuards() {
+        Logger logger = Logger.getLogger(LoggerTest.class.getName());
+        Logger.sActivationFlag = Logger.TRACE_ON;
+        Logger.traceLevel = Logger.INFO_LEVEL;
+        assertFalse(logger.isDebugEnabled());
+        assertTrue(logger.isInfoEnabled());
+        assertTrue(logger.isWarnEnabled());
+        Logger.sActivationFlag = Logger.TRACE_OFF;
+        assertFalse(logger.isInfoEnabled());
+    }
+
+    public void testParameterizedTrace() {
+        Logger logger = Logger.getLogger(LoggerTest.class.getName());
+        CountingAppender appender = new CountingAppender();
+        Logger.setAppenders(new Appender[] {
+            appender
+        });
+        Logger.sActivationFlag = Logger.TRACE_ON;
+        Logger.traceLevel = Logger.DEBUG_LEVEL;
+        logger.debug("<<< Receive SIP {} (Call-ID {})", "BYE", CALL_ID);
+        assertEquals("<<< Receive SIP BYE (Call-ID " + CALL_ID + ")", appender.getLastTrace());
+    }
+
+    public void testAsyncAppender() throws InterruptedException {
+        CountingAppender appender = new CountingAppender();
+        AsyncAppender asyncAppender = new AsyncAppender(new Appender[] {
+            appender
+        });
+        asyncAppender.printTrace("LoggerTest", Logger.INFO_LEVEL, "Response {}", new Object[] {
+            "200 OK"
+        });
+        asyncAppender.close();
+        long deadline = System.currentTimeMillis() + 1000;
+        while (appender.getLastTrace() == null && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals("Response 200 OK", appender.getLastTrace());
+    }
+
+    public void testAsynchronousWithoutAppender() {
+        Logger logger = Logger.getLogger(LoggerTest.class.getName());
+        Logger.sActivationFlag = Logger.TRACE_ON;
+        Logger.traceLevel = Logger.DEBUG_LEVEL;
+        Logger.setAppenders(null);
+        Logger.setAsynchronous(true);
+        assertNull(Logger.getAppenders());
+        logger.info("No appender");
+        Logger.setAsynchronous(false);
+        assertNull(Logger.getAppenders());
+    }
+
+    public void testBenchmarkPerTraceOverhead() {
+        Logger logger = Logger.getLogger(LoggerTest.class.getName());
+        Logger.sActivationFlag = Logger.TRACE_ON;
+        CountingAppender appender = new CountingAppender();
+        Logger.setAppenders(new Appender[] {
+            appender
+        });
+        /* Values known at runtime only, as on real call sites */
+        String method = new String("BYE");
+        String callId = new String(CALL_ID);
+        StringBuilder report = new StringBuilder();
+        for (int level : new int[] {
+                Logger.DEBUG_LEVEL, Logger.ERROR_LEVEL
+        }) {
+            Logger.traceLevel = level;
+            long start = System.nanoTime();
+            for (int i = 0; i < NB_TRACES; i++) {
+                /* Legacy call site: only the activation flag is checked */
+                if (Logger.sActivationFlag) {
+                    logger.debug("<<< Receive SIP " + method + " (Call-ID " + callId + ")");
+                }
+            }
+            long legacy = (System.nanoTime() - start) / NB_TRACES;
+            start = System.nanoTime();
+            for (int i = 0; i < NB_TRACES; i++) {
+                logger.debug("<<< Receive SIP {} (Call-ID {})", method, callId);
+            }
+            long parameterized = (System.nanoTime() - start) / NB_TRACES;
+            report.append("level ").append(level).append(": legacy ").append(legacy)
+                    .append(" ns, parameterized ").append(parameterized).append(" ns; ");
+        }
+
+        Logger.traceLevel = Logger.DEBUG_LEVEL;
+        Logger.setAsynchronous(true);
+        long start = System.nanoTime();
+        for (int i = 0; i < NB_TRACES; i++) {
+            logger.debug("<<< Receive SIP {} (Call-ID {})", method, callId);
+        }
+        long async = (System.nanoTime() - start) / NB_TRACES;
+        Logger.setAsynchronous(false);
+        report.append("async ").append(async).append(" ns");
+
+        Logger.setAppenders(mAppenders);
+        Logger.getLogger(LoggerTest.class.getName()).info(report.toString());
+    }
+}
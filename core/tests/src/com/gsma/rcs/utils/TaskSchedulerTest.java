@@ -0,0 +1,232 @@
+/*******************************************************************************
+ * Software Name : RCS IMS Stack
+ *
+ * Copyright (C) 2010-2016 Orange.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+
+package com.gsma.rcs.utils;
+
+import com.gsma.rcs.utils.logger.Logger;
+import com.gsma.rcs.utils.queue.MpmcRingBufferQueue;
+import com.gsma.rcs.utils.queue.OverflowPolicy;
+import com.gsma.rcs.utils.scheduler.PoolMetrics;
+import com.gsma.rcs.utils.scheduler.PooledTask;
+import com.gsma.rcs.utils.scheduler.QueueConsumer;
+import com.gsma.rcs.utils.scheduler.SerialExecutor;
+import com.gsma.rcs.utils.scheduler.TaskScheduler;
+import com.gsma.rcs.utils.scheduler.TaskScheduler.Pool;
+
+import android.test.AndroidTestCase;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class TaskSchedulerTest extends AndroidTestCase {
+    private static final Logger sLogger = Logger.getLogger(TaskSchedulerTest.class.getName());
+
+    private static final int NB_TASKS = 1000;
+
+    private static final long TIMEOUT = 5000;
+
+    public void testSerialExecutorKeepsOrder() throws InterruptedException {
+        SerialExecutor executor = TaskScheduler.getInstance().createSerialExecutor(Pool.IO,
+                NB_TASKS);
+        final List<Integer> executed = new ArrayList<>();
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+        final CountDownLatch done = new CountDownLatch(NB_TASKS);
+        for (int i = 0; i < NB_TASKS; i++) {
+            final int index = i;
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    maxRunning.set(Math.max(maxRunning.get(), running.incrementAndGet()));
+                    synchronized (executed) {
+                        executed.add(index);
+                    }
+                    running.decrementAndGet();
+                    done.countDown();
+                }
+            });
+        }
+        assertTrue(done.await(TIMEOUT, TimeUnit.MILLISECONDS));
+        assertEquals(1, maxRunning.get());
+        for (int i = 0; i < NB_TASKS; i++) {
+            assertEquals(i, executed.get(i).intValue());
+        }
+    }
+
+    public void testSerialExecutorRejectsAfterShutdown() {
+        SerialExecutor executor = TaskScheduler.getInstance().createSerialExecutor(Pool.CPU);
+        executor.shutdown();
+        try {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                }
+            });
+            fail("Task accepted after shutdown");
+        } catch (RejectedExecutionException e) {
+            /* Expected */
+        }
+    }
+
+    public void testPooledTaskInterruptedBeforeStart() throws InterruptedException {
+        final CountDownLatch done = new CountDownLatch(1);
+        final AtomicInteger interrupted = new AtomicInteger();
+        PooledTask task = new PooledTask(Pool.LONG_RUNNING, "TestTask") {
+            @Override
+            protected void runTask() {
+                try {
+                    Thread.sleep(TIMEOUT);
+                } catch (InterruptedException e) {
+                    interrupted.incrementAndGet();
+                }
+                done.countDown();
+            }
+        };
+        task.interrupt();
+        task.start();
+        assertTrue(done.await(TIMEOUT, TimeUnit.MILLISECONDS));
+        assertEquals(1, interrupted.get());
+    }
+
+    public void testLongRunningTasksDoNotExhaustIoPool() throws InterruptedException {
+        final int nbTasks = 100;
+        final CountDownLatch started = new CountDownLatch(nbTasks);
+        final CountDownLatch release = new CountDownLatch(1);
+        for (int i = 0; i < nbTasks; i++) {
+            new PooledTask(Pool.LONG_RUNNING, "TestReader" + i) {
+                @Override
+                protected void runTask() {
+                    started.countDown();
+                    try {
+                        release.await(TIMEOUT, TimeUnit.MILLISECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            }.start();
+        }
+        try {
+            /* Long running tasks are never queued */
+            assertTrue(started.await(TIMEOUT, TimeUnit.MILLISECONDS));
+            final CountDownLatch done = new CountDownLatch(1);
+            TaskScheduler.getInstance().execute(Pool.IO, new Runnable() {
+                @Override
+                public void run() {
+                    done.countDown();
+                }
+            });
+            assertTrue(done.await(TIMEOUT, TimeUnit.MILLISECONDS));
+        } finally {
+            release.countDown();
+        }
+    }
+
+    public void testQueueConsumerRetriesRejectedDrain() throws InterruptedException {
+        final AtomicInteger attempts = new AtomicInteger();
+        final CountDownLatch done = new CountDownLatch(1);
+        Executor executor = new Executor() {
+            @Override
+            public void execute(Runnable task) {
+                if (attempts.incrementAndGet() == 1) {
+                    throw new RejectedExecutionException("Pool is full!");
+                }
+                TaskScheduler.getInstance().execute(Pool.CPU, task);
+            }
+        };
+        QueueConsumer<Integer> consumer = new QueueConsumer<Integer>(
+                new MpmcRingBufferQueue<Integer>(2, OverflowPolicy.DROP_NEWEST), executor) {
+            @Override
+            protected void consume(Integer element) {
+                done.countDown();
+            }
+        };
+        consumer.start();
+        assertTrue(consumer.offer(0));
+        /* Nothing else is offered: the drain must be submitted again */
+        assertTrue(done.await(TIMEOUT, TimeUnit.MILLISECONDS));
+        assertTrue(attempts.get() >= 2);
+    }
+
+    public void testQueueConsumerUrgentElementsAreNotBlocked() throws InterruptedException {
+        final CountDownLatch firstConsumed = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(4);
+        final List<Integer> consumed = new ArrayList<>();
+        QueueConsumer<Integer> consumer = new QueueConsumer<Integer>(
+                new MpmcRingBufferQueue<Integer>(2, OverflowPolicy.BLOCK), TaskScheduler
+                        .getInstance().getExecutor(Pool.IO)) {
+            @Override
+            protected void consume(Integer element) {
+                firstConsumed.countDown();
+                try {
+                    release.await(TIMEOUT, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                synchronized (consumed) {
+                    consumed.add(element);
+                }
+                done.countDown();
+            }
+        };
+        consumer.start();
+        consumer.offer(0);
+        assertTrue(firstConsumed.await(TIMEOUT, TimeUnit.MILLISECONDS));
+        /* The bounded queue is full while the consumer is stuck on the first element */
+        consumer.offer(1);
+        consumer.offer(2);
+        long start = System.currentTimeMillis();
+        assertTrue(consumer.offerUrgent(3));
+        assertTrue(System.currentTimeMillis() - start < TIMEOUT / 2);
+        release.countDown();
+        assertTrue(done.await(TIMEOUT, TimeUnit.MILLISECONDS));
+        assertEquals(Integer.valueOf(0), consumed.get(0));
+        assertEquals(Integer.valueOf(3), consumed.get(1));
+        assertEquals(Integer.valueOf(1), consumed.get(2));
+        assertEquals(Integer.valueOf(2), consumed.get(3));
+    }
+
+    public void testMetrics() throws InterruptedException {
+        TaskScheduler scheduler = TaskScheduler.getInstance();
+        PoolMetrics metrics = scheduler.getMetrics(Pool.CPU);
+        long completed = metrics.getCompletedTaskCount();
+        final CountDownLatch done = new CountDownLatch(NB_TASKS);
+        for (int i = 0; i < NB_TASKS; i++) {
+            scheduler.execute(Pool.CPU, new Runnable() {
+                @Override
+                public void run() {
+                    done.countDown();
+                }
+            });
+        }
+        assertTrue(done.await(TIMEOUT, TimeUnit.MILLISECONDS));
+        /* Metrics are recorded once the task has returned */
+        Thread.sleep(100);
+        assertTrue(metrics.getCompletedTaskCount() >= completed + NB_TASKS);
+        assertTrue(metrics.getThreadCount() <= metrics.getMaxThreadCount());
+        if (sLogger.isActivated()) {
+            sLogger.info(metrics.toString());
+        }
+    }
+}
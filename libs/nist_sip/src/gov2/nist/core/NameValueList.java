@@ -87,10 +87,10 @@ public class NameValueList implements Serializable, Cloneable, Map<String,NameVa
      * @since v1.0
      */
     public String encode() {
-        return encode(new StringBuffer()).toString();
+        return encode(new StringBuilder()).toString();
     }
 
-    public StringBuffer encode(StringBuffer buffer) {
+    public StringBuilder encode(StringBuilder buffer) {
         if (!hmap.isEmpty()) {
             Iterator<NameValue> iterator = hmap.values().iterator();
             if (iterator.hasNext()) {
@@ -329,6 +329,24 @@ import javax2.sip.message.Request;
  * parameter in the Message. Otherwise, it will use the content length supplied
  * and generate a parse exception if the content is truncated.
  * 
+ * <li><b>gov2.nist.javax2.sip.LAZY_HEADER_PARSING = [true|false] </b> <br/>
+ * Default is <it>false</it>. If set to <it>true</it>, only the headers needed by
+ * the transaction layer (Via, From, To, Call-ID, CSeq, Content-Length,
+ * Max-Forwards and the compact forms) are parsed when a message is received. The
+ * other headers are located in the received buffer and parsed the first time the
+ * application accesses them. Headers which are never accessed are encoded again
+ * as received. </li>
+ * 
+ * <li><b>gov2.nist.javax2.sip.NIO_TRANSPORT = [true|false] </b> <br/>
+ * Default is <it>false</it>. If set to <it>true</it>, the UDP, TCP and TLS
+ * listening points are served by non-blocking sockets multiplexed on a single
+ * selector thread, and the received messages are processed by a pool of
+ * THREAD_POOL_SIZE threads (unlimited if not set), instead of one thread per
+ * socket and per connection. TLS uses SSL engines created from the SSL context
+ * of the NETWORK_LAYER if it is a gov2.nist.core.net.SslNetworkLayer, from the
+ * default SSL context otherwise. The other sockets are not created by the
+ * NETWORK_LAYER. </li>
+ * 
  * <li><b>gov2.nist.javax2.sip.CANCEL_CLIENT_TRANSACTION_CHECKED = [true|false]
  * </b> <br/>
  * Default is <it>true</it>. This flag is added in support of load balancers or
@@ -396,6 +414,15 @@ import javax2.sip.message.Request;
  * client transction in the ResponseEventExt and deliver that to the application.
  * The event handler can get the original transaction from this event. </li>
  * 
+ * <li><b>gov2.nist.javax2.sip.TIMER_CLASS_NAME = classpath </b> <br/>
+ * Timer service running all the transaction, dialog and connection timers of
+ * the stack. The class must implement gov2.nist.javax2.sip.stack.SipTimer and
+ * have a public no-arg constructor. The default is
+ * gov2.nist.javax2.sip.stack.DefaultSipTimer, a single java.util.Timer thread.
+ * gov2.nist.javax2.sip.stack.HashedWheelSipTimer is a hashed timing wheel with
+ * O(1) schedule and cancel and a bounded pool of threads running the expired
+ * timers. </li>
+ * 
  *  * <li><b>gov2.nist.javax2.sip.TLS_CLIENT_PROTOCOLS = String </b>
  *  Comma-separated list of protocols to use when creating outgoing TLS connections.
  *  The default is "SSLv3, SSLv2Hello, TLSv1".
@@ -976,6 +1003,15 @@ public class SipStackImpl extends SIPTransactionStack implements
 		StringMsgParser
 				.setComputeContentLengthFromMessage(computeContentLength);
 
+		boolean lazyHeaderParsing = configurationProperties.getProperty(
+				"gov2.nist.javax2.sip.LAZY_HEADER_PARSING", "false")
+				.equalsIgnoreCase("true");
+		StringMsgParser.setLazyHeaderParsing(lazyHeaderParsing);
+
+		super.useNioTransport = configurationProperties.getProperty(
+				"gov2.nist.javax2.sip.NIO_TRANSPORT", "false")
+				.equalsIgnoreCase("true");
+
 		String tlsClientProtocols = configurationProperties.getProperty(
 				"gov2.nist.javax2.sip.TLS_CLIENT_PROTOCOLS");
 		if (tlsClientProtocols != null)
@@ -1052,6 +1088,14 @@ public class SipStackImpl extends SIPTransactionStack implements
 		
 		super.maxForkTime = Integer.parseInt(
 		        configurationProperties.getProperty("gov2.nist.javax2.sip.MAX_FORK_TIME_SECONDS","0"));
+
+		String timerClassName = configurationProperties
+				.getProperty("gov2.nist.javax2.sip.TIMER_CLASS_NAME");
+		if (timerClassName != null) {
+			super.timerClassName = timerClassName;
+			getTimer().stop();
+			setTimer(createTimer());
+		}
 		
 	}
 
@@ -183,10 +183,10 @@ public final class AddressImpl extends NetObject implements javax2.sip.address.A
 	 * @return String canonical encoded version of this address.
 	 */
 	public String encode() {
-		return encode(new StringBuffer()).toString();
+		return encode(new StringBuilder()).toString();
 	}
 
-	public StringBuffer encode(StringBuffer buffer) {
+	public StringBuilder encode(StringBuilder buffer) {
 		if (this.addressType == WILD_CARD) {
 			buffer.append('*');
 		} else {
@@ -49,7 +49,7 @@ public class RFC2396UrlDecoder {
      * @return the decoded path
      */
     public static String decode(String uri) {
-        StringBuffer translatedUri = new StringBuffer(uri.length());
+        StringBuilder translatedUri = new StringBuilder(uri.length());
         byte[] encodedchars = new byte[uri.length() / 3];
         int i = 0;
         int length = uri.length();
@@ -182,10 +182,10 @@ public class TelephoneNumber extends NetObject {
     }
 
     public String encode() {
-        return encode(new StringBuffer()).toString();
+        return encode(new StringBuilder()).toString();
     }
 
-    public StringBuffer encode(StringBuffer buffer) {
+    public StringBuilder encode(StringBuilder buffer) {
         if (isglobal)
             buffer.append('+');
         buffer.append(phoneNumber);
@@ -98,10 +98,10 @@ public final  class Contact
      * @return string encoding of the header value.
      */
     protected String encodeBody() {
-        return encodeBody(new StringBuffer()).toString();
+        return encodeBody(new StringBuilder()).toString();
     }
 
-    protected StringBuffer encodeBody(StringBuffer buffer) {
+    protected StringBuilder encodeBody(StringBuilder buffer) {
         if (wildCardFlag) {
             buffer.append('*');
         }
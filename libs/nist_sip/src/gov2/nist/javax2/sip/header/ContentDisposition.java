@@ -64,7 +64,7 @@ public final class ContentDisposition
      *
      */
     public String encodeBody() {
-        StringBuffer encoding = new StringBuffer(dispositionType);
+        StringBuilder encoding = new StringBuilder(dispositionType);
         if (!this.parameters.isEmpty()) {
             encoding.append(SEMICOLON).append(parameters.encode());
         }
@@ -77,8 +77,8 @@ public final class ErrorInfo
      * @return String
      */
     public String encodeBody() {
-        StringBuffer retval =
-            new StringBuffer(LESS_THAN).append(errorInfo.toString()).append(
+        StringBuilder retval =
+            new StringBuilder(LESS_THAN).append(errorInfo.toString()).append(
                 GREATER_THAN);
         if (!parameters.isEmpty()) {
             retval.append(SEMICOLON).append(parameters.encode());
@@ -91,7 +91,7 @@ public class ExtensionHeaderImpl
             } catch (Exception ex) {
                 return null;
             }
-            StringBuffer buffer = new StringBuffer(encodedHdr);
+            StringBuilder buffer = new StringBuilder(encodedHdr);
             while (buffer.length() > 0 && buffer.charAt(0) != ':') {
                 buffer.deleteCharAt(0);
             }
@@ -105,7 +105,7 @@ public class ExtensionHeaderImpl
      * Return the canonical encoding of this header.
      */
     public String encode() {
-        return new StringBuffer(this.headerName)
+        return new StringBuilder(this.headerName)
             .append(COLON)
             .append(SP)
             .append(this.value)
@@ -85,10 +85,10 @@ public class MaxForwards extends SIPHeader implements MaxForwardsHeader {
          *
          */
     public String encodeBody() {
-        return encodeBody(new StringBuffer()).toString();
+        return encodeBody(new StringBuilder()).toString();
     }
 
-    protected StringBuffer encodeBody(StringBuffer buffer) {
+    protected StringBuilder encodeBody(StringBuilder buffer) {
         return buffer.append(maxForwards);
     }
 
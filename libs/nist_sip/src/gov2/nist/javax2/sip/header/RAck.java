@@ -67,7 +67,7 @@ public class RAck extends SIPHeader implements javax2.sip.header.RAckHeader {
     protected String encodeBody() {
         // Bug reported by Bruno Konik - was encoded in
         // the wrong order.
-        return new StringBuffer().append(rSeqNumber).append(SP).append(
+        return new StringBuilder().append(rSeqNumber).append(SP).append(
                 cSeqNumber).append(SP).append(method).toString();
 
     }
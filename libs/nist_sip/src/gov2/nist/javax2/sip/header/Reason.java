@@ -140,7 +140,7 @@ public class Reason
      * A.K.A headerValue.
      */
     protected String encodeBody() {
-        StringBuffer s = new StringBuffer();
+        StringBuilder s = new StringBuilder();
         s.append(protocol);
         if (parameters != null && !parameters.isEmpty())
             s.append(SEMICOLON).append(parameters.encode());
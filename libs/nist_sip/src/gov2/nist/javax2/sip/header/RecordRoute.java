@@ -71,10 +71,10 @@ public class RecordRoute
      *@return String containing the canonicaly encoded header.
      */
     public String encodeBody() {
-        return encodeBody(new StringBuffer()).toString();
+        return encodeBody(new StringBuilder()).toString();
     }
 
-    protected StringBuffer encodeBody(StringBuffer buffer) {
+    protected StringBuilder encodeBody(StringBuilder buffer) {
         if (address.getAddressType() == AddressImpl.ADDRESS_SPEC) {
             buffer.append(LESS_THAN);
         }
@@ -70,10 +70,10 @@ public class RequestLine extends SIPObject implements SipRequestLine {
      * @return requestLine encoded as a string.
      */
     public String encode() {
-        return encode(new StringBuffer()).toString();
+        return encode(new StringBuilder()).toString();
     }
 
-    public StringBuffer encode(StringBuffer buffer) {
+    public StringBuilder encode(StringBuilder buffer) {
         if (method != null) {
             buffer.append(method);
             buffer.append(SP);
@@ -223,7 +223,7 @@ public class RequestLine extends SIPObject implements SipRequestLine {
  * Converts indentation tabs to spaces so that we have a uniform indentation policy in the whole project.
  *
  * Revision 1.6  2007/02/12 15:19:23  belangery
- * Changed the encode() and encodeBody() methods of SIP headers and basic classes to make them use the same StringBuffer instance during the encoding phase.
+ * Changed the encode() and encodeBody() methods of SIP headers and basic classes to make them use the same StringBuilder instance during the encoding phase.
  *
  * Revision 1.5  2006/07/13 09:01:26  mranga
  * Issue number:
@@ -95,7 +95,7 @@ public abstract class SIPHeader
         } catch (Exception ex) {
             return null;
         }
-        StringBuffer buffer = new StringBuffer(encodedHdr);
+        StringBuilder buffer = new StringBuilder(encodedHdr);
         while (buffer.length() > 0 && buffer.charAt(0) != ':') {
             buffer.deleteCharAt(0);
         }
@@ -115,10 +115,10 @@ public abstract class SIPHeader
     /** Encode this header into canonical form.
     */
     public String encode() {
-        return encode(new StringBuffer()).toString();
+        return encode(new StringBuilder()).toString();
     }
 
-    public StringBuffer encode(StringBuffer buffer) {
+    public StringBuilder encode(StringBuilder buffer) {
         buffer.append(this.headerName).append(COLON).append(SP);
         this.encodeBody(buffer);
         buffer.append(NEWLINE);
@@ -133,7 +133,7 @@ public abstract class SIPHeader
     /** Encode the body of this header in the given buffer.
      * Default implementation calls encodeBody();
      */
-    protected StringBuffer encodeBody(StringBuffer buffer) {
+    protected StringBuilder encodeBody(StringBuilder buffer) {
         return buffer.append(encodeBody());
     }
 
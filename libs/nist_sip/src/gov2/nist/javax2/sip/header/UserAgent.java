@@ -58,7 +58,7 @@ public class UserAgent extends SIPHeader implements UserAgentHeader {
      * @return String
      */
     private String encodeProduct() {
-        StringBuffer tokens = new StringBuffer();
+        StringBuilder tokens = new StringBuilder();
         ListIterator it = productTokens.listIterator();
 
         while (it.hasNext()) {
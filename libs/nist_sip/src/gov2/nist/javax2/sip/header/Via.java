@@ -254,10 +254,10 @@ public class Via
      * A.K.A headerValue.
      */
     protected String encodeBody() {
-        return encodeBody(new StringBuffer()).toString();
+        return encodeBody(new StringBuilder()).toString();
     }
 
-    protected StringBuffer encodeBody(StringBuffer buffer) {
+    protected StringBuilder encodeBody(StringBuilder buffer) {
         sentProtocol.encode(buffer);
         buffer.append(SP);
         sentBy.encode(buffer);
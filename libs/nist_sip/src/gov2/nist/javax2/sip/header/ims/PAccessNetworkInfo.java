@@ -247,7 +247,7 @@ public class PAccessNetworkInfo
 
     protected String encodeBody() {
 
-        StringBuffer encoding = new StringBuffer();
+        StringBuilder encoding = new StringBuilder();
 
         if (getAccessType() != null)
             encoding.append(getAccessType());
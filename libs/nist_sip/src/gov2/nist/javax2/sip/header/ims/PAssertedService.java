@@ -51,7 +51,7 @@ public class PAssertedService extends SIPHeader implements PAssertedServiceHeade
 
     @Override
     protected String encodeBody() {
-        StringBuffer retval = new StringBuffer();
+        StringBuilder retval = new StringBuilder();
 
          retval.append(ParameterNamesIms.SERVICE_ID);
 
@@ -88,7 +88,7 @@ public class PChargingFunctionAddresses
      */
     protected String encodeBody() {
 
-        StringBuffer encoding = new StringBuffer();
+        StringBuilder encoding = new StringBuilder();
 
         // issued by Miguel Freitas
         if (!duplicates.isEmpty())
@@ -60,7 +60,7 @@ public class PChargingVector extends gov2.nist.javax2.sip.header.ParametersHeade
      */
     protected String encodeBody() {
 
-        StringBuffer encoding = new StringBuffer();
+        StringBuilder encoding = new StringBuilder();
         /*
          * no need to check for the presence of icid-value. According to the
          * spec above this is a mandatory field. if it does not exist, then we
@@ -50,7 +50,7 @@ public class PPreferredService extends SIPHeader implements PPreferredServiceHea
 
     @Override
     protected String encodeBody() {
-        StringBuffer retval = new StringBuffer();
+        StringBuilder retval = new StringBuilder();
 
          retval.append(ParameterNamesIms.SERVICE_ID);
 
@@ -80,7 +80,7 @@ public class PVisitedNetworkID
 
     protected String encodeBody() {
 
-        StringBuffer retval = new StringBuffer();
+        StringBuilder retval = new StringBuilder();
 
         if (getVisitedNetworkID() != null)
         {
@@ -67,7 +67,7 @@ public class Path
      *@return String containing the canonicaly encoded header.
      */
     public String encodeBody() {
-        StringBuffer retval = new StringBuffer();
+        StringBuilder retval = new StringBuilder();
         if (address.getAddressType() == AddressImpl.ADDRESS_SPEC) {
             retval.append(LESS_THAN);
         }
@@ -0,0 +1,171 @@
+/*
+ * Conditions Of Use
+ *
+ * This software was developed by employees of the National Institute of
+ * Standards and Technology (NIST), an agency of the Federal Government.
+ * Pursuant to title 15 Untied States Code Section 105, works of NIST
+ * employees are not subject to copyright protection in the United States
+ * and are considered to be in the public domain.  As a result, a formal
+ * license is not needed to use the software.
+ *
+ * This software is provided by NIST as a service and is expressly
+ * provided "AS IS."  NIST MAKES NO WARRANTY OF ANY KIND, EXPRESS, IMPLIED
+ * OR STATUTORY, INCLUDING, WITHOUT LIMITATION, THE IMPLIED WARRANTY OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE, NON-INFRINGEMENT
+ * AND DATA ACCURACY.  NIST does not warrant or make any representations
+ * regarding the use of the software or the results thereof, including but
+ * not limited to the correctness, accuracy, reliability or usefulness of
+ * the software.
+ *
+ * Permission to use this software is contingent upon your acceptance
+ * of the terms of this agreement
+ *
+ * .
+ *
+ */
+package gov2.nist.javax2.sip.message;
+
+import gov2.nist.javax2.sip.header.SIPHeader;
+
+import java.io.UnsupportedEncodingException;
+
+/**
+ * Header of a received message which has not been parsed yet.<br/>
+ * When lazy header parsing is enabled, the message parser only records where each header
+ * lies in the received buffer. The raw header holds the place of the header in the header list
+ * of the message: it is replaced in place by its object form the first time it is accessed, and
+ * a header which is never accessed is encoded again from its raw text at its received position.
+ *
+ * @see gov2.nist.javax2.sip.parser.StringMsgParser#setLazyHeaderParsing(boolean)
+ */
+public final class RawHeader extends SIPHeader {
+
+    private static final long serialVersionUID = 5182409813587406275L;
+
+    private final byte[] bytes;
+
+    private final String string;
+
+    private final int start;
+
+    private final int end;
+
+    // True if the header spans several lines.
+    private final boolean folded;
+
+    /**
+     * Constructor for a header held by a byte buffer.
+     *
+     * @param name the lower case name of the header.
+     * @param buffer the buffer holding the received message.
+     * @param start offset of the first character of the header name.
+     * @param end offset following the last character of the header value.
+     * @param folded true if the header has continuation lines.
+     */
+    public RawHeader(String name, byte[] buffer, int start, int end, boolean folded) {
+        super(name);
+        this.bytes = buffer;
+        this.string = null;
+        this.start = start;
+        this.end = end;
+        this.folded = folded;
+    }
+
+    /**
+     * Constructor for a header held by a string.
+     *
+     * @param name the lower case name of the header.
+     * @param buffer the string holding the received message.
+     * @param start offset of the first character of the header name.
+     * @param end offset following the last character of the header value.
+     * @param folded true if the header has continuation lines.
+     */
+    public RawHeader(String name, String buffer, int start, int end, boolean folded) {
+        super(name);
+        this.bytes = null;
+        this.string = buffer;
+        this.start = start;
+        this.end = end;
+        this.folded = folded;
+    }
+
+    /**
+     * Get the header text exactly as received.
+     *
+     * @return the header text, continuation lines included.
+     */
+    public String getText() {
+        if (string != null)
+            return string.substring(start, end);
+        try {
+            return new String(bytes, start, end - start, "UTF-8");
+        } catch (UnsupportedEncodingException ex) {
+            // UTF-8 is always supported.
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * Get the header as a single line, the way the eager parser hands it to the header
+     * parsers: trailing white spaces are trimmed and continuation lines are appended to the
+     * first line without their leading white space character.
+     *
+     * @return the unfolded header line.
+     */
+    public String getHeaderLine() {
+        String text = getText();
+        if (!folded)
+            return trimEndOfLine(text, 0, text.length());
+
+        StringBuilder line = new StringBuilder(text.length());
+        int lineStart = 0;
+        int length = text.length();
+        while (lineStart < length) {
+            int i = lineStart;
+            while (i < length && text.charAt(i) != '\r' && text.charAt(i) != '\n')
+                i++;
+            String current = trimEndOfLine(text, lineStart, i);
+            if (lineStart == 0)
+                line.append(current);
+            else if (current.length() > 0)
+                line.append(current.substring(1));
+            if (i < length && text.charAt(i) == '\r' && i + 1 < length
+                    && text.charAt(i + 1) == '\n')
+                i++;
+            lineStart = i + 1;
+        }
+        return line.toString();
+    }
+
+    /**
+     * Encode the header into a buffer, exactly as received.
+     *
+     * @param buffer the buffer to append the header to.
+     * @return the buffer.
+     */
+    public StringBuilder encode(StringBuilder buffer) {
+        return buffer.append(getText()).append(NEWLINE);
+    }
+
+    protected String encodeBody() {
+        String line = getHeaderLine();
+        return line.substring(line.indexOf(':') + 1).trim();
+    }
+
+    // A raw header stands for one position in one received message: it is only equal to
+    // itself, which also avoids the reflective comparison of SIPObject.
+    public boolean equals(Object other) {
+        return this == other;
+    }
+
+    public int hashCode() {
+        return System.identityHashCode(this);
+    }
+
+    private static String trimEndOfLine(String text, int lineStart, int lineEnd) {
+        int i = lineEnd - 1;
+        while (i >= lineStart && text.charAt(i) <= 0x20)
+            i--;
+        return text.substring(lineStart, i + 1);
+    }
+}
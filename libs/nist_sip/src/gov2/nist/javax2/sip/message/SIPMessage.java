@@ -70,18 +70,22 @@ import gov2.nist.javax2.sip.header.WWWAuthenticate;
 import gov2.nist.javax2.sip.header.Warning;
 import gov2.nist.javax2.sip.parser.HeaderParser;
 import gov2.nist.javax2.sip.parser.ParserFactory;
-import gov2.nist.javax2.sip.parser.PipelinedMsgParser;
+import gov2.nist.javax2.sip.parser.SIPStreamFramer;
 import gov2.nist.javax2.sip.parser.StringMsgParser;
 
 import java.io.UnsupportedEncodingException;
 import java.lang.reflect.Field;
 import java.text.ParseException;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Hashtable;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.ListIterator;
+import java.util.Set;
 import java.util.concurrent.ConcurrentLinkedQueue;
 
 import javax2.sip.InvalidArgumentException;
@@ -114,7 +118,7 @@ import javax2.sip.message.Request;
  * This is the main SIP Message structure.
  * 
  * @see StringMsgParser
- * @see PipelinedMsgParser
+ * @see SIPStreamFramer
  * 
  * @version 1.2 $Revision: 1.53 $ $Date: 2009/12/16 14:58:40 $
  * @since 1.1
@@ -140,7 +144,8 @@ public abstract class SIPMessage extends MessageObject implements javax2.sip.mes
     protected LinkedList<String> unrecognizedHeaders;
 
     /**
-     * List of parsed headers (in the order they were added)
+     * List of headers (in the order they were added). The received headers which have not been
+     * parsed yet are held by a RawHeader at their received position.
      */
     protected ConcurrentLinkedQueue<SIPHeader> headers;
 
@@ -172,6 +177,22 @@ public abstract class SIPMessage extends MessageObject implements javax2.sip.mes
     // Table of headers indexed by name.
     private Hashtable<String, SIPHeader> nameTable;
 
+    // Initial and maximum pooled sizes of the encoding buffers.
+    private static final int ENCODING_BUFFER_SIZE = 1024;
+
+    private static final int MAX_POOLED_ENCODING_BUFFER_SIZE = 16 * 1024;
+
+    // Encoding buffer of each thread, see acquireEncodingBuffer.
+    private static final ThreadLocal<StringBuilder> encodingBuffers = new ThreadLocal<StringBuilder>();
+
+    // Bytes returned by the last encodeAsBytes, reused while the encoding is unchanged (null if
+    // none).
+    private volatile byte[] encodedBytes;
+
+    // Index by lower case name of the raw headers of the header list (null when every header is
+    // parsed). The map is its own lock and is only set to null once its headers are attached.
+    private volatile LinkedHashMap<String, LinkedList<RawHeader>> rawHeaders;
+
     /**
      * The application data pointer. This is un-interpreted by the stack. This is provided as a
      * convenient way of keeping book-keeping data for applications.
@@ -214,6 +235,7 @@ public abstract class SIPMessage extends MessageObject implements javax2.sip.mes
      *         canonical form.
      */
     public LinkedList<String> getMessageAsEncodedStrings() {
+        parseAllHeaders();
         LinkedList<String> retval = new LinkedList<String>();
         Iterator<SIPHeader> li = headers.iterator();
         while (li.hasNext()) {
@@ -235,16 +257,20 @@ public abstract class SIPMessage extends MessageObject implements javax2.sip.mes
      * @return a string with all the headers encoded.
      */
     protected String encodeSIPHeaders() {
-        StringBuffer encoding = new StringBuffer();
-        Iterator<SIPHeader> it = this.headers.iterator();
+        StringBuilder encoding = acquireEncodingBuffer();
+        try {
+            Iterator<SIPHeader> it = this.headers.iterator();
 
-        while (it.hasNext()) {
-            SIPHeader siphdr = (SIPHeader) it.next();
-            if (!(siphdr instanceof ContentLength))
-                siphdr.encode(encoding);
-        }
+            while (it.hasNext()) {
+                SIPHeader siphdr = (SIPHeader) it.next();
+                if (!(siphdr instanceof ContentLength))
+                    siphdr.encode(encoding);
+            }
 
-        return contentLengthHeader.encode(encoding).append(NEWLINE).toString();
+            return contentLengthHeader.encode(encoding).append(NEWLINE).toString();
+        } finally {
+            releaseEncodingBuffer(encoding);
+        }
     }
 
     /**
@@ -331,6 +357,7 @@ public abstract class SIPMessage extends MessageObject implements javax2.sip.mes
         if (!template.getClass().equals(this.getClass()))
             throw new IllegalArgumentException("Bad class " + template.getClass());
         SIPMessage templateMessage = (SIPMessage) template;
+        templateMessage.parseAllHeaders();
         Object[] templateHeaders = templateMessage.headers.toArray();
         for (int i = 0; i < templateHeaders.length; i++) {
             SIPHeader hdr = (SIPHeader) templateHeaders[i];
@@ -358,13 +385,27 @@ public abstract class SIPMessage extends MessageObject implements javax2.sip.mes
      *         representation of the SDP payload if it exists).
      */
     public String encode() {
-        StringBuffer encoding = new StringBuffer();
+        StringBuilder encoding = acquireEncodingBuffer();
+        try {
+            encodeHeadersAndContent(encoding);
+            return encoding.toString();
+        } finally {
+            releaseEncodingBuffer(encoding);
+        }
+    }
+
+    /**
+     * Encode the headers and the content of this message as a string.
+     * 
+     * @param encoding the buffer to encode the message into.
+     */
+    private void encodeHeadersAndContent(StringBuilder encoding) {
         Iterator<SIPHeader> it = this.headers.iterator();
 
         while (it.hasNext()) {
             SIPHeader siphdr = (SIPHeader) it.next();
             if (!(siphdr instanceof ContentLength))
-                encoding.append(siphdr.encode());
+                siphdr.encode(encoding);
         }
         // Append the unrecognized headers. Headers that are not
         // recognized are passed through unchanged.
@@ -372,7 +413,7 @@ public abstract class SIPMessage extends MessageObject implements javax2.sip.mes
             encoding.append(unrecognized).append(NEWLINE);
         }
 
-        encoding.append(contentLengthHeader.encode()).append(NEWLINE);
+        contentLengthHeader.encode(encoding).append(NEWLINE);
 
         if (this.messageContentObject != null) {
             String mbody = this.getContent().toString();
@@ -394,7 +435,6 @@ public abstract class SIPMessage extends MessageObject implements javax2.sip.mes
 
             encoding.append(content);
         }
-        return encoding.toString();
     }
 
     /**
@@ -418,47 +458,140 @@ public abstract class SIPMessage extends MessageObject implements javax2.sip.mes
             InternalErrorHandler.handleException(e);
         }
 
-        StringBuffer encoding = new StringBuffer();
-        synchronized (this.headers) {
-            Iterator<SIPHeader> it = this.headers.iterator();
+        byte[] retval = null;
+        StringBuilder encoding = acquireEncodingBuffer();
+        try {
+            encodeFirstLine(encoding);
+            synchronized (this.headers) {
+                Iterator<SIPHeader> it = this.headers.iterator();
 
-            while (it.hasNext()) {
-                SIPHeader siphdr = (SIPHeader) it.next();
-                if (!(siphdr instanceof ContentLength))
-                    siphdr.encode(encoding);
+                while (it.hasNext()) {
+                    SIPHeader siphdr = (SIPHeader) it.next();
+                    if (!(siphdr instanceof ContentLength))
+                        siphdr.encode(encoding);
 
+                }
             }
+            contentLengthHeader.encode(encoding);
+            encoding.append(NEWLINE);
+
+            // Headers may have been modified in place since the previous encoding, so it is
+            // compared rather than trusted: retransmissions of an unchanged message reuse the
+            // same bytes without allocating a new array.
+            byte[] content = this.getRawContent();
+            String charset = getCharset();
+            byte[] encoded = this.encodedBytes;
+            if (encoded != null && isSameEncoding(encoded, encoding, content, charset))
+                return encoded;
+            retval = toBytes(encoding, content, charset);
+        } catch (UnsupportedEncodingException ex) {
+            InternalErrorHandler.handleException(ex);
+        } finally {
+            releaseEncodingBuffer(encoding);
         }
-        contentLengthHeader.encode(encoding);
-        encoding.append(NEWLINE);
+        this.encodedBytes = retval;
+        return retval;
+    }
 
-        byte[] retval = null;
-        byte[] content = this.getRawContent();
-        if (content != null) {
-            // Append the content
+    /**
+     * Encode the request line or the status line at the start of the encoding returned by
+     * encodeAsBytes.
+     * 
+     * @param encoding the buffer to encode the line into.
+     */
+    protected void encodeFirstLine(StringBuilder encoding) {
+    }
 
-            byte[] msgarray = null;
-            try {
-                msgarray = encoding.toString().getBytes( getCharset() );
-            } catch (UnsupportedEncodingException ex) {
-                InternalErrorHandler.handleException(ex);
-            }
+    /**
+     * Discard the bytes kept by encodeAsBytes. The methods of the message which modify it
+     * discard them early, as they can no longer be reused.
+     */
+    public void invalidateEncoding() {
+        this.encodedBytes = null;
+    }
 
-            retval = new byte[msgarray.length + content.length];
-            System.arraycopy(msgarray, 0, retval, 0, msgarray.length);
-            System.arraycopy(content, 0, retval, msgarray.length, content.length);
-        } else {
-            // Message content does not exist.
+    /**
+     * Check if bytes returned by encodeAsBytes are those of the encoded headers followed by the
+     * content.
+     */
+    private static boolean isSameEncoding(byte[] bytes, StringBuilder encoding, byte[] content,
+            String charset) {
+        int length = encoding.length();
+        int contentLength = content == null ? 0 : content.length;
+        if (!isAsciiCompatible(charset) || bytes.length != length + contentLength)
+            return false;
+        for (int i = 0; i < length; i++) {
+            char c = encoding.charAt(i);
+            if (c >= 0x80 || bytes[i] != (byte) c)
+                return false;
+        }
+        for (int i = 0; i < contentLength; i++) {
+            if (bytes[length + i] != content[i])
+                return false;
+        }
+        return true;
+    }
 
-            try {
-                retval = encoding.toString().getBytes( getCharset() );
-            } catch (UnsupportedEncodingException ex) {
-                InternalErrorHandler.handleException(ex);
+    /**
+     * Convert the encoded headers to bytes and append the content, in a single array.
+     */
+    private static byte[] toBytes(StringBuilder encoding, byte[] content, String charset)
+            throws UnsupportedEncodingException {
+        int length = encoding.length();
+        int contentLength = content == null ? 0 : content.length;
+        byte[] retval = null;
+        if (isAsciiCompatible(charset)) {
+            // Headers are plain ASCII in almost all messages: copy them without an
+            // intermediate String and byte array.
+            retval = new byte[length + contentLength];
+            for (int i = 0; i < length; i++) {
+                char c = encoding.charAt(i);
+                if (c >= 0x80) {
+                    retval = null;
+                    break;
+                }
+                retval[i] = (byte) c;
             }
         }
+        if (retval == null) {
+            byte[] msgarray = encoding.toString().getBytes(charset);
+            length = msgarray.length;
+            retval = new byte[length + contentLength];
+            System.arraycopy(msgarray, 0, retval, 0, length);
+        }
+        if (content != null)
+            System.arraycopy(content, 0, retval, length, contentLength);
         return retval;
     }
 
+    private static boolean isAsciiCompatible(String charset) {
+        return "UTF-8".equalsIgnoreCase(charset) || "US-ASCII".equalsIgnoreCase(charset)
+                || "ISO-8859-1".equalsIgnoreCase(charset);
+    }
+
+    /**
+     * Get an empty encoding buffer. Each thread reuses the same buffer from one message to the
+     * next, so that encoding a message does not grow a new buffer.
+     */
+    protected static StringBuilder acquireEncodingBuffer() {
+        StringBuilder buffer = encodingBuffers.get();
+        if (buffer == null)
+            return new StringBuilder(ENCODING_BUFFER_SIZE);
+        // The buffer stays out of the pool while in use, in case of nested encodings.
+        encodingBuffers.set(null);
+        buffer.setLength(0);
+        return buffer;
+    }
+
+    /**
+     * Give back an encoding buffer acquired by acquireEncodingBuffer.
+     */
+    protected static void releaseEncodingBuffer(StringBuilder buffer) {
+        // Do not keep a buffer grown by a large body.
+        if (buffer.capacity() <= MAX_POOLED_ENCODING_BUFFER_SIZE)
+            encodingBuffers.set(buffer);
+    }
+
     /**
      * clone this message (create a new deep physical copy). All headers in the message are
      * cloned. You can modify the cloned copy without affecting the original. The content is
@@ -470,7 +603,10 @@ public abstract class SIPMessage extends MessageObject implements javax2.sip.mes
      * @return A cloned copy of this object.
      */
     public Object clone() {
+        this.parseAllHeaders();
         SIPMessage retval = (SIPMessage) super.clone();
+        retval.rawHeaders = null;
+        retval.encodedBytes = null;
         retval.nameTable = new Hashtable<String, SIPHeader>();
         retval.fromHeader = null;
         retval.toHeader = null;
@@ -521,6 +657,7 @@ public abstract class SIPMessage extends MessageObject implements javax2.sip.mes
             InternalErrorHandler.handleException(ex);
         }
 
+        parseAllHeaders();
         sprint("List of headers : ");
         sprint(headers.toString());
         sprint("messageContent = ");
@@ -641,6 +778,7 @@ public abstract class SIPMessage extends MessageObject implements javax2.sip.mes
         if (header == null) {
             throw new NullPointerException("null header");
         }
+        this.encodedBytes = null;
 
         SIPHeader h;
 
@@ -653,6 +791,8 @@ public abstract class SIPMessage extends MessageObject implements javax2.sip.mes
         }
 
         String headerNameLowerCase = SIPHeaderNamesCache.toLowerCase(h.getName());
+        // Received headers of the same name go first.
+        ensureParsed(headerNameLowerCase);
         if (replaceFlag) {
             nameTable.remove(headerNameLowerCase);
         } else if (nameTable.containsKey(headerNameLowerCase) && !(h instanceof SIPHeaderList)) {
@@ -722,7 +862,9 @@ public abstract class SIPMessage extends MessageObject implements javax2.sip.mes
      */
     public void removeHeader(String headerName, boolean top) {
 
+        this.encodedBytes = null;
         String headerNameLowerCase = SIPHeaderNamesCache.toLowerCase(headerName);
+        ensureParsed(headerNameLowerCase);
         SIPHeader toRemove = (SIPHeader) nameTable.get(headerNameLowerCase);
         // nothing to do then we are done.
         if (toRemove == null)
@@ -780,7 +922,9 @@ public abstract class SIPMessage extends MessageObject implements javax2.sip.mes
 
         if (headerName == null)
             throw new NullPointerException("null arg");
+        this.encodedBytes = null;
         String headerNameLowerCase = SIPHeaderNamesCache.toLowerCase(headerName);
+        removeRawHeaders(headerNameLowerCase);
         SIPHeader removed = (SIPHeader) nameTable.remove(headerNameLowerCase);
         // nothing to do then we are done.
         if (removed == null)
@@ -848,7 +992,7 @@ public abstract class SIPMessage extends MessageObject implements javax2.sip.mes
         } else {
             // Old style client so construct the transaction identifier
             // from various fields of the request.
-            StringBuffer retval = new StringBuffer();
+            StringBuilder retval = new StringBuilder();
             From from = (From) this.getFrom();
             To to = (To) this.getTo();
             // String hpFrom = from.getUserAtHostPort();
@@ -901,6 +1045,7 @@ public abstract class SIPMessage extends MessageObject implements javax2.sip.mes
      * @return an Iterator for the headers of this message.
      */
     public Iterator<SIPHeader> getHeaders() {
+        parseAllHeaders();
         return headers.iterator();
     }
 
@@ -916,6 +1061,7 @@ public abstract class SIPMessage extends MessageObject implements javax2.sip.mes
     private Header getHeaderLowerCase(String lowerCaseHeaderName) {
         if (lowerCaseHeaderName == null)
             throw new NullPointerException("bad name");
+        ensureParsed(lowerCaseHeaderName);
         SIPHeader sipHeader = (SIPHeader) nameTable.get(lowerCaseHeaderName);
         if (sipHeader instanceof SIPHeaderList)
             return (Header) ((SIPHeaderList) sipHeader).getFirst();
@@ -1119,6 +1265,7 @@ public abstract class SIPMessage extends MessageObject implements javax2.sip.mes
             this.setHeader(new CallID());
         }
         callIdHeader.setCallId(callId);
+        this.encodedBytes = null;
     }
 
     /**
@@ -1341,6 +1488,7 @@ public abstract class SIPMessage extends MessageObject implements javax2.sip.mes
      * @param content is the content, as String, array of bytes, or other object.
      */
     private void computeContentLength(Object content) {
+        this.encodedBytes = null;
         int length = 0;
         if (content != null) {
             if (content instanceof String) {
@@ -1367,6 +1515,7 @@ public abstract class SIPMessage extends MessageObject implements javax2.sip.mes
      * Remove the message content if it exists.
      */
     public void removeContent() {
+        this.encodedBytes = null;
         messageContent = null;
         messageContentBytes = null;
         messageContentObject = null;
@@ -1386,8 +1535,9 @@ public abstract class SIPMessage extends MessageObject implements javax2.sip.mes
     public ListIterator<SIPHeader> getHeaders(String headerName) {
         if (headerName == null)
             throw new NullPointerException("null headerName");
-        SIPHeader sipHeader = (SIPHeader) nameTable.get(SIPHeaderNamesCache
-                .toLowerCase(headerName));
+        String lowerCaseHeaderName = SIPHeaderNamesCache.toLowerCase(headerName);
+        ensureParsed(lowerCaseHeaderName);
+        SIPHeader sipHeader = (SIPHeader) nameTable.get(lowerCaseHeaderName);
         // empty iterator
         if (sipHeader == null)
             return new LinkedList<SIPHeader>().listIterator();
@@ -1407,6 +1557,7 @@ public abstract class SIPMessage extends MessageObject implements javax2.sip.mes
      */
     public String getHeaderAsFormattedString(String name) {
         String lowerCaseName = name.toLowerCase();
+        ensureParsed(lowerCaseName);
         if (this.nameTable.containsKey(lowerCaseName)) {
             return this.nameTable.get(lowerCaseName).toString();
         } else {
@@ -1415,6 +1566,7 @@ public abstract class SIPMessage extends MessageObject implements javax2.sip.mes
     }
 
     private SIPHeader getSIPHeaderListLowerCase(String lowerCaseHeaderName) {
+        ensureParsed(lowerCaseHeaderName);
         return nameTable.get(lowerCaseHeaderName);
     }
 
@@ -1426,8 +1578,9 @@ public abstract class SIPMessage extends MessageObject implements javax2.sip.mes
      */
     @SuppressWarnings("unchecked")
     private List<SIPHeader> getHeaderList(String headerName) {
-        SIPHeader sipHeader = (SIPHeader) nameTable.get(SIPHeaderNamesCache
-                .toLowerCase(headerName));
+        String lowerCaseHeaderName = SIPHeaderNamesCache.toLowerCase(headerName);
+        ensureParsed(lowerCaseHeaderName);
+        SIPHeader sipHeader = (SIPHeader) nameTable.get(lowerCaseHeaderName);
         if (sipHeader == null)
             return null;
         else if (sipHeader instanceof SIPHeaderList)
@@ -1446,7 +1599,15 @@ public abstract class SIPMessage extends MessageObject implements javax2.sip.mes
      * @return true if the header is present in the message
      */
     public boolean hasHeader(String headerName) {
-        return nameTable.containsKey(SIPHeaderNamesCache.toLowerCase(headerName));
+        String lowerCaseHeaderName = SIPHeaderNamesCache.toLowerCase(headerName);
+        if (nameTable.containsKey(lowerCaseHeaderName))
+            return true;
+        LinkedHashMap<String, LinkedList<RawHeader>> raw = this.rawHeaders;
+        if (raw == null)
+            return false;
+        synchronized (raw) {
+            return raw.containsKey(lowerCaseHeaderName);
+        }
     }
 
     /**
@@ -1483,6 +1644,7 @@ public abstract class SIPMessage extends MessageObject implements javax2.sip.mes
      * @param tag -- tag to set in the from header.
      */
     public void setFromTag(String tag) {
+        this.encodedBytes = null;
         try {
             fromHeader.setTag(tag);
         } catch (ParseException e) {
@@ -1495,6 +1657,7 @@ public abstract class SIPMessage extends MessageObject implements javax2.sip.mes
      * @param tag -- tag to set.
      */
     public void setToTag(String tag) {
+        this.encodedBytes = null;
         try {
             toHeader.setTag(tag);
         } catch (ParseException e) {
@@ -1544,6 +1707,7 @@ public abstract class SIPMessage extends MessageObject implements javax2.sip.mes
      * @param unparsed -- unparsed header to add to the list.
      */
     public void addUnparsed(String unparsed) {
+        this.encodedBytes = null;
         this.unrecognizedHeaders.add(unparsed);
     }
 
@@ -1560,16 +1724,147 @@ public abstract class SIPMessage extends MessageObject implements javax2.sip.mes
             SIPHeader sh = parser.parse();
             this.attachHeader(sh, false);
         } catch (ParseException ex) {
+            this.encodedBytes = null;
             this.unrecognizedHeaders.add(hdrString);
         }
     }
 
+    /**
+     * Add a received header which is parsed only when it is first accessed. Called by the
+     * parser when lazy header parsing is enabled.
+     *
+     * @param rawHeader -- the header as received, named in lower case.
+     */
+    public void addRawHeader(RawHeader rawHeader) {
+        LinkedHashMap<String, LinkedList<RawHeader>> raw = this.rawHeaders;
+        if (raw == null) {
+            raw = new LinkedHashMap<String, LinkedList<RawHeader>>();
+            this.rawHeaders = raw;
+        }
+        synchronized (raw) {
+            LinkedList<RawHeader> list = raw.get(rawHeader.getHeaderName());
+            if (list == null) {
+                list = new LinkedList<RawHeader>();
+                raw.put(rawHeader.getHeaderName(), list);
+            }
+            list.add(rawHeader);
+            this.headers.add(rawHeader);
+        }
+    }
+
+    /**
+     * Parse the received headers of the given name which have not been parsed yet.
+     *
+     * @param lowerCaseHeaderName -- lower case name of the headers.
+     */
+    protected void ensureParsed(String lowerCaseHeaderName) {
+        LinkedHashMap<String, LinkedList<RawHeader>> raw = this.rawHeaders;
+        if (raw == null)
+            return;
+        synchronized (raw) {
+            LinkedList<RawHeader> list = raw.remove(lowerCaseHeaderName);
+            if (list == null)
+                return;
+            parseRawHeaders(list);
+            // Only dropped once the headers are attached, see rawHeaders.
+            if (raw.isEmpty() && this.rawHeaders == raw)
+                this.rawHeaders = null;
+        }
+    }
+
+    /**
+     * Parse all the received headers which have not been parsed yet.
+     */
+    protected void parseAllHeaders() {
+        LinkedHashMap<String, LinkedList<RawHeader>> raw = this.rawHeaders;
+        if (raw == null)
+            return;
+        synchronized (raw) {
+            while (!raw.isEmpty()) {
+                String name = raw.keySet().iterator().next();
+                parseRawHeaders(raw.remove(name));
+            }
+            if (this.rawHeaders == raw)
+                this.rawHeaders = null;
+        }
+    }
+
+    /**
+     * Parse the raw headers of a given name and put the parsed header in the header list at the
+     * position of the first of them, so that the headers keep their received order.
+     *
+     * @param rawList -- the raw headers of a given name.
+     */
+    private void parseRawHeaders(LinkedList<RawHeader> rawList) {
+        Set<SIPHeader> previousHeaders = Collections
+                .newSetFromMap(new IdentityHashMap<SIPHeader, Boolean>());
+        previousHeaders.addAll(this.headers);
+        // Each new header is appended to the header list, or merged into a header list of the
+        // same name already present.
+        for (RawHeader rawHeader : rawList) {
+            parseRawHeader(rawHeader);
+        }
+        synchronized (this.headers) {
+            // Detach the headers from the first raw header on, then append them again with the
+            // new headers in place of the raw ones.
+            LinkedList<SIPHeader> newHeaders = new LinkedList<SIPHeader>();
+            LinkedList<SIPHeader> nextHeaders = new LinkedList<SIPHeader>();
+            boolean detaching = false;
+            Iterator<SIPHeader> it = this.headers.iterator();
+            while (it.hasNext()) {
+                SIPHeader header = it.next();
+                boolean isRaw = rawList.contains(header);
+                detaching |= isRaw;
+                if (!detaching)
+                    continue;
+                it.remove();
+                if (!previousHeaders.contains(header))
+                    newHeaders.add(header);
+                else if (!isRaw)
+                    nextHeaders.add(header);
+            }
+            this.headers.addAll(newHeaders);
+            this.headers.addAll(nextHeaders);
+        }
+    }
+
+    private void parseRawHeader(RawHeader rawHeader) {
+        // Same error handling as the parser for the headers which are not mandatory: a header
+        // which cannot be parsed is kept as an unrecognized header.
+        String header = rawHeader.getHeaderLine();
+        try {
+            SIPHeader sipHeader = ParserFactory.createParser(header + "\n").parse();
+            this.attachHeader(sipHeader, false);
+        } catch (ParseException ex) {
+            this.unrecognizedHeaders.add(header);
+        }
+    }
+
+    private void removeRawHeaders(String lowerCaseHeaderName) {
+        LinkedHashMap<String, LinkedList<RawHeader>> raw = this.rawHeaders;
+        if (raw == null)
+            return;
+        synchronized (raw) {
+            LinkedList<RawHeader> list = raw.remove(lowerCaseHeaderName);
+            if (list != null) {
+                Iterator<SIPHeader> it = this.headers.iterator();
+                while (it.hasNext()) {
+                    if (list.contains(it.next()))
+                        it.remove();
+                }
+            }
+            if (raw.isEmpty() && this.rawHeaders == raw)
+                this.rawHeaders = null;
+        }
+    }
+
     /**
      * Get a list containing the unrecognized headers.
      * 
      * @return a linked list containing unrecongnized headers.
      */
     public ListIterator<String> getUnrecognizedHeaders() {
+        parseAllHeaders();
         return this.unrecognizedHeaders.listIterator();
     }
 
@@ -1580,6 +1875,7 @@ public abstract class SIPMessage extends MessageObject implements javax2.sip.mes
      *         are present in the message.
      */
     public ListIterator<String> getHeaderNames() {
+        parseAllHeaders();
         Iterator<SIPHeader> li = this.headers.iterator();
         LinkedList<String> retval = new LinkedList<String>();
         while (li.hasNext()) {
@@ -1600,6 +1896,8 @@ public abstract class SIPMessage extends MessageObject implements javax2.sip.mes
             return false;
         }
         SIPMessage otherMessage = (SIPMessage) other;
+        this.parseAllHeaders();
+        otherMessage.parseAllHeaders();
         Collection<SIPHeader> values = this.nameTable.values();
         Iterator<SIPHeader> it = values.iterator();
         if (nameTable.size() != otherMessage.nameTable.size()) {
@@ -1703,6 +2001,7 @@ public abstract class SIPMessage extends MessageObject implements javax2.sip.mes
      * @param contentLength -- content length header.
      */
     public void setContentLength(ContentLengthHeader contentLength) {
+        this.encodedBytes = null;
         try {
             this.contentLengthHeader.setContentLength(contentLength.getContentLength());
         } catch (InvalidArgumentException ex) {
@@ -1882,6 +2181,7 @@ public abstract class SIPMessage extends MessageObject implements javax2.sip.mes
      * 
      */
     public void setNullRequest() {
+        this.encodedBytes = null;
         this.nullRequest = true;
     }
     
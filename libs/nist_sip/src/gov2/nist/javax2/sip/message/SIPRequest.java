@@ -33,7 +33,6 @@ import java.util.HashSet;
 import java.util.Hashtable;
 import java.util.LinkedList;
 import java.util.Set;
-import java.io.UnsupportedEncodingException;
 import java.util.Iterator;
 
 import java.text.ParseException;
@@ -97,6 +96,12 @@ public final class SIPRequest extends SIPMessage implements javax2.sip.message.R
      */
     private static final Set<String> targetRefreshMethods = new HashSet<String>();
 
+    private static final String RECORD_ROUTE_LOWERCASE = SIPHeaderNamesCache
+            .toLowerCase(RecordRouteHeader.NAME);
+
+    private static final String TIMESTAMP_LOWERCASE = SIPHeaderNamesCache
+            .toLowerCase(TimeStampHeader.NAME);
+
     /*
      * A table that maps a name string to its cannonical constant. This is used to speed up
      * parsing of messages .equals reduces to == if we use the constant value.
@@ -178,6 +183,7 @@ public final class SIPRequest extends SIPMessage implements javax2.sip.message.R
      */
 
     public void setRequestLine(RequestLine requestLine) {
+        invalidateEncoding();
         this.requestLine = requestLine;
     }
 
@@ -377,6 +383,7 @@ public final class SIPRequest extends SIPMessage implements javax2.sip.message.R
         if ( uri == null ) {
             throw new NullPointerException("Null request URI");
         }
+        invalidateEncoding();
         if (this.requestLine == null) {
             this.requestLine = new RequestLine();
         }
@@ -393,6 +400,7 @@ public final class SIPRequest extends SIPMessage implements javax2.sip.message.R
     public void setMethod(String method) {
         if (method == null)
             throw new IllegalArgumentException("null method");
+        invalidateEncoding();
         if (this.requestLine == null) {
             this.requestLine = new RequestLine();
         }
@@ -546,7 +554,7 @@ public final class SIPRequest extends SIPMessage implements javax2.sip.message.R
      */
     public String getDialogId(boolean isServer) {
         CallID cid = (CallID) this.getCallId();
-        StringBuffer retval = new StringBuffer(cid.getCallId());
+        StringBuilder retval = new StringBuilder(cid.getCallId());
         From from = (From) this.getFrom();
         To to = (To) this.getTo();
         if (!isServer) {
@@ -582,7 +590,7 @@ public final class SIPRequest extends SIPMessage implements javax2.sip.message.R
     public String getDialogId(boolean isServer, String toTag) {
         From from = (From) this.getFrom();
         CallID cid = (CallID) this.getCallId();
-        StringBuffer retval = new StringBuffer(cid.getCallId());
+        StringBuilder retval = new StringBuilder(cid.getCallId());
         if (!isServer) {
             // retval.append(COLON).append(from.getUserAtHostPort());
             if (from.getTag() != null) {
@@ -623,20 +631,14 @@ public final class SIPRequest extends SIPMessage implements javax2.sip.message.R
         } else if ( this.requestLine == null ) {
             return new byte[0];
         }
+        return super.encodeAsBytes(transport);
+    }
 
-        byte[] rlbytes = null;
-        if (requestLine != null) {
-            try {
-                rlbytes = requestLine.encode().getBytes("UTF-8");
-            } catch (UnsupportedEncodingException ex) {
-                InternalErrorHandler.handleException(ex);
-            }
-        }
-        byte[] superbytes = super.encodeAsBytes(transport);
-        byte[] retval = new byte[rlbytes.length + superbytes.length];
-        System.arraycopy(rlbytes, 0, retval, 0, rlbytes.length);
-        System.arraycopy(superbytes, 0, retval, rlbytes.length, superbytes.length);
-        return retval;
+    /**
+     * Encode the request line at the start of the byte array encoding.
+     */
+    protected void encodeFirstLine(StringBuilder encoding) {
+        requestLine.encode(encoding);
     }
 
     /**
@@ -693,7 +695,10 @@ public final class SIPRequest extends SIPMessage implements javax2.sip.message.R
             newResponse.setReasonPhrase(reasonPhrase);
         else
             newResponse.setReasonPhrase(SIPResponse.getReasonPhrase(statusCode));
-        headerIterator = getHeaders();
+        // Only the headers copied to the response need to be parsed.
+        ensureParsed(RECORD_ROUTE_LOWERCASE);
+        ensureParsed(TIMESTAMP_LOWERCASE);
+        headerIterator = headers.iterator();
         while (headerIterator.hasNext()) {
             nextHeader = (SIPHeader) headerIterator.next();
             if (nextHeader instanceof From
@@ -1107,6 +1112,7 @@ public final class SIPRequest extends SIPMessage implements javax2.sip.message.R
     public void setSIPVersion(String sipVersion) throws ParseException {
         if (sipVersion == null || !sipVersion.equalsIgnoreCase("SIP/2.0"))
             throw new ParseException("sipVersion", 0);
+        invalidateEncoding();
         this.requestLine.setSipVersion(sipVersion);
     }
 
@@ -1180,7 +1186,7 @@ public final class SIPRequest extends SIPMessage implements javax2.sip.message.R
         String requestUri = this.getRequestURI().toString();
 
         if (fromTag != null) {
-            return new StringBuffer().append(requestUri).append(":").append(fromTag).append(":").append(cseq).append(":")
+            return new StringBuilder().append(requestUri).append(":").append(fromTag).append(":").append(cseq).append(":")
                     .append(callId).toString();
         } else
             return null;
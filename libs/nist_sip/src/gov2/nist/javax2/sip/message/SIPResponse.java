@@ -28,7 +28,6 @@
  *******************************************************************************/
 package gov2.nist.javax2.sip.message;
 
-import gov2.nist.core.InternalErrorHandler;
 import gov2.nist.javax2.sip.Utils;
 import gov2.nist.javax2.sip.address.SipUri;
 import gov2.nist.javax2.sip.header.CSeq;
@@ -48,7 +47,6 @@ import gov2.nist.javax2.sip.header.Via;
 import gov2.nist.javax2.sip.header.ViaList;
 import gov2.nist.javax2.sip.header.extensions.SessionExpires;
 
-import java.io.UnsupportedEncodingException;
 import java.text.ParseException;
 import java.util.Iterator;
 import java.util.LinkedList;
@@ -309,6 +307,7 @@ public final class SIPResponse
       // but in practice up to 699 since the 6xx range is defined as 'final error')
         if (statusCode < 100 || statusCode > 699)
             throw new ParseException("bad status code", 0);
+        invalidateEncoding();
         if (this.statusLine == null)
             this.statusLine = new StatusLine();
         this.statusLine.setStatusCode(statusCode);
@@ -336,6 +335,7 @@ public final class SIPResponse
     public void setReasonPhrase(String reasonPhrase) {
         if (reasonPhrase == null)
             throw new IllegalArgumentException("Bad reason phrase");
+        invalidateEncoding();
         if (this.statusLine == null)
             this.statusLine = new StatusLine();
         this.statusLine.setReasonPhrase(reasonPhrase);
@@ -371,6 +371,7 @@ public final class SIPResponse
      *@param sl Status line to set.
      */
     public void setStatusLine(StatusLine sl) {
+        invalidateEncoding();
         statusLine = sl;
     }
 
@@ -522,33 +523,14 @@ public final class SIPResponse
 
     }
 
-    /** Encode this into a byte array.
-     * This is used when the body has been set as a binary array
-     * and you want to encode the body as a byte array for transmission.
-     *
-     *@return a byte array containing the SIPRequest encoded as a byte
-     *  array.
+    /**
+     * Encode the status line at the start of the byte array encoding.
      */
-
-    public byte[] encodeAsBytes( String transport ) {
-        byte[] slbytes = null;
-        if (statusLine != null) {
-            try {
-                slbytes = statusLine.encode().getBytes("UTF-8");
-            } catch (UnsupportedEncodingException ex) {
-                InternalErrorHandler.handleException(ex);
-            }
-        }
-        byte[] superbytes = super.encodeAsBytes( transport );
-        byte[] retval = new byte[slbytes.length + superbytes.length];
-        System.arraycopy(slbytes, 0, retval, 0, slbytes.length);
-        System.arraycopy(superbytes, 0, retval, slbytes.length,
-                superbytes.length);
-        return retval;
+    protected void encodeFirstLine(StringBuilder encoding) {
+        if (statusLine != null)
+            encoding.append(statusLine.encode());
     }
 
-
-
     /** Get a dialog identifier.
      * Generates a string that can be used as a dialog identifier.
      *
@@ -559,7 +541,7 @@ public final class SIPResponse
         CallID cid = (CallID) this.getCallId();
         From from = (From) this.getFrom();
         To to = (To) this.getTo();
-        StringBuffer retval = new StringBuffer(cid.getCallId());
+        StringBuilder retval = new StringBuilder(cid.getCallId());
         if (!isServer) {
             //retval.append(COLON).append(from.getUserAtHostPort());
             if (from.getTag() != null) {
@@ -589,7 +571,7 @@ public final class SIPResponse
     public String getDialogId(boolean isServer, String toTag) {
         CallID cid = (CallID) this.getCallId();
         From from = (From) this.getFrom();
-        StringBuffer retval = new StringBuffer(cid.getCallId());
+        StringBuilder retval = new StringBuilder(cid.getCallId());
         if (!isServer) {
             //retval.append(COLON).append(from.getUserAtHostPort());
             if (from.getTag() != null) {
@@ -657,6 +639,7 @@ public final class SIPResponse
     }
 
     public void setSIPVersion(String sipVersion) {
+        invalidateEncoding();
         this.statusLine.setSipVersion(sipVersion);
     }
 
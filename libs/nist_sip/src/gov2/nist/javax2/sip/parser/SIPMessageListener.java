@@ -31,10 +31,10 @@ import gov2.nist.javax2.sip.message.*;
 
 /**
  * Interface  that provides methods for processing good
- * and bad messages for the PipelinedMessageParser.
+ * and bad messages for the message channels.
  *
  * @version 1.2 $Revision: 1.8 $ $Date: 2009/07/17 18:58:04 $
- * @see PipelinedMsgParser
+ * @see StringMsgParser
  */
 public interface SIPMessageListener extends ParseExceptionListener {
     /**
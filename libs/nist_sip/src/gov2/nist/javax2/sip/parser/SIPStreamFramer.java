@@ -0,0 +1,327 @@
+/*
+ * Conditions Of Use
+ *
+ * This software was developed by employees of the National Institute of
+ * Standards and Technology (NIST), an agency of the Federal Government.
+ * Pursuant to title 15 Untied States Code Section 105, works of NIST
+ * employees are not subject to copyright protection in the United States
+ * and are considered to be in the public domain.  As a result, a formal
+ * license is not needed to use the software.
+ *
+ * This software is provided by NIST as a service and is expressly
+ * provided "AS IS."  NIST MAKES NO WARRANTY OF ANY KIND, EXPRESS, IMPLIED
+ * OR STATUTORY, INCLUDING, WITHOUT LIMITATION, THE IMPLIED WARRANTY OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE, NON-INFRINGEMENT
+ * AND DATA ACCURACY.  NIST does not warrant or make any representations
+ * regarding the use of the software or the results thereof, including but
+ * not limited to the correctness, accuracy, reliability or usefulness of
+ * the software.
+ *
+ * Permission to use this software is contingent upon your acceptance
+ * of the terms of this agreement
+ *
+ * .
+ *
+ */
+package gov2.nist.javax2.sip.parser;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Framing of the SIP messages received on a stream connection (TCP or TLS).<br/>
+ * The received bytes are appended in chunks, as they are read from the connection. A message
+ * is complete once its empty header line and the number of body bytes given by its
+ * Content-Length header have been received, and is then returned as an array of bytes for
+ * {@link StringMsgParser#parseSIPMessage(byte[])}. Empty lines between messages (CRLF
+ * keep-alives) are skipped.
+ * <p>
+ * The end of the headers is searched two bytes at a time, only the runs of CR and LF bytes
+ * being examined byte per byte, and the search resumes where the previous one stopped. A
+ * framer is not thread safe: it is meant to be used by the thread reading the connection.
+ *
+ * @see StringMsgParser
+ */
+public final class SIPStreamFramer {
+
+    private static final int INITIAL_BUFFER_SIZE = 4 * 1024;
+
+    // Maximum size of a message when the stack sets no limit.
+    public static final int DEFAULT_MAX_MESSAGE_SIZE = 16 * 1024 * 1024;
+
+    // Minimum room left for a read from an input stream.
+    private static final int MIN_READ_SIZE = 1024;
+
+    private static final byte CR = '\r';
+
+    private static final byte LF = '\n';
+
+    private final int maxMessageSize;
+
+    private byte[] buffer = new byte[INITIAL_BUFFER_SIZE];
+
+    // Start of the current message and end of the received bytes.
+    private int start;
+
+    private int end;
+
+    // Where to resume the search of the empty header line.
+    private int scanPosition;
+
+    // Length of the headers of the current message, -1 if not yet received.
+    private int headerLength = -1;
+
+    private int contentLength;
+
+    // Number of body bytes of an oversized message still to drop.
+    private int discardLength;
+
+    private boolean truncated;
+
+    /**
+     * Constructor.
+     *
+     * @param maxMessageSize maximum size of a message, 0 for the default maximum size.
+     */
+    public SIPStreamFramer(int maxMessageSize) {
+        // The buffer holds a whole message: it cannot grow without limit.
+        this.maxMessageSize = maxMessageSize > 0 ? maxMessageSize : DEFAULT_MAX_MESSAGE_SIZE;
+    }
+
+    /**
+     * Read bytes from an input stream directly into the buffer of the framer. Blocks as the
+     * read method of the stream.
+     *
+     * @param in the input stream of the connection.
+     * @return the number of bytes read, or -1 at the end of the stream.
+     */
+    public int read(InputStream in) throws IOException {
+        ensureRoom(MIN_READ_SIZE);
+        int length = in.read(buffer, end, buffer.length - end);
+        if (length > 0)
+            end += length;
+        return length;
+    }
+
+    /**
+     * Append received bytes.
+     *
+     * @param bytes the received bytes.
+     * @param offset offset of the first received byte.
+     * @param length number of received bytes.
+     */
+    public void append(byte[] bytes, int offset, int length) {
+        ensureRoom(length);
+        System.arraycopy(bytes, offset, buffer, end, length);
+        end += length;
+    }
+
+    /**
+     * Append received bytes.
+     *
+     * @param data the received bytes, between the position and the limit of the buffer.
+     */
+    public void append(ByteBuffer data) {
+        int length = data.remaining();
+        ensureRoom(length);
+        data.get(buffer, end, length);
+        end += length;
+    }
+
+    /**
+     * Make room for the given number of bytes after the received bytes, by moving the pending
+     * bytes to the beginning of the buffer or by growing it.
+     */
+    private void ensureRoom(int length) {
+        if (buffer.length - end >= length)
+            return;
+        int pending = end - start;
+        if (start > 0 && buffer.length - pending >= length) {
+            System.arraycopy(buffer, start, buffer, 0, pending);
+        } else {
+            byte[] newBuffer = new byte[Math.max(buffer.length * 2, pending + length)];
+            System.arraycopy(buffer, start, newBuffer, 0, pending);
+            buffer = newBuffer;
+        }
+        scanPosition -= start;
+        start = 0;
+        end = pending;
+    }
+
+    /**
+     * Get the next complete message.<br/>
+     * A message whose headers fit the maximum size but whose body does not is returned without
+     * its body, so that it can be answered, and {@link #isTruncated()} returns true until the
+     * next message. Its body is dropped as it is received.
+     *
+     * @return the bytes of the message, or null if the message is not complete yet.
+     * @throws IOException if the headers exceed the maximum size or the Content-Length header
+     *         is invalid: the connection cannot be resynchronized.
+     */
+    public byte[] next() throws IOException {
+        truncated = false;
+        if (discardLength > 0) {
+            int length = Math.min(discardLength, end - start);
+            start += length;
+            discardLength -= length;
+            if (discardLength > 0) {
+                start = end = scanPosition = 0;
+                return null;
+            }
+        }
+        if (headerLength == -1) {
+            // Skip the keep-alives.
+            while (start < end && (buffer[start] == CR || buffer[start] == LF)) {
+                start++;
+            }
+            if (scanPosition < start)
+                scanPosition = start;
+            int headerEnd = findHeaderEnd();
+            if (headerEnd == -1) {
+                if (end - start > maxMessageSize)
+                    throw new IOException("Max message size exceeded");
+                if (start == end) {
+                    // Nothing pending, restart at the beginning of the buffer.
+                    start = end = scanPosition = 0;
+                    if (buffer.length > INITIAL_BUFFER_SIZE * 4)
+                        buffer = new byte[INITIAL_BUFFER_SIZE];
+                }
+                return null;
+            }
+            headerLength = headerEnd - start;
+            contentLength = parseContentLength(start, headerEnd);
+            if (contentLength > Integer.MAX_VALUE - headerLength)
+                throw new IOException("Invalid Content-Length");
+            if (headerLength > maxMessageSize)
+                throw new IOException("Max message size exceeded");
+            if (contentLength > maxMessageSize - headerLength) {
+                // Deliver the headers only and drop the body.
+                truncated = true;
+                discardLength = contentLength;
+                contentLength = 0;
+            }
+        }
+        int messageLength = headerLength + contentLength;
+        if (end - start < messageLength)
+            return null;
+        byte[] message = new byte[messageLength];
+        System.arraycopy(buffer, start, message, 0, messageLength);
+        start += messageLength;
+        scanPosition = start;
+        headerLength = -1;
+        return message;
+    }
+
+    /**
+     * Returns true if the last message returned by {@link #next()} has been truncated to its
+     * headers because it exceeds the maximum size.
+     */
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    /**
+     * Returns true if bytes of an incomplete message have been received, false if the framer
+     * is between two messages.
+     */
+    public boolean isPartial() {
+        return headerLength != -1 || discardLength > 0 || start < end;
+    }
+
+    /**
+     * Find the empty line ending the headers: two LF separated by CR only. The lines may end
+     * with CRLF or with LF alone.
+     *
+     * @return the index following the empty line, or -1 if not received yet.
+     */
+    private int findHeaderEnd() {
+        byte[] bytes = this.buffer;
+        int i = scanPosition;
+        while (i < end) {
+            byte b = bytes[i];
+            if (b != LF && b != CR) {
+                // The empty line is made of two line ending bytes at least: one of them is at
+                // i + 1 or beyond.
+                i += 2;
+                continue;
+            }
+            // Walk the whole run of line ending bytes, from its beginning.
+            int j = i;
+            while (j > start && (bytes[j - 1] == LF || bytes[j - 1] == CR)) {
+                j--;
+            }
+            boolean lineFeed = false;
+            for (; j < end && (bytes[j] == LF || bytes[j] == CR); j++) {
+                if (bytes[j] == LF) {
+                    if (lineFeed)
+                        return j + 1;
+                    lineFeed = true;
+                }
+            }
+            i = j + 1;
+        }
+        // The run at the end of the received bytes is walked again from its beginning.
+        scanPosition = end;
+        return -1;
+    }
+
+    /**
+     * Get the value of the Content-Length header (or its compact form l).
+     *
+     * @return the content length, 0 if the header is missing.
+     */
+    private int parseContentLength(int from, int to) throws IOException {
+        int lineStart = from;
+        while (lineStart < to) {
+            int lineEnd = lineStart;
+            while (lineEnd < to && buffer[lineEnd] != LF) {
+                lineEnd++;
+            }
+            int colon = -1;
+            if (matches(lineStart, lineEnd, "content-length")) {
+                colon = lineStart + 14;
+            } else if (matches(lineStart, lineEnd, "l")) {
+                colon = lineStart + 1;
+            }
+            if (colon != -1) {
+                while (colon < lineEnd && (buffer[colon] == ' ' || buffer[colon] == '\t')) {
+                    colon++;
+                }
+                if (colon < lineEnd && buffer[colon] == ':')
+                    return parseNumber(colon + 1, lineEnd);
+            }
+            lineStart = lineEnd + 1;
+        }
+        return 0;
+    }
+
+    private boolean matches(int from, int to, String name) {
+        if (to - from < name.length())
+            return false;
+        for (int i = 0; i < name.length(); i++) {
+            if ((buffer[from + i] | 0x20) != name.charAt(i))
+                return false;
+        }
+        return true;
+    }
+
+    private int parseNumber(int from, int to) throws IOException {
+        long value = 0;
+        int digits = 0;
+        for (int i = from; i < to; i++) {
+            byte b = buffer[i];
+            if (b >= '0' && b <= '9') {
+                value = value * 10 + (b - '0');
+                if (value > Integer.MAX_VALUE)
+                    throw new IOException("Invalid Content-Length");
+                digits++;
+            } else if (b != ' ' && b != '\t' && b != CR) {
+                throw new IOException("Invalid Content-Length");
+            }
+        }
+        if (digits == 0)
+            throw new IOException("Invalid Content-Length");
+        return (int) value;
+    }
+}
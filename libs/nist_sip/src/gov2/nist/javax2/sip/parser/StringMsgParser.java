@@ -38,12 +38,16 @@ import gov2.nist.javax2.sip.address.GenericURI;
 import gov2.nist.javax2.sip.address.SipUri;
 import gov2.nist.javax2.sip.address.TelephoneNumber;
 import gov2.nist.javax2.sip.header.*;
+import gov2.nist.javax2.sip.message.RawHeader;
 import gov2.nist.javax2.sip.message.SIPMessage;
 import gov2.nist.javax2.sip.message.SIPRequest;
 import gov2.nist.javax2.sip.message.SIPResponse;
 
 import java.io.UnsupportedEncodingException;
 import java.text.ParseException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
 /*
  * Acknowledgement: 1/12/2007: Yanick Belanger rewrote the parsing loops to make them
  * simpler and quicker.
@@ -59,9 +63,10 @@ import java.text.ParseException;
  * accessible from the parsed message using the getContent and getContentBytes
  * methods provided by the SIPMessage class. If SDP parsing is enabled using the
  * parseContent method, then the SDP body is also parsed and can be accessed
- * from the message using the getSDPAnnounce method. Currently only eager
- * parsing of the message is supported (i.e. the entire message is parsed in one
- * feld swoop).
+ * from the message using the getSDPAnnounce method. By default the entire
+ * message is parsed in one feld swoop. When lazy header parsing is enabled, the
+ * headers which are not needed by the transaction layer are only located in the
+ * buffer and are parsed by the message the first time they are accessed.
  *
  *
  * @version 1.2 $Revision: 1.26 $ $Date: 2009/10/22 10:27:38 $
@@ -79,6 +84,13 @@ public class StringMsgParser {
 
     private static boolean computeContentLengthFromMessage = false;
 
+    private static boolean lazyHeaderParsing = false;
+
+    // Headers always parsed at once, even when lazy header parsing is enabled: the transaction
+    // layer needs them for every message. Compact forms are parsed at once as well.
+    private static final Set<String> EAGER_HEADERS = new HashSet<String>(Arrays.asList(
+            "via", "from", "to", "call-id", "cseq", "content-length", "max-forwards"));
+
     /**
      * @since v0.9
      */
@@ -110,6 +122,17 @@ public class StringMsgParser {
         parseExceptionListener = pexhandler;
     }
 
+    /**
+     * Set whether the body following the headers is read by parseSIPMessage. When it is not,
+     * the Content-Length header of the parsed message is kept as received.
+     *
+     * @param readBody
+     *            false to parse the headers only.
+     */
+    public void setReadBody(boolean readBody) {
+        this.readBody = readBody;
+    }
+
     /**
      * Parse a buffer containing a single SIP Message where the body is an array
      * of un-interpreted bytes. This is intended for parsing the message from a
@@ -147,6 +170,12 @@ public class StringMsgParser {
         String currentHeader = null;
         boolean isFirstLine = true;
         SIPMessage message = null;
+        // Header located but not parsed, when lazy header parsing is enabled.
+        String rawHeaderName = null;
+        int rawHeaderStart = 0;
+        int rawHeaderEnd = 0;
+        boolean rawHeaderFolded = false;
+        boolean isRawLine;
         do
         {
             int lineStart = i;
@@ -162,39 +191,80 @@ public class StringMsgParser {
             }
             int lineLength = i - lineStart;
 
-            // Make it a String.
-            try {
-                currentLine = new String(msgBuffer, lineStart, lineLength, "UTF-8");
-            } catch (UnsupportedEncodingException e) {
-                throw new ParseException("Bad message encoding!", 0);
+            isRawLine = false;
+            if (lazyHeaderParsing && message != null && lineLength > 0) {
+                byte firstByte = msgBuffer[lineStart];
+                if (firstByte == '\t' || firstByte == ' ') {
+                    if (rawHeaderName != null && !isBlank(msgBuffer, lineStart, i)) {
+                        // This is a continuation of the located header.
+                        rawHeaderEnd = i;
+                        rawHeaderFolded = true;
+                        isRawLine = true;
+                    }
+                } else {
+                    String name = getLazyHeaderName(msgBuffer, lineStart, i);
+                    if (name != null) {
+                        if (currentHeader != null) {
+                            processHeader(currentHeader, message);
+                            currentHeader = null;
+                        }
+                        if (rawHeaderName != null) {
+                            message.addRawHeader(new RawHeader(rawHeaderName, msgBuffer,
+                                    rawHeaderStart, rawHeaderEnd, rawHeaderFolded));
+                        }
+                        rawHeaderName = name;
+                        rawHeaderStart = lineStart;
+                        rawHeaderEnd = i;
+                        rawHeaderFolded = false;
+                        isRawLine = true;
+                    }
+                }
             }
 
-            currentLine = trimEndOfLine(currentLine);
-
-            if (currentLine.length() == 0) {
-                // Last header line, process the previous buffered header.
-                if (currentHeader != null && message != null) {
-                     processHeader(currentHeader, message);
-                 }
+            if (!isRawLine) {
+                // Make it a String.
+                try {
+                    currentLine = new String(msgBuffer, lineStart, lineLength, "UTF-8");
+                } catch (UnsupportedEncodingException e) {
+                    throw new ParseException("Bad message encoding!", 0);
+                }
 
-            }
-            else {
-                if (isFirstLine) {
-                    message = processFirstLine(currentLine);
-                } else {
-                    char firstChar = currentLine.charAt(0);
-                    if (firstChar == '\t' || firstChar == ' ') {
-                        if (currentHeader == null)
-                            throw new ParseException("Bad header continuation.", 0);
+                currentLine = trimEndOfLine(currentLine);
 
-                        // This is a continuation, append it to the previous line.
-                        currentHeader += currentLine.substring(1);
+                if (currentLine.length() == 0) {
+                    // Last header line, process the previous buffered header.
+                    if (currentHeader != null && message != null) {
+                         processHeader(currentHeader, message);
+                     }
+                    if (rawHeaderName != null) {
+                        message.addRawHeader(new RawHeader(rawHeaderName, msgBuffer,
+                                rawHeaderStart, rawHeaderEnd, rawHeaderFolded));
                     }
-                    else {
-                        if (currentHeader != null && message != null) {
-                             processHeader(currentHeader, message);
-                         }
-                        currentHeader = currentLine;
+
+                }
+                else {
+                    if (isFirstLine) {
+                        message = processFirstLine(currentLine);
+                    } else {
+                        char firstChar = currentLine.charAt(0);
+                        if (firstChar == '\t' || firstChar == ' ') {
+                            if (currentHeader == null)
+                                throw new ParseException("Bad header continuation.", 0);
+
+                            // This is a continuation, append it to the previous line.
+                            currentHeader += currentLine.substring(1);
+                        }
+                        else {
+                            if (currentHeader != null && message != null) {
+                                 processHeader(currentHeader, message);
+                             }
+                            if (rawHeaderName != null) {
+                                message.addRawHeader(new RawHeader(rawHeaderName, msgBuffer,
+                                        rawHeaderStart, rawHeaderEnd, rawHeaderFolded));
+                                rawHeaderName = null;
+                            }
+                            currentHeader = currentLine;
+                        }
                     }
                 }
             }
@@ -205,7 +275,7 @@ public class StringMsgParser {
             i++;
 
             isFirstLine = false;
-        } while (currentLine.length() > 0); // End do - while
+        } while (isRawLine || currentLine.length() > 0); // End do - while
 
         if (message == null) throw new ParseException("Bad message", 0);
         message.setSize(i);
@@ -262,6 +332,12 @@ public class StringMsgParser {
         String currentHeader = null;
         boolean isFirstLine = true;
         SIPMessage message = null;
+        // Header located but not parsed, when lazy header parsing is enabled.
+        String rawHeaderName = null;
+        int rawHeaderStart = 0;
+        int rawHeaderEnd = 0;
+        boolean rawHeaderFolded = false;
+        boolean isRawLine;
         do
         {
             int lineStart = i;
@@ -279,33 +355,74 @@ public class StringMsgParser {
                 break;
             }
 
-            // Make it a String.
-            currentLine = msgString.substring(lineStart, i);
-            currentLine = trimEndOfLine(currentLine);
-
-            if (currentLine.length() == 0) {
-                // Last header line, process the previous buffered header.
-                if (currentHeader != null) {
-                    processHeader(currentHeader, message);
+            isRawLine = false;
+            if (lazyHeaderParsing && message != null && i > lineStart) {
+                char firstChar = msgString.charAt(lineStart);
+                if (firstChar == '\t' || firstChar == ' ') {
+                    if (rawHeaderName != null && !isBlank(msgString, lineStart, i)) {
+                        // This is a continuation of the located header.
+                        rawHeaderEnd = i;
+                        rawHeaderFolded = true;
+                        isRawLine = true;
+                    }
+                } else {
+                    String name = getLazyHeaderName(msgString, lineStart, i);
+                    if (name != null) {
+                        if (currentHeader != null) {
+                            processHeader(currentHeader, message);
+                            currentHeader = null;
+                        }
+                        if (rawHeaderName != null) {
+                            message.addRawHeader(new RawHeader(rawHeaderName, msgString,
+                                    rawHeaderStart, rawHeaderEnd, rawHeaderFolded));
+                        }
+                        rawHeaderName = name;
+                        rawHeaderStart = lineStart;
+                        rawHeaderEnd = i;
+                        rawHeaderFolded = false;
+                        isRawLine = true;
+                    }
                 }
             }
-            else {
-                if (isFirstLine) {
-                    message = processFirstLine(currentLine);
-                } else {
-                    char firstChar = currentLine.charAt(0);
-                    if (firstChar == '\t' || firstChar == ' ') {
-                        if (currentHeader == null)
-                            throw new ParseException("Bad header continuation.", 0);
 
-                        // This is a continuation, append it to the previous line.
-                        currentHeader += currentLine.substring(1);
+            if (!isRawLine) {
+                // Make it a String.
+                currentLine = msgString.substring(lineStart, i);
+                currentLine = trimEndOfLine(currentLine);
+
+                if (currentLine.length() == 0) {
+                    // Last header line, process the previous buffered header.
+                    if (currentHeader != null) {
+                        processHeader(currentHeader, message);
                     }
-                    else {
-                        if (currentHeader != null) {
-                            processHeader(currentHeader, message);
+                    if (rawHeaderName != null) {
+                        message.addRawHeader(new RawHeader(rawHeaderName, msgString,
+                                rawHeaderStart, rawHeaderEnd, rawHeaderFolded));
+                    }
+                }
+                else {
+                    if (isFirstLine) {
+                        message = processFirstLine(currentLine);
+                    } else {
+                        char firstChar = currentLine.charAt(0);
+                        if (firstChar == '\t' || firstChar == ' ') {
+                            if (currentHeader == null)
+                                throw new ParseException("Bad header continuation.", 0);
+
+                            // This is a continuation, append it to the previous line.
+                            currentHeader += currentLine.substring(1);
+                        }
+                        else {
+                            if (currentHeader != null) {
+                                processHeader(currentHeader, message);
+                            }
+                            if (rawHeaderName != null) {
+                                message.addRawHeader(new RawHeader(rawHeaderName, msgString,
+                                        rawHeaderStart, rawHeaderEnd, rawHeaderFolded));
+                                rawHeaderName = null;
+                            }
+                            currentHeader = currentLine;
                         }
-                        currentHeader = currentLine;
                     }
                 }
             }
@@ -317,7 +434,7 @@ public class StringMsgParser {
 
             isFirstLine = false;
         }
-        while (currentLine.length() > 0);
+        while (isRawLine || currentLine.length() > 0);
 
         message.setSize(i);
 
@@ -337,6 +454,57 @@ public class StringMsgParser {
         return message;
     }
 
+    /**
+     * Get the lower case name of a header which may be parsed lazily.
+     *
+     * @return the lower case header name, or null if the header must be parsed at once.
+     */
+    private static String getLazyHeaderName(byte[] msgBuffer, int lineStart, int lineEnd) {
+        int colon = lineStart;
+        while (colon < lineEnd && msgBuffer[colon] != ':')
+            colon++;
+        if (colon == lineEnd)
+            return null;
+        char[] name = new char[colon - lineStart];
+        for (int i = 0; i < name.length; i++)
+            name[i] = (char) (msgBuffer[lineStart + i] & 0xff);
+        return getLazyHeaderName(new String(name));
+    }
+
+    private static String getLazyHeaderName(String msgString, int lineStart, int lineEnd) {
+        int colon = msgString.indexOf(':', lineStart);
+        if (colon == -1 || colon >= lineEnd)
+            return null;
+        return getLazyHeaderName(msgString.substring(lineStart, colon));
+    }
+
+    private static String getLazyHeaderName(String name) {
+        name = name.trim();
+        // Compact forms are a single character.
+        if (name.length() <= 1)
+            return null;
+        String lowerCaseName = SIPHeaderNamesCache.toLowerCase(name);
+        if (EAGER_HEADERS.contains(lowerCaseName))
+            return null;
+        return lowerCaseName;
+    }
+
+    private static boolean isBlank(byte[] msgBuffer, int lineStart, int lineEnd) {
+        for (int i = lineStart; i < lineEnd; i++) {
+            if ((msgBuffer[i] & 0xff) > 0x20)
+                return false;
+        }
+        return true;
+    }
+
+    private static boolean isBlank(String msgString, int lineStart, int lineEnd) {
+        for (int i = lineStart; i < lineEnd; i++) {
+            if (msgString.charAt(i) > 0x20)
+                return false;
+        }
+        return true;
+    }
+
     private String trimEndOfLine(String line) {
         if (line == null)
             return line;
@@ -616,6 +784,18 @@ public class StringMsgParser {
         StringMsgParser.computeContentLengthFromMessage = computeContentLengthFromMessage;
     }
 
+    /**
+     * Enable or disable lazy header parsing. When enabled, the headers which are not needed by
+     * the transaction layer (Via, From, To, Call-ID, CSeq, Content-Length, Max-Forwards and the
+     * compact forms) are only located in the message buffer and are parsed the first time they
+     * are accessed. Headers which are never accessed are encoded again as received.
+     *
+     * @param lazyHeaderParsing true to parse the headers on demand.
+     */
+    public static void setLazyHeaderParsing(boolean lazyHeaderParsing) {
+        StringMsgParser.lazyHeaderParsing = lazyHeaderParsing;
+    }
+
 
 
     /**
@@ -0,0 +1,324 @@
+/*
+ * Conditions Of Use
+ *
+ * This software was developed by employees of the National Institute of
+ * Standards and Technology (NIST), an agency of the Federal Government.
+ * Pursuant to title 15 Untied States Code Section 105, works of NIST
+ * employees are not subject to copyright protection in the United States
+ * and are considered to be in the public domain.  As a result, a formal
+ * license is not needed to use the software.
+ *
+ * This software is provided by NIST as a service and is expressly
+ * provided "AS IS."  NIST MAKES NO WARRANTY OF ANY KIND, EXPRESS, IMPLIED
+ * OR STATUTORY, INCLUDING, WITHOUT LIMITATION, THE IMPLIED WARRANTY OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE, NON-INFRINGEMENT
+ * AND DATA ACCURACY.  NIST does not warrant or make any representations
+ * regarding the use of the software or the results thereof, including but
+ * not limited to the correctness, accuracy, reliability or usefulness of
+ * the software.
+ *
+ * Permission to use this software is contingent upon your acceptance
+ * of the terms of this agreement
+ *
+ * .
+ *
+ */
+package gov2.nist.javax2.sip.stack;
+
+import java.util.ArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hashed timing wheel timer service.<br/>
+ * Scheduled tasks are linked into the bucket of the wheel matching their expiry tick, so that
+ * scheduling and cancelling a task are O(1) operations and a cancelled task is unlinked at once
+ * instead of staying queued until its expiry time. A single ticker thread advances the wheel
+ * every tick and hands the expired tasks over to a bounded pool of worker threads.<br/>
+ * The default tick duration is {@link SIPTransactionStack#BASE_TIMER_INTERVAL}, i.e. T1, the
+ * period of the transaction timers: a task never runs before its delay has elapsed and runs at
+ * most one tick late. A periodic task is never run concurrently with itself.
+ */
+public class HashedWheelSipTimer implements SipTimer {
+
+    /**
+     * Default number of buckets of the wheel (256 s at the default tick duration).
+     */
+    public static final int DEFAULT_TICKS_PER_WHEEL = 512;
+
+    /**
+     * Default number of threads running the expired tasks.
+     */
+    public static final int DEFAULT_WORKER_COUNT = 2;
+
+    /*
+     * States of a task scheduled on the wheel.
+     */
+    static final int STATE_PENDING = 1;
+
+    static final int STATE_RUNNING = 2;
+
+    static final int STATE_DONE = 3;
+
+    static final int STATE_CANCELLED = 4;
+
+    private static final AtomicInteger timerCount = new AtomicInteger();
+
+    private final long tickNanos;
+
+    private final SIPStackTimerTask[] buckets;
+
+    private final int mask;
+
+    private final ThreadPoolExecutor workers;
+
+    private final Thread ticker;
+
+    private final long startTime;
+
+    // Last processed tick, written by the ticker thread only
+    private long tick;
+
+    private int pendingCount;
+
+    private boolean stopped;
+
+    public HashedWheelSipTimer() {
+        this(SIPTransactionStack.BASE_TIMER_INTERVAL, DEFAULT_TICKS_PER_WHEEL,
+                DEFAULT_WORKER_COUNT);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param tickDuration tick duration in milliseconds
+     * @param ticksPerWheel number of buckets of the wheel, rounded up to a power of two
+     * @param workerCount maximum number of threads running the expired tasks
+     */
+    public HashedWheelSipTimer(long tickDuration, int ticksPerWheel, int workerCount) {
+        if (tickDuration <= 0 || ticksPerWheel <= 0 || workerCount <= 0) {
+            throw new IllegalArgumentException("Bad timer configuration");
+        }
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickDuration);
+        int size = Integer.highestOneBit(ticksPerWheel);
+        if (size < ticksPerWheel) {
+            size <<= 1;
+        }
+        this.buckets = new SIPStackTimerTask[size];
+        this.mask = size - 1;
+
+        final String name = "SipTimer-" + timerCount.incrementAndGet();
+        this.workers = new ThreadPoolExecutor(workerCount, workerCount, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+                    private final AtomicInteger threadCount = new AtomicInteger();
+
+                    public Thread newThread(Runnable r) {
+                        Thread thread = new Thread(r, name + "-worker-"
+                                + threadCount.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+        this.workers.allowCoreThreadTimeOut(true);
+
+        this.startTime = System.nanoTime();
+        this.ticker = new Thread(new Runnable() {
+            public void run() {
+                runTicker();
+            }
+        }, name);
+        this.ticker.setDaemon(true);
+        this.ticker.start();
+    }
+
+    public void schedule(SIPStackTimerTask task, long delay) {
+        schedule(task, delay, 0);
+    }
+
+    public void schedule(SIPStackTimerTask task, long delay, long period) {
+        if (delay < 0 || period < 0) {
+            throw new IllegalArgumentException("Negative delay or period");
+        }
+        boolean runNow;
+        synchronized (this) {
+            if (this.stopped) {
+                throw new IllegalStateException("Timer already stopped");
+            }
+            if (task.wheel != null || task.cancelled) {
+                throw new IllegalStateException("Task already scheduled or cancelled");
+            }
+            task.wheel = this;
+            task.wheelPeriod = period == 0 ? 0 : Math.max(1, toTicks(period));
+            runNow = delay == 0;
+            if (runNow) {
+                task.wheelDeadline = this.tick;
+                task.wheelState = STATE_RUNNING;
+            } else {
+                long deadline = toTicks(System.nanoTime() - this.startTime
+                        + TimeUnit.MILLISECONDS.toNanos(delay));
+                link(task, Math.max(deadline, this.tick + 1));
+            }
+        }
+        if (runNow) {
+            execute(task);
+        }
+    }
+
+    /**
+     * Returns the number of tasks waiting for their expiry tick.
+     *
+     * @return number of pending tasks
+     */
+    public synchronized int getPendingTaskCount() {
+        return this.pendingCount;
+    }
+
+    public void stop() {
+        synchronized (this) {
+            if (this.stopped) {
+                return;
+            }
+            this.stopped = true;
+            for (int i = 0; i < this.buckets.length; i++) {
+                SIPStackTimerTask task = this.buckets[i];
+                while (task != null) {
+                    SIPStackTimerTask next = task.wheelNext;
+                    task.wheelPrevious = null;
+                    task.wheelNext = null;
+                    task.wheelState = STATE_CANCELLED;
+                    task = next;
+                }
+                this.buckets[i] = null;
+            }
+            this.pendingCount = 0;
+        }
+        this.ticker.interrupt();
+        this.workers.shutdownNow();
+    }
+
+    /**
+     * Cancel a task, called by {@link SIPStackTimerTask#cancel()}.
+     *
+     * @return true if this prevented one or more executions of the task
+     */
+    synchronized boolean cancel(SIPStackTimerTask task) {
+        switch (task.wheelState) {
+            case STATE_PENDING:
+                unlink(task);
+                task.wheelState = STATE_CANCELLED;
+                return true;
+            case STATE_RUNNING:
+                task.wheelState = STATE_CANCELLED;
+                return task.wheelPeriod > 0;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Called by {@link SIPStackTimerTask#run()} once the task has been executed, to schedule the
+     * next execution of a periodic task.
+     */
+    synchronized void executed(SIPStackTimerTask task) {
+        if (task.wheelState != STATE_RUNNING) {
+            return;
+        }
+        if (task.wheelPeriod > 0 && !this.stopped) {
+            /* Keep periodic tasks on their tick grid, skipping the executions already missed */
+            link(task, Math.max(task.wheelDeadline + task.wheelPeriod, this.tick + 1));
+        } else {
+            task.wheelState = STATE_DONE;
+        }
+    }
+
+    private long toTicks(long nanos) {
+        return (nanos + this.tickNanos - 1) / this.tickNanos;
+    }
+
+    private void link(SIPStackTimerTask task, long deadline) {
+        int index = (int) (deadline & this.mask);
+        SIPStackTimerTask head = this.buckets[index];
+        task.wheelDeadline = deadline;
+        task.wheelPrevious = null;
+        task.wheelNext = head;
+        if (head != null) {
+            head.wheelPrevious = task;
+        }
+        this.buckets[index] = task;
+        task.wheelState = STATE_PENDING;
+        this.pendingCount++;
+    }
+
+    private void unlink(SIPStackTimerTask task) {
+        SIPStackTimerTask previous = task.wheelPrevious;
+        SIPStackTimerTask next = task.wheelNext;
+        if (previous != null) {
+            previous.wheelNext = next;
+        } else {
+            this.buckets[(int) (task.wheelDeadline & this.mask)] = next;
+        }
+        if (next != null) {
+            next.wheelPrevious = previous;
+        }
+        task.wheelPrevious = null;
+        task.wheelNext = null;
+        this.pendingCount--;
+    }
+
+    private void execute(SIPStackTimerTask task) {
+        try {
+            this.workers.execute(task);
+        } catch (RejectedExecutionException ex) {
+            // Timer stopped meanwhile
+        }
+    }
+
+    private void runTicker() {
+        ArrayList<SIPStackTimerTask> expired = new ArrayList<SIPStackTimerTask>();
+        long processedTick = 0;
+        while (true) {
+            long sleepNanos = this.startTime + (processedTick + 1) * this.tickNanos
+                    - System.nanoTime();
+            if (sleepNanos > 0) {
+                try {
+                    Thread.sleep(TimeUnit.NANOSECONDS.toMillis(sleepNanos + 999999));
+                } catch (InterruptedException ex) {
+                    // Check below whether the timer has been stopped
+                }
+                if (System.nanoTime() - this.startTime < (processedTick + 1) * this.tickNanos) {
+                    synchronized (this) {
+                        if (this.stopped) {
+                            return;
+                        }
+                    }
+                    continue;
+                }
+            }
+            synchronized (this) {
+                if (this.stopped) {
+                    return;
+                }
+                processedTick++;
+                this.tick = processedTick;
+                SIPStackTimerTask task = this.buckets[(int) (processedTick & this.mask)];
+                while (task != null) {
+                    SIPStackTimerTask next = task.wheelNext;
+                    if (task.wheelDeadline <= processedTick) {
+                        unlink(task);
+                        task.wheelState = STATE_RUNNING;
+                        expired.add(task);
+                    }
+                    task = next;
+                }
+            }
+            for (int i = 0; i < expired.size(); i++) {
+                execute(expired.get(i));
+            }
+            expired.clear();
+        }
+    }
+}
@@ -0,0 +1,334 @@
+/*
+ * Conditions Of Use
+ *
+ * This software was developed by employees of the National Institute of
+ * Standards and Technology (NIST), an agency of the Federal Government.
+ * Pursuant to title 15 Untied States Code Section 105, works of NIST
+ * employees are not subject to copyright protection in the United States
+ * and are considered to be in the public domain.  As a result, a formal
+ * license is not needed to use the software.
+ *
+ * This software is provided by NIST as a service and is expressly
+ * provided "AS IS."  NIST MAKES NO WARRANTY OF ANY KIND, EXPRESS, IMPLIED
+ * OR STATUTORY, INCLUDING, WITHOUT LIMITATION, THE IMPLIED WARRANTY OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE, NON-INFRINGEMENT
+ * AND DATA ACCURACY.  NIST does not warrant or make any representations
+ * regarding the use of the software or the results thereof, including but
+ * not limited to the correctness, accuracy, reliability or usefulness of
+ * the software.
+ *
+ * Permission to use this software is contingent upon your acceptance
+ * of the terms of this agreement
+ *
+ * .
+ *
+ */
+package gov2.nist.javax2.sip.stack;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Single thread multiplexing the sockets of all the NIO message processors of a stack.<br/>
+ * The selector thread accepts the connections and reads and writes the sockets without ever
+ * blocking. The messages framed from the received bytes are processed by a pool of dispatch
+ * threads, so that a listener taking time to process a message does not hold up the other
+ * sockets. Registrations and interest changes requested by other threads are queued and applied
+ * by the selector thread.
+ *
+ * @see NioUdpMessageProcessor
+ * @see NioTcpMessageProcessor
+ * @see NioTlsMessageProcessor
+ */
+public class NioSelector implements Runnable {
+
+    /**
+     * Handler of the events selected on a channel.
+     */
+    public interface Handler {
+        /**
+         * Process the ready operations of the channel. Called on the selector thread.
+         *
+         * @param key the selection key of the channel.
+         */
+        void handleSelection(SelectionKey key);
+    }
+
+    /**
+     * Handler of a channel which must be closed when it stays idle for too long.
+     */
+    public interface TimedHandler extends Handler {
+        /**
+         * Check whether the channel has been idle for too long. Called on the selector thread.
+         *
+         * @param now the current time in milliseconds.
+         * @param timeout the read timeout of the stack in milliseconds.
+         */
+        void checkTimeout(long now, long timeout);
+    }
+
+    /**
+     * Size of the buffer the sockets are read into, large enough for any UDP datagram.
+     */
+    static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Maximum number of buffers kept for reuse by new connections.
+     */
+    static final int MAX_POOLED_BUFFERS = 32;
+
+    private static final AtomicInteger selectorCount = new AtomicInteger();
+
+    private final SIPTransactionStack sipStack;
+
+    private final Selector selector;
+
+    private final Thread thread;
+
+    private final ExecutorService dispatcher;
+
+    // Read buffer shared by all the sockets, only used by the selector thread.
+    private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
+
+    private final ArrayList<Runnable> pendingTasks = new ArrayList<Runnable>();
+
+    // Buffers released by the closed connections.
+    private final ArrayList<ByteBuffer> bufferPool = new ArrayList<ByteBuffer>();
+
+    private volatile boolean isRunning;
+
+    // Next time the idle channels are looked for, only used by the selector thread.
+    private long nextTimeoutCheck;
+
+    /**
+     * Constructor. Start the selector thread and the dispatch threads: as many as the thread
+     * pool size of the stack, or as many as needed if the pool size is not limited.
+     *
+     * @param sipStack the stack owning the message processors.
+     */
+    protected NioSelector(SIPTransactionStack sipStack) throws IOException {
+        this.sipStack = sipStack;
+        this.selector = Selector.open();
+        final int id = selectorCount.incrementAndGet();
+        ThreadFactory threadFactory = new ThreadFactory() {
+            private final AtomicInteger threadCount = new AtomicInteger();
+
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "NioDispatchThread-" + id + "-"
+                        + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        };
+        if (sipStack.threadPoolSize > 0) {
+            this.dispatcher = Executors.newFixedThreadPool(sipStack.threadPoolSize,
+                    threadFactory);
+        } else {
+            this.dispatcher = Executors.newCachedThreadPool(threadFactory);
+        }
+        this.isRunning = true;
+        this.thread = new Thread(this, "NioSelectorThread-" + id);
+        this.thread.setDaemon(true);
+        // Same priority as the threaded message processors.
+        this.thread.setPriority(Thread.MAX_PRIORITY);
+        this.thread.start();
+    }
+
+    /**
+     * Register a channel. The channel must be in non-blocking mode.
+     *
+     * @param channel the channel to register.
+     * @param ops the initial interest operations.
+     * @param handler the handler of the selected operations.
+     */
+    public void register(final SelectableChannel channel, final int ops, final Handler handler) {
+        execute(new Runnable() {
+            public void run() {
+                try {
+                    channel.register(selector, ops, handler);
+                } catch (ClosedChannelException ex) {
+                    if (sipStack.isLoggingEnabled())
+                        sipStack.getStackLogger().logDebug("Channel closed before registration");
+                }
+            }
+        });
+    }
+
+    /**
+     * Change the interest operations of a registered channel.
+     *
+     * @param channel the registered channel.
+     * @param ops the new interest operations.
+     */
+    public void setInterestOps(final SelectableChannel channel, final int ops) {
+        execute(new Runnable() {
+            public void run() {
+                SelectionKey key = channel.keyFor(selector);
+                if (key != null && key.isValid())
+                    key.interestOps(ops);
+            }
+        });
+    }
+
+    /**
+     * Run a task on the selector thread: at once if called from the selector thread, otherwise
+     * at the next wake up of the selector.
+     *
+     * @param task the task to run.
+     */
+    public void execute(Runnable task) {
+        if (Thread.currentThread() == thread) {
+            task.run();
+            return;
+        }
+        synchronized (pendingTasks) {
+            pendingTasks.add(task);
+        }
+        selector.wakeup();
+    }
+
+    /**
+     * Hand a task over to the dispatch threads.
+     *
+     * @param task the task processing received messages.
+     */
+    public void dispatch(Runnable task) {
+        if (isRunning)
+            dispatcher.execute(task);
+    }
+
+    /**
+     * Get the buffer the sockets are read into. Only the selector thread may use it, and the
+     * contents do not outlive the current {@link Handler#handleSelection(SelectionKey)} call.
+     *
+     * @return the cleared read buffer.
+     */
+    ByteBuffer getReadBuffer() {
+        readBuffer.clear();
+        return readBuffer;
+    }
+
+    /**
+     * Get a direct buffer from the pool, or allocate a new one if none is large enough.
+     *
+     * @param size the minimum capacity of the buffer.
+     * @return a cleared buffer.
+     */
+    ByteBuffer acquireBuffer(int size) {
+        synchronized (bufferPool) {
+            for (int i = bufferPool.size() - 1; i >= 0; i--) {
+                if (bufferPool.get(i).capacity() >= size) {
+                    ByteBuffer buffer = bufferPool.remove(i);
+                    buffer.clear();
+                    return buffer;
+                }
+            }
+        }
+        return ByteBuffer.allocateDirect(size);
+    }
+
+    /**
+     * Give back a buffer acquired by acquireBuffer. The buffer must not be used any more.
+     *
+     * @param buffer the buffer to give back.
+     */
+    void releaseBuffer(ByteBuffer buffer) {
+        synchronized (bufferPool) {
+            if (bufferPool.size() < MAX_POOLED_BUFFERS)
+                bufferPool.add(buffer);
+        }
+    }
+
+    /**
+     * Selector thread main loop.
+     */
+    public void run() {
+        while (isRunning) {
+            try {
+                runPendingTasks();
+                // The read timeout is infinite by default.
+                long timeout = sipStack.readTimeout;
+                if (timeout == -1)
+                    selector.select();
+                else
+                    selector.select(timeout);
+                runPendingTasks();
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid())
+                        continue;
+                    try {
+                        ((Handler) key.attachment()).handleSelection(key);
+                    } catch (RuntimeException ex) {
+                        // Never let a faulty channel stop the other ones.
+                        if (sipStack.isLoggingEnabled())
+                            sipStack.getStackLogger().logError("Error handling selection", ex);
+                    }
+                }
+                if (timeout != -1)
+                    checkTimeouts(timeout);
+            } catch (IOException ex) {
+                if (sipStack.isLoggingEnabled())
+                    sipStack.getStackLogger().logException(ex);
+            }
+        }
+        try {
+            selector.close();
+        } catch (IOException ex) {
+        }
+    }
+
+    /**
+     * Look for the channels idle for longer than the read timeout, at most once per timeout.
+     *
+     * @param timeout the read timeout of the stack in milliseconds.
+     */
+    private void checkTimeouts(long timeout) {
+        long now = System.currentTimeMillis();
+        if (now < nextTimeoutCheck)
+            return;
+        nextTimeoutCheck = now + timeout;
+        // Closing a channel cancels its key: iterate over a copy of the key set.
+        SelectionKey[] keys = selector.keys().toArray(new SelectionKey[0]);
+        for (SelectionKey key : keys) {
+            Object handler = key.attachment();
+            if (key.isValid() && handler instanceof TimedHandler)
+                ((TimedHandler) handler).checkTimeout(now, timeout);
+        }
+    }
+
+    private void runPendingTasks() {
+        Runnable[] tasks;
+        synchronized (pendingTasks) {
+            if (pendingTasks.isEmpty())
+                return;
+            tasks = pendingTasks.toArray(new Runnable[pendingTasks.size()]);
+            pendingTasks.clear();
+        }
+        for (Runnable task : tasks) {
+            task.run();
+        }
+    }
+
+    /**
+     * Stop the selector and the dispatch threads. The channels must have been closed by their
+     * message processors.
+     */
+    public void stop() {
+        isRunning = false;
+        selector.wakeup();
+        dispatcher.shutdown();
+    }
+}
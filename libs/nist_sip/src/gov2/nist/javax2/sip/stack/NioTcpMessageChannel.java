@@ -0,0 +1,825 @@
+/*
+ * Conditions Of Use
+ *
+ * This software was developed by employees of the National Institute of
+ * Standards and Technology (NIST), an agency of the Federal Government.
+ * Pursuant to title 15 Untied States Code Section 105, works of NIST
+ * employees are not subject to copyright protection in the United States
+ * and are considered to be in the public domain.  As a result, a formal
+ * license is not needed to use the software.
+ *
+ * This software is provided by NIST as a service and is expressly
+ * provided "AS IS."  NIST MAKES NO WARRANTY OF ANY KIND, EXPRESS, IMPLIED
+ * OR STATUTORY, INCLUDING, WITHOUT LIMITATION, THE IMPLIED WARRANTY OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE, NON-INFRINGEMENT
+ * AND DATA ACCURACY.  NIST does not warrant or make any representations
+ * regarding the use of the software or the results thereof, including but
+ * not limited to the correctness, accuracy, reliability or usefulness of
+ * the software.
+ *
+ * Permission to use this software is contingent upon your acceptance
+ * of the terms of this agreement
+ *
+ * .
+ *
+ */
+package gov2.nist.javax2.sip.stack;
+
+import gov2.nist.core.InternalErrorHandler;
+import gov2.nist.core.ServerLogger;
+import gov2.nist.javax2.sip.header.CSeq;
+import gov2.nist.javax2.sip.header.CallID;
+import gov2.nist.javax2.sip.header.From;
+import gov2.nist.javax2.sip.header.RequestLine;
+import gov2.nist.javax2.sip.header.StatusLine;
+import gov2.nist.javax2.sip.header.To;
+import gov2.nist.javax2.sip.header.Via;
+import gov2.nist.javax2.sip.header.ViaList;
+import gov2.nist.javax2.sip.message.SIPMessage;
+import gov2.nist.javax2.sip.message.SIPRequest;
+import gov2.nist.javax2.sip.message.SIPResponse;
+import gov2.nist.javax2.sip.parser.ParseExceptionListener;
+import gov2.nist.javax2.sip.parser.SIPStreamFramer;
+import gov2.nist.javax2.sip.parser.StringMsgParser;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.text.ParseException;
+import java.util.LinkedList;
+
+import javax2.sip.address.Hop;
+
+/**
+ * Message channel for a TCP connection handled by the selector thread of the stack.<br/>
+ * The received bytes are framed into messages by a {@link SIPStreamFramer} on the selector
+ * thread, and the messages are parsed and processed in order by one dispatch thread at a time.
+ * The messages sent are encoded by the sending thread and written without blocking: the bytes
+ * the socket cannot take at once are written by the selector thread when the socket becomes
+ * writable. Outgoing connections are established by the first sending thread.
+ *
+ * @see NioTcpMessageProcessor
+ */
+public class NioTcpMessageChannel extends MessageChannel implements ParseExceptionListener,
+        RawMessageChannel, NioSelector.TimedHandler {
+
+    // Changed by Deutsche Telekom
+    // ***###*** DTAG, AS 2012-09-10; work around Android issue 34727 (large TCP packets from or
+    // to port 5060 not send), as in IOHandler
+    private static final int SMALL_CHUNK_SIZE = 512;
+
+    protected final SIPTransactionStack sipStack;
+
+    protected final NioTcpMessageProcessor nioMessageProcessor;
+
+    protected final NioSelector selector;
+
+    // Guards the socket and the bytes to write.
+    protected final Object writeLock = new Object();
+
+    // Null while not connected.
+    protected volatile SocketChannel socketChannel;
+
+    private final LinkedList<ByteBuffer> pendingWrites = new LinkedList<ByteBuffer>();
+
+    private boolean writeInterest;
+
+    private boolean smallChunks;
+
+    // Only used by the selector thread.
+    private SIPStreamFramer framer;
+
+    // Time of the last read, only used by the selector thread.
+    private long lastReadTime;
+
+    // Messages waiting for the dispatch thread, in reception order.
+    private final LinkedList<byte[]> receivedMessages = new LinkedList<byte[]>();
+
+    private boolean dispatching;
+
+    private final Runnable dispatchTask = new Runnable() {
+        public void run() {
+            processReceivedMessages();
+        }
+    };
+
+    // True for a connection accepted by the processor.
+    private final boolean incoming;
+
+    protected String key;
+
+    protected boolean isCached;
+
+    protected String myAddress;
+
+    protected int myPort;
+
+    protected InetAddress peerAddress;
+
+    protected int peerPort;
+
+    protected String peerProtocol;
+
+    /**
+     * Constructor for a connection accepted by the message processor.
+     *
+     * @param socketChannel the accepted connection, in non-blocking mode.
+     * @param sipStack the SIP stack.
+     * @param msgProcessor the message processor that accepted the connection.
+     */
+    protected NioTcpMessageChannel(SocketChannel socketChannel, SIPTransactionStack sipStack,
+            NioTcpMessageProcessor msgProcessor) throws IOException {
+        this.sipStack = sipStack;
+        this.nioMessageProcessor = msgProcessor;
+        this.selector = msgProcessor.selector;
+        super.messageProcessor = msgProcessor;
+        this.incoming = true;
+        Socket socket = socketChannel.socket();
+        this.peerAddress = socket.getInetAddress();
+        this.peerPort = socket.getPort();
+        this.myAddress = msgProcessor.getIpAddress().getHostAddress();
+        this.myPort = msgProcessor.getPort();
+        if (sipStack.isLoggingEnabled())
+            sipStack.getStackLogger().logDebug("creating new " + getClass().getSimpleName());
+        synchronized (writeLock) {
+            connected(socketChannel, false);
+        }
+    }
+
+    /**
+     * Constructor for a connection to the given address, established when the first message is
+     * sent.
+     *
+     * @param inetAddr inet address to connect to.
+     * @param port port to connect to.
+     * @param sipStack the SIP stack.
+     * @param msgProcessor the message processor creating the channel.
+     */
+    protected NioTcpMessageChannel(InetAddress inetAddr, int port,
+            SIPTransactionStack sipStack, NioTcpMessageProcessor msgProcessor) {
+        this.sipStack = sipStack;
+        this.nioMessageProcessor = msgProcessor;
+        this.selector = msgProcessor.selector;
+        super.messageProcessor = msgProcessor;
+        this.incoming = false;
+        this.peerAddress = inetAddr;
+        this.peerPort = port;
+        this.peerProtocol = getTransport();
+        this.myAddress = msgProcessor.getIpAddress().getHostAddress();
+        this.myPort = msgProcessor.getPort();
+        this.key = MessageChannel.getKey(peerAddress, peerPort, getTransport());
+        if (sipStack.isLoggingEnabled())
+            sipStack.getStackLogger().logDebug("creating new " + getClass().getSimpleName());
+    }
+
+    /**
+     * Connect to the peer. Called with the write lock held.
+     */
+    private void connect() throws IOException {
+        SocketChannel channel = SocketChannel.open();
+        try {
+            channel.socket().bind(new InetSocketAddress(messageProcessor.getIpAddress(), 0));
+            channel.connect(new InetSocketAddress(peerAddress, peerPort));
+            channel.configureBlocking(false);
+        } catch (IOException ex) {
+            channel.close();
+            throw ex;
+        }
+        if (sipStack.isLoggingEnabled())
+            sipStack.getStackLogger().logDebug("Connected to " + peerAddress + ":" + peerPort);
+        connected(channel, true);
+    }
+
+    /**
+     * Start using a connected socket. Called with the write lock held.
+     *
+     * @param channel the connected socket, in non-blocking mode.
+     * @param clientMode true if the connection was established by the stack.
+     */
+    protected void connected(SocketChannel channel, boolean clientMode) throws IOException {
+        Socket socket = channel.socket();
+        this.smallChunks = socket.getLocalPort() == 5060 || socket.getPort() == 5060;
+        this.framer = new SIPStreamFramer(sipStack.getMaxMessageSize());
+        this.lastReadTime = System.currentTimeMillis();
+        this.writeInterest = false;
+        this.socketChannel = channel;
+        selector.register(channel, SelectionKey.OP_READ, this);
+    }
+
+    /**
+     * Release the resources of the closed connection. Called with the write lock held.
+     */
+    protected void disconnected() {
+        pendingWrites.clear();
+    }
+
+    /**
+     * Returns "true" as this is a reliable transport.
+     */
+    public boolean isReliable() {
+        return true;
+    }
+
+    /**
+     * Close the connection.
+     */
+    public void close() {
+        SocketChannel channel;
+        synchronized (writeLock) {
+            channel = this.socketChannel;
+            if (channel == null)
+                return;
+            this.socketChannel = null;
+            disconnected();
+        }
+        try {
+            channel.close();
+        } catch (IOException ex) {
+            if (sipStack.isLoggingEnabled())
+                sipStack.getStackLogger().logDebug("Error closing socket " + ex);
+        }
+        nioMessageProcessor.remove(this, incoming);
+        if (sipStack.isLoggingEnabled())
+            sipStack.getStackLogger().logDebug("Closing message Channel " + this);
+    }
+
+    /**
+     * Get my SIP Stack.
+     *
+     * @return The SIP Stack for this message channel.
+     */
+    public SIPTransactionStack getSIPStack() {
+        return sipStack;
+    }
+
+    /**
+     * get the transport string.
+     *
+     * @return "TCP" in this case.
+     */
+    public String getTransport() {
+        return "TCP";
+    }
+
+    /**
+     * get the address of the client that sent the data to us.
+     *
+     * @return Address of the client that sent us data that resulted in this channel being
+     *         created.
+     */
+    public String getPeerAddress() {
+        if (peerAddress != null) {
+            return peerAddress.getHostAddress();
+        } else
+            return getHost();
+    }
+
+    protected InetAddress getPeerInetAddress() {
+        return peerAddress;
+    }
+
+    public String getPeerProtocol() {
+        return this.peerProtocol;
+    }
+
+    /**
+     * Encode a message and write it to the connection, connecting first if needed.
+     *
+     * @param message the message to send.
+     * @param retry reconnect and send again if the connection turns out to be broken.
+     */
+    private void send(SIPMessage message, boolean retry) throws IOException {
+        synchronized (writeLock) {
+            while (true) {
+                boolean reused = socketChannel != null;
+                try {
+                    if (!reused)
+                        connect();
+                    Socket socket = socketChannel.socket();
+                    // Update Via header to reflect local port
+                    sipStack.ioHandler.updateViaHeaderPort(socket.getLocalPort(),
+                            socket.getLocalAddress(), message);
+                    // Update Contact header to reflect local port
+                    sipStack.ioHandler.updateContactHeaderPort(socket.getLocalPort(), message);
+                    enqueue(ByteBuffer.wrap(message.encodeAsBytes(getTransport())));
+                    flush();
+                    return;
+                } catch (IOException ex) {
+                    if (sipStack.isLoggingEnabled())
+                        sipStack.getStackLogger().logDebug("IOException sending message " + ex);
+                    close();
+                    // Only a broken connection is worth a new attempt.
+                    if (!retry || !reused)
+                        throw ex;
+                    retry = false;
+                }
+            }
+        }
+    }
+
+    /**
+     * Return a formatted message to the client. We try to re-connect with the peer on the other
+     * end if possible.
+     *
+     * @param sipMessage Message to send.
+     * @throws IOException If there is an error sending the message
+     */
+    public void sendMessage(SIPMessage sipMessage) throws IOException {
+        long time = System.currentTimeMillis();
+
+        // JvB: also retry for responses, if the connection is gone we should
+        // try to reconnect
+        send(sipMessage, true);
+
+        if (this.sipStack.getStackLogger().isLoggingEnabled(ServerLogger.TRACE_MESSAGES))
+            logMessage(sipMessage, peerAddress, peerPort, time);
+    }
+
+    /**
+     * Send a message to a specified address, through the connection to this address.
+     *
+     * @param message message to send.
+     * @param receiverAddress Address to send it to.
+     * @param receiverPort Receiver port.
+     * @throws IOException If there is a problem connecting or sending.
+     */
+    public void sendMessage(SIPMessage message, InetAddress receiverAddress, int receiverPort,
+            boolean retry) throws IOException {
+        if (message == null || receiverAddress == null)
+            throw new IllegalArgumentException("Null argument");
+        if (receiverAddress.equals(peerAddress) && receiverPort == peerPort) {
+            send(message, retry);
+        } else {
+            NioTcpMessageChannel channel = (NioTcpMessageChannel) nioMessageProcessor
+                    .createMessageChannel(receiverAddress, receiverPort);
+            channel.send(message, retry);
+        }
+    }
+
+    /**
+     * Queue bytes to write. Called with the write lock held.
+     *
+     * @param data the bytes to write.
+     */
+    protected void enqueue(ByteBuffer data) {
+        pendingWrites.add(data);
+    }
+
+    /**
+     * Write the queued bytes, as many as the socket takes. Called with the write lock held.
+     *
+     * @return true if all the queued bytes have been written.
+     */
+    protected boolean flushPending() throws IOException {
+        while (!pendingWrites.isEmpty()) {
+            ByteBuffer data = pendingWrites.getFirst();
+            write(data);
+            if (data.hasRemaining())
+                return false;
+            pendingWrites.removeFirst();
+        }
+        return true;
+    }
+
+    /**
+     * Write bytes to the socket without blocking.
+     *
+     * @param data the bytes to write, the position is moved past the written bytes.
+     */
+    protected void write(ByteBuffer data) throws IOException {
+        if (!smallChunks) {
+            socketChannel.write(data);
+            return;
+        }
+        int limit = data.limit();
+        try {
+            while (data.position() < limit) {
+                data.limit(Math.min(limit, data.position() + SMALL_CHUNK_SIZE));
+                if (socketChannel.write(data) == 0)
+                    break;
+            }
+        } finally {
+            data.limit(limit);
+        }
+    }
+
+    /**
+     * Write the queued bytes and have the selector thread write the remaining ones when the
+     * socket becomes writable.
+     */
+    protected void flush() throws IOException {
+        synchronized (writeLock) {
+            SocketChannel channel = this.socketChannel;
+            if (channel == null)
+                return;
+            boolean needWriteInterest = !flushPending();
+            if (needWriteInterest != writeInterest) {
+                writeInterest = needWriteInterest;
+                selector.setInterestOps(channel, needWriteInterest ? SelectionKey.OP_READ
+                        | SelectionKey.OP_WRITE : SelectionKey.OP_READ);
+            }
+        }
+    }
+
+    /**
+     * Read and write the socket. Called on the selector thread.
+     */
+    public void handleSelection(SelectionKey key) {
+        if (key.channel() != this.socketChannel) {
+            // Connection closed or replaced meanwhile.
+            key.cancel();
+            return;
+        }
+        try {
+            if (key.isReadable()) {
+                ByteBuffer buffer = selector.getReadBuffer();
+                if (socketChannel.read(buffer) == -1) {
+                    if (sipStack.isLoggingEnabled())
+                        sipStack.getStackLogger().logDebug("Connection closed by peer " + this);
+                    close();
+                    return;
+                }
+                lastReadTime = System.currentTimeMillis();
+                buffer.flip();
+                received(buffer);
+                decodeMessages();
+            }
+            if (key.isValid() && key.isWritable())
+                flush();
+        } catch (IOException ex) {
+            if (sipStack.isLoggingEnabled())
+                sipStack.getStackLogger().logDebug("IOException closing sock " + ex);
+            close();
+        }
+    }
+
+    /**
+     * Guard against bad guys, as the threaded TCP channels do with their read timeout: a message
+     * must be completed in time once started. Called on the selector thread.
+     */
+    public void checkTimeout(long now, long timeout) {
+        if (socketChannel == null || now - lastReadTime <= timeout || !isReadPending())
+            return;
+        if (sipStack.isLoggingEnabled())
+            sipStack.getStackLogger().logDebug("Read timeout, closing " + this);
+        close();
+    }
+
+    /**
+     * Check whether a message has been partly received. Called on the selector thread.
+     *
+     * @return true if the bytes of an incomplete message are waiting for the next ones.
+     */
+    protected boolean isReadPending() {
+        return framer != null && framer.isPartial();
+    }
+
+    /**
+     * Process bytes read from the socket. Called on the selector thread.
+     *
+     * @param data the bytes read.
+     */
+    protected void received(ByteBuffer data) throws IOException {
+        decode(data);
+    }
+
+    /**
+     * Append bytes of the message stream to frame. Called on the selector thread.
+     *
+     * @param data the bytes of the message stream.
+     */
+    protected void decode(ByteBuffer data) {
+        framer.append(data);
+    }
+
+    /**
+     * Hand the complete messages over to the dispatch threads, one thread at a time to keep
+     * the order of the messages.
+     */
+    private void decodeMessages() throws IOException {
+        byte[] message;
+        while ((message = framer.next()) != null) {
+            if (framer.isTruncated())
+                throw new IOException("Max message size exceeded");
+            synchronized (receivedMessages) {
+                receivedMessages.add(message);
+                if (dispatching)
+                    continue;
+                dispatching = true;
+            }
+            selector.dispatch(dispatchTask);
+        }
+    }
+
+    private void processReceivedMessages() {
+        while (true) {
+            byte[] message;
+            synchronized (receivedMessages) {
+                if (receivedMessages.isEmpty()) {
+                    dispatching = false;
+                    return;
+                }
+                message = receivedMessages.removeFirst();
+            }
+            StringMsgParser parser = new StringMsgParser();
+            parser.setParseExceptionListener(this);
+            SIPMessage sipMessage;
+            try {
+                sipMessage = parser.parseSIPMessage(message);
+            } catch (ParseException ex) {
+                // Just ignore the parse exception.
+                if (sipStack.isLoggingEnabled())
+                    sipStack.getStackLogger().logDebug("Detected a parse error " + ex);
+                continue;
+            }
+            if (sipMessage == null)
+                continue;
+            try {
+                processMessage(sipMessage);
+            } catch (Exception ex) {
+                // fatal error in processing - close the connection.
+                if (sipStack.isLoggingEnabled())
+                    sipStack.getStackLogger().logException(ex);
+                close();
+            }
+        }
+    }
+
+    /**
+     * Exception processor for exceptions detected from the parser. (This is invoked by the parser
+     * when an error is detected).
+     *
+     * @param sipMessage -- the message that incurred the error.
+     * @param ex -- parse exception detected by the parser.
+     * @param header -- header that caused the error.
+     * @throws ParseException Thrown if we want to reject the message.
+     */
+    public void handleException(ParseException ex, SIPMessage sipMessage, Class<?> hdrClass,
+            String header, String message) throws ParseException {
+        if (sipStack.isLoggingEnabled())
+            sipStack.getStackLogger().logException(ex);
+        // Log the bad message for later reference.
+        if ((hdrClass != null)
+                && (hdrClass.equals(From.class) || hdrClass.equals(To.class)
+                        || hdrClass.equals(CSeq.class) || hdrClass.equals(Via.class)
+                        || hdrClass.equals(CallID.class) || hdrClass.equals(RequestLine.class) || hdrClass
+                        .equals(StatusLine.class))) {
+            if (sipStack.isLoggingEnabled()) {
+                sipStack.getStackLogger().logDebug(
+                        "Encountered Bad Message \n" + sipMessage.toString());
+            }
+
+            // JvB: send a 400 response for requests (except ACK)
+            String msgString = sipMessage.toString();
+            if (!msgString.startsWith("SIP/") && !msgString.startsWith("ACK ")) {
+
+                SIPMessage badReqRes = createBadReqRes(msgString, ex);
+                if (badReqRes != null) {
+                    if (sipStack.isLoggingEnabled()) {
+                        sipStack.getStackLogger().logDebug("Sending automatic 400 Bad Request:");
+                        sipStack.getStackLogger().logDebug(msgString);
+                    }
+                    try {
+                        this.send(badReqRes, false);
+                    } catch (IOException e) {
+                        if (sipStack.isLoggingEnabled())
+                            this.sipStack.getStackLogger().logException(e);
+                    }
+                } else {
+                    if (sipStack.isLoggingEnabled()) {
+                        sipStack.getStackLogger().logDebug(
+                                "Could not formulate automatic 400 Bad Request");
+                    }
+                }
+            }
+
+            throw ex;
+        } else {
+            sipMessage.addUnparsed(header);
+        }
+    }
+
+    /**
+     * Process a received message (this calls the application for processing the message).
+     *
+     * @param sipMessage Mesage to process.
+     */
+    public void processMessage(SIPMessage sipMessage) throws Exception {
+        if (sipMessage.getFrom() == null || sipMessage.getTo() == null
+                || sipMessage.getCallId() == null || sipMessage.getCSeq() == null
+                || sipMessage.getViaHeaders() == null) {
+            String badmsg = sipMessage.encode();
+            if (sipStack.isLoggingEnabled()) {
+                sipStack.getStackLogger().logDebug(">>> Dropped Bad Msg");
+                sipStack.getStackLogger().logDebug(badmsg);
+            }
+            return;
+        }
+
+        ViaList viaList = sipMessage.getViaHeaders();
+        // For a request
+        // first via header tells where the message is coming from.
+        // For response, this has already been recorded in the outgoing
+        // message.
+        if (sipMessage instanceof SIPRequest) {
+            Via v = (Via) viaList.getFirst();
+            Hop hop = sipStack.addressResolver.resolveAddress(v.getHop());
+            this.peerProtocol = v.getTransport();
+            try {
+                // JvB: if sender added 'rport', must always set received
+                if (v.hasParameter(Via.RPORT)
+                        || !hop.getHost().equals(this.peerAddress.getHostAddress())) {
+                    v.setParameter(Via.RECEIVED, this.peerAddress.getHostAddress());
+                }
+                // @@@ hagai
+                // JvB: technically, may only do this when Via already
+                // contains
+                // rport
+                v.setParameter(Via.RPORT, Integer.toString(this.peerPort));
+            } catch (java.text.ParseException ex) {
+                InternalErrorHandler.handleException(ex, sipStack.getStackLogger());
+            }
+            // Use this for outgoing messages as well.
+            if (!this.isCached) {
+                nioMessageProcessor.cacheMessageChannel(this);
+                this.isCached = true;
+            }
+        }
+
+        long receptionTime = System.currentTimeMillis();
+
+        if (sipMessage instanceof SIPRequest) {
+            // This is a request - process the request.
+            SIPRequest sipRequest = (SIPRequest) sipMessage;
+            if (sipStack.isLoggingEnabled()) {
+                sipStack.getStackLogger().logDebug("----Processing Message---");
+            }
+            if (this.sipStack.getStackLogger().isLoggingEnabled(ServerLogger.TRACE_MESSAGES)) {
+                sipStack.serverLogger.logMessage(sipMessage, this.getPeerHostPort().toString(),
+                        this.getMessageProcessor().getIpAddress().getHostAddress() + ":"
+                                + this.getMessageProcessor().getPort(), false, receptionTime);
+            }
+
+            // Check for reasonable size - reject message
+            // if it is too long.
+            if (sipStack.getMaxMessageSize() > 0
+                    && sipRequest.getSize()
+                            + (sipRequest.getContentLength() == null ? 0 : sipRequest
+                                    .getContentLength().getContentLength()) > sipStack
+                            .getMaxMessageSize()) {
+                SIPResponse sipResponse = sipRequest
+                        .createResponse(SIPResponse.MESSAGE_TOO_LARGE);
+                this.send(sipResponse, false);
+                throw new Exception("Message size exceeded");
+            }
+
+            ServerRequestInterface sipServerRequest = sipStack.newSIPServerRequest(sipRequest,
+                    this);
+
+            if (sipServerRequest != null) {
+                try {
+                    sipServerRequest.processRequest(sipRequest, this);
+                } finally {
+                    if (sipServerRequest instanceof SIPTransaction) {
+                        SIPServerTransaction sipServerTx = (SIPServerTransaction) sipServerRequest;
+                        if (!sipServerTx.passToListener())
+                            ((SIPTransaction) sipServerRequest).releaseSem();
+                    }
+                }
+            } else {
+                if (sipStack.isLoggingEnabled())
+                    this.sipStack.getStackLogger().logWarning(
+                            "Dropping request -- could not acquire semaphore in 10 sec");
+            }
+
+        } else {
+            SIPResponse sipResponse = (SIPResponse) sipMessage;
+            try {
+                sipResponse.checkHeaders();
+            } catch (ParseException ex) {
+                if (sipStack.isLoggingEnabled())
+                    sipStack.getStackLogger().logError(
+                            "Dropping Badly formatted response message >>> " + sipResponse);
+                return;
+            }
+            // This is a response message - process it.
+            // Check the size of the response.
+            // If it is too large dump it silently.
+            if (sipStack.getMaxMessageSize() > 0
+                    && sipResponse.getSize()
+                            + (sipResponse.getContentLength() == null ? 0 : sipResponse
+                                    .getContentLength().getContentLength()) > sipStack
+                            .getMaxMessageSize()) {
+                if (sipStack.isLoggingEnabled())
+                    this.sipStack.getStackLogger().logDebug("Message size exceeded");
+                return;
+            }
+            ServerResponseInterface sipServerResponse = sipStack.newSIPServerResponse(
+                    sipResponse, this);
+            if (sipServerResponse != null) {
+                try {
+                    if (sipServerResponse instanceof SIPClientTransaction
+                            && !((SIPClientTransaction) sipServerResponse)
+                                    .checkFromTag(sipResponse)) {
+                        if (sipStack.isLoggingEnabled())
+                            sipStack.getStackLogger().logError(
+                                    "Dropping response message with invalid tag >>> "
+                                            + sipResponse);
+                        return;
+                    }
+
+                    sipServerResponse.processResponse(sipResponse, this);
+                } finally {
+                    if (sipServerResponse instanceof SIPTransaction
+                            && !((SIPTransaction) sipServerResponse).passToListener())
+                        ((SIPTransaction) sipServerResponse).releaseSem();
+                }
+            } else {
+                sipStack.getStackLogger().logWarning(
+                        "Application is blocked -- could not acquire semaphore -- dropping response");
+            }
+        }
+    }
+
+    protected void uncache() {
+        if (isCached && socketChannel == null) {
+            nioMessageProcessor.remove(this, false);
+        }
+    }
+
+    /**
+     * Equals predicate.
+     *
+     * @param other is the other object to compare ourselves to for equals
+     */
+    public boolean equals(Object other) {
+        if (other == null || !this.getClass().equals(other.getClass()))
+            return false;
+        NioTcpMessageChannel that = (NioTcpMessageChannel) other;
+        return this.socketChannel == that.socketChannel && this.getKey().equals(that.getKey());
+    }
+
+    /**
+     * Hash code consistent with equals: the key identifies the peer of the channel.
+     */
+    public int hashCode() {
+        return getKey().hashCode();
+    }
+
+    /**
+     * Get an identifying key. This key is used to cache the connection and re-use it if
+     * necessary.
+     */
+    public String getKey() {
+        if (this.key == null) {
+            this.key = MessageChannel.getKey(this.peerAddress, this.peerPort, getTransport());
+        }
+        return this.key;
+    }
+
+    /**
+     * Get the host to assign to outgoing messages.
+     *
+     * @return the host to assign to the via header.
+     */
+    public String getViaHost() {
+        return myAddress;
+    }
+
+    /**
+     * Get the port for outgoing messages sent from the channel.
+     *
+     * @return the port to assign to the via header.
+     */
+    public int getViaPort() {
+        return myPort;
+    }
+
+    /**
+     * Get the port of the peer to whom we are sending messages.
+     *
+     * @return the peer port.
+     */
+    public int getPeerPort() {
+        return peerPort;
+    }
+
+    public int getPeerPacketSourcePort() {
+        return this.peerPort;
+    }
+
+    public InetAddress getPeerPacketSourceAddress() {
+        return this.peerAddress;
+    }
+
+    /**
+     * TCP Is not a secure protocol.
+     */
+    public boolean isSecure() {
+        return false;
+    }
+}
@@ -0,0 +1,308 @@
+/*
+ * Conditions Of Use
+ *
+ * This software was developed by employees of the National Institute of
+ * Standards and Technology (NIST), an agency of the Federal Government.
+ * Pursuant to title 15 Untied States Code Section 105, works of NIST
+ * employees are not subject to copyright protection in the United States
+ * and are considered to be in the public domain.  As a result, a formal
+ * license is not needed to use the software.
+ *
+ * This software is provided by NIST as a service and is expressly
+ * provided "AS IS."  NIST MAKES NO WARRANTY OF ANY KIND, EXPRESS, IMPLIED
+ * OR STATUTORY, INCLUDING, WITHOUT LIMITATION, THE IMPLIED WARRANTY OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE, NON-INFRINGEMENT
+ * AND DATA ACCURACY.  NIST does not warrant or make any representations
+ * regarding the use of the software or the results thereof, including but
+ * not limited to the correctness, accuracy, reliability or usefulness of
+ * the software.
+ *
+ * Permission to use this software is contingent upon your acceptance
+ * of the terms of this agreement
+ *
+ * .
+ *
+ */
+package gov2.nist.javax2.sip.stack;
+
+import gov2.nist.core.HostPort;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Hashtable;
+
+/**
+ * TCP message processor based on non-blocking sockets.<br/>
+ * The connections are accepted, read and written by the selector thread of the stack, so that
+ * no thread is dedicated to a connection as with {@link TCPMessageProcessor}. The connections
+ * are cached by peer address as with {@link TCPMessageProcessor}.
+ *
+ * @see NioTcpMessageChannel
+ */
+public class NioTcpMessageProcessor extends MessageProcessor implements NioSelector.Handler {
+
+    protected final NioSelector selector;
+
+    protected int nConnections;
+
+    private volatile boolean isRunning;
+
+    private Hashtable<String, NioTcpMessageChannel> messageChannels;
+
+    private ArrayList<NioTcpMessageChannel> incomingMessageChannels;
+
+    private ServerSocketChannel serverChannel;
+
+    // True while new connections are accepted.
+    private boolean acceptInterest;
+
+    protected int useCount;
+
+    /**
+     * Constructor.
+     *
+     * @param ipAddress address where this message processor listens.
+     * @param sipStack SIPStack structure.
+     * @param port port where this message processor listens.
+     */
+    protected NioTcpMessageProcessor(InetAddress ipAddress, SIPTransactionStack sipStack,
+            int port) throws IOException {
+        this(ipAddress, sipStack, port, "tcp");
+    }
+
+    protected NioTcpMessageProcessor(InetAddress ipAddress, SIPTransactionStack sipStack,
+            int port, String transport) throws IOException {
+        super(ipAddress, port, transport, sipStack);
+        this.sipStack = sipStack;
+        this.selector = sipStack.getNioSelector();
+        this.messageChannels = new Hashtable<String, NioTcpMessageChannel>();
+        this.incomingMessageChannels = new ArrayList<NioTcpMessageChannel>();
+    }
+
+    /**
+     * Start the processor.
+     */
+    public void start() throws IOException {
+        this.serverChannel = ServerSocketChannel.open();
+        try {
+            serverChannel.socket().bind(new InetSocketAddress(getIpAddress(), getPort()));
+            serverChannel.configureBlocking(false);
+        } catch (IOException ex) {
+            serverChannel.close();
+            throw ex;
+        }
+        if (getIpAddress().getHostAddress().equals(IN_ADDR_ANY)
+                || getIpAddress().getHostAddress().equals(IN6_ADDR_ANY)) {
+            // Store the address to which we are actually bound
+            super.setIpAddress(serverChannel.socket().getInetAddress());
+        }
+        this.isRunning = true;
+        synchronized (this) {
+            this.acceptInterest = true;
+        }
+        selector.register(serverChannel, SelectionKey.OP_ACCEPT, this);
+    }
+
+    /**
+     * Accept the pending connections. Called on the selector thread.
+     */
+    public void handleSelection(SelectionKey key) {
+        while (this.isRunning) {
+            synchronized (this) {
+                // sipStack.maxConnections == -1 means we are
+                // willing to handle an "infinite" number of
+                // simultaneous connections (no resource limitation).
+                // This is the default behavior.
+                if (sipStack.maxConnections != -1
+                        && this.nConnections >= sipStack.maxConnections) {
+                    // Stop accepting until a connection gets closed.
+                    setAcceptInterest(false);
+                    return;
+                }
+            }
+            SocketChannel channel;
+            try {
+                channel = serverChannel.accept();
+                if (channel == null)
+                    return;
+                channel.configureBlocking(false);
+            } catch (IOException ex) {
+                // Problem accepting connection.
+                if (sipStack.isLoggingEnabled())
+                    sipStack.getStackLogger().logException(ex);
+                return;
+            }
+            if (sipStack.isLoggingEnabled()) {
+                sipStack.getStackLogger().logDebug("Accepting new connection!");
+            }
+            try {
+                NioTcpMessageChannel messageChannel = createIncomingChannel(channel);
+                synchronized (this) {
+                    this.nConnections++;
+                    incomingMessageChannels.add(messageChannel);
+                }
+            } catch (IOException ex) {
+                if (sipStack.isLoggingEnabled())
+                    sipStack.getStackLogger().logException(ex);
+                try {
+                    channel.close();
+                } catch (IOException e) {
+                }
+            }
+        }
+    }
+
+    /**
+     * Change the interest of the selector for new connections. Called with the lock held.
+     */
+    private void setAcceptInterest(boolean accept) {
+        if (accept != acceptInterest && isRunning) {
+            acceptInterest = accept;
+            selector.setInterestOps(serverChannel, accept ? SelectionKey.OP_ACCEPT : 0);
+        }
+    }
+
+    /**
+     * Create the message channel of an accepted connection.
+     *
+     * @param channel the accepted connection, in non-blocking mode.
+     */
+    protected NioTcpMessageChannel createIncomingChannel(SocketChannel channel)
+            throws IOException {
+        return new NioTcpMessageChannel(channel, sipStack, this);
+    }
+
+    /**
+     * Create the message channel of a connection to establish.
+     *
+     * @param host address to connect to.
+     * @param port port to connect to.
+     */
+    protected NioTcpMessageChannel createOutgoingChannel(InetAddress host, int port) {
+        return new NioTcpMessageChannel(host, port, sipStack, this);
+    }
+
+    /**
+     * There is no thread of the processor: the selector thread accepts the connections.
+     */
+    public void run() {
+    }
+
+    /**
+     * Returns the stack.
+     *
+     * @return my sip stack.
+     */
+    public SIPTransactionStack getSIPStack() {
+        return sipStack;
+    }
+
+    /**
+     * Stop the message processor and close all the connections.
+     */
+    public void stop() {
+        ArrayList<NioTcpMessageChannel> channels;
+        synchronized (this) {
+            isRunning = false;
+            try {
+                if (serverChannel != null)
+                    serverChannel.close();
+            } catch (IOException e) {
+                if (sipStack.isLoggingEnabled())
+                    sipStack.getStackLogger().logException(e);
+            }
+            channels = new ArrayList<NioTcpMessageChannel>(messageChannels.values());
+            channels.addAll(incomingMessageChannels);
+        }
+        for (NioTcpMessageChannel next : channels) {
+            next.close();
+        }
+    }
+
+    /**
+     * Forget a closed connection.
+     *
+     * @param messageChannel the closed message channel.
+     * @param incoming true if the connection was accepted by the processor.
+     */
+    protected synchronized void remove(NioTcpMessageChannel messageChannel, boolean incoming) {
+
+        String key = messageChannel.getKey();
+        if (sipStack.isLoggingEnabled()) {
+            sipStack.getStackLogger().logDebug(Thread.currentThread() + " removing " + key);
+        }
+
+        /** May have been removed already */
+        if (messageChannels.get(key) == messageChannel) {
+            this.messageChannels.remove(key);
+        }
+
+        if (incoming && incomingMessageChannels.remove(messageChannel)) {
+            this.nConnections--;
+            setAcceptInterest(true);
+        }
+    }
+
+    public MessageChannel createMessageChannel(HostPort targetHostPort) throws IOException {
+        return createMessageChannel(targetHostPort.getInetAddress(), targetHostPort.getPort());
+    }
+
+    protected synchronized void cacheMessageChannel(NioTcpMessageChannel messageChannel) {
+        String key = messageChannel.getKey();
+        NioTcpMessageChannel currentChannel = messageChannels.get(key);
+        if (currentChannel != null && currentChannel != messageChannel) {
+            if (sipStack.isLoggingEnabled())
+                sipStack.getStackLogger().logDebug("Closing " + key);
+            currentChannel.close();
+        }
+        if (sipStack.isLoggingEnabled())
+            sipStack.getStackLogger().logDebug("Caching " + key);
+        this.messageChannels.put(key, messageChannel);
+    }
+
+    public synchronized MessageChannel createMessageChannel(InetAddress host, int port)
+            throws IOException {
+        String key = MessageChannel.getKey(host, port, getTransport());
+        NioTcpMessageChannel retval = messageChannels.get(key);
+        if (retval == null) {
+            retval = createOutgoingChannel(host, port);
+            this.messageChannels.put(key, retval);
+            retval.isCached = true;
+            if (sipStack.isLoggingEnabled()) {
+                sipStack.getStackLogger().logDebug("key " + key);
+                sipStack.getStackLogger().logDebug("Creating " + retval);
+            }
+        }
+        return retval;
+    }
+
+    /**
+     * TCP can handle an unlimited number of bytes.
+     */
+    public int getMaximumMessageSize() {
+        return Integer.MAX_VALUE;
+    }
+
+    public boolean inUse() {
+        return this.useCount != 0;
+    }
+
+    /**
+     * Default target port for TCP
+     */
+    public int getDefaultTargetPort() {
+        return 5060;
+    }
+
+    /**
+     * TCP is not a secure protocol.
+     */
+    public boolean isSecure() {
+        return false;
+    }
+}
@@ -0,0 +1,295 @@
+/*
+ * Conditions Of Use
+ *
+ * This software was developed by employees of the National Institute of
+ * Standards and Technology (NIST), an agency of the Federal Government.
+ * Pursuant to title 15 Untied States Code Section 105, works of NIST
+ * employees are not subject to copyright protection in the United States
+ * and are considered to be in the public domain.  As a result, a formal
+ * license is not needed to use the software.
+ *
+ * This software is provided by NIST as a service and is expressly
+ * provided "AS IS."  NIST MAKES NO WARRANTY OF ANY KIND, EXPRESS, IMPLIED
+ * OR STATUTORY, INCLUDING, WITHOUT LIMITATION, THE IMPLIED WARRANTY OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE, NON-INFRINGEMENT
+ * AND DATA ACCURACY.  NIST does not warrant or make any representations
+ * regarding the use of the software or the results thereof, including but
+ * not limited to the correctness, accuracy, reliability or usefulness of
+ * the software.
+ *
+ * Permission to use this software is contingent upon your acceptance
+ * of the terms of this agreement
+ *
+ * .
+ *
+ */
+package gov2.nist.javax2.sip.stack;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.LinkedList;
+
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLEngineResult;
+import javax.net.ssl.SSLEngineResult.HandshakeStatus;
+import javax.net.ssl.SSLSession;
+
+/**
+ * Message channel for a TLS connection handled by the selector thread of the stack.<br/>
+ * The TLS records are produced and consumed by an {@link SSLEngine}: the messages sent are
+ * wrapped by the sending thread, and the received records are unwrapped by the selector thread
+ * before being framed. The network buffers of the engine come from the pool of the selector.
+ *
+ * @see NioTlsMessageProcessor
+ */
+public class NioTlsMessageChannel extends NioTcpMessageChannel {
+
+    private static final ByteBuffer EMPTY_BUFFER = ByteBuffer.allocate(0);
+
+    private SSLEngine engine;
+
+    // Plain text waiting to be wrapped, guarded by the write lock.
+    private final LinkedList<ByteBuffer> pendingPlainText = new LinkedList<ByteBuffer>();
+
+    // Records waiting to be written, guarded by the write lock.
+    private ByteBuffer netOut;
+
+    // Received records and unwrapped plain text, only used by the selector thread.
+    private ByteBuffer netIn;
+
+    private ByteBuffer appIn;
+
+    /**
+     * Constructor for a connection accepted by the message processor.
+     *
+     * @param socketChannel the accepted connection, in non-blocking mode.
+     * @param sipStack the SIP stack.
+     * @param msgProcessor the message processor that accepted the connection.
+     */
+    protected NioTlsMessageChannel(SocketChannel socketChannel, SIPTransactionStack sipStack,
+            NioTlsMessageProcessor msgProcessor) throws IOException {
+        super(socketChannel, sipStack, msgProcessor);
+    }
+
+    /**
+     * Constructor for a connection to the given address, established when the first message is
+     * sent.
+     *
+     * @param inetAddr inet address to connect to.
+     * @param port port to connect to.
+     * @param sipStack the SIP stack.
+     * @param msgProcessor the message processor creating the channel.
+     */
+    protected NioTlsMessageChannel(InetAddress inetAddr, int port,
+            SIPTransactionStack sipStack, NioTlsMessageProcessor msgProcessor) {
+        super(inetAddr, port, sipStack, msgProcessor);
+    }
+
+    /**
+     * Start the handshake on the connected socket. Called with the write lock held.
+     */
+    protected void connected(SocketChannel channel, boolean clientMode) throws IOException {
+        // Called by the super constructor for an accepted connection.
+        NioTlsMessageProcessor processor = (NioTlsMessageProcessor) nioMessageProcessor;
+        this.engine = processor.createSSLEngine(clientMode, peerAddress.getHostAddress(),
+                peerPort);
+        SSLSession session = engine.getSession();
+        this.netOut = selector.acquireBuffer(session.getPacketBufferSize());
+        final ByteBuffer in = selector.acquireBuffer(session.getPacketBufferSize());
+        final ByteBuffer app = selector.acquireBuffer(session.getApplicationBufferSize());
+        selector.execute(new Runnable() {
+            public void run() {
+                netIn = in;
+                appIn = app;
+            }
+        });
+        engine.beginHandshake();
+        super.connected(channel, clientMode);
+    }
+
+    /**
+     * Give the buffers of the engine back to the pool. Called with the write lock held.
+     */
+    protected void disconnected() {
+        super.disconnected();
+        pendingPlainText.clear();
+        if (engine != null) {
+            engine.closeOutbound();
+        }
+        if (netOut != null) {
+            selector.releaseBuffer(netOut);
+            netOut = null;
+        }
+        // The receive buffers may be in use by the selector thread.
+        selector.execute(new Runnable() {
+            public void run() {
+                if (netIn != null) {
+                    selector.releaseBuffer(netIn);
+                    selector.releaseBuffer(appIn);
+                    netIn = null;
+                    appIn = null;
+                }
+            }
+        });
+    }
+
+    /**
+     * Queue plain text to wrap. Called with the write lock held.
+     */
+    protected void enqueue(ByteBuffer data) {
+        pendingPlainText.add(data);
+    }
+
+    /**
+     * Wrap the queued plain text and the handshake records, and write them as long as the
+     * socket takes them. Called with the write lock held.
+     */
+    protected boolean flushPending() throws IOException {
+        while (true) {
+            netOut.flip();
+            write(netOut);
+            netOut.compact();
+            if (netOut.position() > 0)
+                return false;
+
+            HandshakeStatus status = engine.getHandshakeStatus();
+            ByteBuffer source;
+            if (status == HandshakeStatus.NEED_WRAP) {
+                source = pendingPlainText.isEmpty() ? EMPTY_BUFFER : pendingPlainText.getFirst();
+            } else if (status == HandshakeStatus.NOT_HANDSHAKING) {
+                if (pendingPlainText.isEmpty())
+                    return true;
+                source = pendingPlainText.getFirst();
+            } else {
+                // Waiting for the peer: the selector thread flushes again once it has answered.
+                return true;
+            }
+            SSLEngineResult result = engine.wrap(source, netOut);
+            if (source != EMPTY_BUFFER && !source.hasRemaining())
+                pendingPlainText.removeFirst();
+            runDelegatedTasks(result);
+            switch (result.getStatus()) {
+                case BUFFER_OVERFLOW:
+                    // The buffer is empty: the engine needs a larger one.
+                    selector.releaseBuffer(netOut);
+                    netOut = selector.acquireBuffer(engine.getSession().getPacketBufferSize());
+                    break;
+                case CLOSED:
+                    throw new IOException("TLS connection closed");
+                default:
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Unwrap the received records and frame the plain text. Called on the selector thread.
+     */
+    protected void received(ByteBuffer data) throws IOException {
+        while (data.hasRemaining()) {
+            if (!netIn.hasRemaining()) {
+                // A record may be larger than the packet buffer size given before the handshake.
+                netIn = enlarge(netIn, netIn.capacity() + data.remaining());
+            }
+            int length = Math.min(netIn.remaining(), data.remaining());
+            int limit = data.limit();
+            data.limit(data.position() + length);
+            netIn.put(data);
+            data.limit(limit);
+            unwrap();
+        }
+        flush();
+    }
+
+    /**
+     * A partial record or an unfinished handshake is also an incomplete read. Called on the
+     * selector thread.
+     */
+    protected boolean isReadPending() {
+        if (netIn != null && netIn.position() > 0)
+            return true;
+        SSLEngine sslEngine = this.engine;
+        if (sslEngine != null && sslEngine.getHandshakeStatus() != HandshakeStatus.NOT_HANDSHAKING)
+            return true;
+        return super.isReadPending();
+    }
+
+    private void unwrap() throws IOException {
+        netIn.flip();
+        try {
+            while (netIn.hasRemaining()) {
+                SSLEngineResult result = engine.unwrap(netIn, appIn);
+                runDelegatedTasks(result);
+                switch (result.getStatus()) {
+                    case BUFFER_UNDERFLOW:
+                        // Wait for the rest of the record.
+                        return;
+                    case BUFFER_OVERFLOW:
+                        appIn = enlarge(appIn, engine.getSession().getApplicationBufferSize()
+                                + appIn.position());
+                        continue;
+                    case CLOSED:
+                        throw new IOException("TLS connection closed by peer");
+                    default:
+                        break;
+                }
+                if (appIn.position() > 0) {
+                    appIn.flip();
+                    decode(appIn);
+                    appIn.clear();
+                }
+                if (result.getHandshakeStatus() == HandshakeStatus.NEED_WRAP)
+                    flush();
+                if (result.bytesConsumed() == 0 && result.bytesProduced() == 0)
+                    return;
+            }
+        } finally {
+            netIn.compact();
+        }
+    }
+
+    private ByteBuffer enlarge(ByteBuffer buffer, int size) {
+        ByteBuffer larger = selector.acquireBuffer(size);
+        buffer.flip();
+        larger.put(buffer);
+        selector.releaseBuffer(buffer);
+        return larger;
+    }
+
+    private void runDelegatedTasks(SSLEngineResult result) {
+        if (result.getHandshakeStatus() == HandshakeStatus.NEED_TASK) {
+            Runnable task;
+            while ((task = engine.getDelegatedTask()) != null) {
+                task.run();
+            }
+        }
+    }
+
+    /**
+     * Get the TLS session of the connection.
+     *
+     * @return the session, null before the connection.
+     */
+    public SSLSession getSSLSession() {
+        SSLEngine sslEngine = this.engine;
+        return sslEngine == null ? null : sslEngine.getSession();
+    }
+
+    /**
+     * get the transport string.
+     *
+     * @return "TLS" in this case.
+     */
+    public String getTransport() {
+        return "TLS";
+    }
+
+    /**
+     * TLS is a secure protocol.
+     */
+    public boolean isSecure() {
+        return true;
+    }
+}
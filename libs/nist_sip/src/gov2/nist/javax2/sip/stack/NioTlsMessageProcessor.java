@@ -0,0 +1,116 @@
+/*
+ * Conditions Of Use
+ *
+ * This software was developed by employees of the National Institute of
+ * Standards and Technology (NIST), an agency of the Federal Government.
+ * Pursuant to title 15 Untied States Code Section 105, works of NIST
+ * employees are not subject to copyright protection in the United States
+ * and are considered to be in the public domain.  As a result, a formal
+ * license is not needed to use the software.
+ *
+ * This software is provided by NIST as a service and is expressly
+ * provided "AS IS."  NIST MAKES NO WARRANTY OF ANY KIND, EXPRESS, IMPLIED
+ * OR STATUTORY, INCLUDING, WITHOUT LIMITATION, THE IMPLIED WARRANTY OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE, NON-INFRINGEMENT
+ * AND DATA ACCURACY.  NIST does not warrant or make any representations
+ * regarding the use of the software or the results thereof, including but
+ * not limited to the correctness, accuracy, reliability or usefulness of
+ * the software.
+ *
+ * Permission to use this software is contingent upon your acceptance
+ * of the terms of this agreement
+ *
+ * .
+ *
+ */
+package gov2.nist.javax2.sip.stack;
+
+import gov2.nist.core.net.NetworkLayer;
+import gov2.nist.core.net.SslNetworkLayer;
+import gov2.nist.javax2.sip.SipStackImpl;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.nio.channels.SocketChannel;
+import java.security.NoSuchAlgorithmException;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+
+/**
+ * TLS message processor based on non-blocking sockets and SSL engines.<br/>
+ * The SSL context is the one of the network layer of the stack when it is a
+ * {@link SslNetworkLayer}, the default SSL context otherwise.
+ *
+ * @see NioTlsMessageChannel
+ */
+public class NioTlsMessageProcessor extends NioTcpMessageProcessor {
+
+    private final SSLContext sslContext;
+
+    /**
+     * Constructor.
+     *
+     * @param ipAddress address where this message processor listens.
+     * @param sipStack SIPStack structure.
+     * @param port port where this message processor listens.
+     */
+    protected NioTlsMessageProcessor(InetAddress ipAddress, SIPTransactionStack sipStack,
+            int port) throws IOException {
+        super(ipAddress, sipStack, port, "tls");
+        NetworkLayer networkLayer = sipStack.getNetworkLayer();
+        if (networkLayer instanceof SslNetworkLayer) {
+            this.sslContext = ((SslNetworkLayer) networkLayer).getSSLContext();
+        } else {
+            try {
+                this.sslContext = SSLContext.getDefault();
+            } catch (NoSuchAlgorithmException ex) {
+                throw new IOException("No SSL context: " + ex.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Create the SSL engine of a connection, configured as the sockets of
+     * {@link TLSMessageProcessor} and {@link IOHandler}.
+     *
+     * @param clientMode true if the connection is established by the stack.
+     * @param peerHost address of the peer.
+     * @param peerPort port of the peer.
+     */
+    protected SSLEngine createSSLEngine(boolean clientMode, String peerHost, int peerPort) {
+        SSLEngine engine = sslContext.createSSLEngine(peerHost, peerPort);
+        engine.setUseClientMode(clientMode);
+        SipStackImpl stack = (SipStackImpl) sipStack;
+        if (clientMode) {
+            engine.setEnabledProtocols(stack.getEnabledProtocols());
+        } else {
+            engine.setWantClientAuth(true);
+            engine.setEnabledCipherSuites(stack.getEnabledCipherSuites());
+        }
+        return engine;
+    }
+
+    protected NioTcpMessageChannel createIncomingChannel(SocketChannel channel)
+            throws IOException {
+        return new NioTlsMessageChannel(channel, sipStack, this);
+    }
+
+    protected NioTcpMessageChannel createOutgoingChannel(InetAddress host, int port) {
+        return new NioTlsMessageChannel(host, port, sipStack, this);
+    }
+
+    /**
+     * Default target port for TLS
+     */
+    public int getDefaultTargetPort() {
+        return 5061;
+    }
+
+    /**
+     * TLS is a secure protocol.
+     */
+    public boolean isSecure() {
+        return true;
+    }
+}
@@ -0,0 +1,220 @@
+/*
+ * Conditions Of Use
+ *
+ * This software was developed by employees of the National Institute of
+ * Standards and Technology (NIST), an agency of the Federal Government.
+ * Pursuant to title 15 Untied States Code Section 105, works of NIST
+ * employees are not subject to copyright protection in the United States
+ * and are considered to be in the public domain.  As a result, a formal
+ * license is not needed to use the software.
+ *
+ * This software is provided by NIST as a service and is expressly
+ * provided "AS IS."  NIST MAKES NO WARRANTY OF ANY KIND, EXPRESS, IMPLIED
+ * OR STATUTORY, INCLUDING, WITHOUT LIMITATION, THE IMPLIED WARRANTY OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE, NON-INFRINGEMENT
+ * AND DATA ACCURACY.  NIST does not warrant or make any representations
+ * regarding the use of the software or the results thereof, including but
+ * not limited to the correctness, accuracy, reliability or usefulness of
+ * the software.
+ *
+ * Permission to use this software is contingent upon your acceptance
+ * of the terms of this agreement
+ *
+ * .
+ *
+ */
+package gov2.nist.javax2.sip.stack;
+
+import gov2.nist.core.HostPort;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+
+/**
+ * UDP message processor based on a non-blocking datagram channel.<br/>
+ * The datagrams are received by the selector thread of the stack into its shared read buffer,
+ * and each message is parsed and processed by a dispatch thread. Unlike
+ * {@link UDPMessageProcessor}, no thread is dedicated to the socket and no buffer is allocated
+ * for a datagram beyond the received bytes. The replies are sent from the socket of the
+ * processor.
+ *
+ * @see NioSelector
+ */
+public class NioUdpMessageProcessor extends MessageProcessor implements NioSelector.Handler {
+
+    private final NioSelector selector;
+
+    private final DatagramChannel channel;
+
+    private volatile boolean isRunning;
+
+    /**
+     * Constructor.
+     *
+     * @param ipAddress address where to receive the messages.
+     * @param sipStack pointer to the stack.
+     * @param port port where to receive the messages.
+     */
+    protected NioUdpMessageProcessor(InetAddress ipAddress, SIPTransactionStack sipStack,
+            int port) throws IOException {
+        super(ipAddress, port, "udp", sipStack);
+        this.selector = sipStack.getNioSelector();
+        this.channel = DatagramChannel.open();
+        try {
+            channel.socket().setReceiveBufferSize(sipStack.getReceiveUdpBufferSize());
+            channel.socket().setSendBufferSize(sipStack.getSendUdpBufferSize());
+            channel.socket().bind(new InetSocketAddress(ipAddress, port));
+            channel.configureBlocking(false);
+        } catch (IOException ex) {
+            channel.close();
+            throw ex;
+        }
+        if (ipAddress.getHostAddress().equals(IN_ADDR_ANY)
+                || ipAddress.getHostAddress().equals(IN6_ADDR_ANY)) {
+            // Store the address to which we are actually bound
+            super.setIpAddress(channel.socket().getLocalAddress());
+        }
+    }
+
+    /**
+     * Start receiving messages.
+     */
+    public void start() throws IOException {
+        this.isRunning = true;
+        selector.register(channel, SelectionKey.OP_READ, this);
+    }
+
+    /**
+     * Receive the pending datagrams. Called on the selector thread.
+     */
+    public void handleSelection(SelectionKey key) {
+        ByteBuffer buffer = selector.getReadBuffer();
+        try {
+            SocketAddress source;
+            while (isRunning && (source = channel.receive(buffer)) != null) {
+                buffer.flip();
+                byte[] message = new byte[buffer.remaining()];
+                buffer.get(message);
+                buffer.clear();
+                InetSocketAddress sourceAddress = (InetSocketAddress) source;
+                final DatagramPacket packet = new DatagramPacket(message, message.length,
+                        sourceAddress.getAddress(), sourceAddress.getPort());
+                selector.dispatch(new Runnable() {
+                    public void run() {
+                        processPacket(packet);
+                    }
+                });
+            }
+        } catch (IOException ex) {
+            if (sipStack.isLoggingEnabled())
+                sipStack.getStackLogger().logException(ex);
+        }
+    }
+
+    private void processPacket(DatagramPacket packet) {
+        try {
+            new UDPMessageChannel(sipStack, this).processIncomingDataPacket(packet);
+        } catch (Exception ex) {
+            if (sipStack.isLoggingEnabled())
+                sipStack.getStackLogger().logError(
+                        "Error while processing incoming UDP packet", ex);
+        }
+    }
+
+    /**
+     * Send a datagram from the socket of the processor. The datagram is dropped if the send
+     * buffer of the socket is full, as it would be by the network.
+     *
+     * @param packet the datagram to send.
+     */
+    protected void send(DatagramPacket packet) throws IOException {
+        ByteBuffer data = ByteBuffer.wrap(packet.getData(), packet.getOffset(),
+                packet.getLength());
+        if (channel.send(data, packet.getSocketAddress()) == 0) {
+            if (sipStack.isLoggingEnabled())
+                sipStack.getStackLogger().logWarning(
+                        "Dropping datagram -- socket send buffer full");
+        }
+    }
+
+    /**
+     * There is no thread of the processor: the selector thread receives the messages.
+     */
+    public void run() {
+    }
+
+    /**
+     * Stop receiving messages and close the socket.
+     */
+    public void stop() {
+        isRunning = false;
+        try {
+            channel.close();
+        } catch (IOException ex) {
+        }
+    }
+
+    /**
+     * Return the transport string.
+     *
+     * @return the transport string
+     */
+    public String getTransport() {
+        return "udp";
+    }
+
+    /**
+     * Returns the stack.
+     *
+     * @return my sip stack.
+     */
+    public SIPTransactionStack getSIPStack() {
+        return sipStack;
+    }
+
+    /**
+     * Create and return new UDPMessageChannel for the given host/port.
+     */
+    public MessageChannel createMessageChannel(HostPort targetHostPort) throws IOException {
+        return new UDPMessageChannel(targetHostPort.getInetAddress(), targetHostPort.getPort(),
+                sipStack, this);
+    }
+
+    public MessageChannel createMessageChannel(InetAddress host, int port) throws IOException {
+        return new UDPMessageChannel(host, port, sipStack, this);
+    }
+
+    /**
+     * Default target port for UDP
+     */
+    public int getDefaultTargetPort() {
+        return 5060;
+    }
+
+    /**
+     * UDP is not a secure protocol.
+     */
+    public boolean isSecure() {
+        return false;
+    }
+
+    /**
+     * Same maximum size as the threaded UDP message processor.
+     */
+    public int getMaximumMessageSize() {
+        return 8 * 1024;
+    }
+
+    /**
+     * The received messages are queued in the dispatch threads, not in the processor.
+     */
+    public boolean inUse() {
+        return false;
+    }
+}
@@ -23,6 +23,21 @@ import java.util.TimerTask;
 public abstract class SIPStackTimerTask extends TimerTask {
     long taskOutdatedTime;
 
+    volatile boolean cancelled;
+
+    // Bookkeeping of the hashed wheel timer, guarded by the lock of the wheel
+    volatile HashedWheelSipTimer wheel;
+
+    SIPStackTimerTask wheelPrevious;
+
+    SIPStackTimerTask wheelNext;
+
+    long wheelDeadline;
+
+    long wheelPeriod;
+
+    int wheelState;
+
     // / Implements code to be run when the SIPStackTimerTask is executed.
     protected abstract void runTask();
 
@@ -34,7 +49,25 @@ public abstract class SIPStackTimerTask extends TimerTask {
         } catch (Throwable e) {
             System.out.println("SIP stack timer task failed due to exception:");
             e.printStackTrace();
+        } finally {
+            HashedWheelSipTimer timer = this.wheel;
+            if (timer != null) {
+                timer.executed(this);
+            }
+        }
+    }
+
+    /**
+     * Cancel the task, whichever {@link SipTimer} it has been scheduled on.
+     */
+    public boolean cancel() {
+        this.cancelled = true;
+        boolean retval = super.cancel();
+        HashedWheelSipTimer timer = this.wheel;
+        if (timer != null) {
+            retval = timer.cancel(this);
         }
+        return retval;
     }
 
     /**
@@ -51,6 +51,7 @@ import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import javax.net.ssl.SSLPeerUnverifiedException;
+import javax.net.ssl.SSLSession;
 import javax2.sip.Dialog;
 import javax2.sip.IOExceptionEvent;
 import javax2.sip.ServerTransaction;
@@ -1273,6 +1274,9 @@ public abstract class SIPTransaction extends MessageChannel implements
             else if ( ((TLSMessageChannel) this.getMessageChannel()).getHandshakeCompletedListener().getHandshakeCompletedEvent() == null)
                 return null;
             else return ((TLSMessageChannel) this.getMessageChannel()).getHandshakeCompletedListener().getHandshakeCompletedEvent().getCipherSuite();
+        } else if (this.getMessageChannel() instanceof NioTlsMessageChannel) {
+            SSLSession session = ((NioTlsMessageChannel) this.getMessageChannel()).getSSLSession();
+            return session == null ? null : session.getCipherSuite();
         } else throw new UnsupportedOperationException("Not a TLS channel");
 
     }
@@ -1285,6 +1289,9 @@ public abstract class SIPTransaction extends MessageChannel implements
             else if ( ((TLSMessageChannel) this.getMessageChannel()).getHandshakeCompletedListener().getHandshakeCompletedEvent() == null)
                 return null;
             else return ((TLSMessageChannel) this.getMessageChannel()).getHandshakeCompletedListener().getHandshakeCompletedEvent().getLocalCertificates();
+        } else if (this.getMessageChannel() instanceof NioTlsMessageChannel) {
+            SSLSession session = ((NioTlsMessageChannel) this.getMessageChannel()).getSSLSession();
+            return session == null ? null : session.getLocalCertificates();
         } else throw new UnsupportedOperationException("Not a TLS channel");
     }
 
@@ -1296,6 +1303,9 @@ public abstract class SIPTransaction extends MessageChannel implements
             else if ( ((TLSMessageChannel) this.getMessageChannel()).getHandshakeCompletedListener().getHandshakeCompletedEvent() == null)
                 return null;
             else return ((TLSMessageChannel) this.getMessageChannel()).getHandshakeCompletedListener().getHandshakeCompletedEvent().getPeerCertificates();
+        } else if (this.getMessageChannel() instanceof NioTlsMessageChannel) {
+            SSLSession session = ((NioTlsMessageChannel) this.getMessageChannel()).getSSLSession();
+            return session == null ? null : session.getPeerCertificates();
         } else throw new UnsupportedOperationException("Not a TLS channel");
 
     }
@@ -49,6 +49,7 @@ import gov2.nist.javax2.sip.message.SIPRequest;
 import gov2.nist.javax2.sip.message.SIPResponse;
 
 import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
 import java.net.InetAddress;
 import java.net.NetworkInterface;
 import java.net.SocketAddress;
@@ -59,7 +60,6 @@ import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.Set;
-import java.util.Timer;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -126,7 +126,16 @@ public abstract class SIPTransactionStack implements SIPTransactionEventListener
 
     // Global timer. Use this for all timer tasks.
 
-    private Timer timer;
+    private SipTimer timer;
+
+    // Class name of the timer service, DefaultSipTimer if null
+    protected String timerClassName;
+
+    // Use the NIO message processors instead of the threaded ones.
+    protected boolean useNioTransport;
+
+    // Selector thread of the NIO message processors, created by the first one.
+    private NioSelector nioSelector;
 
     // List of pending server transactions
     private ConcurrentHashMap<String, SIPServerTransaction> pendingTransactions;
@@ -476,7 +485,7 @@ public abstract class SIPTransactionStack implements SIPTransactionEventListener
 
         // Start the timer event thread.
 
-        this.timer = new Timer();
+        this.timer = createTimer();
         this.pendingTransactions = new ConcurrentHashMap<String, SIPServerTransaction>();
         
         
@@ -512,7 +521,7 @@ public abstract class SIPTransactionStack implements SIPTransactionEventListener
         this.terminatedServerTransactionsPendingAck = new ConcurrentHashMap<String,SIPServerTransaction>();
         this.forkedClientTransactionTable = new ConcurrentHashMap<String,SIPClientTransaction>();
 
-        this.timer = new Timer();
+        this.timer = createTimer();
 
         this.activeClientTransactionCount = new AtomicInteger(0);
 
@@ -1654,7 +1663,7 @@ public abstract class SIPTransactionStack implements SIPTransactionEventListener
     public void stopStack() {
         // Prevent NPE on two concurrent stops
         if (this.timer != null)
-            this.timer.cancel();
+            this.timer.stop();
 
         // JvB: set it to null, SIPDialog tries to schedule things after stop
         timer = null;
@@ -1678,6 +1687,12 @@ public abstract class SIPTransactionStack implements SIPTransactionEventListener
             // Let the processing complete.
 
         }
+        synchronized (this) {
+            if (this.nioSelector != null) {
+                this.nioSelector.stop();
+                this.nioSelector = null;
+            }
+        }
         try {
 
             Thread.sleep(1000);
@@ -1988,7 +2003,9 @@ public abstract class SIPTransactionStack implements SIPTransactionEventListener
      */
     protected MessageProcessor createMessageProcessor(InetAddress ipAddress, int port,
             String transport) throws java.io.IOException {
-        if (transport.equalsIgnoreCase("udp")) {
+        if (this.useNioTransport && !transport.equalsIgnoreCase("sctp")) {
+            return createNioMessageProcessor(ipAddress, port, transport);
+        } else if (transport.equalsIgnoreCase("udp")) {
             UDPMessageProcessor udpMessageProcessor = new UDPMessageProcessor(ipAddress, this,
                     port);
             this.addMessageProcessor(udpMessageProcessor);
@@ -2029,6 +2046,43 @@ public abstract class SIPTransactionStack implements SIPTransactionEventListener
 
     }
 
+    /**
+     * Creates a message processor handled by the selector thread of the stack.
+     *
+     * @param ipAddress -- ip address for the listening point.
+     * @param port -- port for the listening point.
+     * @param transport -- transport for the listening point.
+     */
+    private MessageProcessor createNioMessageProcessor(InetAddress ipAddress, int port,
+            String transport) throws java.io.IOException {
+        MessageProcessor messageProcessor;
+        if (transport.equalsIgnoreCase("udp")) {
+            messageProcessor = new NioUdpMessageProcessor(ipAddress, this, port);
+            this.udpFlag = true;
+        } else if (transport.equalsIgnoreCase("tcp")) {
+            messageProcessor = new NioTcpMessageProcessor(ipAddress, this, port);
+        } else if (transport.equalsIgnoreCase("tls")) {
+            messageProcessor = new NioTlsMessageProcessor(ipAddress, this, port);
+        } else {
+            throw new IllegalArgumentException("bad transport");
+        }
+        this.addMessageProcessor(messageProcessor);
+        return messageProcessor;
+    }
+
+    /**
+     * Get the selector thread of the NIO message processors, started on first use.
+     *
+     * @return the selector.
+     * @throws IOException if the selector cannot be opened.
+     */
+    protected synchronized NioSelector getNioSelector() throws IOException {
+        if (this.nioSelector == null) {
+            this.nioSelector = new NioSelector(this);
+        }
+        return this.nioSelector;
+    }
+
     /**
      * Set the message factory.
      *
@@ -2446,17 +2500,55 @@ public abstract class SIPTransactionStack implements SIPTransactionEventListener
     /**
      * @param timer the timer to set
      */
-    public void setTimer(Timer timer) {
+    public void setTimer(SipTimer timer) {
         this.timer = timer;
     }
 
     /**
      * @return the timer
      */
-    public Timer getTimer() {
+    public SipTimer getTimer() {
         return timer;
     }
 
+    /**
+     * Create the timer service of the class given by the TIMER_CLASS_NAME stack property, or a
+     * {@link DefaultSipTimer} if the property is not set or the class cannot be instantiated.
+     *
+     * @return the new timer
+     */
+    protected SipTimer createTimer() {
+        if (this.timerClassName == null) {
+            return new DefaultSipTimer();
+        }
+        Exception error;
+        try {
+            Class<? extends SipTimer> timerClass = Class.forName(this.timerClassName)
+                    .asSubclass(SipTimer.class);
+            return timerClass.getDeclaredConstructor().newInstance();
+        } catch (ClassNotFoundException ex) {
+            error = ex;
+        } catch (ClassCastException ex) {
+            // The class does not implement SipTimer
+            error = ex;
+        } catch (NoSuchMethodException ex) {
+            // The class has no constructor without arguments
+            error = ex;
+        } catch (InstantiationException ex) {
+            // The class is abstract
+            error = ex;
+        } catch (IllegalAccessException ex) {
+            error = ex;
+        } catch (InvocationTargetException ex) {
+            // The constructor has thrown an exception
+            error = ex.getCause() instanceof Exception ? (Exception) ex.getCause() : ex;
+        }
+        if (isLoggingEnabled())
+            stackLogger.logError("Cannot create timer " + this.timerClassName
+                    + ", using the default timer", error);
+        return new DefaultSipTimer();
+    }
+
     
     /**
      * Size of the receive UDP buffer. This property affects performance under load. Bigger buffer
@@ -0,0 +1,65 @@
+/*
+ * Conditions Of Use
+ *
+ * This software was developed by employees of the National Institute of
+ * Standards and Technology (NIST), an agency of the Federal Government.
+ * Pursuant to title 15 Untied States Code Section 105, works of NIST
+ * employees are not subject to copyright protection in the United States
+ * and are considered to be in the public domain.  As a result, a formal
+ * license is not needed to use the software.
+ *
+ * This software is provided by NIST as a service and is expressly
+ * provided "AS IS."  NIST MAKES NO WARRANTY OF ANY KIND, EXPRESS, IMPLIED
+ * OR STATUTORY, INCLUDING, WITHOUT LIMITATION, THE IMPLIED WARRANTY OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE, NON-INFRINGEMENT
+ * AND DATA ACCURACY.  NIST does not warrant or make any representations
+ * regarding the use of the software or the results thereof, including but
+ * not limited to the correctness, accuracy, reliability or usefulness of
+ * the software.
+ *
+ * Permission to use this software is contingent upon your acceptance
+ * of the terms of this agreement
+ *
+ * .
+ *
+ */
+package gov2.nist.javax2.sip.stack;
+
+/**
+ * Timer service used by the stack for all its timer tasks: transaction retransmission and timeout
+ * timers, dialog timers, read timeouts and linger timers.<br/>
+ * The implementation is selected with the gov2.nist.javax2.sip.TIMER_CLASS_NAME stack property
+ * and must have a public no-arg constructor. Tasks are cancelled by calling
+ * {@link SIPStackTimerTask#cancel()}.
+ *
+ * @see DefaultSipTimer
+ * @see HashedWheelSipTimer
+ */
+public interface SipTimer {
+
+    /**
+     * Schedule a task for a single execution after the given delay.
+     *
+     * @param task the task to schedule
+     * @param delay delay in milliseconds
+     * @throws IllegalStateException if the task was already scheduled or cancelled, or if the
+     *             timer is stopped
+     */
+    public void schedule(SIPStackTimerTask task, long delay);
+
+    /**
+     * Schedule a task for repeated fixed-delay executions, starting after the given delay.
+     *
+     * @param task the task to schedule
+     * @param delay delay in milliseconds before the first execution
+     * @param period time in milliseconds between successive executions
+     * @throws IllegalStateException if the task was already scheduled or cancelled, or if the
+     *             timer is stopped
+     */
+    public void schedule(SIPStackTimerTask task, long delay, long period);
+
+    /**
+     * Stop the timer, discarding all the scheduled tasks.
+     */
+    public void stop();
+}
@@ -36,7 +36,6 @@ import gov2.nist.javax2.sip.parser.*;
 import java.net.*;
 import java.io.*;
 import java.text.ParseException;
-import java.util.TimerTask;
 
 import javax2.sip.address.Hop;
 
@@ -55,7 +54,7 @@ import javax2.sip.address.Hop;
  * message parser calls back via the parseError or processMessage functions that are defined as
  * part of the SIPMessageListener interface.
  * 
- * @see gov2.nist.javax2.sip.parser.PipelinedMsgParser
+ * @see gov2.nist.javax2.sip.parser.SIPStreamFramer
  * 
  * 
  * @author M. Ranganathan <br/>
@@ -67,7 +66,6 @@ public class TCPMessageChannel extends MessageChannel implements SIPMessageListe
 
     private Socket mySock;
 
-    private PipelinedMsgParser myParser;
 
     protected InputStream myClientInputStream; // just to pass to thread.
 
@@ -314,7 +312,7 @@ public class TCPMessageChannel extends MessageChannel implements SIPMessageListe
                 /*
                  * Delay the close of the socket for some time in case it is being used.
                  */
-                sipStack.getTimer().schedule(new TimerTask() {
+                sipStack.getTimer().schedule(new SIPStackTimerTask() {
                     @Override
                     public boolean cancel() {
                         try {
@@ -329,7 +327,7 @@ public class TCPMessageChannel extends MessageChannel implements SIPMessageListe
                     }
 
                     @Override
-                    public void run() {
+                    protected void runTask() {
                         try {
                             if (mySock != null) {
                                 mySock.close();
@@ -593,27 +591,24 @@ public class TCPMessageChannel extends MessageChannel implements SIPMessageListe
      * end has closed.
      */
     public void run() {
-        Pipeline hispipe = null;
-        // Create a pipeline to connect to our message parser.
-        hispipe = new Pipeline(myClientInputStream, sipStack.readTimeout,
-                ((SIPTransactionStack) sipStack).getTimer());
-        // Create a pipelined message parser to read and parse
-        // messages that we write out to him.
-        myParser = new PipelinedMsgParser(this, hispipe, this.sipStack.getMaxMessageSize());
-        // Start running the parser thread.
-        myParser.processInput();
-        // bug fix by Emmanuel Proulx
-        int bufferSize = 4096;
+        // Frame the messages in the bytes read from the connection and process them on this
+        // thread, as soon as they are complete.
+        SIPStreamFramer framer = new SIPStreamFramer(this.sipStack.getMaxMessageSize());
+        boolean readTimeoutSet = false;
         this.tcpMessageProcessor.useCount++;
         this.isRunning = true;
         try {
             while (true) {
                 try {
-                    byte[] msg = new byte[bufferSize];
-                    int nbytes = myClientInputStream.read(msg, 0, bufferSize);
+                    // Guard against bad guys: a message must be completed in time once
+                    // started.
+                    if (sipStack.readTimeout != -1 && framer.isPartial() != readTimeoutSet) {
+                        readTimeoutSet = !readTimeoutSet;
+                        mySock.setSoTimeout(readTimeoutSet ? sipStack.readTimeout : 0);
+                    }
+                    int nbytes = framer.read(myClientInputStream);
                     // no more bytes to read...
                     if (nbytes == -1) {
-                        hispipe.write("\r\n\r\n".getBytes("UTF-8"));
                         try {
                             if (sipStack.maxConnections != -1) {
                                 synchronized (tcpMessageProcessor) {
@@ -621,22 +616,16 @@ public class TCPMessageChannel extends MessageChannel implements SIPMessageListe
                                     tcpMessageProcessor.notify();
                                 }
                             }
-                            hispipe.close();
                             mySock.close();
                         } catch (IOException ioex) {
                         }
                         return;
                     }
-                    hispipe.write(msg, 0, nbytes);
-
-                } catch (IOException ex) {
-                    // Terminate the message.
-                    try {
-                        hispipe.write("\r\n\r\n".getBytes("UTF-8"));
-                    } catch (Exception e) {
-                        // InternalErrorHandler.handleException(e);
+                    byte[] msg;
+                    while ((msg = framer.next()) != null) {
+                        processFramedMessage(msg, framer.isTruncated());
                     }
-
+                } catch (IOException ex) {
                     try {
                         if (sipStack.isLoggingEnabled())
                             sipStack.getStackLogger().logDebug("IOException  closing sock " + ex);
@@ -644,12 +633,10 @@ public class TCPMessageChannel extends MessageChannel implements SIPMessageListe
                             if (sipStack.maxConnections != -1) {
                                 synchronized (tcpMessageProcessor) {
                                     tcpMessageProcessor.nConnections--;
-                                    // System.out.println("Notifying!");
                                     tcpMessageProcessor.notify();
                                 }
                             }
                             mySock.close();
-                            hispipe.close();
                         } catch (IOException ioex) {
                         }
                     } catch (Exception ex1) {
@@ -664,11 +651,40 @@ public class TCPMessageChannel extends MessageChannel implements SIPMessageListe
             this.isRunning = false;
             this.tcpMessageProcessor.remove(this);
             this.tcpMessageProcessor.useCount--;
-            myParser.close();
         }
 
     }
 
+    /**
+     * Parse and process a message framed from the connection.
+     *
+     * @param msg the bytes of the message.
+     * @param truncated true if the body has been dropped because the message is too large.
+     * @throws IOException if the connection must be closed.
+     */
+    private void processFramedMessage(byte[] msg, boolean truncated) throws IOException {
+        StringMsgParser smp = new StringMsgParser(this);
+        // Without its body, the message is only parsed to be rejected by processMessage.
+        smp.setReadBody(!truncated);
+        SIPMessage sipMessage;
+        try {
+            sipMessage = smp.parseSIPMessage(msg);
+        } catch (ParseException ex) {
+            // Just ignore the parse exception.
+            if (sipStack.isLoggingEnabled())
+                sipStack.getStackLogger().logDebug("Detected a parse error " + ex);
+            return;
+        }
+        if (sipMessage == null)
+            return;
+        try {
+            processMessage(sipMessage);
+        } catch (Exception ex) {
+            // fatal error in processing - close the connection.
+            throw new IOException("Error processing message: " + ex.getMessage(), ex);
+        }
+    }
+
     protected void uncache() {
     	if (isCached && !isRunning) {
     		this.tcpMessageProcessor.remove(this);
@@ -62,7 +62,7 @@ import javax2.sip.message.Response;
  * message parser calls back via the parseError or processMessage functions that are defined as
  * part of the SIPMessageListener interface.
  *
- * @see gov2.nist.javax2.sip.parser.PipelinedMsgParser
+ * @see gov2.nist.javax2.sip.parser.SIPStreamFramer
  *
  *
  * @author M. Ranganathan
@@ -75,7 +75,6 @@ public final class TLSMessageChannel extends MessageChannel implements SIPMessag
 
     private Socket mySock;
 
-    private PipelinedMsgParser myParser;
 
     private InputStream myClientInputStream; // just to pass to thread.
 
@@ -570,27 +569,24 @@ public final class TLSMessageChannel extends MessageChannel implements SIPMessag
      * end has closed.
      */
     public void run() {
-        Pipeline hispipe = null;
-        // Create a pipeline to connect to our message parser.
-        hispipe = new Pipeline(myClientInputStream, sipStack.readTimeout,
-                ((SIPTransactionStack) sipStack).getTimer());
-        // Create a pipelined message parser to read and parse
-        // messages that we write out to him.
-        myParser = new PipelinedMsgParser(this, hispipe, this.sipStack.getMaxMessageSize());
-        // Start running the parser thread.
-        myParser.processInput();
-        // bug fix by Emmanuel Proulx
-        int bufferSize = 4096;
+        // Frame the messages in the bytes read from the connection and process them on this
+        // thread, as soon as they are complete.
+        SIPStreamFramer framer = new SIPStreamFramer(this.sipStack.getMaxMessageSize());
+        boolean readTimeoutSet = false;
         this.tlsMessageProcessor.useCount++;
         this.isRunning = true;
         try {
             while (true) {
                 try {
-                    byte[] msg = new byte[bufferSize];
-                    int nbytes = myClientInputStream.read(msg, 0, bufferSize);
+                    // Guard against bad guys: a message must be completed in time once
+                    // started.
+                    if (sipStack.readTimeout != -1 && framer.isPartial() != readTimeoutSet) {
+                        readTimeoutSet = !readTimeoutSet;
+                        mySock.setSoTimeout(readTimeoutSet ? sipStack.readTimeout : 0);
+                    }
+                    int nbytes = framer.read(myClientInputStream);
                     // no more bytes to read...
                     if (nbytes == -1) {
-                        hispipe.write("\r\n\r\n".getBytes("UTF-8"));
                         try {
                             if (sipStack.maxConnections != -1) {
                                 synchronized (tlsMessageProcessor) {
@@ -598,22 +594,16 @@ public final class TLSMessageChannel extends MessageChannel implements SIPMessag
                                     tlsMessageProcessor.notify();
                                 }
                             }
-                            hispipe.close();
                             mySock.close();
                         } catch (IOException ioex) {
                         }
                         return;
                     }
-                    hispipe.write(msg, 0, nbytes);
-
-                } catch (IOException ex) {
-                    // Terminate the message.
-                    try {
-                        hispipe.write("\r\n\r\n".getBytes("UTF-8"));
-                    } catch (Exception e) {
-                        // InternalErrorHandler.handleException(e);
+                    byte[] msg;
+                    while ((msg = framer.next()) != null) {
+                        processFramedMessage(msg, framer.isTruncated());
                     }
-
+                } catch (IOException ex) {
                     try {
                         if (sipStack.isLoggingEnabled())
                             sipStack.getStackLogger().logDebug("IOException  closing sock " + ex);
@@ -625,7 +615,6 @@ public final class TLSMessageChannel extends MessageChannel implements SIPMessag
                                 }
                             }
                             mySock.close();
-                            hispipe.close();
                         } catch (IOException ioex) {
                         }
                     } catch (Exception ex1) {
@@ -640,11 +629,40 @@ public final class TLSMessageChannel extends MessageChannel implements SIPMessag
             this.isRunning = false;
             this.tlsMessageProcessor.remove(this);
             this.tlsMessageProcessor.useCount--;
-            this.myParser.close();
         }
 
     }
 
+    /**
+     * Parse and process a message framed from the connection.
+     *
+     * @param msg the bytes of the message.
+     * @param truncated true if the body has been dropped because the message is too large.
+     * @throws IOException if the connection must be closed.
+     */
+    private void processFramedMessage(byte[] msg, boolean truncated) throws IOException {
+        StringMsgParser smp = new StringMsgParser(this);
+        // Without its body, the message is only parsed to be rejected by processMessage.
+        smp.setReadBody(!truncated);
+        SIPMessage sipMessage;
+        try {
+            sipMessage = smp.parseSIPMessage(msg);
+        } catch (ParseException ex) {
+            // Just ignore the parse exception.
+            if (sipStack.isLoggingEnabled())
+                sipStack.getStackLogger().logDebug("Detected a parse error " + ex);
+            return;
+        }
+        if (sipMessage == null)
+            return;
+        try {
+            processMessage(sipMessage);
+        } catch (Exception ex) {
+            // fatal error in processing - close the connection.
+            throw new IOException("Error processing message: " + ex.getMessage(), ex);
+        }
+    }
+
     protected void uncache() {
     	if (isCached && !isRunning) {    	
     		this.tlsMessageProcessor.remove(this);
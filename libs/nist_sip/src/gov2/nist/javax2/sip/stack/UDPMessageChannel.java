@@ -54,7 +54,6 @@ import java.net.DatagramSocket;
 import java.net.InetAddress;
 import java.text.ParseException;
 import java.util.Hashtable;
-import java.util.TimerTask;
 
 import javax2.sip.address.Hop;
 
@@ -137,7 +136,7 @@ public class UDPMessageChannel extends MessageChannel implements
      */
     private Hashtable<String,PingBackTimerTask> pingBackRecord = new Hashtable<String,PingBackTimerTask>();
     
-    class PingBackTimerTask extends TimerTask {
+    class PingBackTimerTask extends SIPStackTimerTask {
         String ipAddress;
         int port;
         
@@ -147,7 +146,7 @@ public class UDPMessageChannel extends MessageChannel implements
             pingBackRecord.put(ipAddress + ":" + port, this);
         }
         @Override
-        public void run() {
+        protected void runTask() {
            pingBackRecord.remove(ipAddress + ":" + port);
         }
         @Override
@@ -210,6 +209,26 @@ public class UDPMessageChannel extends MessageChannel implements
 
     }
 
+    /**
+     * Constructor. We create one of these in order to process a message
+     * received by a NIO message processor, in the dispatch thread calling
+     * processIncomingDataPacket.
+     *
+     * @param stack
+     *            is the SIP sipStack.
+     * @param messageProcessor
+     *            is the NIO message processor that received the message.
+     */
+    protected UDPMessageChannel(SIPTransactionStack stack,
+            NioUdpMessageProcessor messageProcessor) {
+        super.messageProcessor = messageProcessor;
+        this.sipStack = stack;
+        this.myAddress = messageProcessor.getIpAddress().getHostAddress();
+        this.myPort = messageProcessor.getPort();
+        this.myParser = new StringMsgParser();
+        this.myParser.setParseExceptionListener(this);
+    }
+
     /**
      * Constructor. We create one of these when we send out a message.
      *
@@ -221,7 +240,7 @@ public class UDPMessageChannel extends MessageChannel implements
      *            our SIP Stack.
      */
     protected UDPMessageChannel(InetAddress targetAddr, int port,
-            SIPTransactionStack sipStack, UDPMessageProcessor messageProcessor) {
+            SIPTransactionStack sipStack, MessageProcessor messageProcessor) {
         peerAddress = targetAddr;
         peerPort = port;
         peerProtocol = "UDP";
@@ -311,7 +330,7 @@ public class UDPMessageChannel extends MessageChannel implements
      * @param packet
      *            is the incoming datagram packet.
      */
-    private void processIncomingDataPacket(DatagramPacket packet)
+    void processIncomingDataPacket(DatagramPacket packet)
             throws Exception {
         this.peerAddress = packet.getAddress();
         int packetLength = packet.getLength();
@@ -387,7 +406,7 @@ public class UDPMessageChannel extends MessageChannel implements
             if (pingBackRecord.get(packet.getAddress().getHostAddress() + ":" + packet.getPort()) == null ) {
                 byte[] retval = "\r\n\r\n".getBytes();
                 DatagramPacket keepalive = new DatagramPacket(retval,0,retval.length,packet.getAddress(),packet.getPort());
-                ((UDPMessageProcessor)this.messageProcessor).sock.send(keepalive);
+                sendDatagram(keepalive);
                 this.sipStack.getTimer().schedule(new PingBackTimerTask(packet.getAddress().getHostAddress(), 
                             packet.getPort()), 1000);                
             }
@@ -701,15 +720,12 @@ public class UDPMessageChannel extends MessageChannel implements
         DatagramPacket reply = new DatagramPacket(msg, msg.length, peerAddress,
                 peerPort);
         try {
-            DatagramSocket sock;
-            boolean created = false;
-
             if (sipStack.udpFlag) {
                 // Use the socket from the message processor (for firewall
                 // support use the same socket as the message processor
                 // socket -- feature request # 18 from java.net). This also
                 // makes the whole thing run faster!
-                sock = ((UDPMessageProcessor) messageProcessor).sock;
+                sendDatagram(reply);
 
                 // Bind the socket to the stack address in case there
                 // are multiple interfaces on the machine (feature reqeust
@@ -717,12 +733,10 @@ public class UDPMessageChannel extends MessageChannel implements
                 // sock = new DatagramSocket(0,sipStack.stackInetAddress);
             } else {
                 // bind to any interface and port.
-                sock = new DatagramSocket();
-                created = true;
-            }
-            sock.send(reply);
-            if (created)
+                DatagramSocket sock = new DatagramSocket();
+                sock.send(reply);
                 sock.close();
+            }
         } catch (IOException ex) {
             throw ex;
         } catch (Exception ex) {
@@ -766,22 +780,19 @@ public class UDPMessageChannel extends MessageChannel implements
                     peerAddress, peerPort);
 
             try {
-                DatagramSocket sock;
-                if (sipStack.udpFlag) {
-                    sock = ((UDPMessageProcessor) messageProcessor).sock;
-
-                } else {
-                    // bind to any interface and port.
-                    sock = sipStack.getNetworkLayer().createDatagramSocket();
-                }
                 if (sipStack.isLoggingEnabled()) {
                     this.sipStack.getStackLogger().logDebug("sendMessage "
                             + peerAddress.getHostAddress() + "/" + peerPort
                             + "\n" + new String(msg));
                 }
-                sock.send(reply);
-                if (!sipStack.udpFlag)
+                if (sipStack.udpFlag) {
+                    sendDatagram(reply);
+                } else {
+                    // bind to any interface and port.
+                    DatagramSocket sock = sipStack.getNetworkLayer().createDatagramSocket();
+                    sock.send(reply);
                     sock.close();
+                }
             } catch (IOException ex) {
                 throw ex;
             } catch (Exception ex) {
@@ -796,6 +807,21 @@ public class UDPMessageChannel extends MessageChannel implements
         }
     }
 
+    /**
+     * Send a datagram from the socket of the message processor.
+     *
+     * @param packet
+     *            the datagram to send.
+     * @throws IOException
+     *             If there is trouble sending the datagram.
+     */
+    private void sendDatagram(DatagramPacket packet) throws IOException {
+        if (messageProcessor instanceof NioUdpMessageProcessor)
+            ((NioUdpMessageProcessor) messageProcessor).send(packet);
+        else
+            ((UDPMessageProcessor) messageProcessor).sock.send(packet);
+    }
+
     /**
      * get the stack pointer.
      *
@@ -829,7 +855,7 @@ public class UDPMessageChannel extends MessageChannel implements
      * @return Our port (on which we are getting datagram packets).
      */
     public int getPort() {
-        return ((UDPMessageProcessor) messageProcessor).getPort();
+        return messageProcessor.getPort();
     }
 
     /**